@@ -12,6 +12,7 @@
 package org.eclipse.birt.core.archive;
 
 import org.eclipse.birt.core.archive.cache.FileCacheManagerTest;
+import org.eclipse.birt.core.archive.cache.SharedBlockCacheTest;
 import org.eclipse.birt.core.archive.compound.ArchiveEntryInputStreamTest;
 import org.eclipse.birt.core.archive.compound.ArchiveFileFactoryTest;
 import org.eclipse.birt.core.archive.compound.ArchiveFileTest;
@@ -39,6 +40,7 @@ public class AllArchiveTests
 		TestSuite test = new TestSuite( );
 
 		test.addTestSuite( FileCacheManagerTest.class );
+		test.addTestSuite( SharedBlockCacheTest.class );
 		test.addTestSuite( ArchiveEntryInputStreamTest.class );
 		test.addTestSuite( ArchiveFileFactoryTest.class );
 		test.addTestSuite( ArchiveFileTest.class );
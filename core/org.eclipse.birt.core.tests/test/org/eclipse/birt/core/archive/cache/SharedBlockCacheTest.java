@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.archive.cache;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.birt.core.archive.compound.ArchiveEntry;
+import org.eclipse.birt.core.archive.compound.ArchiveFile;
+import org.eclipse.birt.core.archive.compound.ArchiveFileV3;
+import org.eclipse.birt.core.util.CacheStatistics;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class SharedBlockCacheTest extends TestCase
+{
+
+	static final String ARCHIVE_FILE = "./utest/shared.rptdocument";
+
+	@Test
+	public void testBudget( )
+	{
+		SharedBlockCache cache = new SharedBlockCache( 64 * 4096 );
+		String document = "document";
+		cache.register( document );
+		for ( int i = 0; i < 1024; i++ )
+		{
+			cache.putBlock( document, i, new byte[4096], 0 );
+		}
+		assertTrue( cache.getUsedCacheSize( ) <= 64 * 4096 );
+		assertTrue( cache.getStatistics( ).getEvictionCount( ) >= 1024 - 64 );
+
+		// the latest block is always cached
+		assertNotNull( cache.getBlock( document, 1023 ) );
+		CacheStatistics statistics = cache.getStatistics( document );
+		assertEquals( 1, statistics.getHitCount( ) );
+		assertEquals( 1024, statistics.getLoadCount( ) );
+
+		cache.unregister( document );
+		assertNull( cache.getStatistics( document ) );
+
+		cache.setMaxCacheSize( 0 );
+		assertFalse( cache.isEnabled( ) );
+		assertEquals( 0, cache.getUsedCacheSize( ) );
+	}
+
+	@Test
+	public void testRemoveBlocks( )
+	{
+		SharedBlockCache cache = new SharedBlockCache( 1024 * 4096 );
+		for ( int i = 0; i < 16; i++ )
+		{
+			cache.putBlock( "doc1", i, new byte[4096], 0 );
+			cache.putBlock( "doc2", i, new byte[4096], 0 );
+		}
+		assertEquals( 32 * 4096, cache.getUsedCacheSize( ) );
+		cache.removeBlocks( "doc1" );
+		assertEquals( 16 * 4096, cache.getUsedCacheSize( ) );
+		assertNull( cache.getBlock( "doc1", 0 ) );
+		assertNotNull( cache.getBlock( "doc2", 0 ) );
+		cache.clear( );
+		assertEquals( 0, cache.getUsedCacheSize( ) );
+	}
+
+	@Test
+	public void testSharedArchiveCache( ) throws IOException
+	{
+		new File( ARCHIVE_FILE ).getParentFile( ).mkdirs( );
+		ArchiveFile.setSharedBlockCacheSize( 1024 * 4096 );
+		try
+		{
+			ArchiveFile archive = new ArchiveFile( ARCHIVE_FILE, "rw" );
+			ArchiveEntry entry = archive.createEntry( "/entry" );
+			byte[] b = new byte[8192];
+			for ( int i = 0; i < b.length; i++ )
+			{
+				b[i] = (byte) i;
+			}
+			entry.write( 0, b, 0, b.length );
+			entry.close( );
+			archive.close( );
+
+			ArchiveFileV3 reader1 = new ArchiveFileV3( ARCHIVE_FILE, "r" );
+			ArchiveFileV3 reader2 = new ArchiveFileV3( ARCHIVE_FILE, "r" );
+			checkEntry( reader1, b );
+			checkEntry( reader2, b );
+			CacheStatistics statistics = reader2.getSharedCacheStatistics( );
+			assertTrue( statistics.getHitCount( ) > 0 );
+			reader1.close( );
+			reader2.close( );
+		}
+		finally
+		{
+			ArchiveFile.setSharedBlockCacheSize( 0 );
+			new File( ARCHIVE_FILE ).delete( );
+		}
+	}
+
+	@Test
+	public void testWritableArchive( ) throws IOException
+	{
+		new File( ARCHIVE_FILE ).getParentFile( ).mkdirs( );
+		ArchiveFile.setSharedBlockCacheSize( 1024 * 4096 );
+		try
+		{
+			byte[] b = new byte[8192];
+			for ( int i = 0; i < b.length; i++ )
+			{
+				b[i] = (byte) ( i * 3 );
+			}
+			ArchiveFileV3 writer = new ArchiveFileV3( ARCHIVE_FILE, "rw" );
+			ArchiveEntry entry = writer.createEntry( "/entry" );
+			entry.write( 0, b, 0, b.length );
+			entry.close( );
+			writer.flush( );
+			checkEntry( writer, b );
+			assertNull( writer.getSharedCacheStatistics( ) );
+			writer.close( );
+
+			ArchiveFileV3 reader = new ArchiveFileV3( ARCHIVE_FILE, "r" );
+			checkEntry( reader, b );
+			reader.close( );
+
+			// the appended content replaces the blocks read before
+			ArchiveFileV3 appender = new ArchiveFileV3( ARCHIVE_FILE, "rw+" );
+			checkEntry( appender, b );
+			b = new byte[8192];
+			for ( int i = 0; i < b.length; i++ )
+			{
+				b[i] = (byte) ( i * 7 );
+			}
+			entry = appender.openEntry( "/entry" );
+			entry.write( 0, b, 0, b.length );
+			entry.close( );
+			checkEntry( appender, b );
+			appender.close( );
+
+			reader = new ArchiveFileV3( ARCHIVE_FILE, "r" );
+			checkEntry( reader, b );
+			reader.close( );
+		}
+		finally
+		{
+			ArchiveFile.setSharedBlockCacheSize( 0 );
+			new File( ARCHIVE_FILE ).delete( );
+		}
+	}
+
+	@Test
+	public void testSeparateBudgets( )
+	{
+		int maxCacheSize = ArchiveFile.systemCacheManager.getMaxCacheSize( );
+		ArchiveFile.setSharedBlockCacheSize( 1024 * 4096 );
+		assertEquals( maxCacheSize,
+				ArchiveFile.systemCacheManager.getMaxCacheSize( ) );
+		ArchiveFile.setSharedBlockCacheSize( 0 );
+		assertEquals( maxCacheSize,
+				ArchiveFile.systemCacheManager.getMaxCacheSize( ) );
+		assertFalse( ArchiveFile.sharedBlockCache.isEnabled( ) );
+	}
+
+	private void checkEntry( ArchiveFileV3 archive, byte[] b )
+			throws IOException
+	{
+		ArchiveEntry entry = archive.openEntry( "/entry" );
+		try
+		{
+			byte[] r = new byte[b.length];
+			assertEquals( b.length, entry.read( 0, r, 0, r.length ) );
+			for ( int i = 0; i < b.length; i++ )
+			{
+				assertEquals( b[i], r[i] );
+			}
+		}
+		finally
+		{
+			entry.close( );
+		}
+	}
+}
@@ -69,6 +69,33 @@ public class ArchiveFileFactoryTest extends TestCase
 		readArchive.close( );
 	}
 	@Test
+    public void testOpenMappedArchive( ) throws IOException
+	{
+		ArchiveFileFactory factory = new ArchiveFileFactory( );
+		IArchiveFile writeArchive = factory.createArchive( ARCHIVE_ID );
+		byte[] mes = new byte[TEST_COUNT * 2];
+		for ( int index = 0; index < TEST_COUNT; index++ )
+		{
+			ArchiveEntry entry = writeArchive.createEntry( "/entry/" + index );
+			entry.write( 0, mes, 0, index );
+			entry.close( );
+		}
+		writeArchive.close( );
+
+		factory.setUseMappedIO( true );
+		IArchiveFile readArchive = factory.openArchive( ARCHIVE_ID, "r" );
+		assertEquals( ARCHIVE_ID, readArchive.getSystemId( ) );
+		for ( int index = 0; index < TEST_COUNT; index++ )
+		{
+			ArchiveEntry entry = readArchive.openEntry( "/entry/" + index );
+			assertTrue( entry != null );
+			assertTrue( entry.getLength( ) == index );
+			entry.close( );
+		}
+		assertEquals( 0, readArchive.getUsedCache( ) );
+		readArchive.close( );
+	}
+	@Test
     public void testCreateAndOpenView( ) throws IOException
 	{
 		IArchiveFileFactory factory = new ArchiveFileFactory( );
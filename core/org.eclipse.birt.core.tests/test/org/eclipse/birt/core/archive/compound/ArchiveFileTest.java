@@ -144,6 +144,66 @@ public class ArchiveFileTest extends TestCase
 		archive.close( );
 	}
 
+	@Test
+    public void testMappedArchive( ) throws IOException
+	{
+		ArchiveFile archive = new ArchiveFile( ARCHIVE_FILE, "rw" );
+		byte[] b = new byte[10000];
+		for ( int i = 0; i < b.length; i++ )
+		{
+			b[i] = (byte) i;
+		}
+		ArchiveEntry entry = archive.createEntry( "/mapped" );
+		entry.write( 0, b, 0, b.length );
+		entry.close( );
+		createArchive( archive );
+		archive.close( );
+
+		archive = new ArchiveFile( ARCHIVE_FILE, "rm" );
+		checkArchive( archive );
+		entry = archive.openEntry( "/mapped" );
+		try
+		{
+			assertEquals( b.length, entry.getLength( ) );
+			byte[] r = new byte[b.length];
+			assertEquals( b.length, entry.read( 0, r, 0, r.length ) );
+			for ( int i = 0; i < b.length; i++ )
+			{
+				assertEquals( b[i], r[i] );
+			}
+			// read across the block boundary
+			assertEquals( 100, entry.read( 4050, r, 0, 100 ) );
+			for ( int i = 0; i < 100; i++ )
+			{
+				assertEquals( b[4050 + i], r[i] );
+			}
+		}
+		finally
+		{
+			entry.close( );
+		}
+		assertEquals( 0, archive.getUsedCache( ) );
+		try
+		{
+			archive.createEntry( "/readonly" );
+			fail( "should not create entry in mapped mode" );
+		}
+		catch ( IOException ex )
+		{
+		}
+		// the mapped file can't be read once it is closed
+		entry = archive.openEntry( "/mapped" );
+		archive.close( );
+		try
+		{
+			entry.read( 0, new byte[100], 0, 100 );
+			fail( "should not read the closed mapped file" );
+		}
+		catch ( IOException ex )
+		{
+		}
+	}
+
 	void createArchive( ArchiveFile archive ) throws IOException
 	{
 		int entryCount = 1024;
@@ -27,6 +27,7 @@ public class AllBTreeTests
 	{
 		TestSuite test = new TestSuite( );
 
+		test.addTestSuite( BTreeBuilderTest.class );
 		test.addTestSuite( BTreeCursorTest.class );
 		test.addTestSuite( BTreeMultipleThreadTest.class );
 		test.addTestSuite( BTreeTest.class );
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.btree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class BTreeBuilderTest extends BTreeTestCase
+{
+
+	static final int KEY_COUNT = 100000;
+
+	public void testBuild( ) throws Exception
+	{
+		RAMBTreeFile file = new RAMBTreeFile( );
+		BTreeOption<Integer, String> option = new BTreeOption<Integer, String>( );
+		option.setKeySize( 4 );
+		option.setKeySerializer( new IntegerSerializer( ) );
+		option.setFile( file, true );
+		BTree<Integer, String> btree = new BTree<Integer, String>( option );
+		BTreeBuilder<Integer, String> builder = new BTreeBuilder<Integer, String>(
+				btree );
+		for ( int i = 0; i < KEY_COUNT; i++ )
+		{
+			builder.append( Integer.valueOf( i * 2 ), String.valueOf( i ) );
+		}
+		builder.finish( );
+		assertEquals( KEY_COUNT, btree.getTotalKeys( ) );
+		assertEquals( KEY_COUNT, btree.getTotalValues( ) );
+		assertEquals( "10", btree.getValue( Integer.valueOf( 20 ) ) );
+		btree.close( );
+
+		option.setReadOnly( true );
+		btree = new BTree<Integer, String>( option );
+		try
+		{
+			assertEquals( KEY_COUNT, btree.getTotalKeys( ) );
+			for ( int i = 0; i < KEY_COUNT; i++ )
+			{
+				assertEquals( String.valueOf( i ), btree.getValue( Integer
+						.valueOf( i * 2 ) ) );
+				assertFalse( btree.exist( Integer.valueOf( i * 2 + 1 ) ) );
+			}
+			assertFalse( btree.exist( Integer.valueOf( -1 ) ) );
+
+			BTreeCursor<Integer, String> cursor = btree.createCursor( );
+			try
+			{
+				int count = 0;
+				while ( cursor.next( ) )
+				{
+					assertEquals( Integer.valueOf( count * 2 ), cursor
+							.getKey( ) );
+					count++;
+				}
+				assertEquals( KEY_COUNT, count );
+				while ( cursor.previous( ) )
+				{
+					count--;
+					assertEquals( Integer.valueOf( count * 2 ), cursor
+							.getKey( ) );
+				}
+				assertEquals( 0, count );
+			}
+			finally
+			{
+				cursor.close( );
+			}
+			// the searches and the cursor unlock the shared nodes they read
+			BTreeNode<Integer, String> root = btree.loadBTreeNode( btree
+					.getRootNodeId( ) );
+			assertFalse( root.isLocked( ) );
+		}
+		finally
+		{
+			btree.close( );
+		}
+	}
+
+	public void testDuplicateKeys( ) throws Exception
+	{
+		RAMBTreeFile file = new RAMBTreeFile( );
+		BTreeOption<String, Integer> option = new BTreeOption<String, Integer>( );
+		option.setAllowDuplicate( true );
+		option.setAllowNullKey( true );
+		option.setValueSize( 4 );
+		option.setValueSerializer( new IntegerSerializer( ) );
+		option.setFile( file, true );
+		BTree<String, Integer> btree = new BTree<String, Integer>( option );
+		BTreeBuilder<String, Integer> builder = new BTreeBuilder<String, Integer>(
+				btree );
+		builder.append( null, Integer.valueOf( -1 ) );
+		List<String> keys = new ArrayList<String>( );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			keys.add( "key" + i );
+		}
+		Collections.sort( keys );
+		for ( String key : keys )
+		{
+			// some keys have too many values to be kept in the leaf nodes
+			int count = key.endsWith( "7" ) ? 2000 : 3;
+			for ( int i = 0; i < count; i++ )
+			{
+				builder.append( key, Integer.valueOf( i ) );
+			}
+		}
+		builder.finish( );
+		btree.close( );
+
+		option.setReadOnly( true );
+		btree = new BTree<String, Integer>( option );
+		try
+		{
+			assertEquals( 1001, btree.getTotalKeys( ) );
+			assertEquals( Integer.valueOf( -1 ), btree.getValue( (String) null ) );
+			for ( String key : keys )
+			{
+				Collection<Integer> values = btree.getValues( key );
+				int count = key.endsWith( "7" ) ? 2000 : 3;
+				assertEquals( count, values.size( ) );
+				int i = 0;
+				for ( Integer value : values )
+				{
+					assertEquals( i++, value.intValue( ) );
+				}
+			}
+		}
+		finally
+		{
+			btree.close( );
+		}
+	}
+
+	public void testUnsortedKeys( ) throws Exception
+	{
+		BTreeOption<Integer, String> option = new BTreeOption<Integer, String>( );
+		option.setFile( new RAMBTreeFile( ) );
+		BTree<Integer, String> btree = new BTree<Integer, String>( option );
+		try
+		{
+			BTreeBuilder<Integer, String> builder = new BTreeBuilder<Integer, String>(
+					btree );
+			builder.append( Integer.valueOf( 2 ), "2" );
+			try
+			{
+				builder.append( Integer.valueOf( 1 ), "1" );
+				fail( );
+			}
+			catch ( IOException ex )
+			{
+			}
+			builder.finish( );
+			try
+			{
+				new BTreeBuilder<Integer, String>( btree );
+				fail( );
+			}
+			catch ( IOException ex )
+			{
+			}
+		}
+		finally
+		{
+			btree.close( );
+		}
+	}
+
+	public void testConcurrentReaders( ) throws Exception
+	{
+		RAMBTreeFile file = new RAMBTreeFile( );
+		BTreeOption<Integer, String> option = new BTreeOption<Integer, String>( );
+		option.setKeySize( 4 );
+		option.setKeySerializer( new IntegerSerializer( ) );
+		option.setFile( file, true );
+		BTree<Integer, String> btree = new BTree<Integer, String>( option );
+		BTreeBuilder<Integer, String> builder = new BTreeBuilder<Integer, String>(
+				btree );
+		for ( int i = 0; i < KEY_COUNT; i++ )
+		{
+			builder.append( Integer.valueOf( i ), String.valueOf( i ) );
+		}
+		builder.finish( );
+		btree.close( );
+
+		option.setReadOnly( true );
+		final BTree<Integer, String> tree = new BTree<Integer, String>( option );
+		try
+		{
+			final List<Throwable> errors = Collections
+					.synchronizedList( new ArrayList<Throwable>( ) );
+			Thread[] threads = new Thread[8];
+			for ( int i = 0; i < threads.length; i++ )
+			{
+				final int start = i;
+				threads[i] = new Thread( ) {
+
+					public void run( )
+					{
+						try
+						{
+							for ( int key = start; key < KEY_COUNT; key += 7 )
+							{
+								assertEquals( String.valueOf( key ), tree
+										.getValue( Integer.valueOf( key ) ) );
+							}
+							BTreeCursor<Integer, String> cursor = tree
+									.createCursor( );
+							int count = 0;
+							while ( cursor.next( ) )
+							{
+								assertEquals( Integer.valueOf( count++ ),
+										cursor.getKey( ) );
+							}
+							cursor.close( );
+							assertEquals( KEY_COUNT, count );
+						}
+						catch ( Throwable ex )
+						{
+							errors.add( ex );
+						}
+					}
+				};
+				threads[i].start( );
+			}
+			for ( Thread thread : threads )
+			{
+				thread.join( );
+			}
+			if ( !errors.isEmpty( ) )
+			{
+				throw new Exception( errors.get( 0 ) );
+			}
+		}
+		finally
+		{
+			tree.close( );
+		}
+	}
+}
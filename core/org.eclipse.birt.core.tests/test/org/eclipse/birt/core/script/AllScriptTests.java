@@ -35,6 +35,7 @@ public class AllScriptTests
 	{
 		TestSuite test = new TestSuite( );
 
+		test.addTestSuite( CompiledScriptCacheTest.class );
 		test.addTestSuite( CoreJavaScriptWrapperTest.class );
 		test.addTestSuite( NativeDateTimeSpanTest.class );
 		test.addTestSuite( NativeFinanceTest.class );
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.script;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Script;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the compiled script cache.
+ */
+public class CompiledScriptCacheTest extends TestCase
+{
+
+	static final String SOURCE = "<inline>";
+
+	Context context;
+
+	@Before
+	public void setUp( )
+	{
+		context = Context.enter( );
+	}
+
+	@After
+	public void tearDown( )
+	{
+		Context.exit( );
+	}
+
+	private Script compile( String script )
+	{
+		return context.compileString( script, SOURCE, 1, null );
+	}
+
+	@Test
+	public void testGetAndPut( )
+	{
+		CompiledScriptCache cache = new CompiledScriptCache( 100 );
+		assertNull( cache.get( "1 + 1", SOURCE, 1, null ) );
+		Script script = compile( "1 + 1" );
+		cache.put( "1 + 1", SOURCE, 1, null, script, 10 );
+		assertSame( script, cache.get( "1 + 1", SOURCE, 1, null ) );
+
+		// the scripts of different security domains are different
+		assertNull( cache.get( "1 + 1", SOURCE, 1, "file:/report.rptdesign" ) );
+		Script domainScript = compile( "1 + 1" );
+		cache.put( "1 + 1", SOURCE, 1, "file:/report.rptdesign", domainScript, 10 );
+		assertSame( domainScript, cache.get( "1 + 1", SOURCE, 1,
+				"file:/report.rptdesign" ) );
+		assertSame( script, cache.get( "1 + 1", SOURCE, 1, null ) );
+		assertEquals( 2, cache.size( ) );
+
+		// the scripts of different sources are different
+		assertNull( cache.get( "1 + 1", "other.js", 1, null ) );
+		assertNull( cache.get( "1 + 1", SOURCE, 2, null ) );
+
+		assertEquals( 3, cache.getStatistics( ).getHitCount( ) );
+		assertEquals( 4, cache.getStatistics( ).getMissCount( ) );
+		assertEquals( 2, cache.getStatistics( ).getLoadCount( ) );
+		assertEquals( 20, cache.getStatistics( ).getTotalLoadTime( ) );
+
+		cache.clear( );
+		assertEquals( 0, cache.size( ) );
+		assertNull( cache.get( "1 + 1", SOURCE, 1, null ) );
+	}
+
+	@Test
+	public void testSourceInformation( )
+	{
+		String text = "throw new Error( 'failed' )";
+		Script first = JavascriptEvalUtil.getCompiledScript( context,
+				context.initStandardObjects( ),
+				text,
+				"a.js",
+				3 );
+		Script second = JavascriptEvalUtil.getCompiledScript( context,
+				context.initStandardObjects( ),
+				text,
+				"b.js",
+				7 );
+		assertNotSame( first, second );
+		assertSame( first, JavascriptEvalUtil.getCompiledScript( context,
+				context.initStandardObjects( ),
+				text,
+				"a.js",
+				3 ) );
+
+		// the errors report the source of the evaluated script
+		try
+		{
+			second.exec( context, context.initStandardObjects( ) );
+			fail( );
+		}
+		catch ( RhinoException ex )
+		{
+			assertEquals( "b.js", ex.sourceName( ) );
+			assertEquals( 7, ex.lineNumber( ) );
+		}
+	}
+
+	@Test
+	public void testEviction( )
+	{
+		CompiledScriptCache cache = new CompiledScriptCache( 64 );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			String text = "row.column" + i;
+			cache.put( text, SOURCE, 1, null, compile( text ), 0 );
+		}
+		assertTrue( cache.size( ) <= 64 );
+		assertEquals( 1000 - cache.size( ), cache.getStatistics( )
+				.getEvictionCount( ) );
+
+		// the last script is the most recently used one
+		assertNotNull( cache.get( "row.column999", SOURCE, 1, null ) );
+
+		cache.setMaxSize( 0 );
+		assertEquals( 0, cache.size( ) );
+		cache.put( "row.column0", SOURCE, 1, null, compile( "row.column0" ), 0 );
+		assertNull( cache.get( "row.column0", SOURCE, 1, null ) );
+	}
+
+	@Test
+	public void testLeastRecentlyUsed( )
+	{
+		// each segment keeps two scripts
+		CompiledScriptCache cache = new CompiledScriptCache( 2 * CompiledScriptCache.SEGMENT_COUNT );
+		Script script = compile( "1" );
+		cache.put( "1", SOURCE, 1, null, script, 0 );
+		cache.put( "2", SOURCE, 1, null, script, 0 );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			cache.get( "1", SOURCE, 1, null );
+			cache.put( "x" + i, SOURCE, 1, null, script, 0 );
+		}
+		assertNull( cache.get( "2", SOURCE, 1, null ) );
+		assertNotNull( cache.get( "1", SOURCE, 1, null ) );
+	}
+
+	@Test
+	public void testEvaluateWithSharedCache( ) throws BirtException
+	{
+		CompiledScriptCache cache = CompiledScriptCache.getInstance( );
+		String text = "var total = 0; for ( var i = 0; i < 10; i++ ) total += i; total";
+		long hitCount = cache.getStatistics( ).getHitCount( );
+		Object result = JavascriptEvalUtil.evaluateScript( context,
+				context.initStandardObjects( ),
+				text,
+				"<inline>",
+				1 );
+		assertEquals( 45, ( (Number) result ).intValue( ) );
+		result = JavascriptEvalUtil.evaluateScript( context,
+				context.initStandardObjects( ),
+				text,
+				"<inline>",
+				1 );
+		assertEquals( 45, ( (Number) result ).intValue( ) );
+		assertNotNull( cache.get( text, SOURCE, 1, null ) );
+		assertTrue( cache.getStatistics( ).getHitCount( ) >= hitCount + 2 );
+	}
+}
@@ -0,0 +1,402 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.archive.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.birt.core.util.CacheStatistics;
+
+/**
+ * The block cache shared by all the archive files opened for reading.
+ *
+ * The cached blocks are read only, so a block loaded by one archive can be
+ * used by all the other archives opened on the same document. The total size
+ * of the cached blocks is limited by a byte budget, the least recently used
+ * blocks are evicted first regardless of which document they belong to.
+ *
+ * The cache is divided into several segments, each segment is locked
+ * separately and owns a part of the budget, so the archives reading different
+ * blocks seldom block each other.
+ *
+ * The cache is disabled if the budget is zero.
+ */
+public class SharedBlockCache
+{
+
+	static final int SEGMENT_COUNT = 16;
+	static final int SEGMENT_MASK = SEGMENT_COUNT - 1;
+
+	private final Segment[] segments;
+	private volatile long maxCacheSize;
+
+	private final CacheStatistics statistics = new CacheStatistics( );
+	private final ConcurrentHashMap<Object, DocumentStatistics> documents = new ConcurrentHashMap<Object, DocumentStatistics>( );
+
+	/**
+	 * @param maxCacheSize
+	 *            the cache budget in bytes.
+	 */
+	public SharedBlockCache( long maxCacheSize )
+	{
+		segments = new Segment[SEGMENT_COUNT];
+		for ( int i = 0; i < SEGMENT_COUNT; i++ )
+		{
+			segments[i] = new Segment( );
+		}
+		setMaxCacheSize( maxCacheSize );
+	}
+
+	/**
+	 * change the cache budget. The blocks exceeding the new budget are evicted
+	 * immediately.
+	 *
+	 * @param maxCacheSize
+	 *            the budget in bytes, 0 to disable the cache.
+	 */
+	public void setMaxCacheSize( long maxCacheSize )
+	{
+		if ( maxCacheSize < 0 )
+		{
+			maxCacheSize = 0;
+		}
+		this.maxCacheSize = maxCacheSize;
+		long segmentSize = maxCacheSize / SEGMENT_COUNT;
+		for ( Segment segment : segments )
+		{
+			segment.setMaxSize( segmentSize );
+		}
+	}
+
+	public long getMaxCacheSize( )
+	{
+		return maxCacheSize;
+	}
+
+	public boolean isEnabled( )
+	{
+		return maxCacheSize > 0;
+	}
+
+	/**
+	 * @return the size of the cached blocks, in bytes.
+	 */
+	public long getUsedCacheSize( )
+	{
+		long size = 0;
+		for ( Segment segment : segments )
+		{
+			size += segment.getUsedSize( );
+		}
+		return size;
+	}
+
+	/**
+	 * @return the statistics of the whole cache.
+	 */
+	public CacheStatistics getStatistics( )
+	{
+		return statistics;
+	}
+
+	/**
+	 * get the statistics of a registered document.
+	 *
+	 * @param document
+	 *            the document key.
+	 * @return the statistics, null if the document isn't registered.
+	 */
+	public CacheStatistics getStatistics( Object document )
+	{
+		DocumentStatistics documentStatistics = documents.get( document );
+		return documentStatistics == null ? null : documentStatistics.statistics;
+	}
+
+	/**
+	 * register a reader of the document. The statistics of the document is
+	 * kept until all the readers are unregistered.
+	 *
+	 * @param document
+	 *            the document key, it must implement equals and hashCode.
+	 */
+	public void register( Object document )
+	{
+		while ( true )
+		{
+			DocumentStatistics documentStatistics = documents.get( document );
+			if ( documentStatistics == null )
+			{
+				documentStatistics = new DocumentStatistics( );
+				if ( documents.putIfAbsent( document, documentStatistics ) == null )
+				{
+					return;
+				}
+				continue;
+			}
+			int count = documentStatistics.readers.get( );
+			// the statistics is being removed if the count is zero
+			if ( count > 0
+					&& documentStatistics.readers.compareAndSet( count,
+							count + 1 ) )
+			{
+				return;
+			}
+			documents.remove( document, documentStatistics );
+		}
+	}
+
+	public void unregister( Object document )
+	{
+		DocumentStatistics documentStatistics = documents.get( document );
+		if ( documentStatistics != null
+				&& documentStatistics.readers.decrementAndGet( ) == 0 )
+		{
+			documents.remove( document, documentStatistics );
+		}
+	}
+
+	/**
+	 * get the cached block.
+	 *
+	 * @param document
+	 *            the document key.
+	 * @param blockId
+	 *            the block id.
+	 * @return the block content, null if it isn't cached. The content must not
+	 *         be changed by the caller.
+	 */
+	public byte[] getBlock( Object document, int blockId )
+	{
+		BlockKey key = new BlockKey( document, blockId );
+		byte[] block = getSegment( key ).get( key );
+		CacheStatistics documentStatistics = getStatistics( document );
+		if ( block != null )
+		{
+			statistics.recordHit( );
+			if ( documentStatistics != null )
+			{
+				documentStatistics.recordHit( );
+			}
+		}
+		else
+		{
+			statistics.recordMiss( );
+			if ( documentStatistics != null )
+			{
+				documentStatistics.recordMiss( );
+			}
+		}
+		return block;
+	}
+
+	/**
+	 * add a block into the cache. The block content must not be changed after
+	 * it is added.
+	 *
+	 * @param document
+	 *            the document key.
+	 * @param blockId
+	 *            the block id.
+	 * @param block
+	 *            the block content.
+	 * @param loadTime
+	 *            the time used to load the block, in nano seconds.
+	 */
+	public void putBlock( Object document, int blockId, byte[] block,
+			long loadTime )
+	{
+		statistics.recordLoad( loadTime );
+		CacheStatistics documentStatistics = getStatistics( document );
+		if ( documentStatistics != null )
+		{
+			documentStatistics.recordLoad( loadTime );
+		}
+		if ( maxCacheSize > 0 )
+		{
+			BlockKey key = new BlockKey( document, blockId );
+			getSegment( key ).put( key, block );
+		}
+	}
+
+	/**
+	 * remove all the cached blocks which match the document.
+	 *
+	 * @param matcher
+	 *            decides which documents should be removed. the document
+	 *            equals to the matcher is removed if the matcher isn't a
+	 *            DocumentMatcher.
+	 */
+	public void removeBlocks( Object matcher )
+	{
+		for ( Segment segment : segments )
+		{
+			segment.removeAll( matcher );
+		}
+	}
+
+	/**
+	 * remove all the cached blocks.
+	 */
+	public void clear( )
+	{
+		for ( Segment segment : segments )
+		{
+			segment.clear( );
+		}
+	}
+
+	private Segment getSegment( BlockKey key )
+	{
+		int hash = key.hashCode( );
+		// spread the hash as the block id is in the low bits
+		hash ^= ( hash >>> 20 ) ^ ( hash >>> 12 );
+		hash ^= ( hash >>> 7 ) ^ ( hash >>> 4 );
+		return segments[hash & SEGMENT_MASK];
+	}
+
+	/**
+	 * used by removeBlocks to match the document keys.
+	 */
+	public static interface DocumentMatcher
+	{
+
+		boolean matches( Object document );
+	}
+
+	private static class DocumentStatistics
+	{
+
+		final AtomicInteger readers = new AtomicInteger( 1 );
+		final CacheStatistics statistics = new CacheStatistics( );
+	}
+
+	private static class BlockKey
+	{
+
+		final Object document;
+		final int blockId;
+		final int hashCode;
+
+		BlockKey( Object document, int blockId )
+		{
+			this.document = document;
+			this.blockId = blockId;
+			this.hashCode = document.hashCode( ) * 31 + blockId;
+		}
+
+		public int hashCode( )
+		{
+			return hashCode;
+		}
+
+		public boolean equals( Object obj )
+		{
+			if ( obj == this )
+			{
+				return true;
+			}
+			if ( obj instanceof BlockKey )
+			{
+				BlockKey key = (BlockKey) obj;
+				return blockId == key.blockId
+						&& document.equals( key.document );
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * a LRU list with its own lock and budget.
+	 */
+	private class Segment
+	{
+
+		private final LinkedHashMap<BlockKey, byte[]> blocks = new LinkedHashMap<BlockKey, byte[]>(
+				16, 0.75f, true );
+		private long maxSize;
+		private long usedSize;
+
+		synchronized void setMaxSize( long maxSize )
+		{
+			this.maxSize = maxSize;
+			evict( );
+		}
+
+		synchronized long getUsedSize( )
+		{
+			return usedSize;
+		}
+
+		synchronized byte[] get( BlockKey key )
+		{
+			return blocks.get( key );
+		}
+
+		synchronized void put( BlockKey key, byte[] block )
+		{
+			byte[] oldBlock = blocks.put( key, block );
+			if ( oldBlock != null )
+			{
+				usedSize -= oldBlock.length;
+			}
+			usedSize += block.length;
+			evict( );
+		}
+
+		synchronized void removeAll( Object matcher )
+		{
+			Iterator<Map.Entry<BlockKey, byte[]>> iter = blocks.entrySet( )
+					.iterator( );
+			while ( iter.hasNext( ) )
+			{
+				Map.Entry<BlockKey, byte[]> entry = iter.next( );
+				Object document = entry.getKey( ).document;
+				boolean matched = matcher instanceof DocumentMatcher
+						? ( (DocumentMatcher) matcher ).matches( document )
+						: matcher.equals( document );
+				if ( matched )
+				{
+					usedSize -= entry.getValue( ).length;
+					iter.remove( );
+				}
+			}
+		}
+
+		synchronized void clear( )
+		{
+			blocks.clear( );
+			usedSize = 0;
+		}
+
+		private void evict( )
+		{
+			Iterator<Map.Entry<BlockKey, byte[]>> iter = blocks.entrySet( )
+					.iterator( );
+			while ( usedSize > maxSize && iter.hasNext( ) )
+			{
+				Map.Entry<BlockKey, byte[]> entry = iter.next( );
+				usedSize -= entry.getValue( ).length;
+				iter.remove( );
+				statistics.recordEviction( );
+				CacheStatistics documentStatistics = getStatistics( entry
+						.getKey( ).document );
+				if ( documentStatistics != null )
+				{
+					documentStatistics.recordEviction( );
+				}
+			}
+		}
+	}
+}
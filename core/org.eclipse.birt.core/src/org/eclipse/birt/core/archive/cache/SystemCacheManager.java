@@ -50,6 +50,11 @@ public class SystemCacheManager
 		maxCacheSize = size;
 	}
 
+	public int getMaxCacheSize( )
+	{
+		return maxCacheSize;
+	}
+
 	void increaseUsedCacheSize( int size )
 	{
 		usedCacheSize += size;
@@ -22,6 +22,7 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import org.eclipse.birt.core.archive.FolderArchiveFile;
+import org.eclipse.birt.core.archive.cache.SharedBlockCache;
 import org.eclipse.birt.core.archive.cache.SystemCacheManager;
 import org.eclipse.birt.core.archive.compound.v3.Ext2FileSystem;
 import org.eclipse.birt.core.i18n.CoreMessages;
@@ -39,6 +40,12 @@ public class ArchiveFile implements IArchiveFile
 			1024 );
 	public static final boolean enableFileCache = true;
 	public static final int FILE_CACHE_SIZE = 1024;
+	/**
+	 * the block cache shared by all the archives opened for reading. It is
+	 * disabled by default, use setSharedBlockCacheSize to enable it.
+	 */
+	public static final SharedBlockCache sharedBlockCache = new SharedBlockCache(
+			0 );
 
 	static final long ARCHIVE_V2_TAG = ArchiveConstants.DOCUMENT_TAG;
 	static final long ARCHIVE_V3_TAG = Ext2FileSystem.EXT2_MAGIC_TAG;
@@ -56,6 +63,11 @@ public class ArchiveFile implements IArchiveFile
 
 	protected IArchiveFile af;
 
+	/**
+	 * if the ext2 archive is opened in memory mapped mode ("rm").
+	 */
+	protected boolean mappedIO;
+
 	public ArchiveFile( String fileName, String mode ) throws IOException
 	{
 		// set blank string as the default system id of the archive file.
@@ -78,6 +90,13 @@ public class ArchiveFile implements IArchiveFile
 		{
 			openArchiveForReading( );
 		}
+		else if ( "rm".equals( mode ) )
+		{
+			// read mode, the ext2 archive is memory mapped. the old
+			// formats don't support it, so they are opened in "r" mode.
+			mappedIO = true;
+			openArchiveForReading( );
+		}
 		else if ( "rw+".equals( mode ) )
 		{
 			openArchiveForAppending( );
@@ -121,7 +140,8 @@ public class ArchiveFile implements IArchiveFile
 			}
 			else if ( magicTag == ARCHIVE_V3_TAG )
 			{
-				ArchiveFileV3 fs = new ArchiveFileV3( archiveName, rf, "r" );
+				ArchiveFileV3 fs = new ArchiveFileV3( archiveName, rf,
+						getReadMode( ) );
 				upgradeSystemId( fs );
 				af = fs;
 			}
@@ -129,7 +149,8 @@ public class ArchiveFile implements IArchiveFile
 			{
 				tmpFileName = getTmpFileName( );
 				unzip( archiveName, tmpFileName );
-				ArchiveFileV3 fs = new ArchiveFileV3( tmpFileName, "r" );
+				ArchiveFileV3 fs = new ArchiveFileV3( tmpFileName,
+						getReadMode( ) );
 				af = fs;
 			}
 			else
@@ -144,6 +165,11 @@ public class ArchiveFile implements IArchiveFile
 		}
 	}
 
+	private String getReadMode( )
+	{
+		return mappedIO ? "rm" : "r";
+	}
+
 	protected void openArchiveForAppending( ) throws IOException
 	{
 		// we need upgrade the document
@@ -262,7 +288,8 @@ public class ArchiveFile implements IArchiveFile
 
 	static public long getTotalUsedCache( )
 	{
-		return (long) systemCacheManager.getUsedCacheSize( ) * 4096;
+		return (long) systemCacheManager.getUsedCacheSize( ) * 4096
+				+ sharedBlockCache.getUsedCacheSize( );
 	}
 
 	static public void setTotalCacheSize( long size )
@@ -278,6 +305,21 @@ public class ArchiveFile implements IArchiveFile
 		}
 	}
 
+	/**
+	 * set the size of the block cache shared by the archives opened for
+	 * reading. If the size is larger than 0, the archives opened for reading
+	 * after the call keep their data blocks in the shared block cache instead
+	 * of the cache set by setTotalCacheSize, so the two sizes budget
+	 * different blocks.
+	 * 
+	 * @param size
+	 *            the cache size in bytes, 0 to disable the shared block cache.
+	 */
+	static public void setSharedBlockCacheSize( long size )
+	{
+		sharedBlockCache.setMaxCacheSize( size );
+	}
+
 	public void saveAs( String fileName ) throws IOException
 	{
 		ArchiveFileV3 file = new ArchiveFileV3( fileName, "rw" );
@@ -17,6 +17,30 @@ import java.io.IOException;
 public class ArchiveFileFactory implements IArchiveFileFactory
 {
 
+	/**
+	 * open the archives for reading in memory mapped mode.
+	 */
+	private boolean useMappedIO;
+
+	/**
+	 * Enable or disable the memory mapped mode. If it is enabled, the archives
+	 * and views opened in "r" mode are memory mapped ("rm" mode), the data
+	 * blocks are read from the mapped file directly instead of the block
+	 * cache.
+	 * 
+	 * @param useMappedIO
+	 *            true to open the archives in memory mapped mode.
+	 */
+	public void setUseMappedIO( boolean useMappedIO )
+	{
+		this.useMappedIO = useMappedIO;
+	}
+
+	public boolean isUseMappedIO( )
+	{
+		return useMappedIO;
+	}
+
 	public IArchiveFile createArchive( String archiveId ) throws IOException
 	{
 		String fileName = getPhysicalFile( archiveId );
@@ -79,12 +103,15 @@ public class ArchiveFileFactory implements IArchiveFileFactory
 	 *  3. in "rw+"
 	 *  	a. view: open view in rw+ mode, and open archive in r mode at the same time.
 	 *  	b. archive: open archive in rw+ mode.
+	 *  
+	 *  The "r" mode is replaced by "rm" mode if the memory mapped mode is enabled.
 	 */
 	public IArchiveFile openArchive( String archiveId, String mode )
 			throws IOException
 	{
 		String fileName = getPhysicalFile( archiveId );
-		ArchiveFile file = new ArchiveFile( fileName, archiveId, mode );
+		ArchiveFile file = new ArchiveFile( fileName, archiveId,
+				getOpenMode( mode ) );
 		String dependId = file.getDependId( );
 		if ( dependId != null && dependId.length( ) > 0 )
 		{
@@ -98,10 +125,20 @@ public class ArchiveFileFactory implements IArchiveFileFactory
 			IArchiveFile archive ) throws IOException
 	{
 		String fileName = getPhysicalFile( viewId );
-		ArchiveFile view = new ArchiveFile( fileName, viewId, mode );
+		ArchiveFile view = new ArchiveFile( fileName, viewId,
+				getOpenMode( mode ) );
 		return new ArchiveView( view, archive, true );
 	}
 
+	private String getOpenMode( String mode )
+	{
+		if ( useMappedIO && "r".equals( mode ) )
+		{
+			return "rm";
+		}
+		return mode;
+	}
+
 	/**
 	 * The sub class should override this method to implement its own systemId
 	 * resolver.
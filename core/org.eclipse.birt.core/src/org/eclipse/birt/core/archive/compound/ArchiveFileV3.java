@@ -21,6 +21,7 @@ import java.util.List;
 import org.eclipse.birt.core.archive.compound.v3.Ext2Entry;
 import org.eclipse.birt.core.archive.compound.v3.Ext2File;
 import org.eclipse.birt.core.archive.compound.v3.Ext2FileSystem;
+import org.eclipse.birt.core.util.CacheStatistics;
 
 public class ArchiveFileV3 implements IArchiveFile
 {
@@ -46,6 +47,17 @@ public class ArchiveFileV3 implements IArchiveFile
 		{
 			fs.setCacheSize( ArchiveFile.FILE_CACHE_SIZE );
 		}
+		if ( ArchiveFile.sharedBlockCache.isEnabled( ) && !fs.isRemoveOnExit( ) )
+		{
+			if ( fs.isReadOnly( ) )
+			{
+				fs.setSharedBlockCache( ArchiveFile.sharedBlockCache );
+			}
+			else
+			{
+				fs.setInvalidatedBlockCache( ArchiveFile.sharedBlockCache );
+			}
+		}
 	}
 
 	synchronized public void close( ) throws IOException
@@ -128,6 +140,15 @@ public class ArchiveFileV3 implements IArchiveFile
 		return (long) fs.getUsedCacheSize( ) * 4096;
 	}
 
+	/**
+	 * @return the statistics of the shared block cache used by this archive,
+	 *         null if the archive doesn't use the shared cache.
+	 */
+	public CacheStatistics getSharedCacheStatistics( )
+	{
+		return fs == null ? null : fs.getSharedCacheStatistics( );
+	}
+
 	public List<String> listEntries( String namePattern )
 	{
 		Iterable<String> entryNames = ( namePattern == null )
@@ -29,9 +29,14 @@ public class DataBlock extends Ext2Block
 	}
 
 	DataBlock( Ext2FileSystem fs, int blockId )
+	{
+		this( fs, blockId, new byte[BLOCK_SIZE] );
+	}
+
+	DataBlock( Ext2FileSystem fs, int blockId, byte[] buffer )
 	{
 		super( fs, blockId );
-		this.buffer = new byte[BLOCK_SIZE];
+		this.buffer = buffer;
 		this.dirtyStart = -1;
 		this.dirtyEnd = -1;
 	}
@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -27,9 +28,10 @@ import java.util.Map.Entry;
 import org.eclipse.birt.core.archive.cache.CacheListener;
 import org.eclipse.birt.core.archive.cache.Cacheable;
 import org.eclipse.birt.core.archive.cache.FileCacheManager;
-import org.eclipse.birt.core.archive.cache.SystemCacheManager;
+import org.eclipse.birt.core.archive.cache.SharedBlockCache;
 import org.eclipse.birt.core.i18n.CoreMessages;
 import org.eclipse.birt.core.i18n.ResourceConstants;
+import org.eclipse.birt.core.util.CacheStatistics;
 
 /**
  * 
@@ -48,6 +50,25 @@ public class Ext2FileSystem
 	private String fileName;
 	private boolean readOnly;
 	private boolean removeOnExit;
+	/**
+	 * the memory mapped file, only used in "rm" mode.
+	 */
+	private volatile MappedFileBuffer mappedBuffer;
+	private boolean mappedIO;
+
+	/**
+	 * the block cache shared with other read only file systems.
+	 */
+	private volatile SharedBlockCache blockCache;
+	/**
+	 * the shared block cache which may hold stale blocks of the file once a
+	 * writable file system changes it.
+	 */
+	private SharedBlockCache invalidatedBlockCache;
+	/**
+	 * identifies the file content in the shared block cache.
+	 */
+	private DocumentKey documentKey;
 
 	/**
 	 * properties saved in the file header
@@ -81,7 +102,9 @@ public class Ext2FileSystem
 	 *            mode, if the file exist, create a empty one. "rw+": read write
 	 *            mode, if the file exist, open the exits file. "rwt": read
 	 *            write cache mode, if the file exist, create a empty one. the
-	 *            file is removed after the file is closed.
+	 *            file is removed after the file is closed. "rm": read mode,
+	 *            the file is memory mapped and the data blocks are read from
+	 *            the mapped buffer directly.
 	 * @throws IOException
 	 */
 	public Ext2FileSystem( String filePath, String mode ) throws IOException
@@ -134,6 +157,15 @@ public class Ext2FileSystem
 			createFileSystem( );
 			return;
 		}
+
+		if ( "rm".equals( mode ) )
+		{
+			readOnly = true;
+			removeOnExit = false;
+			mappedIO = true;
+			openFileSystem( );
+			return;
+		}
 		throw new IOException( CoreMessages.getFormattedString(
 				ResourceConstants.UNSUPPORTED_FILE_MODE, new Object[]{mode} ) );
 	}
@@ -151,6 +183,10 @@ public class Ext2FileSystem
 				rf = new RandomAccessFile( fileName, "rw" );
 			}
 		}
+		if ( mappedIO )
+		{
+			mappedBuffer = new MappedFileBuffer( rf );
+		}
 		length = rf.length( );
 		maxBlockId = (int) ( ( length + BLOCK_SIZE - 1 ) / BLOCK_SIZE ) + 1;
 
@@ -217,9 +253,17 @@ public class Ext2FileSystem
 			nodeTable.clear( );
 			cacheManager.clear( );
 			freeTable.clear( );
+			releaseSharedBlockCache( );
+			blockCache = null;
+			invalidatedBlockCache = null;
 		}
 		finally
 		{
+			if ( mappedBuffer != null )
+			{
+				mappedBuffer.close( );
+				mappedBuffer = null;
+			}
 			if ( rf != null )
 			{
 				rf.close( );
@@ -266,6 +310,7 @@ public class Ext2FileSystem
 			freeTable.write( );
 			nodeTable.write( NodeTable.INODE_FREE_TABLE );
 			cacheManager.touchAllCaches( new Ext2FileSystemCacheListener( ) );
+			releaseSharedBlockCache( );
 		}
 	}
 
@@ -284,6 +329,14 @@ public class Ext2FileSystem
 		return removeOnExit;
 	}
 
+	/**
+	 * @return true if the file system is opened in "rm" mode.
+	 */
+	public boolean isMappedIO( )
+	{
+		return mappedIO;
+	}
+
 	synchronized void registerOpenedFile( Ext2File file )
 	{
 		openedFiles.add( file );
@@ -299,6 +352,83 @@ public class Ext2FileSystem
 		cacheManager.setMaxCacheSize( cacheSize );
 	}
 
+	/**
+	 * use the shared block cache to cache the data blocks. It is only used if
+	 * the file system is opened in "r" mode, the call is ignored in the other
+	 * modes.
+	 * 
+	 * @param cache
+	 *            the shared block cache.
+	 */
+	synchronized public void setSharedBlockCache( SharedBlockCache cache )
+	{
+		if ( !readOnly || mappedIO )
+		{
+			// the mapped file needn't cache
+			return;
+		}
+		if ( blockCache != null )
+		{
+			blockCache.unregister( documentKey );
+		}
+		if ( cache != null )
+		{
+			if ( documentKey == null )
+			{
+				File file = new File( fileName );
+				documentKey = new DocumentKey( fileName, file.lastModified( ),
+						length );
+			}
+			cache.register( documentKey );
+		}
+		blockCache = cache;
+	}
+
+	/**
+	 * remove the blocks of this file from the shared block cache once the file
+	 * is flushed or closed. The cache is never read by this file system, it is
+	 * only used by the writable file systems.
+	 * 
+	 * @param cache
+	 *            the shared block cache used by the readers of the file.
+	 */
+	synchronized public void setInvalidatedBlockCache( SharedBlockCache cache )
+	{
+		if ( !readOnly )
+		{
+			invalidatedBlockCache = cache;
+		}
+	}
+
+	/**
+	 * @return the statistics of the shared block cache used by this file
+	 *         system, null if the shared cache is not used.
+	 */
+	public CacheStatistics getSharedCacheStatistics( )
+	{
+		SharedBlockCache cache = blockCache;
+		if ( cache != null && documentKey != null )
+		{
+			return cache.getStatistics( documentKey );
+		}
+		return null;
+	}
+
+	private void releaseSharedBlockCache( )
+	{
+		SharedBlockCache cache = blockCache;
+		if ( cache != null && documentKey != null )
+		{
+			cache.unregister( documentKey );
+		}
+		cache = invalidatedBlockCache;
+		if ( cache != null && !removeOnExit )
+		{
+			// the file is changed, the cached blocks are stale
+			cache.removeBlocks( new DocumentKeyMatcher( fileName ) );
+		}
+	}
+
 	public int getUsedCacheSize( )
 	{
 		return cacheManager.getUsedCacheSize( );
@@ -550,7 +680,17 @@ public class Ext2FileSystem
 		return block;
 	}
 
-	synchronized protected void unloadBlock( Block block ) throws IOException
+	protected void unloadBlock( Block block ) throws IOException
+	{
+		if ( block instanceof SharedDataBlock )
+		{
+			// the shared block is never added into the cache
+			return;
+		}
+		releaseCachedBlock( block );
+	}
+
+	synchronized private void releaseCachedBlock( Block block )
 	{
 		cacheManager.releaseCache( block );
 	}
@@ -568,7 +708,42 @@ public class Ext2FileSystem
 		return block;
 	}
 
-	synchronized DataBlock loadDataBlock( int blockId ) throws IOException
+	DataBlock loadDataBlock( int blockId ) throws IOException
+	{
+		MappedFileBuffer buffer = mappedBuffer;
+		if ( buffer != null )
+		{
+			// the content is shared with the mapped file, no cache is needed.
+			return new SharedDataBlock( this, blockId,
+					buffer.getBlock( blockId ) );
+		}
+		SharedBlockCache cache = blockCache;
+		if ( cache != null && readOnly && documentKey != null
+				&& cache.isEnabled( ) )
+		{
+			return loadSharedDataBlock( cache, blockId );
+		}
+		return loadCachedDataBlock( blockId );
+	}
+
+	private DataBlock loadSharedDataBlock( SharedBlockCache cache, int blockId )
+			throws IOException
+	{
+		byte[] content = cache.getBlock( documentKey, blockId );
+		if ( content == null )
+		{
+			long startTime = System.nanoTime( );
+			content = new byte[BLOCK_SIZE];
+			readBlock( blockId, content, 0, BLOCK_SIZE );
+			cache.putBlock( documentKey, blockId, content, System.nanoTime( )
+					- startTime );
+		}
+		return new SharedDataBlock( this, blockId, ByteBuffer.wrap( content )
+				.asReadOnlyBuffer( ) );
+	}
+
+	synchronized private DataBlock loadCachedDataBlock( int blockId )
+			throws IOException
 	{
 		Object cacheKey = Integer.valueOf( blockId );
 		DataBlock block = (DataBlock) cacheManager.getCache( cacheKey );
@@ -587,8 +762,8 @@ public class Ext2FileSystem
 		readBlock( blockId, offset, buffer, offset, size );
 	}
 
-	synchronized void readBlock( int blockId, int blockOff, byte[] buffer,
-			int offset, int size ) throws IOException
+	void readBlock( int blockId, int blockOff, byte[] buffer, int offset,
+			int size ) throws IOException
 	{
 		assert buffer != null;
 		assert blockId >= 0;
@@ -598,6 +773,20 @@ public class Ext2FileSystem
 		assert blockOff + size <= BLOCK_SIZE;
 
 		long position = ( ( (long) blockId ) << BLOCK_SIZE_BITS ) + blockOff;
+		MappedFileBuffer mapped = mappedBuffer;
+		if ( mapped != null )
+		{
+			// the mapped buffer can be read concurrently, needn't lock the
+			// file system.
+			mapped.read( position, buffer, offset, size );
+			return;
+		}
+		readFileBlock( position, buffer, offset, size );
+	}
+
+	synchronized private void readFileBlock( long position, byte[] buffer,
+			int offset, int size ) throws IOException
+	{
 		if ( position < length )
 		{
 			long remainSize = length - position;
@@ -648,6 +837,71 @@ public class Ext2FileSystem
 		return nodeTable.getNode( nodeId );
 	}
 
+	/**
+	 * the content of a file is identified by the file name, the modified time
+	 * and the length of the file.
+	 */
+	static class DocumentKey
+	{
+
+		final String fileName;
+		final long lastModified;
+		final long length;
+
+		DocumentKey( String fileName, long lastModified, long length )
+		{
+			this.fileName = fileName;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+
+		public int hashCode( )
+		{
+			return fileName.hashCode( ) ^ (int) lastModified ^ (int) length;
+		}
+
+		public boolean equals( Object obj )
+		{
+			if ( obj == this )
+			{
+				return true;
+			}
+			if ( obj instanceof DocumentKey )
+			{
+				DocumentKey key = (DocumentKey) obj;
+				return lastModified == key.lastModified
+						&& length == key.length
+						&& fileName.equals( key.fileName );
+			}
+			return false;
+		}
+
+		public String toString( )
+		{
+			return fileName;
+		}
+	}
+
+	/**
+	 * match all the versions of a file in the shared block cache.
+	 */
+	static class DocumentKeyMatcher implements SharedBlockCache.DocumentMatcher
+	{
+
+		final String fileName;
+
+		DocumentKeyMatcher( String fileName )
+		{
+			this.fileName = fileName;
+		}
+
+		public boolean matches( Object document )
+		{
+			return document instanceof DocumentKey
+					&& fileName.equals( ( (DocumentKey) document ).fileName );
+		}
+	}
+
 	static class Ext2FileSystemCacheListener implements CacheListener
 	{
 
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.archive.compound.v3;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.eclipse.birt.core.i18n.CoreMessages;
+import org.eclipse.birt.core.i18n.ResourceConstants;
+
+/**
+ * A read only, memory mapped view of the archive file.
+ *
+ * A single MappedByteBuffer can't address more than 2G bytes, so the file is
+ * mapped as a sequence of segments. The segment size is a multiple of the
+ * block size, so a block never crosses the segment boundary and each block can
+ * be returned as a slice of one segment without copying the data.
+ */
+class MappedFileBuffer
+{
+
+	static final int BLOCK_SIZE = Ext2FileSystem.BLOCK_SIZE;
+	static final int BLOCK_SIZE_BITS = Ext2FileSystem.BLOCK_SIZE_BITS;
+
+	/**
+	 * each segment maps 1G bytes of the file.
+	 */
+	static final int SEGMENT_SIZE_BITS = 30;
+	static final long SEGMENT_SIZE = 1L << SEGMENT_SIZE_BITS;
+	static final long SEGMENT_OFFSET_MASK = SEGMENT_SIZE - 1;
+
+	private final long length;
+	private MappedByteBuffer[] segments;
+
+	MappedFileBuffer( RandomAccessFile rf ) throws IOException
+	{
+		FileChannel channel = rf.getChannel( );
+		length = channel.size( );
+		int segmentCount = (int) ( ( length + SEGMENT_SIZE - 1 ) >> SEGMENT_SIZE_BITS );
+		segments = new MappedByteBuffer[segmentCount];
+		for ( int i = 0; i < segmentCount; i++ )
+		{
+			long position = ( (long) i ) << SEGMENT_SIZE_BITS;
+			long size = Math.min( SEGMENT_SIZE, length - position );
+			segments[i] = channel.map( FileChannel.MapMode.READ_ONLY,
+					position, size );
+		}
+	}
+
+	long length( )
+	{
+		return length;
+	}
+
+	/**
+	 * return the content of the block as a read only buffer. The buffer shares
+	 * the content with the mapped file, its capacity is less than the block
+	 * size if the block is the last one of the file.
+	 *
+	 * @param blockId
+	 *            the block id.
+	 * @return the block content, null if the block is beyond the file end.
+	 * @throws IOException
+	 *             if the file is closed.
+	 */
+	ByteBuffer getBlock( int blockId ) throws IOException
+	{
+		long position = ( (long) blockId ) << BLOCK_SIZE_BITS;
+		if ( position >= length )
+		{
+			return null;
+		}
+		int size = (int) Math.min( BLOCK_SIZE, length - position );
+		ByteBuffer segment = getSegment( position ).duplicate( );
+		segment.position( (int) ( position & SEGMENT_OFFSET_MASK ) );
+		segment.limit( segment.position( ) + size );
+		return segment.slice( ).asReadOnlyBuffer( );
+	}
+
+	/**
+	 * read the data from the file. The caller must ensure the data doesn't
+	 * cross the block boundary.
+	 *
+	 * @return the size of the data read, it may be less than <code>size</code>
+	 *         if the file end is reached.
+	 * @throws IOException
+	 *             if the file is closed.
+	 */
+	int read( long position, byte[] buffer, int offset, int size )
+			throws IOException
+	{
+		if ( position >= length )
+		{
+			return 0;
+		}
+		if ( length - position < size )
+		{
+			size = (int) ( length - position );
+		}
+		ByteBuffer segment = getSegment( position ).duplicate( );
+		segment.position( (int) ( position & SEGMENT_OFFSET_MASK ) );
+		segment.get( buffer, offset, size );
+		return size;
+	}
+
+	void close( )
+	{
+		// the mapped buffers are released by GC as there is no public API to
+		// unmap them.
+		segments = null;
+	}
+
+	private ByteBuffer getSegment( long position ) throws IOException
+	{
+		MappedByteBuffer[] segments = this.segments;
+		if ( segments == null )
+		{
+			throw new IOException(
+					CoreMessages.getString( ResourceConstants.FILE_HAS_BEEN_CLOSED ) );
+		}
+		return segments[(int) ( position >> SEGMENT_SIZE_BITS )];
+	}
+}
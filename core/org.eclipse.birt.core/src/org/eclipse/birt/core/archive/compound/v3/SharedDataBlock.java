@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.archive.compound.v3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.eclipse.birt.core.i18n.CoreMessages;
+import org.eclipse.birt.core.i18n.ResourceConstants;
+
+/**
+ * read only data block whose content is shared with others.
+ *
+ * The block holds either a slice of the memory mapped file or a block of the
+ * shared block cache instead of a private copy of the data, so it needn't be
+ * managed by the cache manager of the file system.
+ */
+class SharedDataBlock extends DataBlock
+{
+
+	/**
+	 * the block content, it is null if the block is beyond the file end.
+	 */
+	private final ByteBuffer content;
+
+	SharedDataBlock( Ext2FileSystem fs, int blockId, ByteBuffer content )
+	{
+		super( fs, blockId, null );
+		this.content = content;
+	}
+
+	public int write( int tgt, byte b[], int off, int len ) throws IOException
+	{
+		throw new IOException(
+				CoreMessages.getString( ResourceConstants.CANNOT_CHANGE_READONLY_BUFFER ) );
+	}
+
+	public int read( int src, byte b[], int off, int len ) throws IOException
+	{
+		assert ( b != null );
+		assert ( off + len <= b.length );
+		assert ( src + len <= BLOCK_SIZE );
+
+		int size = 0;
+		if ( content != null && src < content.capacity( ) )
+		{
+			ByteBuffer buffer = content.duplicate( );
+			buffer.position( src );
+			size = Math.min( len, buffer.remaining( ) );
+			buffer.get( b, off, size );
+		}
+		// the data beyond the file end is always zero
+		for ( int i = size; i < len; i++ )
+		{
+			b[off + i] = 0;
+		}
+		return len;
+	}
+
+	public void refresh( ) throws IOException
+	{
+	}
+
+	public void flush( ) throws IOException
+	{
+	}
+}
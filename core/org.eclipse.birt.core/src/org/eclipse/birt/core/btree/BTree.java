@@ -24,6 +24,8 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -161,6 +163,7 @@ public class BTree<K, V> implements BTreeConstants
 		finally
 		{
 			file = null;
+			sharedNodes.clear( );
 		}
 	}
 
@@ -587,15 +590,79 @@ public class BTree<K, V> implements BTreeConstants
 		}
 	}
 
-	synchronized BTreeNode<K, V> loadBTreeNode( int nodeId ) throws IOException
+	// nodes of a read only tree, they are never changed so the threads reading
+	// the tree share them without locking them.
+	private final ConcurrentMap<Integer, BTreeNode<K, V>> sharedNodes = new ConcurrentHashMap<Integer, BTreeNode<K, V>>( );
+
+	BTreeNode<K, V> loadBTreeNode( int nodeId ) throws IOException
 	{
-		BTreeNode<K, V> node = nodeCaches.get( nodeId );
-		if ( node != null )
+		if ( readOnly )
 		{
+			return loadSharedNode( nodeId );
+		}
+		synchronized ( this )
+		{
+			BTreeNode<K, V> node = nodeCaches.get( nodeId );
+			if ( node != null )
+			{
+				node.lock( );
+				return node;
+			}
+			node = readNode( nodeId );
 			node.lock( );
+			nodeCaches.put( Integer.valueOf( nodeId ), node );
 			return node;
 		}
+	}
 
+	/**
+	 * load a node of a read only tree. The cached nodes are returned without
+	 * any synchronization or lock, only the nodes missed by the cache are read
+	 * from the file one at a time. The index nodes are kept in the cache as all
+	 * the searches pass through them.
+	 */
+	private BTreeNode<K, V> loadSharedNode( int nodeId ) throws IOException
+	{
+		Integer key = Integer.valueOf( nodeId );
+		BTreeNode<K, V> node = sharedNodes.get( key );
+		if ( node != null )
+		{
+			return node;
+		}
+		NodeFile nodeFile = file;
+		if ( nodeFile == null )
+		{
+			throw new IOException( CoreMessages.getFormattedString(
+					ResourceConstants.CANNOT_LOAD_NODE, new Object[]{nodeId} ) );
+		}
+		synchronized ( nodeFile )
+		{
+			node = sharedNodes.get( key );
+			if ( node != null )
+			{
+				return node;
+			}
+			node = readNode( nodeId );
+			if ( sharedNodes.size( ) >= cacheSize )
+			{
+				Iterator<BTreeNode<K, V>> iter = sharedNodes.values( )
+						.iterator( );
+				while ( iter.hasNext( ) )
+				{
+					if ( iter.next( ).getNodeType( ) != NODE_INDEX )
+					{
+						iter.remove( );
+						break;
+					}
+				}
+			}
+			sharedNodes.put( key, node );
+			return node;
+		}
+	}
+
+	private BTreeNode<K, V> readNode( int nodeId ) throws IOException
+	{
 		if ( file == null )
 		{
 			throw new IOException( CoreMessages.getFormattedString(
@@ -607,6 +674,7 @@ public class BTree<K, V> implements BTreeConstants
 		{
 			DataInput input = new DataInputStream( in );
 			int nodeType = input.readInt( );
+			BTreeNode<K, V> node;
 			switch ( nodeType )
 			{
 				case NODE_INDEX :
@@ -626,8 +694,6 @@ public class BTree<K, V> implements BTreeConstants
 			node.read( input );
 			node.setUsedBlocks( in.getUsedBlocks( ) );
 			node.setDirty( false );
-			node.lock( );
-			nodeCaches.put( Integer.valueOf( nodeId ), node );
 			return node;
 		}
 		finally
@@ -856,7 +922,7 @@ public class BTree<K, V> implements BTreeConstants
 		return v;
 	}
 
-	private BTreeValue<V> createValue( V value ) throws IOException
+	BTreeValue<V> createValue( V value ) throws IOException
 	{
 		byte[] valueBytes = valueSerializer.getBytes( value );
 		int valueSize = getValueSize( );
@@ -964,11 +1030,30 @@ public class BTree<K, V> implements BTreeConstants
 		return allowDuplicate;
 	}
 
+	boolean allowNullKey( )
+	{
+		return allowNullKey;
+	}
+
 	int getRootNodeId( )
 	{
 		return rootNodeId;
 	}
 
+	boolean isReadOnly( )
+	{
+		return readOnly;
+	}
+
+	/**
+	 * set the root of a tree built by the BTreeBuilder.
+	 */
+	void setRootNode( int rootNodeId, int totalLevels )
+	{
+		this.rootNodeId = rootNodeId;
+		this.totalLevels = totalLevels;
+	}
+
 	protected class ReusableBTreeFile implements NodeFile
 	{
 
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.btree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.eclipse.birt.core.i18n.CoreMessages;
+import org.eclipse.birt.core.i18n.ResourceConstants;
+
+/**
+ * Builds an empty btree from the keys in ascending order.
+ * <p>
+ * The entries are always appended to the last leaf node, the full nodes are
+ * never split and never visited again, so each node is filled to the block
+ * size and written once. The index nodes are built bottom-up in the same pass:
+ * only the last node of each level is kept in the memory.
+ * <p>
+ * The tree can't be searched until the builder is finished.
+ *
+ * <pre>
+ * BTreeBuilder&lt;K, V&gt; builder = new BTreeBuilder&lt;K, V&gt;( btree );
+ * for each key in ascending order
+ *     builder.append( key, value );
+ * builder.finish( );
+ * btree.close( );
+ * </pre>
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+public class BTreeBuilder<K, V>
+{
+
+	private BTree<K, V> btree;
+
+	// the last leaf node
+	private LeafNode<K, V> leafNode;
+
+	// the last index node of each level, from the bottom up
+	private ArrayList<IndexNode<K, V>> indexNodes = new ArrayList<IndexNode<K, V>>( );
+
+	private boolean finished;
+
+	/**
+	 * create a builder of the btree.
+	 *
+	 * @param btree
+	 *            the btree, it must be empty.
+	 * @throws IOException
+	 *             the tree is read only or isn't empty.
+	 */
+	public BTreeBuilder( BTree<K, V> btree ) throws IOException
+	{
+		if ( btree.isReadOnly( ) )
+		{
+			throw new IOException(
+					CoreMessages.getString( ResourceConstants.READ_ONLY_TREE ) );
+		}
+		if ( btree.getRootNodeId( ) != -1 )
+		{
+			throw new IOException(
+					CoreMessages.getString( ResourceConstants.NON_EMPTY_TREE ) );
+		}
+		this.btree = btree;
+	}
+
+	/**
+	 * append an entry to the tree. The key must be greater than or equal to
+	 * the last key, the values of the equal keys are merged as
+	 * {@link BTree#insert(Object, Object)} does.
+	 *
+	 * @param k
+	 *            the key
+	 * @param v
+	 *            the value
+	 * @throws IOException
+	 *             the key is less than the last key.
+	 */
+	public void append( K k, V v ) throws IOException
+	{
+		@SuppressWarnings("unchecked")
+		BTreeValue<V>[] values = (BTreeValue<V>[]) new BTreeValue[1];
+		if ( btree.hasValue( ) )
+		{
+			values[0] = btree.createValue( v );
+		}
+		appendEntry( createKey( k ), values );
+	}
+
+	/**
+	 * append an entry with several values to the tree.
+	 *
+	 * @see #append(Object, Object)
+	 */
+	public void append( K k, V[] vs ) throws IOException
+	{
+		BTreeValue<K> key = createKey( k );
+		if ( !btree.hasValue( ) || vs == null || vs.length == 0 )
+		{
+			@SuppressWarnings("unchecked")
+			BTreeValue<V>[] values = (BTreeValue<V>[]) new BTreeValue[1];
+			appendEntry( key, values );
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		BTreeValue<V>[] values = (BTreeValue<V>[]) new BTreeValue[vs.length];
+		for ( int i = 0; i < values.length; i++ )
+		{
+			values[i] = btree.createValue( vs[i] );
+		}
+		appendEntry( key, values );
+	}
+
+	/**
+	 * finish the building, the root of the tree is set and the nodes are
+	 * written when the tree is closed.
+	 */
+	public void finish( )
+	{
+		if ( finished )
+		{
+			return;
+		}
+		finished = true;
+		if ( leafNode == null )
+		{
+			return;
+		}
+		int rootNodeId = leafNode.getNodeId( );
+		leafNode.unlock( );
+		leafNode = null;
+		for ( IndexNode<K, V> indexNode : indexNodes )
+		{
+			rootNodeId = indexNode.getNodeId( );
+			indexNode.unlock( );
+		}
+		btree.setRootNode( rootNodeId, indexNodes.size( ) + 1 );
+		indexNodes.clear( );
+	}
+
+	private BTreeValue<K> createKey( K k ) throws IOException
+	{
+		if ( finished )
+		{
+			throw new IllegalStateException( "the builder is finished" );
+		}
+		if ( k == null && !btree.allowNullKey( ) )
+		{
+			throw new NullPointerException( "key can not be null" );
+		}
+		return btree.createKey( k );
+	}
+
+	private void appendEntry( BTreeValue<K> key, BTreeValue<V>[] values )
+			throws IOException
+	{
+		if ( leafNode == null )
+		{
+			leafNode = btree.createLeafNode( );
+		}
+		else
+		{
+			LeafEntry<K, V> lastEntry = leafNode.getLastEntry( );
+			if ( btree.compare( key, lastEntry.getKey( ) ) < 0 )
+			{
+				throw new IOException( CoreMessages.getFormattedString(
+						ResourceConstants.UNSORTED_KEYS,
+						new Object[]{btree.getKey( key )} ) );
+			}
+		}
+		// the key is equal to or greater than the keys in the node, so it is
+		// inserted at the end or merged into the last entry.
+		leafNode.insert( key, values );
+		if ( leafNode.needSplit( ) )
+		{
+			LeafNode<K, V> nextNode = btree.createLeafNode( );
+			leafNode.moveLastEntry( nextNode );
+			leafNode.setNextNodeId( nextNode.getNodeId( ) );
+			nextNode.setPrevNodeId( leafNode.getNodeId( ) );
+			leafNode.unlock( );
+
+			int prevNodeId = leafNode.getNodeId( );
+			leafNode = nextNode;
+			appendIndex( 0, prevNodeId, nextNode.getFirstEntry( ).getKey( ),
+					nextNode.getNodeId( ) );
+		}
+	}
+
+	/**
+	 * append a child to the last index node of the level.
+	 *
+	 * @param level
+	 *            the level of the index node, 0 for the nodes above the leaf
+	 *            nodes.
+	 * @param prevChildId
+	 *            the child before the appended child, it is the first child if
+	 *            the level is created.
+	 * @param key
+	 *            the first key of the child
+	 * @param childNodeId
+	 *            the appended child
+	 */
+	private void appendIndex( int level, int prevChildId, BTreeValue<K> key,
+			int childNodeId ) throws IOException
+	{
+		IndexNode<K, V> indexNode;
+		if ( level == indexNodes.size( ) )
+		{
+			indexNode = btree.createIndexNode( );
+			indexNode.setFirstChild( prevChildId );
+			indexNodes.add( indexNode );
+		}
+		else
+		{
+			indexNode = indexNodes.get( level );
+		}
+		indexNode.insertIndex( key, childNodeId );
+		if ( indexNode.needSplit( ) )
+		{
+			// the key of the last entry moves to the upper level and its child
+			// becomes the first child of the next node.
+			IndexEntry<K, V> lastEntry = indexNode.removeLastEntry( );
+			IndexNode<K, V> nextNode = btree.createIndexNode( );
+			nextNode.setFirstChild( lastEntry.getChildNodeId( ) );
+			indexNode.setNextNodeId( nextNode.getNodeId( ) );
+			nextNode.setPrevNodeId( indexNode.getNodeId( ) );
+			indexNode.unlock( );
+
+			indexNodes.set( level, nextNode );
+			appendIndex( level + 1, indexNode.getNodeId( ), lastEntry.getKey( ),
+					nextNode.getNodeId( ) );
+		}
+	}
+}
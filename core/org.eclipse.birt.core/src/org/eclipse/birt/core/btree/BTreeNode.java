@@ -75,14 +75,25 @@ abstract public class BTreeNode<K, V> implements BTreeConstants
 
 	abstract void write( DataOutput out ) throws IOException;
 
+	/**
+	 * lock the node in the node cache of the tree. The nodes of a read only
+	 * tree are shared by the threads reading the tree and never written back,
+	 * so they are neither locked nor unlocked.
+	 */
 	public void lock( )
 	{
-		lockCount++;
+		if ( !btree.isReadOnly( ) )
+		{
+			lockCount++;
+		}
 	}
 
 	public void unlock( )
 	{
-		lockCount--;
+		if ( !btree.isReadOnly( ) )
+		{
+			lockCount--;
+		}
 	}
 
 	public boolean isLocked( )
@@ -284,6 +284,20 @@ public class IndexNode<K, V> extends BTreeNode<K, V>
 		}
 	}
 
+	/**
+	 * remove the last entry, used by the BTreeBuilder to start the next node
+	 * once this node is full.
+	 * 
+	 * @return the removed entry, its key should be moved to the upper level.
+	 */
+	IndexEntry<K, V> removeLastEntry( )
+	{
+		IndexEntry<K, V> entry = entries.remove( entries.size( ) - 1 );
+		nodeSize -= getEntrySize( entry );
+		dirty = true;
+		return entry;
+	}
+
 	public IndexEntry<K, V> split( ) throws IOException
 	{
 		// break at the node into two nodes: current and new node.
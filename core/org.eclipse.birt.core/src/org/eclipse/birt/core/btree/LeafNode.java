@@ -350,6 +350,32 @@ class LeafNode<K, V> extends BTreeNode<K, V>
 		}
 	}
 
+	/**
+	 * move the last entry to an empty node, used by the BTreeBuilder to start
+	 * the next node once this node is full.
+	 * 
+	 * @param node
+	 *            the empty node following this node.
+	 */
+	void moveLastEntry( LeafNode<K, V> node ) throws IOException
+	{
+		LeafEntry<K, V> entry = entries.remove( entries.size( ) - 1 );
+		LeafEntry<K, V> prev = entry.getPrev( );
+		if ( prev != null )
+		{
+			prev.setNext( null );
+		}
+		entry.setPrev( null );
+		int entrySize = getEntrySize( entry );
+		nodeSize -= entrySize;
+		dirty = true;
+
+		node.entries.add( entry );
+		entry.setNode( node );
+		node.nodeSize += entrySize;
+		node.dirty = true;
+	}
+
 	void read( DataInput in ) throws IOException
 	{
 		nodeSize = in.readInt( );
@@ -66,6 +66,8 @@ public class ResourceConstants
 	public static final String CURSOR_NOT_INITIALIZED = "error.CusorNotInitialized";
 	public static final String UNEXPECTED_EQUAL_KEYS = "error.UnexpectedEqualKeys";
 	public static final String UNKNOWN_VALUE_TYPE = "error.UnknownValueType";
+	public static final String UNSORTED_KEYS = "error.UnsortedKeys";
+	public static final String NON_EMPTY_TREE = "error.NonEmptyTree";
 	public static final String EXCEED_MAX_BLOCK = "error.ExceedMaxBlock";
 	public static final String NOT_SUPPORTED_SERIALIZABLE = "error.NotSupportedSerializable";
 	public static final String MALFORMED_INPUT_ERROR = "error.MalformedInputError";
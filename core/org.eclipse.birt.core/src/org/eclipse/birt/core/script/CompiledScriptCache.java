@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.script;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.birt.core.util.CacheStatistics;
+import org.mozilla.javascript.Script;
+
+/**
+ * The cache of compiled Javascript, shared by all the script engines in the
+ * JVM. Repeated evaluation of the same script text uses the compiled script
+ * instead of compiling it again.
+ *
+ * The scripts are keyed by the script text, the source name and the line
+ * number they are compiled with, which are reported by the errors of the
+ * script, and the security domain. The number of cached scripts is limited, the least recently
+ * used scripts are evicted first. The limit can be set by the system property
+ * {@link #PROPERTY_CACHE_SIZE} or {@link #setMaxSize(int)}.
+ *
+ * The cache is divided into several segments, each segment is locked
+ * separately and owns a part of the limit, so the threads evaluating different
+ * scripts seldom block each other.
+ */
+public class CompiledScriptCache
+{
+
+	/**
+	 * the system property to set the max count of cached scripts, 0 to disable
+	 * the cache.
+	 */
+	public static final String PROPERTY_CACHE_SIZE = "org.eclipse.birt.core.script.CompiledScriptCacheSize";
+
+	static final int DEFAULT_CACHE_SIZE = 1000;
+
+	static final int SEGMENT_COUNT = 16;
+	static final int SEGMENT_MASK = SEGMENT_COUNT - 1;
+
+	private static final CompiledScriptCache instance = new CompiledScriptCache(
+			getConfiguredSize( ) );
+
+	private final Segment[] segments;
+	private volatile int maxSize;
+
+	private final CacheStatistics statistics = new CacheStatistics( );
+
+	/**
+	 * @return the cache shared by all the script engines.
+	 */
+	public static CompiledScriptCache getInstance( )
+	{
+		return instance;
+	}
+
+	/**
+	 * @param maxSize
+	 *            the max count of cached scripts.
+	 */
+	public CompiledScriptCache( int maxSize )
+	{
+		segments = new Segment[SEGMENT_COUNT];
+		for ( int i = 0; i < SEGMENT_COUNT; i++ )
+		{
+			segments[i] = new Segment( );
+		}
+		setMaxSize( maxSize );
+	}
+
+	private static int getConfiguredSize( )
+	{
+		String value = AccessController
+				.doPrivileged( new PrivilegedAction<String>( ) {
+
+					public String run( )
+					{
+						return System.getProperty( PROPERTY_CACHE_SIZE );
+					}
+				} );
+		if ( value != null )
+		{
+			try
+			{
+				return Integer.parseInt( value.trim( ) );
+			}
+			catch ( NumberFormatException ex )
+			{
+				// just use the default size
+			}
+		}
+		return DEFAULT_CACHE_SIZE;
+	}
+
+	/**
+	 * change the max count of cached scripts. The scripts exceeding the new
+	 * limit are evicted immediately.
+	 *
+	 * @param maxSize
+	 *            the max count, 0 to disable the cache.
+	 */
+	public void setMaxSize( int maxSize )
+	{
+		if ( maxSize < 0 )
+		{
+			maxSize = 0;
+		}
+		this.maxSize = maxSize;
+		// round up, so a small cache still keeps scripts in every segment
+		int segmentSize = ( maxSize + SEGMENT_MASK ) / SEGMENT_COUNT;
+		for ( Segment segment : segments )
+		{
+			segment.setMaxSize( segmentSize );
+		}
+	}
+
+	public int getMaxSize( )
+	{
+		return maxSize;
+	}
+
+	/**
+	 * @return the count of cached scripts.
+	 */
+	public int size( )
+	{
+		int size = 0;
+		for ( Segment segment : segments )
+		{
+			size += segment.size( );
+		}
+		return size;
+	}
+
+	public CacheStatistics getStatistics( )
+	{
+		return statistics;
+	}
+
+	/**
+	 * get a compiled script.
+	 *
+	 * @param scriptText
+	 *            the script text.
+	 * @param sourceName
+	 *            the source name the script is compiled with, can be null.
+	 * @param lineNumber
+	 *            the first line number of the script.
+	 * @param securityDomain
+	 *            the security domain the script is compiled with, can be null.
+	 * @return the compiled script, null if it isn't cached.
+	 */
+	public Script get( String scriptText, String sourceName, int lineNumber,
+			Object securityDomain )
+	{
+		if ( maxSize == 0 )
+		{
+			return null;
+		}
+		ScriptKey key = new ScriptKey( scriptText,
+				sourceName,
+				lineNumber,
+				securityDomain );
+		Script script = getSegment( key ).get( key );
+		if ( script != null )
+		{
+			statistics.recordHit( );
+		}
+		else
+		{
+			statistics.recordMiss( );
+		}
+		return script;
+	}
+
+	/**
+	 * put a compiled script into the cache.
+	 *
+	 * @param scriptText
+	 *            the script text.
+	 * @param sourceName
+	 *            the source name the script is compiled with, can be null.
+	 * @param lineNumber
+	 *            the first line number of the script.
+	 * @param securityDomain
+	 *            the security domain the script is compiled with, can be null.
+	 * @param script
+	 *            the compiled script.
+	 * @param compileTime
+	 *            the time used to compile the script, in nano seconds.
+	 */
+	public void put( String scriptText, String sourceName, int lineNumber,
+			Object securityDomain, Script script, long compileTime )
+	{
+		statistics.recordLoad( compileTime );
+		if ( maxSize == 0 )
+		{
+			return;
+		}
+		ScriptKey key = new ScriptKey( scriptText,
+				sourceName,
+				lineNumber,
+				securityDomain );
+		getSegment( key ).put( key, script );
+	}
+
+	/**
+	 * remove all the cached scripts.
+	 */
+	public void clear( )
+	{
+		for ( Segment segment : segments )
+		{
+			segment.clear( );
+		}
+	}
+
+	private Segment getSegment( ScriptKey key )
+	{
+		// spread the hash code, the string hash codes of similar scripts
+		// differ mostly in the lower bits
+		int hash = key.hashCode( );
+		hash ^= ( hash >>> 20 ) ^ ( hash >>> 12 );
+		hash ^= ( hash >>> 7 ) ^ ( hash >>> 4 );
+		return segments[hash & SEGMENT_MASK];
+	}
+
+	private static class ScriptKey
+	{
+
+		final String scriptText;
+		final String sourceName;
+		final int lineNumber;
+		final Object securityDomain;
+		final int hashCode;
+
+		ScriptKey( String scriptText, String sourceName, int lineNumber,
+				Object securityDomain )
+		{
+			assert scriptText != null;
+			this.scriptText = scriptText;
+			this.sourceName = sourceName;
+			this.lineNumber = lineNumber;
+			this.securityDomain = securityDomain;
+			int hash = scriptText.hashCode( );
+			hash = hash * 31
+					+ ( sourceName == null ? 0 : sourceName.hashCode( ) );
+			hash = hash * 31 + lineNumber;
+			this.hashCode = hash
+					* 31
+					+ ( securityDomain == null ? 0 : securityDomain.hashCode( ) );
+		}
+
+		public int hashCode( )
+		{
+			return hashCode;
+		}
+
+		public boolean equals( Object obj )
+		{
+			if ( this == obj )
+			{
+				return true;
+			}
+			if ( !( obj instanceof ScriptKey ) )
+			{
+				return false;
+			}
+			ScriptKey key = (ScriptKey) obj;
+			return hashCode == key.hashCode
+					&& lineNumber == key.lineNumber
+					&& scriptText.equals( key.scriptText )
+					&& ( sourceName == null ? key.sourceName == null
+							: sourceName.equals( key.sourceName ) )
+					&& ( securityDomain == null ? key.securityDomain == null
+							: securityDomain.equals( key.securityDomain ) );
+		}
+	}
+
+	private class Segment
+	{
+
+		// access-ordered LRU map
+		private final LinkedHashMap<ScriptKey, Script> scripts = new LinkedHashMap<ScriptKey, Script>(
+				16, 0.75f, true );
+		private int maxSize;
+
+		synchronized void setMaxSize( int maxSize )
+		{
+			this.maxSize = maxSize;
+			evict( );
+		}
+
+		synchronized int size( )
+		{
+			return scripts.size( );
+		}
+
+		synchronized Script get( ScriptKey key )
+		{
+			return scripts.get( key );
+		}
+
+		synchronized void put( ScriptKey key, Script script )
+		{
+			scripts.put( key, script );
+			evict( );
+		}
+
+		synchronized void clear( )
+		{
+			scripts.clear( );
+		}
+
+		private void evict( )
+		{
+			Iterator<Map.Entry<ScriptKey, Script>> iter = scripts.entrySet( )
+					.iterator( );
+			while ( scripts.size( ) > maxSize && iter.hasNext( ) )
+			{
+				iter.next( );
+				iter.remove( );
+				statistics.recordEviction( );
+			}
+		}
+	}
+}
@@ -17,10 +17,7 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.CodeSource;
-import java.util.Collections;
 import java.util.Date;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,27 +43,6 @@ public class JavascriptEvalUtil
 {
 	private static Logger logger = Logger.getLogger( JavascriptEvalUtil.class.getName( ) );
 
-	/*
-	 * LRU cache for compiled scripts. For performance reasons, scripts are compiled and put 
-	 * in a cache. Repeated evaluation of the same script will then used the compiled binary.
-	 * 
-	 */
-	static protected final int SCRIPT_CACHE_SIZE = 200;
-	// access-ordered LRU cache
-	static protected Map compiledScriptCache = Collections.synchronizedMap( 
-		new LinkedHashMap( SCRIPT_CACHE_SIZE, (float)0.75, true)
-		{
-			/** */
-			private static final long serialVersionUID = 5787175209573500620L;
-			
-			/*
-			 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
-			 */
-			protected boolean removeEldestEntry(Map.Entry eldest) {
-	         return size() > SCRIPT_CACHE_SIZE;
-	      }		
-		} );
-	
 	/**
 	 * This method will not convert the data of return value, so it might the
 	 * Java data type or that of Java Script.
@@ -150,11 +126,25 @@ public class JavascriptEvalUtil
 	{
 		assert scriptText != null;
 		
-		Script compiledScript = (Script) compiledScriptCache.get( scriptText );
+		// For performance reasons, scripts are compiled and put in the cache
+		// shared by all the script engines. Repeated evaluation of the same
+		// script will then use the compiled binary.
+		CompiledScriptCache cache = CompiledScriptCache.getInstance( );
+		Object securityDomain = getSecurityDomain( source );
+		Script compiledScript = cache.get( scriptText,
+				source,
+				lineNo,
+				securityDomain );
 		if ( compiledScript == null )
 		{
-			compiledScript = cx.compileString( scriptText, source, lineNo, getSecurityDomain( source ) );
-			compiledScriptCache.put( scriptText, compiledScript );
+			long startTime = System.nanoTime( );
+			compiledScript = cx.compileString( scriptText, source, lineNo, securityDomain );
+			cache.put( scriptText,
+					source,
+					lineNo,
+					securityDomain,
+					compiledScript,
+					System.nanoTime( ) - startTime );
 		}
 
 		return compiledScript;
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters of a cache. All the counters are updated atomically, so the
+ * object can be shared by concurrent threads without locking.
+ */
+public class CacheStatistics
+{
+
+	private final AtomicLong hitCount = new AtomicLong( );
+	private final AtomicLong missCount = new AtomicLong( );
+	private final AtomicLong evictionCount = new AtomicLong( );
+	private final AtomicLong loadCount = new AtomicLong( );
+	private final AtomicLong totalLoadTime = new AtomicLong( );
+
+	public void recordHit( )
+	{
+		hitCount.incrementAndGet( );
+	}
+
+	public void recordMiss( )
+	{
+		missCount.incrementAndGet( );
+	}
+
+	public void recordEviction( )
+	{
+		evictionCount.incrementAndGet( );
+	}
+
+	/**
+	 * record a load of a missed cache entry.
+	 *
+	 * @param loadTime
+	 *            the time used to load the entry, in nano seconds.
+	 */
+	public void recordLoad( long loadTime )
+	{
+		loadCount.incrementAndGet( );
+		totalLoadTime.addAndGet( loadTime );
+	}
+
+	public long getHitCount( )
+	{
+		return hitCount.get( );
+	}
+
+	public long getMissCount( )
+	{
+		return missCount.get( );
+	}
+
+	public long getRequestCount( )
+	{
+		return hitCount.get( ) + missCount.get( );
+	}
+
+	/**
+	 * @return the ratio of the hit requests, 1.0 if there is no request.
+	 */
+	public double getHitRate( )
+	{
+		long hits = hitCount.get( );
+		long requests = hits + missCount.get( );
+		return requests == 0 ? 1.0 : (double) hits / requests;
+	}
+
+	public long getEvictionCount( )
+	{
+		return evictionCount.get( );
+	}
+
+	public long getLoadCount( )
+	{
+		return loadCount.get( );
+	}
+
+	/**
+	 * @return the total time used to load the missed entries, in nano
+	 *         seconds.
+	 */
+	public long getTotalLoadTime( )
+	{
+		return totalLoadTime.get( );
+	}
+
+	public void reset( )
+	{
+		hitCount.set( 0 );
+		missCount.set( 0 );
+		evictionCount.set( 0 );
+		loadCount.set( 0 );
+		totalLoadTime.set( 0 );
+	}
+
+	public String toString( )
+	{
+		StringBuffer buffer = new StringBuffer( "CacheStatistics: " );
+		buffer.append( "hits=" ).append( getHitCount( ) );
+		buffer.append( ", misses=" ).append( getMissCount( ) );
+		buffer.append( ", evictions=" ).append( getEvictionCount( ) );
+		buffer.append( ", loads=" ).append( getLoadCount( ) );
+		buffer.append( ", loadTime=" ).append( getTotalLoadTime( ) );
+		return buffer.toString( );
+	}
+}
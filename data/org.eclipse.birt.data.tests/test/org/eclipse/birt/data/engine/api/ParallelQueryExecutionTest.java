@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.birt.core.data.DataType;
+import org.eclipse.birt.data.engine.api.querydefn.Binding;
+import org.eclipse.birt.data.engine.api.querydefn.InputParameterBinding;
+import org.eclipse.birt.data.engine.api.querydefn.OdaDataSetDesign;
+import org.eclipse.birt.data.engine.api.querydefn.ParameterDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.QueryDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.ScriptExpression;
+
+import testutil.ConfigText;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the top level queries executed ahead, their statements are executed in
+ * background threads and their rows are fetched later in any order.
+ */
+public class ParallelQueryExecutionTest extends APITestCase
+{
+
+	private static final String TEST_TABLE_NAME = ConfigText.getString( "Api.TestData.TableName" );
+
+	private Map appContext;
+
+	/*
+	 * @see org.eclipse.birt.data.engine.api.APITestCase#getDataSourceInfo()
+	 */
+	protected DataSourceInfo getDataSourceInfo( )
+	{
+		return new DataSourceInfo( TEST_TABLE_NAME,
+				ConfigText.getString( "Api.TestData.TableSQL" ),
+				ConfigText.getString( "Api.TestData.TestDataFileName" ) );
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.api.APITestCase#getAppContext()
+	 */
+	protected Map getAppContext( )
+	{
+		return appContext;
+	}
+
+	private QueryDefinition newQuery( IBaseDataSetDesign dataSet )
+			throws Exception
+	{
+		QueryDefinition query = newReportQuery( dataSet );
+		query.addBinding( new Binding( "country",
+				new ScriptExpression( "dataSetRow.COUNTRY" ) ) );
+		query.addBinding( new Binding( "city",
+				new ScriptExpression( "dataSetRow.CITY" ) ) );
+		query.addBinding( new Binding( "amount",
+				new ScriptExpression( "dataSetRow.AMOUNT" ) ) );
+		return query;
+	}
+
+	/**
+	 * Creates the queries on two data sets of the same data source, the
+	 * second one has a parameter bound by a script.
+	 */
+	private QueryDefinition[] newQueries( ) throws Exception
+	{
+		OdaDataSetDesign paramDataSet = newDataSet( "paramDataSet",
+				"select * from " + TEST_TABLE_NAME + " where AMOUNT > ?" );
+		ParameterDefinition paramDefn = new ParameterDefinition( "param1",
+				DataType.INTEGER_TYPE );
+		paramDefn.setInputMode( true );
+		paramDefn.setPosition( 1 );
+		paramDefn.setDefaultInputValue( "0" );
+		paramDataSet.addParameter( paramDefn );
+
+		QueryDefinition paramQuery = newQuery( paramDataSet );
+		paramQuery.addInputParamBinding( new InputParameterBinding( 1,
+				new ScriptExpression( "50 * 2" ) ) );
+		return new QueryDefinition[]{
+				newQuery( null ), paramQuery, newQuery( null )
+		};
+	}
+
+	private String fetchRows( IQueryResults results ) throws Exception
+	{
+		StringBuffer buffer = new StringBuffer( );
+		IResultIterator iter = results.getResultIterator( );
+		while ( iter.next( ) )
+		{
+			buffer.append( iter.getString( "country" ) )
+					.append( ',' )
+					.append( iter.getString( "city" ) )
+					.append( ',' )
+					.append( iter.getString( "amount" ) )
+					.append( '\n' );
+		}
+		iter.close( );
+		results.close( );
+		return buffer.toString( );
+	}
+
+	/**
+	 * Executes all the queries first, then fetches their rows in the reverse
+	 * order.
+	 */
+	private List<String> executeQueries( QueryDefinition[] queries )
+			throws Exception
+	{
+		IQueryResults[] results = new IQueryResults[queries.length];
+		for ( int i = 0; i < queries.length; i++ )
+		{
+			IPreparedQuery preparedQuery = dataEngine.prepare( queries[i],
+					getAppContext( ) );
+			results[i] = preparedQuery.execute( null );
+		}
+		List<String> rows = new ArrayList<String>( );
+		for ( int i = queries.length - 1; i >= 0; i-- )
+		{
+			rows.add( 0, fetchRows( results[i] ) );
+		}
+		return rows;
+	}
+
+	@Test
+	public void testExecuteAhead( ) throws Exception
+	{
+		QueryDefinition[] queries = newQueries( );
+		appContext = null;
+		List<String> expected = executeQueries( queries );
+		assertTrue( expected.get( 0 ).length( ) > 0 );
+		assertFalse( expected.get( 0 ).equals( expected.get( 1 ) ) );
+
+		for ( int i = 1; i <= 2; i++ )
+		{
+			appContext = new HashMap( );
+			appContext.put( DataEngine.PARALLEL_QUERY_EXECUTION,
+					String.valueOf( i ) );
+			assertEquals( expected, executeQueries( queries ) );
+		}
+	}
+
+	@Test
+	public void testCloseWithoutFetch( ) throws Exception
+	{
+		QueryDefinition[] queries = newQueries( );
+		appContext = new HashMap( );
+		appContext.put( DataEngine.PARALLEL_QUERY_EXECUTION, "1" );
+		for ( int i = 0; i < queries.length; i++ )
+		{
+			dataEngine.prepare( queries[i], appContext )
+					.execute( null )
+					.close( );
+		}
+
+		// the statements waiting for the data source are dropped, the data
+		// source is still available for the following queries
+		List<String> rows = executeQueries( queries );
+		assertEquals( queries.length, rows.size( ) );
+		assertEquals( rows.get( 0 ), rows.get( 2 ) );
+	}
+}
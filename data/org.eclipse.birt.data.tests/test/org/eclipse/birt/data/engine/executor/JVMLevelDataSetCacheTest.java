@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.eclipse.birt.data.engine.api.querydefn.OdaDataSetDesign;
+import org.eclipse.birt.data.engine.api.querydefn.OdaDataSourceDesign;
+import org.eclipse.birt.data.engine.core.DataException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the eviction, time to live and concurrent loading of the JVM level data
+ * set cache
+ */
+public class JVMLevelDataSetCacheTest
+{
+
+	private static final int ROW_COUNT = 50;
+
+	private JVMLevelDataSetCache cache;
+	private OdaDataSourceDesign dataSource;
+	private ResultClass resultClass;
+	private Object owner;
+	private Object otherOwner;
+
+	@Before
+	public void cacheSetUp( ) throws DataException
+	{
+		cache = JVMLevelDataSetCache.getInstance( );
+		cache.removeAll( );
+		cache.setLimits( 0, 0, 0 );
+		cache.getStatistics( ).reset( );
+
+		dataSource = new OdaDataSourceDesign( "dataSource" );
+		List columnsList = new ArrayList( );
+		columnsList.add( new ResultFieldMetadata( 1,
+				"value",
+				"value",
+				String.class,
+				"VARCHAR" /* nativeTypeName */,
+				false ) );
+		resultClass = new ResultClass( columnsList );
+		owner = new Object( );
+		otherOwner = new Object( );
+	}
+
+	@After
+	public void cacheTearDown( )
+	{
+		cache.cancelPendingLoads( null, owner );
+		cache.cancelPendingLoads( null, otherOwner );
+		cache.removeAll( );
+		cache.setLimits( 0, 0, 0 );
+	}
+
+	private DataSourceAndDataSet createKey( String dataSetName )
+	{
+		return DataSourceAndDataSet.newInstance( dataSource,
+				new OdaDataSetDesign( dataSetName ),
+				null,
+				null,
+				false );
+	}
+
+	private MemoryDataSetCacheObject createCacheObject( )
+	{
+		MemoryDataSetCacheObject cacheObject = new MemoryDataSetCacheObject( ROW_COUNT + 1 );
+		cacheObject.setResultClass( resultClass );
+		for ( int i = 0; i < ROW_COUNT; i++ )
+		{
+			cacheObject.populateResult( new ResultObject( resultClass,
+					new Object[]{
+						"row value " + i
+					} ) );
+		}
+		return cacheObject;
+	}
+
+	/**
+	 * Save a cached object and return its estimated size
+	 */
+	private long save( DataSourceAndDataSet key, Object owner )
+	{
+		long size = cache.getMemorySize( );
+		cache.saveStart( key, owner );
+		cache.saveFinish( key, createCacheObject( ), owner );
+		return cache.getMemorySize( ) - size;
+	}
+
+	private boolean load( DataSourceAndDataSet key, Object owner )
+	{
+		if ( !cache.doesLoadFromCache( key, ROW_COUNT, owner ) )
+			return false;
+		cache.loadStart( key, owner );
+		cache.loadFinish( key, owner );
+		return true;
+	}
+
+	/**
+	 * Start a thread loading the data set, the latch is counted down when the
+	 * thread starts
+	 */
+	private Thread startLoad( final DataSourceAndDataSet key,
+			final Object owner, final boolean[] loaded,
+			final CountDownLatch started )
+	{
+		Thread thread = new Thread( ) {
+
+			public void run( )
+			{
+				started.countDown( );
+				loaded[0] = load( key, owner );
+			}
+		};
+		thread.start( );
+		return thread;
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction( ) throws InterruptedException
+	{
+		DataSourceAndDataSet key1 = createKey( "dataSet1" );
+		DataSourceAndDataSet key2 = createKey( "dataSet2" );
+		DataSourceAndDataSet key3 = createKey( "dataSet3" );
+
+		long size = save( key1, owner );
+		assertTrue( size > 0 );
+		cache.setLimits( size * 5 / 2, 0, 0 );
+		Thread.sleep( 5 );
+		save( key2, owner );
+		Thread.sleep( 5 );
+		assertTrue( load( key1, owner ) );
+		Thread.sleep( 5 );
+
+		// the second data set is the least recently used one
+		save( key3, owner );
+		assertEquals( 2, cache.getEntryCount( ) );
+		assertNotNull( cache.get( key1 ) );
+		assertNull( cache.get( key2 ) );
+		assertNotNull( cache.get( key3 ) );
+		assertEquals( size * 2, cache.getMemorySize( ) );
+		assertEquals( 1, cache.getStatistics( ).getEvictionCount( ) );
+		assertEquals( 1, cache.getStatistics( ).getHitCount( ) );
+		assertEquals( 3, cache.getStatistics( ).getLoadCount( ) );
+	}
+
+	@Test
+	public void testLockedEntryNotEvicted( )
+	{
+		DataSourceAndDataSet key1 = createKey( "dataSet1" );
+		DataSourceAndDataSet key2 = createKey( "dataSet2" );
+
+		long size = save( key1, owner );
+		cache.setLimits( size, 0, 0 );
+		assertTrue( cache.doesLoadFromCache( key1, ROW_COUNT, owner ) );
+		cache.loadStart( key1, owner );
+
+		// the first data set is being loaded
+		save( key2, owner );
+		assertNotNull( cache.get( key1 ) );
+		assertNotNull( cache.get( key2 ) );
+
+		cache.loadFinish( key1, owner );
+		save( createKey( "dataSet3" ), owner );
+		assertNull( cache.get( key1 ) );
+		assertEquals( 1, cache.getEntryCount( ) );
+	}
+
+	@Test
+	public void testTimeToLive( ) throws InterruptedException
+	{
+		DataSourceAndDataSet key = createKey( "dataSet1" );
+		cache.setLimits( 0, 0, 50 );
+		save( key, owner );
+		assertTrue( load( key, owner ) );
+
+		Thread.sleep( 100 );
+		assertFalse( load( key, owner ) );
+		assertEquals( 0, cache.getEntryCount( ) );
+		assertEquals( 0, cache.getMemorySize( ) );
+		assertEquals( 1, cache.getStatistics( ).getMissCount( ) );
+	}
+
+	@Test
+	public void testReplacedEntryReleasedAfterLoad( )
+	{
+		DataSourceAndDataSet key = createKey( "dataSet1" );
+		final boolean[] released = new boolean[1];
+		MemoryDataSetCacheObject object = new MemoryDataSetCacheObject( ROW_COUNT + 1 ) {
+
+			public void release( )
+			{
+				released[0] = true;
+			}
+		};
+		object.setResultClass( resultClass );
+		object.populateResult( new ResultObject( resultClass, new Object[]{
+			"row value"
+		} ) );
+		cache.saveStart( key, owner );
+		cache.saveFinish( key, object, owner );
+		assertTrue( cache.doesLoadFromCache( key, ROW_COUNT, otherOwner ) );
+		cache.loadStart( key, otherOwner );
+
+		// the entry being loaded is replaced
+		save( key, owner );
+		assertFalse( released[0] );
+		assertSame( object, cache.get( key, otherOwner ) );
+		assertNotSame( object, cache.get( key ) );
+
+		cache.loadFinish( key, otherOwner );
+		assertTrue( released[0] );
+		assertEquals( 1, cache.getEntryCount( ) );
+	}
+
+	@Test
+	public void testWaitForPendingLoad( ) throws InterruptedException
+	{
+		DataSourceAndDataSet key = createKey( "dataSet1" );
+		boolean[] loaded = new boolean[1];
+		CountDownLatch started = new CountDownLatch( 1 );
+
+		cache.saveStart( key, owner );
+		// the same session doesn't wait for itself
+		assertFalse( cache.doesLoadFromCache( key, ROW_COUNT, owner ) );
+
+		Thread thread = startLoad( key, otherOwner, loaded, started );
+		started.await( );
+		cache.saveFinish( key, createCacheObject( ), owner );
+		thread.join( JVMLevelDataSetCache.MAX_WAIT_TIME );
+		assertTrue( loaded[0] );
+		assertEquals( 1, cache.getStatistics( ).getHitCount( ) );
+	}
+
+	@Test
+	public void testWaitForColdStart( ) throws InterruptedException
+	{
+		DataSourceAndDataSet key = createKey( "dataSet1" );
+		boolean[] loaded = new boolean[1];
+		CountDownLatch started = new CountDownLatch( 1 );
+
+		// the first session missing the data set fetches it, the other
+		// session waits for the fetch instead of missing it too
+		assertFalse( cache.doesLoadFromCache( key, ROW_COUNT, owner ) );
+		Thread thread = startLoad( key, otherOwner, loaded, started );
+		started.await( );
+		cache.saveStart( key, owner );
+		cache.saveFinish( key, createCacheObject( ), owner );
+		thread.join( JVMLevelDataSetCache.MAX_WAIT_TIME );
+		assertTrue( loaded[0] );
+		assertEquals( 1, cache.getStatistics( ).getMissCount( ) );
+		assertEquals( 1, cache.getStatistics( ).getHitCount( ) );
+		assertEquals( 1, cache.getStatistics( ).getLoadCount( ) );
+	}
+
+	@Test
+	public void testCancelPendingLoad( ) throws InterruptedException
+	{
+		DataSourceAndDataSet key = createKey( "dataSet1" );
+		boolean[] loaded = new boolean[]{
+			true
+		};
+		CountDownLatch started = new CountDownLatch( 1 );
+
+		cache.saveStart( key, owner );
+		Thread thread = startLoad( key, otherOwner, loaded, started );
+		started.await( );
+		cache.cancelPendingLoads( null, owner );
+		thread.join( JVMLevelDataSetCache.MAX_WAIT_TIME );
+		assertFalse( loaded[0] );
+	}
+}
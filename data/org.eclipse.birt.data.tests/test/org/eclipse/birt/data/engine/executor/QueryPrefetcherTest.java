@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.executor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the limits of the statements executed ahead.
+ */
+public class QueryPrefetcherTest
+{
+
+	@Test
+	public void testOneStatementPerConnection( ) throws Exception
+	{
+		QueryPrefetcher prefetcher = new QueryPrefetcher( 4 );
+		Object connection = new Object( );
+		AtomicInteger running = new AtomicInteger( );
+		AtomicInteger maxRunning = new AtomicInteger( );
+		List<Future<Object>> futures = new ArrayList<Future<Object>>( );
+		for ( int i = 0; i < 6; i++ )
+		{
+			futures.add( prefetcher.submit( connection,
+					new Statement( running, maxRunning ) ) );
+		}
+		for ( Future<Object> future : futures )
+		{
+			QueryPrefetcher.waitFor( future );
+		}
+		assertEquals( 1, maxRunning.get( ) );
+	}
+
+	@Test
+	public void testStatementsOfConnections( ) throws Exception
+	{
+		QueryPrefetcher prefetcher = new QueryPrefetcher( 2 );
+		Object[] connections = {
+				new Object( ), new Object( ), new Object( )
+		};
+		Map<Object, AtomicInteger> runningByConnection = new HashMap<Object, AtomicInteger>( );
+		Map<Object, AtomicInteger> maxRunningByConnection = new HashMap<Object, AtomicInteger>( );
+		for ( int i = 0; i < connections.length; i++ )
+		{
+			runningByConnection.put( connections[i], new AtomicInteger( ) );
+			maxRunningByConnection.put( connections[i], new AtomicInteger( ) );
+		}
+		AtomicInteger running = new AtomicInteger( );
+		AtomicInteger maxRunning = new AtomicInteger( );
+		List<Future<Object>> futures = new ArrayList<Future<Object>>( );
+		for ( int i = 0; i < 12; i++ )
+		{
+			final Object connection = connections[i % connections.length];
+			final Statement connectionStatement = new Statement( runningByConnection.get( connection ),
+					maxRunningByConnection.get( connection ) );
+			final Statement statement = new Statement( running, maxRunning ) {
+
+				public Object call( ) throws Exception
+				{
+					connectionStatement.enter( );
+					try
+					{
+						return super.call( );
+					}
+					finally
+					{
+						connectionStatement.exit( );
+					}
+				}
+			};
+			futures.add( prefetcher.submit( connection, statement ) );
+		}
+		for ( Future<Object> future : futures )
+		{
+			QueryPrefetcher.waitFor( future );
+		}
+		assertEquals( 2, maxRunning.get( ) );
+		for ( int i = 0; i < connections.length; i++ )
+		{
+			assertEquals( 1, maxRunningByConnection.get( connections[i] )
+					.get( ) );
+		}
+	}
+
+	@Test
+	public void testDropPendingStatement( ) throws Exception
+	{
+		QueryPrefetcher prefetcher = new QueryPrefetcher( 1 );
+		Object connection = new Object( );
+		AtomicInteger running = new AtomicInteger( );
+		AtomicInteger maxRunning = new AtomicInteger( );
+		Future<Object> first = prefetcher.submit( connection,
+				new Statement( running, maxRunning ) );
+		final AtomicInteger executed = new AtomicInteger( );
+		Future<Object> dropped = prefetcher.submit( connection,
+				new Callable<Object>( ) {
+
+					public Object call( ) throws Exception
+					{
+						executed.incrementAndGet( );
+						return null;
+					}
+				} );
+		prefetcher.waitQuietly( dropped );
+		QueryPrefetcher.waitFor( first );
+
+		// the connection is released by the first statement
+		Future<Object> next = prefetcher.submit( connection,
+				new Statement( running, maxRunning ) );
+		QueryPrefetcher.waitFor( next );
+		assertTrue( next.isDone( ) );
+		assertEquals( 0, executed.get( ) );
+	}
+
+	/**
+	 * A statement which records how many statements run at the same time.
+	 */
+	private static class Statement implements Callable<Object>
+	{
+
+		private AtomicInteger running;
+		private AtomicInteger maxRunning;
+
+		Statement( AtomicInteger running, AtomicInteger maxRunning )
+		{
+			this.running = running;
+			this.maxRunning = maxRunning;
+		}
+
+		void enter( )
+		{
+			int count = running.incrementAndGet( );
+			while ( true )
+			{
+				int max = maxRunning.get( );
+				if ( count <= max || maxRunning.compareAndSet( max, count ) )
+				{
+					break;
+				}
+			}
+		}
+
+		void exit( )
+		{
+			running.decrementAndGet( );
+		}
+
+		public Object call( ) throws Exception
+		{
+			enter( );
+			try
+			{
+				Thread.sleep( 50 );
+			}
+			finally
+			{
+				exit( );
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.executor.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.data.engine.binding.MultiplePassTest;
+
+/**
+ * Run the tests of MultiplePassTest with the fetched rows processed in batches
+ */
+public class BatchMultiplePassTest extends MultiplePassTest
+{
+
+	protected Map getAppContext()
+	{
+		Map appContext = new HashMap();
+		// a small batch size, so the batches end in the middle of the rows
+		appContext.put( DataEngine.BATCH_ROW_PROCESSING_SIZE, "7" );
+		return appContext;
+	}
+	
+}
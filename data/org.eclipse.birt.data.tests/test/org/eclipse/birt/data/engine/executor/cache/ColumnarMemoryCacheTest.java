@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.executor.cache;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.executor.ResultClass;
+import org.eclipse.birt.data.engine.executor.ResultFieldMetadata;
+import org.eclipse.birt.data.engine.executor.ResultObject;
+import org.eclipse.birt.data.engine.odi.IResultObject;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the rows kept column by column in ColumnarMemoryCache
+ */
+public class ColumnarMemoryCacheTest
+{
+	private static final int ROW_COUNT = 10000;
+
+	private ResultClass resultClass;
+
+	@Before
+	public void columnarCacheSetUp( ) throws DataException
+	{
+		List columnsList = new ArrayList( );
+		columnsList.add( new ResultFieldMetadata( 1,
+				"intCol",
+				"intCol",
+				Integer.class,
+				"INTEGER" /* nativeTypeName */,
+				false ) );
+		columnsList.add( new ResultFieldMetadata( 2,
+				"doubleCol",
+				"doubleCol",
+				Double.class,
+				"DOUBLE" /* nativeTypeName */,
+				false ) );
+		columnsList.add( new ResultFieldMetadata( 3,
+				"stringCol",
+				"stringCol",
+				String.class,
+				"VARCHAR" /* nativeTypeName */,
+				false ) );
+		columnsList.add( new ResultFieldMetadata( 4,
+				"dateCol",
+				"dateCol",
+				Date.class,
+				"TIMESTAMP" /* nativeTypeName */,
+				false ) );
+		columnsList.add( new ResultFieldMetadata( 5,
+				"decimalCol",
+				"decimalCol",
+				BigDecimal.class,
+				"DECIMAL" /* nativeTypeName */,
+				false ) );
+		columnsList.add( new ResultFieldMetadata( 6,
+				"customCol",
+				"customCol",
+				Integer.class,
+				null /* nativeTypeName */,
+				true ) );
+		resultClass = new ResultClass( columnsList );
+	}
+
+	private Object[] createRow( int i )
+	{
+		return new Object[]{
+				i % 7 == 0 ? null : Integer.valueOf( i ),
+				Double.valueOf( i / 2.0 ),
+				"value" + ( i % 10 ),
+				new Timestamp( 1000000L * i ),
+				new BigDecimal( i ),
+				null
+		};
+	}
+
+	private ColumnarRowStore createStore( ) throws DataException
+	{
+		ColumnarRowStore store = new ColumnarRowStore( resultClass );
+		for ( int i = 0; i < ROW_COUNT; i++ )
+		{
+			store.addRow( new ResultObject( resultClass, createRow( i ) ) );
+		}
+		return store;
+	}
+
+	/**
+	 * Test the values read from the cache are the same as the values added
+	 */
+	@Test
+	public void testValues( ) throws DataException
+	{
+		ColumnarMemoryCache cache = new ColumnarMemoryCache( createStore( ),
+				null );
+		assertEquals( ROW_COUNT, cache.getCount( ) );
+		int i = 0;
+		while ( cache.next( ) )
+		{
+			IResultObject resultObject = cache.getCurrentResult( );
+			Object[] row = createRow( i );
+			for ( int j = 0; j < row.length; j++ )
+			{
+				assertEquals( row[j], resultObject.getFieldValue( j + 1 ) );
+			}
+			assertEquals( row[2], resultObject.getFieldValue( "stringCol" ) );
+			i++;
+		}
+		assertEquals( ROW_COUNT, i );
+
+		cache.moveTo( 43 );
+		assertEquals( Integer.valueOf( 43 ), cache.getCurrentResult( )
+				.getFieldValue( 1 ) );
+		cache.close( );
+	}
+
+	/**
+	 * Test the values not matching the column type and the custom field
+	 */
+	@Test
+	public void testSetValue( ) throws DataException
+	{
+		ColumnarRowStore store = createStore( );
+		IResultObject row = store.getRow( 10 );
+		row.setCustomFieldValue( "customCol", Integer.valueOf( 5 ) );
+		assertEquals( Integer.valueOf( 5 ), row.getFieldValue( 6 ) );
+
+		// a string in an integer column
+		row.setCustomFieldValue( 6, "abc" );
+		assertEquals( "abc", store.getRow( 10 ).getFieldValue( 6 ) );
+		assertNull( store.getRow( 11 ).getFieldValue( 6 ) );
+
+		try
+		{
+			row.setCustomFieldValue( 1, Integer.valueOf( 1 ) );
+			fail( "should not arrive here" );
+		}
+		catch ( DataException e )
+		{
+		}
+
+		// a timestamp with nanos
+		Timestamp timestamp = new Timestamp( 0 );
+		timestamp.setNanos( 1 );
+		store.setValue( 20, 3, timestamp );
+		assertEquals( timestamp, store.getValue( 20, 3 ) );
+		assertEquals( new Timestamp( 1000000L * 21 ), store.getValue( 21, 3 ) );
+	}
+
+	/**
+	 * Test the overwritten strings are counted once when deciding whether the
+	 * dictionary is worth keeping
+	 */
+	@Test
+	public void testOverwriteString( )
+	{
+		ColumnarRowStore.StringColumn column = new ColumnarRowStore.StringColumn( );
+		for ( int i = 0; i < ColumnarRowStore.MAX_DICTIONARY_SIZE; i++ )
+		{
+			assertTrue( column.set( 0, "value" + i ) );
+		}
+		for ( int i = 0; i < ColumnarRowStore.MAX_DICTIONARY_SIZE * 2; i++ )
+		{
+			assertTrue( column.set( 0, "value9" ) );
+		}
+		assertEquals( "value9", column.get( 0 ) );
+		assertTrue( column.set( 1, "value1" ) );
+		// the column holds two values and a full dictionary of distinct
+		// strings
+		assertFalse( column.set( 2, "distinct" ) );
+		assertNull( column.get( 2 ) );
+	}
+
+	/**
+	 * Test the sort is the same as sorting the result objects
+	 */
+	@Test
+	public void testSort( ) throws DataException
+	{
+		Comparator comparator = new Comparator( ) {
+
+			public int compare( Object o1, Object o2 )
+			{
+				try
+				{
+					String s1 = (String) ( (IResultObject) o1 ).getFieldValue( 3 );
+					String s2 = (String) ( (IResultObject) o2 ).getFieldValue( 3 );
+					return s2.compareTo( s1 );
+				}
+				catch ( DataException e )
+				{
+					throw new RuntimeException( e );
+				}
+			}
+		};
+		IResultObject[] resultObjects = new IResultObject[ROW_COUNT];
+		for ( int i = 0; i < ROW_COUNT; i++ )
+		{
+			resultObjects[i] = new ResultObject( resultClass, createRow( i ) );
+		}
+		MemoryCache memoryCache = new MemoryCache( resultObjects,
+				resultClass,
+				comparator );
+		ColumnarMemoryCache columnarCache = new ColumnarMemoryCache( createStore( ),
+				comparator );
+		while ( memoryCache.next( ) )
+		{
+			assertTrue( columnarCache.next( ) );
+			for ( int j = 1; j <= 5; j++ )
+			{
+				assertEquals( memoryCache.getCurrentResult( ).getFieldValue( j ),
+						columnarCache.getCurrentResult( ).getFieldValue( j ) );
+			}
+		}
+		assertFalse( columnarCache.next( ) );
+	}
+
+	/**
+	 * Test the measured memory size is far less than the estimated size of the
+	 * result objects
+	 */
+	@Test
+	public void testMemorySize( ) throws DataException
+	{
+		ColumnarRowStore store = createStore( );
+		SizeOfUtil sizeOfUtil = new SizeOfUtil( resultClass );
+		long objectSize = 0;
+		for ( int i = 0; i < ROW_COUNT; i++ )
+		{
+			objectSize += sizeOfUtil.sizeOf( store.getRow( i ) );
+		}
+		long memorySize = store.getMemorySize( );
+		assertTrue( memorySize > 0 );
+		assertTrue( memorySize < objectSize );
+
+		ColumnarRowStore emptyStore = new ColumnarRowStore( resultClass );
+		assertTrue( emptyStore.getMemorySize( ) < 1024 );
+		emptyStore.addRow( new ResultObject( resultClass, createRow( 1 ) ) );
+		assertTrue( emptyStore.getMemorySize( ) < 4096 );
+	}
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.executor.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.data.engine.regre.SortTest;
+
+/**
+ * Test the disk based sort which writes and reads the temporary files in
+ * background, and compresses them
+ */
+public class ParallelCacheSortTest extends SortTest
+{
+
+	protected Map getAppContext()
+	{
+		Map appContext = new HashMap();
+		appContext.put( "birt.data.engine.test.memcachesize", "2000" );
+		appContext.put( DataEngine.PARALLEL_DISK_SORT, "2" );
+		appContext.put( DataEngine.COMPRESS_DISK_CACHE, "true" );
+		return appContext;
+	}
+	
+}
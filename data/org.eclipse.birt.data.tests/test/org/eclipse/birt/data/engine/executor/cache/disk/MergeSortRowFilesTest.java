@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.executor.cache.disk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.executor.ResultClass;
+import org.eclipse.birt.data.engine.executor.ResultFieldMetadata;
+import org.eclipse.birt.data.engine.executor.ResultObject;
+import org.eclipse.birt.data.engine.odi.IResultObject;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the merge of sorted row iterators, with and without prefetch
+ */
+public class MergeSortRowFilesTest
+{
+
+	private ResultClass resultClass;
+
+	private MergeSortUtil mergeSortUtil;
+
+	@Before
+	public void mergeSortSetUp( ) throws DataException
+	{
+		List columnsList = new ArrayList( );
+		columnsList.add( new ResultFieldMetadata( 1,
+				"key",
+				"key",
+				Integer.class,
+				"INTEGER" /* nativeTypeName */,
+				false ) );
+		columnsList.add( new ResultFieldMetadata( 2,
+				"run",
+				"run",
+				Integer.class,
+				"INTEGER" /* nativeTypeName */,
+				false ) );
+		resultClass = new ResultClass( columnsList );
+		mergeSortUtil = MergeSortUtil.getUtil( new Comparator( ) {
+
+			public int compare( Object o1, Object o2 )
+			{
+				return getValue( (IResultObject) o1, 1 )
+						- getValue( (IResultObject) o2, 1 );
+			}
+		} );
+	}
+
+	private static int getValue( IResultObject resultObject, int index )
+	{
+		try
+		{
+			return ( (Integer) resultObject.getFieldValue( index ) ).intValue( );
+		}
+		catch ( DataException e )
+		{
+			throw new RuntimeException( e );
+		}
+	}
+
+	/**
+	 * Create the sorted runs, the keys are duplicated among the runs, and some
+	 * runs are empty.
+	 */
+	private ArrayRowIterator[] createRuns( int runCount )
+	{
+		Random random = new Random( 17 );
+		ArrayRowIterator[] runs = new ArrayRowIterator[runCount];
+		for ( int i = 0; i < runCount; i++ )
+		{
+			int rowCount = i % 5 == 3 ? 0 : random.nextInt( 200 );
+			IResultObject[] rows = new IResultObject[rowCount];
+			int key = 0;
+			for ( int j = 0; j < rowCount; j++ )
+			{
+				key += random.nextInt( 3 );
+				rows[j] = new ResultObject( resultClass, new Object[]{
+						Integer.valueOf( key ), Integer.valueOf( i )
+				} );
+			}
+			runs[i] = new ArrayRowIterator( rows );
+		}
+		return runs;
+	}
+
+	private static int getRowCount( ArrayRowIterator[] runs )
+	{
+		int count = 0;
+		for ( int i = 0; i < runs.length; i++ )
+		{
+			count += runs[i].rows.length;
+		}
+		return count;
+	}
+
+	/**
+	 * Check the rows are in order, and the equal rows are in the order of the
+	 * runs
+	 */
+	private static void checkMerge( IRowIterator iterator, int rowCount )
+			throws IOException, DataException
+	{
+		int count = 0;
+		IResultObject last = null;
+		IResultObject row;
+		while ( ( row = iterator.fetch( ) ) != null )
+		{
+			if ( last != null )
+			{
+				int lastKey = getValue( last, 1 );
+				int key = getValue( row, 1 );
+				assertTrue( lastKey <= key );
+				if ( lastKey == key )
+					assertTrue( getValue( last, 2 ) <= getValue( row, 2 ) );
+			}
+			last = row;
+			count++;
+		}
+		assertEquals( rowCount, count );
+		assertNull( iterator.fetch( ) );
+	}
+
+	@Test
+	public void testMerge( ) throws IOException, DataException
+	{
+		int[] runCounts = new int[]{
+				0, 1, 2, 3, 7, 64, 100
+		};
+		for ( int i = 0; i < runCounts.length; i++ )
+		{
+			ArrayRowIterator[] runs = createRuns( runCounts[i] );
+			MergeSortRowFiles merge = new MergeSortRowFiles( runs,
+					mergeSortUtil );
+			checkMerge( merge, getRowCount( runs ) );
+			merge.reset( );
+			checkMerge( merge, getRowCount( runs ) );
+			merge.close( );
+			for ( int j = 0; j < runs.length; j++ )
+			{
+				assertTrue( runs[j].closed );
+			}
+		}
+	}
+
+	@Test
+	public void testPrefetch( ) throws IOException, DataException
+	{
+		ArrayRowIterator[] runs = createRuns( 20 );
+		IRowIterator[] iterators = new IRowIterator[runs.length];
+		for ( int i = 0; i < runs.length; i++ )
+		{
+			iterators[i] = new PrefetchRowIterator( runs[i], 1 + i * 3 );
+		}
+		MergeSortRowFiles merge = new MergeSortRowFiles( iterators,
+				mergeSortUtil );
+		checkMerge( merge, getRowCount( runs ) );
+
+		// reset in the middle of the rows
+		merge.reset( );
+		for ( int i = 0; i < 10; i++ )
+		{
+			assertNotNull( merge.fetch( ) );
+		}
+		merge.reset( );
+		checkMerge( merge, getRowCount( runs ) );
+		merge.close( );
+		for ( int i = 0; i < runs.length; i++ )
+		{
+			assertTrue( runs[i].closed );
+		}
+	}
+
+	@Test
+	public void testPrefetchFailure( ) throws DataException
+	{
+		IRowIterator failedIterator = new ArrayRowIterator( new IResultObject[0] ) {
+
+			public IResultObject fetch( ) throws IOException
+			{
+				throw new IOException( "failed" );
+			}
+		};
+		PrefetchRowIterator iterator = new PrefetchRowIterator( failedIterator,
+				10 );
+		try
+		{
+			iterator.fetch( );
+			fail( "should not arrive here" );
+		}
+		catch ( IOException e )
+		{
+			assertEquals( "failed", e.getMessage( ) );
+		}
+		iterator.close( );
+	}
+
+	private static class ArrayRowIterator implements IRowIterator
+	{
+
+		private IResultObject[] rows;
+		private int pos;
+		private boolean closed;
+
+		ArrayRowIterator( IResultObject[] rows )
+		{
+			this.rows = rows;
+		}
+
+		public IResultObject fetch( ) throws IOException, DataException
+		{
+			return pos < rows.length ? rows[pos++] : null;
+		}
+
+		public void reset( )
+		{
+			pos = 0;
+		}
+
+		public void close( )
+		{
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.expression;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.eclipse.birt.core.script.JavascriptEvalUtil;
+import org.eclipse.birt.core.script.ScriptContext;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the Java evaluator of the simple expressions gets the same values as
+ * Rhino
+ */
+public class NativeExpressionTest
+{
+
+	private ExpressionCompiler compiler;
+	private ScriptContext cx;
+	private Context jsContext;
+	private Scriptable scope;
+
+	@Before
+	public void nativeExpressionSetUp( ) throws Exception
+	{
+		compiler = new ExpressionCompiler( );
+		cx = new ScriptContext( );
+		cx.compile( "javascript", null, 0, "1 == 1;" );
+		jsContext = Context.getCurrentContext( );
+		scope = jsContext.initStandardObjects( );
+
+		Scriptable row = jsContext.newObject( scope );
+		ScriptableObject.putProperty( row, "i", Integer.valueOf( 3 ) );
+		ScriptableObject.putProperty( row, "d", Double.valueOf( 2.5 ) );
+		ScriptableObject.putProperty( row, "zero", Integer.valueOf( 0 ) );
+		ScriptableObject.putProperty( row, "big", new BigDecimal( "1.5" ) );
+		ScriptableObject.putProperty( row, "s", "abc" );
+		ScriptableObject.putProperty( row, "num", "12" );
+		ScriptableObject.putProperty( row, "b", Boolean.TRUE );
+		ScriptableObject.putProperty( row, "n", null );
+		ScriptableObject.putProperty( row,
+				"date",
+				JavascriptEvalUtil.convertToJavascriptValue( new Date( 0 ),
+						scope ) );
+		ScriptableObject.putProperty( scope, "row", row );
+		ScriptableObject.putProperty( scope, "dataSetRow", row );
+	}
+
+	@After
+	public void nativeExpressionTearDown( )
+	{
+		cx.close( );
+	}
+
+	private NativeExpression compileNative( String expression )
+			throws Exception
+	{
+		return NativeExpression.compile( compiler.parse( expression,
+				jsContext ) );
+	}
+
+	/**
+	 * Evaluate the expression by the compiled script only
+	 */
+	private Object evaluateScript( String expression ) throws Exception
+	{
+		CompiledExpression expr = compiler.compile( expression, null, cx );
+		( (BytecodeExpression) expr ).setNativeExpression( null );
+		Object value = expr.evaluate( cx, scope );
+		// Rhino may concatenate the strings lazily
+		return value instanceof CharSequence ? value.toString( ) : value;
+	}
+
+	@Test
+	public void testSupportedExpressions( ) throws Exception
+	{
+		String[] expressions = new String[]{
+				"row.i + row.d",
+				"row[\"i\"] * row.d",
+				"dataSetRow.i - 1",
+				"row.i / row.zero",
+				"row.i % 2",
+				"-row.d",
+				"+row.num",
+				"row.big * 2",
+				"row.s + row.i",
+				"row.s + row.d",
+				"row.i + row.s",
+				"\"x\" + row.n",
+				"row.s + row.missing",
+				"row.b + 1",
+				"row.n == null",
+				"row.missing == null",
+				"row.n === null",
+				"row[0] == null",
+				"row.i != 3",
+				"row.i !== 3",
+				"row.i == \"3\"",
+				"row.i < row.d",
+				"row.i <= 3",
+				"row.s > \"abb\"",
+				"row.num >= 12",
+				"row.b && row.s",
+				"row.n || row.s",
+				"row.zero || row.i",
+				"!row.b",
+				"( row.i + row.d ) * 2 > 5 && row.s != null",
+				"row.i + 2 * 3"
+		};
+		for ( int i = 0; i < expressions.length; i++ )
+		{
+			NativeExpression nativeExpr = compileNative( expressions[i] );
+			assertNotNull( expressions[i], nativeExpr );
+			Object value = nativeExpr.evaluate( jsContext, scope );
+			assertNotSame( expressions[i], NativeExpression.UNSUPPORTED, value );
+			assertEquals( expressions[i],
+					evaluateScript( expressions[i] ),
+					JavascriptEvalUtil.convertJavascriptValue( value ) );
+		}
+	}
+
+	@Test
+	public void testUnsupportedExpressions( ) throws Exception
+	{
+		String[] expressions = new String[]{
+				"Math.abs( row.i )",
+				"params.p + 1",
+				"x + 1",
+				"row[\"1\"]",
+				"row[row.i]",
+				"row.i = 1",
+				"row.i++",
+				"row.i; row.d",
+				"row.b ? 1 : 2",
+				"row.i & 1",
+				"typeof row.i"
+		};
+		for ( int i = 0; i < expressions.length; i++ )
+		{
+			assertNull( expressions[i], compileNative( expressions[i] ) );
+		}
+	}
+
+	@Test
+	public void testUnsupportedValues( ) throws Exception
+	{
+		assertSame( NativeExpression.UNSUPPORTED,
+				compileNative( "row.date + 1" ).evaluate( jsContext, scope ) );
+
+		// the compiled expression falls back to the script
+		CompiledExpression expr = compiler.compile( "row.date + 1", null, cx );
+		assertEquals( evaluateScript( "row.date + 1" ),
+				expr.evaluate( cx, scope ) );
+		assertEquals( evaluateScript( "row.date + 1" ),
+				expr.evaluate( cx, scope ) );
+	}
+
+	@Test
+	public void testCompiledExpression( ) throws Exception
+	{
+		CompiledExpression expr = compiler.compile( "row.i * row.d + 1",
+				null,
+				cx );
+		assertTrue( expr instanceof ComplexExpression );
+		assertEquals( new Double( 8.5 ), expr.evaluate( cx, scope ) );
+
+		// the missing row object is reported by the script
+		ScriptableObject.deleteProperty( scope, "row" );
+		try
+		{
+			expr.evaluate( cx, scope );
+			fail( "should not arrive here" );
+		}
+		catch ( Exception e )
+		{
+		}
+	}
+}
@@ -0,0 +1,399 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.api.cube;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.impl.StopSign;
+import org.eclipse.birt.data.engine.olap.data.api.ILevel;
+import org.eclipse.birt.data.engine.olap.data.impl.Cube;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Dimension;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.DimensionForTest;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Hierarchy;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.LevelDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.facttable.FactTableRowIterator;
+import org.eclipse.birt.data.engine.olap.data.util.DataType;
+import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Builds a cube into a cube store, reuses it and appends new days to it.
+ */
+public class CubeStoreTest
+{
+
+	private static final String CUBE_NAME = "sales";
+
+	private static final String[][] JOINT_COLUMN_NAMES = {
+			{
+				"day"
+			}, {
+				"product"
+			}
+	};
+
+	private static final String[] MEASURE_NAMES = {
+			"amount", "quantity"
+	};
+
+	private File storeDir;
+
+	@Before
+	public void setUp( ) throws IOException
+	{
+		storeDir = File.createTempFile( "cubestore", "" );
+		storeDir.delete( );
+		storeDir.mkdirs( );
+	}
+
+	@After
+	public void tearDown( )
+	{
+		delete( storeDir );
+	}
+
+	@Test
+	public void testReuse( ) throws Exception
+	{
+		CubeStore store = new CubeStore( storeDir.getPath( ) );
+		assertNull( store.open( CUBE_NAME, "s1", 0 ) );
+		build( store, "s1", createRows( 1, 5 ) );
+
+		StoredCube cube = store.open( CUBE_NAME, "s1", 0 );
+		assertNotNull( cube );
+		assertEquals( CUBE_NAME, cube.getName( ) );
+		assertEquals( "s1", cube.getSignature( ) );
+		cube.close( );
+		assertNull( store.open( CUBE_NAME, "s2", 0 ) );
+		Thread.sleep( 20 );
+		assertNull( store.open( CUBE_NAME, "s1", 10 ) );
+
+		// the replaced generation is removed
+		build( store, "s2", createRows( 1, 5 ) );
+		cube = store.open( CUBE_NAME, null, 0 );
+		assertEquals( "s2", cube.getSignature( ) );
+		cube.close( );
+		assertEquals( 1, countGenerations( ) );
+	}
+
+	@Test
+	public void testAppend( ) throws Exception
+	{
+		CubeStore store = new CubeStore( storeDir.getPath( ) );
+		List<Object[]> rows = createRows( 1, 5 );
+		build( store, "s1", rows );
+
+		// a new day, and a late row of an existing day
+		List<Object[]> newRows = createRows( 6, 6 );
+		newRows.add( new Object[]{
+				Integer.valueOf( 2 ), Integer.valueOf( 3 ), Double.valueOf( 7 ), null
+		} );
+		DimensionForTest newDays = new DimensionForTest( new String[]{
+			"day"
+		} );
+		newDays.setLevelMember( 0, new int[]{
+			6
+		} );
+		Map<String, IDatasetIterator> dimensionMembers = new HashMap<String, IDatasetIterator>( );
+		dimensionMembers.put( "day", newDays );
+		store.append( CUBE_NAME,
+				new FactTableForTest( newRows ),
+				dimensionMembers,
+				0,
+				new StopSign( ) );
+		rows.addAll( newRows );
+
+		StoredCube storedCube = store.open( CUBE_NAME, "s1", 0 );
+		assertNotNull( storedCube );
+		try
+		{
+			Cube cube = new Cube( CUBE_NAME, storedCube.getDocumentManager( ) );
+			cube.load( new StopSign( ) );
+			IDimension[] dimensions = cube.getDimesions( );
+			assertEquals( 6, dimensions[0].length( ) );
+			assertEquals( 10, dimensions[1].length( ) );
+			ILevel[] levels = dimensions[1].getHierarchy( ).getLevels( );
+			assertEquals( "category", levels[0].getName( ) );
+
+			Map<String, double[]> expected = aggregate( rows );
+			Map<String, double[]> actual = new HashMap<String, double[]>( );
+			FactTableRowIterator iterator = new FactTableRowIterator( cube.getFactTable( ),
+					new String[0],
+					new IDiskArray[0],
+					new StopSign( ) );
+			while ( iterator.next( ) )
+			{
+				Object day = ( (Dimension) dimensions[0] ).getRowByPosition( iterator.getDimensionPosition( 0 ) )
+						.getMembers( )[0].getKeyValues( )[0];
+				Object product = ( (Dimension) dimensions[1] ).getRowByPosition( iterator.getDimensionPosition( 1 ) )
+						.getMembers( )[1].getKeyValues( )[0];
+				String key = day + "/" + product;
+				assertNull( key, actual.get( key ) );
+				actual.put( key, new double[]{
+						( (Number) iterator.getMeasure( 0 ) ).doubleValue( ),
+						( (Number) iterator.getMeasure( 1 ) ).doubleValue( )
+				} );
+			}
+			iterator.close( );
+			assertEquals( expected.keySet( ), actual.keySet( ) );
+			for ( String key : expected.keySet( ) )
+			{
+				assertArrayEquals( key, expected.get( key ), actual.get( key ), 0 );
+			}
+			cube.close( );
+		}
+		finally
+		{
+			storedCube.close( );
+		}
+		assertEquals( 1, countGenerations( ) );
+	}
+
+	@Test
+	public void testAppendMissingCube( ) throws Exception
+	{
+		CubeStore store = new CubeStore( storeDir.getPath( ) );
+		try
+		{
+			store.append( CUBE_NAME,
+					new FactTableForTest( createRows( 1, 1 ) ),
+					null,
+					0,
+					new StopSign( ) );
+			fail( );
+		}
+		catch ( DataException e )
+		{
+		}
+	}
+
+	private static void build( CubeStore store, String signature,
+			List<Object[]> rows ) throws IOException, BirtException
+	{
+		StoredCube storedCube = store.create( CUBE_NAME, 0 );
+		try
+		{
+			Dimension[] dimensions = new Dimension[2];
+
+			DimensionForTest days = new DimensionForTest( new String[]{
+				"day"
+			} );
+			days.setLevelMember( 0, new int[]{
+					1, 2, 3, 4, 5
+			} );
+			dimensions[0] = createDimension( storedCube, "day", days,
+					new LevelDefinition[]{
+						new LevelDefinition( "day", new String[]{
+							"day"
+						}, null )
+					} );
+
+			int[] products = new int[10];
+			int[] categories = new int[products.length];
+			for ( int i = 0; i < products.length; i++ )
+			{
+				products[i] = i;
+				categories[i] = i % 3;
+			}
+			DimensionForTest productIterator = new DimensionForTest( new String[]{
+					"category", "product"
+			} );
+			productIterator.setLevelMember( 0, categories );
+			productIterator.setLevelMember( 1, products );
+			dimensions[1] = createDimension( storedCube,
+					"product",
+					productIterator,
+					new LevelDefinition[]{
+							new LevelDefinition( "category", new String[]{
+								"category"
+							}, null ),
+							new LevelDefinition( "product", new String[]{
+								"product"
+							}, null )
+					} );
+
+			String[] aggregations = {
+					"SUM", "COUNT"
+			};
+			storedCube.setDefinition( JOINT_COLUMN_NAMES,
+					JOINT_COLUMN_NAMES,
+					aggregations );
+			Cube cube = new Cube( CUBE_NAME, storedCube.getDocumentManager( ) );
+			cube.create( JOINT_COLUMN_NAMES,
+					JOINT_COLUMN_NAMES,
+					dimensions,
+					new FactTableForTest( rows ),
+					MEASURE_NAMES,
+					null,
+					aggregations,
+					0,
+					new StopSign( ) );
+			cube.close( );
+			store.commit( storedCube, signature );
+		}
+		finally
+		{
+			storedCube.close( );
+		}
+	}
+
+	private static Dimension createDimension( StoredCube storedCube,
+			String name, IDatasetIterator iterator, LevelDefinition[] levelDefs )
+			throws IOException, BirtException
+	{
+		Hierarchy hierarchy = new Hierarchy( storedCube.getDocumentManager( ),
+				name,
+				name );
+		hierarchy.createAndSaveHierarchy( iterator, levelDefs, new StopSign( ) );
+		return new Dimension( name,
+				storedCube.getDocumentManager( ),
+				hierarchy,
+				false );
+	}
+
+	/**
+	 * Two rows of each product in each day, some quantities are null.
+	 */
+	private static List<Object[]> createRows( int firstDay, int lastDay )
+	{
+		List<Object[]> rows = new ArrayList<Object[]>( );
+		for ( int day = firstDay; day <= lastDay; day++ )
+		{
+			for ( int product = 0; product < 10; product++ )
+			{
+				for ( int i = 0; i < 2; i++ )
+				{
+					rows.add( new Object[]{
+							Integer.valueOf( day ),
+							Integer.valueOf( product ),
+							Double.valueOf( day * 10 + product + i ),
+							( product + i ) % 4 == 0 ? null
+									: Integer.valueOf( product )
+					} );
+				}
+			}
+		}
+		return rows;
+	}
+
+	private static Map<String, double[]> aggregate( List<Object[]> rows )
+	{
+		Map<String, double[]> result = new HashMap<String, double[]>( );
+		for ( Object[] row : rows )
+		{
+			String key = row[0] + "/" + row[1];
+			double[] values = result.get( key );
+			if ( values == null )
+			{
+				values = new double[2];
+				result.put( key, values );
+			}
+			values[0] += ( (Double) row[2] ).doubleValue( );
+			if ( row[3] != null )
+			{
+				values[1]++;
+			}
+		}
+		return result;
+	}
+
+	private int countGenerations( )
+	{
+		int count = 0;
+		File[] cubeDirs = storeDir.listFiles( );
+		for ( int i = 0; i < cubeDirs.length; i++ )
+		{
+			File[] files = cubeDirs[i].listFiles( );
+			for ( int j = 0; j < files.length; j++ )
+			{
+				if ( files[j].isDirectory( ) )
+				{
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private static void delete( File file )
+	{
+		File[] files = file.listFiles( );
+		if ( files != null )
+		{
+			for ( int i = 0; i < files.length; i++ )
+			{
+				delete( files[i] );
+			}
+		}
+		file.delete( );
+	}
+
+	private static class FactTableForTest implements IDatasetIterator
+	{
+
+		private static final String[] FIELD_NAMES = {
+				"day", "product", "amount", "quantity"
+		};
+
+		private List<Object[]> rows;
+		private int ptr = -1;
+
+		FactTableForTest( List<Object[]> rows )
+		{
+			this.rows = rows;
+		}
+
+		public int getFieldIndex( String name ) throws BirtException
+		{
+			for ( int i = 0; i < FIELD_NAMES.length; i++ )
+			{
+				if ( FIELD_NAMES[i].equals( name ) )
+				{
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		public int getFieldType( String name ) throws BirtException
+		{
+			return "amount".equals( name ) ? DataType.DOUBLE_TYPE
+					: DataType.INTEGER_TYPE;
+		}
+
+		public boolean next( ) throws BirtException
+		{
+			ptr++;
+			return ptr < rows.size( );
+		}
+
+		public Object getValue( int fieldIndex ) throws BirtException
+		{
+			return rows.get( ptr )[fieldIndex];
+		}
+
+		public void close( ) throws BirtException
+		{
+		}
+	}
+}
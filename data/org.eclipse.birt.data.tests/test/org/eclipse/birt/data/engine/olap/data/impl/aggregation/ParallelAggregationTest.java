@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.impl.aggregation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.aggregation.api.IBuildInAggregation;
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.data.engine.impl.StopSign;
+import org.eclipse.birt.data.engine.olap.data.api.CubeQueryExecutorHelper;
+import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
+import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.api.IDimensionSortDefn;
+import org.eclipse.birt.data.engine.olap.data.api.cube.IDatasetIterator;
+import org.eclipse.birt.data.engine.olap.data.api.cube.ILevelDefn;
+import org.eclipse.birt.data.engine.olap.data.document.DocumentManagerFactory;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationFunctionDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.Cube;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Dimension;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.DimensionFactory;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.DimensionForTest;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.LevelDefinition;
+import org.eclipse.birt.data.engine.olap.data.util.DataType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Compares the aggregations calculated in parallel with the ones calculated
+ * in the query thread.
+ */
+public class ParallelAggregationTest
+{
+
+	private static final int[] FACT_KEY_COUNT = {
+			40, 30, 10
+	};
+
+	private IDocumentManager documentManager;
+
+	@Before
+	public void setUp( ) throws IOException, BirtException
+	{
+		documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		Dimension[] dimensions = new Dimension[3];
+
+		int[] keys = createKeys( FACT_KEY_COUNT[0] );
+		int[] groups = new int[keys.length];
+		for ( int i = 0; i < keys.length; i++ )
+		{
+			groups[i] = keys[i] % 5;
+		}
+		DimensionForTest iterator = new DimensionForTest( new String[]{
+				"group", "key1"
+		} );
+		iterator.setLevelMember( 0, groups );
+		iterator.setLevelMember( 1, keys );
+		dimensions[0] = (Dimension) DimensionFactory.createDimension( "dimension1",
+				documentManager,
+				iterator,
+				new ILevelDefn[]{
+						new LevelDefinition( "group", new String[]{
+							"group"
+						}, null ),
+						new LevelDefinition( "key1", new String[]{
+							"key1"
+						}, null )
+				},
+				false,
+				new StopSign( ) );
+		for ( int i = 1; i < dimensions.length; i++ )
+		{
+			String levelName = "key" + ( i + 1 );
+			iterator = new DimensionForTest( new String[]{
+				levelName
+			} );
+			iterator.setLevelMember( 0, createKeys( FACT_KEY_COUNT[i] ) );
+			dimensions[i] = (Dimension) DimensionFactory.createDimension( "dimension"
+					+ ( i + 1 ),
+					documentManager,
+					iterator,
+					new ILevelDefn[]{
+						new LevelDefinition( levelName, new String[]{
+							levelName
+						}, null )
+					},
+					false,
+					new StopSign( ) );
+		}
+
+		Cube cube = new Cube( "cube", documentManager );
+		cube.create( new String[][]{
+				{
+					"key1"
+				}, {
+					"key2"
+				}, {
+					"key3"
+				}
+		}, dimensions, new FactTable( ), new String[]{
+				"measure1", "measure2"
+		}, new StopSign( ) );
+		cube.close( );
+		documentManager.flush( );
+	}
+
+	@After
+	public void tearDown( ) throws IOException
+	{
+		documentManager.close( );
+	}
+
+	@Test
+	public void testParallelAggregation( ) throws IOException, BirtException
+	{
+		assertSameResults( execute( 1, 0 ), execute( 4, 0 ) );
+	}
+
+	@Test
+	public void testParallelAggregationOnDisk( ) throws IOException,
+			BirtException
+	{
+		// the sorted rows are spilled to the disk
+		assertSameResults( execute( 1, 64 * 1024 ), execute( 3, 64 * 1024 ) );
+	}
+
+	private List<List<String>> execute( int threadCount, long memoryCacheSize )
+			throws IOException, BirtException
+	{
+		CubeQueryExecutorHelper helper = new CubeQueryExecutorHelper( CubeQueryExecutorHelper.loadCube( "cube",
+				documentManager,
+				new StopSign( ) ) );
+		Map<String, String> appContext = new HashMap<String, String>( );
+		appContext.put( DataEngine.CUBE_AGGREGATION_THREAD_COUNT,
+				String.valueOf( threadCount ) );
+		helper.setAppContext( appContext );
+		helper.setMemoryCacheSize( memoryCacheSize );
+
+		DimLevel group = new DimLevel( "dimension1", "group" );
+		DimLevel key1 = new DimLevel( "dimension1", "key1" );
+		DimLevel key2 = new DimLevel( "dimension2", "key2" );
+		DimLevel key3 = new DimLevel( "dimension3", "key3" );
+		AggregationFunctionDefinition[] functions = new AggregationFunctionDefinition[]{
+				new AggregationFunctionDefinition( "measure1",
+						IBuildInAggregation.TOTAL_SUM_FUNC ),
+				new AggregationFunctionDefinition( "measure1",
+						IBuildInAggregation.TOTAL_COUNT_FUNC ),
+				new AggregationFunctionDefinition( "measure2",
+						IBuildInAggregation.TOTAL_MAX_FUNC ),
+				new AggregationFunctionDefinition( "measure2",
+						IBuildInAggregation.TOTAL_MEDIAN_FUNC )
+		};
+		AggregationDefinition[] aggregations = new AggregationDefinition[]{
+				new AggregationDefinition( new DimLevel[]{
+						group, key2
+				}, new int[]{
+						IDimensionSortDefn.SORT_ASC, IDimensionSortDefn.SORT_DESC
+				}, functions ),
+				new AggregationDefinition( new DimLevel[]{
+					group
+				}, new int[]{
+					IDimensionSortDefn.SORT_ASC
+				}, functions ),
+				new AggregationDefinition( new DimLevel[]{
+						key2, key3
+				}, new int[]{
+						IDimensionSortDefn.SORT_ASC, IDimensionSortDefn.SORT_ASC
+				}, functions ),
+				new AggregationDefinition( new DimLevel[]{
+						group, key1, key3
+				}, new int[]{
+						IDimensionSortDefn.SORT_ASC,
+						IDimensionSortDefn.SORT_ASC,
+						IDimensionSortDefn.SORT_ASC
+				}, functions ),
+				new AggregationDefinition( new DimLevel[]{
+					key3
+				}, new int[]{
+					IDimensionSortDefn.SORT_DESC
+				}, functions ),
+				new AggregationDefinition( null, null, functions )
+		};
+		IAggregationResultSet[] resultSets = helper.execute( aggregations,
+				new StopSign( ) );
+		List<List<String>> results = new ArrayList<List<String>>( );
+		for ( int i = 0; i < resultSets.length; i++ )
+		{
+			List<String> rows = new ArrayList<String>( );
+			for ( int j = 0; j < resultSets[i].length( ); j++ )
+			{
+				resultSets[i].seek( j );
+				StringBuffer row = new StringBuffer( );
+				for ( int k = 0; k < resultSets[i].getLevelCount( ); k++ )
+				{
+					row.append( Arrays.asList( resultSets[i].getLevelKeyValue( k ) ) );
+				}
+				for ( int k = 0; k < resultSets[i].getAggregationCount( ); k++ )
+				{
+					row.append( ' ' )
+							.append( resultSets[i].getAggregationValue( k ) );
+				}
+				rows.add( row.toString( ) );
+			}
+			results.add( rows );
+			resultSets[i].close( );
+		}
+		return results;
+	}
+
+	private static void assertSameResults( List<List<String>> expected,
+			List<List<String>> actual )
+	{
+		int[] rowCounts = {
+				150, 5, 300, 400, 10, 1
+		};
+		assertEquals( rowCounts.length, expected.size( ) );
+		assertEquals( rowCounts.length, actual.size( ) );
+		for ( int i = 0; i < rowCounts.length; i++ )
+		{
+			assertEquals( rowCounts[i], expected.get( i ).size( ) );
+			assertEquals( expected.get( i ), actual.get( i ) );
+		}
+	}
+
+	private static int[] createKeys( int count )
+	{
+		int[] keys = new int[count];
+		for ( int i = 0; i < count; i++ )
+		{
+			keys[i] = i;
+		}
+		return keys;
+	}
+
+	/**
+	 * All the combinations of the dimension keys.
+	 */
+	private static class FactTable implements IDatasetIterator
+	{
+
+		private int[] row = new int[]{
+				0, 0, -1
+		};
+
+		public int getFieldIndex( String name ) throws BirtException
+		{
+			if ( name.startsWith( "key" ) )
+			{
+				return Integer.parseInt( name.substring( 3 ) ) - 1;
+			}
+			if ( "measure1".equals( name ) )
+			{
+				return 3;
+			}
+			if ( "measure2".equals( name ) )
+			{
+				return 4;
+			}
+			return -1;
+		}
+
+		public int getFieldType( String name ) throws BirtException
+		{
+			if ( "measure2".equals( name ) )
+			{
+				return DataType.DOUBLE_TYPE;
+			}
+			return DataType.INTEGER_TYPE;
+		}
+
+		public boolean next( ) throws BirtException
+		{
+			for ( int i = row.length - 1; i >= 0; i-- )
+			{
+				row[i]++;
+				if ( row[i] < FACT_KEY_COUNT[i] )
+				{
+					return true;
+				}
+				row[i] = 0;
+			}
+			return false;
+		}
+
+		public Object getValue( int fieldIndex ) throws BirtException
+		{
+			if ( fieldIndex < 3 )
+			{
+				return Integer.valueOf( row[fieldIndex] );
+			}
+			int measure = ( row[0] * 100 + row[1] ) * 10 + row[2];
+			if ( fieldIndex == 3 )
+			{
+				return Integer.valueOf( measure );
+			}
+			return Double.valueOf( measure / 8.0 );
+		}
+
+		public void close( ) throws BirtException
+		{
+		}
+	}
+}
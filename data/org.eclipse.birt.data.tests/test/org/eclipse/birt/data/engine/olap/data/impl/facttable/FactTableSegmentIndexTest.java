@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.impl.facttable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.impl.StopSign;
+import org.eclipse.birt.data.engine.olap.data.api.cube.IDatasetIterator;
+import org.eclipse.birt.data.engine.olap.data.api.cube.ILevelDefn;
+import org.eclipse.birt.data.engine.olap.data.document.DocumentManagerFactory;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.impl.NamingUtil;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Dimension;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.DimensionForTest;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Hierarchy;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.LevelDefinition;
+import org.eclipse.birt.data.engine.olap.data.util.BufferedPrimitiveDiskArray;
+import org.eclipse.birt.data.engine.olap.data.util.DataType;
+import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the segments of a fact table are skipped by their zone maps.
+ */
+public class FactTableSegmentIndexTest
+{
+
+	private static final String[] DIMENSION_NAMES = {
+			"day", "product"
+	};
+
+	private static final int DIMENSION_LENGTH = 100;
+
+	private IDocumentManager documentManager;
+	private FactTable factTable;
+
+	@Before
+	public void setUp( ) throws IOException, BirtException
+	{
+		documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		Dimension[] dimensions = new Dimension[DIMENSION_NAMES.length];
+		int[] keys = new int[DIMENSION_LENGTH];
+		for ( int i = 0; i < keys.length; i++ )
+		{
+			keys[i] = i;
+		}
+		for ( int i = 0; i < dimensions.length; i++ )
+		{
+			String name = DIMENSION_NAMES[i];
+			DimensionForTest iterator = new DimensionForTest( new String[]{
+				name
+			} );
+			iterator.setLevelMember( 0, keys );
+			Hierarchy hierarchy = new Hierarchy( documentManager, name, name );
+			hierarchy.createAndSaveHierarchy( iterator,
+					new ILevelDefn[]{
+						new LevelDefinition( name, new String[]{
+							name
+						}, null )
+					},
+					new StopSign( ) );
+			dimensions[i] = new Dimension( name,
+					documentManager,
+					hierarchy,
+					false );
+		}
+		String[][] keyColumnNames = {
+				{
+					"day"
+				}, {
+					"product"
+				}
+		};
+		FactTableAccessor accessor = new FactTableAccessor( documentManager );
+		accessor.saveFactTable( NamingUtil.getFactTableName( "zone" ),
+				keyColumnNames,
+				keyColumnNames,
+				new SparseFactTable( ),
+				dimensions,
+				new String[]{
+					"amount"
+				},
+				new StopSign( ) );
+		factTable = accessor.load( NamingUtil.getFactTableName( "zone" ),
+				new StopSign( ) );
+	}
+
+	@After
+	public void tearDown( ) throws IOException
+	{
+		documentManager.close( );
+	}
+
+	@Test
+	public void testIndex( ) throws IOException
+	{
+		FactTableSegmentIndex segmentIndex = factTable.getSegmentIndex( );
+		assertNotNull( segmentIndex );
+		assertTrue( segmentIndex.getSegmentCount( ) > 1 );
+		assertEquals( segmentIndex.getSegmentCount( ),
+				factTable.getSegmentCount( ) );
+	}
+
+	@Test
+	public void testSkipSegments( ) throws IOException, BirtException
+	{
+		// the product is only sold in the second half of the days
+		FactTableRowIterator iterator = select( new int[]{
+			31
+		} );
+		assertRows( iterator, new int[]{
+			31
+		} );
+		assertEquals( 1, iterator.getSkippedSegmentCount( ) );
+		iterator.close( );
+
+		iterator = select( new int[]{
+				31, 32
+		} );
+		assertRows( iterator, new int[]{
+				31, 32
+		} );
+		assertEquals( 0, iterator.getSkippedSegmentCount( ) );
+		iterator.close( );
+
+		iterator = select( new int[]{
+				60, 99
+		} );
+		assertRows( iterator, new int[0] );
+		iterator.close( );
+	}
+
+	@Test
+	public void testWithoutIndex( ) throws IOException, BirtException
+	{
+		factTable.setSegmentIndex( null );
+		FactTableRowIterator iterator = select( new int[]{
+				31, 60
+		} );
+		assertRows( iterator, new int[]{
+				31, 60
+		} );
+		assertEquals( 0, iterator.getSkippedSegmentCount( ) );
+		iterator.close( );
+	}
+
+	private FactTableRowIterator select( int[] products ) throws IOException
+	{
+		IDiskArray position = new BufferedPrimitiveDiskArray( );
+		for ( int i = 0; i < products.length; i++ )
+		{
+			position.add( Integer.valueOf( products[i] ) );
+		}
+		return new FactTableRowIterator( factTable, new String[]{
+			"product"
+		}, new IDiskArray[]{
+			position
+		}, new StopSign( ) );
+	}
+
+	private static void assertRows( FactTableRowIterator iterator,
+			int[] products ) throws IOException, BirtException
+	{
+		List<String> expected = new ArrayList<String>( );
+		for ( int day = 0; day < DIMENSION_LENGTH; day++ )
+		{
+			for ( int i = 0; i < products.length; i++ )
+			{
+				if ( isSold( day, products[i] ) )
+				{
+					expected.add( day + "/" + products[i] + "/" + getAmount( day, products[i] ) );
+				}
+			}
+		}
+		List<String> actual = new ArrayList<String>( );
+		while ( iterator.next( ) )
+		{
+			actual.add( iterator.getDimensionPosition( 0 ) + "/"
+					+ iterator.getDimensionPosition( 1 ) + "/"
+					+ iterator.getMeasure( 0 ) );
+		}
+		assertEquals( expected, actual );
+	}
+
+	/**
+	 * Only the even products are sold in the first half of the days, and only
+	 * the odd products under 50 in the other half.
+	 */
+	private static boolean isSold( int day, int product )
+	{
+		return product < 50 && product % 2 == ( day < 50 ? 0 : 1 );
+	}
+
+	private static int getAmount( int day, int product )
+	{
+		return day * 1000 + product;
+	}
+
+	private static class SparseFactTable implements IDatasetIterator
+	{
+
+		private List<int[]> rows = new ArrayList<int[]>( );
+		private int ptr = -1;
+
+		SparseFactTable( )
+		{
+			for ( int day = 0; day < DIMENSION_LENGTH; day++ )
+			{
+				for ( int product = 0; product < DIMENSION_LENGTH; product++ )
+				{
+					if ( isSold( day, product ) )
+					{
+						rows.add( new int[]{
+								day, product
+						} );
+					}
+				}
+			}
+		}
+
+		public int getFieldIndex( String name ) throws BirtException
+		{
+			for ( int i = 0; i < DIMENSION_NAMES.length; i++ )
+			{
+				if ( DIMENSION_NAMES[i].equals( name ) )
+				{
+					return i;
+				}
+			}
+			return "amount".equals( name ) ? 2 : -1;
+		}
+
+		public int getFieldType( String name ) throws BirtException
+		{
+			return DataType.INTEGER_TYPE;
+		}
+
+		public boolean next( ) throws BirtException
+		{
+			ptr++;
+			return ptr < rows.size( );
+		}
+
+		public Object getValue( int fieldIndex ) throws BirtException
+		{
+			int[] row = rows.get( ptr );
+			if ( fieldIndex < 2 )
+			{
+				return Integer.valueOf( row[fieldIndex] );
+			}
+			return Integer.valueOf( getAmount( row[0], row[1] ) );
+		}
+
+		public void close( ) throws BirtException
+		{
+		}
+	}
+}
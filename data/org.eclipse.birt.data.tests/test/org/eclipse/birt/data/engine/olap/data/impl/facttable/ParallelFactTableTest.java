@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.impl.facttable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.impl.StopSign;
+import org.eclipse.birt.data.engine.olap.data.api.cube.IDatasetIterator;
+import org.eclipse.birt.data.engine.olap.data.api.cube.ILevelDefn;
+import org.eclipse.birt.data.engine.olap.data.document.DocumentManagerFactory;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
+import org.eclipse.birt.data.engine.olap.data.impl.NamingUtil;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Dimension;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.DimensionForTest;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Hierarchy;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.LevelDefinition;
+import org.eclipse.birt.data.engine.olap.data.util.DataType;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Compares the documents of the dimensions and fact tables built in parallel
+ * with the ones built in a single thread.
+ */
+public class ParallelFactTableTest
+{
+
+	private static final String[] DIMENSION_NAMES = {
+			"dimension1", "dimension2", "dimension3"
+	};
+
+	// the fact table refers to some members which are not in dimension1
+	private static final int[] FACT_KEY_COUNT = {
+			60, 40, 10
+	};
+
+	private static final int[] DIMENSION_LENGTH = {
+			50, 40, 10
+	};
+
+	@Test
+	public void testParallelBuild( ) throws IOException, BirtException
+	{
+		IDocumentManager serialManager = DocumentManagerFactory.createFileDocumentManager( );
+		IDocumentManager parallelManager = DocumentManagerFactory.createFileDocumentManager( );
+		try
+		{
+			build( serialManager, 1 );
+			build( parallelManager, 4 );
+
+			for ( int i = 0; i < DIMENSION_NAMES.length; i++ )
+			{
+				String name = DIMENSION_NAMES[i];
+				assertSameDocument( serialManager,
+						parallelManager,
+						NamingUtil.getHierarchyDocName( name, name ) );
+				assertSameDocument( serialManager,
+						parallelManager,
+						NamingUtil.getHierarchyOffsetDocName( name, name ) );
+				assertSameDocument( serialManager,
+						parallelManager,
+						NamingUtil.getLevelIndexDocName( name, name ) );
+				assertSameDocument( serialManager,
+						parallelManager,
+						NamingUtil.getLevelIndexDocName( name, "group" ) );
+			}
+
+			String factTableName = NamingUtil.getFactTableName( "parallel" );
+			assertSameDocument( serialManager,
+					parallelManager,
+					NamingUtil.getFactTableName( factTableName ) );
+			Set<String> FTSUNames = getFTSUNames( serialManager, factTableName );
+			assertFalse( FTSUNames.isEmpty( ) );
+			assertEquals( FTSUNames, getFTSUNames( parallelManager,
+					factTableName ) );
+			for ( String FTSUName : FTSUNames )
+			{
+				assertSameDocument( serialManager, parallelManager, FTSUName );
+			}
+
+			FactTable factTable = new FactTableAccessor( parallelManager ).load( factTableName,
+					new StopSign( ) );
+			assertEquals( DIMENSION_LENGTH[0],
+					factTable.getDimensionInfo( )[0].getDimensionLength( ) );
+		}
+		finally
+		{
+			serialManager.close( );
+			parallelManager.close( );
+		}
+	}
+
+	private void build( IDocumentManager documentManager, int threadCount )
+			throws IOException, BirtException
+	{
+		Random random = new Random( 0 );
+		Dimension[] dimensions = new Dimension[DIMENSION_NAMES.length];
+		for ( int i = 0; i < dimensions.length; i++ )
+		{
+			String name = DIMENSION_NAMES[i];
+			// the members are repeated and out of order
+			List<Integer> members = new ArrayList<Integer>( );
+			for ( int j = 0; j < DIMENSION_LENGTH[i]; j++ )
+			{
+				members.add( Integer.valueOf( j ) );
+				members.add( Integer.valueOf( j ) );
+			}
+			Collections.shuffle( members, random );
+			int[] groups = new int[members.size( )];
+			int[] keys = new int[members.size( )];
+			for ( int j = 0; j < keys.length; j++ )
+			{
+				keys[j] = members.get( j ).intValue( );
+				groups[j] = keys[j] % 7;
+			}
+			DimensionForTest iterator = new DimensionForTest( new String[]{
+					"group", name
+			} );
+			iterator.setLevelMember( 0, groups );
+			iterator.setLevelMember( 1, keys );
+			ILevelDefn[] levelDefs = new ILevelDefn[]{
+					new LevelDefinition( "group", new String[]{
+						"group"
+					}, null ),
+					new LevelDefinition( name, new String[]{
+						name
+					}, null )
+			};
+			Hierarchy hierarchy = new Hierarchy( documentManager, name, name );
+			hierarchy.setThreadCount( threadCount );
+			hierarchy.createAndSaveHierarchy( iterator,
+					levelDefs,
+					new StopSign( ) );
+			dimensions[i] = new Dimension( name,
+					documentManager,
+					hierarchy,
+					false );
+			assertEquals( DIMENSION_LENGTH[i], dimensions[i].length( ) );
+		}
+
+		String[][] keyColumnNames = new String[DIMENSION_NAMES.length][];
+		for ( int i = 0; i < keyColumnNames.length; i++ )
+		{
+			keyColumnNames[i] = new String[]{
+				DIMENSION_NAMES[i]
+			};
+		}
+		FactTableAccessor accessor = new FactTableAccessor( documentManager );
+		// the sorted rows are spilled to the disk
+		accessor.setMemoryCacheSize( 1024 * 1024 );
+		accessor.setThreadCount( threadCount );
+		accessor.saveFactTable( NamingUtil.getFactTableName( "parallel" ),
+				keyColumnNames,
+				keyColumnNames,
+				new ShuffledFactTable( ),
+				dimensions,
+				new String[]{
+						"measure1", "measure2"
+				},
+				new StopSign( ) );
+	}
+
+	private static Set<String> getFTSUNames( IDocumentManager documentManager,
+			String factTableName ) throws IOException
+	{
+		Set<String> names = new HashSet<String>( );
+		IDocumentObject documentObject = documentManager.openDocumentObject( NamingUtil.getFTSUListName( factTableName ) );
+		try
+		{
+			String name = documentObject.readString( );
+			while ( name != null )
+			{
+				names.add( name );
+				name = documentObject.readString( );
+			}
+		}
+		catch ( EOFException e )
+		{
+		}
+		documentObject.close( );
+		return names;
+	}
+
+	private static void assertSameDocument( IDocumentManager expected,
+			IDocumentManager actual, String name ) throws IOException
+	{
+		byte[] expectedBytes = readDocument( expected, name );
+		assertTrue( name, expectedBytes.length > 0 );
+		assertArrayEquals( name, expectedBytes, readDocument( actual, name ) );
+	}
+
+	private static byte[] readDocument( IDocumentManager documentManager,
+			String name ) throws IOException
+	{
+		IDocumentObject documentObject = documentManager.openDocumentObject( name );
+		assertNotNull( name, documentObject );
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		byte[] buffer = new byte[4096];
+		int readSize = documentObject.read( buffer, 0, buffer.length );
+		while ( readSize >= 0 )
+		{
+			out.write( buffer, 0, readSize );
+			readSize = documentObject.read( buffer, 0, buffer.length );
+		}
+		documentObject.close( );
+		return out.toByteArray( );
+	}
+
+	/**
+	 * All the combinations of the dimension keys in a random order.
+	 */
+	private static class ShuffledFactTable implements IDatasetIterator
+	{
+
+		private List<int[]> rows = new ArrayList<int[]>( );
+		private int ptr = -1;
+
+		ShuffledFactTable( )
+		{
+			for ( int i = 0; i < FACT_KEY_COUNT[0]; i++ )
+			{
+				for ( int j = 0; j < FACT_KEY_COUNT[1]; j++ )
+				{
+					for ( int k = 0; k < FACT_KEY_COUNT[2]; k++ )
+					{
+						rows.add( new int[]{
+								i, j, k
+						} );
+					}
+				}
+			}
+			Collections.shuffle( rows, new Random( 1 ) );
+		}
+
+		public int getFieldIndex( String name ) throws BirtException
+		{
+			for ( int i = 0; i < DIMENSION_NAMES.length; i++ )
+			{
+				if ( DIMENSION_NAMES[i].equals( name ) )
+				{
+					return i;
+				}
+			}
+			if ( "measure1".equals( name ) )
+			{
+				return 3;
+			}
+			if ( "measure2".equals( name ) )
+			{
+				return 4;
+			}
+			return -1;
+		}
+
+		public int getFieldType( String name ) throws BirtException
+		{
+			if ( "measure2".equals( name ) )
+			{
+				return DataType.DOUBLE_TYPE;
+			}
+			return DataType.INTEGER_TYPE;
+		}
+
+		public boolean next( ) throws BirtException
+		{
+			ptr++;
+			return ptr < rows.size( );
+		}
+
+		public Object getValue( int fieldIndex ) throws BirtException
+		{
+			int[] row = rows.get( ptr );
+			if ( fieldIndex < 3 )
+			{
+				return Integer.valueOf( row[fieldIndex] );
+			}
+			int measure = ( row[0] * 100 + row[1] ) * 100 + row[2];
+			if ( fieldIndex == 3 )
+			{
+				return Integer.valueOf( measure );
+			}
+			return Double.valueOf( measure / 2.0 );
+		}
+
+		public void close( ) throws BirtException
+		{
+		}
+	}
+}
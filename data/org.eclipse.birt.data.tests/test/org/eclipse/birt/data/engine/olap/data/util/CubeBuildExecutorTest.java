@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.util;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the tasks of the shared cube build pool are waited for.
+ */
+public class CubeBuildExecutorTest
+{
+
+	@Test
+	public void testWaitQuietlyForRunningTask( ) throws Exception
+	{
+		final CountDownLatch started = new CountDownLatch( 1 );
+		final AtomicBoolean finished = new AtomicBoolean( );
+		Future<?> running = CubeBuildExecutor.submit( new Callable<Object>( ) {
+
+			public Object call( ) throws Exception
+			{
+				started.countDown( );
+				Thread.sleep( 300 );
+				finished.set( true );
+				return null;
+			}
+		} );
+		Future<?> failing = CubeBuildExecutor.submit( new Callable<Object>( ) {
+
+			public Object call( ) throws Exception
+			{
+				throw new IOException( "failed" );
+			}
+		} );
+		started.await( );
+		CubeBuildExecutor.waitQuietly( new Future<?>[]{
+				running, null, failing
+		} );
+		assertTrue( finished.get( ) );
+		assertTrue( running.isDone( ) );
+		assertTrue( failing.isDone( ) );
+	}
+
+	@Test
+	public void testWaitQuietlyKeepsInterrupt( ) throws Exception
+	{
+		final AtomicBoolean finished = new AtomicBoolean( );
+		Future<?> running = CubeBuildExecutor.submit( new Callable<Object>( ) {
+
+			public Object call( ) throws Exception
+			{
+				Thread.sleep( 300 );
+				finished.set( true );
+				return null;
+			}
+		} );
+		Thread.currentThread( ).interrupt( );
+		CubeBuildExecutor.waitQuietly( new Future<?>[]{
+			running
+		} );
+		assertTrue( Thread.interrupted( ) );
+		assertTrue( finished.get( ) );
+	}
+}
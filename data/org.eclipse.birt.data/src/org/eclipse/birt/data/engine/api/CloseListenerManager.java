@@ -26,12 +26,12 @@ public class CloseListenerManager
 		activateDteCount--;
 	}
 	
-	public void add( ICloseListener stream )
+	public synchronized void add( ICloseListener stream )
 	{
 		list.add( stream );
 	}
 	
-	public void closeAll( ) throws IOException
+	public synchronized void closeAll( ) throws IOException
 	{
 		for( int i = 0; i < list.size( ); i++ )
 		{
@@ -66,6 +66,27 @@ abstract public class DataEngine
 	 */
 	public static String DATA_SET_CACHE_ROW_LIMIT = "org.eclipse.birt.data.cache.RowLimit";
 
+	/**
+	 * The max memory used by the JVM level data set cache, in megabytes. When
+	 * it is exceeded, the least recently used data sets are evicted. Zero or
+	 * absent means no limit.
+	 */
+	public static String DATA_SET_CACHE_MEMORY_LIMIT = "org.eclipse.birt.data.cache.MemoryLimit";
+
+	/**
+	 * The max disk space used by the JVM level data set cache, in megabytes.
+	 * When it is exceeded, the least recently used data sets are evicted. Zero
+	 * or absent means no limit.
+	 */
+	public static String DATA_SET_CACHE_DISK_LIMIT = "org.eclipse.birt.data.cache.DiskLimit";
+
+	/**
+	 * The time to live of the data sets in the JVM level data set cache, in
+	 * seconds. The data sets cached longer than it are fetched again. Zero or
+	 * absent means no limit.
+	 */
+	public static String DATA_SET_CACHE_TIME_TO_LIVE = "org.eclipse.birt.data.cache.TimeToLive";
+
 	/**
 	 * Indicate the size of data cached for each result set.We only accept non-negative integer as input, 
 	 * the unit of which would be MB. 
@@ -78,6 +99,59 @@ abstract public class DataEngine
 	 * a data object is allowed to access. Queries should be aborted with error if it exceeds this limit.
 	 */
 	public static String MAX_DATA_OBJECT_ROWS = "org.eclipse.birt.data.query.MaxDataObjectRows";
+
+	/**
+	 * Indicates whether the rows cached in memory during query processing are
+	 * kept column by column. If the setting is true, the numeric, date and
+	 * string values are kept in primitive arrays, and the size set by
+	 * MEMORY_BUFFER_SIZE is compared with the memory really occupied by the
+	 * cached rows.
+	 */
+	public static String COLUMNAR_RESULT_CACHE = "org.eclipse.birt.data.query.ColumnarResultCache";
+
+	/**
+	 * Indicates how many sorted runs a disk based sort may write and read in
+	 * background threads at the same time. The rows are still compared in the
+	 * query thread, the serialization and file I/O of the runs are overlapped
+	 * with it. Each run being written keeps its rows in memory, so the memory
+	 * used by the sort grows with this setting. If this setting is absent or
+	 * not positive, the disk based sort runs in the query thread only.
+	 */
+	public static String PARALLEL_DISK_SORT = "org.eclipse.birt.data.query.ParallelDiskSort";
+
+	/**
+	 * Indicates how many fetched rows are processed together by the computed
+	 * columns and filters of a data set. The rows of a batch are evaluated
+	 * filter by filter and computed column by computed column, and the rows
+	 * rejected by a filter are skipped by the following ones. If this setting
+	 * is absent or less than 2, the rows are processed one by one.
+	 */
+	public static String BATCH_ROW_PROCESSING_SIZE = "org.eclipse.birt.data.query.BatchRowProcessingSize";
+
+	/**
+	 * Indicates how many ODA statements of each data source may be executed
+	 * in background threads at the same time. When the setting is positive,
+	 * the statement of a top level query starts executing as soon as the query
+	 * is executed, and the query thread only waits for it when the rows are
+	 * fetched. The data set scripts and the row processing still run in the
+	 * query thread. If this setting is absent or not positive, the statements
+	 * are executed by the query thread.
+	 * 
+	 * At most one statement of each ODA connection is executed at a time, so
+	 * the statements only run in parallel when the data source opens several
+	 * connections, i.e. when the driver limits the active statements of a
+	 * connection. The query thread may still read the result set of a
+	 * connection while another statement of it executes, so the driver must
+	 * allow that.
+	 */
+	public static String PARALLEL_QUERY_EXECUTION = "org.eclipse.birt.data.query.ParallelQueryExecution";
+
+	/**
+	 * Indicates whether the temporary files written by a disk based sort are
+	 * compressed. It trades CPU time for disk I/O, and is useful when the temp
+	 * dir is on a slow disk.
+	 */
+	public static String COMPRESS_DISK_CACHE = "org.eclipse.birt.data.query.CompressDiskCache";
 	
 	
 	public static String DATA_SET_CACHE_DELTA_FILE = "org.eclipse.birt.data.cache.DeltaFile";
@@ -156,6 +230,47 @@ abstract public class DataEngine
 	 */
 	public static String IN_MEMORY_CUBE_SIZE = "org.eclipse.birt.data.engine.cube.inmemory.size";
 	
+	/**
+	 * Indicates how many threads may build a cube. The dimension and fact
+	 * table rows are still read in the query thread, the other threads sort
+	 * the rows, index the levels and map the fact table rows to the dimension
+	 * positions. If this setting is absent or less than 2, the cube is built
+	 * in the query thread only.
+	 */
+	public static String CUBE_BUILD_THREAD_COUNT = "org.eclipse.birt.data.engine.cube.build.threadCount";
+
+	/**
+	 * Indicates how many threads may calculate the aggregations of a cube
+	 * query. The fact table rows are still read in the query thread, each
+	 * group of aggregations sharing a sort order is sorted and calculated in
+	 * another thread. If this setting is absent or less than 2, or a function
+	 * has a filter or a time function, the aggregations are calculated in the
+	 * query thread only.
+	 */
+	public static String CUBE_AGGREGATION_THREAD_COUNT = "org.eclipse.birt.data.engine.cube.aggregation.threadCount";
+
+	/**
+	 * The directory of a persistent cube store. If it is set, the cubes are
+	 * materialized into the store and reused by the later report runs until
+	 * they expire or their signature changes. If it is absent, the cubes are
+	 * materialized in the temp directory of each run.
+	 */
+	public static String CUBE_STORE_DIRECTORY = "org.eclipse.birt.data.engine.cube.store.directory";
+
+	/**
+	 * How many minutes a cube kept in the cube store can be reused after it
+	 * is built or appended. If this setting is absent or not positive, the
+	 * stored cubes never expire.
+	 */
+	public static String CUBE_STORE_TIME_TO_LIVE = "org.eclipse.birt.data.engine.cube.store.timeToLive";
+
+	/**
+	 * A string which identifies the data of the stored cubes besides their
+	 * design, e.g. the values of the report parameters used by the cube data
+	 * sets. A stored cube built with another signature is rebuilt.
+	 */
+	public static String CUBE_STORE_SIGNATURE = "org.eclipse.birt.data.engine.cube.store.signature";
+
 	/**
 	 * Creates a new instance of DataEngine, using the specified
 	 * DataEngineContext as its running environment
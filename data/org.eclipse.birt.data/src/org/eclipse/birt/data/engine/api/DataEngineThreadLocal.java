@@ -39,6 +39,30 @@ public class DataEngineThreadLocal
 		return  closeHolder.get( );
 	}
 	
+	/**
+	 * Binds the temp path and close listeners of another thread to the
+	 * current thread, so the temp files created by a worker thread are
+	 * placed and released as the ones of that thread.
+	 * 
+	 * @param pathManager
+	 * @param closeListener
+	 */
+	public void bind( TempPathManager pathManager,
+			CloseListenerManager closeListener )
+	{
+		this.pathManager.set( pathManager );
+		this.closeHolder.set( closeListener );
+	}
+	
+	/**
+	 * Removes the temp path and close listeners bound to the current thread.
+	 */
+	public void unbind( )
+	{
+		pathManager.remove( );
+		closeHolder.remove( );
+	}
+	
 	public void removeCloseListener( )
 	{
 		closeHolder.remove( );
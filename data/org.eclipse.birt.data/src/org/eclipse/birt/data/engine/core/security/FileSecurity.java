@@ -375,6 +375,25 @@ public class FileSecurity
 		} );
 	}
 
+	/**
+	 *
+	 * @param file
+	 * @param dest
+	 * @return
+	 */
+	public static boolean fileRenameTo( final File file, final File dest )
+	{
+		if ( file == null || dest == null )
+			return false;
+		return AccessController.doPrivileged( new PrivilegedAction<Boolean>( ) {
+
+			public Boolean run( )
+			{
+				return file.renameTo( dest );
+			}
+		} );
+	}
+
 	/**
 	 * 
 	 * @param file
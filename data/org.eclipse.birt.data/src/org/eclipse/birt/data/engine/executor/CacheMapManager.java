@@ -11,18 +11,20 @@
 package org.eclipse.birt.data.engine.executor;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.birt.core.util.CacheStatistics;
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.odi.IResultClass;
 
 /**
- * Manage the cache map
+ * Manage the cache map. The JVM level cache is kept in JVMLevelDataSetCache
+ * which is shared by all the sessions, and the DTE level cache is kept in a
+ * map of this manager.
  */
 public class CacheMapManager
 {
@@ -30,8 +32,7 @@ public class CacheMapManager
 	 * Please notice that we must use static variable here for the sharing of
 	 * cached data set would be cross data set session.
 	 */
-	private static Map JVMLevelCacheMap = Collections.synchronizedMap( new HashMap( ) );
-	private static Map<DataSourceAndDataSet, Integer> lockedDataSetCacheMap = Collections.synchronizedMap( new HashMap( ) );	
+	private static JVMLevelDataSetCache JVMLevelCache = JVMLevelDataSetCache.getInstance( );
 	
 	private Map<DataSourceAndDataSet, IDataSetCacheObject> cacheMap;
 	// use this field temporarily keep the data set object need to be saved in
@@ -41,26 +42,13 @@ public class CacheMapManager
 	
 	private boolean useJVMLevelCache;
 	
-	//ensure that JVMLevelCache will be clear when JVM shutdown
-	static
-	{
-		new ShutdownHook( JVMLevelCacheMap );
-	}
-	
 	/**
 	 * construction
 	 */
 	CacheMapManager( boolean useJVMLevelCache )
 	{
 		this.useJVMLevelCache = useJVMLevelCache;
-		if( useJVMLevelCache )
-		{
-			cacheMap = JVMLevelCacheMap;
-		}
-		else
-		{
-			cacheMap = new HashMap( );
-		}
+		cacheMap = new HashMap( );
 		tempDataSetCacheMap = new HashMap<DataSourceAndDataSet, IDataSetCacheObject>( );
 	}
 	
@@ -75,6 +63,26 @@ public class CacheMapManager
 	boolean doesSaveToCache( DataSourceAndDataSet dsAndDs,
 			DataSetCacheConfig dscc) throws DataException
 	{		
+		if ( useJVMLevelCache )
+		{
+			IDataSetCacheObject cacheObject = JVMLevelCache.get( dsAndDs );
+			if ( cacheObject != null
+					&& !cacheObject.needUpdateCache( dscc.getCacheCapability( ) ) )
+			{
+				JVMLevelCache.cancelPendingLoads( dsAndDs, this );
+				return false;
+			}
+			synchronized ( tempDataSetCacheMap )
+			{
+				if ( !tempDataSetCacheMap.containsKey( dsAndDs ) )
+				{
+					tempDataSetCacheMap.put( dsAndDs,
+							dscc.createDataSetCacheObject( ) );
+					JVMLevelCache.saveStart( dsAndDs, this );
+				}
+			}
+			return true;
+		}
 		synchronized ( cacheMap )
 		{
 			IDataSetCacheObject cacheObject = (IDataSetCacheObject)cacheMap.get( dsAndDs );
@@ -100,6 +108,12 @@ public class CacheMapManager
 	 */
 	boolean doesLoadFromCache( DataSourceAndDataSet dsAndDs, int requiredCapability )
 	{
+		if ( useJVMLevelCache )
+		{
+			return JVMLevelCache.doesLoadFromCache( dsAndDs,
+					requiredCapability,
+					this );
+		}
 		synchronized ( cacheMap )
 		{
 			IDataSetCacheObject cacheObject = (IDataSetCacheObject)cacheMap.get( dsAndDs );
@@ -108,36 +122,10 @@ public class CacheMapManager
 				boolean reusable = cacheObject.isCachedDataReusable( requiredCapability );
 				if ( !reusable )
 				{
-					if ( useJVMLevelCache )
-					{
-						synchronized ( lockedDataSetCacheMap )
-						{
-							if ( lockedDataSetCacheMap.containsKey( dsAndDs ) )
-							{
-								try
-								{
-									// waiting for 60s
-									lockedDataSetCacheMap.wait( 60000 );
-								}
-								catch ( InterruptedException e )
-								{
-								}
-								lockedDataSetCacheMap.remove( dsAndDs );
-							}
-						}
-					}
 					cacheObject.release( );
 					tempDataSetCacheMap.remove( dsAndDs );
 					cacheMap.remove( dsAndDs );
 				}
-				else
-				if ( this.useJVMLevelCache )
-				{
-					if ( !lockedDataSetCacheMap.containsKey( dsAndDs ) )
-					{
-						lockedDataSetCacheMap.put( dsAndDs, 0 );
-					}
-				}
 				return reusable;
 			}
 			else
@@ -152,7 +140,7 @@ public class CacheMapManager
 	 */
 	IDataSetCacheObject getSavedCacheObject( DataSourceAndDataSet dsAndDs )
 	{	
-		synchronized ( cacheMap )
+		synchronized ( useJVMLevelCache ? tempDataSetCacheMap : cacheMap )
 		{
 			return tempDataSetCacheMap.get( dsAndDs );
 		}
@@ -161,6 +149,17 @@ public class CacheMapManager
 	void saveFinishOnCache( DataSourceAndDataSet dsAndDs,
 			IDataSetCacheObject dsco )
 	{
+		if ( useJVMLevelCache )
+		{
+			// the saved object might be released by the cache later, so it is
+			// not kept for the next save
+			synchronized ( tempDataSetCacheMap )
+			{
+				tempDataSetCacheMap.remove( dsAndDs );
+			}
+			JVMLevelCache.saveFinish( dsAndDs, dsco, this );
+			return;
+		}
 		synchronized ( cacheMap )
 		{
 			cacheMap.put( dsAndDs, dsco );
@@ -173,14 +172,7 @@ public class CacheMapManager
 	{
 		if ( this.useJVMLevelCache )
 		{
-			synchronized ( lockedDataSetCacheMap )
-			{
-				if ( lockedDataSetCacheMap.containsKey( dsAndDs ) )
-				{
-					Integer count = lockedDataSetCacheMap.get( dsAndDs );
-					lockedDataSetCacheMap.put( dsAndDs, count + 1 );
-				}
-			}
+			JVMLevelCache.loadStart( dsAndDs, this );
 		}
 	}
 
@@ -190,22 +182,7 @@ public class CacheMapManager
 	{
 		if( this.useJVMLevelCache )
 		{
-			synchronized ( lockedDataSetCacheMap )
-			{
-				if( lockedDataSetCacheMap.containsKey( dsAndDs ) )
-				{
-					Integer count = lockedDataSetCacheMap.get( dsAndDs );
-					if( count<=1 )
-					{
-						lockedDataSetCacheMap.remove( dsAndDs );
-						lockedDataSetCacheMap.notifyAll( );
-					}
-					else
-					{
-						lockedDataSetCacheMap.put( dsAndDs, count-1 );
-					}
-				}
-			}
+			JVMLevelCache.loadFinish( dsAndDs, this );
 		}
 	}
 	
@@ -215,6 +192,8 @@ public class CacheMapManager
 	 */
 	IDataSetCacheObject getloadedCacheObject( DataSourceAndDataSet dsAndDs )
 	{	
+		if ( useJVMLevelCache )
+			return JVMLevelCache.get( dsAndDs, this );
 		return (IDataSetCacheObject) cacheMap.get( dsAndDs );
 	}
 	
@@ -225,14 +204,31 @@ public class CacheMapManager
 	void clearCache( DataSourceAndDataSet dsAndDs )
 	{
 		List cacheObjects = new ArrayList( );
-		synchronized ( cacheMap )
+		if ( useJVMLevelCache )
 		{
-			Object key = getKey(dsAndDs);
-			while ( key != null )
+			JVMLevelCache.cancelPendingLoads( dsAndDs, this );
+			cacheObjects.addAll( JVMLevelCache.remove( dsAndDs ) );
+			synchronized ( tempDataSetCacheMap )
 			{
-				cacheObjects.add( cacheMap.remove( key ) );
-				tempDataSetCacheMap.remove( key );
-				key = getKey(dsAndDs);
+				for ( DataSourceAndDataSet key : tempDataSetCacheMap.keySet( )
+						.toArray( new DataSourceAndDataSet[0] ) )
+				{
+					if ( key.isDataSourceDataSetEqual( dsAndDs, false ) )
+						tempDataSetCacheMap.remove( key );
+				}
+			}
+		}
+		else
+		{
+			synchronized ( cacheMap )
+			{
+				Object key = getKey( dsAndDs );
+				while ( key != null )
+				{
+					cacheObjects.add( cacheMap.remove( key ) );
+					tempDataSetCacheMap.remove( key );
+					key = getKey( dsAndDs );
+				}
 			}
 		}
 		for ( int i = 0; i < cacheObjects.size( ); i++ )
@@ -250,6 +246,8 @@ public class CacheMapManager
 	{
 		synchronized ( this )
 		{
+			if ( useJVMLevelCache )
+				JVMLevelCache.removeAll( );
 			cacheMap.clear( );
 			tempDataSetCacheMap.clear( );
 		}
@@ -267,6 +265,8 @@ public class CacheMapManager
 	IResultClass getCachedResultClass( DataSourceAndDataSet dsAndDs )
 			throws DataException
 	{
+		if ( useJVMLevelCache )
+			return JVMLevelCache.getCachedResultClass( dsAndDs );
 		IDataSetCacheObject cacheObject = null;
 		Object key = getKey( dsAndDs );
 		if ( key != null )
@@ -304,90 +304,101 @@ public class CacheMapManager
 		}
 	}
 	
-	public static void clearCache( Set<String> cacheIDs ) 
+	/**
+	 * Release the data sets being fetched by the session of this manager which
+	 * are not saved into the JVM level cache, so the other sessions waiting
+	 * for them go on. It is called when the session is shut down.
+	 */
+	void cancelPendingLoads( )
 	{
-		List<IDataSetCacheObject> removed = new ArrayList<IDataSetCacheObject>( );
-		
-		Object[] keyArray = JVMLevelCacheMap.keySet( ).toArray( new DataSourceAndDataSet[]{} );
-		for( Object dsAndDs : keyArray )
+		if ( useJVMLevelCache )
 		{
-			if( cacheIDs.contains( ((DataSourceAndDataSet)dsAndDs).getCacheScopeID( ) ))
+			JVMLevelCache.cancelPendingLoads( null, this );
+			synchronized ( tempDataSetCacheMap )
 			{
-				// here we do not use while clause to avoid thread suspending if
-				// cached is not properly closed.
-				synchronized ( lockedDataSetCacheMap ) 
-				{
-		          if ( lockedDataSetCacheMap.containsKey( dsAndDs ) )
-		          {
-		             try
-					 {
-		            	 //waiting for 60s
-		              	lockedDataSetCacheMap.wait( 60000 );
-					 }
-					 catch ( InterruptedException e )
-					 {
-					 }
-		             lockedDataSetCacheMap.remove( dsAndDs );
-			      }
-				}
-				IDataSetCacheObject cacheObj = (IDataSetCacheObject) JVMLevelCacheMap.remove( dsAndDs );
-				if( cacheObj != null )
-					removed.add( cacheObj );
-				
+				tempDataSetCacheMap.clear( );
 			}
 		}
-		
-		for( IDataSetCacheObject dataSetCacheObject : removed )
-		{
-			dataSetCacheObject.release( );
-		}
 	}
 	
-	void clearCache( )
+	/**
+	 * Update the limits of the JVM level cache by the app context.
+	 * 
+	 * @param appContext
+	 */
+	static void setCacheLimits( Map appContext )
 	{
-		List cacheObjects = new ArrayList( );
-		synchronized ( cacheMap )
-		{
-			for ( DataSourceAndDataSet dataSetAndSource : cacheMap.keySet( ).toArray( new DataSourceAndDataSet[0] ) )
- 			{
-				cacheObjects.add( cacheMap.remove( dataSetAndSource ) );
-				tempDataSetCacheMap.remove( dataSetAndSource );
- 			}
-		}
-		for ( int i = 0; i < cacheObjects.size( ); i++ )
-		{
-			IDataSetCacheObject cacheObject = (IDataSetCacheObject)cacheObjects.get( i );
-			cacheObject.release( );
-		}
+		JVMLevelCache.setLimits( appContext );
 	}
-}
-/**
- * Register shutdown hook on JVM exit to ensure that JVM cache will be cleared correctly.
- * 
- *
- */
-class ShutdownHook implements Runnable
-{
-	private Map<DataSourceAndDataSet, IDataSetCacheObject> cacheMap;
-
-	ShutdownHook(
-			Map<DataSourceAndDataSet, IDataSetCacheObject> jvmLevelCacheMap )
+	
+	/**
+	 * @return the statistics of the JVM level cache
+	 */
+	static CacheStatistics getStatistics( )
 	{
-		cacheMap = jvmLevelCacheMap;
-		Runtime.getRuntime( ).addShutdownHook( new Thread( this ) );
+		return JVMLevelCache.getStatistics( );
 	}
-
-	public void run( )
+	
+	/**
+	 * @return the memory used by the JVM level cache, in bytes
+	 */
+	static long getMemorySize( )
+	{
+		return JVMLevelCache.getMemorySize( );
+	}
+	
+	/**
+	 * @return the disk space used by the JVM level cache, in bytes
+	 */
+	static long getDiskSize( )
+	{
+		return JVMLevelCache.getDiskSize( );
+	}
+	
+	/**
+	 * @return the count of the data sets in the JVM level cache
+	 */
+	static int getEntryCount( )
+	{
+		return JVMLevelCache.getEntryCount( );
+	}
+	
+	public static void clearCache( Set<String> cacheIDs ) 
 	{
-		List<IDataSetCacheObject> cacheObjects = new ArrayList<IDataSetCacheObject>( );
-		for ( DataSourceAndDataSet dataSetAndSource : cacheMap.keySet( )
-				.toArray( new DataSourceAndDataSet[0] ) )
+		JVMLevelCache.removeByCacheIDs( cacheIDs );
+	}
+	
+	/**
+	 * Clear the cache of this manager. For the JVM level cache, all the
+	 * sessions are affected.
+	 */
+	void clearCache( )
+	{
+		List cacheObjects = new ArrayList( );
+		if ( useJVMLevelCache )
 		{
-			cacheObjects.add( cacheMap.remove( dataSetAndSource ) );
+			JVMLevelCache.cancelPendingLoads( null, this );
+			cacheObjects.addAll( JVMLevelCache.removeAll( ) );
+			synchronized ( tempDataSetCacheMap )
+			{
+				tempDataSetCacheMap.clear( );
+			}
+		}
+		else
+		{
+			synchronized ( cacheMap )
+			{
+				for ( DataSourceAndDataSet dataSetAndSource : cacheMap.keySet( )
+						.toArray( new DataSourceAndDataSet[0] ) )
+				{
+					cacheObjects.add( cacheMap.remove( dataSetAndSource ) );
+					tempDataSetCacheMap.remove( dataSetAndSource );
+				}
+			}
 		}
 		for ( int i = 0; i < cacheObjects.size( ); i++ )
 		{
-			IDataSetCacheObject cacheObject = (IDataSetCacheObject) cacheObjects.get( i );
+			IDataSetCacheObject cacheObject = (IDataSetCacheObject)cacheObjects.get( i );
 			cacheObject.release( );
 		}
 	}
@@ -17,6 +17,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.birt.core.util.CacheStatistics;
 import org.eclipse.birt.data.engine.api.DataEngineContext;
 import org.eclipse.birt.data.engine.api.IBaseDataSetDesign;
 import org.eclipse.birt.data.engine.api.IBaseDataSourceDesign;
@@ -90,6 +91,7 @@ public class DataSetCacheManager
 				try
 				{
 					dteLevelCacheMapManager.clearCache( );
+					jvmLevelCacheMapManager.cancelPendingLoads( );
 				}
 				catch ( Exception e )
 				{
@@ -411,6 +413,48 @@ public class DataSetCacheManager
 		}
 	}
 
+	/**
+	 * Return the statistics of the JVM level data set cache, which is shared
+	 * by all the data engines.
+	 * 
+	 * @return
+	 */
+	public static CacheStatistics getJVMLevelCacheStatistics( )
+	{
+		return CacheMapManager.getStatistics( );
+	}
+
+	/**
+	 * Return the estimated memory used by the JVM level data set cache, in
+	 * bytes.
+	 * 
+	 * @return
+	 */
+	public static long getJVMLevelCacheMemorySize( )
+	{
+		return CacheMapManager.getMemorySize( );
+	}
+
+	/**
+	 * Return the disk space used by the JVM level data set cache, in bytes.
+	 * 
+	 * @return
+	 */
+	public static long getJVMLevelCacheDiskSize( )
+	{
+		return CacheMapManager.getDiskSize( );
+	}
+
+	/**
+	 * Return the count of the data sets in the JVM level data set cache.
+	 * 
+	 * @return
+	 */
+	public static int getJVMLevelCacheEntryCount( )
+	{
+		return CacheMapManager.getEntryCount( );
+	}
+
 	/**
 	 * Return the cached result metadata. Please note that parameter hint will
 	 * not change the returned metadata.
@@ -444,6 +488,7 @@ public class DataSetCacheManager
 		if( DataSetCacheUtil.getJVMDataSetCacheConfig( appContext, context, dataSetDesign ) != null )
 		{
 			cacheMapManager = jvmLevelCacheMapManager;
+			CacheMapManager.setCacheLimits( appContext );
 		}
 		else
 		{
@@ -59,6 +59,9 @@ class DataSource implements IDataSource
 	private static Logger logger = Logger.getLogger( className ); 
 
 	private DataEngineSession session;
+	
+	// Executes the statements of prefetched queries, created on the first use
+	private QueryPrefetcher prefetcher;
 	/**
 	 * 
 	 * @param driverName
@@ -284,6 +287,32 @@ class DataSource implements IDataSource
 		}
 	}
 
+    /**
+     * Returns the executor of the statements prefetched on this data source.
+     * 
+     * @param maxConcurrentStatements
+     *            the count of statements executed at the same time, only used
+     *            when the executor is created
+     */
+    synchronized QueryPrefetcher getPrefetcher( int maxConcurrentStatements )
+    {
+    	if ( prefetcher == null )
+    		prefetcher = new QueryPrefetcher( maxConcurrentStatements );
+    	return prefetcher;
+    }
+
+    /**
+     * Returns the connection a statement is prepared on, the prefetched
+     * statements of one connection are executed one after another.
+     * 
+     * @param stmt
+     *            a statement returned by prepareStatement
+     */
+    synchronized Object getStatementConnection( PreparedStatement stmt )
+    {
+    	return statementMap.get( stmt );
+    }
+
     /**
      * Prepares an ODA Statement. May use an existing Connection from the pool
      * which has free active statements, or a new connection if all connections
@@ -21,6 +21,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -177,6 +179,11 @@ public class DataSourceQuery extends BaseQuery implements IDataSourceQuery, IPre
 	
 	private IQueryContextVisitor qcv;
 	
+	// the statement executed ahead by executeAhead()
+	private Future<Object> pendingExecution;
+	private IOdaDataSetDesign pendingDesign;
+	private ICancellable pendingCanceller;
+	
 	private static Logger logger = Logger.getLogger( DataSourceQuery.class.getName( ) );
 
 
@@ -926,62 +933,37 @@ public class DataSourceQuery extends BaseQuery implements IDataSourceQuery, IPre
     	
     	IResultIterator ri = null;
 
-    	this.setInputParameterBinding();
-    	
-    	IOdaDataSetDesign design = null;
-    	if( session.getDataSetCacheManager( ).getCurrentDataSetDesign( ) instanceof IOdaDataSetDesign )
-    		design = (IOdaDataSetDesign)session.getDataSetCacheManager( ).getCurrentDataSetDesign( );
-    	
-
-		if ( session.getDataSetCacheManager( ).doesSaveToCache( ) )
-		{
-			int fetchRowLimit = 0;
-			if ( design != null )
-			{
-				fetchRowLimit = session.getDataSetCacheManager( )
-						.getCurrentDataSetDesign( )
-						.getRowFetchLimit( );
-			}
-
-			int cacheCountConfig = 0;
-			if ( design.getFilters( ).isEmpty( ) )
-			{
-				cacheCountConfig = session.getDataSetCacheManager( )
-						.getCacheCountConfig( );
-			}
-			
-			if ( cacheCountConfig > 0 )
-			{
-				if ( fetchRowLimit != 0 && fetchRowLimit < cacheCountConfig )
-				{
-
-					odaStatement.setMaxRows( fetchRowLimit );
-				}
-				else
-				{
-					odaStatement.setMaxRows( cacheCountConfig );
-				}
-			}
-			else
-			{
-				if ( fetchRowLimit != 0 )
-				{
-					odaStatement.setMaxRows( fetchRowLimit );
-				}
-			}
-		}
-		
-    	ICancellable queryCanceller = new OdaQueryCanceller( odaStatement, dataSource, session.getStopSign(), this );
-    	this.session.getCancelManager( ).register( queryCanceller );
-    	
-    	if( !session.getStopSign().isStopped())
-    	{    
-			long startTime = System.currentTimeMillis( );
-    		odaStatement.execute( );
-			long endTime = System.currentTimeMillis( );
-			if( logger.isLoggable( Level.FINE ) )
-				logger.log( Level.FINE, "ODA query execution time: " + 
-					( endTime - startTime ) + " ms;\n   Executed query: " + odaStatement.getEffectiveQueryText() );
+    	IOdaDataSetDesign design;
+    	boolean saveToCache;
+    	ICancellable queryCanceller;
+    	if ( pendingExecution != null )
+    	{
+    		// the statement has been executed ahead, the data set cache
+    		// manager may have moved to another data set since then
+    		design = pendingDesign;
+    		saveToCache = false;
+    		queryCanceller = pendingCanceller;
+    		try
+    		{
+    			QueryPrefetcher.waitFor( pendingExecution );
+    		}
+    		finally
+    		{
+    			pendingExecution = null;
+    			pendingDesign = null;
+    			pendingCanceller = null;
+    		}
+    	}
+    	else
+    	{
+    		this.setInputParameterBinding();
+    		design = getCurrentDataSetDesign( );
+    		saveToCache = session.getDataSetCacheManager( ).doesSaveToCache( );
+    		if ( saveToCache )
+    			setCacheRowLimit( design );
+    		queryCanceller = registerCanceller( );
+    		if( !session.getStopSign().isStopped())
+    			executeStatement( );
     	}
 		
 		QueryContextVisitorUtil.populateEffectiveQueryText( qcv,
@@ -1041,7 +1023,7 @@ public class DataSourceQuery extends BaseQuery implements IDataSourceQuery, IPre
 		}
 		
 		// Initialize CachedResultSet using the ODA result set
-		if ( session.getDataSetCacheManager( ).doesSaveToCache( ) == false )
+		if ( saveToCache == false )
 		{
 			if ( ( ( session.getEngineContext( ).getMode( ) == DataEngineContext.DIRECT_PRESENTATION || session.getEngineContext( )
 					.getMode( ) == DataEngineContext.MODE_GENERATION ) )
@@ -1085,6 +1067,109 @@ public class DataSourceQuery extends BaseQuery implements IDataSourceQuery, IPre
 		return ri;
     }
     
+    /**
+     * Starts executing the statement on the prefetch thread pool of the data
+     * source, so that the database works on the query while the query thread
+     * goes on with other queries. The statement is not executed ahead if its
+     * rows are saved to the data set cache, or the prefetch is not enabled.
+     * execute() waits for the statement and then reads its result set.
+     * 
+     * @param appContext
+     * @throws DataException
+     */
+    public void executeAhead( Map appContext ) throws DataException
+    {
+    	assert odaStatement != null;
+    	
+    	int maxConcurrentStatements = QueryPrefetcher.getMaxConcurrentStatements( appContext );
+    	if ( maxConcurrentStatements <= 0 || pendingExecution != null )
+    		return;
+    	if ( session.getDataSetCacheManager( ).doesSaveToCache( )
+    			|| session.getStopSign( ).isStopped( ) )
+    		return;
+    	
+    	this.setInputParameterBinding( );
+    	pendingDesign = getCurrentDataSetDesign( );
+    	pendingCanceller = registerCanceller( );
+    	pendingExecution = dataSource.getPrefetcher( maxConcurrentStatements )
+    			.submit( dataSource.getStatementConnection( odaStatement ),
+    					new Callable<Object>( ) {
+
+    				public Object call( ) throws Exception
+    				{
+    					if ( !session.getStopSign( ).isStopped( ) )
+    						executeStatement( );
+    					return null;
+    				}
+    			} );
+    }
+    
+    private IOdaDataSetDesign getCurrentDataSetDesign( )
+    {
+    	if( session.getDataSetCacheManager( ).getCurrentDataSetDesign( ) instanceof IOdaDataSetDesign )
+    		return (IOdaDataSetDesign)session.getDataSetCacheManager( ).getCurrentDataSetDesign( );
+    	return null;
+    }
+    
+    /**
+     * Limits the rows fetched by the statement to the rows saved to the data
+     * set cache
+     */
+    private void setCacheRowLimit( IOdaDataSetDesign design ) throws DataException
+    {
+		int fetchRowLimit = 0;
+		if ( design != null )
+		{
+			fetchRowLimit = session.getDataSetCacheManager( )
+					.getCurrentDataSetDesign( )
+					.getRowFetchLimit( );
+		}
+
+		int cacheCountConfig = 0;
+		if ( design.getFilters( ).isEmpty( ) )
+		{
+			cacheCountConfig = session.getDataSetCacheManager( )
+					.getCacheCountConfig( );
+		}
+		
+		if ( cacheCountConfig > 0 )
+		{
+			if ( fetchRowLimit != 0 && fetchRowLimit < cacheCountConfig )
+			{
+
+				odaStatement.setMaxRows( fetchRowLimit );
+			}
+			else
+			{
+				odaStatement.setMaxRows( cacheCountConfig );
+			}
+		}
+		else
+		{
+			if ( fetchRowLimit != 0 )
+			{
+				odaStatement.setMaxRows( fetchRowLimit );
+			}
+		}
+    }
+    
+    private ICancellable registerCanceller( )
+    {
+    	ICancellable queryCanceller = new OdaQueryCanceller( odaStatement, dataSource, session.getStopSign(), this );
+    	this.session.getCancelManager( ).register( queryCanceller );
+    	return queryCanceller;
+    }
+    
+    private void executeStatement( ) throws DataException
+    {
+		long startTime = System.currentTimeMillis( );
+		odaStatement.execute( );
+		long endTime = System.currentTimeMillis( );
+		if( logger.isLoggable( Level.FINE ) )
+			logger.log( Level.FINE, "ODA query execution time: " + 
+				( endTime - startTime ) + " ms;\n   Executed query: " + odaStatement.getEffectiveQueryText() );
+    }
+    
 	private static class OdaQueryCanceller implements ICancellable
     {
     	private PreparedStatement statement;
@@ -1305,6 +1390,12 @@ public class DataSourceQuery extends BaseQuery implements IDataSourceQuery, IPre
 	 */
     public void close()
     {
+        if ( pendingExecution != null )
+        {
+        	// the query is closed before its rows are fetched
+        	dataSource.getPrefetcher( 1 ).waitQuietly( pendingExecution );
+        	pendingExecution = null;
+        }
         if ( odaStatement != null )
         {
         	this.dataSource.closeStatement( odaStatement );
@@ -0,0 +1,926 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.executor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.core.util.CacheStatistics;
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.executor.cache.SizeOfUtil;
+import org.eclipse.birt.data.engine.odi.IResultClass;
+
+/**
+ * The data set cache shared by all the data engines of the JVM.
+ *
+ * The entries are kept in a concurrent map, so the sessions using different
+ * data sets don't block each other. An entry being loaded by a session is
+ * locked, it is not released until the load finishes, even if it is replaced
+ * by a newer one. The first session missing an entry is registered to fetch
+ * the data set, the other sessions missing it wait for that fetch instead of
+ * querying the data set again.
+ *
+ * The total size of the memory entries and the disk entries can be limited,
+ * the least recently used entries which are not locked are evicted when the
+ * limit is exceeded. The entries older than the time to live are evicted as
+ * well.
+ */
+final class JVMLevelDataSetCache
+{
+
+	private static final Logger logger = Logger.getLogger( JVMLevelDataSetCache.class.getName( ) );
+
+	/**
+	 * the max time to wait for a locked entry or a fetch of another session,
+	 * in milliseconds
+	 */
+	static final long MAX_WAIT_TIME = 60000;
+
+	private static final JVMLevelDataSetCache instance = new JVMLevelDataSetCache( );
+
+	private final ConcurrentHashMap<DataSourceAndDataSet, CacheEntry> entries = new ConcurrentHashMap<DataSourceAndDataSet, CacheEntry>( );
+
+	// the data sets being fetched to save into cache
+	private final ConcurrentHashMap<DataSourceAndDataSet, PendingLoad> pendingLoads = new ConcurrentHashMap<DataSourceAndDataSet, PendingLoad>( );
+
+	// the replaced entries which are still being loaded, they are released
+	// when the loads finish
+	private final Map<CacheEntry, DataSourceAndDataSet> replacedEntries = new HashMap<CacheEntry, DataSourceAndDataSet>( );
+
+	private final CacheStatistics statistics = new CacheStatistics( );
+
+	private final AtomicLong memorySize = new AtomicLong( );
+	private final AtomicLong diskSize = new AtomicLong( );
+
+	// the limits, 0 means no limit
+	private volatile long maxMemorySize;
+	private volatile long maxDiskSize;
+	private volatile long timeToLive;
+
+	// ensure that the cache will be cleared when JVM shutdown
+	static
+	{
+		new ShutdownHook( instance );
+	}
+
+	private JVMLevelDataSetCache( )
+	{
+	}
+
+	static JVMLevelDataSetCache getInstance( )
+	{
+		return instance;
+	}
+
+	/**
+	 * Update the limits of the cache with the settings in the app context. The
+	 * settings not in the app context are not changed.
+	 *
+	 * @param appContext
+	 */
+	void setLimits( Map appContext )
+	{
+		if ( appContext == null )
+			return;
+
+		Long value = getLongValue( appContext,
+				DataEngine.DATA_SET_CACHE_MEMORY_LIMIT );
+		if ( value != null )
+			maxMemorySize = value.longValue( ) * 1024 * 1024;
+		value = getLongValue( appContext, DataEngine.DATA_SET_CACHE_DISK_LIMIT );
+		if ( value != null )
+			maxDiskSize = value.longValue( ) * 1024 * 1024;
+		value = getLongValue( appContext,
+				DataEngine.DATA_SET_CACHE_TIME_TO_LIVE );
+		if ( value != null )
+			timeToLive = value.longValue( ) * 1000;
+	}
+
+	/**
+	 * Set the limits of the cache.
+	 *
+	 * @param maxMemorySize
+	 *            the max size of memory entries in bytes, 0 means no limit
+	 * @param maxDiskSize
+	 *            the max size of disk entries in bytes, 0 means no limit
+	 * @param timeToLive
+	 *            the max time of an entry in milliseconds, 0 means no limit
+	 */
+	void setLimits( long maxMemorySize, long maxDiskSize, long timeToLive )
+	{
+		this.maxMemorySize = Math.max( 0, maxMemorySize );
+		this.maxDiskSize = Math.max( 0, maxDiskSize );
+		this.timeToLive = Math.max( 0, timeToLive );
+	}
+
+	private static Long getLongValue( Map appContext, String name )
+	{
+		Object value = appContext.get( name );
+		if ( value == null )
+			return null;
+		try
+		{
+			return Long.valueOf( Math.max( 0, Long.parseLong( value.toString( )
+					.trim( ) ) ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			return null;
+		}
+	}
+
+	CacheStatistics getStatistics( )
+	{
+		return statistics;
+	}
+
+	long getMemorySize( )
+	{
+		return memorySize.get( );
+	}
+
+	long getDiskSize( )
+	{
+		return diskSize.get( );
+	}
+
+	int getEntryCount( )
+	{
+		return entries.size( );
+	}
+
+	/**
+	 * Check whether the cached data can be loaded. If the data set is being
+	 * fetched by another session, wait for it first. If the entry is reusable,
+	 * it is locked by the session until the load finishes. Otherwise the
+	 * session is registered to fetch the data set, and the other sessions
+	 * missing it wait for the fetch.
+	 *
+	 * @param dsAndDs
+	 * @param requiredCapability
+	 * @param owner
+	 *            the cache map manager of the session
+	 * @return whether the cached data can be loaded
+	 */
+	boolean doesLoadFromCache( DataSourceAndDataSet dsAndDs,
+			int requiredCapability, Object owner )
+	{
+		CacheEntry entry = getEntryOrStartLoad( dsAndDs, owner );
+		if ( entry == null )
+		{
+			statistics.recordMiss( );
+			return false;
+		}
+
+		if ( !entry.object.isCachedDataReusable( requiredCapability ) )
+		{
+			entry.waitUntilUnlocked( );
+			removeEntry( dsAndDs, entry, false );
+			startLoad( dsAndDs, owner );
+			statistics.recordMiss( );
+			return false;
+		}
+		if ( !entry.lock( owner ) )
+		{
+			// evicted by another thread
+			startLoad( dsAndDs, owner );
+			statistics.recordMiss( );
+			return false;
+		}
+		entry.lastAccessTime = System.currentTimeMillis( );
+		statistics.recordHit( );
+		return true;
+	}
+
+	/**
+	 * Get the entry of the data set. If there is no entry, the session is
+	 * registered to fetch the data set, unless another session is fetching
+	 * it, in which case that fetch is waited for.
+	 *
+	 * @param dsAndDs
+	 * @param owner
+	 * @return the entry, null if the session fetches the data set
+	 */
+	private CacheEntry getEntryOrStartLoad( DataSourceAndDataSet dsAndDs,
+			Object owner )
+	{
+		while ( true )
+		{
+			CacheEntry entry = getEntry( dsAndDs );
+			if ( entry != null )
+				return entry;
+			PendingLoad pendingLoad = startLoad( dsAndDs, owner );
+			if ( pendingLoad.isStartedBy( owner ) )
+			{
+				// the entry might be saved before the fetch is registered
+				entry = getEntry( dsAndDs );
+				if ( entry != null )
+					finishPendingLoad( dsAndDs, pendingLoad );
+				return entry;
+			}
+			if ( !waitForPendingLoad( dsAndDs, pendingLoad ) )
+				return null;
+		}
+	}
+
+	/**
+	 * @param dsAndDs
+	 * @return the cached object
+	 */
+	IDataSetCacheObject get( DataSourceAndDataSet dsAndDs )
+	{
+		CacheEntry entry = entries.get( dsAndDs );
+		return entry == null ? null : entry.object;
+	}
+
+	/**
+	 * @param dsAndDs
+	 * @param owner
+	 * @return the cached object locked by the session, which might have been
+	 *         replaced by a newer one
+	 */
+	IDataSetCacheObject get( DataSourceAndDataSet dsAndDs, Object owner )
+	{
+		synchronized ( replacedEntries )
+		{
+			CacheEntry entry = getLoadingEntry( dsAndDs, owner );
+			return entry == null ? null : entry.object;
+		}
+	}
+
+	/**
+	 * It is called with the lock of the replaced entries.
+	 *
+	 * @param dsAndDs
+	 * @param owner
+	 * @return the entry locked by the session, or the current entry if there
+	 *         is no such entry
+	 */
+	private CacheEntry getLoadingEntry( DataSourceAndDataSet dsAndDs,
+			Object owner )
+	{
+		CacheEntry entry = entries.get( dsAndDs );
+		if ( entry != null && entry.isLockedBy( owner ) )
+			return entry;
+		for ( Map.Entry<CacheEntry, DataSourceAndDataSet> replaced : replacedEntries.entrySet( ) )
+		{
+			if ( replaced.getValue( ).equals( dsAndDs )
+					&& replaced.getKey( ).isLockedBy( owner ) )
+				return replaced.getKey( );
+		}
+		return entry;
+	}
+
+	/**
+	 * @param dsAndDs
+	 * @return the entry which is not expired, null if there is no such entry
+	 */
+	private CacheEntry getEntry( DataSourceAndDataSet dsAndDs )
+	{
+		CacheEntry entry = entries.get( dsAndDs );
+		if ( entry != null && isExpired( entry, System.currentTimeMillis( ) ) )
+		{
+			if ( entry.markRemoved( ) )
+				removeEntry( dsAndDs, entry, true );
+			return null;
+		}
+		return entry;
+	}
+
+	private boolean isExpired( CacheEntry entry, long now )
+	{
+		long ttl = timeToLive;
+		return ttl > 0 && now - entry.createTime > ttl;
+	}
+
+	/**
+	 * Record that a session starts to fetch a data set to save into cache, the
+	 * other sessions missing the data set wait for it. The fetch is usually
+	 * registered already when the session misses the data set.
+	 *
+	 * @param dsAndDs
+	 * @param owner
+	 */
+	void saveStart( DataSourceAndDataSet dsAndDs, Object owner )
+	{
+		startLoad( dsAndDs, owner );
+	}
+
+	/**
+	 * Register the session to fetch the data set if no other session is
+	 * fetching it.
+	 *
+	 * @param dsAndDs
+	 * @param owner
+	 * @return the fetch of the data set, which is started by either the
+	 *         session or another session
+	 */
+	private PendingLoad startLoad( DataSourceAndDataSet dsAndDs, Object owner )
+	{
+		PendingLoad pendingLoad = new PendingLoad( owner );
+		while ( true )
+		{
+			PendingLoad existing = pendingLoads.putIfAbsent( dsAndDs,
+					pendingLoad );
+			if ( existing == null )
+				return pendingLoad;
+			if ( !existing.isDone( ) )
+				return existing;
+			pendingLoads.remove( dsAndDs, existing );
+		}
+	}
+
+	/**
+	 * Save the cached object when the data set has been fetched, and evict the
+	 * entries exceeding the limits.
+	 *
+	 * @param dsAndDs
+	 * @param object
+	 * @param owner
+	 */
+	void saveFinish( DataSourceAndDataSet dsAndDs, IDataSetCacheObject object,
+			Object owner )
+	{
+		CacheEntry entry = new CacheEntry( object );
+		CacheEntry old;
+		boolean releaseOld = false;
+		synchronized ( replacedEntries )
+		{
+			old = entries.put( dsAndDs, entry );
+			if ( old != null && old.object != object )
+			{
+				// the replaced object is released when its loads finish
+				if ( old.markRemoved( ) )
+					releaseOld = true;
+				else
+					replacedEntries.put( old, dsAndDs );
+			}
+		}
+		addSize( entry, 1 );
+		if ( old != null )
+		{
+			addSize( old, -1 );
+			if ( releaseOld )
+				old.object.release( );
+		}
+
+		PendingLoad pendingLoad = pendingLoads.get( dsAndDs );
+		if ( pendingLoad != null && pendingLoad.owner == owner )
+		{
+			statistics.recordLoad( System.nanoTime( ) - pendingLoad.startTime );
+			finishPendingLoad( dsAndDs, pendingLoad );
+		}
+		evict( entry );
+	}
+
+	/**
+	 * Release the fetches of a session which doesn't save its data sets into
+	 * cache, the sessions waiting for them go on.
+	 *
+	 * @param dsAndDs
+	 *            the data set, null for all the data sets of the session
+	 * @param owner
+	 */
+	void cancelPendingLoads( DataSourceAndDataSet dsAndDs, Object owner )
+	{
+		for ( Iterator<Map.Entry<DataSourceAndDataSet, PendingLoad>> it = pendingLoads.entrySet( )
+				.iterator( ); it.hasNext( ); )
+		{
+			Map.Entry<DataSourceAndDataSet, PendingLoad> pendingEntry = it.next( );
+			if ( pendingEntry.getValue( ).owner == owner
+					&& ( dsAndDs == null || pendingEntry.getKey( )
+							.isDataSourceDataSetEqual( dsAndDs, false ) ) )
+			{
+				finishPendingLoad( pendingEntry.getKey( ),
+						pendingEntry.getValue( ) );
+			}
+		}
+	}
+
+	private void finishPendingLoad( DataSourceAndDataSet dsAndDs,
+			PendingLoad pendingLoad )
+	{
+		pendingLoads.remove( dsAndDs, pendingLoad );
+		pendingLoad.done.countDown( );
+	}
+
+	/**
+	 * Wait until the fetch of another session finishes.
+	 *
+	 * @param dsAndDs
+	 * @param pendingLoad
+	 * @return false if the thread is interrupted
+	 */
+	private boolean waitForPendingLoad( DataSourceAndDataSet dsAndDs,
+			PendingLoad pendingLoad )
+	{
+		try
+		{
+			if ( !pendingLoad.done.await( MAX_WAIT_TIME, TimeUnit.MILLISECONDS ) )
+			{
+				// the fetch doesn't finish in time, let the current session
+				// fetch the data set
+				pendingLoads.remove( dsAndDs, pendingLoad );
+			}
+			return true;
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread( ).interrupt( );
+			return false;
+		}
+	}
+
+	/**
+	 * Start to load an entry locked by the session.
+	 *
+	 * @param dsAndDs
+	 * @param owner
+	 */
+	void loadStart( DataSourceAndDataSet dsAndDs, Object owner )
+	{
+		synchronized ( replacedEntries )
+		{
+			CacheEntry entry = getLoadingEntry( dsAndDs, owner );
+			if ( entry != null )
+				entry.loadStart( owner );
+		}
+	}
+
+	/**
+	 * Finish to load an entry locked by the session, the entry is unlocked
+	 * when all the loads finish. A replaced entry is released then.
+	 *
+	 * @param dsAndDs
+	 * @param owner
+	 */
+	void loadFinish( DataSourceAndDataSet dsAndDs, Object owner )
+	{
+		CacheEntry released = null;
+		synchronized ( replacedEntries )
+		{
+			CacheEntry entry = getLoadingEntry( dsAndDs, owner );
+			if ( entry == null )
+				return;
+			entry.loadFinish( owner );
+			if ( replacedEntries.containsKey( entry ) && entry.markRemoved( ) )
+			{
+				replacedEntries.remove( entry );
+				released = entry;
+			}
+		}
+		if ( released != null )
+			released.object.release( );
+	}
+
+	/**
+	 * @param dsAndDs
+	 * @return the key of the data set regardless of the parameters, null if it
+	 *         is not cached.
+	 */
+	DataSourceAndDataSet getKey( DataSourceAndDataSet dsAndDs )
+	{
+		for ( Iterator<DataSourceAndDataSet> it = entries.keySet( ).iterator( ); it.hasNext( ); )
+		{
+			DataSourceAndDataSet temp = it.next( );
+			if ( temp.isDataSourceDataSetEqual( dsAndDs, false ) )
+			{
+				return temp;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param dsAndDs
+	 * @return the result class of the data set regardless of the parameters
+	 * @throws DataException
+	 */
+	IResultClass getCachedResultClass( DataSourceAndDataSet dsAndDs )
+			throws DataException
+	{
+		DataSourceAndDataSet key = getKey( dsAndDs );
+		IDataSetCacheObject object = key == null ? null : get( key );
+		return object == null ? null : object.getResultClass( );
+	}
+
+	/**
+	 * Remove the entries of the data set regardless of the parameters.
+	 *
+	 * @param dsAndDs
+	 * @return the removed objects which need to be released
+	 */
+	List<IDataSetCacheObject> remove( DataSourceAndDataSet dsAndDs )
+	{
+		List<IDataSetCacheObject> removed = new ArrayList<IDataSetCacheObject>( );
+		DataSourceAndDataSet key = getKey( dsAndDs );
+		while ( key != null )
+		{
+			CacheEntry entry = entries.remove( key );
+			if ( entry != null )
+			{
+				entry.markRemoved( );
+				addSize( entry, -1 );
+				removed.add( entry.object );
+			}
+			key = getKey( dsAndDs );
+		}
+		return removed;
+	}
+
+	/**
+	 * Remove and release the entries of the cache IDs. The locked entries are
+	 * waited for at most MAX_WAIT_TIME.
+	 *
+	 * @param cacheIDs
+	 */
+	void removeByCacheIDs( Set<String> cacheIDs )
+	{
+		List<IDataSetCacheObject> removed = new ArrayList<IDataSetCacheObject>( );
+		for ( Iterator<Map.Entry<DataSourceAndDataSet, CacheEntry>> it = entries.entrySet( )
+				.iterator( ); it.hasNext( ); )
+		{
+			Map.Entry<DataSourceAndDataSet, CacheEntry> mapEntry = it.next( );
+			if ( cacheIDs.contains( mapEntry.getKey( ).getCacheScopeID( ) ) )
+			{
+				CacheEntry entry = mapEntry.getValue( );
+				entry.waitUntilUnlocked( );
+				if ( entries.remove( mapEntry.getKey( ), entry ) )
+				{
+					entry.markRemoved( );
+					addSize( entry, -1 );
+					removed.add( entry.object );
+				}
+			}
+		}
+		for ( IDataSetCacheObject object : removed )
+		{
+			object.release( );
+		}
+	}
+
+	/**
+	 * Remove all the entries.
+	 *
+	 * @return the removed objects which need to be released
+	 */
+	List<IDataSetCacheObject> removeAll( )
+	{
+		List<IDataSetCacheObject> removed = new ArrayList<IDataSetCacheObject>( );
+		for ( Iterator<DataSourceAndDataSet> it = entries.keySet( ).iterator( ); it.hasNext( ); )
+		{
+			CacheEntry entry = entries.remove( it.next( ) );
+			if ( entry != null )
+			{
+				entry.markRemoved( );
+				addSize( entry, -1 );
+				removed.add( entry.object );
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Remove an entry and release its cached object.
+	 *
+	 * @param dsAndDs
+	 * @param entry
+	 * @param evicted
+	 *            whether the entry is evicted by the cache
+	 */
+	private void removeEntry( DataSourceAndDataSet dsAndDs, CacheEntry entry,
+			boolean evicted )
+	{
+		if ( entries.remove( dsAndDs, entry ) )
+		{
+			entry.markRemoved( );
+			addSize( entry, -1 );
+			if ( evicted )
+				statistics.recordEviction( );
+			entry.object.release( );
+		}
+	}
+
+	/**
+	 * Evict the expired entries, then the least recently used entries until
+	 * the sizes are within the limits. The locked entries and the entry just
+	 * saved are never evicted. The eviction scans all the entries, which is
+	 * fine since the data sets cached are not many.
+	 *
+	 * @param savedEntry
+	 */
+	private synchronized void evict( CacheEntry savedEntry )
+	{
+		long now = System.currentTimeMillis( );
+		if ( timeToLive > 0 )
+		{
+			for ( Iterator<Map.Entry<DataSourceAndDataSet, CacheEntry>> it = entries.entrySet( )
+					.iterator( ); it.hasNext( ); )
+			{
+				Map.Entry<DataSourceAndDataSet, CacheEntry> mapEntry = it.next( );
+				CacheEntry entry = mapEntry.getValue( );
+				if ( entry != savedEntry
+						&& isExpired( entry, now )
+						&& entry.markRemoved( ) )
+				{
+					removeEntry( mapEntry.getKey( ), entry, true );
+				}
+			}
+		}
+		while ( maxMemorySize > 0 && memorySize.get( ) > maxMemorySize )
+		{
+			if ( !evictLeastRecentlyUsed( savedEntry, false ) )
+				break;
+		}
+		while ( maxDiskSize > 0 && diskSize.get( ) > maxDiskSize )
+		{
+			if ( !evictLeastRecentlyUsed( savedEntry, true ) )
+				break;
+		}
+	}
+
+	/**
+	 * @param savedEntry
+	 * @param onDisk
+	 * @return whether an entry is evicted
+	 */
+	private boolean evictLeastRecentlyUsed( CacheEntry savedEntry,
+			boolean onDisk )
+	{
+		while ( true )
+		{
+			DataSourceAndDataSet lruKey = null;
+			CacheEntry lruEntry = null;
+			for ( Iterator<Map.Entry<DataSourceAndDataSet, CacheEntry>> it = entries.entrySet( )
+					.iterator( ); it.hasNext( ); )
+			{
+				Map.Entry<DataSourceAndDataSet, CacheEntry> mapEntry = it.next( );
+				CacheEntry entry = mapEntry.getValue( );
+				if ( entry == savedEntry
+						|| entry.onDisk != onDisk
+						|| entry.size == 0
+						|| entry.isLocked( ) )
+					continue;
+				if ( lruEntry == null
+						|| entry.lastAccessTime < lruEntry.lastAccessTime )
+				{
+					lruKey = mapEntry.getKey( );
+					lruEntry = entry;
+				}
+			}
+			if ( lruEntry == null )
+				return false;
+			// the entry might be locked after it is chosen
+			if ( lruEntry.markRemoved( ) )
+			{
+				removeEntry( lruKey, lruEntry, true );
+				return true;
+			}
+		}
+	}
+
+	private void addSize( CacheEntry entry, int sign )
+	{
+		if ( entry.onDisk )
+			diskSize.addAndGet( sign * entry.size );
+		else
+			memorySize.addAndGet( sign * entry.size );
+	}
+
+	/**
+	 * @param object
+	 * @return the size of the cached object in bytes
+	 */
+	private static long sizeOf( IDataSetCacheObject object )
+	{
+		if ( object instanceof DataSetCacheObjectWithDummyData )
+			object = ( (DataSetCacheObjectWithDummyData) object ).getSourceDataSetCacheObject( );
+		try
+		{
+			if ( object instanceof MemoryDataSetCacheObject )
+			{
+				MemoryDataSetCacheObject memoryObject = (MemoryDataSetCacheObject) object;
+				if ( memoryObject.getResultClass( ) == null )
+					return 0;
+				SizeOfUtil sizeOfUtil = new SizeOfUtil( memoryObject.getResultClass( ) );
+				long size = 0;
+				int count = memoryObject.getSize( );
+				for ( int i = 0; i < count; i++ )
+				{
+					size += sizeOfUtil.sizeOf( memoryObject.getResultObject( i ) );
+				}
+				return size;
+			}
+			if ( object instanceof DiskDataSetCacheObject )
+			{
+				DiskDataSetCacheObject diskObject = (DiskDataSetCacheObject) object;
+				return diskObject.getDataFile( ).length( )
+						+ diskObject.getMetaFile( ).length( );
+			}
+		}
+		catch ( DataException e )
+		{
+			logger.log( Level.FINE, e.getMessage( ), e );
+		}
+		catch ( RuntimeException e )
+		{
+			// the soft referenced rows may be collected
+			logger.log( Level.FINE, e.getMessage( ), e );
+		}
+		return 0;
+	}
+
+	private static boolean isOnDisk( IDataSetCacheObject object )
+	{
+		if ( object instanceof DataSetCacheObjectWithDummyData )
+			object = ( (DataSetCacheObjectWithDummyData) object ).getSourceDataSetCacheObject( );
+		return object instanceof DiskDataSetCacheObject;
+	}
+
+	/**
+	 * A cached object with the information to evict it. The entry is locked
+	 * while sessions are loading it, the load count is kept for each session.
+	 */
+	private static class CacheEntry
+	{
+
+		final IDataSetCacheObject object;
+		final long size;
+		final boolean onDisk;
+		final long createTime;
+		volatile long lastAccessTime;
+
+		// the sessions locking the entry and their load counts
+		private final Map<Object, Integer> loads = new HashMap<Object, Integer>( );
+		private boolean removed;
+
+		CacheEntry( IDataSetCacheObject object )
+		{
+			this.object = object;
+			this.size = sizeOf( object );
+			this.onDisk = isOnDisk( object );
+			this.createTime = System.currentTimeMillis( );
+			this.lastAccessTime = createTime;
+		}
+
+		/**
+		 * @param owner
+		 * @return false if the entry has been removed
+		 */
+		synchronized boolean lock( Object owner )
+		{
+			if ( removed )
+				return false;
+			if ( !loads.containsKey( owner ) )
+				loads.put( owner, Integer.valueOf( 0 ) );
+			return true;
+		}
+
+		synchronized boolean isLocked( )
+		{
+			return !loads.isEmpty( );
+		}
+
+		synchronized boolean isLockedBy( Object owner )
+		{
+			return loads.containsKey( owner );
+		}
+
+		synchronized void loadStart( Object owner )
+		{
+			Integer count = loads.get( owner );
+			if ( count != null )
+				loads.put( owner, Integer.valueOf( count.intValue( ) + 1 ) );
+		}
+
+		synchronized void loadFinish( Object owner )
+		{
+			Integer count = loads.get( owner );
+			if ( count == null )
+				return;
+			if ( count.intValue( ) <= 1 )
+			{
+				loads.remove( owner );
+				if ( loads.isEmpty( ) )
+					notifyAll( );
+			}
+			else
+			{
+				loads.put( owner, Integer.valueOf( count.intValue( ) - 1 ) );
+			}
+		}
+
+		/**
+		 * Wait for the loads of the entry, at most MAX_WAIT_TIME, then unlock
+		 * it.
+		 */
+		synchronized void waitUntilUnlocked( )
+		{
+			if ( !loads.isEmpty( ) )
+			{
+				try
+				{
+					wait( MAX_WAIT_TIME );
+				}
+				catch ( InterruptedException e )
+				{
+				}
+				loads.clear( );
+			}
+		}
+
+		/**
+		 * Mark the entry to be removed if it is not locked.
+		 *
+		 * @return whether the entry is marked
+		 */
+		synchronized boolean markRemoved( )
+		{
+			if ( !loads.isEmpty( ) && !removed )
+				return false;
+			removed = true;
+			return true;
+		}
+	}
+
+	/**
+	 * A data set being fetched by a session
+	 */
+	private static class PendingLoad
+	{
+
+		final Object owner;
+		final Thread thread;
+		final long startTime;
+		final CountDownLatch done = new CountDownLatch( 1 );
+
+		PendingLoad( Object owner )
+		{
+			this.owner = owner;
+			this.thread = Thread.currentThread( );
+			this.startTime = System.nanoTime( );
+		}
+
+		boolean isDone( )
+		{
+			return done.getCount( ) == 0;
+		}
+
+		/**
+		 * @param owner
+		 * @return whether the fetch is started by the session or the current
+		 *         thread
+		 */
+		boolean isStartedBy( Object owner )
+		{
+			return this.owner == owner || thread == Thread.currentThread( );
+		}
+	}
+}
+
+/**
+ * Register shutdown hook on JVM exit to ensure that JVM cache will be cleared correctly.
+ *
+ *
+ */
+class ShutdownHook implements Runnable
+{
+	private JVMLevelDataSetCache cache;
+
+	ShutdownHook( JVMLevelDataSetCache cache )
+	{
+		this.cache = cache;
+		Runtime.getRuntime( ).addShutdownHook( new Thread( this ) );
+	}
+
+	public void run( )
+	{
+		List<IDataSetCacheObject> cacheObjects = cache.removeAll( );
+		for ( int i = 0; i < cacheObjects.size( ); i++ )
+		{
+			IDataSetCacheObject cacheObject = (IDataSetCacheObject) cacheObjects.get( i );
+			cacheObject.release( );
+		}
+	}
+}
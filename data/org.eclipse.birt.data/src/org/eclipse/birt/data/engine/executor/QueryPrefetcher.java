@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.executor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.data.engine.core.DataException;
+
+/**
+ * Executes the ODA statements of a data source ahead of the query thread. The
+ * statements of all data sources run on a shared, bounded thread pool, and
+ * each data source limits how many of its statements run at the same time. At
+ * most one statement of each connection runs at a time, since the drivers are
+ * not required to support concurrent statements on one connection, so only
+ * the statements prepared on different connections run in parallel. The
+ * statements beyond the limits wait in the order they are submitted.
+ *
+ * Only the statement execution runs on the pool. The data set scripts and the
+ * row processing stay in the query thread, since the script context is bound
+ * to it.
+ */
+final class QueryPrefetcher
+{
+
+	/**
+	 * the max count of the threads executing statements for all the sessions
+	 */
+	static final int MAX_THREAD_COUNT = 16;
+
+	private static ExecutorService executor;
+
+	private final int maxConcurrentStatements;
+	private int runningStatements;
+	private final LinkedList<Statement> pendingStatements = new LinkedList<Statement>( );
+	// the connections which are executing a statement
+	private final Set<Object> busyConnections = new HashSet<Object>( );
+
+	/**
+	 * @param maxConcurrentStatements
+	 *            the max count of statements of the data source executed at
+	 *            the same time
+	 */
+	QueryPrefetcher( int maxConcurrentStatements )
+	{
+		this.maxConcurrentStatements = Math.max( 1, maxConcurrentStatements );
+	}
+
+	/**
+	 * @param appContext
+	 * @return the count of statements of each data source executed ahead at
+	 *         the same time, 0 if the statements are executed by the query
+	 *         thread.
+	 */
+	static int getMaxConcurrentStatements( Map appContext )
+	{
+		if ( appContext == null )
+			return 0;
+		Object value = appContext.get( DataEngine.PARALLEL_QUERY_EXECUTION );
+		if ( value == null )
+			return 0;
+		try
+		{
+			return Math.max( 0, Integer.parseInt( value.toString( ).trim( ) ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			return 0;
+		}
+	}
+
+	/**
+	 * Submits a statement execution. It starts at once if the data source has
+	 * not reached its limit and the connection is not executing another
+	 * statement, otherwise when a running statement finishes.
+	 *
+	 * @param connection
+	 *            the connection the statement is prepared on
+	 * @param task
+	 * @return the future of the task
+	 */
+	Future<Object> submit( Object connection, Callable<Object> task )
+	{
+		Statement statement = new Statement( connection, task );
+		synchronized ( this )
+		{
+			if ( !canStart( connection ) )
+			{
+				pendingStatements.add( statement );
+				return statement;
+			}
+			start( connection );
+		}
+		getExecutor( ).execute( statement );
+		return statement;
+	}
+
+	private boolean canStart( Object connection )
+	{
+		return runningStatements < maxConcurrentStatements
+				&& !busyConnections.contains( connection );
+	}
+
+	private void start( Object connection )
+	{
+		runningStatements++;
+		busyConnections.add( connection );
+	}
+
+	private void statementFinished( Object connection )
+	{
+		List<Statement> nextStatements = new ArrayList<Statement>( );
+		synchronized ( this )
+		{
+			runningStatements--;
+			busyConnections.remove( connection );
+			Iterator<Statement> iterator = pendingStatements.iterator( );
+			while ( iterator.hasNext( ) )
+			{
+				Statement next = iterator.next( );
+				if ( canStart( next.connection ) )
+				{
+					iterator.remove( );
+					start( next.connection );
+					nextStatements.add( next );
+				}
+			}
+		}
+		for ( Statement next : nextStatements )
+		{
+			getExecutor( ).execute( next );
+		}
+	}
+
+	/**
+	 * Waits for a statement execution and rethrows its failure.
+	 *
+	 * @param future
+	 * @throws DataException
+	 */
+	static void waitFor( Future<Object> future ) throws DataException
+	{
+		try
+		{
+			future.get( );
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread( ).interrupt( );
+			throw new DataException( e.getLocalizedMessage( ), e );
+		}
+		catch ( ExecutionException e )
+		{
+			Throwable cause = e.getCause( );
+			if ( cause instanceof DataException )
+				throw (DataException) cause;
+			if ( cause instanceof RuntimeException )
+				throw (RuntimeException) cause;
+			if ( cause instanceof Error )
+				throw (Error) cause;
+			throw new DataException( cause.getLocalizedMessage( ), cause );
+		}
+	}
+
+	/**
+	 * Waits for a statement execution which result is no longer needed, the
+	 * statement is dropped if it has not started yet.
+	 *
+	 * @param future
+	 */
+	void waitQuietly( Future<Object> future )
+	{
+		synchronized ( this )
+		{
+			if ( pendingStatements.remove( future ) )
+				return;
+		}
+		try
+		{
+			future.get( );
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread( ).interrupt( );
+		}
+		catch ( ExecutionException e )
+		{
+		}
+	}
+
+	/**
+	 * The execution of a statement, it releases its connection when it is
+	 * done.
+	 */
+	private class Statement extends FutureTask<Object>
+	{
+
+		private final Object connection;
+
+		Statement( Object connection, Callable<Object> task )
+		{
+			super( task );
+			this.connection = connection;
+		}
+
+		protected void done( )
+		{
+			synchronized ( QueryPrefetcher.this )
+			{
+				// a statement cancelled before it starts holds no connection
+				if ( pendingStatements.remove( this ) )
+					return;
+			}
+			statementFinished( connection );
+		}
+	}
+
+	private static synchronized ExecutorService getExecutor( )
+	{
+		if ( executor == null )
+		{
+			ThreadPoolExecutor pool = new ThreadPoolExecutor( MAX_THREAD_COUNT,
+					MAX_THREAD_COUNT,
+					60,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>( ),
+					new ThreadFactory( ) {
+
+						private AtomicInteger threadCount = new AtomicInteger( );
+
+						public Thread newThread( Runnable runnable )
+						{
+							Thread thread = new Thread( runnable,
+									"BIRT-QueryPrefetch-"
+											+ threadCount.incrementAndGet( ) );
+							thread.setDaemon( true );
+							return thread;
+						}
+					} );
+			// the pool is idle when no report prefetches its queries
+			pool.allowCoreThreadTimeOut( true );
+			executor = pool;
+		}
+		return executor;
+	}
+}
@@ -99,6 +99,78 @@ public class CacheUtil
 		return memoryCacheSize > MAGIC_NUMBER;
 	}
 	
+	/**
+	 * @param appContext
+	 * @return whether the rows cached in memory are kept column by column
+	 */
+	public static boolean isColumnarCacheEnabled( Map appContext )
+	{
+		if ( appContext == null )
+			return false;
+		Object propValue = appContext.get( DataEngine.COLUMNAR_RESULT_CACHE );
+		return propValue != null
+				&& Boolean.valueOf( propValue.toString( ) ).booleanValue( );
+	}
+	
+	/**
+	 * @param appContext
+	 * @return how many sorted runs a disk based sort may process in
+	 *         background threads, 0 if the sort runs in the query thread only
+	 */
+	public static int getParallelDiskSortCount( Map appContext )
+	{
+		if ( appContext == null )
+			return 0;
+		Object propValue = appContext.get( DataEngine.PARALLEL_DISK_SORT );
+		if ( propValue == null )
+			return 0;
+		try
+		{
+			return Math.max( 0, Integer.parseInt( propValue.toString( )
+					.trim( ) ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			return 0;
+		}
+	}
+
+	/**
+	 * @param appContext
+	 * @return how many fetched rows are processed by the fetch events as one
+	 *         batch, 1 if the rows are processed one by one
+	 */
+	public static int getBatchRowProcessingSize( Map appContext )
+	{
+		if ( appContext == null )
+			return 1;
+		Object propValue = appContext.get( DataEngine.BATCH_ROW_PROCESSING_SIZE );
+		if ( propValue == null )
+			return 1;
+		try
+		{
+			return Math.max( 1, Integer.parseInt( propValue.toString( )
+					.trim( ) ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			return 1;
+		}
+	}
+
+	/**
+	 * @param appContext
+	 * @return whether the temporary files of disk based sort are compressed
+	 */
+	public static boolean isDiskCacheCompressed( Map appContext )
+	{
+		if ( appContext == null )
+			return false;
+		Object propValue = appContext.get( DataEngine.COMPRESS_DISK_CACHE );
+		return propValue != null
+				&& Boolean.valueOf( propValue.toString( ) ).booleanValue( );
+	}
+
 	public static int getMaxRows( Map appContext )
 	{
 		if ( appContext == null )
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.executor.cache;
+
+import java.util.Comparator;
+
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.executor.cache.ColumnarRowStore.RowObject;
+import org.eclipse.birt.data.engine.odi.IResultObject;
+
+/**
+ * Memory implementation of ResultSetCache which keeps the rows in a
+ * ColumnarRowStore instead of an array of result objects.
+ *
+ * The result objects are created on demand when the rows are fetched, they read
+ * and write the values in the store directly. Sorting doesn't move the rows in
+ * the store, the sorted order is kept as an array of row indexes.
+ */
+public class ColumnarMemoryCache extends MemoryCache
+{
+
+	/**
+	 * the sort uses insertion sort for the ranges shorter than this
+	 */
+	private static final int INSERTION_SORT_THRESHOLD = 7;
+
+	private ColumnarRowStore rowStore;
+
+	/**
+	 * the row index in the store of each result, null if the results aren't
+	 * sorted.
+	 */
+	private int[] order;
+
+	/**
+	 * @param rowStore
+	 * @param comparator
+	 */
+	ColumnarMemoryCache( ColumnarRowStore rowStore, Comparator comparator )
+	{
+		super( rowStore.getRowCount( ), rowStore.getResultClass( ) );
+		this.rowStore = rowStore;
+
+		if ( comparator != null )
+			sort( comparator );
+	}
+
+	/**
+	 * @return the memory occupied by the cached rows, in bytes.
+	 */
+	public long getMemorySize( )
+	{
+		long size = rowStore.getMemorySize( );
+		if ( order != null )
+			size += SizeOfUtil.PRIMITIVE_ARRAY_OVERHEAD + order.length * 4;
+		return size;
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.executor.cache.MemoryCache#getResultObject(int)
+	 */
+	protected IResultObject getResultObject( int index ) throws DataException
+	{
+		return rowStore.getRow( order == null ? index : order[index] );
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.executor.cache.ResultSetCache#close()
+	 */
+	public void close( )
+	{
+		super.close( );
+		rowStore.close( );
+		order = null;
+	}
+
+	/**
+	 * Stable merge sort on the row indexes, the same as Arrays.sort on the
+	 * result objects.
+	 *
+	 * @param comparator
+	 */
+	private void sort( Comparator comparator )
+	{
+		int count = rowStore.getRowCount( );
+		order = new int[count];
+		for ( int i = 0; i < count; i++ )
+		{
+			order[i] = i;
+		}
+		RowSorter sorter = new RowSorter( comparator );
+		sorter.sort( order, new int[count], 0, count );
+	}
+
+	/**
+	 * Compares the rows through two reusable result objects, so no object is
+	 * created during the sort.
+	 */
+	private class RowSorter
+	{
+
+		private Comparator comparator;
+		private RowObject row1;
+		private RowObject row2;
+
+		RowSorter( Comparator comparator )
+		{
+			this.comparator = comparator;
+			this.row1 = rowStore.getRow( 0 );
+			this.row2 = rowStore.getRow( 0 );
+		}
+
+		private int compare( int index1, int index2 )
+		{
+			row1.row = index1;
+			row2.row = index2;
+			return comparator.compare( row1, row2 );
+		}
+
+		void sort( int[] rows, int[] buffer, int from, int to )
+		{
+			if ( to - from < INSERTION_SORT_THRESHOLD )
+			{
+				for ( int i = from + 1; i < to; i++ )
+				{
+					for ( int j = i; j > from
+							&& compare( rows[j - 1], rows[j] ) > 0; j-- )
+					{
+						int temp = rows[j];
+						rows[j] = rows[j - 1];
+						rows[j - 1] = temp;
+					}
+				}
+				return;
+			}
+
+			int mid = ( from + to ) >>> 1;
+			sort( rows, buffer, from, mid );
+			sort( rows, buffer, mid, to );
+
+			// the two halves are already in order
+			if ( compare( rows[mid - 1], rows[mid] ) <= 0 )
+				return;
+
+			int p = from, q = mid;
+			for ( int i = from; i < to; i++ )
+			{
+				if ( q >= to || ( p < mid && compare( rows[p], rows[q] ) <= 0 ) )
+					buffer[i] = rows[p++];
+				else
+					buffer[i] = rows[q++];
+			}
+			System.arraycopy( buffer, from, rows, from, to - from );
+		}
+	}
+}
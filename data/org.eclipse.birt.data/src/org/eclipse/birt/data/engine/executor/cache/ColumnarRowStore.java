@@ -0,0 +1,868 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.executor.cache;
+
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.birt.core.data.DataType.AnyType;
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.executor.ResultClass;
+import org.eclipse.birt.data.engine.executor.ResultObject;
+import org.eclipse.birt.data.engine.i18n.ResourceConstants;
+import org.eclipse.birt.data.engine.odi.IResultClass;
+import org.eclipse.birt.data.engine.odi.IResultObject;
+import org.eclipse.birt.data.engine.olap.data.util.CompareUtil;
+
+/**
+ * Keeps the rows of a result set column by column.
+ *
+ * Integer, Long, Double and date values are kept in primitive arrays, String
+ * values are kept as indexes into a per column dictionary, and the other values
+ * are kept as objects. A column falls back to keeping objects when it meets a
+ * value which can't be kept in its primitive form.
+ *
+ * The values are kept in chunks of CHUNK_SIZE rows so the store grows without
+ * copying the existing rows, and the memory size reported by the store is
+ * computed from the arrays and values really kept rather than estimated per
+ * row.
+ */
+class ColumnarRowStore
+{
+
+	static final int CHUNK_SIZE_BITS = 12;
+	static final int CHUNK_SIZE = 1 << CHUNK_SIZE_BITS;
+	static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/**
+	 * the initial capacity of the first chunk, the chunk grows on demand so a
+	 * small result set doesn't allocate a whole chunk for each column.
+	 */
+	static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * a string column is no longer encoded once its dictionary exceeds this
+	 * size and more than half of its values are distinct.
+	 */
+	static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+	private IResultClass rsMeta;
+	private Column[] columns;
+	private int rowCount;
+
+	/**
+	 * @param rsMeta
+	 *            the meta data of the rows kept in the store.
+	 * @throws DataException
+	 */
+	ColumnarRowStore( IResultClass rsMeta ) throws DataException
+	{
+		this.rsMeta = rsMeta;
+		this.columns = new Column[rsMeta.getFieldCount( )];
+		for ( int i = 0; i < columns.length; i++ )
+		{
+			columns[i] = createColumn( rsMeta.getFieldValueClass( i + 1 ) );
+		}
+	}
+
+	/**
+	 * create the column according to the declared value class, the column is
+	 * replaced later if the real values don't match the declaration.
+	 */
+	private static Column createColumn( Class valueClass )
+	{
+		if ( valueClass == null )
+		{
+			return new ObjectColumn( );
+		}
+		if ( valueClass.equals( Integer.class ) )
+		{
+			return new IntColumn( );
+		}
+		if ( valueClass.equals( Long.class ) )
+		{
+			return new LongColumn( );
+		}
+		if ( valueClass.equals( Double.class ) )
+		{
+			return new DoubleColumn( );
+		}
+		if ( Date.class.isAssignableFrom( valueClass ) )
+		{
+			return new DateColumn( );
+		}
+		if ( valueClass.equals( String.class ) )
+		{
+			return new StringColumn( );
+		}
+		return new ObjectColumn( );
+	}
+
+	IResultClass getResultClass( )
+	{
+		return rsMeta;
+	}
+
+	int getRowCount( )
+	{
+		return rowCount;
+	}
+
+	/**
+	 * append a row to the store. The values beyond the field count of the
+	 * store are ignored, the missed values are kept as null.
+	 *
+	 * @param resultObject
+	 * @return the index of the new row.
+	 * @throws DataException
+	 */
+	int addRow( IResultObject resultObject ) throws DataException
+	{
+		int fieldCount = Math.min( columns.length,
+				resultObject.getResultClass( ).getFieldCount( ) );
+		for ( int i = 0; i < columns.length; i++ )
+		{
+			setValue( rowCount, i, i < fieldCount
+					? resultObject.getFieldValue( i + 1 ) : null );
+		}
+		return rowCount++;
+	}
+
+	/**
+	 * @param row
+	 *            0-based row index
+	 * @param column
+	 *            0-based column index
+	 * @return the value, may be null.
+	 */
+	Object getValue( int row, int column )
+	{
+		return columns[column].get( row );
+	}
+
+	/**
+	 * @param row
+	 *            0-based row index
+	 * @param column
+	 *            0-based column index
+	 * @param value
+	 *            the new value.
+	 */
+	void setValue( int row, int column, Object value )
+	{
+		if ( !columns[column].set( row, value ) )
+		{
+			// the value doesn't fit the column, keep the values as objects
+			columns[column] = new ObjectColumn( columns[column],
+					Math.max( row, rowCount ) );
+			columns[column].set( row, value );
+		}
+	}
+
+	/**
+	 * @return the memory occupied by the store, in bytes.
+	 */
+	long getMemorySize( )
+	{
+		long size = SizeOfUtil.OBJECT_ARRAY_OVERHEAD
+				+ columns.length * SizeOfUtil.POINTER_SIZE;
+		for ( int i = 0; i < columns.length; i++ )
+		{
+			size += columns[i].getMemorySize( );
+		}
+		return size;
+	}
+
+	/**
+	 * create a result object reading the row from the store.
+	 *
+	 * @param row
+	 *            0-based row index
+	 */
+	RowObject getRow( int row )
+	{
+		return new RowObject( row );
+	}
+
+	/**
+	 * copy the row from the store into a new result object, which doesn't
+	 * refer to the store.
+	 *
+	 * @param row
+	 *            0-based row index
+	 */
+	IResultObject copyRow( int row )
+	{
+		Object[] fields = new Object[columns.length];
+		for ( int i = 0; i < columns.length; i++ )
+		{
+			fields[i] = getValue( row, i );
+		}
+		return new ResultObject( rsMeta, fields );
+	}
+
+	void close( )
+	{
+		columns = new Column[0];
+		rowCount = 0;
+	}
+
+	/**
+	 * The result object which reads and writes the values in the store
+	 * directly. It is cheap to create, so a new one is created each time a row
+	 * is fetched.
+	 */
+	class RowObject implements IResultObject
+	{
+
+		int row;
+
+		RowObject( int row )
+		{
+			this.row = row;
+		}
+
+		public IResultClass getResultClass( )
+		{
+			return rsMeta;
+		}
+
+		public Object getFieldValue( String fieldName ) throws DataException
+		{
+			int fieldIndex = rsMeta.getFieldIndex( fieldName );
+			if ( fieldIndex < 1 )
+				throw new DataException( ResourceConstants.INVALID_FIELD_NAME,
+						fieldName );
+			return getFieldValue( fieldIndex );
+		}
+
+		public Object getFieldValue( int fieldIndex ) throws DataException
+		{
+			return getValue( row, fieldIndex - 1 );
+		}
+
+		public void setCustomFieldValue( String fieldName, Object value )
+				throws DataException
+		{
+			setCustomFieldValue( rsMeta.getFieldIndex( fieldName ), value );
+		}
+
+		public void setCustomFieldValue( int fieldIndex, Object value )
+				throws DataException
+		{
+			if ( !rsMeta.isCustomField( fieldIndex ) )
+				throw new DataException( ResourceConstants.INVALID_CUSTOM_FIELD_INDEX,
+						Integer.valueOf( fieldIndex ) );
+			setValue( row, fieldIndex - 1, value );
+
+			if ( value != null
+					&& rsMeta.getFieldValueClass( fieldIndex )
+							.getName( )
+							.equals( AnyType.class.getName( ) ) )
+			{
+				( (ResultClass) rsMeta ).getFieldMetaData( fieldIndex )
+						.setDataType( value.getClass( ) );
+			}
+		}
+
+		public String toString( )
+		{
+			StringBuffer buf = new StringBuffer( columns.length * 10 );
+			for ( int i = 0; i < columns.length; i++ )
+			{
+				if ( i > 0 )
+					buf.append( ',' );
+				Object value = getValue( row, i );
+				buf.append( value == null ? "null" : value.toString( ) );
+			}
+			return buf.toString( );
+		}
+
+		public boolean equals( Object ob )
+		{
+			if ( ob instanceof IResultObject == false )
+				return false;
+
+			IResultObject ob2 = (IResultObject) ob;
+			if ( columns.length != ob2.getResultClass( ).getFieldCount( ) )
+				return false;
+
+			try
+			{
+				for ( int i = 0; i < columns.length; i++ )
+				{
+					if ( CompareUtil.compare( getValue( row, i ),
+							ob2.getFieldValue( i + 1 ) ) != 0 )
+						return false;
+				}
+			}
+			catch ( DataException e )
+			{
+				return false;
+			}
+			return true;
+		}
+
+		public int hashCode( )
+		{
+			int result = 17;
+			for ( int i = 0; i < columns.length; i++ )
+			{
+				Object value = getValue( row, i );
+				result = 37 * result + ( value == null ? 0 : value.hashCode( ) );
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The values of a column.
+	 */
+	static abstract class Column
+	{
+
+		/**
+		 * @return the value of the row, null if the row isn't set.
+		 */
+		abstract Object get( int row );
+
+		/**
+		 * @return false if the value can't be kept in this column.
+		 */
+		abstract boolean set( int row, Object value );
+
+		/**
+		 * @return the memory occupied by the column, in bytes.
+		 */
+		abstract long getMemorySize( );
+	}
+
+	/**
+	 * The column which keeps the values in primitive arrays, the null values
+	 * are marked in a bit set.
+	 */
+	static abstract class PrimitiveColumn extends Column
+	{
+
+		private long[][] presents = new long[16][];
+		private int chunkCount;
+		private int lastChunkCapacity;
+
+		/**
+		 * @return the size of a value kept in the primitive array, in bytes.
+		 */
+		abstract int getValueSize( );
+
+		/**
+		 * grow the value array of the chunk to the capacity.
+		 */
+		abstract void resizeChunk( int chunk, int capacity );
+
+		/**
+		 * grow the chunk directory to the size.
+		 */
+		abstract void resizeChunks( int size );
+
+		/**
+		 * @return the memory occupied by the values which aren't kept in the
+		 *         primitive arrays, in bytes.
+		 */
+		long getExtraMemorySize( )
+		{
+			return 0;
+		}
+
+		final boolean isPresent( int row )
+		{
+			int chunk = row >> CHUNK_SIZE_BITS;
+			int offset = row & CHUNK_MASK;
+			if ( chunk >= chunkCount
+					|| ( chunk == chunkCount - 1 && offset >= lastChunkCapacity ) )
+			{
+				return false;
+			}
+			return ( presents[chunk][offset >> 6] & ( 1L << offset ) ) != 0;
+		}
+
+		/**
+		 * ensure the row can be kept and mark whether its value is null.
+		 */
+		final void setPresent( int row, boolean present )
+		{
+			ensureCapacity( row );
+			int chunk = row >> CHUNK_SIZE_BITS;
+			int offset = row & CHUNK_MASK;
+			if ( present )
+			{
+				presents[chunk][offset >> 6] |= ( 1L << offset );
+			}
+			else
+			{
+				presents[chunk][offset >> 6] &= ~( 1L << offset );
+			}
+		}
+
+		private void ensureCapacity( int row )
+		{
+			int chunk = row >> CHUNK_SIZE_BITS;
+			int offset = row & CHUNK_MASK;
+			if ( chunk < chunkCount - 1
+					|| ( chunk == chunkCount - 1 && offset < lastChunkCapacity ) )
+			{
+				return;
+			}
+			if ( chunk >= chunkCount )
+			{
+				// the existing chunks are full
+				if ( chunkCount > 0 )
+				{
+					growChunk( chunkCount - 1, CHUNK_SIZE );
+				}
+				if ( chunk >= presents.length )
+				{
+					int size = Math.max( chunk + 1, presents.length * 2 );
+					presents = Arrays.copyOf( presents, size );
+					resizeChunks( size );
+				}
+				for ( int i = chunkCount; i < chunk; i++ )
+				{
+					growChunk( i, CHUNK_SIZE );
+				}
+				chunkCount = chunk + 1;
+				lastChunkCapacity = 0;
+			}
+			int capacity = Math.max( INITIAL_CAPACITY, lastChunkCapacity * 2 );
+			while ( capacity <= offset )
+			{
+				capacity *= 2;
+			}
+			growChunk( chunk, Math.min( CHUNK_SIZE, capacity ) );
+		}
+
+		private void growChunk( int chunk, int capacity )
+		{
+			resizeChunk( chunk, capacity );
+			int bitsSize = ( capacity + 63 ) >> 6;
+			presents[chunk] = presents[chunk] == null
+					? new long[bitsSize]
+					: Arrays.copyOf( presents[chunk], bitsSize );
+			if ( chunk == chunkCount - 1 || chunk >= chunkCount )
+			{
+				lastChunkCapacity = capacity;
+			}
+		}
+
+		long getMemorySize( )
+		{
+			if ( chunkCount == 0 )
+			{
+				return getExtraMemorySize( );
+			}
+			long capacity = ( (long) ( chunkCount - 1 ) << CHUNK_SIZE_BITS )
+					+ lastChunkCapacity;
+			long size = capacity * getValueSize( ) + ( ( capacity + 63 ) >> 6 ) * 8;
+			// two arrays for each chunk and two chunk directories
+			size += ( chunkCount * 2 + 2 )
+					* ( SizeOfUtil.PRIMITIVE_ARRAY_OVERHEAD + SizeOfUtil.POINTER_SIZE );
+			return size + getExtraMemorySize( );
+		}
+	}
+
+	static class IntColumn extends PrimitiveColumn
+	{
+
+		int[][] values = new int[16][];
+
+		Object get( int row )
+		{
+			return isPresent( row )
+					? Integer.valueOf( values[row >> CHUNK_SIZE_BITS][row & CHUNK_MASK] )
+					: null;
+		}
+
+		boolean set( int row, Object value )
+		{
+			if ( value != null && !( value instanceof Integer ) )
+			{
+				return false;
+			}
+			setPresent( row, value != null );
+			if ( value != null )
+			{
+				values[row >> CHUNK_SIZE_BITS][row & CHUNK_MASK] = ( (Integer) value ).intValue( );
+			}
+			return true;
+		}
+
+		int getValueSize( )
+		{
+			return 4;
+		}
+
+		void resizeChunk( int chunk, int capacity )
+		{
+			values[chunk] = values[chunk] == null ? new int[capacity]
+					: Arrays.copyOf( values[chunk], capacity );
+		}
+
+		void resizeChunks( int size )
+		{
+			values = Arrays.copyOf( values, size );
+		}
+	}
+
+	static class LongColumn extends PrimitiveColumn
+	{
+
+		long[][] values = new long[16][];
+
+		Object get( int row )
+		{
+			return isPresent( row ) ? toObject( getLong( row ) ) : null;
+		}
+
+		boolean set( int row, Object value )
+		{
+			if ( value != null && !accept( value ) )
+			{
+				return false;
+			}
+			setPresent( row, value != null );
+			if ( value != null )
+			{
+				values[row >> CHUNK_SIZE_BITS][row & CHUNK_MASK] = toLong( value );
+			}
+			return true;
+		}
+
+		final long getLong( int row )
+		{
+			return values[row >> CHUNK_SIZE_BITS][row & CHUNK_MASK];
+		}
+
+		boolean accept( Object value )
+		{
+			return value instanceof Long;
+		}
+
+		long toLong( Object value )
+		{
+			return ( (Long) value ).longValue( );
+		}
+
+		Object toObject( long value )
+		{
+			return Long.valueOf( value );
+		}
+
+		int getValueSize( )
+		{
+			return 8;
+		}
+
+		void resizeChunk( int chunk, int capacity )
+		{
+			values[chunk] = values[chunk] == null ? new long[capacity]
+					: Arrays.copyOf( values[chunk], capacity );
+		}
+
+		void resizeChunks( int size )
+		{
+			values = Arrays.copyOf( values, size );
+		}
+	}
+
+	static class DoubleColumn extends PrimitiveColumn
+	{
+
+		double[][] values = new double[16][];
+
+		Object get( int row )
+		{
+			return isPresent( row )
+					? Double.valueOf( values[row >> CHUNK_SIZE_BITS][row & CHUNK_MASK] )
+					: null;
+		}
+
+		boolean set( int row, Object value )
+		{
+			if ( value != null && !( value instanceof Double ) )
+			{
+				return false;
+			}
+			setPresent( row, value != null );
+			if ( value != null )
+			{
+				values[row >> CHUNK_SIZE_BITS][row & CHUNK_MASK] = ( (Double) value ).doubleValue( );
+			}
+			return true;
+		}
+
+		int getValueSize( )
+		{
+			return 8;
+		}
+
+		void resizeChunk( int chunk, int capacity )
+		{
+			values[chunk] = values[chunk] == null ? new double[capacity]
+					: Arrays.copyOf( values[chunk], capacity );
+		}
+
+		void resizeChunks( int size )
+		{
+			values = Arrays.copyOf( values, size );
+		}
+	}
+
+	/**
+	 * Keeps the date values as milliseconds. All the values of the column must
+	 * be of the same class, which is decided by the first value, and the
+	 * timestamps must not have sub millisecond nanos.
+	 */
+	static class DateColumn extends LongColumn
+	{
+
+		private Class dateClass;
+
+		boolean accept( Object value )
+		{
+			Class valueClass = value.getClass( );
+			if ( dateClass == null )
+			{
+				if ( valueClass != Date.class
+						&& valueClass != java.sql.Date.class
+						&& valueClass != Time.class
+						&& valueClass != Timestamp.class )
+				{
+					return false;
+				}
+				dateClass = valueClass;
+			}
+			else if ( valueClass != dateClass )
+			{
+				return false;
+			}
+			return !( value instanceof Timestamp )
+					|| ( (Timestamp) value ).getNanos( ) % 1000000 == 0;
+		}
+
+		long toLong( Object value )
+		{
+			return ( (Date) value ).getTime( );
+		}
+
+		Object toObject( long value )
+		{
+			if ( dateClass == Timestamp.class )
+			{
+				return new Timestamp( value );
+			}
+			if ( dateClass == java.sql.Date.class )
+			{
+				return new java.sql.Date( value );
+			}
+			if ( dateClass == Time.class )
+			{
+				return new Time( value );
+			}
+			return new Date( value );
+		}
+	}
+
+	/**
+	 * Keeps the strings as indexes into a dictionary, so the repeated strings
+	 * are kept only once.
+	 */
+	static class StringColumn extends PrimitiveColumn
+	{
+
+		int[][] values = new int[16][];
+		private Map<String, Integer> dictionary = new HashMap<String, Integer>( );
+		private List<String> strings = new ArrayList<String>( );
+		private long stringSize;
+		// the number of rows having a value
+		private int valueCount;
+
+		Object get( int row )
+		{
+			return isPresent( row )
+					? strings.get( values[row >> CHUNK_SIZE_BITS][row & CHUNK_MASK] )
+					: null;
+		}
+
+		boolean set( int row, Object value )
+		{
+			if ( value == null )
+			{
+				if ( isPresent( row ) )
+				{
+					valueCount--;
+				}
+				setPresent( row, false );
+				return true;
+			}
+			if ( !( value instanceof String ) )
+			{
+				return false;
+			}
+			Integer index = dictionary.get( value );
+			if ( index == null )
+			{
+				if ( strings.size( ) >= MAX_DICTIONARY_SIZE
+						&& strings.size( ) * 2 > valueCount )
+				{
+					// the values are mostly distinct, the dictionary doesn't
+					// save anything.
+					return false;
+				}
+				index = Integer.valueOf( strings.size( ) );
+				dictionary.put( (String) value, index );
+				strings.add( (String) value );
+				stringSize += SizeOfUtil.sizeOf( String.class, value );
+			}
+			if ( !isPresent( row ) )
+			{
+				valueCount++;
+			}
+			setPresent( row, true );
+			values[row >> CHUNK_SIZE_BITS][row & CHUNK_MASK] = index.intValue( );
+			return true;
+		}
+
+		int getValueSize( )
+		{
+			return 4;
+		}
+
+		long getExtraMemorySize( )
+		{
+			// each string is referenced by a map entry, an Integer and the
+			// list
+			int entrySize = SizeOfUtil.OBJECT_OVERHEAD * 3
+					+ SizeOfUtil.POINTER_SIZE * 6 + 8;
+			return stringSize + (long) strings.size( ) * entrySize;
+		}
+
+		void resizeChunk( int chunk, int capacity )
+		{
+			values[chunk] = values[chunk] == null ? new int[capacity]
+					: Arrays.copyOf( values[chunk], capacity );
+		}
+
+		void resizeChunks( int size )
+		{
+			values = Arrays.copyOf( values, size );
+		}
+	}
+
+	/**
+	 * Keeps the values as objects.
+	 */
+	static class ObjectColumn extends Column
+	{
+
+		private Object[][] values = new Object[16][];
+		private int chunkCount;
+		private long capacity;
+		private long valueSize;
+
+		ObjectColumn( )
+		{
+		}
+
+		/**
+		 * copy the values of the rows before rowCount from the column.
+		 */
+		ObjectColumn( Column column, int rowCount )
+		{
+			for ( int i = 0; i < rowCount; i++ )
+			{
+				Object value = column.get( i );
+				if ( value != null )
+				{
+					set( i, value );
+				}
+			}
+		}
+
+		Object get( int row )
+		{
+			int chunk = row >> CHUNK_SIZE_BITS;
+			int offset = row & CHUNK_MASK;
+			if ( chunk >= chunkCount || offset >= values[chunk].length )
+			{
+				return null;
+			}
+			return values[chunk][offset];
+		}
+
+		boolean set( int row, Object value )
+		{
+			int chunk = row >> CHUNK_SIZE_BITS;
+			int offset = row & CHUNK_MASK;
+			while ( chunk >= chunkCount )
+			{
+				if ( chunkCount > 0 )
+				{
+					// the existing chunks are full
+					resizeChunk( chunkCount - 1, CHUNK_SIZE );
+				}
+				if ( chunkCount == values.length )
+				{
+					values = Arrays.copyOf( values, values.length * 2 );
+				}
+				values[chunkCount++] = new Object[INITIAL_CAPACITY];
+				capacity += INITIAL_CAPACITY;
+			}
+			if ( offset >= values[chunk].length )
+			{
+				int newCapacity = values[chunk].length * 2;
+				while ( newCapacity <= offset )
+				{
+					newCapacity *= 2;
+				}
+				resizeChunk( chunk, Math.min( CHUNK_SIZE, newCapacity ) );
+			}
+			Object[] chunkValues = values[chunk];
+			Object oldValue = chunkValues[offset];
+			if ( oldValue != null )
+			{
+				valueSize -= SizeOfUtil.sizeOf( oldValue.getClass( ), oldValue );
+			}
+			if ( value != null )
+			{
+				valueSize += SizeOfUtil.sizeOf( value.getClass( ), value );
+			}
+			chunkValues[offset] = value;
+			return true;
+		}
+
+		private void resizeChunk( int chunk, int newCapacity )
+		{
+			capacity += newCapacity - values[chunk].length;
+			values[chunk] = Arrays.copyOf( values[chunk], newCapacity );
+		}
+
+		long getMemorySize( )
+		{
+			return chunkCount * SizeOfUtil.OBJECT_ARRAY_OVERHEAD + capacity
+					* SizeOfUtil.POINTER_SIZE + valueSize;
+		}
+	}
+}
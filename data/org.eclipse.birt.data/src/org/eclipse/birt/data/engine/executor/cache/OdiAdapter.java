@@ -199,6 +199,21 @@ public class OdiAdapter
 		return result;
 	}
 	
+	/**
+	 * Whether the rows can be fetched ahead of the fetch events. It's not
+	 * allowed if the source is a result iterator or a result set cache, since
+	 * the fetch events may read the current row of the source through the
+	 * bindings.
+	 * 
+	 * @return
+	 */
+	boolean supportsBatchFetch( )
+	{
+		return odaResultSet != null
+				|| datasetToCache != null
+				|| datasetFromCache != null;
+	}
+
 	/**
 	 * Fetch data from Oda or Odi. After the fetch is done, the cursor
 	 * must stay at the row which is fetched.
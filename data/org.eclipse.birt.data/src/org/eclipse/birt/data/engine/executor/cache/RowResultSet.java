@@ -10,9 +10,11 @@
  *******************************************************************************/
 package org.eclipse.birt.data.engine.executor.cache;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.odi.IBatchResultObjectEvent;
 import org.eclipse.birt.data.engine.odi.IResultClass;
 import org.eclipse.birt.data.engine.odi.IResultObject;
 import org.eclipse.birt.data.engine.odi.IResultObjectEvent;
@@ -21,6 +23,11 @@ import org.eclipse.birt.data.engine.odi.IResultObjectEvent;
  * This class simulates the mechanism of java.sql.ResultSet. Such an approach is
  * a passive model, which will give caller more flexibility for upper level
  * control. This feature is showed in DiskMergeSort.
+ * 
+ * If the request has a batch size, the rows of the data source can be fetched
+ * ahead and all the fetch events are IBatchResultObjectEvent, the rows are
+ * fetched and processed batch by batch, and the before/after process hooks are
+ * not called.
  */
 public class RowResultSet implements IRowResultSet
 {
@@ -49,6 +56,24 @@ public class RowResultSet implements IRowResultSet
 	private IResultObject nextResultObject;
 
 	private boolean finished = false;
+	
+	// the rows fetched and processed as one batch, null if the rows are
+	// processed one by one
+	private IResultObject[] batch;
+	
+	// the row index of each row in the batch
+	private int[] batchRowIndexes;
+	
+	// the positions of the rows accepted by the fetch events in the batch
+	private int[] selection;
+	
+	private int selectedCount;
+	
+	// the position in the selection vector of the next row to return
+	private int selectionIndex;
+	
+	private boolean fetchFinished = false;
+	
 	/**
 	 * Construction
 	 * 
@@ -72,6 +97,35 @@ public class RowResultSet implements IRowResultSet
 			maxRows = Integer.MAX_VALUE;
 		
 		this.distinctValueFlag = smartCacheRequest.getDistinctValueFlag( );		
+		
+		int batchSize = smartCacheRequest.getBatchSize( );
+		if ( batchSize > 1
+				&& odiAdpater != null && odiAdpater.supportsBatchFetch( )
+				&& isBatchEventList( eventList ) )
+		{
+			this.batch = new IResultObject[batchSize];
+			this.batchRowIndexes = new int[batchSize];
+			this.selection = new int[batchSize];
+		}
+	}
+	
+	/**
+	 * The rows can be processed in batch only if all the fetch events support
+	 * it
+	 * 
+	 * @param eventList
+	 * @return
+	 */
+	private static boolean isBatchEventList( List eventList )
+	{
+		if ( eventList == null || eventList.isEmpty( ) )
+			return false;
+		for ( int i = 0; i < eventList.size( ); i++ )
+		{
+			if ( !( eventList.get( i ) instanceof IBatchResultObjectEvent ) )
+				return false;
+		}
+		return true;
 	}
 
 	/**
@@ -112,6 +166,9 @@ public class RowResultSet implements IRowResultSet
 		if ( currIndex >= maxRows )
 			return null;
 
+		if ( batch != null )
+			return doNextInBatch( );
+
 		IResultObject odaObject = null;
 		while ( true )
 		{
@@ -145,6 +202,80 @@ public class RowResultSet implements IRowResultSet
 		return odiAdpater.fetch( );
 	}
 
+	/**
+	 * Return the next accepted row of the current batch, fetch and process a
+	 * new batch if the current one is used up.
+	 * 
+	 * @return
+	 * @throws DataException
+	 */
+	private IResultObject doNextInBatch( ) throws DataException
+	{
+		while ( true )
+		{
+			if ( selectionIndex >= selectedCount )
+			{
+				if ( !fetchBatch( ) )
+					return null;
+				continue;
+			}
+			IResultObject odaObject = batch[selection[selectionIndex++]];
+			if ( this.distinctValueFlag == true
+					&& isDuplicatedObject( odaObject ) )
+			{
+				continue;
+			}
+			currIndex++;
+			return odaObject;
+		}
+	}
+
+	/**
+	 * Fetch a batch of rows and pass it to the fetch events, which produce the
+	 * selection vector of the accepted rows.
+	 * 
+	 * @return false if there is no more rows to fetch
+	 * @throws DataException
+	 */
+	private boolean fetchBatch( ) throws DataException
+	{
+		Arrays.fill( batch, null );
+		selectionIndex = 0;
+		selectedCount = 0;
+		if ( fetchFinished )
+			return false;
+
+		// don't fetch more rows than the rows still needed
+		int size = Math.min( batch.length, maxRows - currIndex );
+		int count = 0;
+		while ( count < size )
+		{
+			IResultObject odaObject = fetch( );
+			if ( odaObject == null )
+			{
+				fetchFinished = true;
+				break;
+			}
+			actualIndex++;
+			batch[count] = odaObject;
+			batchRowIndexes[count] = actualIndex;
+			selection[count] = count;
+			count++;
+		}
+		if ( count == 0 )
+			return false;
+
+		selectedCount = count;
+		for ( int i = 0; i < eventList.size( ) && selectedCount > 0; i++ )
+		{
+			selectedCount = ( (IBatchResultObjectEvent) eventList.get( i ) ).process( batch,
+					batchRowIndexes,
+					selection,
+					selectedCount );
+		}
+		return true;
+	}
+
 	/**
 	 * Process onFetchEvent in such a time window that closely after data gotten
 	 * from data source and closely before data will be done grouping and
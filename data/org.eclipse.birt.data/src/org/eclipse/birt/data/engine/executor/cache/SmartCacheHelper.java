@@ -281,7 +281,9 @@ class SmartCacheHelper
 				cacheRequest.getFetchEvents( ),
 				odiAdpater,
 				rsMeta,
-				cacheRequest.getDistinctValueFlag( ) ) );
+				cacheRequest.getDistinctValueFlag( ),
+				CacheUtil.getBatchRowProcessingSize( eventHandler == null
+						? null : eventHandler.getAppContext( ) ) ) );
 		populateData( rowResultSet, rsMeta, cacheRequest.getSortSpec( ), cacheRequest.getCacheSize( ) );
 	}
 
@@ -307,6 +309,14 @@ class SmartCacheHelper
 		int maxRows = CacheUtil.getMaxRows( eventHandler == null ? null
 				: eventHandler.getAppContext( ) );
 		
+		// the rows are kept column by column, and the memory size is measured
+		// by the store
+		ColumnarRowStore rowStore = CacheUtil.isColumnarCacheEnabled( eventHandler == null
+				? null : eventHandler.getAppContext( ) )
+				? new ColumnarRowStore( rsMeta ) : null;
+		// the estimated size of the rows kept as result objects
+		long objectMemorySize = 0;
+		
 		IResultObject odaObject;
 		IResultObject[] resultObjects;
 		List resultObjectsList = new ArrayList( );
@@ -324,6 +334,16 @@ class SmartCacheHelper
 				{
 					throw new DataException( ResourceConstants.EXCEED_MAX_DATA_OBJECT_ROWS );
 				}
+				if ( rowStore != null )
+				{
+					rowStore.addRow( odaObject );
+					if ( memoryCacheSize != 0 )
+					{
+						usedMemorySize = rowStore.getMemorySize( );
+						objectMemorySize += sizeOfUtil.sizeOf( odaObject );
+					}
+					continue;
+				}
 				//the followed variable is for performance
 				int odaObjectFieldCount = odaObject.getResultClass( ).getFieldCount( );
 				int metaFieldCount = rsMeta.getFieldCount( );
@@ -352,6 +372,19 @@ class SmartCacheHelper
 			{
 				logger.fine( "DiskCache is used" );
 
+				if ( rowStore != null )
+				{
+					resultSetCache = spillColumnarData( rowStore,
+							odaObject,
+							rowResultSet,
+							rsMeta,
+							getComparator( sortSpec, eventHandler ),
+							memoryCacheSize,
+							objectMemorySize,
+							maxRows );
+					rowStore = null;
+					break;
+				}
 				resultObjects = (IResultObject[]) resultObjectsList.toArray( new IResultObject[0] );
 				// the order is: resultObjects, odaObject, rowResultSet
 				resultSetCache = new DiskCache( resultObjects,
@@ -361,12 +394,21 @@ class SmartCacheHelper
 						getComparator( sortSpec, eventHandler ),
 						dataCount,
 						maxRows,
-						this.session );
+						this.session,
+						eventHandler == null ? null
+								: eventHandler.getAppContext( ) );
 				break;
 			}
 		}
 
-		if ( resultSetCache == null )
+		if ( resultSetCache == null && rowStore != null )
+		{
+			logger.fine( "ColumnarMemoryCache is used" );
+
+			resultSetCache = new ColumnarMemoryCache( rowStore,
+					getComparator( sortSpec, eventHandler ) );
+		}
+		else if ( resultSetCache == null )
 		{
 			logger.fine( "MemoryCache is used" );
 
@@ -386,6 +428,116 @@ class SmartCacheHelper
 		logger.fine( "Time consumed by cache is: " + consumedTime + " second" );
 	}
 	
+	/**
+	 * Move the rows kept in the columnar store to DiskCache. DiskCache keeps
+	 * its sort units in memory as result objects, so the unit size is computed
+	 * from the estimated size of result objects rather than the rows in the
+	 * store, and the rows beyond the first unit are passed to DiskCache
+	 * together with the rest rows. The rows are copied out of the store, so
+	 * the store can be released once DiskCache is created.
+	 * 
+	 * @param rowStore
+	 * @param odaObject
+	 *            the first row not kept in the store
+	 * @param rowResultSet
+	 * @param rsMeta
+	 * @param comparator
+	 * @param memoryCacheSize
+	 * @param objectMemorySize
+	 *            the estimated size of the rows in the store when they are
+	 *            kept as result objects
+	 * @param maxRows
+	 * @return the disk cache
+	 * @throws DataException
+	 */
+	private ResultSetCache spillColumnarData( ColumnarRowStore rowStore,
+			IResultObject odaObject, IRowResultSet rowResultSet,
+			IResultClass rsMeta, Comparator comparator, long memoryCacheSize,
+			long objectMemorySize, int maxRows ) throws DataException
+	{
+		int dataCount = rowStore.getRowCount( );
+		int unitCount = dataCount;
+		if ( objectMemorySize > memoryCacheSize )
+		{
+			unitCount = (int) Math.max( 1, dataCount
+					* (double) memoryCacheSize / objectMemorySize );
+		}
+
+		IResultObject[] resultObjects = new IResultObject[unitCount];
+		for ( int i = 0; i < unitCount; i++ )
+		{
+			resultObjects[i] = rowStore.copyRow( i );
+		}
+		IResultObject nextObject = odaObject;
+		if ( unitCount < dataCount )
+		{
+			nextObject = rowStore.copyRow( unitCount );
+		}
+		ResultSetCache diskCache = new DiskCache( resultObjects,
+				nextObject,
+				new ColumnarRestRowResultSet( rowStore,
+						unitCount + 1,
+						odaObject,
+						rowResultSet ),
+				rsMeta,
+				comparator,
+				unitCount,
+				maxRows,
+				this.session,
+				eventHandler == null ? null : eventHandler.getAppContext( ) );
+		rowStore.close( );
+		return diskCache;
+	}
+
+	/**
+	 * Returns the rows in the columnar store starting from the given index,
+	 * then the first row not kept in the store and the rows of the underlying
+	 * row result set.
+	 */
+	private static class ColumnarRestRowResultSet implements IRowResultSet
+	{
+
+		private ColumnarRowStore rowStore;
+		private int rowIndex;
+		private IResultObject odaObject;
+		private IRowResultSet rowResultSet;
+
+		ColumnarRestRowResultSet( ColumnarRowStore rowStore, int rowIndex,
+				IResultObject odaObject, IRowResultSet rowResultSet )
+		{
+			this.rowStore = rowStore;
+			this.rowIndex = rowIndex;
+			this.odaObject = rowIndex > rowStore.getRowCount( ) ? null
+					: odaObject;
+			this.rowResultSet = rowResultSet;
+		}
+
+		public IResultClass getMetaData( )
+		{
+			return rowResultSet.getMetaData( );
+		}
+
+		public IResultObject next( ) throws DataException
+		{
+			if ( rowIndex < rowStore.getRowCount( ) )
+			{
+				return rowStore.copyRow( rowIndex++ );
+			}
+			if ( odaObject != null )
+			{
+				IResultObject resultObject = odaObject;
+				odaObject = null;
+				return resultObject;
+			}
+			return rowResultSet.next( );
+		}
+
+		public int getIndex( ) throws DataException
+		{
+			return rowResultSet.getIndex( );
+		}
+	}
+
 	/**
 	 * @param sortSpec
 	 * @return Comparator based on specified sortSpec, null indicates there is
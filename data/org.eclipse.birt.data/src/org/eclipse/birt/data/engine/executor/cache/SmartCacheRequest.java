@@ -24,6 +24,7 @@ public class SmartCacheRequest
 	private OdiAdapter odiAdpater;
 	private IResultClass resultClass;	
 	private boolean distinctValueFlag;
+	private int batchSize;
 
 	/**
 	 * @param maxRow
@@ -35,12 +36,34 @@ public class SmartCacheRequest
 	public SmartCacheRequest( int maxRow, List eventList,
 			OdiAdapter odiAdpater, IResultClass resultClass,
 			boolean distinctValueFlag )
+	{
+		this( maxRow,
+				eventList,
+				odiAdpater,
+				resultClass,
+				distinctValueFlag,
+				1 );
+	}
+
+	/**
+	 * @param maxRow
+	 * @param eventList
+	 * @param odiAdpater
+	 * @param resultClass
+	 * @param distinctValueFlag
+	 * @param batchSize
+	 *            how many rows are processed by the fetch events as one batch
+	 */
+	public SmartCacheRequest( int maxRow, List eventList,
+			OdiAdapter odiAdpater, IResultClass resultClass,
+			boolean distinctValueFlag, int batchSize )
 	{
 		this.maxRow = maxRow;
 		this.eventList = eventList;
 		this.odiAdpater = odiAdpater;
 		this.resultClass = resultClass;
 		this.distinctValueFlag = distinctValueFlag;
+		this.batchSize = batchSize;
 	}
 
 	/**
@@ -82,5 +105,13 @@ public class SmartCacheRequest
 	{
 		return distinctValueFlag;
 	}
+
+	/**
+	 * @return how many rows are processed by the fetch events as one batch
+	 */
+	public int getBatchSize( )
+	{
+		return batchSize;
+	}
 	
 }
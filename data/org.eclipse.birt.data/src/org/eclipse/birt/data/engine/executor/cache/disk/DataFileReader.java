@@ -15,6 +15,9 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.core.security.FileSecurity;
@@ -33,6 +36,10 @@ class DataFileReader
 	private FileInputStream fis;
 	private BufferedInputStream bis;
 
+	// the inflater of compressed file, null if the file is not compressed
+	private Inflater inflater;
+	private boolean compressed;
+
 	private ResultObjectUtil resultObjectUtil;
 	
 	/**
@@ -44,7 +51,22 @@ class DataFileReader
 	static DataFileReader newInstance( File file,
 			ResultObjectUtil resultObjectUtil )
 	{
-		return new DataFileReader( file, resultObjectUtil );
+		return new DataFileReader( file, resultObjectUtil, false );
+	}
+
+	/**
+	 * A util method to new instance of DataFileReader
+	 * 
+	 * @param file
+	 * @param resultObjectUtil
+	 * @param compressed
+	 *            whether the file is written by a compressed DataFileWriter
+	 * @return DataFileReader instance
+	 */
+	static DataFileReader newInstance( File file,
+			ResultObjectUtil resultObjectUtil, boolean compressed )
+	{
+		return new DataFileReader( file, resultObjectUtil, compressed );
 	}
 	
 	/**
@@ -52,9 +74,11 @@ class DataFileReader
 	 * 
 	 * @param file
 	 */
-	private DataFileReader( File file, ResultObjectUtil resultObjectUtil )
+	private DataFileReader( File file, ResultObjectUtil resultObjectUtil,
+			boolean compressed )
 	{
 		this.resultObjectUtil = resultObjectUtil;
+		this.compressed = compressed;
 		setReadFile( file );
 	}
 
@@ -97,7 +121,15 @@ class DataFileReader
 				// normally this exception will never be thrown
 				// since file will always exist
 			}
-			bis = new BufferedInputStream( fis );
+			InputStream is = fis;
+			if ( compressed )
+			{
+				inflater = new Inflater( );
+				is = new InflaterInputStream( fis,
+						inflater,
+						DataFileWriter.BUFFER_SIZE );
+			}
+			bis = new BufferedInputStream( is, DataFileWriter.BUFFER_SIZE );
 			isOpen = true;
 		}
 
@@ -123,6 +155,14 @@ class DataFileReader
 			{
 				// normally this exception will never be thrown
 			}
+			finally
+			{
+				if ( inflater != null )
+				{
+					inflater.end( );
+					inflater = null;
+				}
+			}
 		}
 	}
 
@@ -15,6 +15,9 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.core.security.FileSecurity;
@@ -33,7 +36,14 @@ class DataFileWriter
 	private FileOutputStream fos;
 	private BufferedOutputStream bos;
 
+	// the deflater of compressed file, null if the file is not compressed
+	private Deflater deflater;
+	private boolean compressed;
+
 	private ResultObjectUtil resultObjectUtil;
+
+	// the size of the buffers between the rows and the file
+	static final int BUFFER_SIZE = 64 * 1024;
 	
 	/**
 	 * A util method to new instance of DataFileWriter
@@ -44,7 +54,23 @@ class DataFileWriter
 	static DataFileWriter newInstance( File file,
 			ResultObjectUtil resultObjectUtil )
 	{
-		return new DataFileWriter( file, resultObjectUtil );
+		return new DataFileWriter( file, resultObjectUtil, false );
+	}
+
+	/**
+	 * A util method to new instance of DataFileWriter
+	 * 
+	 * @param file
+	 * @param resultObjectUtil
+	 * @param compressed
+	 *            whether the data is compressed, the file must be read by a
+	 *            DataFileReader with the same setting
+	 * @return DataFileWriter instance
+	 */
+	static DataFileWriter newInstance( File file,
+			ResultObjectUtil resultObjectUtil, boolean compressed )
+	{
+		return new DataFileWriter( file, resultObjectUtil, compressed );
 	}
 
 	/**
@@ -52,9 +78,11 @@ class DataFileWriter
 	 * 
 	 * @param file
 	 */
-	private DataFileWriter( File file, ResultObjectUtil resultObjectUtil )
+	private DataFileWriter( File file, ResultObjectUtil resultObjectUtil,
+			boolean compressed )
 	{
 		this.resultObjectUtil = resultObjectUtil;
+		this.compressed = compressed;
 		setWriteFile( file );
 	}
 	
@@ -98,7 +126,13 @@ class DataFileWriter
 				// normally this exception will never be thrown
 				// since file will always exist
 			}
-			bos = new BufferedOutputStream( fos );
+			OutputStream os = fos;
+			if ( compressed )
+			{
+				deflater = new Deflater( Deflater.BEST_SPEED );
+				os = new DeflaterOutputStream( fos, deflater, BUFFER_SIZE );
+			}
+			bos = new BufferedOutputStream( os, BUFFER_SIZE );
 			isOpen = true;
 		}
 
@@ -124,6 +158,14 @@ class DataFileWriter
 			{
 				// normally this exception will never be thrown
 			}
+			finally
+			{
+				if ( deflater != null )
+				{
+					deflater.end( );
+					deflater = null;
+				}
+			}
 		}
 	}
 
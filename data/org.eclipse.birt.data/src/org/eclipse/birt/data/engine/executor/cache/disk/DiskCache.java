@@ -74,6 +74,9 @@ public class DiskCache implements ResultSetCache
 	private static Logger logger = Logger.getLogger( DiskCache.class.getName( ) );
 	
 	protected DataEngineSession session;
+
+	// the app context of the query, it might be null
+	private Map appContext;
 	
 	private boolean needCache;
 	private BufferedStructureArray cache;
@@ -99,9 +102,40 @@ public class DiskCache implements ResultSetCache
 			IRowResultSet rowResultSet, IResultClass rsMeta,
 			Comparator comparator, int MemoryCacheRowCount,int maxRows, DataEngineSession session )
 			throws DataException
+	{
+		this( resultObjects,
+				resultObject,
+				rowResultSet,
+				rsMeta,
+				comparator,
+				MemoryCacheRowCount,
+				maxRows,
+				session,
+				null );
+	}
+
+	/**
+	 * @param resultObjects
+	 * @param resultObject
+	 * @param rowResultSet
+	 * @param rsMeta
+	 * @param comparator
+	 * @param MemoryCacheRowCount
+	 * @param maxRows
+	 * @param session
+	 * @param appContext
+	 *            the app context which decides whether the disk based sort is
+	 *            parallel and whether the temp files are compressed
+	 * @throws DataException
+	 */
+	public DiskCache( IResultObject[] resultObjects, IResultObject resultObject,
+			IRowResultSet rowResultSet, IResultClass rsMeta,
+			Comparator comparator, int MemoryCacheRowCount, int maxRows,
+			DataEngineSession session, Map appContext ) throws DataException
 	{
 		//this.rsMeta = rsMeta;
 		this.MemoryCacheRowCount = MemoryCacheRowCount;
+		this.appContext = appContext;
 		this.rsMeta = rsMeta;
 		this.session = session;
 		this.diskBasedResultSet = new DiskCacheResultSet( getInfoMap( ), session );
@@ -359,6 +393,10 @@ public class DiskCache implements ResultSetCache
 		goalFileStr = getGoalFileStr( );
 		infoMap.put( "goalFile", goalFileStr );
 		infoMap.put( "dataCountOfUnit", "" + MemoryCacheRowCount );
+		infoMap.put( "parallelSortCount", ""
+				+ CacheUtil.getParallelDiskSortCount( appContext ) );
+		infoMap.put( "compressTempFile", ""
+				+ CacheUtil.isDiskCacheCompressed( appContext ) );
 
 		return infoMap;
 	}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.executor.cache.disk;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.i18n.ResourceConstants;
+
+/**
+ * The thread pool shared by all disk based sorts. The tasks run on it only
+ * write and read the temporary row files, the rows are always compared in the
+ * query thread since the comparator may evaluate script expressions.
+ */
+final class DiskSortExecutor
+{
+
+	private static ExecutorService executor;
+
+	private DiskSortExecutor( )
+	{
+	}
+
+	/**
+	 * Submits a task to the shared pool. The task runs with the context class
+	 * loader of the caller, which is used to deserialize java objects.
+	 *
+	 * @param task
+	 * @return the future of the task
+	 */
+	static <T> Future<T> submit( final Callable<T> task )
+	{
+		final ClassLoader classLoader = Thread.currentThread( )
+				.getContextClassLoader( );
+		return getExecutor( ).submit( new Callable<T>( ) {
+
+			public T call( ) throws Exception
+			{
+				Thread thread = Thread.currentThread( );
+				ClassLoader oldClassLoader = thread.getContextClassLoader( );
+				thread.setContextClassLoader( classLoader );
+				try
+				{
+					return task.call( );
+				}
+				finally
+				{
+					thread.setContextClassLoader( oldClassLoader );
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Waits for a task and rethrows its failure.
+	 *
+	 * @param future
+	 * @return the result of the task
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	static <T> T waitFor( Future<T> future ) throws IOException,
+			DataException
+	{
+		try
+		{
+			return future.get( );
+		}
+		catch ( InterruptedException e )
+		{
+			future.cancel( true );
+			Thread.currentThread( ).interrupt( );
+			throw new DataException( ResourceConstants.WRITE_TEMPFILE_ERROR,
+					e );
+		}
+		catch ( ExecutionException e )
+		{
+			Throwable cause = e.getCause( );
+			if ( cause instanceof IOException )
+				throw (IOException) cause;
+			if ( cause instanceof DataException )
+				throw (DataException) cause;
+			if ( cause instanceof RuntimeException )
+				throw (RuntimeException) cause;
+			if ( cause instanceof Error )
+				throw (Error) cause;
+			throw new DataException( ResourceConstants.WRITE_TEMPFILE_ERROR,
+					cause );
+		}
+	}
+
+	/**
+	 * Waits for a task which result is no longer needed, the failure of the
+	 * task is ignored.
+	 *
+	 * @param future
+	 */
+	static void waitQuietly( Future<?> future )
+	{
+		try
+		{
+			future.get( );
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread( ).interrupt( );
+		}
+		catch ( ExecutionException e )
+		{
+		}
+	}
+
+	private static synchronized ExecutorService getExecutor( )
+	{
+		if ( executor == null )
+		{
+			executor = Executors.newFixedThreadPool( Runtime.getRuntime( )
+					.availableProcessors( ), new ThreadFactory( ) {
+
+				private AtomicInteger threadCount = new AtomicInteger( );
+
+				public Thread newThread( Runnable runnable )
+				{
+					Thread thread = new Thread( runnable, "BIRT-DiskSort-"
+							+ threadCount.incrementAndGet( ) );
+					thread.setDaemon( true );
+					return thread;
+				}
+			} );
+		}
+		return executor;
+	}
+}
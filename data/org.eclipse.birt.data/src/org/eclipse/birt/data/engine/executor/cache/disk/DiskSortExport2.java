@@ -14,8 +14,11 @@ package org.eclipse.birt.data.engine.executor.cache.disk;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.executor.cache.IRowResultSet;
@@ -48,6 +51,13 @@ class DiskSortExport2 extends DiskDataExport
 	// the goal file
 	private IRowIterator goalRowIterator = null;
 
+	// the max number of units written in background at the same time, 0 if
+	// the units are written in the current thread
+	private int parallelCount;
+
+	// the units being written in background, the oldest is the first
+	private LinkedList<Future<Object>> pendingUnits = new LinkedList<Future<Object>>( );
+
 	/**
 	 * @param dataProvider
 	 */
@@ -65,8 +75,12 @@ class DiskSortExport2 extends DiskDataExport
 
 		rowBuffer = new IResultObject[dataCountOfUnit];
 
+		if ( infoMap.get( "parallelSortCount" ) != null )
+			parallelCount = Integer.parseInt( (String) infoMap.get( "parallelSortCount" ) );
+
 		tempFileUtil = new MergeTempFileUtil( (String) ( infoMap.get( "tempDir" ) ),
-				resultObjectUtil );
+				resultObjectUtil,
+				"true".equals( infoMap.get( "compressTempFile" ) ) );
 
 		mergeSortUtil = MergeSortUtil.getUtil( comparator );
 		
@@ -101,15 +115,24 @@ class DiskSortExport2 extends DiskDataExport
 				dataCountOfUnit,
 				maxRows );
 			dataCountOfTotal += dataCountOfRest;
+			waitForPendingUnits( );
 
 			MergeSortImpl mergeSortImpl = new MergeSortImpl( this.dataCountOfUnit,
 				this.mergeSortUtil,
 				this.tempFileUtil,
-				this.currRowFiles, session );
+				this.currRowFiles,
+				session,
+				parallelCount > 0 );
 			this.goalRowIterator = mergeSortImpl.mergeSortOnUnits( );
 		}
+		catch( DataException de )
+		{
+			clearPendingUnits( );
+			throw de;
+		}
 		catch( IOException ie )
 		{
+			clearPendingUnits( );
 			for( int i = 0; i < currRowFiles.size( ); i++ )
 			{
 				( ( RowFile )currRowFiles.get( i ) ).close( );
@@ -164,6 +187,12 @@ class DiskSortExport2 extends DiskDataExport
 	 */
 	private void addNewRow( IResultObject resultObject ) throws IOException, DataException
 	{
+		if ( parallelCount > 0 )
+		{
+			addNewRowInParallel( resultObject );
+			return;
+		}
+		
 		if ( inMemoryPos == dataCountOfUnit - 1 )
 		{
 			prepareNewTempRowFile( 0 );
@@ -183,6 +212,12 @@ class DiskSortExport2 extends DiskDataExport
 	 */
 	private void processLastUnit( ) throws IOException, DataException
 	{
+		if ( parallelCount > 0 )
+		{
+			processLastUnitInParallel( );
+			return;
+		}
+		
 		// Now all the rest rows exist in memory.
 		rowBuffer = interchange( rowBuffer, inMemoryPos );
 		mergeSortUtil.sortSelf( rowBuffer );
@@ -198,6 +233,116 @@ class DiskSortExport2 extends DiskDataExport
 		getCurrTempFile( currRowFiles ).endWrite( );
 	}
 
+	/**
+	 * Add a row when the units are written in background. The rows are sorted
+	 * in the current thread, since the comparator may evaluate script
+	 * expressions which are bound to the current thread, then a new buffer is
+	 * used while the sorted unit is written.
+	 * 
+	 * @param resultObject
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private void addNewRowInParallel( IResultObject resultObject )
+			throws IOException, DataException
+	{
+		if ( inMemoryPos == dataCountOfUnit - 1 )
+		{
+			mergeSortUtil.sortSelf( rowBuffer );
+			writeUnitInBackground( rowBuffer );
+			rowBuffer = new IResultObject[dataCountOfUnit];
+			inMemoryPos = -1;
+		}
+
+		inMemoryPos++;
+		rowBuffer[inMemoryPos] = resultObject;
+	}
+
+	/**
+	 * Write a sorted unit to a new temporary file in the shared disk sort pool.
+	 * If there are too many units being written, wait for the oldest one
+	 * first, so the memory used by the units is bounded.
+	 * 
+	 * @param rows
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private void writeUnitInBackground( final IResultObject[] rows )
+			throws IOException, DataException
+	{
+		if ( pendingUnits.size( ) >= parallelCount )
+		{
+			DiskSortExecutor.waitFor( pendingUnits.removeFirst( ) );
+		}
+
+		// the temp file is created in the current thread, since it registers
+		// itself to the close listener of the current thread
+		final RowFile rowFile = tempFileUtil.newTempFile( 0 );
+		currRowFiles.add( rowFile );
+		pendingUnits.add( DiskSortExecutor.submit( new Callable<Object>( ) {
+
+			public Object call( ) throws Exception
+			{
+				rowFile.writeRows( rows, rows.length );
+				rowFile.endWrite( );
+				return null;
+			}
+		} ) );
+	}
+
+	/**
+	 * Process the last unit when the units are written in background. The
+	 * last unit is written in the current thread, and most of its rows are
+	 * kept in the memory cache of the temp file.
+	 * 
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private void processLastUnitInParallel( ) throws IOException,
+			DataException
+	{
+		IResultObject[] lastRows = new IResultObject[inMemoryPos + 1];
+		System.arraycopy( rowBuffer, 0, lastRows, 0, lastRows.length );
+		rowBuffer = null;
+		mergeSortUtil.sortSelf( lastRows );
+
+		int cacheSize = 0;
+		if ( currRowFiles.size( ) <= dataCountOfUnit )
+			cacheSize = dataCountOfUnit - currRowFiles.size( );
+		RowFile rowFile = tempFileUtil.newTempFile( cacheSize );
+		currRowFiles.add( rowFile );
+
+		inMemoryPos = -1;
+		rowFile.writeRows( lastRows, lastRows.length );
+		rowFile.endWrite( );
+	}
+
+	/**
+	 * Wait until all the units are written.
+	 * 
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private void waitForPendingUnits( ) throws IOException, DataException
+	{
+		while ( !pendingUnits.isEmpty( ) )
+		{
+			DiskSortExecutor.waitFor( pendingUnits.removeFirst( ) );
+		}
+	}
+
+	/**
+	 * Wait until all the units are finished and ignore their failures, so the
+	 * temp files can be closed safely.
+	 */
+	private void clearPendingUnits( )
+	{
+		while ( !pendingUnits.isEmpty( ) )
+		{
+			DiskSortExecutor.waitQuietly( pendingUnits.removeFirst( ) );
+		}
+	}
+
 	/**
 	 * To switch the place of rows in array by a postion.
 	 * 
@@ -272,6 +417,7 @@ class DiskSortExport2 extends DiskDataExport
 	 */
 	public void close( )
 	{
+		clearPendingUnits( );
 		tempFileUtil.clearTempDir( );
 	}
 	
@@ -33,7 +33,14 @@ class MergeSortImpl
 	// this value, max.
 	private final static int maxOpenFile = 500;
 	
+	// The max number of objects read ahead from one temp file at one time
+	private final static int maxPrefetchCount = 1024;
+	
 	private DataEngineSession session;
+	
+	// whether the temp files are read ahead in background
+	private boolean prefetch;
+	
 	/**
 	 * @param dataCountOfUnit
 	 * @param mergeSortUtil
@@ -42,12 +49,35 @@ class MergeSortImpl
 	 */
 	MergeSortImpl( int dataCountOfUnit, MergeSortUtil mergeSortUtil,
 			MergeTempFileUtil tempFileUtil, List tempRowFiles, DataEngineSession session )
+	{
+		this( dataCountOfUnit,
+				mergeSortUtil,
+				tempFileUtil,
+				tempRowFiles,
+				session,
+				false );
+	}
+	
+	/**
+	 * @param dataCountOfUnit
+	 * @param mergeSortUtil
+	 * @param tempFileUtil
+	 * @param tempRowFiles
+	 * @param session
+	 * @param prefetch
+	 *            whether the temp files are read ahead in the shared disk
+	 *            sort pool
+	 */
+	MergeSortImpl( int dataCountOfUnit, MergeSortUtil mergeSortUtil,
+			MergeTempFileUtil tempFileUtil, List tempRowFiles,
+			DataEngineSession session, boolean prefetch )
 	{
 		this.dataCountOfUnit = dataCountOfUnit;
 		this.mergeSortUtil = mergeSortUtil;
 		this.tempFileUtil = tempFileUtil;
 		this.tempRowFiles = tempRowFiles;
 		this.session = session;
+		this.prefetch = prefetch;
 	}
 	
 	/**
@@ -70,9 +100,9 @@ class MergeSortImpl
 			granularity = getMergeGranularity( );
 			if ( granularity == tempRowFiles.size( ) )
 			{
-				goalFile = new MergeSortRowFiles( getSubList( tempRowFiles,
+				goalFile = new MergeSortRowFiles( getSourceIterators( getSubList( tempRowFiles,
 						0,
-						tempRowFiles.size( ) - 1 ), mergeSortUtil );
+						tempRowFiles.size( ) - 1 ) ), mergeSortUtil );
 				tempRowFiles.clear( );
 				finish = true;
 			}
@@ -145,6 +175,29 @@ class MergeSortImpl
 		return rowFiles;
 	}
 
+	/**
+	 * Get the iterators to merge the temp files. If prefetch is used, each
+	 * file keeps at most two batches in memory, so the objects kept for all the
+	 * files are no more than dataCountOfUnit.
+	 * 
+	 * @param rowFiles
+	 * @return
+	 */
+	private IRowIterator[] getSourceIterators( RowFile[] rowFiles )
+	{
+		if ( !prefetch )
+			return rowFiles;
+
+		int batchSize = Math.min( maxPrefetchCount, dataCountOfUnit
+				/ ( 2 * Math.max( rowFiles.length, 1 ) ) );
+		IRowIterator[] iterators = new IRowIterator[rowFiles.length];
+		for ( int i = 0; i < rowFiles.length; i++ )
+		{
+			iterators[i] = new PrefetchRowIterator( rowFiles[i], batchSize );
+		}
+		return iterators;
+	}
+
 	/**
 	 * merge rows in multi files to one file.
 	 * 
@@ -156,7 +209,7 @@ class MergeSortImpl
 	private void mergeRowFiles( RowFile[] sourceFiles, RowFile targetFile )
 			throws IOException, DataException
 	{
-		MergeSortRowFiles mergeSortRowSet = new MergeSortRowFiles( sourceFiles,
+		MergeSortRowFiles mergeSortRowSet = new MergeSortRowFiles( getSourceIterators( sourceFiles ),
 				mergeSortUtil );
 		IResultObject resultObject = mergeSortRowSet.fetch( );
 		while ( resultObject != null )
@@ -12,7 +12,6 @@
 package org.eclipse.birt.data.engine.executor.cache.disk;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Comparator;
 
 import org.eclipse.birt.data.engine.core.DataException;
@@ -22,14 +21,23 @@ import org.eclipse.birt.data.engine.odi.IResultObject;
  * Provide the service of sorting objects existed in several files. The objects
  * in every file are sorted. It makes the reading objects transparent to
  * DiskMergeSort.
+ * 
+ * The files are merged with a tournament tree of losers, so each object
+ * fetched costs log(n) comparisons for n files. The objects which are equal
+ * are returned in the order of the files.
  */
 class MergeSortRowFiles implements IRowIterator
 {
 	private IRowIterator[] subRowIterators = null;
-	private MergeSortUtil mergeSortUtil = null;
-	private ValueIndex[] rowBuffer = null;
-	private ValueIndex mValueIndex = null;
-	private int rowBufferSize = 0;
+	private Comparator comparator = null;
+
+	// the current object of each sub iterator, null if it is exhausted
+	private IResultObject[] currentRows = null;
+
+	// tree[0] is the index of the winner, and tree[1..n-1] are the indexes of
+	// the losers of the internal nodes. The leaf of sub iterator i is the node
+	// n + i.
+	private int[] tree = null;
 	
 	/**
 	 * @param rowFiles
@@ -41,8 +49,7 @@ class MergeSortRowFiles implements IRowIterator
 		assert subRowIterators != null;
 		
 		this.subRowIterators = subRowIterators;
-		this.mergeSortUtil = mergeSortUtil;
-		this.mValueIndex = new ValueIndex( null, 0, mergeSortUtil.getComparator( ) );
+		this.comparator = mergeSortUtil.getComparator( );
 	}
 	
 	/*
@@ -57,7 +64,8 @@ class MergeSortRowFiles implements IRowIterator
 			subRowIterators[i].reset( );
 		}
 		
-		rowBuffer = null;
+		tree = null;
+		currentRows = null;
 	}
 
 	/*
@@ -65,52 +73,36 @@ class MergeSortRowFiles implements IRowIterator
 	 */
 	public IResultObject fetch( ) throws IOException, DataException
 	{	
-		if ( rowBuffer == null )
+		if ( tree == null )
 		{
 			prepareFirstFetch( );
 		}
-		if ( rowBufferSize == 0 )
+		if ( subRowIterators.length == 0 )
 		{
 			return null;
 		}
 		
-		ValueIndex reObj = rowBuffer[0];
-		IResultObject value = reObj.value;
-		
-		IResultObject readValue = subRowIterators[reObj.index].fetch( );
-		if( readValue == null )
+		int winner = tree[0];
+		IResultObject value = currentRows[winner];
+		if ( value == null )
 		{
-			rowBufferSize--;
-			if( rowBufferSize > 0 )
-			{
-				ValueIndex[] tBuffer = new ValueIndex[rowBufferSize];
-				System.arraycopy( rowBuffer, 1, tBuffer, 0, rowBufferSize );
-				rowBuffer = tBuffer;
-			}
+			return null;
 		}
-		else
+		
+		currentRows[winner] = subRowIterators[winner].fetch( );
+		
+		// replay the matches from the leaf of the winner to the root
+		int count = subRowIterators.length;
+		for ( int node = ( winner + count ) >> 1; node > 0; node >>= 1 )
 		{
-			int pos = 0;
-			mValueIndex.value = readValue;
-			mValueIndex.index = reObj.index;
-			if( rowBufferSize > 1 )
+			if ( isBefore( tree[node], winner ) )
 			{
-				pos = Arrays.binarySearch( rowBuffer, mValueIndex );
-				
-				if( pos < 0 )
-					pos = ( pos + 1 ) * -1;
-				pos--;
-				if( pos == -1 )
-					pos = 0;
-
-				if( pos > 0 )
-				{
-					System.arraycopy( rowBuffer, 1 , rowBuffer, 0, pos );
-				}
+				int loser = winner;
+				winner = tree[node];
+				tree[node] = loser;
 			}
-			rowBuffer[pos] = mValueIndex;
-			mValueIndex = reObj;
 		}
+		tree[0] = winner;
 		return value;
 	}
 	
@@ -120,25 +112,64 @@ class MergeSortRowFiles implements IRowIterator
 	 */
 	private void prepareFirstFetch( ) throws IOException, DataException
 	{
-		rowBuffer = new ValueIndex[subRowIterators.length];
-		
-		for ( int i = 0; i < rowBuffer.length; i++ )
+		int count = subRowIterators.length;
+		currentRows = new IResultObject[count];
+		for ( int i = 0; i < count; i++ )
 		{
-			IResultObject value = subRowIterators[i].fetch( );
-			if( value != null )
-				rowBuffer[i] = new ValueIndex( value, i, this.mergeSortUtil.getComparator( ) );;
+			currentRows[i] = subRowIterators[i].fetch( );
 		}
-		rowBufferSize = 0;
-		for ( int i = 0; i < rowBuffer.length; i++ )
+		tree = new int[Math.max( count, 1 )];
+		if ( count > 0 )
 		{
-			if( rowBuffer[i] != null )
-			{
-				rowBuffer[rowBufferSize] = rowBuffer[i];
-				rowBufferSize++;
-			}
+			tree[0] = playMatches( 1 );
 		}
-		Arrays.sort( rowBuffer, 0, rowBufferSize );
-		
+	}
+	
+	/**
+	 * Plays the matches of the subtree of a node, and records the losers.
+	 * 
+	 * @param node
+	 * @return the index of the winner of the subtree
+	 */
+	private int playMatches( int node )
+	{
+		int count = subRowIterators.length;
+		if ( node >= count )
+		{
+			return node - count;
+		}
+		int left = playMatches( node * 2 );
+		int right = playMatches( node * 2 + 1 );
+		if ( isBefore( right, left ) )
+		{
+			tree[node] = left;
+			return right;
+		}
+		tree[node] = right;
+		return left;
+	}
+	
+	/**
+	 * @param index1
+	 * @param index2
+	 * @return whether the current object of the sub iterator index1 is
+	 *         returned before the one of index2. The exhausted sub iterators
+	 *         are after all the others.
+	 */
+	private boolean isBefore( int index1, int index2 )
+	{
+		IResultObject row1 = currentRows[index1];
+		IResultObject row2 = currentRows[index2];
+		if ( row1 == null || row2 == null )
+		{
+			if ( row1 == row2 )
+				return index1 < index2;
+			return row2 == null;
+		}
+		int result = comparator.compare( row1, row2 );
+		if ( result == 0 )
+			return index1 < index2;
+		return result < 0;
 	}
 	
 	/*
@@ -154,38 +185,7 @@ class MergeSortRowFiles implements IRowIterator
 		}
 		
 		subRowIterators = null;
-	}
-
-	static class ValueIndex implements Comparable
-	{
-		IResultObject value;
-		int index;
-		private Comparator comparator;
-		
-		ValueIndex( IResultObject value, int index, Comparator comparator )
-		{
-			this.value = value;
-			this.index = index;
-			this.comparator = comparator;
-		}
-
-		public int compareTo(Object o)
-		{
-			ValueIndex other = ( ( ValueIndex ) o );
-			int result = comparator.compare( value, other.value  );
-			if( result == 0 )
-			{
-				if( index > other.index )
-					return 1;
-				else if( index == other.index )
-					return 0;
-				else 
-					return -1;
-					
-			}
-			return result;
-		}
+		currentRows = null;
 	}
 	
 }
-
@@ -27,6 +27,9 @@ class MergeTempFileUtil
 	// result object util
 	private ResultObjectUtil resultObjectUtil;
 
+	// whether the temp files are compressed
+	private boolean compressed;
+
 	// record current level and index of temp file. They are used to produce
 	// file name for temp file.
 	private int curLevel = 0;
@@ -40,9 +43,21 @@ class MergeTempFileUtil
 	 * @param resultObjectUtil
 	 */
 	MergeTempFileUtil( String tempDirStr, ResultObjectUtil resultObjectUtil )
+	{
+		this( tempDirStr, resultObjectUtil, false );
+	}
+
+	/**
+	 * @param tempDirStr
+	 * @param resultObjectUtil
+	 * @param compressed
+	 */
+	MergeTempFileUtil( String tempDirStr, ResultObjectUtil resultObjectUtil,
+			boolean compressed )
 	{
 		this.tempDirStr = tempDirStr;
 		this.resultObjectUtil = resultObjectUtil;
+		this.compressed = compressed;
 
 		File tempDir = new File( tempDirStr );
 		if ( FileSecurity.fileExist( tempDir ) == false )
@@ -62,7 +77,8 @@ class MergeTempFileUtil
 		return new RowFile( new File( tempDirStr, tempFilePrefix
 				+ "_" + curLevel + "_" + curIndex++ ),
 				resultObjectUtil,
-				cacheSize );
+				cacheSize,
+				compressed );
 	}
 	
 	/**
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.executor.cache.disk;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.odi.IResultObject;
+
+/**
+ * Reads the objects of another row iterator in batches in the shared disk sort
+ * pool. While the objects of one batch are fetched, the next batch is read in
+ * background, so reading and deserializing the objects of the row files are
+ * overlapped with merging them. At most one batch is read at one time, and the
+ * wrapped iterator is never accessed by two threads at the same time.
+ */
+class PrefetchRowIterator implements IRowIterator
+{
+	private IRowIterator rowIterator;
+	private int batchSize;
+
+	private IResultObject[] batch;
+	private int batchPos;
+
+	// the batch being read in background, null if no batch is being read
+	private Future<IResultObject[]> nextBatch;
+	private boolean exhausted;
+
+	/**
+	 * @param rowIterator
+	 * @param batchSize
+	 *            how many objects are read in one batch
+	 */
+	PrefetchRowIterator( IRowIterator rowIterator, int batchSize )
+	{
+		assert rowIterator != null;
+
+		this.rowIterator = rowIterator;
+		this.batchSize = Math.max( batchSize, 1 );
+		readNextBatch( );
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.executor.cache.disk.IRowIterator#fetch()
+	 */
+	public IResultObject fetch( ) throws IOException, DataException
+	{
+		if ( batch == null || batchPos >= batch.length )
+		{
+			if ( nextBatch == null )
+				return null;
+
+			Future<IResultObject[]> future = nextBatch;
+			nextBatch = null;
+			batch = DiskSortExecutor.waitFor( future );
+			batchPos = 0;
+			if ( batch.length < batchSize )
+				exhausted = true;
+			else
+				readNextBatch( );
+			if ( batch.length == 0 )
+				return null;
+		}
+		return batch[batchPos++];
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.executor.cache.disk.IRowIterator#reset()
+	 */
+	public void reset( ) throws DataException
+	{
+		cancelNextBatch( );
+		rowIterator.reset( );
+		batch = null;
+		exhausted = false;
+		readNextBatch( );
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.executor.cache.disk.IRowIterator#close()
+	 */
+	public void close( ) throws DataException
+	{
+		cancelNextBatch( );
+		batch = null;
+		rowIterator.close( );
+	}
+
+	/**
+	 * Starts to read the next batch in background.
+	 */
+	private void readNextBatch( )
+	{
+		if ( exhausted )
+			return;
+
+		nextBatch = DiskSortExecutor.submit( new Callable<IResultObject[]>( ) {
+
+			public IResultObject[] call( ) throws Exception
+			{
+				IResultObject[] rows = new IResultObject[batchSize];
+				int count = 0;
+				while ( count < batchSize )
+				{
+					IResultObject row = rowIterator.fetch( );
+					if ( row == null )
+						break;
+					rows[count++] = row;
+				}
+				if ( count < batchSize )
+				{
+					IResultObject[] lastRows = new IResultObject[count];
+					System.arraycopy( rows, 0, lastRows, 0, count );
+					return lastRows;
+				}
+				return rows;
+			}
+		} );
+	}
+
+	/**
+	 * Waits for the batch being read, so the wrapped iterator can be accessed
+	 * in the current thread.
+	 */
+	private void cancelNextBatch( )
+	{
+		if ( nextBatch != null )
+		{
+			DiskSortExecutor.waitQuietly( nextBatch );
+			nextBatch = null;
+		}
+	}
+}
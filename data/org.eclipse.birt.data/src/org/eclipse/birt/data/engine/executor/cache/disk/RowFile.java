@@ -38,6 +38,9 @@ class RowFile implements IRowIterator, ICloseListener
 	
 	private DataFileReader dfr = null;
 	private DataFileWriter dfw = null;
+
+	// whether the rows written to file are compressed
+	private boolean compressed;
 	
 	/**
 	 * 
@@ -46,11 +49,25 @@ class RowFile implements IRowIterator, ICloseListener
 	 * @param cacheSize
 	 */
 	RowFile( File file, ResultObjectUtil resultObjectUtil, int cacheSize )
+	{
+		this( file, resultObjectUtil, cacheSize, false );
+	}
+
+	/**
+	 * 
+	 * @param file
+	 * @param resultObjectUtil
+	 * @param cacheSize
+	 * @param compressed
+	 */
+	RowFile( File file, ResultObjectUtil resultObjectUtil, int cacheSize,
+			boolean compressed )
 	{
 		assert file != null;
 		
 		this.tempFile = file;
 		this.resultObjectUtil = resultObjectUtil;
+		this.compressed = compressed;
 		setCacheSize( cacheSize );
 		DataEngineThreadLocal.getInstance( ).getCloseListener( ).add( this );
 	}
@@ -164,7 +181,9 @@ class RowFile implements IRowIterator, ICloseListener
 	 */
 	private void createWriter( )
 	{
-		dfw = DataFileWriter.newInstance( tempFile, resultObjectUtil );
+		dfw = DataFileWriter.newInstance( tempFile,
+				resultObjectUtil,
+				compressed );
 	}
 
 	/**
@@ -256,7 +275,9 @@ class RowFile implements IRowIterator, ICloseListener
 		if ( dfr != null )
 			dfr.close( );
 		
-		dfr = DataFileReader.newInstance( tempFile, resultObjectUtil );
+		dfr = DataFileReader.newInstance( tempFile,
+				resultObjectUtil,
+				compressed );
 	}
 	
 	/*
@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 
+import org.eclipse.birt.core.script.CompiledScriptCache;
 import org.eclipse.birt.core.script.ScriptContext;
 import org.eclipse.birt.data.engine.api.IBaseExpression;
 import org.eclipse.birt.data.engine.api.IConditionalExpression;
@@ -52,6 +53,11 @@ abstract class AbstractExpressionCompiler
 	
 	private IScriptExpression scriptExpr;
 	
+	// whether the script tree being processed is rewritten, for example the
+	// aggregate calls are replaced, then the compiled script can not be
+	// shared by the same expression text
+	private boolean treeModified;
+	
 	public void compile( IBaseExpression expr, ScriptContext context ) throws DataException
 	{
 		if ( expr instanceof IScriptExpression )
@@ -181,6 +187,8 @@ abstract class AbstractExpressionCompiler
 			ScriptNode tree, Context context ) throws DataException
 
 	{
+		boolean outerTreeModified = treeModified;
+		treeModified = false;
 		CompiledExpression expr;
 		if ( tree.getFirstChild( ) == tree.getLastChild( ) )
 		{
@@ -217,10 +225,24 @@ abstract class AbstractExpressionCompiler
 			expr = compileComplexExpr( context, tree, false );
 		}
 		if ( expr instanceof BytecodeExpression )
-			compileForBytecodeExpr( context, tree, expr );
+		{
+			if ( treeModified )
+				compileForBytecodeExpr( context, tree, expr );
+			else
+				compileForBytecodeExpr( context, expression, tree, expr );
+		}
+		treeModified = treeModified || outerTreeModified;
 		return expr;
 	}
 
+	/**
+	 * Marks the script tree being processed is rewritten.
+	 */
+	protected void markTreeModified( )
+	{
+		treeModified = true;
+	}
+
 	/**
 	 * parse the expression to script tree
 	 * 
@@ -463,6 +485,9 @@ abstract class AbstractExpressionCompiler
 			CompiledExpression expr )
 	{
 		assert ( expr instanceof BytecodeExpression );
+		// the Rhino compiler transforms the tree, so the simple expressions
+		// are recognized first
+		( (BytecodeExpression) expr ).setNativeExpression( NativeExpression.compile( tree ) );
 		CompilerEnvirons compilerEnv = getCompilerEnv( context );
 		Interpreter compiler = new Interpreter( );
 		Object compiledOb = compiler.compile( compilerEnv, tree, null, false );
@@ -470,6 +495,39 @@ abstract class AbstractExpressionCompiler
 		( (BytecodeExpression) expr ).setScript( script );
 	}
 
+	/**
+	 * compile the tree of the expression to script, the compiled script is
+	 * shared by the same expression text through the compiled script cache
+	 * 
+	 * @param context
+	 * @param expression
+	 * @param tree
+	 * @param expr
+	 */
+	private void compileForBytecodeExpr( Context context, String expression,
+			ScriptNode tree, CompiledExpression expr )
+	{
+		CompiledScriptCache cache = CompiledScriptCache.getInstance( );
+		// the expressions are parsed without the source name and line number
+		Script script = cache.get( expression, null, 0, null );
+		if ( script == null )
+		{
+			long startTime = System.nanoTime( );
+			compileForBytecodeExpr( context, tree, expr );
+			cache.put( expression,
+					null,
+					0,
+					null,
+					( (BytecodeExpression) expr ).getScript( ),
+					System.nanoTime( ) - startTime );
+		}
+		else
+		{
+			( (BytecodeExpression) expr ).setScript( script );
+			( (BytecodeExpression) expr ).setNativeExpression( NativeExpression.compile( tree ) );
+		}
+	}
+
 	/**
 	 * An aggregation expression in the form of Total.xxx for example Total.sum(
 	 * row.x ) This means the first child is a GETPROP node, and its left child
@@ -24,6 +24,8 @@ import org.mozilla.javascript.Scriptable;
 public abstract class BytecodeExpression extends CompiledExpression
 {
 	private Script m_script;
+	// the Java evaluator of the expression, null if it is not supported
+	private volatile NativeExpression m_nativeExpr;
 	  
 	protected static Logger logger = Logger.getLogger( BytecodeExpression.class.getName( ) );
 	/**
@@ -37,12 +39,48 @@ public abstract class BytecodeExpression extends CompiledExpression
     	m_script = script;
     }
 
+	/**
+	 * Sets the Java evaluator of the expression, which is tried before the
+	 * compiled Javascript bytecode.
+	 * @param nativeExpr	the Java evaluator, or null.
+	 */
+    void setNativeExpression( NativeExpression nativeExpr )
+    {
+    	m_nativeExpr = nativeExpr;
+    }
+
+	/**
+	 * @return the compiled Javascript bytecode.
+	 */
+    Script getScript( )
+    {
+    	return m_script;
+    }
+
 	/**
 	 * Evaluates the compiled byte code
 	 */
 	public Object evaluate( ScriptContext context, Scriptable scope ) 
 		throws DataException
 	{
+	    NativeExpression nativeExpr = m_nativeExpr;
+	    if ( nativeExpr != null )
+	    {
+	    	Object result = NativeExpression.UNSUPPORTED;
+	    	try
+	    	{
+	    		result = nativeExpr.evaluate( Context.getCurrentContext( ), scope );
+	    	}
+	    	catch ( RuntimeException e )
+	    	{
+	    		// the script reports the error
+	    	}
+	    	if ( result != NativeExpression.UNSUPPORTED )
+	    		return JavascriptEvalUtil.convertJavascriptValue( result );
+	    	// the column types don't change among the rows, so the script is
+	    	// used from now on
+	    	m_nativeExpr = null;
+	    }
 	    try
 	    {
 	    	Object result = JavascriptEvalUtil.convertJavascriptValue(
@@ -140,6 +140,7 @@ public class ExpressionCompiler extends AbstractExpressionCompiler
 			throw new DataException( ResourceConstants.INVALID_CALL_AGGR );
 		
 		// replace the aggregate CALL node with _aggr_value[<aggregateId>]
+		markTreeModified( );
 		int aggregateId = registry.register( aggregateExpression );
 		Node newFirstChild = Node.newString( Token.NAME, AGGR_VALUE );
 		Node newSecondChild = Node.newNumber( aggregateId );
@@ -202,6 +202,9 @@ class MultiPassExpressionCompiler extends AbstractExpressionCompiler
 											.getType( ) != Token.IFEQ )
 							{
 
+								// the binding expression is inlined into
+								// the tree
+								markTreeModified( );
 								CompiledExpression expr = null;
 								if ( grandfather != null )
 								{
@@ -302,6 +305,7 @@ class MultiPassExpressionCompiler extends AbstractExpressionCompiler
 
 		AggregateObject aggregateObj = new AggregateObject( aggregateExpression );
 		this.hasAggregate = true;
+		markTreeModified( );
 		
 		extractArguments( context, aggregateExpression, callNode );
 		
@@ -809,6 +813,7 @@ class MultiPassExpressionCompiler extends AbstractExpressionCompiler
 		if ( registry < 0 )
 			throw new DataException( ResourceConstants.INVALID_CALL_AGGR );
 
+		markTreeModified( );
 		int aggregateId = registry;
 		Node newFirstChild = Node.newString( Token.NAME, AGGR_VALUE );
 		Node newSecondChild = Node.newNumber( aggregateId );
@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.expression;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Node;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Token;
+import org.mozilla.javascript.Undefined;
+
+/**
+ * A Java evaluator of the simple Javascript expressions, which avoids running
+ * the Rhino interpreter for each row. The supported expressions consist of
+ * column references on "row" and "dataSetRow", number, string, boolean and
+ * null literals, arithmetic, comparison, logical operators and string
+ * concatenation. The operators follow the Javascript semantics through
+ * <code>ScriptRuntime</code>.
+ *
+ * Only the primitive column values (string, number, boolean and null) are
+ * evaluated. For the other values, such as dates, <code>UNSUPPORTED</code> is
+ * returned and the caller should evaluate the expression by Rhino.
+ */
+abstract class NativeExpression
+{
+
+	/**
+	 * the value returned when the expression can't be evaluated natively
+	 */
+	static final Object UNSUPPORTED = new Object( );
+
+	private static final String STRING_DATASETROW = "dataSetRow";
+	private static final String STRING_ROW = "row";
+
+	/**
+	 * Evaluates the expression with the row objects in the scope.
+	 *
+	 * @param cx
+	 * @param scope
+	 * @return the Javascript value, or <code>UNSUPPORTED</code>
+	 */
+	abstract Object evaluate( Context cx, Scriptable scope );
+
+	/**
+	 * Compiles the script tree of an expression.
+	 *
+	 * @param tree
+	 *            the script tree, which has a single expression statement
+	 * @return the native expression, null if the expression is not supported
+	 */
+	static NativeExpression compile( Node tree )
+	{
+		Node exprNode = tree.getFirstChild( );
+		if ( exprNode == null
+				|| exprNode != tree.getLastChild( )
+				|| exprNode.getType( ) != Token.EXPR_RESULT )
+			return null;
+		Node child = exprNode.getFirstChild( );
+		if ( child == null || child.getNext( ) != null )
+			return null;
+		return compileNode( child );
+	}
+
+	private static NativeExpression compileNode( Node node )
+	{
+		switch ( node.getType( ) )
+		{
+			case Token.NUMBER :
+				return new Constant( new Double( node.getDouble( ) ) );
+			case Token.STRING :
+				return new Constant( node.getString( ) );
+			case Token.TRUE :
+				return new Constant( Boolean.TRUE );
+			case Token.FALSE :
+				return new Constant( Boolean.FALSE );
+			case Token.NULL :
+				return new Constant( null );
+			case Token.GETPROP :
+			case Token.GETELEM :
+				return compileColumnReference( node );
+			case Token.NOT :
+			case Token.NEG :
+			case Token.POS :
+			{
+				Node operand = node.getFirstChild( );
+				if ( operand == null || operand.getNext( ) != null )
+					return null;
+				NativeExpression operandExpr = compileNode( operand );
+				if ( operandExpr == null )
+					return null;
+				return new UnaryOperation( node.getType( ), operandExpr );
+			}
+			case Token.ADD :
+			case Token.SUB :
+			case Token.MUL :
+			case Token.DIV :
+			case Token.MOD :
+			case Token.EQ :
+			case Token.NE :
+			case Token.SHEQ :
+			case Token.SHNE :
+			case Token.LT :
+			case Token.LE :
+			case Token.GT :
+			case Token.GE :
+			case Token.AND :
+			case Token.OR :
+			{
+				Node left = node.getFirstChild( );
+				if ( left == null
+						|| left.getNext( ) == null
+						|| left.getNext( ) != node.getLastChild( ) )
+					return null;
+				NativeExpression leftExpr = compileNode( left );
+				if ( leftExpr == null )
+					return null;
+				NativeExpression rightExpr = compileNode( node.getLastChild( ) );
+				if ( rightExpr == null )
+					return null;
+				return new BinaryOperation( node.getType( ),
+						leftExpr,
+						rightExpr );
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * row.name, row["name"] or row[index], also for dataSetRow
+	 */
+	private static NativeExpression compileColumnReference( Node refNode )
+	{
+		Node rowName = refNode.getFirstChild( );
+		if ( rowName == null || rowName.getType( ) != Token.NAME )
+			return null;
+		String rowIndicator = rowName.getString( );
+		if ( !STRING_ROW.equals( rowIndicator )
+				&& !STRING_DATASETROW.equals( rowIndicator ) )
+			return null;
+
+		Node rowColumn = rowName.getNext( );
+		if ( rowColumn == null || rowColumn.getNext( ) != null )
+			return null;
+		if ( rowColumn.getType( ) == Token.STRING )
+		{
+			String columnName = rowColumn.getString( );
+			// Rhino takes row["1"] as row[1]
+			if ( refNode.getType( ) == Token.GETELEM
+					&& isIndex( columnName ) )
+				return null;
+			return new ColumnReference( rowIndicator, columnName, -1 );
+		}
+		if ( refNode.getType( ) == Token.GETELEM
+				&& rowColumn.getType( ) == Token.NUMBER )
+		{
+			double index = rowColumn.getDouble( );
+			if ( index >= 0 && index <= Integer.MAX_VALUE
+					&& index == (int) index )
+				return new ColumnReference( rowIndicator, null, (int) index );
+		}
+		return null;
+	}
+
+	private static boolean isIndex( String name )
+	{
+		if ( name.length( ) == 0 )
+			return false;
+		for ( int i = 0; i < name.length( ); i++ )
+		{
+			if ( !Character.isDigit( name.charAt( i ) ) )
+				return false;
+		}
+		return true;
+	}
+
+	private static class Constant extends NativeExpression
+	{
+
+		private Object value;
+
+		Constant( Object value )
+		{
+			this.value = value;
+		}
+
+		Object evaluate( Context cx, Scriptable scope )
+		{
+			return value;
+		}
+	}
+
+	private static class ColumnReference extends NativeExpression
+	{
+
+		private String rowIndicator;
+		private String columnName;
+		private int columnIndex;
+
+		ColumnReference( String rowIndicator, String columnName,
+				int columnIndex )
+		{
+			this.rowIndicator = rowIndicator;
+			this.columnName = columnName;
+			this.columnIndex = columnIndex;
+		}
+
+		Object evaluate( Context cx, Scriptable scope )
+		{
+			// resolve the row object the same as the script does
+			Object row = ScriptRuntime.name( cx, scope, rowIndicator );
+			if ( !( row instanceof Scriptable ) )
+				return UNSUPPORTED;
+
+			Object value = columnName != null
+					? ScriptableObject.getProperty( (Scriptable) row,
+							columnName )
+					: ScriptableObject.getProperty( (Scriptable) row,
+							columnIndex );
+			if ( value == Scriptable.NOT_FOUND )
+				return Undefined.instance;
+			if ( value == null
+					|| value instanceof String
+					|| value instanceof Number
+					|| value instanceof Boolean
+					|| value instanceof Undefined )
+				return value;
+			return UNSUPPORTED;
+		}
+	}
+
+	private static class UnaryOperation extends NativeExpression
+	{
+
+		private int operator;
+		private NativeExpression operand;
+
+		UnaryOperation( int operator, NativeExpression operand )
+		{
+			this.operator = operator;
+			this.operand = operand;
+		}
+
+		Object evaluate( Context cx, Scriptable scope )
+		{
+			Object value = operand.evaluate( cx, scope );
+			if ( value == UNSUPPORTED )
+				return UNSUPPORTED;
+			switch ( operator )
+			{
+				case Token.NOT :
+					return Boolean.valueOf( !ScriptRuntime.toBoolean( value ) );
+				case Token.NEG :
+					return new Double( -ScriptRuntime.toNumber( value ) );
+				default :
+					return new Double( ScriptRuntime.toNumber( value ) );
+			}
+		}
+	}
+
+	private static class BinaryOperation extends NativeExpression
+	{
+
+		private int operator;
+		private NativeExpression left;
+		private NativeExpression right;
+
+		BinaryOperation( int operator, NativeExpression left,
+				NativeExpression right )
+		{
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+
+		Object evaluate( Context cx, Scriptable scope )
+		{
+			Object leftValue = left.evaluate( cx, scope );
+			if ( leftValue == UNSUPPORTED )
+				return UNSUPPORTED;
+
+			// the logical operators return one of the operands
+			if ( operator == Token.AND )
+			{
+				return ScriptRuntime.toBoolean( leftValue ) ? right.evaluate( cx,
+						scope ) : leftValue;
+			}
+			if ( operator == Token.OR )
+			{
+				return ScriptRuntime.toBoolean( leftValue ) ? leftValue
+						: right.evaluate( cx, scope );
+			}
+
+			Object rightValue = right.evaluate( cx, scope );
+			if ( rightValue == UNSUPPORTED )
+				return UNSUPPORTED;
+			switch ( operator )
+			{
+				case Token.ADD :
+					if ( leftValue instanceof String
+							|| rightValue instanceof String )
+						return ScriptRuntime.toString( leftValue )
+								.concat( ScriptRuntime.toString( rightValue ) );
+					return new Double( ScriptRuntime.toNumber( leftValue )
+							+ ScriptRuntime.toNumber( rightValue ) );
+				case Token.SUB :
+					return new Double( ScriptRuntime.toNumber( leftValue )
+							- ScriptRuntime.toNumber( rightValue ) );
+				case Token.MUL :
+					return new Double( ScriptRuntime.toNumber( leftValue )
+							* ScriptRuntime.toNumber( rightValue ) );
+				case Token.DIV :
+					return new Double( ScriptRuntime.toNumber( leftValue )
+							/ ScriptRuntime.toNumber( rightValue ) );
+				case Token.MOD :
+					return new Double( ScriptRuntime.toNumber( leftValue )
+							% ScriptRuntime.toNumber( rightValue ) );
+				case Token.EQ :
+					return Boolean.valueOf( ScriptRuntime.eq( leftValue,
+							rightValue ) );
+				case Token.NE :
+					return Boolean.valueOf( !ScriptRuntime.eq( leftValue,
+							rightValue ) );
+				case Token.SHEQ :
+					return Boolean.valueOf( ScriptRuntime.shallowEq( leftValue,
+							rightValue ) );
+				case Token.SHNE :
+					return Boolean.valueOf( !ScriptRuntime.shallowEq( leftValue,
+							rightValue ) );
+				case Token.LT :
+					return Boolean.valueOf( ScriptRuntime.cmp_LT( leftValue,
+							rightValue ) );
+				case Token.LE :
+					return Boolean.valueOf( ScriptRuntime.cmp_LE( leftValue,
+							rightValue ) );
+				case Token.GT :
+					return Boolean.valueOf( ScriptRuntime.cmp_LT( rightValue,
+							leftValue ) );
+				default :
+					return Boolean.valueOf( ScriptRuntime.cmp_LE( rightValue,
+							leftValue ) );
+			}
+		}
+	}
+}
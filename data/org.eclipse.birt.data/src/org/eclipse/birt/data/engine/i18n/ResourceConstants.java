@@ -397,6 +397,8 @@ public class ResourceConstants
 	public static final String CUBE_QUERY_NO_CUBE_BINDING = "data.olap.query.noCubeBinding";
 	public static final String FAIL_LOAD_CUBE = "data.olap.FailLoadCube";
 	public static final String MISSING_DIMENSION_IN_CUBE = "data.olap.MissingDimensionInCube";
+	public static final String CUBE_NOT_IN_STORE = "data.olap.CubeNotInStore";
+	public static final String CUBE_STORE_APPEND_UNSUPPORTED = "data.olap.CubeStoreAppendUnsupported";
 
 	public final static String CONFIG_FILE_PARSER_MODE_FAIL = "data.executor.configFileParser.getModeByID";
 	public final static String CONFIG_FILE_PARSER_TIMESTAMP_FORMAT_FAIL = "data.executor.configFileParser.getTSFormatByID";
@@ -38,10 +38,10 @@ import org.eclipse.birt.data.engine.impl.util.DirectedGraph;
 import org.eclipse.birt.data.engine.impl.util.DirectedGraph.CycleFoundException;
 import org.eclipse.birt.data.engine.impl.util.DirectedGraphEdge;
 import org.eclipse.birt.data.engine.impl.util.GraphNode;
+import org.eclipse.birt.data.engine.odi.IBatchResultObjectEvent;
 import org.eclipse.birt.data.engine.odi.IResultClass;
 import org.eclipse.birt.data.engine.odi.IResultIterator;
 import org.eclipse.birt.data.engine.odi.IResultObject;
-import org.eclipse.birt.data.engine.odi.IResultObjectEvent;
 import org.eclipse.birt.data.engine.script.ScriptEvalUtil;
 
 /**
@@ -50,7 +50,7 @@ import org.eclipse.birt.data.engine.script.ScriptEvalUtil;
  * grouping/sorting data.
  */
 
-public class ComputedColumnHelper implements IResultObjectEvent
+public class ComputedColumnHelper implements IBatchResultObjectEvent
 {
 
 	private ComputedColumnHelperInstance dataSetInstance;
@@ -140,6 +140,32 @@ public class ComputedColumnHelper implements IResultObjectEvent
 		return true;
 	}
 
+	/*
+	 * @see org.eclipse.birt.data.engine.odi.IBatchResultObjectEvent#process(org.eclipse.birt.data.engine.odi.IResultObject[], int[], int[], int)
+	 */
+	public int process( IResultObject[] resultObjects, int[] rowIndexes,
+			int[] selection, int selectedCount ) throws DataException
+	{
+		if ( this.mode == TransformationConstants.ALL_MODEL )
+		{
+			this.dataSetInstance.process( resultObjects,
+					rowIndexes,
+					selection,
+					selectedCount );
+			this.resultSetInstance.process( resultObjects,
+					rowIndexes,
+					selection,
+					selectedCount );
+		}
+		else if ( this.getCurrentInstance( ) != null )
+			this.getCurrentInstance( ).process( resultObjects,
+					rowIndexes,
+					selection,
+					selectedCount );
+
+		return selectedCount;
+	}
+
 	/**
 	 * Return whether the computed column set with given model exists
 	 * 
@@ -407,9 +433,8 @@ public class ComputedColumnHelper implements IResultObjectEvent
 			logger.entering( ComputedColumnHelper.class.getName( ), "process" );
 			assert resultObject != null;
 
-			IResultClass resultClass = resultObject.getResultClass( );
 			if ( isPrepared == false )
-				prepare( resultClass );
+				prepare( resultObject.getResultClass( ) );
 
 			// check if no computed columns are found as custom fields in the result
 			// set
@@ -420,9 +445,6 @@ public class ComputedColumnHelper implements IResultObjectEvent
 			}
 
 			IResultIterator cachedIterator = dataSet.getResultSet( );
-			// bind new object to row script object
-			dataSet.setRowObject( resultObject, true );
-			dataSet.setCurrentRowIndex( rowIndex );
 			Mode temp = dataSet.getMode();
 			dataSet.setMode( this.mode );
 			// now assign the computed value to each of its projected computed
@@ -433,128 +455,202 @@ public class ComputedColumnHelper implements IResultObjectEvent
 				// and assign it the computed value
 				for ( int i = 0; i < computedColumn.length; i++ )
 				{
-					if( isAggrComputedColumn( computedColumn[i] ))
-					{
+					if ( isComputed( i ) )
+						computeColumn( i, resultObject, rowIndex );
+				}
+			}
+			finally
+			{
+				dataSet.setMode( temp );
+			}
+			logger.exiting( ComputedColumnHelper.class.getName( ), "process" );
+			if( cachedIterator!= null )
+				this.dataSet.setResultSet( cachedIterator, true );
+			return true;
+		}
+
+		/**
+		 * Assign the computed columns of the selected rows of a batch. Each
+		 * computed column is evaluated on all the rows before the next one, so
+		 * the columns referring to other computed columns still get their
+		 * values.
+		 * 
+		 * @param resultObjects
+		 * @param rowIndexes
+		 * @param selection
+		 * @param selectedCount
+		 * @throws DataException
+		 */
+		public void process( IResultObject[] resultObjects, int[] rowIndexes,
+				int[] selection, int selectedCount ) throws DataException
+		{
+			if ( selectedCount == 0 )
+				return;
+			logger.entering( ComputedColumnHelper.class.getName( ), "process" );
+
+			if ( isPrepared == false )
+				prepare( resultObjects[selection[0]].getResultClass( ) );
+
+			if ( computedColumn.length == 0 )
+			{
+				logger.exiting( ComputedColumnHelper.class.getName( ), "process" );
+				return;
+			}
+
+			IResultIterator cachedIterator = dataSet.getResultSet( );
+			Mode temp = dataSet.getMode( );
+			dataSet.setMode( this.mode );
+			try
+			{
+				for ( int i = 0; i < computedColumn.length; i++ )
+				{
+					if ( !isComputed( i ) )
 						continue;
-					}
-					if( isRemoved( computedColumn[i].getName( ) ) )
+					for ( int j = 0; j < selectedCount; j++ )
 					{
-						continue;
+						int pos = selection[j];
+						computeColumn( i, resultObjects[pos], rowIndexes[pos] );
 					}
+				}
+			}
+			finally
+			{
+				dataSet.setMode( temp );
+			}
+			logger.exiting( ComputedColumnHelper.class.getName( ), "process" );
+			if ( cachedIterator != null )
+				this.dataSet.setResultSet( cachedIterator, true );
+		}
+
+		/**
+		 * @param i
+		 * @return whether the computed column is evaluated on each row
+		 */
+		private boolean isComputed( int i )
+		{
+			return !isAggrComputedColumn( computedColumn[i] )
+					&& !isRemoved( computedColumn[i].getName( ) );
+		}
+
+		/**
+		 * Evaluate a computed column on a row and assign the value to the row.
+		 * 
+		 * @param i
+		 * @param resultObject
+		 * @param rowIndex
+		 * @throws DataException
+		 */
+		private void computeColumn( int i, IResultObject resultObject,
+				int rowIndex ) throws DataException
+		{
+			IResultClass resultClass = resultObject.getResultClass( );
+			// bind new object to row script object
+			dataSet.setRowObject( resultObject, true );
+			dataSet.setCurrentRowIndex( rowIndex );
 
-					if ( computedColumn[i].getExpression( ) != null )
+			if ( computedColumn[i].getExpression( ) != null )
+			{
+				Object value = null;
+				try
+				{
+					String columnName = columnReferenceMap.get( computedColumn[i].getName() );
+					if ( columnName != null )
 					{
-						Object value = null;
-						try
+						if ( resultObject != null )
+						{
+							//for these computed columns whose expression is just like dataSetRow["xxx"]
+							//fetch value just from result set directly rather than Rhino
+							value = resultObject.getFieldValue( columnName );
+						}
+					}
+					else if ( computedColumn[i].getExpression( ).getHandle( ) != null
+							&& computedColumn[i].getExpression( )
+									.getHandle( ) instanceof CompiledExpression )
+					{
+						value = ExprEvaluateUtil.evaluateCompiledExpression( (CompiledExpression) computedColumn[i].getExpression( )
+								.getHandle( ),
+								resultObject,
+								rowIndex,
+								dataSet.getScriptScope( ),
+								cx );
+					}
+					else
+					{
+						IScriptExpression expr = (IScriptExpression) computedColumn[i].getExpression( ); 
+						String exprText = expr.getText( );
+						if ( exprText != null )
 						{
-							String columnName = columnReferenceMap.get( computedColumn[i].getName() );
-							if ( columnName != null )
+							if ( expr.getHandle( ) == null )
 							{
-								if ( resultObject != null )
-								{
-									//for these computed columns whose expression is just like dataSetRow["xxx"]
-									//fetch value just from result set directly rather than Rhino
-									value = resultObject.getFieldValue( columnName );
-								}
+								expr.setHandle( cx.compile( expr.getScriptId( ),
+										null,
+										0,
+										exprText ) );
 							}
-							else if ( computedColumn[i].getExpression( ).getHandle( ) != null
-									&& computedColumn[i].getExpression( )
-											.getHandle( ) instanceof CompiledExpression )
+							if ( expr.getHandle( ) != null
+									&& expr.getHandle( ) instanceof CompiledExpression )
 							{
-								value = ExprEvaluateUtil.evaluateCompiledExpression( (CompiledExpression) computedColumn[i].getExpression( )
-										.getHandle( ),
+								value = ExprEvaluateUtil.evaluateCompiledExpression( (CompiledExpression) expr.getHandle( ),
 										resultObject,
 										rowIndex,
 										dataSet.getScriptScope( ),
 										cx );
 							}
 							else
-							{
-								IScriptExpression expr = (IScriptExpression) computedColumn[i].getExpression( ); 
-								String exprText = expr.getText( );
-								if ( exprText != null )
-								{
-									if ( expr.getHandle( ) == null )
-									{
-										expr.setHandle( cx.compile( expr.getScriptId( ),
-												null,
-												0,
-												exprText ) );
-									}
-									if ( expr.getHandle( ) != null
-											&& expr.getHandle( ) instanceof CompiledExpression )
-									{
-										value = ExprEvaluateUtil.evaluateCompiledExpression( (CompiledExpression) expr.getHandle( ),
-												resultObject,
-												rowIndex,
-												dataSet.getScriptScope( ),
-												cx );
-									}
-									else
-										value = ScriptEvalUtil.evalExpr( expr,
-												cx,
-												ScriptExpression.defaultID,
-												0 );
-								}
-							}
-							if ( computedColumn[i] instanceof GroupComputedColumn )
-							{
-								try
-								{
-									value = ( (GroupComputedColumn) computedColumn[i] ).calculate( value );
-								}
-								catch ( BirtException e )
-								{
-									throw DataException.wrap( e );
-								}
-							}
-
-							value = DataTypeUtil.convert( value,
-									resultClass.getFieldValueClass( columnIndexArray[i] ) );
+								value = ScriptEvalUtil.evalExpr( expr,
+										cx,
+										ScriptExpression.defaultID,
+										0 );
+						}
+					}
+					if ( computedColumn[i] instanceof GroupComputedColumn )
+					{
+						try
+						{
+							value = ( (GroupComputedColumn) computedColumn[i] ).calculate( value );
 						}
 						catch ( BirtException e )
 						{
-							if ( !suppressException )
-							{
-								String fieldName = resultClass.getFieldName( columnIndexArray[i] );
-								// Exception from System computed column for Sort, Group or Filter
-								if ( fieldName != null
-										&& fieldName.startsWith( "_{$TEMP_" ) )
-								{
-									throw new DataException( ResourceConstants.WRONG_SYSTEM_COMPUTED_COLUMN,
-											e );
-								}
-								//Exception from "Any" type
-								if ( resultClass.wasAnyType( columnIndexArray[i] ))
-									throw new DataException( ResourceConstants.POSSIBLE_MIXED_DATA_TYPE_IN_COLUMN,
-											e );
-	
-								//All other exceptions
-								throw new DataException( ResourceConstants.FAIL_RETRIEVE_VALUE_COMPUTED_COLUMN,
-										e,
-										resultClass.getFieldName( columnIndexArray[i] ) );
-							}
+							throw DataException.wrap( e );
 						}
-
-						resultObject.setCustomFieldValue( columnIndexArray[i],
-								value );
 					}
-					else
+
+					value = DataTypeUtil.convert( value,
+							resultClass.getFieldValueClass( columnIndexArray[i] ) );
+				}
+				catch ( BirtException e )
+				{
+					if ( !suppressException )
 					{
-						throw new DataException( ResourceConstants.EXPR_INVALID_COMPUTED_COLUMN,
-								resultObject.getResultClass( )
-										.getFieldName( columnIndexArray[i] ) );
+						String fieldName = resultClass.getFieldName( columnIndexArray[i] );
+						// Exception from System computed column for Sort, Group or Filter
+						if ( fieldName != null
+								&& fieldName.startsWith( "_{$TEMP_" ) )
+						{
+							throw new DataException( ResourceConstants.WRONG_SYSTEM_COMPUTED_COLUMN,
+									e );
+						}
+						//Exception from "Any" type
+						if ( resultClass.wasAnyType( columnIndexArray[i] ))
+							throw new DataException( ResourceConstants.POSSIBLE_MIXED_DATA_TYPE_IN_COLUMN,
+									e );
+	
+						//All other exceptions
+						throw new DataException( ResourceConstants.FAIL_RETRIEVE_VALUE_COMPUTED_COLUMN,
+								e,
+								resultClass.getFieldName( columnIndexArray[i] ) );
 					}
 				}
+
+				resultObject.setCustomFieldValue( columnIndexArray[i],
+						value );
 			}
-			finally
+			else
 			{
-				dataSet.setMode( temp );
+				throw new DataException( ResourceConstants.EXPR_INVALID_COMPUTED_COLUMN,
+						resultObject.getResultClass( )
+								.getFieldName( columnIndexArray[i] ) );
 			}
-			logger.exiting( ComputedColumnHelper.class.getName( ), "process" );
-			if( cachedIterator!= null )
-				this.dataSet.setResultSet( cachedIterator, true );
-			return true;
 		}
 		
 		private boolean isAggrComputedColumn( IComputedColumn cc )
@@ -29,6 +29,7 @@ import org.eclipse.birt.data.engine.expression.ExprEvaluator;
 import org.eclipse.birt.data.engine.i18n.ResourceConstants;
 import org.eclipse.birt.data.engine.impl.DataSetRuntime.Mode;
 import org.eclipse.birt.data.engine.odi.FilterUtil;
+import org.eclipse.birt.data.engine.odi.IBatchResultObjectEvent;
 import org.eclipse.birt.data.engine.odi.IResultIterator;
 import org.eclipse.birt.data.engine.odi.IResultObject;
 
@@ -37,7 +38,7 @@ import com.ibm.icu.text.Collator;
 /**
  * Implementation of IFilter, which will do filtering on row data.
  */
-public class FilterByRow implements IFilterByRow
+public class FilterByRow implements IFilterByRow, IBatchResultObjectEvent
 {
 
 	//
@@ -234,6 +235,20 @@ public class FilterByRow implements IFilterByRow
 		return true;
 	}
 
+	/*
+	 * @see org.eclipse.birt.data.engine.odi.IBatchResultObjectEvent#process(org.eclipse.birt.data.engine.odi.IResultObject[], int[], int[], int)
+	 */
+	public int process( IResultObject[] rows, int[] rowIndexes,
+			int[] selection, int selectedCount ) throws DataException
+	{
+		if ( this.currentFilters != null )
+			return this.currentFilters.process( rows,
+					rowIndexes,
+					selection,
+					selectedCount );
+		return selectedCount;
+	}
+
 	/**
 	 * Get the current working filter list.
 	 * 
@@ -348,7 +363,6 @@ public class FilterByRow implements IFilterByRow
 			return this.currentFilters;
 		}
 
-		@SuppressWarnings("unchecked")
 		public boolean process( IResultObject row, int rowIndex )
 				throws DataException
 		{
@@ -358,8 +372,6 @@ public class FilterByRow implements IFilterByRow
 			boolean isAccepted = true;
 			Iterator filterIt = currentFilters.iterator( );
 			IResultIterator cachedIterator = dataSet.getResultSet( );
-			dataSet.setRowObject( row, false );
-			dataSet.setCurrentRowIndex( rowIndex );
 			Mode temp = dataSet.getMode( );
 			dataSet.setMode( this.mode );
 			try
@@ -367,74 +379,60 @@ public class FilterByRow implements IFilterByRow
 				while ( filterIt.hasNext( ) )
 				{
 					IFilterDefinition filter = (IFilterDefinition) filterIt.next( );
-					IBaseExpression expr = filter.getExpression( );
-
-					Object result = null;
-					try
-					{
-						/*
-						 * if ( helper!= null) result = helper.evaluate( expr );
-						 * else result = ScriptEvalUtil.evalExpr( expr,
-						 * cx,dataSet.getScriptScope(), "Filter", 0 );
-						 */
-						if ( expr instanceof IConditionalExpression )
-							result = exprEvaluator.evaluateConditionExpression( (IConditionalExpression) expr,
-									dataSet.getScriptScope( ),
-									true,
-									dataSet.getSession( )
-											.getEngineContext( )
-											.getScriptContext( ),
-									compareHints,
-									dataSet );
-						else
-							result = exprEvaluator.evaluateRawExpression2( expr,
-									dataSet.getScriptScope( ),
-									dataSet.getSession( )
-											.getEngineContext( )
-											.getScriptContext( ),
-									dataSet);
-					}
-					catch ( BirtException e2 )
-					{
-						DataException dataEx = DataException.wrap( e2 );
-						throw dataEx;
-					}
-
-					if ( result == null )
+					if ( !accept( filter, row, rowIndex ) )
 					{
-						Object info = null;
-						if ( expr instanceof IScriptExpression )
-							info = ( (IScriptExpression) expr ).getText( );
-						else
-							info = expr;
-						throw new DataException( ResourceConstants.INVALID_EXPRESSION_IN_FILTER,
-								info );
+						isAccepted = false;
+						break;
 					}
+				}
+				if( cachedIterator!= null )
+					this.dataSet.setResultSet( cachedIterator, false );
+				return isAccepted;
+			}
+			finally
+			{
+				dataSet.setMode( temp );
+			}
+		}
 
-					try
-					{
-						// filter in
-						if ( DataTypeUtil.toBoolean( result ).booleanValue( ) == false )
-						{
-							isAccepted = false;
-							break;
-						}
-					}
-					catch ( BirtException e )
+		/**
+		 * Apply the filters one by one to the selected rows of a batch, the
+		 * rows rejected by a filter are not evaluated by the following
+		 * filters.
+		 * 
+		 * @param rows
+		 * @param rowIndexes
+		 * @param selection
+		 * @param selectedCount
+		 * @return the count of the accepted rows
+		 * @throws DataException
+		 */
+		public int process( IResultObject[] rows, int[] rowIndexes,
+				int[] selection, int selectedCount ) throws DataException
+		{
+			if ( currentFilters.size( ) == 0 )
+				return selectedCount;
+			logger.entering( FilterByRow.class.getName( ), "process" );
+			IResultIterator cachedIterator = dataSet.getResultSet( );
+			Mode temp = dataSet.getMode( );
+			dataSet.setMode( this.mode );
+			try
+			{
+				for ( int i = 0; i < currentFilters.size( ) && selectedCount > 0; i++ )
+				{
+					IFilterDefinition filter = (IFilterDefinition) currentFilters.get( i );
+					int acceptedCount = 0;
+					for ( int j = 0; j < selectedCount; j++ )
 					{
-						DataException e1 = new DataException( ResourceConstants.DATATYPEUTIL_ERROR,
-								e );
-						logger.logp( Level.FINE,
-								FilterByRow.class.getName( ),
-								"process",
-								"An error is thrown by DataTypeUtil.",
-								e1 );
-						throw e1;
+						int pos = selection[j];
+						if ( accept( filter, rows[pos], rowIndexes[pos] ) )
+							selection[acceptedCount++] = pos;
 					}
+					selectedCount = acceptedCount;
 				}
-				if( cachedIterator!= null )
+				if ( cachedIterator != null )
 					this.dataSet.setResultSet( cachedIterator, false );
-				return isAccepted;
+				return selectedCount;
 			}
 			finally
 			{
@@ -442,5 +440,81 @@ public class FilterByRow implements IFilterByRow
 			}
 		}
 
+		/**
+		 * Evaluate a filter on a row.
+		 * 
+		 * @param filter
+		 * @param row
+		 * @param rowIndex
+		 * @return whether the row is accepted by the filter
+		 * @throws DataException
+		 */
+		private boolean accept( IFilterDefinition filter, IResultObject row,
+				int rowIndex ) throws DataException
+		{
+			dataSet.setRowObject( row, false );
+			dataSet.setCurrentRowIndex( rowIndex );
+			IBaseExpression expr = filter.getExpression( );
+
+			Object result = null;
+			try
+			{
+				/*
+				 * if ( helper!= null) result = helper.evaluate( expr );
+				 * else result = ScriptEvalUtil.evalExpr( expr,
+				 * cx,dataSet.getScriptScope(), "Filter", 0 );
+				 */
+				if ( expr instanceof IConditionalExpression )
+					result = exprEvaluator.evaluateConditionExpression( (IConditionalExpression) expr,
+							dataSet.getScriptScope( ),
+							true,
+							dataSet.getSession( )
+									.getEngineContext( )
+									.getScriptContext( ),
+							compareHints,
+							dataSet );
+				else
+					result = exprEvaluator.evaluateRawExpression2( expr,
+							dataSet.getScriptScope( ),
+							dataSet.getSession( )
+									.getEngineContext( )
+									.getScriptContext( ),
+							dataSet);
+			}
+			catch ( BirtException e2 )
+			{
+				DataException dataEx = DataException.wrap( e2 );
+				throw dataEx;
+			}
+
+			if ( result == null )
+			{
+				Object info = null;
+				if ( expr instanceof IScriptExpression )
+					info = ( (IScriptExpression) expr ).getText( );
+				else
+					info = expr;
+				throw new DataException( ResourceConstants.INVALID_EXPRESSION_IN_FILTER,
+						info );
+			}
+
+			try
+			{
+				// filter in
+				return DataTypeUtil.toBoolean( result ).booleanValue( );
+			}
+			catch ( BirtException e )
+			{
+				DataException e1 = new DataException( ResourceConstants.DATATYPEUTIL_ERROR,
+						e );
+				logger.logp( Level.FINE,
+						FilterByRow.class.getName( ),
+						"process",
+						"An error is thrown by DataTypeUtil.",
+						e1 );
+				throw e1;
+			}
+		}
+
 	}
 }
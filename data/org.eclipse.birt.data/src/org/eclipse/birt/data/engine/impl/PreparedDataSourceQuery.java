@@ -26,6 +26,7 @@ import org.eclipse.birt.data.engine.api.IQueryDefinition;
 import org.eclipse.birt.data.engine.api.IQueryResults;
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.executor.DataSetCacheManager;
+import org.eclipse.birt.data.engine.odi.IEventHandler;
 import org.eclipse.birt.data.engine.odi.IResultIterator;
 import org.mozilla.javascript.Scriptable;
 
@@ -277,6 +278,11 @@ public abstract class PreparedDataSourceQuery
 	 */
 	public abstract class DSQueryExecutor extends QueryExecutor
 	{
+		// the data set cache settings of this query
+		private IBaseDataSourceDesign cacheDataSourceDesign;
+		private IBaseDataSetDesign cacheDataSetDesign;
+		private Collection cacheParameterHints;
+		private Map cacheAppContext;
 
 		public DSQueryExecutor( )
 		{
@@ -286,6 +292,39 @@ public abstract class PreparedDataSourceQuery
 					dataEngine.getSession( ), PreparedDataSourceQuery.this.contextVisitor);
 		}
 		
+		/*
+		 * @see org.eclipse.birt.data.engine.impl.QueryExecutor#prepareExecution(org.eclipse.birt.data.engine.api.IBaseQueryResults, org.mozilla.javascript.Scriptable)
+		 */
+		void prepareExecution( IBaseQueryResults outerRts,
+				Scriptable targetScope ) throws DataException
+		{
+			super.prepareExecution( outerRts, targetScope );
+			DataSetCacheManager cacheManager = getDataSetCacheManager( );
+			cacheDataSourceDesign = cacheManager.getCurrentDataSourceDesign( );
+			cacheDataSetDesign = cacheManager.getCurrentDataSetDesign( );
+			cacheParameterHints = cacheManager.getCurrentParameterHints( );
+			cacheAppContext = cacheManager.getCurrentAppContext( );
+		}
+		
+		/*
+		 * @see org.eclipse.birt.data.engine.impl.QueryExecutor#execute(org.eclipse.birt.data.engine.odi.IEventHandler)
+		 */
+		public void execute( IEventHandler eventHandler ) throws DataException
+		{
+			// other queries may have been prepared since this one, e.g. when
+			// the queries of a report are executed ahead
+			DataSetCacheManager cacheManager = getDataSetCacheManager( );
+			if ( cacheDataSetDesign != null
+					&& cacheManager.getCurrentDataSetDesign( ) != cacheDataSetDesign )
+			{
+				cacheManager.setDataSourceAndDataSet( cacheDataSourceDesign,
+						cacheDataSetDesign,
+						cacheParameterHints,
+						cacheAppContext );
+			}
+			super.execute( eventHandler );
+		}
+		
 		/*
 		 * @see org.eclipse.birt.data.engine.impl.QueryExecutor#findDataSource()
 		 */
@@ -36,6 +36,7 @@ import org.eclipse.birt.data.engine.api.querydefn.ColumnDefinition;
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.executor.CacheIDFetcher;
 import org.eclipse.birt.data.engine.executor.DataSourceFactory;
+import org.eclipse.birt.data.engine.executor.DataSourceQuery;
 import org.eclipse.birt.data.engine.i18n.ResourceConstants;
 import org.eclipse.birt.data.engine.odaconsumer.QuerySpecHelper;
 import org.eclipse.birt.data.engine.odi.IDataSource;
@@ -179,6 +180,26 @@ public class PreparedOdaDSQuery extends PreparedDataSourceQuery
 		return super.execute( outerResults, scope );
 	}
 
+	/*
+	 * @see org.eclipse.birt.data.engine.impl.PreparedDataSourceQuery#produceQueryResults(org.eclipse.birt.data.engine.api.IBaseQueryResults, org.mozilla.javascript.Scriptable)
+	 */
+	protected IQueryResults produceQueryResults(
+			IBaseQueryResults outerResults, Scriptable scope )
+			throws DataException
+	{
+		QueryExecutor executor = newExecutor( );
+		QueryResults results = preparedQuery.doPrepare( outerResults,
+				scope,
+				executor,
+				this );
+		// only the top level queries are independent of the other queries
+		if ( outerResults == null && executor instanceof OdaDSQueryExecutor )
+		{
+			( (OdaDSQueryExecutor) executor ).executeAhead( );
+		}
+		return results;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.eclipse.birt.data.engine.impl.PreparedDataSourceQuery#initializeExecution(org.eclipse.birt.data.engine.api.IBaseQueryResults, org.mozilla.javascript.Scriptable)
@@ -607,6 +628,20 @@ public class PreparedOdaDSQuery extends PreparedDataSourceQuery
 			return odiPreparedQuery.execute( eventHandler );			
 		}
 		
+		/**
+		 * Starts executing the statement ahead if it is enabled by the app
+		 * context, the data set scripts are not affected.
+		 * 
+		 * @throws DataException
+		 */
+		void executeAhead( ) throws DataException
+		{
+			if ( !loadFromCache && odiPreparedQuery instanceof DataSourceQuery )
+			{
+				( (DataSourceQuery) odiPreparedQuery ).executeAhead( appContext );
+			}
+		}
+		
 		/*
 		 * @see org.eclipse.birt.data.engine.impl.PreparedQuery.Executor#prepareOdiQuery()
 		 */
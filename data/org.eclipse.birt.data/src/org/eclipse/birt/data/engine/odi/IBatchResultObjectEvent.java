@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.odi;
+
+import org.eclipse.birt.data.engine.core.DataException;
+
+/**
+ * A result object event which can process a batch of result objects at once.
+ * The accepted result objects of a batch are described by a selection vector,
+ * which holds the positions of the accepted objects in the batch in ascending
+ * order.
+ */
+public interface IBatchResultObjectEvent extends IResultObjectEvent
+{
+
+	/**
+	 * Process the selected result objects of a batch. The objects excluded
+	 * from the result set are removed from the selection vector, the order of
+	 * the remaining positions is kept.
+	 * 
+	 * @param resultObjects
+	 *            the batch of result objects
+	 * @param rowIndexes
+	 *            the row index of each result object in the batch
+	 * @param selection
+	 *            the positions of the selected result objects in the batch,
+	 *            updated in place
+	 * @param selectedCount
+	 *            the count of valid positions in the selection vector
+	 * @return the count of the result objects still accepted
+	 * @throws DataException
+	 */
+	public int process( IResultObject[] resultObjects, int[] rowIndexes,
+			int[] selection, int selectedCount ) throws DataException;
+
+}
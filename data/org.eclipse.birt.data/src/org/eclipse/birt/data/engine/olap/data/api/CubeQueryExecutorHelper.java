@@ -29,6 +29,7 @@ import org.eclipse.birt.core.archive.IDocArchiveReader;
 import org.eclipse.birt.core.archive.IDocArchiveWriter;
 import org.eclipse.birt.core.data.ExpressionUtil;
 import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.api.DataEngine;
 import org.eclipse.birt.data.engine.api.IBaseExpression;
 import org.eclipse.birt.data.engine.api.IShutdownListener;
 import org.eclipse.birt.data.engine.cache.Constants;
@@ -958,9 +959,33 @@ public class CubeQueryExecutorHelper implements ICubeQueryExcutorHelper
 				memoryCacheSize );
 		
 		aggregationCalculatorExecutor.setMaxDataObjectRows( maxDataObjectRows );
+		aggregationCalculatorExecutor.setThreadCount( getAggregationThreadCount( ) );
 		
 		return aggregationCalculatorExecutor.execute( stopSign );
 	}
+	
+	/**
+	 * 
+	 * @return how many threads may calculate the aggregations, 1 if they are
+	 *         calculated in the query thread only
+	 */
+	private int getAggregationThreadCount( )
+	{
+		if ( appContext == null )
+			return 1;
+		Object propValue = appContext.get( DataEngine.CUBE_AGGREGATION_THREAD_COUNT );
+		if ( propValue == null )
+			return 1;
+		try
+		{
+			return Math.max( 1, Integer.parseInt( propValue.toString( )
+					.trim( ) ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			return 1;
+		}
+	}
 
 	/**
 	 * 
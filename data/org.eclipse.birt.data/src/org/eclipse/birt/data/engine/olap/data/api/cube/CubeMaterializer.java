@@ -41,6 +41,8 @@ public class CubeMaterializer
 {
 	private IDocumentManager documentManager;
 	private DataEngine dataEngine;
+	private int threadCount = 1;
+	private StoredCube storedCube;
 	
 	/**
 	 * 
@@ -76,6 +78,28 @@ public class CubeMaterializer
 							documentManager );
 		}
 	}
+	/**
+	 * Creates a materializer which builds a cube into a generation of a
+	 * {@link CubeStore}, or saves a cube kept in the store to the report
+	 * document. The document manager of the stored cube is closed when the
+	 * data engine shuts down.
+	 * 
+	 * @param dataEngine
+	 * @param storedCube
+	 */
+	public CubeMaterializer( DataEngineImpl dataEngine, StoredCube storedCube )
+	{
+		this.dataEngine = dataEngine;
+		this.storedCube = storedCube;
+		setShutdownListener( );
+		DataEngineThreadLocal.getInstance( ).getPathManager( ).setTempPath( dataEngine.getSession( ).getTempDir( ) );
+		documentManager = storedCube.getDocumentManager( );
+		DocManagerMap.getDocManagerMap( )
+				.set( String.valueOf( this.dataEngine.hashCode( ) ),
+						CubeStore.getDocManagerKey( storedCube.getName( ) ),
+						documentManager );
+	}
+
 	/**
 	 * 
 	 * @throws DataException
@@ -98,6 +122,20 @@ public class CubeMaterializer
 		dataEngine.addShutdownListener( new DocManagerReleaser( dataEngine ) );
 	}
 	
+	/**
+	 * Sets how many threads are used to build the hierarchies and the cubes.
+	 * The data set rows are always read and the documents are always written
+	 * by the calling thread, the other threads sort the rows, index the
+	 * levels and map the fact table rows to the dimension positions. The
+	 * default value 1 builds them in the calling thread only.
+	 * 
+	 * @param threadCount
+	 */
+	public void setThreadCount( int threadCount )
+	{
+		this.threadCount = Math.max( 1, threadCount );
+	}
+	
 	/**
 	 * 
 	 * @return
@@ -123,6 +161,7 @@ public class CubeMaterializer
 			BirtException
 	{
 		Hierarchy hierarchy = new Hierarchy( documentManager, dimensionName, hierarchyName ); 
+		hierarchy.setThreadCount( threadCount );
 		hierarchy.createAndSaveHierarchy( 
 				iterator,
 				levelDefs,
@@ -233,7 +272,14 @@ public class CubeMaterializer
 		{
 			throw new DataException( ResourceConstants.MISSING_DIMENSION_IN_CUBE, name );
 		}
+		if ( storedCube != null )
+		{
+			storedCube.setDefinition( factTableJointColumnNames,
+					DimJointColumnNames,
+					measureAggrFunctionNames );
+		}
 		Cube cube = new Cube( name, documentManager );
+		cube.setThreadCount( threadCount );
 		cube.create(factTableJointColumnNames, DimJointColumnNames, dimensions,
 				factTable, measureColumns, calculatedMeasure, measureAggrFunctionNames, cacheSize, stopSign);
 		cube.close( );
@@ -257,6 +303,10 @@ public class CubeMaterializer
 		String factTableName = cube.getFactTable( ).getName( );
 		saveDocObjToReportDocument( NamingUtil.getFactTableName( factTableName ), writer, stopSign );
 		saveDocObjToReportDocument( NamingUtil.getFTSUListName( factTableName ), writer, stopSign );
+		if ( documentManager.exist( NamingUtil.getFTSUIndexName( factTableName ) ) )
+		{
+			saveDocObjToReportDocument( NamingUtil.getFTSUIndexName( factTableName ), writer, stopSign );
+		}
 		//save FTSU
 		IDocumentObject documentObject = documentManager.openDocumentObject( NamingUtil.getFTSUListName( factTableName ) );
 		try
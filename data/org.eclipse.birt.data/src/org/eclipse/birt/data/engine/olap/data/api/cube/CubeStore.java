@@ -0,0 +1,934 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.api.cube;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.core.data.DataTypeUtil;
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.core.security.FileSecurity;
+import org.eclipse.birt.data.engine.i18n.ResourceConstants;
+import org.eclipse.birt.data.engine.impl.StopSign;
+import org.eclipse.birt.data.engine.olap.data.api.ILevel;
+import org.eclipse.birt.data.engine.olap.data.api.MeasureInfo;
+import org.eclipse.birt.data.engine.olap.data.document.DocumentManagerFactory;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
+import org.eclipse.birt.data.engine.olap.data.impl.Cube;
+import org.eclipse.birt.data.engine.olap.data.impl.NamingUtil;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Dimension;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.DimensionFactory;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.DimensionRow;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Hierarchy;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.LevelDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Member;
+import org.eclipse.birt.data.engine.olap.data.impl.facttable.FactTable;
+import org.eclipse.birt.data.engine.olap.data.impl.facttable.FactTableAccessor;
+import org.eclipse.birt.data.engine.olap.data.impl.facttable.FactTableRowIterator;
+import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+
+/**
+ * A directory which keeps the materialized cubes across the report runs.
+ * <p>
+ * Each cube has a sub directory, every build or append of the cube writes a
+ * new generation of the cube documents into its own directory and then
+ * switches the current generation of the cube. The generation which is
+ * replaced is deleted as soon as the switch is committed, even if report runs
+ * are still reading it, so the readers of a generation must be done before
+ * the next build or append of the cube is committed. The files which can not
+ * be deleted while they are opened, e.g. on Windows, are removed later with
+ * the abandoned generations.
+ */
+public class CubeStore
+{
+
+	private static final String CURRENT_GENERATION = "current";
+	private static final String GENERATION_PREFIX = "generation";
+	private static final String MANAGER_NAME = "cube";
+	private static final String DOC_MANAGER_KEY_PREFIX = "cubeStore:";
+
+	// a generation which has never been committed, e.g. left by a failed
+	// build, is removed after one day
+	private static final long ABANDONED_GENERATION_AGE = 24 * 60 * 60 * 1000L;
+
+	private static final String SUM_FUNC = "SUM";
+	private static final String MIN_FUNC = "MIN";
+	private static final String MAX_FUNC = "MAX";
+	private static final String COUNT_FUNC = "COUNT";
+
+	private static final Object commitLock = new Object( );
+
+	private static Logger logger = Logger.getLogger( CubeStore.class.getName( ) );
+
+	private File storeDir;
+
+	/**
+	 *
+	 * @param storeDir
+	 *            the directory of the store
+	 */
+	public CubeStore( String storeDir )
+	{
+		this.storeDir = new File( storeDir );
+	}
+
+	/**
+	 *
+	 * @param cubeName
+	 * @return the key of the document manager of a stored cube in the
+	 *         {@link DocManagerMap}
+	 */
+	public static String getDocManagerKey( String cubeName )
+	{
+		return DOC_MANAGER_KEY_PREFIX + cubeName;
+	}
+
+	/**
+	 * Opens the current generation of a cube.
+	 *
+	 * @param cubeName
+	 * @param signature
+	 *            the signature the cube must be built with, null to accept
+	 *            any signature
+	 * @param timeToLive
+	 *            how many milliseconds the cube can be used after it is
+	 *            built, not positive if the cube never expires
+	 * @return the stored cube, or null if the cube is not in the store, has
+	 *         another signature or has expired
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	public StoredCube open( String cubeName, String signature,
+			long timeToLive ) throws IOException, DataException
+	{
+		File generationDir = getCurrentGeneration( cubeName );
+		if ( generationDir == null )
+		{
+			return null;
+		}
+		StoredCube cube = null;
+		try
+		{
+			cube = new StoredCube( cubeName,
+					generationDir,
+					DocumentManagerFactory.loadFileDocumentManager( generationDir.getPath( ),
+							MANAGER_NAME ) );
+		}
+		catch ( FileNotFoundException e )
+		{
+			// the generation has been replaced and removed
+			return null;
+		}
+		catch ( DataException e )
+		{
+			return null;
+		}
+		if ( !cube.loadInfo( )
+				|| ( signature != null && !signature.equals( cube.getSignature( ) ) )
+				|| ( timeToLive > 0 && System.currentTimeMillis( )
+						- cube.getBuildTime( ) > timeToLive ) )
+		{
+			cube.close( );
+			return null;
+		}
+		return cube;
+	}
+
+	/**
+	 * Creates a new generation of a cube, the cube is built into the document
+	 * manager of the generation, and then {@link #commit(StoredCube, String)}
+	 * makes it the current generation.
+	 *
+	 * @param cubeName
+	 * @param cacheSize
+	 *            the memory cache size of the document manager in MB
+	 * @return
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	public StoredCube create( String cubeName, int cacheSize )
+			throws IOException, DataException
+	{
+		File cubeDir = getCubeDir( cubeName );
+		if ( !FileSecurity.fileExist( cubeDir ) )
+		{
+			FileSecurity.fileMakeDirs( cubeDir );
+		}
+		File generationDir = null;
+		long time = System.currentTimeMillis( );
+		for ( int i = 0; generationDir == null; i++ )
+		{
+			File dir = new File( cubeDir, GENERATION_PREFIX + time + "_" + i );
+			if ( !FileSecurity.fileExist( dir )
+					&& FileSecurity.fileMakeDirs( dir ) )
+			{
+				generationDir = dir;
+			}
+			else if ( i > 100 )
+			{
+				throw new DataException( ResourceConstants.OLAPDIR_CREATE_FAIL,
+						dir.getAbsolutePath( ) );
+			}
+		}
+		return new StoredCube( cubeName,
+				generationDir,
+				DocumentManagerFactory.createFileDocumentManager( generationDir.getPath( ),
+						MANAGER_NAME,
+						cacheSize ) );
+	}
+
+	/**
+	 * Makes a generation created by {@link #create(String, int)} the current
+	 * generation of its cube, and removes the generation it replaces.
+	 *
+	 * @param cube
+	 * @param signature
+	 *            the signature of the data of the cube
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	public void commit( StoredCube cube, String signature )
+			throws IOException, DataException
+	{
+		cube.saveInfo( signature, System.currentTimeMillis( ) );
+		File cubeDir = cube.getGenerationDir( ).getParentFile( );
+		synchronized ( commitLock )
+		{
+			File current = new File( cubeDir, CURRENT_GENERATION );
+			File replaced = getCurrentGeneration( cube.getName( ) );
+			File temp = new File( cubeDir, CURRENT_GENERATION
+					+ "." + cube.getGenerationDir( ).getName( ) );
+			DataOutputStream out = new DataOutputStream( FileSecurity.createFileOutputStream( temp ) );
+			try
+			{
+				out.writeUTF( cube.getGenerationDir( ).getName( ) );
+			}
+			finally
+			{
+				out.close( );
+			}
+			if ( !FileSecurity.fileRenameTo( temp, current ) )
+			{
+				// the target can not be replaced on some platforms
+				FileSecurity.fileDelete( current );
+				if ( !FileSecurity.fileRenameTo( temp, current ) )
+				{
+					FileSecurity.fileDelete( temp );
+					throw new DataException( ResourceConstants.OLAPFILE_CREATE_FAIL,
+							current.getAbsolutePath( ) );
+				}
+			}
+			if ( replaced != null )
+			{
+				deleteGeneration( replaced );
+			}
+			removeAbandonedGenerations( cubeDir, cube.getGenerationDir( ) );
+		}
+	}
+
+	/**
+	 * Appends new fact table rows to the current generation of a cube and
+	 * commits the result as a new generation with the same signature.
+	 * <p>
+	 * The dimensions which have no new members are copied as they are. The
+	 * hierarchies and the level indexes of the other dimensions are rebuilt
+	 * from their stored members and the new ones. The fact table is rewritten
+	 * from its stored rows and the new rows, since the segments of the fact
+	 * table depend on the dimension sizes. None of the stored rows are read
+	 * again from the data sets.
+	 * <p>
+	 * If the fact table rows are aggregated when the cube is built, the
+	 * aggregations must be SUM, MIN, MAX or COUNT, the other ones can not be
+	 * applied to the aggregated rows, and the cube must be rebuilt.
+	 *
+	 * @param cubeName
+	 * @param factTable
+	 *            the new fact table rows, they have the same columns as the
+	 *            rows the cube is built with
+	 * @param dimensionMembers
+	 *            the new members of each dimension by the dimension name,
+	 *            they have the same columns as the members the dimension is
+	 *            built with, they may contain the existing members
+	 * @param memoryCacheSize
+	 *            the memory buffer size of the fact table rows
+	 * @param stopSign
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	public void append( String cubeName, IDatasetIterator factTable,
+			Map<String, IDatasetIterator> dimensionMembers,
+			long memoryCacheSize, StopSign stopSign ) throws IOException,
+			BirtException
+	{
+		StoredCube current = open( cubeName, null, 0 );
+		if ( current == null )
+		{
+			throw new DataException( ResourceConstants.CUBE_NOT_IN_STORE,
+					new Object[]{
+							cubeName, storeDir.getAbsolutePath( )
+					} );
+		}
+		StoredCube appended = null;
+		boolean committed = false;
+		try
+		{
+			Cube cube = new Cube( cubeName, current.getDocumentManager( ) );
+			cube.load( stopSign );
+			FactTable storedFactTable = cube.getFactTable( );
+			MeasureInfo[] measureInfo = storedFactTable.getMeasureInfo( );
+			boolean[] countMeasures = new boolean[measureInfo.length];
+			String[] aggregations = getAppendAggregations( current,
+					measureInfo,
+					countMeasures );
+
+			appended = create( cubeName, 0 );
+			IDimension[] storedDimensions = cube.getDimesions( );
+			Dimension[] dimensions = new Dimension[storedDimensions.length];
+			for ( int i = 0; i < dimensions.length; i++ )
+			{
+				Dimension dimension = (Dimension) storedDimensions[i];
+				IDatasetIterator members = dimensionMembers == null
+						? null : dimensionMembers.get( dimension.getName( ) );
+				if ( members == null )
+				{
+					dimensions[i] = copyDimension( dimension,
+							current.getDocumentManager( ),
+							appended.getDocumentManager( ) );
+				}
+				else
+				{
+					dimensions[i] = appendDimension( dimension,
+							members,
+							appended.getDocumentManager( ),
+							stopSign );
+				}
+			}
+
+			String[] measureNames = new String[measureInfo.length];
+			for ( int i = 0; i < measureNames.length; i++ )
+			{
+				measureNames[i] = measureInfo[i].getMeasureName( );
+			}
+			Map<String, Integer> calculatedMeasure = new LinkedHashMap<String, Integer>( );
+			MeasureInfo[] calculatedMeasureInfo = storedFactTable.getCalcualtedMeasureInfo( );
+			for ( int i = 0; i < calculatedMeasureInfo.length; i++ )
+			{
+				calculatedMeasure.put( NamingUtil.getMeasureName( calculatedMeasureInfo[i].getMeasureName( ) ),
+						Integer.valueOf( calculatedMeasureInfo[i].getDataType( ) ) );
+			}
+
+			AppendedFactTableIterator rows = new AppendedFactTableIterator( storedFactTable,
+					storedDimensions,
+					current.getFactTableJointColumnNames( ),
+					current.getDimJointColumnNames( ),
+					countMeasures,
+					factTable,
+					stopSign );
+			Cube appendedCube = new Cube( cubeName,
+					appended.getDocumentManager( ) );
+			try
+			{
+				appendedCube.create( current.getFactTableJointColumnNames( ),
+						current.getDimJointColumnNames( ),
+						dimensions,
+						rows,
+						measureNames,
+						calculatedMeasure,
+						aggregations,
+						memoryCacheSize,
+						stopSign );
+			}
+			finally
+			{
+				rows.close( );
+			}
+			appendedCube.close( );
+			cube.close( );
+			if ( stopSign.isStopped( ) )
+			{
+				return;
+			}
+			appended.setDefinition( current.getFactTableJointColumnNames( ),
+					current.getDimJointColumnNames( ),
+					current.getMeasureAggrFunctionNames( ) );
+			commit( appended, current.getSignature( ) );
+			committed = true;
+		}
+		finally
+		{
+			current.close( );
+			if ( appended != null )
+			{
+				appended.close( );
+				if ( !committed )
+				{
+					deleteGeneration( appended.getGenerationDir( ) );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that the aggregations of the fact table rows can be applied to
+	 * the rows which have been aggregated. A COUNT is replaced by a SUM of the
+	 * counts, and the new rows count as 1.
+	 */
+	private static String[] getAppendAggregations( StoredCube cube,
+			MeasureInfo[] measureInfo, boolean[] countMeasures )
+			throws DataException
+	{
+		String[] functions = cube.getMeasureAggrFunctionNames( );
+		if ( functions == null || functions.length == 0 )
+		{
+			return functions;
+		}
+		String[] result = new String[functions.length];
+		for ( int i = 0; i < functions.length; i++ )
+		{
+			if ( SUM_FUNC.equalsIgnoreCase( functions[i] )
+					|| MIN_FUNC.equalsIgnoreCase( functions[i] )
+					|| MAX_FUNC.equalsIgnoreCase( functions[i] ) )
+			{
+				result[i] = functions[i];
+			}
+			else if ( COUNT_FUNC.equalsIgnoreCase( functions[i] ) )
+			{
+				result[i] = SUM_FUNC;
+				countMeasures[i] = true;
+			}
+			else
+			{
+				throw new DataException( ResourceConstants.CUBE_STORE_APPEND_UNSUPPORTED,
+						new Object[]{
+								cube.getName( ),
+								measureInfo[i].getMeasureName( ),
+								functions[i]
+						} );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Copies the documents of a dimension which has no new members.
+	 */
+	private static Dimension copyDimension( Dimension dimension,
+			IDocumentManager from, IDocumentManager to ) throws IOException,
+			DataException
+	{
+		String name = dimension.getName( );
+		IHierarchy hierarchy = dimension.getHierarchy( );
+		List<String> documentNames = new ArrayList<String>( );
+		documentNames.add( NamingUtil.getDimensionDocName( name ) );
+		documentNames.add( NamingUtil.getHierarchyDocName( name,
+				hierarchy.getName( ) ) );
+		documentNames.add( NamingUtil.getHierarchyOffsetDocName( name,
+				hierarchy.getName( ) ) );
+		ILevel[] levels = hierarchy.getLevels( );
+		for ( int i = 0; i < levels.length; i++ )
+		{
+			documentNames.add( NamingUtil.getLevelIndexDocName( name,
+					levels[i].getName( ) ) );
+			documentNames.add( NamingUtil.getLevelIndexOffsetDocName( name,
+					levels[i].getName( ) ) );
+		}
+		for ( String documentName : documentNames )
+		{
+			// an empty level has no index
+			if ( from.exist( documentName ) )
+			{
+				copyDocumentObject( from, to, documentName );
+			}
+		}
+		return (Dimension) DimensionFactory.loadDimension( name, to );
+	}
+
+	private static void copyDocumentObject( IDocumentManager from,
+			IDocumentManager to, String name ) throws IOException
+	{
+		IDocumentObject source = from.openDocumentObject( name );
+		IDocumentObject target = to.createDocumentObject( name );
+		byte[] buffer = new byte[4096];
+		int readSize = source.read( buffer, 0, buffer.length );
+		while ( readSize >= 0 )
+		{
+			target.write( buffer, 0, readSize );
+			readSize = source.read( buffer, 0, buffer.length );
+		}
+		target.close( );
+		source.close( );
+	}
+
+	/**
+	 * Rebuilds the hierarchy and the level indexes of a dimension from its
+	 * stored members and the new ones.
+	 */
+	private static Dimension appendDimension( Dimension dimension,
+			IDatasetIterator members, IDocumentManager documentManager,
+			StopSign stopSign ) throws IOException, BirtException
+	{
+		ILevel[] levels = dimension.getHierarchy( ).getLevels( );
+		LevelDefinition[] levelDefs = new LevelDefinition[levels.length];
+		for ( int i = 0; i < levels.length; i++ )
+		{
+			levelDefs[i] = new LevelDefinition( levels[i].getName( ),
+					levels[i].getKeyNames( ),
+					levels[i].getAttributeNames( ) );
+			levelDefs[i].setTimeType( levels[i].getLeveType( ) );
+		}
+		Hierarchy hierarchy = new Hierarchy( documentManager,
+				dimension.getName( ),
+				dimension.getHierarchy( ).getName( ) );
+		AppendedMemberIterator iterator = new AppendedMemberIterator( levels,
+				dimension.getAllRows( stopSign ),
+				members );
+		hierarchy.createAndSaveHierarchy( iterator, levelDefs, stopSign );
+		return new Dimension( dimension.getName( ),
+				documentManager,
+				hierarchy,
+				dimension.isTime( ) );
+	}
+
+	/**
+	 *
+	 * @param cubeName
+	 * @return the directory of the current generation, or null if the cube
+	 *         has not been committed
+	 * @throws IOException
+	 */
+	private File getCurrentGeneration( String cubeName ) throws IOException
+	{
+		File current = new File( getCubeDir( cubeName ), CURRENT_GENERATION );
+		if ( !FileSecurity.fileExist( current ) )
+		{
+			return null;
+		}
+		String generationName = null;
+		try
+		{
+			DataInputStream in = new DataInputStream( FileSecurity.createFileInputStream( current ) );
+			try
+			{
+				generationName = in.readUTF( );
+			}
+			finally
+			{
+				in.close( );
+			}
+		}
+		catch ( FileNotFoundException e )
+		{
+			return null;
+		}
+		catch ( DataException e )
+		{
+			return null;
+		}
+		if ( !generationName.startsWith( GENERATION_PREFIX )
+				|| generationName.indexOf( File.separatorChar ) >= 0
+				|| generationName.indexOf( '/' ) >= 0 )
+		{
+			return null;
+		}
+		File generationDir = new File( getCubeDir( cubeName ), generationName );
+		return FileSecurity.fileIsDirectory( generationDir )
+				? generationDir : null;
+	}
+
+	/**
+	 *
+	 * @param cubeName
+	 * @return the directory of a cube, the characters which may not be used
+	 *         in the file names are escaped
+	 */
+	private File getCubeDir( String cubeName )
+	{
+		StringBuffer dirName = new StringBuffer( );
+		for ( int i = 0; i < cubeName.length( ); i++ )
+		{
+			char c = cubeName.charAt( i );
+			if ( ( c >= 'a' && c <= 'z' )
+					|| ( c >= 'A' && c <= 'Z' ) || ( c >= '0' && c <= '9' )
+					|| c == '.' || c == '-' )
+			{
+				dirName.append( c );
+			}
+			else
+			{
+				String hex = Integer.toHexString( c );
+				dirName.append( '_' ).append( "0000".substring( hex.length( ) ) )
+						.append( hex );
+			}
+		}
+		return new File( storeDir, dirName.toString( ) );
+	}
+
+	private static void removeAbandonedGenerations( File cubeDir,
+			File currentGeneration )
+	{
+		File[] files = FileSecurity.fileListFiles( cubeDir );
+		if ( files == null )
+		{
+			return;
+		}
+		long time = System.currentTimeMillis( );
+		for ( int i = 0; i < files.length; i++ )
+		{
+			if ( files[i].getName( ).startsWith( GENERATION_PREFIX )
+					&& !files[i].equals( currentGeneration )
+					&& time - files[i].lastModified( ) > ABANDONED_GENERATION_AGE )
+			{
+				deleteGeneration( files[i] );
+			}
+		}
+	}
+
+	/**
+	 * Deletes the files of a generation. The files which are still opened
+	 * can not be deleted on some platforms, they are deleted with the
+	 * abandoned generations later.
+	 */
+	private static void deleteGeneration( File generationDir )
+	{
+		File[] files = FileSecurity.fileListFiles( generationDir );
+		if ( files != null )
+		{
+			for ( int i = 0; i < files.length; i++ )
+			{
+				FileSecurity.fileDelete( files[i] );
+			}
+		}
+		if ( !FileSecurity.fileDelete( generationDir ) )
+		{
+			logger.log( Level.FINE, "The cube generation "
+					+ generationDir.getAbsolutePath( )
+					+ " is in use and will be removed later." );
+		}
+	}
+
+	/**
+	 * Iterates the stored members of a dimension, and then the new members.
+	 * The columns are the key columns and the attribute columns of the
+	 * levels.
+	 */
+	private static class AppendedMemberIterator implements IDatasetIterator
+	{
+
+		private List<String> fieldNames = new ArrayList<String>( );
+		private List<Integer> fieldTypes = new ArrayList<Integer>( );
+		// the level and column of each field, a negative column is the
+		// (-index - 1) of an attribute
+		private List<int[]> fieldPositions = new ArrayList<int[]>( );
+
+		private IDiskArray storedRows;
+		private int storedRowIndex = -1;
+		private DimensionRow storedRow;
+
+		private IDatasetIterator members;
+		private int[] memberFieldIndex;
+
+		AppendedMemberIterator( ILevel[] levels, IDiskArray storedRows,
+				IDatasetIterator members ) throws BirtException
+		{
+			for ( int i = 0; i < levels.length; i++ )
+			{
+				String[] keyNames = levels[i].getKeyNames( );
+				for ( int j = 0; j < keyNames.length; j++ )
+				{
+					addField( keyNames[j],
+							levels[i].getKeyDataType( keyNames[j] ),
+							i,
+							j );
+				}
+				String[] attributeNames = levels[i].getAttributeNames( );
+				if ( attributeNames != null )
+				{
+					for ( int j = 0; j < attributeNames.length; j++ )
+					{
+						addField( attributeNames[j],
+								levels[i].getAttributeDataType( attributeNames[j] ),
+								i,
+								-j - 1 );
+					}
+				}
+			}
+			this.storedRows = storedRows;
+			this.members = members;
+			memberFieldIndex = new int[fieldNames.size( )];
+			for ( int i = 0; i < memberFieldIndex.length; i++ )
+			{
+				memberFieldIndex[i] = members.getFieldIndex( fieldNames.get( i ) );
+			}
+		}
+
+		private void addField( String name, int type, int level, int column )
+		{
+			if ( fieldNames.contains( name ) )
+			{
+				return;
+			}
+			fieldNames.add( name );
+			fieldTypes.add( Integer.valueOf( type ) );
+			fieldPositions.add( new int[]{
+					level, column
+			} );
+		}
+
+		public int getFieldIndex( String name ) throws BirtException
+		{
+			return fieldNames.indexOf( name );
+		}
+
+		public int getFieldType( String name ) throws BirtException
+		{
+			return fieldTypes.get( fieldNames.indexOf( name ) ).intValue( );
+		}
+
+		public boolean next( ) throws BirtException
+		{
+			if ( storedRows != null )
+			{
+				try
+				{
+					storedRowIndex++;
+					if ( storedRowIndex < storedRows.size( ) )
+					{
+						storedRow = (DimensionRow) storedRows.get( storedRowIndex );
+						return true;
+					}
+					storedRows.close( );
+				}
+				catch ( IOException e )
+				{
+					throw new DataException( e.getLocalizedMessage( ), e );
+				}
+				storedRows = null;
+				storedRow = null;
+			}
+			return members.next( );
+		}
+
+		public Object getValue( int fieldIndex ) throws BirtException
+		{
+			if ( storedRow == null )
+			{
+				return memberFieldIndex[fieldIndex] < 0
+						? null : members.getValue( memberFieldIndex[fieldIndex] );
+			}
+			int[] position = fieldPositions.get( fieldIndex );
+			Member member = storedRow.getMembers( )[position[0]];
+			return position[1] >= 0 ? member.getKeyValues( )[position[1]]
+					: member.getAttributes( )[-position[1] - 1];
+		}
+
+		public void close( ) throws BirtException
+		{
+			// the new members are closed by their provider
+		}
+	}
+
+	/**
+	 * Iterates the stored fact table rows, and then the new rows. The stored
+	 * rows are mapped back from their dimension positions to the values of
+	 * the joint columns.
+	 */
+	private static class AppendedFactTableIterator implements IDatasetIterator
+	{
+
+		private Map<String, Integer> fieldIndex = new HashMap<String, Integer>( );
+		private int[] fieldTypes;
+		// the dimension and joint column of each key field
+		private int[][] keyPositions;
+		private int measureStart;
+		private boolean[] countMeasures;
+
+		private FactTableRowIterator storedRows;
+		private IDiskArray[] storedDimensionRows;
+		private int[][][] jointColumnIndex;
+		private int[] currentPositions;
+		private Object[][] currentKeyValues;
+
+		private IDatasetIterator newRows;
+		private int[] newRowFieldIndex;
+
+		AppendedFactTableIterator( FactTable factTable,
+				IDimension[] dimensions, String[][] factTableJointColumnNames,
+				String[][] dimJointColumnNames, boolean[] countMeasures,
+				IDatasetIterator newRows, StopSign stopSign )
+				throws IOException, BirtException
+		{
+			Dimension[] tDimensions = new Dimension[dimensions.length];
+			for ( int i = 0; i < tDimensions.length; i++ )
+			{
+				tDimensions[i] = (Dimension) dimensions[i];
+			}
+			jointColumnIndex = FactTableAccessor.getColumnIndex( dimJointColumnNames,
+					tDimensions );
+			List<int[]> positions = new ArrayList<int[]>( );
+			List<Integer> types = new ArrayList<Integer>( );
+			List<String> names = new ArrayList<String>( );
+			for ( int i = 0; i < factTableJointColumnNames.length; i++ )
+			{
+				ILevel[] levels = tDimensions[i].getHierarchy( ).getLevels( );
+				for ( int j = 0; j < factTableJointColumnNames[i].length; j++ )
+				{
+					int[] column = jointColumnIndex[i][j];
+					ILevel level = levels[column[1]];
+					names.add( factTableJointColumnNames[i][j] );
+					types.add( Integer.valueOf( column[0] == 0
+							? level.getKeyDataType( dimJointColumnNames[i][j] )
+							: level.getAttributeDataType( dimJointColumnNames[i][j] ) ) );
+					positions.add( new int[]{
+							i, j
+					} );
+				}
+			}
+			keyPositions = positions.toArray( new int[positions.size( )][] );
+			measureStart = names.size( );
+			MeasureInfo[] measureInfo = factTable.getMeasureInfo( );
+			for ( int i = 0; i < measureInfo.length; i++ )
+			{
+				names.add( measureInfo[i].getMeasureName( ) );
+				types.add( Integer.valueOf( measureInfo[i].getDataType( ) ) );
+			}
+			fieldTypes = new int[types.size( )];
+			for ( int i = 0; i < fieldTypes.length; i++ )
+			{
+				fieldIndex.put( names.get( i ), Integer.valueOf( i ) );
+				fieldTypes[i] = types.get( i ).intValue( );
+			}
+			this.countMeasures = countMeasures;
+
+			storedDimensionRows = new IDiskArray[dimensions.length];
+			for ( int i = 0; i < dimensions.length; i++ )
+			{
+				storedDimensionRows[i] = dimensions[i].getAllRows( stopSign );
+			}
+			currentPositions = new int[dimensions.length];
+			currentKeyValues = new Object[dimensions.length][];
+			storedRows = new FactTableRowIterator( factTable,
+					new String[0],
+					new IDiskArray[0],
+					stopSign );
+
+			this.newRows = newRows;
+			newRowFieldIndex = new int[fieldTypes.length];
+			for ( int i = 0; i < newRowFieldIndex.length; i++ )
+			{
+				newRowFieldIndex[i] = newRows.getFieldIndex( names.get( i ) );
+			}
+		}
+
+		public int getFieldIndex( String name ) throws BirtException
+		{
+			Integer index = fieldIndex.get( name );
+			return index == null ? -1 : index.intValue( );
+		}
+
+		public int getFieldType( String name ) throws BirtException
+		{
+			return fieldTypes[getFieldIndex( name )];
+		}
+
+		public boolean next( ) throws BirtException
+		{
+			if ( storedRows != null )
+			{
+				try
+				{
+					if ( storedRows.next( ) )
+					{
+						for ( int i = 0; i < currentPositions.length; i++ )
+						{
+							int position = storedRows.getDimensionPosition( i );
+							if ( currentKeyValues[i] == null
+									|| currentPositions[i] != position )
+							{
+								currentPositions[i] = position;
+								currentKeyValues[i] = FactTableAccessor.getJointKeyValues( jointColumnIndex[i],
+										(DimensionRow) storedDimensionRows[i].get( position ) );
+							}
+						}
+						return true;
+					}
+					closeStoredRows( );
+				}
+				catch ( IOException e )
+				{
+					throw new DataException( e.getLocalizedMessage( ), e );
+				}
+			}
+			return newRows.next( );
+		}
+
+		public Object getValue( int fieldIndex ) throws BirtException
+		{
+			if ( storedRows != null )
+			{
+				if ( fieldIndex < measureStart )
+				{
+					int[] position = keyPositions[fieldIndex];
+					return currentKeyValues[position[0]][position[1]];
+				}
+				return storedRows.getMeasure( fieldIndex - measureStart );
+			}
+			Object value = newRowFieldIndex[fieldIndex] < 0
+					? null : newRows.getValue( newRowFieldIndex[fieldIndex] );
+			if ( fieldIndex >= measureStart
+					&& countMeasures[fieldIndex - measureStart] )
+			{
+				// the stored rows keep the counts, a new row counts as 1
+				return DataTypeUtil.convert( Integer.valueOf( value == null
+						? 0 : 1 ), fieldTypes[fieldIndex] );
+			}
+			return value;
+		}
+
+		public void close( ) throws BirtException
+		{
+			try
+			{
+				closeStoredRows( );
+			}
+			catch ( IOException e )
+			{
+				throw new DataException( e.getLocalizedMessage( ), e );
+			}
+		}
+
+		private void closeStoredRows( ) throws IOException, DataException
+		{
+			if ( storedRows == null )
+			{
+				return;
+			}
+			storedRows.close( );
+			storedRows = null;
+			for ( int i = 0; i < storedDimensionRows.length; i++ )
+			{
+				storedDimensionRows[i].close( );
+			}
+		}
+	}
+}
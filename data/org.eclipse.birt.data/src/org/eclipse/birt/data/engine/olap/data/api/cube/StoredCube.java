@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.api.cube;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
+import org.eclipse.birt.data.engine.olap.data.impl.NamingUtil;
+
+/**
+ * A generation of a cube kept in a {@link CubeStore}. The documents of the
+ * cube are written into the document manager of the generation, the
+ * generation is used by the later report runs after it is committed to the
+ * store.
+ */
+public class StoredCube
+{
+
+	private static final int VERSION = 1;
+
+	private String name;
+	private File generationDir;
+	private IDocumentManager documentManager;
+
+	private long buildTime;
+	private String signature;
+	private String[][] factTableJointColumnNames;
+	private String[][] dimJointColumnNames;
+	private String[] measureAggrFunctionNames;
+
+	/**
+	 *
+	 * @param name
+	 * @param generationDir
+	 * @param documentManager
+	 */
+	StoredCube( String name, File generationDir,
+			IDocumentManager documentManager )
+	{
+		this.name = name;
+		this.generationDir = generationDir;
+		this.documentManager = documentManager;
+	}
+
+	/**
+	 *
+	 * @return the cube name
+	 */
+	public String getName( )
+	{
+		return name;
+	}
+
+	/**
+	 *
+	 * @return the document manager which keeps the documents of the cube
+	 */
+	public IDocumentManager getDocumentManager( )
+	{
+		return documentManager;
+	}
+
+	/**
+	 *
+	 * @return the time when the generation was committed, 0 if it is not
+	 *         committed
+	 */
+	public long getBuildTime( )
+	{
+		return buildTime;
+	}
+
+	/**
+	 *
+	 * @return the signature of the data of the cube
+	 */
+	public String getSignature( )
+	{
+		return signature;
+	}
+
+	File getGenerationDir( )
+	{
+		return generationDir;
+	}
+
+	String[][] getFactTableJointColumnNames( )
+	{
+		return factTableJointColumnNames;
+	}
+
+	String[][] getDimJointColumnNames( )
+	{
+		return dimJointColumnNames;
+	}
+
+	String[] getMeasureAggrFunctionNames( )
+	{
+		return measureAggrFunctionNames;
+	}
+
+	/**
+	 * Records how the fact table of the cube is created, so new rows can be
+	 * appended to it later.
+	 *
+	 * @param factTableJointColumnNames
+	 * @param dimJointColumnNames
+	 * @param measureAggrFunctionNames
+	 */
+	void setDefinition( String[][] factTableJointColumnNames,
+			String[][] dimJointColumnNames, String[] measureAggrFunctionNames )
+	{
+		this.factTableJointColumnNames = factTableJointColumnNames;
+		this.dimJointColumnNames = dimJointColumnNames;
+		this.measureAggrFunctionNames = measureAggrFunctionNames;
+	}
+
+	/**
+	 *
+	 * @return false if the generation has no information of a committed cube
+	 * @throws IOException
+	 */
+	boolean loadInfo( ) throws IOException
+	{
+		IDocumentObject documentObject = documentManager.openDocumentObject( NamingUtil.getCubeStoreInfoDocName( name ) );
+		if ( documentObject == null )
+		{
+			return false;
+		}
+		try
+		{
+			if ( documentObject.readInt( ) != VERSION )
+			{
+				return false;
+			}
+			buildTime = documentObject.readDate( ).getTime( );
+			signature = documentObject.readBoolean( )
+					? documentObject.readString( ) : null;
+			factTableJointColumnNames = readNames( documentObject );
+			dimJointColumnNames = readNames( documentObject );
+			String[][] functionNames = readNames( documentObject );
+			measureAggrFunctionNames = functionNames == null
+					? null : functionNames[0];
+			return factTableJointColumnNames != null
+					&& dimJointColumnNames != null;
+		}
+		finally
+		{
+			documentObject.close( );
+		}
+	}
+
+	/**
+	 *
+	 * @param signature
+	 * @param buildTime
+	 * @throws IOException
+	 */
+	void saveInfo( String signature, long buildTime ) throws IOException
+	{
+		this.signature = signature;
+		this.buildTime = buildTime;
+		IDocumentObject documentObject = documentManager.createDocumentObject( NamingUtil.getCubeStoreInfoDocName( name ) );
+		documentObject.writeInt( VERSION );
+		documentObject.writeDate( new Date( buildTime ) );
+		documentObject.writeBoolean( signature != null );
+		if ( signature != null )
+		{
+			documentObject.writeString( signature );
+		}
+		writeNames( documentObject, factTableJointColumnNames );
+		writeNames( documentObject, dimJointColumnNames );
+		writeNames( documentObject, measureAggrFunctionNames == null
+				? null : new String[][]{
+					measureAggrFunctionNames
+				} );
+		documentObject.close( );
+		documentManager.flush( );
+	}
+
+	/**
+	 *
+	 * @throws IOException
+	 */
+	public void close( ) throws IOException
+	{
+		documentManager.close( );
+	}
+
+	private static void writeNames( IDocumentObject documentObject,
+			String[][] names ) throws IOException
+	{
+		if ( names == null )
+		{
+			documentObject.writeInt( -1 );
+			return;
+		}
+		documentObject.writeInt( names.length );
+		for ( int i = 0; i < names.length; i++ )
+		{
+			documentObject.writeInt( names[i].length );
+			for ( int j = 0; j < names[i].length; j++ )
+			{
+				documentObject.writeString( names[i][j] );
+			}
+		}
+	}
+
+	private static String[][] readNames( IDocumentObject documentObject )
+			throws IOException
+	{
+		int length = documentObject.readInt( );
+		if ( length < 0 )
+		{
+			return null;
+		}
+		String[][] names = new String[length][];
+		for ( int i = 0; i < length; i++ )
+		{
+			names[i] = new String[documentObject.readInt( )];
+			for ( int j = 0; j < names[i].length; j++ )
+			{
+				names[i][j] = documentObject.readString( );
+			}
+		}
+		return names;
+	}
+}
@@ -39,6 +39,7 @@ public class Cube implements ICube
 	protected IDocumentManager documentManager;
 	protected IDimension[] dimension;
 	private FactTable factTable;
+	private int threadCount = 1;
 
 	private static Logger logger = Logger.getLogger( Cube.class.getName( ) );
 
@@ -58,6 +59,17 @@ public class Cube implements ICube
 		logger.exiting( Cube.class.getName( ), "Cube" );
 	}
 
+	/**
+	 * Sets how many threads are used to create the fact table of the cube.
+	 * 
+	 * @param threadCount
+	 * @see FactTableAccessor#setThreadCount(int)
+	 */
+	public void setThreadCount( int threadCount )
+	{
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * 
 	 * @param keyColumnNames
@@ -124,6 +136,7 @@ public class Cube implements ICube
 		}
 		FactTableAccessor factTableConstructor = new FactTableAccessor( documentManager );
 		factTableConstructor.setMemoryCacheSize( cacheSize );
+		factTableConstructor.setThreadCount( threadCount );
 		factTable = factTableConstructor.saveFactTable( name,
 				factTableJointColumnNames,
 				DimJointColumnNames,
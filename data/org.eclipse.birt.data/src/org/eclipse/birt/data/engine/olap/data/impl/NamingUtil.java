@@ -25,7 +25,9 @@ public class NamingUtil
 	private static final String HIERARCHY_OFFSET = OLAP_PREFIX + "hierarchy_offset_";
 	private static final String FACT_TABLE = OLAP_PREFIX + "fact_table_";
 	private static final String FTSU_LIST = OLAP_PREFIX + "ftsu_list_";
+	private static final String FTSU_INDEX = OLAP_PREFIX + "ftsu_index_";
 	private static final String AGGREGATION_RS_DOC = OLAP_PREFIX + "rs_doc_";
+	private static final String CUBE_STORE_INFO = OLAP_PREFIX + "cube_store_info_";
 
 	public static final String DERIVED_MEASURE_PREFIX = "_${DERIVED_MEASURE}$_";
 
@@ -139,6 +141,16 @@ public class NamingUtil
 		return FTSU_LIST + factTableName;
 	}
 	
+	/**
+	 * 
+	 * @param factTableName
+	 * @return
+	 */
+	public static String getFTSUIndexName( String factTableName )
+	{
+		return FTSU_INDEX + factTableName;
+	}
+	
 	/**
 	 * 
 	 * @param ID
@@ -148,4 +160,14 @@ public class NamingUtil
 	{
 		return AGGREGATION_RS_DOC + ID;
 	}
+	
+	/**
+	 * 
+	 * @param cubeName
+	 * @return
+	 */
+	public static String getCubeStoreInfoDocName( String cubeName )
+	{
+		return CUBE_STORE_INFO + cubeName;
+	}
 }
@@ -15,8 +15,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import org.eclipse.birt.core.exception.BirtException;
@@ -38,6 +42,7 @@ import org.eclipse.birt.data.engine.olap.data.impl.AggregationFunctionDefinition
 import org.eclipse.birt.data.engine.olap.data.impl.DimColumn;
 import org.eclipse.birt.data.engine.olap.data.impl.dimension.Member;
 import org.eclipse.birt.data.engine.olap.data.util.BufferedStructureArray;
+import org.eclipse.birt.data.engine.olap.data.util.CubeBuildExecutor;
 import org.eclipse.birt.data.engine.olap.data.util.DataType;
 import org.eclipse.birt.data.engine.olap.data.util.DiskSortedStack;
 import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
@@ -74,6 +79,10 @@ public class AggregationExecutor
 	public Row4Aggregation[] aggregationRow;
 	private AggregationFunctionDefinition simpleFunc;
 	private boolean existReferenceDate = false;
+	private int threadCount = 1;
+	private boolean parallelizable;
+	private GroupTaskRunner groupTaskRunner;
+	private SortedRowPusher[] sortedRowPushers;
 	
 	private static String[] simpleFuncNames = new String[]{
 		"SUM",
@@ -152,6 +161,7 @@ public class AggregationExecutor
 			}
 		}
 		sortedFactRows = new DiskSortedStackWrapper[aggregations.length];
+		parallelizable = isParallelizable( aggregations );
 		getAggregationLevelIndex( );
 		logger.exiting( AggregationExecutor.class.getName( ),
 				"AggregationExecutor" );
@@ -176,6 +186,34 @@ public class AggregationExecutor
 		return false;
 	}
 	
+	/**
+	 * The aggregation groups can be calculated in parallel unless a function
+	 * evaluates a filter or a time function, they share the script scope and
+	 * the dimension reader of the query.
+	 * 
+	 * @param aggregations
+	 * @return
+	 */
+	private static boolean isParallelizable( AggregationDefinition[] aggregations )
+	{
+		for ( int i = 0; i < aggregations.length; i++ )
+		{
+			AggregationFunctionDefinition[] aggrFunc = aggregations[i].getAggregationFunctions( );
+			if ( aggrFunc == null )
+				continue;
+			for ( int j = 0; j < aggrFunc.length; j++ )
+			{
+				if ( aggrFunc[j].getFilterEvalHelper( ) != null
+						|| aggrFunc[j].getTimeFunction( ) != null
+						|| aggrFunc[j].getTimeFunctionFilter( ) != null )
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
 	private static int find( DimColumn[] colArray, DimColumn col )
 	{
 		if( colArray == null || col == null )
@@ -282,34 +320,43 @@ public class AggregationExecutor
 	public IAggregationResultSet[] execute( StopSign stopSign )
 			throws IOException, DataException
 	{
-		populateSortedFactRows( stopSign );
-		for ( int i = 0; i < allSortedFactRows.size( ); i++ )
+		if ( threadCount > 1 && parallelizable )
 		{
-			DiskSortedStackWrapper diskSortedStackWrapper = (DiskSortedStackWrapper) allSortedFactRows.get( i );
-			int[] calculatorIndexs = new int[sortedFactRows.length];
-			int pos = 0;
-			for ( int j = 0; j < calculatorIndexs.length; j++ )
+			groupTaskRunner = new GroupTaskRunner( threadCount );
+		}
+		try
+		{
+			populateSortedFactRows( stopSign );
+			for ( int i = 0; i < allSortedFactRows.size( ); i++ )
 			{
-				if ( sortedFactRows[j] == diskSortedStackWrapper )
+				final DiskSortedStackWrapper diskSortedStackWrapper = (DiskSortedStackWrapper) allSortedFactRows.get( i );
+				if ( groupTaskRunner == null )
 				{
-					calculatorIndexs[pos] = j;
-					pos++;
+					calculate( diskSortedStackWrapper, stopSign );
+					continue;
 				}
-			}
-			while ( diskSortedStackWrapper.pop( ) != null
-					&& !stopSign.isStopped( ) )
-			{
-				Row4Aggregation row = (Row4Aggregation) diskSortedStackWrapper.getCurrentObject( );
-				for ( int j = 0; j < pos; j++ )
-				{
-//					aggregationCalculators[calculatorIndexs[j]].onRow( cut( row,
-//							levelIndex[calculatorIndexs[j]].length / 2 ) );
-					if( timeFunctionCalculator[calculatorIndexs[j]].existTimeFunction() )
+				// each group has its own calculators
+				final StopSign groupStopSign = stopSign;
+				groupTaskRunner.submit( new Callable<Object>( ) {
+
+					public Object call( ) throws IOException, DataException
 					{
-						timeFunctionCalculator[calculatorIndexs[j]].onRow( row );
+						calculate( diskSortedStackWrapper, groupStopSign );
+						return null;
 					}
-					aggregationCalculators[calculatorIndexs[j]].onRow( row );
-				}
+				} );
+			}
+			if ( groupTaskRunner != null )
+			{
+				groupTaskRunner.waitForAll( );
+			}
+		}
+		finally
+		{
+			if ( groupTaskRunner != null )
+			{
+				groupTaskRunner.close( );
+				groupTaskRunner = null;
 			}
 		}
 		IAggregationResultSet[] resultSets = 
@@ -352,6 +399,44 @@ public class AggregationExecutor
 		}
 	}
 	
+	/**
+	 * Feeds the sorted rows of an aggregation group to its calculators.
+	 * 
+	 * @param diskSortedStackWrapper
+	 * @param stopSign
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private void calculate( DiskSortedStackWrapper diskSortedStackWrapper,
+			StopSign stopSign ) throws IOException, DataException
+	{
+		int[] calculatorIndexs = new int[sortedFactRows.length];
+		int pos = 0;
+		for ( int j = 0; j < calculatorIndexs.length; j++ )
+		{
+			if ( sortedFactRows[j] == diskSortedStackWrapper )
+			{
+				calculatorIndexs[pos] = j;
+				pos++;
+			}
+		}
+		while ( diskSortedStackWrapper.pop( ) != null
+				&& !stopSign.isStopped( ) )
+		{
+			Row4Aggregation row = (Row4Aggregation) diskSortedStackWrapper.getCurrentObject( );
+			for ( int j = 0; j < pos; j++ )
+			{
+//				aggregationCalculators[calculatorIndexs[j]].onRow( cut( row,
+//						levelIndex[calculatorIndexs[j]].length / 2 ) );
+				if( timeFunctionCalculator[calculatorIndexs[j]].existTimeFunction() )
+				{
+					timeFunctionCalculator[calculatorIndexs[j]].onRow( row );
+				}
+				aggregationCalculators[calculatorIndexs[j]].onRow( row );
+			}
+		}
+	}
+	
 	private void populateMissingAggrResultSetRows( IAggregationResultSet[] rs )
 			throws IOException
 	{
@@ -696,6 +781,14 @@ public class AggregationExecutor
 		{
 			diskSortedStackWrapper[i] = ( (DiskSortedStackWrapper) allSortedFactRows.get( i ) );
 		}
+		if ( groupTaskRunner != null )
+		{
+			sortedRowPushers = new SortedRowPusher[allSortedFactRows.size( )];
+			for ( int i = 0; i < sortedRowPushers.length; i++ )
+			{
+				sortedRowPushers[i] = new SortedRowPusher( i );
+			}
+		}
 		try
 		{
 			while ( dataSet4Aggregation.next( ) && !stopSign.isStopped( ) )
@@ -708,15 +801,13 @@ public class AggregationExecutor
 						Member[] members = getLevelMembers( levelIndex );
 						if( aggregationRow[i] != null )
 						{
-							if( existReferenceDate )
+							if( sortedRowPushers != null )
 							{
-								diskSortedStackWrapper[i].diskSortedStack.push( aggregationRow[i] );
+								sortedRowPushers[i].push( aggregationRow[i] );
 							}
 							else
 							{
-								Row4Aggregation popRow = this.mergeRow4Aggregations[i].push( aggregationRow[i] );
-								if( popRow != null )
-									diskSortedStackWrapper[i].diskSortedStack.push( popRow );
+								pushSortedRow( i, aggregationRow[i] );
 							}
 						}
 						aggregationRow[i] = createRow4Aggregation( );
@@ -750,34 +841,78 @@ public class AggregationExecutor
 			}
 			for ( int i = 0; i < allSortedFactRows.size( ); i++ )
 			{
-				if( aggregationRow[i] != null )
+				if( sortedRowPushers != null )
 				{
-					if( existReferenceDate )
-					{
-						diskSortedStackWrapper[i].diskSortedStack.push( aggregationRow[i] );
-					}
-					else
-					{
-						Row4Aggregation popRow = this.mergeRow4Aggregations[i].push( aggregationRow[i] );
-						if( popRow != null )
-							diskSortedStackWrapper[i].diskSortedStack.push( popRow );
-					}
+					sortedRowPushers[i].close( aggregationRow[i] );
+					continue;
 				}
-				if( !existReferenceDate )
+				if( aggregationRow[i] != null )
 				{
-					List<Row4Aggregation> remainRows = this.mergeRow4Aggregations[i].getAll( );
-					for( int j = 0; j < remainRows.size(); j++ )
-					{
-						diskSortedStackWrapper[i].diskSortedStack.push( remainRows.get( j ) );
-					}
-					this.mergeRow4Aggregations[i] = null;
+					pushSortedRow( i, aggregationRow[i] );
 				}
+				flushSortedRows( i );
+			}
+			if( sortedRowPushers != null )
+			{
+				groupTaskRunner.waitForAll( );
 			}
 		}
 		catch ( BirtException e )
 		{
 			throw DataException.wrap( e );
 		}
+		finally
+		{
+			sortedRowPushers = null;
+		}
+	}
+	
+	/**
+	 * Pushes a row of an aggregation group to its sorted stack, the rows of
+	 * the simple function are merged before they are sorted.
+	 * 
+	 * @param groupIndex
+	 * @param row
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private void pushSortedRow( int groupIndex, Row4Aggregation row )
+			throws IOException, DataException
+	{
+		DiskSortedStack diskSortedStack = ( (DiskSortedStackWrapper) allSortedFactRows.get( groupIndex ) ).diskSortedStack;
+		if( existReferenceDate )
+		{
+			diskSortedStack.push( row );
+		}
+		else
+		{
+			Row4Aggregation popRow = this.mergeRow4Aggregations[groupIndex].push( row );
+			if( popRow != null )
+				diskSortedStack.push( popRow );
+		}
+	}
+	
+	/**
+	 * Pushes the merged rows of an aggregation group which are still in the
+	 * memory to its sorted stack.
+	 * 
+	 * @param groupIndex
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private void flushSortedRows( int groupIndex ) throws IOException,
+			DataException
+	{
+		if( !existReferenceDate )
+		{
+			DiskSortedStack diskSortedStack = ( (DiskSortedStackWrapper) allSortedFactRows.get( groupIndex ) ).diskSortedStack;
+			List<Row4Aggregation> remainRows = this.mergeRow4Aggregations[groupIndex].getAll( );
+			for( int j = 0; j < remainRows.size(); j++ )
+			{
+				diskSortedStack.push( remainRows.get( j ) );
+			}
+			this.mergeRow4Aggregations[groupIndex] = null;
+		}
 	}
 	
 	protected Row4Aggregation createRow4Aggregation( )
@@ -1109,6 +1244,180 @@ public class AggregationExecutor
 	{
 		return memoryCacheSize;
 	}
+	
+	/**
+	 * Sets how many threads may calculate the aggregations. The fact table
+	 * rows are still read in the query thread, the rows of each group of
+	 * aggregations which share a sort order are merged, sorted and calculated
+	 * in another thread. The aggregations are calculated in the query thread
+	 * only if a function has a filter or a time function.
+	 * 
+	 * @param threadCount
+	 */
+	public void setThreadCount( int threadCount )
+	{
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * Hands the rows of an aggregation group to a thread in batches, the
+	 * batches of a group are pushed one by one to its sorted stack.
+	 */
+	private class SortedRowPusher
+	{
+		private static final int BATCH_SIZE = 1000;
+		
+		private int groupIndex;
+		private List<Row4Aggregation> batch = new ArrayList<Row4Aggregation>( BATCH_SIZE );
+		private Future<?> task;
+		
+		SortedRowPusher( int groupIndex )
+		{
+			this.groupIndex = groupIndex;
+		}
+		
+		void push( Row4Aggregation row ) throws IOException, DataException
+		{
+			batch.add( row );
+			if ( batch.size( ) == BATCH_SIZE )
+			{
+				flush( false );
+			}
+		}
+		
+		/**
+		 * Pushes the last row and the rows left in the memory.
+		 * 
+		 * @param lastRow
+		 *            the last row of the group, it may be null
+		 * @throws IOException
+		 * @throws DataException
+		 */
+		void close( Row4Aggregation lastRow ) throws IOException, DataException
+		{
+			if ( lastRow != null )
+			{
+				batch.add( lastRow );
+			}
+			flush( true );
+		}
+		
+		private void flush( final boolean last ) throws IOException,
+				DataException
+		{
+			if ( task != null )
+			{
+				groupTaskRunner.waitFor( task );
+			}
+			final List<Row4Aggregation> rows = batch;
+			batch = new ArrayList<Row4Aggregation>( BATCH_SIZE );
+			task = groupTaskRunner.submit( new Callable<Object>( ) {
+
+				public Object call( ) throws IOException, DataException
+				{
+					for ( int i = 0; i < rows.size( ); i++ )
+					{
+						pushSortedRow( groupIndex, rows.get( i ) );
+					}
+					if ( last )
+					{
+						flushSortedRows( groupIndex );
+					}
+					return null;
+				}
+			} );
+		}
+	}
+}
+
+/**
+ * Runs the tasks of the aggregation groups in the thread pool of
+ * {@link CubeBuildExecutor}, at most threadCount - 1 tasks run at the same
+ * time beside the query thread.
+ */
+class GroupTaskRunner
+{
+
+	private int maxRunningTasks;
+	private LinkedList<Future<?>> runningTasks = new LinkedList<Future<?>>( );
+
+	GroupTaskRunner( int threadCount )
+	{
+		this.maxRunningTasks = Math.max( 1, threadCount - 1 );
+	}
+
+	/**
+	 * Submits a task, waits for the oldest running task first when too many
+	 * tasks are running. The failure of a finished task is rethrown.
+	 * 
+	 * @param task
+	 * @return the future of the submitted task
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	Future<?> submit( Callable<?> task ) throws IOException, DataException
+	{
+		Iterator<Future<?>> iterator = runningTasks.iterator( );
+		while ( iterator.hasNext( ) )
+		{
+			Future<?> future = iterator.next( );
+			if ( future.isDone( ) )
+			{
+				iterator.remove( );
+				waitFor( future );
+			}
+		}
+		if ( runningTasks.size( ) >= maxRunningTasks )
+		{
+			waitFor( runningTasks.removeFirst( ) );
+		}
+		Future<?> future = CubeBuildExecutor.submit( task );
+		runningTasks.add( future );
+		return future;
+	}
+
+	/**
+	 * Waits for a task and rethrows its failure.
+	 * 
+	 * @param future
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	void waitFor( Future<?> future ) throws IOException, DataException
+	{
+		try
+		{
+			CubeBuildExecutor.waitFor( future );
+		}
+		catch ( BirtException e )
+		{
+			throw DataException.wrap( e );
+		}
+	}
+
+	/**
+	 * Waits for all the submitted tasks and rethrows the first failure.
+	 * 
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	void waitForAll( ) throws IOException, DataException
+	{
+		while ( !runningTasks.isEmpty( ) )
+		{
+			waitFor( runningTasks.removeFirst( ) );
+		}
+	}
+
+	/**
+	 * Waits for the tasks left by a failure, so none of them still uses the
+	 * sorted stacks or the calculators when they are closed.
+	 */
+	void close( )
+	{
+		CubeBuildExecutor.waitQuietly( runningTasks.toArray( new Future<?>[runningTasks.size( )] ) );
+		runningTasks.clear( );
+	}
 }
 
 /**
@@ -14,6 +14,8 @@ package org.eclipse.birt.data.engine.olap.data.impl.dimension;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.data.engine.cache.Constants;
@@ -29,10 +31,13 @@ import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
 import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
 import org.eclipse.birt.data.engine.olap.data.impl.NamingUtil;
 import org.eclipse.birt.data.engine.olap.data.util.BufferedStructureArray;
+import org.eclipse.birt.data.engine.olap.data.util.CubeBuildExecutor;
 import org.eclipse.birt.data.engine.olap.data.util.DiskIndex;
 import org.eclipse.birt.data.engine.olap.data.util.DiskSortedStack;
 import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+import org.eclipse.birt.data.engine.olap.data.util.IStructureCreator;
 import org.eclipse.birt.data.engine.olap.data.util.IndexKey;
+import org.eclipse.birt.data.engine.olap.data.util.ParallelSortedStack;
 
 /**
  * Describes a hierarchy. A hierarchy is composed of multi-levels.
@@ -47,6 +52,7 @@ public class Hierarchy implements IHierarchy
 	private String name = null;
 	private Map levelMap = new HashMap( );
 	private String dimensionName;
+	private int threadCount = 1;
 	
 	public Hierarchy( IDocumentManager documentManager, String dimensionName, String hierarchyName )
 	{
@@ -104,6 +110,19 @@ public class Hierarchy implements IHierarchy
 		return levels[levels.length - 1].size( );
 	}
 	
+	/**
+	 * Sets how many threads are used to create the hierarchy. If it is
+	 * greater than 1, the dimension rows and the keys of the level indexes
+	 * are sorted by the threads of {@link CubeBuildExecutor}. The rows are
+	 * still read and saved by the calling thread.
+	 * 
+	 * @param threadCount
+	 */
+	public void setThreadCount( int threadCount )
+	{
+		this.threadCount = threadCount;
+	}
+	
 	/**
 	 * 
 	 * @param datasetIterator
@@ -119,7 +138,8 @@ public class Hierarchy implements IHierarchy
 		offsetDocObj = createLevelOffsetDocumentObject( );
 		
 		DiskSortedStack sortedDimensionSet = getSortedDimRows( datasetIterator,
-				levelDefs );
+				levelDefs,
+				threadCount );
 				
 		documentObj.seek( 4 );
 		saveHierarchyMetadata( datasetIterator,
@@ -325,11 +345,11 @@ public class Hierarchy implements IHierarchy
 			StopSign stopSign )
 			throws IOException, BirtException
 	{
-		DiskSortedStack sortedDimMembers = new DiskSortedStack( Math.min( sortedDimensionSet.size( ),
+		DiskSortedStack sortedDimMembers = createSortedStack( Math.min( sortedDimensionSet.size( ),
 				 Constants.MAX_DIMENSION_LENGTH ),
-				true,
 				false,
-				Member.getCreator( ) );
+				Member.getCreator( ),
+				threadCount );
 		
 		IDiskArray[] indexKeyLists = new IDiskArray[keyDataType.length];
 		for( int i=0;i<indexKeyLists.length;i++)
@@ -366,15 +386,44 @@ public class Hierarchy implements IHierarchy
 			obj = sortedDimensionSet.pop( );
 			currentIndex++;
 		}
-		validateDimensionMembers( sortedDimMembers );
+		Future<IDiskArray>[] sortedKeyLists = null;
+		if ( threadCount > 1 )
+		{
+			// the keys of the levels are sorted while the members are
+			// validated, the indexes are written in this thread.
+			sortedKeyLists = sortIndexKeys( indexKeyLists );
+		}
+		boolean validated = false;
+		try
+		{
+			validateDimensionMembers( sortedDimMembers );
+			validated = true;
+		}
+		finally
+		{
+			if ( !validated && sortedKeyLists != null )
+			{
+				CubeBuildExecutor.waitQuietly( sortedKeyLists );
+			}
+		}
 		DiskIndex[] diskIndex = new DiskIndex[indexKeyLists.length];
 		for ( int i = 0; i < indexKeyLists.length; i++ )
 		{
 			// create index for this level
-			diskIndex[i] = DiskIndex.createIndex( documentManager,
-					NamingUtil.getLevelIndexDocName( dimensionName, levelDefs[i].getLevelName( ) ),
-					indexKeyLists[i],
-					false );
+			if ( sortedKeyLists != null )
+			{
+				diskIndex[i] = DiskIndex.createIndex( documentManager,
+						NamingUtil.getLevelIndexDocName( dimensionName, levelDefs[i].getLevelName( ) ),
+						CubeBuildExecutor.waitFor( sortedKeyLists[i] ),
+						true );
+			}
+			else
+			{
+				diskIndex[i] = DiskIndex.createIndex( documentManager,
+						NamingUtil.getLevelIndexDocName( dimensionName, levelDefs[i].getLevelName( ) ),
+						indexKeyLists[i],
+						false );
+			}
 		}
 		levels = new Level[levelDefs.length];
 		for ( int i = 0; i < levels.length; i++ )
@@ -394,6 +443,55 @@ public class Hierarchy implements IHierarchy
 		return currentIndex;
 	}
 	
+	/**
+	 * 
+	 * @param bufferSize
+	 * @param forceDistinct
+	 * @param creator
+	 * @param threadCount
+	 * @return a stack sorted in ascending order
+	 */
+	private static DiskSortedStack createSortedStack( int bufferSize,
+			boolean forceDistinct, IStructureCreator creator, int threadCount )
+	{
+		if ( threadCount > 1 )
+		{
+			return new ParallelSortedStack( threadCount,
+					bufferSize,
+					forceDistinct,
+					creator );
+		}
+		return new DiskSortedStack( bufferSize, true, forceDistinct, creator );
+	}
+	
+	/**
+	 * Sorts the keys of each level in other threads.
+	 * 
+	 * @param indexKeyLists
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	private static Future<IDiskArray>[] sortIndexKeys( IDiskArray[] indexKeyLists )
+	{
+		Future<IDiskArray>[] sortedKeyLists = new Future[indexKeyLists.length];
+		for ( int i = 0; i < indexKeyLists.length; i++ )
+		{
+			final IDiskArray keyList = indexKeyLists[i];
+			sortedKeyLists[i] = CubeBuildExecutor.submit( new Callable<IDiskArray>( ) {
+
+				public IDiskArray call( ) throws IOException
+				{
+					if ( keyList.size( ) == 0 )
+					{
+						return keyList;
+					}
+					return DiskIndex.sortKeys( keyList );
+				}
+			} );
+		}
+		return sortedKeyLists;
+	}
+	
 	/**
 	 * 
 	 * @param sortedDimMembers
@@ -580,12 +678,12 @@ public class Hierarchy implements IHierarchy
 	 * @throws IOException
 	 */
 	private static DiskSortedStack getSortedDimRows( IDatasetIterator iterator,
-			ILevelDefn[] levelDefs ) throws BirtException, IOException
+			ILevelDefn[] levelDefs, int threadCount ) throws BirtException, IOException
 	{
-		DiskSortedStack result = new DiskSortedStack( Constants.MAX_DIMENSION_LENGTH / 2,
-				true,
+		DiskSortedStack result = createSortedStack( Constants.MAX_DIMENSION_LENGTH / 2,
 				true,
-				DimensionRow.getCreator( ) );
+				DimensionRow.getCreator( ),
+				threadCount );
 		
 		int[][] levelKeyColumnIndex = new int[levelDefs.length][];
 		int[][] levelAttributesIndex = new int[levelDefs.length][];
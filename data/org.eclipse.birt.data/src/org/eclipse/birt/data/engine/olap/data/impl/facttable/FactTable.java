@@ -29,6 +29,7 @@ public class FactTable
 	private MeasureInfo[] measureInfo, calculatedMeasureInfo;
 	private int segmentCount;
 	private DimensionDivision[] dimensionDivision;
+	private FactTableSegmentIndex segmentIndex;
 	
 	private IDocumentManager documentManager;
 	private CombinedPositionContructor combinedPositionCalculator;
@@ -150,6 +151,26 @@ public class FactTable
 	}
 	
 
+	/**
+	 * 
+	 * @return the zone map of the segments, null if the fact table is saved
+	 *         without it.
+	 */
+	public FactTableSegmentIndex getSegmentIndex( )
+	{
+		return segmentIndex;
+	}
+	
+	/**
+	 * 
+	 * @param segmentIndex
+	 */
+	void setSegmentIndex( FactTableSegmentIndex segmentIndex )
+	{
+		this.segmentIndex = segmentIndex;
+	}
+	
+
 	/**
 	 * 
 	 * @return
@@ -22,6 +22,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import org.eclipse.birt.core.exception.BirtException;
@@ -49,8 +51,10 @@ import org.eclipse.birt.data.engine.olap.data.impl.facttable.DimensionDivider.Di
 import org.eclipse.birt.data.engine.olap.data.impl.facttable.DimensionDivision.IntRange;
 import org.eclipse.birt.data.engine.olap.data.util.BufferedStructureArray;
 import org.eclipse.birt.data.engine.olap.data.util.Bytes;
+import org.eclipse.birt.data.engine.olap.data.util.CubeBuildExecutor;
 import org.eclipse.birt.data.engine.olap.data.util.DiskSortedStack;
 import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+import org.eclipse.birt.data.engine.olap.data.util.ParallelSortedStack;
 import org.eclipse.birt.data.engine.olap.data.util.StructureDiskArray;
 
 /**
@@ -62,6 +66,7 @@ public class FactTableAccessor
 	private IDocumentManager documentManager =null;
 	private static Logger logger = Logger.getLogger( FactTableAccessor.class.getName( ) );
 	private long memoryCacheSize = 0;
+	private int threadCount = 1;
 	
 	public FactTableAccessor( IDocumentManager documentManager )
 	{
@@ -89,6 +94,15 @@ public class FactTableAccessor
 			String[] measureColumnName, Map calculatedMeasure, String[] measureColumnAggregations, StopSign stopSign )
 			throws BirtException, IOException
 	{
+		int[][][] columnIndex = getColumnIndex( DimJointColumnNames, dimensions );
+		Future<DimensionPositionSeeker>[] seekerTasks = null;
+		if ( threadCount > 1 )
+		{
+			// the dimensions are indexed while the fact table rows are sorted
+			seekerTasks = submitDimensionSeekers( columnIndex,
+					dimensions,
+					stopSign );
+		}
 		FacttableRowContainer sortedFactTableRows = null;
 		if ( measureColumnAggregations == null || measureColumnAggregations.length == 0)
 		{
@@ -120,65 +134,74 @@ public class FactTableAccessor
 		DimensionDivision[] subDimensions = calculateDimensionDivision( getDimensionMemberCount( dimensions ),
 				segmentCount );
 		
-		int[][][] columnIndex = getColumnIndex( DimJointColumnNames, dimensions );
 		DimensionPositionSeeker[] dimensionSeekers = new DimensionPositionSeeker[dimensions.length];
 		for ( int i = 0; i < dimensionSeekers.length; i++ )
 		{
-			dimensionSeekers[i] = new DimensionPositionSeeker( getDimCombinatedKey( columnIndex[i],
-					dimensions[i].getAllRows( stopSign ) ) );
+			if ( seekerTasks != null )
+			{
+				dimensionSeekers[i] = CubeBuildExecutor.waitFor( seekerTasks[i] );
+			}
+			else
+			{
+				dimensionSeekers[i] = new DimensionPositionSeeker( getDimCombinatedKey( columnIndex[i],
+						dimensions[i].getAllRows( stopSign ) ) );
+			}
 		}
 		
-		int[] dimensionPosition = new int[dimensions.length];
 		DocumentObjectCache documentObjectManager = new DocumentObjectCache( documentManager, (long) ( memoryCacheSize* 0.25 ) );
 		CombinedPositionContructor combinedPositionCalculator = new CombinedPositionContructor( subDimensions );
 		
 		FTSUNameSaveHelper saveHelper = new FTSUNameSaveHelper( documentManager, factTableName );
-		FactTableRow currentRow = sortedFactTableRows.pop( );
-		boolean invalidDimensionKey = false;
+		FactTableSegmentIndex segmentIndex = new FactTableSegmentIndex( );
+		FactTableRowMapper rowMapper = new FactTableRowMapper( sortedFactTableRows,
+				dimensionSeekers,
+				subDimensions,
+				combinedPositionCalculator,
+				NamingUtil.getFactTableName( factTableName ) );
+		MappedFactTableRow mappedRow = rowMapper.next( );
 		int invalidRowNumber = 0;
-		while ( currentRow != null && !stopSign.isStopped( ) )
-		{			
-			invalidDimensionKey = false;
-			for ( int i = 0; i < dimensionPosition.length; i++ )
+		while ( mappedRow != null && !stopSign.isStopped( ) )
+		{
+			FactTableRow currentRow = mappedRow.row;
+			if ( mappedRow.FTSUDocName == null )
 			{
-				dimensionPosition[i] = dimensionSeekers[i].find( currentRow.getDimensionKeys()[i] );
-				if ( dimensionPosition[i] < 0 )
+				for ( int i = 0; i < mappedRow.dimensionPosition.length; i++ )
 				{
-					invalidDimensionKey = true;
-					logger.fine( "The fact table of cube " 
-							+ factTableName + 
-							" has an invalid data row where the value of dimension key " + 
-							Arrays.toString( factTableJointColumnNames[i] ) + " is " + 
-							currentRow.getDimensionKeys()[i].toString( ) + 
-							" which however does not exist in dimension "+ 
-							dimensions[i].getName( ) +"." );
+					if ( mappedRow.dimensionPosition[i] < 0 )
+					{
+						logger.fine( "The fact table of cube " 
+								+ factTableName + 
+								" has an invalid data row where the value of dimension key " + 
+								Arrays.toString( factTableJointColumnNames[i] ) + " is " + 
+								currentRow.getDimensionKeys()[i].toString( ) + 
+								" which however does not exist in dimension "+ 
+								dimensions[i].getName( ) +"." );
+					}
 				}
-			}
-			if( invalidDimensionKey )
-			{
-				currentRow = sortedFactTableRows.pop( );
+				mappedRow = rowMapper.next( );
 				invalidRowNumber ++;
 				continue;
 			}
-			int[] subDimensionIndex = getSubDimensionIndex( dimensionPosition,
-					subDimensions );
-			String FTSUDocName = FTSUDocumentObjectNamingUtil.getDocumentObjectName( 
-					NamingUtil.getFactTableName( factTableName ),
-					subDimensionIndex );
+			String FTSUDocName = mappedRow.FTSUDocName;
 			saveHelper.add( FTSUDocName );
+			segmentIndex.add( FTSUDocName,
+					subDimensions,
+					mappedRow.subDimensionIndex,
+					mappedRow.dimensionPosition );
 			
 			IDocumentObject documentObject = documentObjectManager.getIDocumentObject( FTSUDocName );
-			documentObject.writeBytes( new Bytes( combinedPositionCalculator.
-					calculateCombinedPosition( subDimensionIndex, dimensionPosition ).toByteArray( ) ) );
+			documentObject.writeBytes( new Bytes( mappedRow.combinedPosition ) );
 			for( int i=0;i<measureInfo.length;i++)
 			{
 				DocumentObjectUtil.writeValue( documentObject,
 						measureInfo[i].getDataType(),
 						currentRow.getMeasures()[i] );
 			}
-			currentRow = sortedFactTableRows.pop( );
+			mappedRow = rowMapper.next( );
 		}
+		rowMapper.close( );
 		saveHelper.save( );
+		segmentIndex.save( documentManager, factTableName );
 		if( invalidRowNumber > 0 )
 		{
 			logger.warning("The fact table of cube "
@@ -188,13 +211,15 @@ public class FactTableAccessor
 		}
 		documentObjectManager.closeAll( );
 		documentManager.flush( );
-		return new FactTable( factTableName,
+		FactTable factTable = new FactTable( factTableName,
 				documentManager,
 				dimensionInfo,
 				measureInfo,
 				calMeasureInfo,
 				segmentCount,
 				subDimensions);
+		factTable.setSegmentIndex( segmentIndex );
+		return factTable;
 		
 	}
 
@@ -306,7 +331,19 @@ public class FactTableAccessor
 				stopSign );
 	}
 	
-	private int[][][] getColumnIndex( String[][] keyColumnNames,
+	/**
+	 * Finds where the joint columns of the dimensions are kept in their rows,
+	 * each column is located by {key or attribute, level index, column index}.
+	 * 
+	 * @param keyColumnNames
+	 *            the joint column names of each dimension
+	 * @param dimensions
+	 * @return
+	 * @throws DataException
+	 *             if a joint column is neither a key nor an attribute
+	 * @see #getJointKeyValues(int[][], DimensionRow)
+	 */
+	public static int[][][] getColumnIndex( String[][] keyColumnNames,
 			Dimension[] dimensions ) throws DataException
 	{
 		int[][][] columnIndex = new int[keyColumnNames.length][][];
@@ -357,7 +394,7 @@ public class FactTableAccessor
 	 * @param str
 	 * @return
 	 */
-	private int find( String[] strArray, String str )
+	private static int find( String[] strArray, String str )
 	{
 		if( strArray == null )
 		{
@@ -387,26 +424,40 @@ public class FactTableAccessor
 		{
 			DimensionRow dimRow = (DimensionRow)dimRowArray.get( i );
 			DimensionKey key = new DimensionKey( columnIndex.length );
-			Object[] values = new Object[columnIndex.length];
-			for( int j = 0; j < columnIndex.length; j++)
-			{
-				if( columnIndex[j][0] == 0 )
-				{
-					// this is a key column
-					values[j] = dimRow.getMembers()[columnIndex[j][1]].getKeyValues( )[columnIndex[j][2]];
-				}
-				else
-				{
-					values[j] = dimRow.getMembers()[columnIndex[j][1]].getAttributes( )[columnIndex[j][2]];
-				}
-			}
-			key.setKeyValues( values );
+			key.setKeyValues( getJointKeyValues( columnIndex, dimRow ) );
 			key.setDimensionPos( i );
 			resultArray.add( key );
 		}
 		return resultArray;
 	}
 	
+	/**
+	 * 
+	 * @param columnIndex
+	 *            the joint columns of the dimension returned by
+	 *            {@link #getColumnIndex(String[][], Dimension[])}
+	 * @param dimRow
+	 * @return the values of the joint columns in the dimension row
+	 */
+	public static Object[] getJointKeyValues( int[][] columnIndex,
+			DimensionRow dimRow )
+	{
+		Object[] values = new Object[columnIndex.length];
+		for( int j = 0; j < columnIndex.length; j++)
+		{
+			if( columnIndex[j][0] == 0 )
+			{
+				// this is a key column
+				values[j] = dimRow.getMembers()[columnIndex[j][1]].getKeyValues( )[columnIndex[j][2]];
+			}
+			else
+			{
+				values[j] = dimRow.getMembers()[columnIndex[j][1]].getAttributes( )[columnIndex[j][2]];
+			}
+		}
+		return values;
+	}
+	
 	/**
 	 * 
 	 * @param factTableRowCount
@@ -528,6 +579,54 @@ public class FactTableAccessor
 	{
 		this.memoryCacheSize = memoryCacheSize;
 	}
+	
+	/**
+	 * Sets how many threads are used to save a fact table. If it is greater
+	 * than 1, the fact table rows are sorted in partitions and mapped to the
+	 * dimension positions in batches by the threads of
+	 * {@link CubeBuildExecutor}, while the dimensions are indexed. The rows
+	 * are still read and written by the calling thread.
+	 * 
+	 * @param threadCount
+	 */
+	public void setThreadCount( int threadCount )
+	{
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * Reads the dimension rows and builds the position seekers of the
+	 * dimensions in other threads.
+	 * 
+	 * @param columnIndex
+	 * @param dimensions
+	 * @param stopSign
+	 * @return
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	private static Future<DimensionPositionSeeker>[] submitDimensionSeekers(
+			int[][][] columnIndex, Dimension[] dimensions, StopSign stopSign )
+			throws IOException
+	{
+		Future<DimensionPositionSeeker>[] seekerTasks = new Future[dimensions.length];
+		for ( int i = 0; i < dimensions.length; i++ )
+		{
+			// the dimension rows are read from the document manager here,
+			// it can't be accessed in several threads.
+			final IDiskArray dimensionRows = dimensions[i].getAllRows( stopSign );
+			final int[][] dimensionColumnIndex = columnIndex[i];
+			seekerTasks[i] = CubeBuildExecutor.submit( new Callable<DimensionPositionSeeker>( ) {
+
+				public DimensionPositionSeeker call( ) throws IOException
+				{
+					return new DimensionPositionSeeker( getDimCombinatedKey( dimensionColumnIndex,
+							dimensionRows ) );
+				}
+			} );
+		}
+		return seekerTasks;
+	}
 
 	private static int getObjectSize( int[] dataType) {
 		int size = 0;
@@ -555,7 +654,18 @@ public class FactTableAccessor
 			throws BirtException, IOException
 	{
 		DiskSortedStack result = null;
-		if( this.memoryCacheSize != 0 )
+		if ( this.threadCount > 1 )
+		{
+			int bufferSize = this.memoryCacheSize != 0
+					? caculateBufferSize( iterator, keyColumnNames, measureColumnNames )
+					: 10000;
+			result = new ParallelSortedStack( threadCount,
+					bufferSize,
+					false,
+					FactTableRow.getCreator( ) );
+			result.setUseMemoryOnly( this.memoryCacheSize == 0 );
+		}
+		else if( this.memoryCacheSize != 0 )
 		{
 			int bufferSize = caculateBufferSize( iterator, keyColumnNames, measureColumnNames );
 			result = new DiskSortedStack( bufferSize,
@@ -748,13 +858,174 @@ public class FactTableAccessor
 		DimensionDivision[] subDimensions = calculateDimensionDivision( dimensionMemberCount,
 				segmentNumber );
 		documentObject.close( );
-		return new FactTable( factTableName,
+		FactTable factTable = new FactTable( factTableName,
 				documentManager,
 				dimensionInfo,
 				measureInfo,
 				calMeasureInfo,
 				segmentNumber,
-				subDimensions ); 
+				subDimensions );
+		factTable.setSegmentIndex( FactTableSegmentIndex.load( documentManager,
+				factTableName ) );
+		return factTable;
+	}
+	
+	/**
+	 * A fact table row with its dimension positions. The FTSU document name
+	 * is null if a dimension key of the row does not exist in the dimension.
+	 */
+	private static class MappedFactTableRow
+	{
+		FactTableRow row;
+		int[] dimensionPosition;
+		int[] subDimensionIndex;
+		String FTSUDocName;
+		byte[] combinedPosition;
+	}
+	
+	/**
+	 * Maps the sorted fact table rows to the dimension positions. In a
+	 * parallel build the rows are mapped in batches by several threads, the
+	 * next batch is mapped while the rows of the current batch are written.
+	 */
+	private class FactTableRowMapper
+	{
+		private static final int BATCH_SIZE = 4096;
+		
+		private FacttableRowContainer rows;
+		private DimensionPositionSeeker[] dimensionSeekers;
+		private DimensionDivision[] subDimensions;
+		private CombinedPositionContructor combinedPositionCalculator;
+		private String factTableDocName;
+		
+		private MappedFactTableRow[] batch;
+		private int batchPosition;
+		private MappedFactTableRow[] nextBatch;
+		private Future<?>[] nextBatchTasks;
+		
+		FactTableRowMapper( FacttableRowContainer rows,
+				DimensionPositionSeeker[] dimensionSeekers,
+				DimensionDivision[] subDimensions,
+				CombinedPositionContructor combinedPositionCalculator,
+				String factTableDocName )
+		{
+			this.rows = rows;
+			this.dimensionSeekers = dimensionSeekers;
+			this.subDimensions = subDimensions;
+			this.combinedPositionCalculator = combinedPositionCalculator;
+			this.factTableDocName = factTableDocName;
+		}
+		
+		/**
+		 * 
+		 * @return the next mapped row, null if all rows are mapped.
+		 * @throws IOException
+		 * @throws BirtException
+		 */
+		MappedFactTableRow next( ) throws IOException, BirtException
+		{
+			if ( threadCount <= 1 )
+			{
+				FactTableRow row = rows.pop( );
+				return row == null ? null : map( row );
+			}
+			if ( batch == null || batchPosition == batch.length )
+			{
+				if ( batch == null )
+				{
+					submitNextBatch( );
+				}
+				else if ( batch.length < BATCH_SIZE )
+				{
+					return null;
+				}
+				for ( int i = 0; i < nextBatchTasks.length; i++ )
+				{
+					CubeBuildExecutor.waitFor( nextBatchTasks[i] );
+				}
+				batch = nextBatch;
+				batchPosition = 0;
+				if ( batch.length == BATCH_SIZE )
+				{
+					submitNextBatch( );
+				}
+				if ( batch.length == 0 )
+				{
+					return null;
+				}
+			}
+			return batch[batchPosition++];
+		}
+		
+		/**
+		 * Waits for the rows being mapped.
+		 */
+		void close( )
+		{
+			if ( nextBatchTasks != null )
+			{
+				CubeBuildExecutor.waitQuietly( nextBatchTasks );
+			}
+		}
+		
+		private void submitNextBatch( ) throws IOException
+		{
+			List<FactTableRow> batchRows = new ArrayList<FactTableRow>( BATCH_SIZE );
+			FactTableRow row = null;
+			while ( batchRows.size( ) < BATCH_SIZE && ( row = rows.pop( ) ) != null )
+			{
+				batchRows.add( row );
+			}
+			final FactTableRow[] rowArray = batchRows.toArray( new FactTableRow[batchRows.size( )] );
+			final MappedFactTableRow[] mappedRows = new MappedFactTableRow[rowArray.length];
+			int chunkSize = ( rowArray.length + threadCount - 1 ) / threadCount;
+			List<Future<?>> tasks = new ArrayList<Future<?>>( threadCount );
+			for ( int start = 0; start < rowArray.length; start += chunkSize )
+			{
+				final int from = start;
+				final int to = Math.min( start + chunkSize, rowArray.length );
+				tasks.add( CubeBuildExecutor.submit( new Callable<Object>( ) {
+
+					public Object call( ) throws IOException
+					{
+						for ( int i = from; i < to; i++ )
+						{
+							mappedRows[i] = map( rowArray[i] );
+						}
+						return null;
+					}
+				} ) );
+			}
+			nextBatch = mappedRows;
+			nextBatchTasks = tasks.toArray( new Future<?>[tasks.size( )] );
+		}
+		
+		private MappedFactTableRow map( FactTableRow row ) throws IOException
+		{
+			MappedFactTableRow result = new MappedFactTableRow( );
+			result.row = row;
+			result.dimensionPosition = new int[dimensionSeekers.length];
+			boolean invalidDimensionKey = false;
+			for ( int i = 0; i < dimensionSeekers.length; i++ )
+			{
+				result.dimensionPosition[i] = dimensionSeekers[i].find( row.getDimensionKeys()[i] );
+				if ( result.dimensionPosition[i] < 0 )
+				{
+					invalidDimensionKey = true;
+				}
+			}
+			if ( invalidDimensionKey )
+			{
+				return result;
+			}
+			result.subDimensionIndex = getSubDimensionIndex( result.dimensionPosition,
+					subDimensions );
+			result.FTSUDocName = FTSUDocumentObjectNamingUtil.getDocumentObjectName( factTableDocName,
+					result.subDimensionIndex );
+			result.combinedPosition = combinedPositionCalculator.calculateCombinedPosition( result.subDimensionIndex,
+					result.dimensionPosition ).toByteArray( );
+			return result;
+		}
 	}
 	
 	/**
@@ -772,11 +1043,11 @@ public class FactTableAccessor
 				'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'
 		};
 
-		private static char[] buffer = new char[500];
-
 		public static String getDocumentObjectName( String factTableName, int[] subDimensionNumber )
 		{
 			int radix = 10;
+			// the names are built in several threads by a parallel build
+			char[] buffer = new char[subDimensionNumber.length * 11];
 			
 			int position = 0;
 			int i;
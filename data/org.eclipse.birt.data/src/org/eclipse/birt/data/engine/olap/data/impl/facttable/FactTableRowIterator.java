@@ -34,6 +34,7 @@ import org.eclipse.birt.data.engine.olap.data.impl.dimension.Dimension;
 import org.eclipse.birt.data.engine.olap.data.impl.dimension.DimensionResultIterator;
 import org.eclipse.birt.data.engine.olap.data.impl.dimension.Member;
 import org.eclipse.birt.data.engine.olap.data.impl.facttable.FactTableAccessor.FTSUDocumentObjectNamingUtil;
+import org.eclipse.birt.data.engine.olap.data.impl.facttable.FactTableSegmentIndex.SegmentSummary;
 import org.eclipse.birt.data.engine.olap.data.util.Bytes;
 import org.eclipse.birt.data.engine.olap.data.util.DataType;
 import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
@@ -87,6 +88,7 @@ public class FactTableRowIterator implements IFactTableRowIterator
 	private int[] lastCurrentPos;
 	private boolean lastFilterResult;
 	private boolean isDuplicatedRow;
+	private int skippedSegmentCount;
 	
 	/**
 	 * 
@@ -514,7 +516,23 @@ public class FactTableRowIterator implements IFactTableRowIterator
 			subDimensionIndex = getSubDimensionIndex( );
 			String FTSUDocName = FTSUDocumentObjectNamingUtil.getDocumentObjectName( NamingUtil.getFactTableName( factTable.getName( ) ),
 					subDimensionIndex );
-			if ( !factTable.getDocumentManager( ).exist( FTSUDocName ) )
+			SegmentSummary segmentSummary = null;
+			if ( factTable.getSegmentIndex( ) != null )
+			{
+				// a segment which is not in the index has no row
+				segmentSummary = factTable.getSegmentIndex( )
+						.getSummary( FTSUDocName );
+				if ( segmentSummary == null )
+				{
+					continue;
+				}
+			}
+			else if ( !factTable.getDocumentManager( ).exist( FTSUDocName ) )
+			{
+				continue;
+			}
+			
+			if ( !selectSegmentPositions( segmentSummary ) )
 			{
 				continue;
 			}
@@ -523,26 +541,57 @@ public class FactTableRowIterator implements IFactTableRowIterator
 				currentSegment.close( );
 			
 			currentSegment = factTable.getDocumentManager( ).openDocumentObject( FTSUDocName );
-			
-			for ( int i = 0; i < dimensionIndex.length; i++ )
+			break;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the selected positions of the current segment. The zone map of the
+	 * segment is checked so the segment is not read if none of its rows is
+	 * selected.
+	 * 
+	 * @param segmentSummary
+	 *            the zone map of the segment, null if it is unknown
+	 * @return false if no row of the segment can be selected
+	 * @throws IOException
+	 */
+	private boolean selectSegmentPositions( SegmentSummary segmentSummary )
+			throws IOException
+	{
+		for ( int i = 0; i < dimensionIndex.length; i++ )
+		{
+			if ( dimensionIndex[i] != -1 )
 			{
-				if ( dimensionIndex[i] != -1 )
+				SelectedSubDimension selectedSubDimension = ( (SelectedSubDimension) selectedSubDim[i].get( currentSubDim[i] ) );
+				selectedPosOfCurSegment[i] = new int[selectedSubDimension.end
+						- selectedSubDimension.start + 1];
+				for ( int j = 0; j < selectedSubDimension.end
+						- selectedSubDimension.start + 1; j++ )
 				{
-					SelectedSubDimension selectedSubDimension = ( (SelectedSubDimension) selectedSubDim[i].get( currentSubDim[i] ) );
-					selectedPosOfCurSegment[i] = new int[selectedSubDimension.end
-							- selectedSubDimension.start + 1];
-					for ( int j = 0; j < selectedSubDimension.end
-							- selectedSubDimension.start + 1; j++ )
-					{
-						selectedPosOfCurSegment[i][j] = ( (Integer) selectedPos[dimensionIndex[i]].get( selectedSubDimension.start
-								+ j ) ).intValue( );
-					}
+					selectedPosOfCurSegment[i][j] = ( (Integer) selectedPos[dimensionIndex[i]].get( selectedSubDimension.start
+							+ j ) ).intValue( );
+				}
+				if ( segmentSummary != null
+						&& !segmentSummary.mayContain( i,
+								selectedPosOfCurSegment[i] ) )
+				{
+					skippedSegmentCount++;
+					return false;
 				}
 			}
-			break;
 		}
 		return true;
 	}
+	
+	/**
+	 * 
+	 * @return the number of the segments which are skipped by their zone maps
+	 */
+	int getSkippedSegmentCount( )
+	{
+		return skippedSegmentCount;
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.impl.facttable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
+import org.eclipse.birt.data.engine.olap.data.impl.NamingUtil;
+import org.eclipse.birt.data.engine.olap.data.impl.facttable.DimensionDivision.IntRange;
+
+/**
+ * The zone map of the segments of a fact table. For each segment it keeps the
+ * smallest and the largest position of every dimension and a bitmap of the
+ * dimension positions which appear in the segment, so a fact table iterator
+ * can skip the segments which have no selected rows without reading them.
+ */
+public class FactTableSegmentIndex
+{
+
+	private static final int VERSION = 1;
+
+	// the bitmap of a sub dimension with more members is not kept, only its
+	// min and max positions are used
+	static final int MAX_BITMAP_MEMBER_COUNT = 64 * 1024;
+
+	private Map<String, SegmentSummary> summaries = new HashMap<String, SegmentSummary>( );
+
+	/**
+	 *
+	 * @param FTSUDocName
+	 * @return the summary of the segment, null if the segment is unknown.
+	 */
+	SegmentSummary getSummary( String FTSUDocName )
+	{
+		return summaries.get( FTSUDocName );
+	}
+
+	/**
+	 *
+	 * @return the number of the segments in the index
+	 */
+	public int getSegmentCount( )
+	{
+		return summaries.size( );
+	}
+
+	/**
+	 * Adds a row to the summary of its segment.
+	 *
+	 * @param FTSUDocName
+	 * @param subDimensions
+	 * @param subDimensionIndex
+	 * @param dimensionPosition
+	 */
+	void add( String FTSUDocName, DimensionDivision[] subDimensions,
+			int[] subDimensionIndex, int[] dimensionPosition )
+	{
+		SegmentSummary summary = summaries.get( FTSUDocName );
+		if ( summary == null )
+		{
+			IntRange[] ranges = new IntRange[subDimensions.length];
+			for ( int i = 0; i < ranges.length; i++ )
+			{
+				ranges[i] = subDimensions[i].getRanges( )[subDimensionIndex[i]];
+			}
+			summary = new SegmentSummary( ranges );
+			summaries.put( FTSUDocName, summary );
+		}
+		summary.add( dimensionPosition );
+	}
+
+	/**
+	 *
+	 * @param documentManager
+	 * @param factTableName
+	 * @throws IOException
+	 */
+	void save( IDocumentManager documentManager, String factTableName )
+			throws IOException
+	{
+		IDocumentObject documentObject = documentManager.createDocumentObject( NamingUtil.getFTSUIndexName( factTableName ) );
+		documentObject.writeInt( VERSION );
+		documentObject.writeInt( summaries.size( ) );
+		for ( Map.Entry<String, SegmentSummary> entry : summaries.entrySet( ) )
+		{
+			documentObject.writeString( entry.getKey( ) );
+			entry.getValue( ).save( documentObject );
+		}
+		documentObject.close( );
+	}
+
+	/**
+	 *
+	 * @param documentManager
+	 * @param factTableName
+	 * @return the index of the fact table, null if the fact table is saved
+	 *         without an index.
+	 * @throws IOException
+	 */
+	static FactTableSegmentIndex load( IDocumentManager documentManager,
+			String factTableName ) throws IOException
+	{
+		String name = NamingUtil.getFTSUIndexName( factTableName );
+		if ( !documentManager.exist( name ) )
+		{
+			return null;
+		}
+		IDocumentObject documentObject = documentManager.openDocumentObject( name );
+		try
+		{
+			if ( documentObject.readInt( ) != VERSION )
+			{
+				return null;
+			}
+			FactTableSegmentIndex index = new FactTableSegmentIndex( );
+			int segmentCount = documentObject.readInt( );
+			for ( int i = 0; i < segmentCount; i++ )
+			{
+				String FTSUDocName = documentObject.readString( );
+				index.summaries.put( FTSUDocName,
+						SegmentSummary.load( documentObject ) );
+			}
+			return index;
+		}
+		finally
+		{
+			documentObject.close( );
+		}
+	}
+
+	/**
+	 * The summary of the dimension positions in a segment.
+	 */
+	static class SegmentSummary
+	{
+
+		private int rowCount;
+		private int[] start;
+		private int[] min;
+		private int[] max;
+		private byte[][] bitmaps;
+
+		private SegmentSummary( int dimensionCount )
+		{
+			start = new int[dimensionCount];
+			min = new int[dimensionCount];
+			max = new int[dimensionCount];
+			bitmaps = new byte[dimensionCount][];
+		}
+
+		SegmentSummary( IntRange[] ranges )
+		{
+			this( ranges.length );
+			for ( int i = 0; i < ranges.length; i++ )
+			{
+				start[i] = ranges[i].start;
+				min[i] = Integer.MAX_VALUE;
+				max[i] = Integer.MIN_VALUE;
+				int memberCount = ranges[i].end - ranges[i].start + 1;
+				if ( memberCount <= MAX_BITMAP_MEMBER_COUNT )
+				{
+					bitmaps[i] = new byte[( memberCount + 7 ) / 8];
+				}
+			}
+		}
+
+		void add( int[] dimensionPosition )
+		{
+			rowCount++;
+			for ( int i = 0; i < dimensionPosition.length; i++ )
+			{
+				int position = dimensionPosition[i];
+				if ( position < min[i] )
+				{
+					min[i] = position;
+				}
+				if ( position > max[i] )
+				{
+					max[i] = position;
+				}
+				if ( bitmaps[i] != null )
+				{
+					int bit = position - start[i];
+					bitmaps[i][bit >> 3] |= 1 << ( bit & 7 );
+				}
+			}
+		}
+
+		/**
+		 *
+		 * @return the number of the rows in the segment
+		 */
+		int getRowCount( )
+		{
+			return rowCount;
+		}
+
+		/**
+		 *
+		 * @param dimensionIndex
+		 * @param selectedPosition
+		 *            the sorted selected positions of the dimension
+		 * @return false if no row of the segment is at one of the selected
+		 *         positions.
+		 */
+		boolean mayContain( int dimensionIndex, int[] selectedPosition )
+		{
+			int i = Arrays.binarySearch( selectedPosition, min[dimensionIndex] );
+			if ( i < 0 )
+			{
+				i = -i - 1;
+			}
+			byte[] bitmap = bitmaps[dimensionIndex];
+			for ( ; i < selectedPosition.length
+					&& selectedPosition[i] <= max[dimensionIndex]; i++ )
+			{
+				if ( bitmap == null )
+				{
+					return true;
+				}
+				int bit = selectedPosition[i] - start[dimensionIndex];
+				if ( ( bitmap[bit >> 3] & ( 1 << ( bit & 7 ) ) ) != 0 )
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void save( IDocumentObject documentObject ) throws IOException
+		{
+			documentObject.writeInt( rowCount );
+			documentObject.writeInt( start.length );
+			for ( int i = 0; i < start.length; i++ )
+			{
+				documentObject.writeInt( start[i] );
+				documentObject.writeInt( min[i] );
+				documentObject.writeInt( max[i] );
+				if ( bitmaps[i] == null )
+				{
+					documentObject.writeInt( -1 );
+				}
+				else
+				{
+					documentObject.writeInt( bitmaps[i].length );
+					documentObject.write( bitmaps[i], 0, bitmaps[i].length );
+				}
+			}
+		}
+
+		private static SegmentSummary load( IDocumentObject documentObject )
+				throws IOException
+		{
+			int rowCount = documentObject.readInt( );
+			SegmentSummary summary = new SegmentSummary( documentObject.readInt( ) );
+			summary.rowCount = rowCount;
+			for ( int i = 0; i < summary.start.length; i++ )
+			{
+				summary.start[i] = documentObject.readInt( );
+				summary.min[i] = documentObject.readInt( );
+				summary.max[i] = documentObject.readInt( );
+				int length = documentObject.readInt( );
+				if ( length >= 0 )
+				{
+					summary.bitmaps[i] = new byte[length];
+					int offset = 0;
+					while ( offset < length )
+					{
+						int readSize = documentObject.read( summary.bitmaps[i],
+								offset,
+								length - offset );
+						if ( readSize < 0 )
+						{
+							throw new IOException( "Unexpected end of the fact table segment index." );
+						}
+						offset += readSize;
+					}
+				}
+			}
+			return summary;
+		}
+	}
+}
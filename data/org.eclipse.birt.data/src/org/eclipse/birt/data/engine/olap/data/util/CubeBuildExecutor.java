@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.api.CloseListenerManager;
+import org.eclipse.birt.data.engine.api.DataEngineThreadLocal;
+import org.eclipse.birt.data.engine.core.security.TempPathManager;
+
+/**
+ * The thread pool shared by the parallel cube builds and aggregations. The
+ * tasks run on it only sort, map and aggregate the rows which have been read,
+ * the data set iterators and the document manager of the cube are always
+ * accessed in the calling thread.
+ */
+public final class CubeBuildExecutor
+{
+
+	private static ExecutorService executor;
+
+	private CubeBuildExecutor( )
+	{
+	}
+
+	/**
+	 * Submits a task to the shared pool. The task runs with the context class
+	 * loader, the temp path and the close listeners of the caller, so the
+	 * disk arrays created by the task are released with the ones of the
+	 * caller.
+	 *
+	 * @param task
+	 * @return the future of the task
+	 */
+	public static <T> Future<T> submit( final Callable<T> task )
+	{
+		final ClassLoader classLoader = Thread.currentThread( )
+				.getContextClassLoader( );
+		final TempPathManager pathManager = DataEngineThreadLocal.getInstance( )
+				.getPathManager( );
+		final CloseListenerManager closeListener = DataEngineThreadLocal.getInstance( )
+				.getCloseListener( );
+		return getExecutor( ).submit( new Callable<T>( ) {
+
+			public T call( ) throws Exception
+			{
+				Thread thread = Thread.currentThread( );
+				ClassLoader oldClassLoader = thread.getContextClassLoader( );
+				thread.setContextClassLoader( classLoader );
+				DataEngineThreadLocal.getInstance( ).bind( pathManager,
+						closeListener );
+				try
+				{
+					return task.call( );
+				}
+				finally
+				{
+					DataEngineThreadLocal.getInstance( ).unbind( );
+					thread.setContextClassLoader( oldClassLoader );
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Waits for a task and rethrows its failure.
+	 *
+	 * @param future
+	 * @return the result of the task
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	public static <T> T waitFor( Future<T> future ) throws IOException,
+			BirtException
+	{
+		try
+		{
+			return future.get( );
+		}
+		catch ( InterruptedException e )
+		{
+			future.cancel( true );
+			Thread.currentThread( ).interrupt( );
+			InterruptedIOException ex = new InterruptedIOException( );
+			ex.initCause( e );
+			throw ex;
+		}
+		catch ( ExecutionException e )
+		{
+			Throwable cause = e.getCause( );
+			if ( cause instanceof IOException )
+				throw (IOException) cause;
+			if ( cause instanceof BirtException )
+				throw (BirtException) cause;
+			if ( cause instanceof RuntimeException )
+				throw (RuntimeException) cause;
+			if ( cause instanceof Error )
+				throw (Error) cause;
+			IOException ex = new IOException( cause.getLocalizedMessage( ) );
+			ex.initCause( cause );
+			throw ex;
+		}
+	}
+
+	/**
+	 * Waits for the tasks which results are no longer needed, their failures
+	 * are ignored. The tasks are not cancelled, so when this method returns
+	 * none of them is still using the structures the caller is going to
+	 * release.
+	 *
+	 * @param futures
+	 */
+	public static void waitQuietly( Future<?>[] futures )
+	{
+		boolean interrupted = false;
+		for ( int i = 0; i < futures.length; i++ )
+		{
+			if ( futures[i] == null )
+				continue;
+			while ( true )
+			{
+				try
+				{
+					futures[i].get( );
+					break;
+				}
+				catch ( InterruptedException e )
+				{
+					interrupted = true;
+				}
+				catch ( ExecutionException e )
+				{
+					break;
+				}
+				catch ( CancellationException e )
+				{
+					break;
+				}
+			}
+		}
+		if ( interrupted )
+		{
+			Thread.currentThread( ).interrupt( );
+		}
+	}
+
+	private static synchronized ExecutorService getExecutor( )
+	{
+		if ( executor == null )
+		{
+			executor = Executors.newFixedThreadPool( Runtime.getRuntime( )
+					.availableProcessors( ), new ThreadFactory( ) {
+
+				private AtomicInteger threadCount = new AtomicInteger( );
+
+				public Thread newThread( Runnable runnable )
+				{
+					Thread thread = new Thread( runnable, "BIRT-CubeBuild-"
+							+ threadCount.incrementAndGet( ) );
+					thread.setDaemon( true );
+					return thread;
+				}
+			} );
+		}
+		return executor;
+	}
+}
@@ -506,12 +506,17 @@ public class DiskIndex
 	}
 
 	/**
+	 * Sorts the index keys and merges the positions and offsets of the equal
+	 * keys. The result can be passed to
+	 * {@link #createIndex(IDocumentManager, String, IDiskArray, boolean)} as a
+	 * sorted key list, so the keys of several indexes can be sorted in other
+	 * threads.
 	 * 
 	 * @param keyList
 	 * @return
 	 * @throws IOException
 	 */
-	private IDiskArray sortKeys( IDiskArray keyList ) throws IOException
+	public static IDiskArray sortKeys( IDiskArray keyList ) throws IOException
 	{
 		DiskSortedStack sortStack = new DiskSortedStack( Math.min( keyList.size( ),
 				Constants.MAX_LIST_BUFFER_SIZE ),
@@ -555,7 +560,7 @@ public class DiskIndex
 		return reList;
 	}
 
-	private void addIndex(BufferedStructureArray reList, IndexKey curIndexKey,
+	private static void addIndex(BufferedStructureArray reList, IndexKey curIndexKey,
 			List<Integer> dimPos, List<Integer> dimOffset) throws IOException {
 		int[] iDimPos = new int[dimPos.size( )];
 		for( int j = 0; j < iDimPos.length; j++ )
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.eclipse.birt.core.exception.BirtException;
+
+/**
+ * A sorted stack which sorts the objects in ascending order in several
+ * threads. The pushed objects are dealt to some partitions in batches, each
+ * partition is a {@link DiskSortedStack} which sorts and spills its batches in
+ * a thread of {@link CubeBuildExecutor}. The partitions are read ahead in
+ * batches in the same threads while they are merged by
+ * {@link #pop()}.
+ * <p>
+ * It can replace a {@link DiskSortedStack} created with ascending order, but
+ * the stack is owned by one thread: push and pop must be called in the same
+ * thread, and all objects must be pushed before the first pop.
+ */
+public class ParallelSortedStack extends DiskSortedStack
+{
+
+	static final int BATCH_SIZE = 1000;
+
+	private boolean forceDistinct;
+
+	private DiskSortedStack[] partitions;
+
+	// the last task which pushes a batch to each partition
+	private Future<?>[] pushTasks;
+
+	private List<Object> pushBatch;
+
+	private int batchCount;
+
+	private int size;
+
+	// the batches of the partitions being merged
+	private PriorityQueue<PartitionBatch> popQueue;
+
+	// the next batch read ahead from each partition
+	private Future<Object[]>[] readAheads;
+
+	private Object lastPopObject;
+
+	/**
+	 * @param partitionCount
+	 *            the number of partitions, it is also the number of threads
+	 *            used by the stack.
+	 * @param bufferSize
+	 *            the total size of the memory buffers of the partitions
+	 * @param forceDistinct
+	 * @param creator
+	 */
+	@SuppressWarnings("unchecked")
+	public ParallelSortedStack( int partitionCount, int bufferSize,
+			boolean forceDistinct, IStructureCreator creator )
+	{
+		super( 1, true, forceDistinct, creator );
+		this.forceDistinct = forceDistinct;
+		partitions = new DiskSortedStack[Math.max( 1, partitionCount )];
+		for ( int i = 0; i < partitions.length; i++ )
+		{
+			partitions[i] = new DiskSortedStack( Math.max( BATCH_SIZE,
+					bufferSize / partitions.length ),
+					true,
+					forceDistinct,
+					creator );
+		}
+		pushTasks = new Future<?>[partitions.length];
+		readAheads = new Future[partitions.length];
+		pushBatch = new ArrayList<Object>( BATCH_SIZE );
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.olap.data.util.BaseDiskSortedStack#setUseMemoryOnly(boolean)
+	 */
+	public void setUseMemoryOnly( boolean useMemoryOnly )
+	{
+		for ( int i = 0; i < partitions.length; i++ )
+		{
+			partitions[i].setUseMemoryOnly( useMemoryOnly );
+		}
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.olap.data.util.BaseDiskSortedStack#push(java.lang.Object)
+	 */
+	public void push( Object o ) throws IOException
+	{
+		if ( popQueue != null )
+		{
+			throw new IllegalStateException( "the stack is being popped" );
+		}
+		pushBatch.add( o );
+		size++;
+		if ( pushBatch.size( ) == BATCH_SIZE )
+		{
+			flushBatch( );
+		}
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.olap.data.util.BaseDiskSortedStack#size()
+	 */
+	public int size( )
+	{
+		return size;
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.olap.data.util.BaseDiskSortedStack#pop()
+	 */
+	public Object pop( ) throws IOException
+	{
+		if ( popQueue == null )
+		{
+			initPop( );
+		}
+		while ( !popQueue.isEmpty( ) )
+		{
+			PartitionBatch batch = popQueue.poll( );
+			Object value = batch.values[batch.position++];
+			if ( batch.position < batch.values.length )
+			{
+				popQueue.add( batch );
+			}
+			else if ( batch.values.length == BATCH_SIZE )
+			{
+				nextBatch( batch.partition );
+			}
+			if ( forceDistinct
+					&& lastPopObject != null
+					&& ( (Comparable) lastPopObject ).compareTo( value ) == 0 )
+			{
+				continue;
+			}
+			lastPopObject = value;
+			return value;
+		}
+		return null;
+	}
+
+	/*
+	 * @see org.eclipse.birt.data.engine.olap.data.util.BaseDiskSortedStack#close()
+	 */
+	public void close( ) throws IOException
+	{
+		CubeBuildExecutor.waitQuietly( pushTasks );
+		CubeBuildExecutor.waitQuietly( readAheads );
+		for ( int i = 0; i < partitions.length; i++ )
+		{
+			partitions[i].close( );
+		}
+	}
+
+	/**
+	 * hands the current batch to the next partition. The previous batch of
+	 * the partition must have been pushed, so at most one batch per
+	 * partition is waiting in the memory.
+	 */
+	private void flushBatch( ) throws IOException
+	{
+		final int partition = batchCount++ % partitions.length;
+		if ( pushTasks[partition] != null )
+		{
+			waitFor( pushTasks[partition] );
+		}
+		final List<Object> batch = pushBatch;
+		pushBatch = new ArrayList<Object>( BATCH_SIZE );
+		pushTasks[partition] = CubeBuildExecutor.submit( new Callable<Object>( ) {
+
+			public Object call( ) throws IOException
+			{
+				DiskSortedStack stack = partitions[partition];
+				for ( int i = 0; i < batch.size( ); i++ )
+				{
+					stack.push( batch.get( i ) );
+				}
+				return null;
+			}
+		} );
+	}
+
+	private void initPop( ) throws IOException
+	{
+		if ( !pushBatch.isEmpty( ) )
+		{
+			flushBatch( );
+		}
+		for ( int i = 0; i < pushTasks.length; i++ )
+		{
+			if ( pushTasks[i] != null )
+			{
+				waitFor( pushTasks[i] );
+				pushTasks[i] = null;
+			}
+		}
+		popQueue = new PriorityQueue<PartitionBatch>( partitions.length );
+		for ( int i = 0; i < partitions.length; i++ )
+		{
+			readAheads[i] = readAhead( i );
+		}
+		for ( int i = 0; i < partitions.length; i++ )
+		{
+			nextBatch( i );
+		}
+	}
+
+	/**
+	 * takes the batch read ahead from the partition, and starts reading the
+	 * next one.
+	 */
+	private void nextBatch( int partition ) throws IOException
+	{
+		Object[] values = waitFor( readAheads[partition] );
+		readAheads[partition] = null;
+		if ( values.length == 0 )
+		{
+			return;
+		}
+		if ( values.length == BATCH_SIZE )
+		{
+			readAheads[partition] = readAhead( partition );
+		}
+		popQueue.add( new PartitionBatch( partition, values ) );
+	}
+
+	private Future<Object[]> readAhead( final int partition )
+	{
+		return CubeBuildExecutor.submit( new Callable<Object[]>( ) {
+
+			public Object[] call( ) throws IOException
+			{
+				DiskSortedStack stack = partitions[partition];
+				List<Object> values = new ArrayList<Object>( BATCH_SIZE );
+				Object value = null;
+				while ( values.size( ) < BATCH_SIZE
+						&& ( value = stack.pop( ) ) != null )
+				{
+					values.add( value );
+				}
+				return values.toArray( );
+			}
+		} );
+	}
+
+	private static <T> T waitFor( Future<T> future ) throws IOException
+	{
+		try
+		{
+			return CubeBuildExecutor.waitFor( future );
+		}
+		catch ( BirtException e )
+		{
+			IOException ex = new IOException( e.getLocalizedMessage( ) );
+			ex.initCause( e );
+			throw ex;
+		}
+	}
+
+	/**
+	 * The batch of a partition being merged, the batches are ordered by their
+	 * current values, and by the partitions for the equal values.
+	 */
+	private static class PartitionBatch implements Comparable<PartitionBatch>
+	{
+
+		int partition;
+		Object[] values;
+		int position;
+
+		PartitionBatch( int partition, Object[] values )
+		{
+			this.partition = partition;
+			this.values = values;
+		}
+
+		@SuppressWarnings("unchecked")
+		public int compareTo( PartitionBatch other )
+		{
+			int result = ( (Comparable) values[position] )
+					.compareTo( other.values[other.position] );
+			if ( result != 0 )
+			{
+				return result;
+			}
+			return partition - other.partition;
+		}
+	}
+}
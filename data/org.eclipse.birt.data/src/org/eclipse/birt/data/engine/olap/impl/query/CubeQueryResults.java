@@ -48,6 +48,7 @@ import org.eclipse.birt.data.engine.olap.api.query.ILevelDefinition;
 import org.eclipse.birt.data.engine.olap.data.api.CubeQueryExecutorHelper;
 import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
 import org.eclipse.birt.data.engine.olap.data.api.IBindingValueFetcher;
+import org.eclipse.birt.data.engine.olap.data.api.cube.CubeStore;
 import org.eclipse.birt.data.engine.olap.data.api.cube.DocManagerMap;
 import org.eclipse.birt.data.engine.olap.data.api.cube.ICube;
 import org.eclipse.birt.data.engine.olap.data.document.CubeRADocumentManagerFactory;
@@ -380,6 +381,19 @@ public class CubeQueryResults implements ICubeQueryResults
 			if( manager.exist( NamingUtil.getCubeDocName( executor.getCubeQueryDefinition( ).getName( ) ) ))
 				return manager;
 		}
+		if ( executor.getContext( ).getMode( ) == DataEngineContext.DIRECT_PRESENTATION
+				|| executor.getContext( ).getMode( ) == DataEngineContext.MODE_GENERATION )
+		{
+			// the cube is materialized in a cube store
+			manager = DocManagerMap.getDocManagerMap( )
+					.get( String.valueOf( executor.getSession( )
+							.getEngine( )
+							.hashCode( ) ),
+							CubeStore.getDocManagerKey( executor.getCubeQueryDefinition( )
+									.getName( ) ) );
+			if ( manager != null )
+				return manager;
+		}
 		return CubeRADocumentManagerFactory.createRADocumentManager( executor.getCubeQueryDefinition( ).getName( ), 
 				executor.getContext( ).getDocReader( ) );
 	}
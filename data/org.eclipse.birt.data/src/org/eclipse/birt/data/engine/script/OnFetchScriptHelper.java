@@ -15,14 +15,14 @@ package org.eclipse.birt.data.engine.script;
 
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.impl.DataSetRuntime;
+import org.eclipse.birt.data.engine.odi.IBatchResultObjectEvent;
 import org.eclipse.birt.data.engine.odi.IResultIterator;
 import org.eclipse.birt.data.engine.odi.IResultObject;
-import org.eclipse.birt.data.engine.odi.IResultObjectEvent;
 
 /**
  * Class to implement an event sink for dataSet.onFetch event
  */
-public class OnFetchScriptHelper implements IResultObjectEvent
+public class OnFetchScriptHelper implements IBatchResultObjectEvent
 {
 	private DataSetRuntime dataSet;
 	
@@ -45,4 +45,19 @@ public class OnFetchScriptHelper implements IResultObjectEvent
 			dataSet.setResultSet( resultSet, true);
 		return true;
 	}
+
+	/**
+	 * Fire the onFetch event of the selected rows of a batch in the row order.
+	 * 
+	 * @see org.eclipse.birt.data.engine.odi.IBatchResultObjectEvent#process(org.eclipse.birt.data.engine.odi.IResultObject[], int[], int[], int)
+	 */
+	public int process( IResultObject[] resultObjects, int[] rowIndexes,
+			int[] selection, int selectedCount ) throws DataException
+	{
+		for ( int i = 0; i < selectedCount; i++ )
+		{
+			process( resultObjects[selection[i]], rowIndexes[selection[i]] );
+		}
+		return selectedCount;
+	}
 }
@@ -30,6 +30,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,13 +45,18 @@ import org.eclipse.birt.data.engine.api.DataEngine;
 import org.eclipse.birt.data.engine.api.DataEngineContext;
 import org.eclipse.birt.data.engine.api.IBaseDataSetDesign;
 import org.eclipse.birt.data.engine.api.IBaseDataSourceDesign;
+import org.eclipse.birt.data.engine.api.IBaseExpression;
 import org.eclipse.birt.data.engine.api.IBasePreparedQuery;
 import org.eclipse.birt.data.engine.api.IBaseQueryResults;
 import org.eclipse.birt.data.engine.api.IBinding;
+import org.eclipse.birt.data.engine.api.IComputedColumn;
 import org.eclipse.birt.data.engine.api.IConditionalExpression;
 import org.eclipse.birt.data.engine.api.IDataQueryDefinition;
 import org.eclipse.birt.data.engine.api.IDataScriptEngine;
+import org.eclipse.birt.data.engine.api.IExpressionCollection;
+import org.eclipse.birt.data.engine.api.IFilterDefinition;
 import org.eclipse.birt.data.engine.api.IGroupDefinition;
+import org.eclipse.birt.data.engine.api.IInputParameterBinding;
 import org.eclipse.birt.data.engine.api.IPreparedQuery;
 import org.eclipse.birt.data.engine.api.IQueryDefinition;
 import org.eclipse.birt.data.engine.api.IQueryResults;
@@ -79,12 +85,15 @@ import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
 import org.eclipse.birt.data.engine.olap.data.api.ILevel;
 import org.eclipse.birt.data.engine.olap.data.api.cube.CubeElementFactory;
 import org.eclipse.birt.data.engine.olap.data.api.cube.CubeMaterializer;
+import org.eclipse.birt.data.engine.olap.data.api.cube.CubeStore;
 import org.eclipse.birt.data.engine.olap.data.api.cube.IDatasetIterator;
 import org.eclipse.birt.data.engine.olap.data.api.cube.IDimension;
 import org.eclipse.birt.data.engine.olap.data.api.cube.IHierarchy;
 import org.eclipse.birt.data.engine.olap.data.api.cube.ILevelDefn;
+import org.eclipse.birt.data.engine.olap.data.api.cube.StoredCube;
 import org.eclipse.birt.data.engine.olap.query.view.CubeQueryDefinitionUtil;
 import org.eclipse.birt.data.engine.olap.util.OlapExpressionUtil;
+import org.eclipse.birt.data.engine.script.ScriptEvalUtil;
 import org.eclipse.birt.report.data.adapter.api.AdapterException;
 import org.eclipse.birt.report.data.adapter.api.DataAdapterUtil;
 import org.eclipse.birt.report.data.adapter.api.DataRequestSession;
@@ -117,6 +126,7 @@ import org.eclipse.birt.report.model.api.FilterConditionHandle;
 import org.eclipse.birt.report.model.api.GroupHandle;
 import org.eclipse.birt.report.model.api.LevelAttributeHandle;
 import org.eclipse.birt.report.model.api.ModuleHandle;
+import org.eclipse.birt.report.model.api.OdaDataSetHandle;
 import org.eclipse.birt.report.model.api.ReportElementHandle;
 import org.eclipse.birt.report.model.api.ResultSetColumnHandle;
 import org.eclipse.birt.report.model.api.RuleHandle;
@@ -772,18 +782,18 @@ public class DataRequestSessionImpl extends DataRequestSession
 			String memoryUsage =  (String)( appContext.get( DataEngine.MEMORY_USAGE ) );
 			MemoryUsageSetting.setMemoryUsage( memoryUsage );
 
-			if ( mode == DataEngineContext.DIRECT_PRESENTATION )
+			Object storeDirectory = appContext.get( DataEngine.CUBE_STORE_DIRECTORY );
+			if ( storeDirectory != null
+					&& storeDirectory.toString( ).trim( ).length( ) > 0
+					&& ( mode == DataEngineContext.DIRECT_PRESENTATION || mode == DataEngineContext.MODE_GENERATION ) )
 			{
-				int size = 0;
-				if ( appContext != null )
-				{
-					Integer value = DataTypeUtil.toInteger( appContext.get( DataEngine.IN_MEMORY_CUBE_SIZE ) );
-					if ( value != null && value.intValue( ) > 0)
-					{
-						size = value.intValue( );
-					}
-				}
-				CubeMaterializer cm = getCubeMaterializer( size );
+				materializeStoredCube( (TabularCubeHandle) cubeHandle,
+						new CubeStore( storeDirectory.toString( ).trim( ) ),
+						appContext );
+			}
+			else if ( mode == DataEngineContext.DIRECT_PRESENTATION )
+			{
+				CubeMaterializer cm = getCubeMaterializer( getInMemoryCubeSize( appContext ) );
 				createCube( (TabularCubeHandle) cubeHandle,
 						cm,
 						appContext );
@@ -803,6 +813,291 @@ public class DataRequestSessionImpl extends DataRequestSession
 		}
 	}
 
+	/**
+	 * Reuses the cube kept in the cube store if it is still valid, otherwise
+	 * builds the cube into the store.
+	 *
+	 * @param cubeHandle
+	 * @param cubeStore
+	 * @param appContext
+	 * @throws BirtException
+	 * @throws IOException
+	 */
+	private void materializeStoredCube( TabularCubeHandle cubeHandle,
+			CubeStore cubeStore, Map appContext ) throws BirtException,
+			IOException
+	{
+		String cubeName = cubeHandle.getQualifiedName( );
+		String signature = computeCubeStoreSignature( cubeHandle, appContext );
+		StoredCube storedCube = cubeStore.open( cubeName,
+				signature,
+				computeCubeStoreTimeToLive( appContext ) );
+		CubeMaterializer cm = null;
+		if ( storedCube != null )
+		{
+			cm = new CubeMaterializer( this.dataEngine, storedCube );
+		}
+		else
+		{
+			storedCube = cubeStore.create( cubeName,
+					getInMemoryCubeSize( appContext ) );
+			cm = new CubeMaterializer( this.dataEngine, storedCube );
+			createCube( cubeHandle, cm, appContext );
+			if ( this.dataEngine.getSession( ).getStopSign( ).isStopped( ) )
+			{
+				return;
+			}
+			cubeStore.commit( storedCube, signature );
+		}
+		if ( this.sessionContext.getDataEngineContext( ).getMode( ) == DataEngineContext.MODE_GENERATION )
+		{
+			cm.saveCubeToReportDocument( cubeName,
+					this.sessionContext.getDocumentWriter( ),
+					this.dataEngine.getSession( ).getStopSign( ) );
+		}
+	}
+
+	/**
+	 * The signature of a stored cube is made of the data sets and the
+	 * columns the cube is built from, and the signature given by the
+	 * application context. The data sets are identified by their queries,
+	 * the evaluated values of their parameters, their filters and their
+	 * computed columns.
+	 *
+	 * @param cubeHandle
+	 * @param appContext
+	 * @return
+	 * @throws BirtException
+	 */
+	private String computeCubeStoreSignature( TabularCubeHandle cubeHandle,
+			Map appContext ) throws BirtException
+	{
+		StringBuffer signature = new StringBuffer( );
+		appendDataSetSignature( signature, cubeHandle.getDataSet( ) );
+		List dimHandles = cubeHandle.getContents( CubeHandle.DIMENSIONS_PROP );
+		for ( int i = 0; i < dimHandles.size( ); i++ )
+		{
+			DimensionHandle dim = (DimensionHandle) dimHandles.get( i );
+			signature.append( "\ndimension:" ).append( dim.getName( ) );
+			List hiers = dim.getContents( DimensionHandle.HIERARCHIES_PROP );
+			for ( int j = 0; j < hiers.size( ); j++ )
+			{
+				TabularHierarchyHandle hier = (TabularHierarchyHandle) hiers.get( j );
+				signature.append( "\nhierarchy:" ).append( hier.getName( ) );
+				appendDataSetSignature( signature, hier.getDataSet( ) );
+				List levels = hier.getContents( TabularHierarchyHandle.LEVELS_PROP );
+				for ( int k = 0; k < levels.size( ); k++ )
+				{
+					TabularLevelHandle level = (TabularLevelHandle) levels.get( k );
+					signature.append( "\nlevel:" )
+							.append( level.getName( ) )
+							.append( '=' )
+							.append( level.getColumnName( ) );
+					Iterator it = level.attributesIterator( );
+					while ( it.hasNext( ) )
+					{
+						signature.append( ',' )
+								.append( ( (LevelAttributeHandle) it.next( ) ).getName( ) );
+					}
+				}
+			}
+		}
+		List measureGroups = cubeHandle.getContents( CubeHandle.MEASURE_GROUPS_PROP );
+		for ( int i = 0; i < measureGroups.size( ); i++ )
+		{
+			MeasureGroupHandle mgh = (MeasureGroupHandle) measureGroups.get( i );
+			List measures = mgh.getContents( MeasureGroupHandle.MEASURES_PROP );
+			for ( int j = 0; j < measures.size( ); j++ )
+			{
+				MeasureHandle measure = (MeasureHandle) measures.get( j );
+				signature.append( "\nmeasure:" )
+						.append( measure.getName( ) )
+						.append( '=' )
+						.append( measure.getFunction( ) )
+						.append( '(' )
+						.append( measure.getMeasureExpression( ) )
+						.append( ')' );
+			}
+		}
+		Object value = appContext == null
+				? null : appContext.get( DataEngine.CUBE_STORE_SIGNATURE );
+		if ( value != null )
+		{
+			signature.append( "\nsignature:" ).append( value );
+		}
+		return signature.toString( );
+	}
+
+	private void appendDataSetSignature( StringBuffer signature,
+			DataSetHandle dataSet ) throws BirtException
+	{
+		if ( dataSet == null )
+		{
+			return;
+		}
+		signature.append( "\ndataSet:" ).append( dataSet.getQualifiedName( ) );
+		if ( dataSet instanceof OdaDataSetHandle )
+		{
+			signature.append( '=' )
+					.append( ( (OdaDataSetHandle) dataSet ).getQueryText( ) );
+		}
+		BaseDataSetDesign design = this.modelAdaptor.adaptDataSet( dataSet );
+		if ( design == null )
+		{
+			return;
+		}
+		// the parameter bindings are ordered by name to keep the signature
+		// stable
+		Map<String, IBaseExpression> paramBindings = new TreeMap<String, IBaseExpression>( );
+		Iterator it = design.getInputParamBindings( ).iterator( );
+		while ( it.hasNext( ) )
+		{
+			IInputParameterBinding binding = (IInputParameterBinding) it.next( );
+			paramBindings.put( binding.getName( ) == null
+					? String.valueOf( binding.getPosition( ) )
+					: binding.getName( ), binding.getExpr( ) );
+		}
+		for ( Map.Entry<String, IBaseExpression> binding : paramBindings.entrySet( ) )
+		{
+			signature.append( "\nparameter:" ).append( binding.getKey( ) );
+			appendExpressionSignature( signature, binding.getValue( ), true );
+		}
+		it = design.getFilters( ).iterator( );
+		while ( it.hasNext( ) )
+		{
+			signature.append( "\nfilter:" );
+			appendExpressionSignature( signature,
+					( (IFilterDefinition) it.next( ) ).getExpression( ),
+					false );
+		}
+		it = design.getComputedColumns( ).iterator( );
+		while ( it.hasNext( ) )
+		{
+			IComputedColumn column = (IComputedColumn) it.next( );
+			signature.append( "\ncomputedColumn:" )
+					.append( column.getName( ) )
+					.append( '=' )
+					.append( column.getAggregateFunction( ) );
+			appendExpressionSignature( signature, column.getExpression( ), false );
+			appendExpressionSignature( signature,
+					column.getAggregateFilter( ),
+					false );
+			if ( column.getAggregateArgument( ) != null )
+			{
+				Iterator args = column.getAggregateArgument( ).iterator( );
+				while ( args.hasNext( ) )
+				{
+					appendExpressionSignature( signature,
+							(IBaseExpression) args.next( ),
+							true );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends an expression to the signature. The operands of the conditions
+	 * are evaluated, so are the expressions to evaluate, e.g. the parameter
+	 * bindings. The expressions which can not be evaluated out of a row are
+	 * appended as they are.
+	 *
+	 * @param signature
+	 * @param expr
+	 * @param evaluate
+	 *            whether to evaluate the expression
+	 */
+	private void appendExpressionSignature( StringBuffer signature,
+			IBaseExpression expr, boolean evaluate )
+	{
+		if ( expr instanceof IConditionalExpression )
+		{
+			IConditionalExpression condition = (IConditionalExpression) expr;
+			appendExpressionSignature( signature,
+					condition.getExpression( ),
+					false );
+			signature.append( ' ' ).append( condition.getOperator( ) );
+			appendExpressionSignature( signature,
+					condition.getOperand1( ),
+					true );
+			appendExpressionSignature( signature,
+					condition.getOperand2( ),
+					true );
+		}
+		else if ( expr instanceof IExpressionCollection )
+		{
+			Iterator it = ( (IExpressionCollection) expr ).getExpressions( )
+					.iterator( );
+			while ( it.hasNext( ) )
+			{
+				appendExpressionSignature( signature,
+						(IBaseExpression) it.next( ),
+						evaluate );
+			}
+		}
+		else if ( expr instanceof IScriptExpression )
+		{
+			signature.append( ' ' );
+			if ( evaluate )
+			{
+				try
+				{
+					Object value = ScriptEvalUtil.evalExpr( expr,
+							this.sessionContext.getDataEngineContext( )
+									.getScriptContext( ),
+							org.eclipse.birt.core.script.ScriptExpression.defaultID,
+							0 );
+					signature.append( '[' )
+							.append( value instanceof Object[]
+									? Arrays.asList( (Object[]) value )
+									: value )
+							.append( ']' );
+					return;
+				}
+				catch ( BirtException e )
+				{
+					// e.g. the expression refers to the row
+				}
+			}
+			signature.append( ( (IScriptExpression) expr ).getText( ) );
+		}
+	}
+
+	/**
+	 *
+	 * @param appContext
+	 * @return how many milliseconds a stored cube can be reused, 0 if it
+	 *         never expires
+	 */
+	public static long computeCubeStoreTimeToLive( Map appContext )
+	{
+		if ( appContext == null )
+			return 0;
+		Object propValue = appContext.get( DataEngine.CUBE_STORE_TIME_TO_LIVE );
+		if ( propValue == null )
+			return 0;
+		try
+		{
+			return Math.max( 0, Long.parseLong( propValue.toString( ).trim( ) ) ) * 60 * 1000;
+		}
+		catch ( NumberFormatException e )
+		{
+			return 0;
+		}
+	}
+
+	private static int getInMemoryCubeSize( Map appContext ) throws BirtException
+	{
+		if ( appContext != null )
+		{
+			Integer value = DataTypeUtil.toInteger( appContext.get( DataEngine.IN_MEMORY_CUBE_SIZE ) );
+			if ( value != null && value.intValue( ) > 0 )
+			{
+				return value.intValue( );
+			}
+		}
+		return 0;
+	}
+
 	/**
 	 *
 	 * @param cubeHandle
@@ -828,6 +1123,7 @@ public class DataRequestSessionImpl extends DataRequestSession
 		//information carrier.
 
 		backupAppContext.putAll( appContext );
+		cubeMaterializer.setThreadCount( computeCubeBuildThreadCount( appContext ) );
 
 		List measureNames = new ArrayList( );
 		Map calculatedMeasure = new HashMap( );
@@ -1095,6 +1391,30 @@ public class DataRequestSessionImpl extends DataRequestSession
 		return populateMemBufferSize( appContext.get( DataEngine.MEMORY_BUFFER_SIZE )) * 1024 * 1024;
 	}
 
+	/**
+	 *
+	 * @param appContext
+	 * @return how many threads may build a cube, 1 if it is built in the
+	 *         query thread only
+	 */
+	public static int computeCubeBuildThreadCount( Map appContext )
+	{
+		if ( appContext == null )
+			return 1;
+		Object propValue = appContext.get( DataEngine.CUBE_BUILD_THREAD_COUNT );
+		if ( propValue == null )
+			return 1;
+		try
+		{
+			return Math.max( 1, Integer.parseInt( propValue.toString( )
+					.trim( ) ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			return 1;
+		}
+	}
+
 	/**
 	 *
 	 * @param propValue
@@ -1353,14 +1673,19 @@ public class DataRequestSessionImpl extends DataRequestSession
 		for ( int i = 0; i < dimHandles.size( ); i++ )
 		{
 			DimensionHandle dh = (DimensionHandle) dimHandles.get( i );
-			IDimension dim = createdDimensions.get( dh.getName( ) );
+			// the dimensions of a stored cube are kept with the cube only
+			boolean shared = cubeMaterializer == this.cubeMaterializer;
+			IDimension dim = shared ? createdDimensions.get( dh.getName( ) ) : null;
 			if ( dim == null )
 			{
 				dim = populateDimension( cubeMaterializer,
 						dh,
 						cubeHandle,
 						appContext, sl );
-				createdDimensions.put( dh.getName( ), dim );
+				if ( shared )
+				{
+					createdDimensions.put( dh.getName( ), dim );
+				}
 			}
 			result.add( dim);
 		}
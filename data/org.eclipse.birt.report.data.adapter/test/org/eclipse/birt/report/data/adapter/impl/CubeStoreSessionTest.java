@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.adapter.impl;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.data.engine.api.DataEngineContext;
+import org.eclipse.birt.report.data.adapter.api.DataSessionContext;
+import org.eclipse.birt.report.model.api.DataSetHandle;
+import org.eclipse.birt.report.model.api.DesignEngine;
+import org.eclipse.birt.report.model.api.ElementFactory;
+import org.eclipse.birt.report.model.api.Expression;
+import org.eclipse.birt.report.model.api.ExpressionType;
+import org.eclipse.birt.report.model.api.ReportDesignHandle;
+import org.eclipse.birt.report.model.api.ScalarParameterHandle;
+import org.eclipse.birt.report.model.api.ScriptDataSetHandle;
+import org.eclipse.birt.report.model.api.ScriptDataSourceHandle;
+import org.eclipse.birt.report.model.api.SessionHandle;
+import org.eclipse.birt.report.model.api.activity.SemanticException;
+import org.eclipse.birt.report.model.api.elements.DesignChoiceConstants;
+import org.eclipse.birt.report.model.api.elements.structures.ComputedColumn;
+import org.eclipse.birt.report.model.api.elements.structures.DataSetParameter;
+import org.eclipse.birt.report.model.api.elements.structures.FilterCondition;
+import org.eclipse.birt.report.model.api.elements.structures.ResultSetColumn;
+import org.eclipse.birt.report.model.api.olap.CubeHandle;
+import org.eclipse.birt.report.model.api.olap.MeasureGroupHandle;
+import org.eclipse.birt.report.model.api.olap.MeasureHandle;
+import org.eclipse.birt.report.model.api.olap.TabularCubeHandle;
+import org.eclipse.birt.report.model.api.olap.TabularDimensionHandle;
+import org.eclipse.birt.report.model.api.olap.TabularHierarchyHandle;
+import org.eclipse.birt.report.model.api.olap.TabularLevelHandle;
+
+import com.ibm.icu.util.ULocale;
+
+/**
+ * Test the reuse and the rebuild of the cubes kept in the cube store by the
+ * data request sessions.
+ */
+public class CubeStoreSessionTest extends TestCase
+{
+
+	private static final String STORE_DIR = "./cubeStoreSessionTest";
+
+	private ReportDesignHandle designHandle;
+	private ScriptDataSetHandle dataSet;
+	private ScalarParameterHandle reportParam;
+	private TabularCubeHandle cubeHandle;
+
+	protected void setUp( ) throws Exception
+	{
+		deleteStore( new File( STORE_DIR ) );
+		SessionHandle session = DesignEngine.newSession( ULocale.getDefault( ) );
+		designHandle = session.createDesign( "cubeStoreSessionTest.rptdesign" );
+		ElementFactory factory = designHandle.getElementFactory( );
+
+		reportParam = factory.newScalarParameter( "region" );
+		reportParam.setDataType( DesignChoiceConstants.PARAM_TYPE_STRING );
+		reportParam.setDefaultValueList( Arrays.asList( new Expression( "east",
+				ExpressionType.CONSTANT ) ) );
+		designHandle.getParameters( ).add( reportParam );
+
+		ScriptDataSourceHandle dataSource = factory.newScriptDataSource( "dataSource" );
+		designHandle.getDataSources( ).add( dataSource );
+		dataSet = factory.newScriptDataSet( "dataSet" );
+		dataSet.setDataSource( dataSource.getName( ) );
+		dataSet.setOpen( "i = 0;" );
+		dataSet.setFetch( "if ( i < 3 ) { row[\"KEY\"] = i; row[\"AMOUNT\"] = i * 10; i++; return true; } return false;" );
+		addResultSetColumn( "KEY", DesignChoiceConstants.COLUMN_DATA_TYPE_INTEGER, 1 );
+		addResultSetColumn( "AMOUNT", DesignChoiceConstants.COLUMN_DATA_TYPE_INTEGER, 2 );
+		DataSetParameter param = new DataSetParameter( );
+		param.setName( "region" );
+		param.setDataType( DesignChoiceConstants.PARAM_TYPE_STRING );
+		param.setIsInput( true );
+		param.setIsOutput( false );
+		param.setPosition( Integer.valueOf( 1 ) );
+		param.setExpressionProperty( DataSetParameter.DEFAULT_VALUE_MEMBER,
+				new Expression( "params[\"region\"].value",
+						ExpressionType.JAVASCRIPT ) );
+		dataSet.getPropertyHandle( DataSetHandle.PARAMETERS_PROP )
+				.addItem( param );
+		designHandle.getDataSets( ).add( dataSet );
+
+		cubeHandle = (TabularCubeHandle) factory.newTabularCube( "cube" );
+		cubeHandle.setDataSet( dataSet );
+		designHandle.getCubes( ).add( cubeHandle );
+		TabularDimensionHandle dimension = factory.newTabularDimension( "dimension" );
+		cubeHandle.add( CubeHandle.DIMENSIONS_PROP, dimension );
+		TabularHierarchyHandle hierarchy = (TabularHierarchyHandle) dimension.getDefaultHierarchy( );
+		TabularLevelHandle level = factory.newTabularLevel( dimension, "key" );
+		level.setColumnName( "KEY" );
+		level.setDataType( DesignChoiceConstants.COLUMN_DATA_TYPE_INTEGER );
+		hierarchy.add( TabularHierarchyHandle.LEVELS_PROP, level );
+		MeasureGroupHandle measureGroup = factory.newTabularMeasureGroup( "measureGroup" );
+		cubeHandle.add( CubeHandle.MEASURE_GROUPS_PROP, measureGroup );
+		MeasureHandle measure = factory.newTabularMeasure( "amount" );
+		measure.setMeasureExpression( "dataSetRow[\"AMOUNT\"]" );
+		measure.setFunction( DesignChoiceConstants.MEASURE_FUNCTION_SUM );
+		measure.setDataType( DesignChoiceConstants.COLUMN_DATA_TYPE_INTEGER );
+		measureGroup.add( MeasureGroupHandle.MEASURES_PROP, measure );
+	}
+
+	protected void tearDown( )
+	{
+		deleteStore( new File( STORE_DIR ) );
+	}
+
+	private void addResultSetColumn( String name, String type, int position )
+			throws SemanticException
+	{
+		ResultSetColumn column = new ResultSetColumn( );
+		column.setColumnName( name );
+		column.setDataType( type );
+		column.setPosition( Integer.valueOf( position ) );
+		dataSet.getPropertyHandle( ScriptDataSetHandle.RESULT_SET_PROP )
+				.addItem( column );
+	}
+
+	/**
+	 * Materialize the cube with a new session as a report run does
+	 *
+	 * @return the current generation of the stored cube
+	 */
+	private String materialize( ) throws BirtException, IOException
+	{
+		Map appContext = new HashMap( );
+		appContext.put( DataEngine.CUBE_STORE_DIRECTORY, STORE_DIR );
+		DataSessionContext context = new DataSessionContext( DataEngineContext.DIRECT_PRESENTATION,
+				designHandle );
+		context.setAppContext( appContext );
+		DataRequestSessionImpl session = new DataRequestSessionImpl( context );
+		try
+		{
+			session.defineCube( cubeHandle );
+			session.materializeCube( cubeHandle, appContext );
+		}
+		finally
+		{
+			session.shutdown( );
+		}
+		return getCurrentGeneration( );
+	}
+
+	private String getCurrentGeneration( ) throws IOException
+	{
+		File[] cubeDirs = new File( STORE_DIR ).listFiles( );
+		assertEquals( 1, cubeDirs.length );
+		DataInputStream in = new DataInputStream( new FileInputStream( new File( cubeDirs[0],
+				"current" ) ) );
+		try
+		{
+			return in.readUTF( );
+		}
+		finally
+		{
+			in.close( );
+		}
+	}
+
+	public void testReuse( ) throws Exception
+	{
+		String generation = materialize( );
+		assertEquals( generation, materialize( ) );
+	}
+
+	public void testParameterValueChanged( ) throws Exception
+	{
+		String generation = materialize( );
+		// the binding of the data set parameter is the same, but its value
+		// changes with the report parameter
+		reportParam.setDefaultValueList( Arrays.asList( new Expression( "west",
+				ExpressionType.CONSTANT ) ) );
+		String rebuilt = materialize( );
+		assertFalse( generation.equals( rebuilt ) );
+		assertEquals( rebuilt, materialize( ) );
+	}
+
+	public void testFilterChanged( ) throws Exception
+	{
+		String generation = materialize( );
+		FilterCondition filter = new FilterCondition( );
+		filter.setExpr( "row[\"KEY\"]" );
+		filter.setOperator( DesignChoiceConstants.FILTER_OPERATOR_GT );
+		filter.setValue1( "0" );
+		dataSet.getPropertyHandle( DataSetHandle.FILTER_PROP )
+				.addItem( filter );
+		String rebuilt = materialize( );
+		assertFalse( generation.equals( rebuilt ) );
+		assertEquals( rebuilt, materialize( ) );
+	}
+
+	public void testComputedColumnChanged( ) throws Exception
+	{
+		String generation = materialize( );
+		ComputedColumn column = new ComputedColumn( );
+		column.setName( "DOUBLE_AMOUNT" );
+		column.setExpression( "row[\"AMOUNT\"] * 2" );
+		column.setDataType( DesignChoiceConstants.COLUMN_DATA_TYPE_INTEGER );
+		dataSet.getPropertyHandle( DataSetHandle.COMPUTED_COLUMNS_PROP )
+				.addItem( column );
+		String rebuilt = materialize( );
+		assertFalse( generation.equals( rebuilt ) );
+		assertEquals( rebuilt, materialize( ) );
+	}
+
+	private static void deleteStore( File file )
+	{
+		File[] files = file.listFiles( );
+		if ( files != null )
+		{
+			for ( int i = 0; i < files.length; i++ )
+			{
+				deleteStore( files[i] );
+			}
+		}
+		file.delete( );
+	}
+}
@@ -22,6 +22,7 @@ import java.util.logging.Logger;
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.core.exception.CoreException;
 import org.eclipse.birt.core.i18n.ResourceConstants;
+import org.eclipse.birt.core.script.CompiledScriptCache;
 import org.eclipse.birt.core.script.CoreJavaScriptInitializer;
 import org.eclipse.birt.core.script.CoreJavaScriptWrapper;
 import org.eclipse.birt.core.script.ICompiledScript;
@@ -232,15 +233,38 @@ public class JavascriptEngine implements IScriptEngine, IDataScriptEngine
 	public CompiledJavascript compile( ScriptContext scriptContext,
 			final String id, final int lineNumber, final String script ) throws BirtException
 	{
-		Script scriptObject = AccessController
-				.doPrivileged( new PrivilegedAction<Script>( ) {
+		final Object securityDomain = AccessController
+				.doPrivileged( new PrivilegedAction<Object>( ) {
 
-					public Script run( )
+					public Object run( )
 					{
-						return context.compileString( script, id, lineNumber,
-								ScriptUtil.getSecurityDomain( id ) );
+						return ScriptUtil.getSecurityDomain( id );
 					}
 				} );
+		CompiledScriptCache cache = CompiledScriptCache.getInstance( );
+		Script scriptObject = cache.get( script,
+				id,
+				lineNumber,
+				securityDomain );
+		if ( scriptObject == null )
+		{
+			long startTime = System.nanoTime( );
+			scriptObject = AccessController
+					.doPrivileged( new PrivilegedAction<Script>( ) {
+
+						public Script run( )
+						{
+							return context.compileString( script, id,
+									lineNumber, securityDomain );
+						}
+					} );
+			cache.put( script,
+					id,
+					lineNumber,
+					securityDomain,
+					scriptObject,
+					System.nanoTime( ) - startTime );
+		}
 		return new CompiledJavascript( id, lineNumber, script, scriptObject );
 	}
 
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.core.archive.compound.ArchiveEntry;
+import org.eclipse.birt.core.archive.compound.ArchiveFileV3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Writes and reads the entries of an <code>ArchiveFileV3</code>, the format of
+ * the report documents. Each entry is written and read in small chunks, as
+ * the document writers and readers do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ArchiveFileBenchmark
+{
+
+	private static final int CHUNK_SIZE = 4096;
+
+	@Param({"64"})
+	public int entryCount;
+
+	/**
+	 * the entry size in KB
+	 */
+	@Param({"256"})
+	public int entrySize;
+
+	private File tempDir;
+	private String writeFile;
+	private String readFile;
+	private byte[] chunk;
+
+	@Setup
+	public void setUp( ) throws IOException
+	{
+		tempDir = BenchmarkUtil.createTempDirectory( "birt-benchmark" );
+		writeFile = new File( tempDir, "write.rptdocument" ).getAbsolutePath( );
+		readFile = new File( tempDir, "read.rptdocument" ).getAbsolutePath( );
+		chunk = new byte[CHUNK_SIZE];
+		new Random( 0 ).nextBytes( chunk );
+		write( readFile );
+	}
+
+	@TearDown
+	public void tearDown( )
+	{
+		BenchmarkUtil.deleteDirectory( tempDir );
+	}
+
+	private void write( String fileName ) throws IOException
+	{
+		ArchiveFileV3 archive = new ArchiveFileV3( fileName, "rw" );
+		try
+		{
+			long length = entrySize * 1024L;
+			for ( int i = 0; i < entryCount; i++ )
+			{
+				ArchiveEntry entry = archive.createEntry( "/entry" + i );
+				for ( long pos = 0; pos < length; pos += CHUNK_SIZE )
+				{
+					entry.write( pos, chunk, 0, CHUNK_SIZE );
+				}
+				entry.close( );
+			}
+		}
+		finally
+		{
+			archive.close( );
+		}
+	}
+
+	@Benchmark
+	public long writeEntries( ) throws IOException
+	{
+		write( writeFile );
+		return new File( writeFile ).length( );
+	}
+
+	@Benchmark
+	public long readEntries( ) throws IOException
+	{
+		byte[] buffer = new byte[CHUNK_SIZE];
+		long total = 0;
+		ArchiveFileV3 archive = new ArchiveFileV3( readFile, "r" );
+		try
+		{
+			for ( int i = 0; i < entryCount; i++ )
+			{
+				ArchiveEntry entry = archive.openEntry( "/entry" + i );
+				long pos = 0;
+				int size = entry.read( pos, buffer, 0, CHUNK_SIZE );
+				while ( size > 0 )
+				{
+					pos += size;
+					size = entry.read( pos, buffer, 0, CHUNK_SIZE );
+				}
+				total += pos;
+				entry.close( );
+			}
+		}
+		finally
+		{
+			archive.close( );
+		}
+		return total;
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.core.btree.BTree;
+import org.eclipse.birt.core.btree.BTreeOption;
+import org.eclipse.birt.core.btree.BTreeSerializer;
+import org.eclipse.birt.core.btree.BTreeUtils;
+import org.eclipse.birt.core.btree.RAMBTreeFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Inserts the keys into a <code>BTree</code> in random order and looks them up,
+ * as the index of the report document does. The tree is kept in memory, so
+ * the benchmarks measure the tree rather than the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+public class BTreeBenchmark
+{
+
+	@Param({"10000", "100000"})
+	public int keyCount;
+
+	private Integer[] keys;
+	private BTree<Integer, Integer> lookupTree;
+	private int lookupIndex;
+
+	@Setup
+	public void setUp( ) throws IOException
+	{
+		keys = new Integer[keyCount];
+		for ( int i = 0; i < keyCount; i++ )
+		{
+			keys[i] = Integer.valueOf( i );
+		}
+		// shuffle the keys with a fixed seed, so all the runs insert the
+		// same sequence
+		Random random = new Random( 0 );
+		for ( int i = keyCount - 1; i > 0; i-- )
+		{
+			int j = random.nextInt( i + 1 );
+			Integer key = keys[i];
+			keys[i] = keys[j];
+			keys[j] = key;
+		}
+		lookupTree = createTree( );
+	}
+
+	@TearDown
+	public void tearDown( ) throws IOException
+	{
+		lookupTree.close( );
+	}
+
+	private BTree<Integer, Integer> createTree( ) throws IOException
+	{
+		BTreeOption<Integer, Integer> option = new BTreeOption<Integer, Integer>( );
+		option.setKeySize( 4 );
+		option.setKeySerializer( new IntegerSerializer( ) );
+		option.setValueSize( 4 );
+		option.setValueSerializer( new IntegerSerializer( ) );
+		option.setFile( new RAMBTreeFile( ) );
+		BTree<Integer, Integer> tree = new BTree<Integer, Integer>( option );
+		for ( int i = 0; i < keys.length; i++ )
+		{
+			tree.insert( keys[i], keys[i] );
+		}
+		return tree;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public int insert( ) throws IOException
+	{
+		BTree<Integer, Integer> tree = createTree( );
+		int totalKeys = tree.getTotalKeys( );
+		tree.close( );
+		return totalKeys;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Integer lookup( ) throws IOException
+	{
+		Integer key = keys[lookupIndex];
+		lookupIndex = ( lookupIndex + 1 ) % keys.length;
+		return lookupTree.getValue( key );
+	}
+
+	static class IntegerSerializer implements BTreeSerializer<Integer>
+	{
+
+		public byte[] getBytes( Integer object ) throws IOException
+		{
+			byte[] bytes = new byte[4];
+			BTreeUtils.integerToBytes( object.intValue( ), bytes );
+			return bytes;
+		}
+
+		public Integer getObject( byte[] bytes ) throws IOException,
+				ClassNotFoundException
+		{
+			return Integer.valueOf( BTreeUtils.bytesToInteger( bytes ) );
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.framework.Platform;
+import org.eclipse.birt.report.engine.api.EngineConfig;
+import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.IReportEngineFactory;
+import org.eclipse.birt.report.engine.api.IReportRunnable;
+import org.eclipse.birt.report.engine.api.IRunTask;
+
+/**
+ * Utilities shared by the benchmarks.
+ */
+class BenchmarkUtil
+{
+
+	/**
+	 * the design of a table on the synthetic rows
+	 */
+	static final String TABLE_DESIGN = "table.rptdesign";
+
+	/**
+	 * the parameter of the table design for the count of rows
+	 */
+	static final String PARAMETER_ROW_COUNT = "rowCount";
+
+	/**
+	 * the script producing the synthetic rows of a script data set, the rows
+	 * count is in the variable "rowCount". The amounts are not in order, so
+	 * sorting them does real work.
+	 */
+	static final String FETCH_SCRIPT = "if ( rowIndex >= rowCount ) return false;"
+			+ "rowIndex++;"
+			+ "row[\"ID\"] = rowIndex;"
+			+ "row[\"AMOUNT\"] = ( rowIndex * 7919 ) % 10007 / 10;"
+			+ "row[\"NAME\"] = \"customer \" + ( rowIndex % 100 );"
+			+ "return true;";
+
+	/**
+	 * @param rowCount
+	 * @return the open script of the script data set producing the rows
+	 */
+	static String getOpenScript( int rowCount )
+	{
+		return "rowIndex = 0; rowCount = " + rowCount + ";";
+	}
+
+	/**
+	 * starts the platform and creates a report engine using the temporary
+	 * directory.
+	 *
+	 * @param tempDir
+	 * @return the report engine
+	 * @throws BirtException
+	 */
+	static IReportEngine createReportEngine( File tempDir )
+			throws BirtException
+	{
+		EngineConfig config = new EngineConfig( );
+		config.setTempDir( tempDir.getAbsolutePath( ) );
+		config.setLogConfig( null, Level.OFF );
+		Platform.startup( config );
+		IReportEngineFactory factory = (IReportEngineFactory) Platform
+				.createFactoryObject( IReportEngineFactory.EXTENSION_REPORT_ENGINE_FACTORY );
+		return factory.createReportEngine( config );
+	}
+
+	/**
+	 * opens the design of a table with the synthetic rows, the rows count is
+	 * the parameter {@link #PARAMETER_ROW_COUNT}.
+	 *
+	 * @param engine
+	 * @return the runnable of the design
+	 * @throws BirtException
+	 */
+	static IReportRunnable openTableDesign( IReportEngine engine )
+			throws BirtException
+	{
+		InputStream in = BenchmarkUtil.class.getResourceAsStream( TABLE_DESIGN );
+		try
+		{
+			return engine.openReportDesign( TABLE_DESIGN, in );
+		}
+		finally
+		{
+			try
+			{
+				in.close( );
+			}
+			catch ( IOException e )
+			{
+			}
+		}
+	}
+
+	/**
+	 * generates the document of the table design.
+	 *
+	 * @param engine
+	 * @param runnable
+	 * @param rowCount
+	 * @param documentName
+	 * @throws BirtException
+	 */
+	static void runTableDesign( IReportEngine engine, IReportRunnable runnable,
+			int rowCount, String documentName ) throws BirtException
+	{
+		IRunTask task = engine.createRunTask( runnable );
+		try
+		{
+			task.setParameterValue( PARAMETER_ROW_COUNT,
+					Integer.valueOf( rowCount ) );
+			task.run( documentName );
+		}
+		finally
+		{
+			task.close( );
+		}
+	}
+
+	static File createTempDirectory( String prefix ) throws IOException
+	{
+		File dir = File.createTempFile( prefix, "" );
+		if ( !dir.delete( ) || !dir.mkdirs( ) )
+		{
+			throw new IOException( "can't create the directory "
+					+ dir.getAbsolutePath( ) );
+		}
+		return dir;
+	}
+
+	static void deleteDirectory( File dir )
+	{
+		File[] files = dir.listFiles( );
+		if ( files != null )
+		{
+			for ( File file : files )
+			{
+				if ( file.isDirectory( ) )
+				{
+					deleteDirectory( file );
+				}
+				else
+				{
+					file.delete( );
+				}
+			}
+		}
+		dir.delete( );
+	}
+
+	/**
+	 * the output stream discarding all the output, so the benchmarks measure
+	 * the emitters instead of the disk.
+	 */
+	static class NullOutputStream extends OutputStream
+	{
+
+		private long length;
+
+		public void write( int b )
+		{
+			length++;
+		}
+
+		public void write( byte[] b, int off, int len )
+		{
+			length += len;
+		}
+
+		long getLength( )
+		{
+			return length;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.benchmarks;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.core.data.DataType;
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.framework.Platform;
+import org.eclipse.birt.core.framework.PlatformConfig;
+import org.eclipse.birt.core.script.ScriptContext;
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.data.engine.api.DataEngineContext;
+import org.eclipse.birt.data.engine.api.IQueryResults;
+import org.eclipse.birt.data.engine.api.IResultIterator;
+import org.eclipse.birt.data.engine.api.ISortDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.Binding;
+import org.eclipse.birt.data.engine.api.querydefn.ColumnDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.QueryDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.ScriptDataSetDesign;
+import org.eclipse.birt.data.engine.api.querydefn.ScriptDataSourceDesign;
+import org.eclipse.birt.data.engine.api.querydefn.ScriptExpression;
+import org.eclipse.birt.data.engine.api.querydefn.SortDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Executes a sorted query on a script data set, which populates the rows into
+ * the <code>SmartCache</code>. With a large memory buffer the rows are sorted
+ * in memory, with a small one they are sorted by the <code>DiskCache</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DataEngineBenchmark
+{
+
+	private static final String DATA_SOURCE_NAME = "ds";
+	private static final String DATA_SET_NAME = "rows";
+
+	@Param({"10000", "100000"})
+	public int rowCount;
+
+	private File tempDir;
+	private ScriptContext scriptContext;
+	private DataEngine dataEngine;
+
+	@Setup
+	public void setUp( ) throws Exception
+	{
+		tempDir = BenchmarkUtil.createTempDirectory( "birt-benchmark" );
+		PlatformConfig platformConfig = new PlatformConfig( );
+		platformConfig.setTempDir( tempDir.getAbsolutePath( ) );
+		Platform.startup( platformConfig );
+
+		scriptContext = new ScriptContext( );
+		DataEngineContext context = DataEngineContext.newInstance( DataEngineContext.DIRECT_PRESENTATION,
+				scriptContext,
+				null,
+				null,
+				null );
+		context.setTmpdir( tempDir.getAbsolutePath( ) );
+		dataEngine = DataEngine.newDataEngine( platformConfig, context );
+
+		ScriptDataSourceDesign dataSource = new ScriptDataSourceDesign( DATA_SOURCE_NAME );
+		ScriptDataSetDesign dataSet = new ScriptDataSetDesign( DATA_SET_NAME );
+		dataSet.setDataSource( DATA_SOURCE_NAME );
+		dataSet.addResultSetHint( newColumn( "ID", DataType.INTEGER_TYPE ) );
+		dataSet.addResultSetHint( newColumn( "AMOUNT", DataType.DOUBLE_TYPE ) );
+		dataSet.addResultSetHint( newColumn( "NAME", DataType.STRING_TYPE ) );
+		dataSet.setOpenScript( BenchmarkUtil.getOpenScript( rowCount ) );
+		dataSet.setFetchScript( BenchmarkUtil.FETCH_SCRIPT );
+		dataEngine.defineDataSource( dataSource );
+		dataEngine.defineDataSet( dataSet );
+	}
+
+	@TearDown
+	public void tearDown( )
+	{
+		dataEngine.shutdown( );
+		scriptContext.close( );
+		Platform.shutdown( );
+		BenchmarkUtil.deleteDirectory( tempDir );
+	}
+
+	private static ColumnDefinition newColumn( String name, int dataType )
+	{
+		ColumnDefinition column = new ColumnDefinition( name );
+		column.setDataType( dataType );
+		return column;
+	}
+
+	private QueryDefinition newSortedQuery( ) throws BirtException
+	{
+		QueryDefinition query = new QueryDefinition( );
+		query.setDataSetName( DATA_SET_NAME );
+		query.addBinding( new Binding( "ID",
+				new ScriptExpression( "dataSetRow[\"ID\"]" ) ) );
+		query.addBinding( new Binding( "AMOUNT",
+				new ScriptExpression( "dataSetRow[\"AMOUNT\"]" ) ) );
+		query.addBinding( new Binding( "NAME",
+				new ScriptExpression( "dataSetRow[\"NAME\"]" ) ) );
+		SortDefinition sort = new SortDefinition( );
+		sort.setExpression( "row[\"AMOUNT\"]" );
+		sort.setSortDirection( ISortDefinition.SORT_DESC );
+		query.addSort( sort );
+		return query;
+	}
+
+	private void execute( Map<String, Object> appContext, Blackhole blackhole )
+			throws BirtException
+	{
+		IQueryResults results = dataEngine.prepare( newSortedQuery( ),
+				appContext ).execute( null );
+		IResultIterator iterator = results.getResultIterator( );
+		while ( iterator.next( ) )
+		{
+			blackhole.consume( iterator.getValue( "AMOUNT" ) );
+		}
+		iterator.close( );
+		results.close( );
+	}
+
+	@Benchmark
+	public void memoryCache( Blackhole blackhole ) throws BirtException
+	{
+		Map<String, Object> appContext = new HashMap<String, Object>( );
+		// in MB, large enough to keep all the rows in memory
+		appContext.put( DataEngine.MEMORY_BUFFER_SIZE, Integer.valueOf( 512 ) );
+		execute( appContext, blackhole );
+	}
+
+	@Benchmark
+	public void diskCache( Blackhole blackhole ) throws BirtException
+	{
+		Map<String, Object> appContext = new HashMap<String, Object>( );
+		// in MB, small enough to sort the rows on disk
+		appContext.put( DataEngine.MEMORY_BUFFER_SIZE, Integer.valueOf( 1 ) );
+		execute( appContext, blackhole );
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.framework.Platform;
+import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.IReportRunnable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Generates the report document of a table, which covers the query execution,
+ * the content generation and the document writers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportGenerationBenchmark
+{
+
+	@Param({"1000", "10000"})
+	public int rowCount;
+
+	private File tempDir;
+	private IReportEngine engine;
+	private IReportRunnable runnable;
+	private String documentName;
+
+	@Setup
+	public void setUp( ) throws Exception
+	{
+		tempDir = BenchmarkUtil.createTempDirectory( "birt-benchmark" );
+		engine = BenchmarkUtil.createReportEngine( tempDir );
+		runnable = BenchmarkUtil.openTableDesign( engine );
+		documentName = new File( tempDir, "table.rptdocument" ).getAbsolutePath( );
+	}
+
+	@TearDown
+	public void tearDown( )
+	{
+		engine.destroy( );
+		Platform.shutdown( );
+		BenchmarkUtil.deleteDirectory( tempDir );
+	}
+
+	@Benchmark
+	public long generateDocument( ) throws BirtException
+	{
+		BenchmarkUtil.runTableDesign( engine, runnable, rowCount, documentName );
+		return new File( documentName ).length( );
+	}
+}
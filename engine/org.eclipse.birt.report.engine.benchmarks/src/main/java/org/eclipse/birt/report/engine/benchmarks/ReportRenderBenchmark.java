@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.framework.Platform;
+import org.eclipse.birt.report.engine.api.HTMLRenderOption;
+import org.eclipse.birt.report.engine.api.IRenderOption;
+import org.eclipse.birt.report.engine.api.IRenderTask;
+import org.eclipse.birt.report.engine.api.IReportDocument;
+import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.PDFRenderOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Renders a generated report document of a table. The PDF output paginates
+ * the table by the layout engine, the HTML output renders the pages of the
+ * document. The output is discarded, so the benchmark measures the layout and
+ * the emitters rather than the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportRenderBenchmark
+{
+
+	@Param({"1000", "10000"})
+	public int rowCount;
+
+	@Param({"html", "pdf"})
+	public String format;
+
+	private File tempDir;
+	private IReportEngine engine;
+	private IReportDocument document;
+
+	@Setup
+	public void setUp( ) throws Exception
+	{
+		tempDir = BenchmarkUtil.createTempDirectory( "birt-benchmark" );
+		engine = BenchmarkUtil.createReportEngine( tempDir );
+		String documentName = new File( tempDir, "table.rptdocument" ).getAbsolutePath( );
+		BenchmarkUtil.runTableDesign( engine,
+				BenchmarkUtil.openTableDesign( engine ),
+				rowCount,
+				documentName );
+		document = engine.openReportDocument( documentName );
+	}
+
+	@TearDown
+	public void tearDown( )
+	{
+		document.close( );
+		engine.destroy( );
+		Platform.shutdown( );
+		BenchmarkUtil.deleteDirectory( tempDir );
+	}
+
+	@Benchmark
+	public long render( ) throws BirtException
+	{
+		BenchmarkUtil.NullOutputStream out = new BenchmarkUtil.NullOutputStream( );
+		IRenderOption option = "pdf".equals( format ) ? new PDFRenderOption( )
+				: new HTMLRenderOption( );
+		option.setOutputFormat( format );
+		option.setOutputStream( out );
+		IRenderTask task = engine.createRenderTask( document );
+		try
+		{
+			task.setRenderOption( option );
+			task.render( );
+		}
+		finally
+		{
+			task.close( );
+		}
+		return out.getLength( );
+	}
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.script.JavascriptEvalUtil;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Evaluates the typical binding and filter expressions by
+ * <code>JavascriptEvalUtil</code>, which the engine calls for each row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScriptEvaluationBenchmark
+{
+
+	private Context context;
+	private Scriptable scope;
+
+	@Setup
+	public void setUp( )
+	{
+		// the setup runs in the benchmark thread, the context is bound to it
+		context = Context.enter( );
+		scope = context.initStandardObjects( );
+		Scriptable row = context.newObject( scope );
+		ScriptableObject.putProperty( row, "ID", Integer.valueOf( 1024 ) );
+		ScriptableObject.putProperty( row, "AMOUNT", Double.valueOf( 12.5 ) );
+		ScriptableObject.putProperty( row, "NAME", "customer" );
+		ScriptableObject.putProperty( scope, "row", row );
+	}
+
+	@TearDown
+	public void tearDown( )
+	{
+		Context.exit( );
+	}
+
+	private Object evaluate( String script ) throws BirtException
+	{
+		return JavascriptEvalUtil.evaluateScript( context,
+				scope,
+				script,
+				"<benchmark>",
+				1 );
+	}
+
+	@Benchmark
+	public Object columnReference( ) throws BirtException
+	{
+		return evaluate( "row[\"AMOUNT\"]" );
+	}
+
+	@Benchmark
+	public Object arithmetic( ) throws BirtException
+	{
+		return evaluate( "row[\"AMOUNT\"] * 1.2 + row[\"ID\"]" );
+	}
+
+	@Benchmark
+	public Object condition( ) throws BirtException
+	{
+		return evaluate( "row[\"ID\"] % 2 == 0 && row[\"AMOUNT\"] > 10" );
+	}
+
+	@Benchmark
+	public Object concatenation( ) throws BirtException
+	{
+		return evaluate( "row[\"NAME\"] + \" \" + row[\"ID\"]" );
+	}
+
+	@Benchmark
+	public Object functionCall( ) throws BirtException
+	{
+		return evaluate( "Math.round( row[\"AMOUNT\"] * 100 ) / 100" );
+	}
+}
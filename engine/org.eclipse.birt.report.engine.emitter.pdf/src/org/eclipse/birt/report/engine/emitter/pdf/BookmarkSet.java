@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.emitter.pdf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.core.btree.BTree;
+import org.eclipse.birt.core.btree.BTreeCursor;
+import org.eclipse.birt.core.btree.BTreeOption;
+import org.eclipse.birt.core.btree.BTreeSerializer;
+import org.eclipse.birt.core.btree.BTreeUtils;
+import org.eclipse.birt.core.btree.FileBTreeFile;
+
+/**
+ * The bookmarks output by the PDF emitter in the streaming mode. The bookmarks
+ * are kept in memory until there are too many of them, then they are moved to
+ * a B-tree in a temporary file, so the memory used doesn't grow with the count
+ * of the pages.
+ */
+
+class BookmarkSet extends AbstractSet<String>
+{
+
+	private static Logger logger = Logger.getLogger( BookmarkSet.class
+			.getName( ) );
+
+	static final Integer VALUE = new Integer( 0 );
+
+	private final String tempDir;
+
+	private final int maxInlineSize;
+
+	private HashSet<String> inlineSet = new HashSet<String>( );
+
+	private BTree<String, Integer> btree;
+
+	private String fileName;
+
+	private int size;
+
+	/**
+	 * @param tempDir
+	 *            the folder of the temporary file
+	 * @param maxInlineSize
+	 *            the max count of the bookmarks kept in memory
+	 */
+
+	BookmarkSet( String tempDir, int maxInlineSize )
+	{
+		this.tempDir = tempDir;
+		this.maxInlineSize = maxInlineSize;
+	}
+
+	public boolean add( String bookmark )
+	{
+		try
+		{
+			if ( inlineSet != null )
+			{
+				if ( inlineSet.contains( bookmark ) )
+				{
+					return false;
+				}
+				if ( inlineSet.size( ) < maxInlineSize )
+				{
+					inlineSet.add( bookmark );
+					size++;
+					return true;
+				}
+				flush( );
+			}
+			if ( btree.exist( bookmark ) )
+			{
+				return false;
+			}
+			btree.insert( bookmark, VALUE );
+			size++;
+			return true;
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.WARNING, ex.getMessage( ), ex );
+			return false;
+		}
+	}
+
+	public boolean contains( Object bookmark )
+	{
+		if ( !( bookmark instanceof String ) )
+		{
+			return false;
+		}
+		if ( inlineSet != null )
+		{
+			return inlineSet.contains( bookmark );
+		}
+		try
+		{
+			return btree.exist( (String) bookmark );
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.WARNING, ex.getMessage( ), ex );
+			return false;
+		}
+	}
+
+	public int size( )
+	{
+		return size;
+	}
+
+	public Iterator<String> iterator( )
+	{
+		if ( inlineSet != null )
+		{
+			return Collections.unmodifiableSet( inlineSet ).iterator( );
+		}
+		return new CursorIterator( btree.createCursor( ) );
+	}
+
+	/**
+	 * Moves the bookmarks in memory to the B-tree.
+	 */
+
+	private void flush( ) throws IOException
+	{
+		btree = createBTree( );
+		List<String> bookmarks = new ArrayList<String>( inlineSet );
+		Collections.sort( bookmarks );
+		for ( String bookmark : bookmarks )
+		{
+			btree.insert( bookmark, VALUE );
+		}
+		inlineSet = null;
+	}
+
+	private BTree<String, Integer> createBTree( ) throws IOException
+	{
+		fileName = tempDir + File.separator + UUID.randomUUID( );
+		BTreeOption<String, Integer> option = new BTreeOption<String, Integer>( );
+		option.setHasValue( true );
+		option.setKeySerializer( new StringSerializer( ) );
+		option.setValueSerializer( new IntegerSerializer( ) );
+		option.setValueSize( 4 );
+		option.setFile( new FileBTreeFile( fileName ) );
+		return new BTree<String, Integer>( option );
+	}
+
+	/**
+	 * Removes the bookmarks and deletes the temporary file.
+	 */
+
+	void close( )
+	{
+		size = 0;
+		if ( btree != null )
+		{
+			try
+			{
+				btree.close( );
+			}
+			catch ( IOException ex )
+			{
+				logger.log( Level.WARNING, ex.getMessage( ), ex );
+			}
+			btree = null;
+			File file = new File( fileName );
+			if ( file.exists( ) )
+			{
+				file.delete( );
+			}
+		}
+		inlineSet = new HashSet<String>( );
+	}
+
+	private static class CursorIterator implements Iterator<String>
+	{
+
+		private final BTreeCursor<String, Integer> cursor;
+		private String next;
+
+		CursorIterator( BTreeCursor<String, Integer> cursor )
+		{
+			this.cursor = cursor;
+			try
+			{
+				cursor.beforeFirst( );
+			}
+			catch ( IOException ex )
+			{
+				logger.log( Level.WARNING, ex.getMessage( ), ex );
+			}
+			next = fetch( );
+		}
+
+		private String fetch( )
+		{
+			try
+			{
+				if ( cursor.next( ) )
+				{
+					return cursor.getKey( );
+				}
+			}
+			catch ( IOException ex )
+			{
+				logger.log( Level.WARNING, ex.getMessage( ), ex );
+			}
+			cursor.close( );
+			return null;
+		}
+
+		public boolean hasNext( )
+		{
+			return next != null;
+		}
+
+		public String next( )
+		{
+			if ( next == null )
+			{
+				throw new NoSuchElementException( );
+			}
+			String bookmark = next;
+			next = fetch( );
+			return bookmark;
+		}
+
+		public void remove( )
+		{
+			throw new UnsupportedOperationException( );
+		}
+	}
+
+	private static class StringSerializer implements BTreeSerializer<String>
+	{
+
+		public byte[] getBytes( String object ) throws IOException
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream( 64 );
+			DataOutput oo = new DataOutputStream( out );
+			oo.writeUTF( object );
+			return out.toByteArray( );
+		}
+
+		public String getObject( byte[] bytes ) throws IOException,
+				ClassNotFoundException
+		{
+			DataInput input = new DataInputStream( new ByteArrayInputStream(
+					bytes ) );
+			return input.readUTF( );
+		}
+	}
+
+	private static class IntegerSerializer implements BTreeSerializer<Integer>
+	{
+
+		public byte[] getBytes( Integer object ) throws IOException
+		{
+			byte[] bytes = new byte[4];
+			BTreeUtils.integerToBytes( object.intValue( ), bytes );
+			return bytes;
+		}
+
+		public Integer getObject( byte[] bytes ) throws IOException,
+				ClassNotFoundException
+		{
+			return new Integer( BTreeUtils.bytesToInteger( bytes ) );
+		}
+	}
+}
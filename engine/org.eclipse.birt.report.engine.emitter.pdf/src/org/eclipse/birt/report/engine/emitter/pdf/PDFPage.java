@@ -119,6 +119,7 @@ public class PDFPage extends AbstractPage
 
 	public void dispose( )
 	{
+		pageDevice.pageCompleted( );
 	}
 
 	protected void drawBackgroundColor( Color color, float x, float y,
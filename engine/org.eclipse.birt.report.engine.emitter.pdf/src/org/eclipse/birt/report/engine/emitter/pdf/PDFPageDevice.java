@@ -13,9 +13,14 @@ package org.eclipse.birt.report.engine.emitter.pdf;
 
 import java.awt.Color;
 import java.io.BufferedOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -61,7 +66,22 @@ public class PDFPageDevice implements IPageDevice
 
 	protected HashMap<Float, PdfTemplate> templateMap = new HashMap<Float, PdfTemplate>( );
 
-	protected HashMap<String, PdfTemplate> imageCache = new HashMap<String, PdfTemplate>( );
+	protected HashMap<String, PdfTemplate> imageCache = new ImageCache( );
+
+	/**
+	 * the max count of the cached images in the streaming mode
+	 */
+	protected final static int MAX_CACHED_IMAGES = 256;
+
+	/**
+	 * whether the pages and their images are written once they are completed
+	 */
+	protected boolean streaming = false;
+
+	/**
+	 * the images cached since the last page is completed
+	 */
+	protected List<PdfTemplate> newImages = new ArrayList<PdfTemplate>( );
 
 	/**
 	 * the iText and Birt engine version info.
@@ -161,6 +181,54 @@ public class PDFPageDevice implements IPageDevice
 		return imageCache;
 	}
 
+	/**
+	 * Sets the streaming mode. The completed pages and the images they use are
+	 * written to the output at once, and only the last used images are kept
+	 * in the image cache.
+	 *
+	 * @param streaming
+	 *            whether the streaming mode is used
+	 */
+	public void setStreaming( boolean streaming )
+	{
+		this.streaming = streaming;
+	}
+
+	public boolean isStreaming( )
+	{
+		return streaming;
+	}
+
+	/**
+	 * Called once a page is completed. In the streaming mode the images cached
+	 * by the page are written, and the output is flushed.
+	 */
+	protected void pageCompleted( )
+	{
+		if ( !streaming )
+		{
+			return;
+		}
+		try
+		{
+			// the templates are still used by the following pages, only
+			// their content is released
+			for ( PdfTemplate image : newImages )
+			{
+				writer.releaseTemplate( image );
+			}
+			writer.flush( );
+		}
+		catch ( IOException e )
+		{
+			logger.log( Level.WARNING, e.getMessage( ), e );
+		}
+		finally
+		{
+			newImages.clear( );
+		}
+	}
+
 	public void close( ) throws Exception
 	{
 		if ( !doc.isOpen( ) )
@@ -241,4 +309,33 @@ public class PDFPageDevice implements IPageDevice
 	{
 		return new TOCHandler( root, outline, bookmarks );
 	}
+
+	/**
+	 * The image cache, it keeps the last used images in the streaming mode.
+	 */
+	private class ImageCache extends LinkedHashMap<String, PdfTemplate>
+	{
+
+		private static final long serialVersionUID = 1L;
+
+		ImageCache( )
+		{
+			super( 16, 0.75f, true );
+		}
+
+		public PdfTemplate put( String key, PdfTemplate image )
+		{
+			if ( streaming )
+			{
+				newImages.add( image );
+			}
+			return super.put( key, image );
+		}
+
+		protected boolean removeEldestEntry(
+				Map.Entry<String, PdfTemplate> eldest )
+		{
+			return streaming && size( ) > MAX_CACHED_IMAGES;
+		}
+	}
 }
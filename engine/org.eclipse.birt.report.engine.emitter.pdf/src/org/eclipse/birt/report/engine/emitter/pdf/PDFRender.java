@@ -15,10 +15,13 @@ import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.logging.Level;
 
 import org.eclipse.birt.report.engine.api.EngineException;
 import org.eclipse.birt.report.engine.api.IHTMLActionHandler;
+import org.eclipse.birt.report.engine.api.IPDFRenderOption;
+import org.eclipse.birt.report.engine.api.IReportEngine;
 import org.eclipse.birt.report.engine.api.RenderOption;
 import org.eclipse.birt.report.engine.api.impl.Action;
 import org.eclipse.birt.report.engine.api.script.IReportContext;
@@ -52,7 +55,17 @@ public class PDFRender extends PageDeviceRender
 
 	protected PDFPageDevice currentPageDevice = null;
 
-	protected HashSet<String> bookmarks = new HashSet<String>( );
+	protected Set<String> bookmarks;
+
+	/**
+	 * whether the PDF is written in the streaming mode
+	 */
+	protected boolean streaming = false;
+
+	/**
+	 * the max count of the bookmarks kept in memory in the streaming mode
+	 */
+	protected final static int MAX_INLINE_BOOKMARKS = 1000;
 
 	public PDFRender( IEmitterServices services ) throws EngineException
 	{
@@ -65,6 +78,7 @@ public class PDFRender extends PageDeviceRender
 	{
 		currentPageDevice = new PDFPageDevice( output, title, author, subject,
 				comments, context, report );
+		currentPageDevice.setStreaming( streaming );
 		return currentPageDevice;
 	}
 
@@ -141,6 +155,10 @@ public class PDFRender extends PageDeviceRender
 	{
 		createTOC( );
 		super.end( rc );
+		if ( bookmarks instanceof BookmarkSet )
+		{
+			( (BookmarkSet) bookmarks ).close( );
+		}
 	}
 
 	protected void drawContainer( IContainerArea container )
@@ -173,6 +191,29 @@ public class PDFRender extends PageDeviceRender
 
 		this.context = services.getReportContext( );
 		this.output = EmitterUtil.getOuputStream( services, "report.pdf" );
+
+		Object streamingOption = services
+				.getOption( IPDFRenderOption.PDF_STREAMING );
+		streaming = Boolean.TRUE.equals( streamingOption );
+		if ( streaming )
+		{
+			bookmarks = new BookmarkSet( getTempDir( services ),
+					MAX_INLINE_BOOKMARKS );
+		}
+		else
+		{
+			bookmarks = new HashSet<String>( );
+		}
+	}
+
+	private String getTempDir( IEmitterServices services )
+	{
+		IReportEngine engine = services.getReportEngine( );
+		if ( engine != null )
+		{
+			return engine.getConfig( ).getTempDir( );
+		}
+		return System.getProperty( "java.io.tmpdir" );
 	}
 
 	protected void drawTextAt( ITextArea text, int x, int y, int width,
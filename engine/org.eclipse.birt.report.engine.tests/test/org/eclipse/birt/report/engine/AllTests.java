@@ -58,7 +58,9 @@ public class AllTests
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.DataSetIDTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.DataSourceCompareTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.EngineExceptionTest.class );
+		suite.addTestSuite( org.eclipse.birt.report.engine.api.EngineMetricsTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.EngineTaskCancelTest.class );
+		suite.addTestSuite( org.eclipse.birt.report.engine.api.EngineTaskSchedulerTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.EngineTaskStatusTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.EngintTaskLoggerTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.GetParameterDefinitionTaskTest.class );
@@ -117,6 +119,7 @@ public class AllTests
 		suite.addTestSuite( org.eclipse.birt.report.engine.internal.document.v2.ReportContentTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.internal.document.OffsetIndexReaderWriterTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.internal.executor.doc.ReportPageReaderTest.class );
+		suite.addTestSuite( org.eclipse.birt.report.engine.internal.index.v2.DocumentIndexV2Test.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.ir.ActionTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.ir.CellTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.ir.ColumnTest.class );
@@ -152,6 +155,7 @@ public class AllTests
 		suite.addTestSuite( org.eclipse.birt.report.engine.layout.html.HTMLLayoutTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.layout.pdf.font.CharSegmentTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.layout.pdf.font.FontConfigReaderTest.class );
+		suite.addTestSuite( org.eclipse.birt.report.engine.layout.pdf.font.FontMetricsCacheTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.layout.pdf.hyphen.DefaultWordRecognizerTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.layout.pdf.PDFImageLMTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.layout.pdf.PDFLineAreaLMTest.class );
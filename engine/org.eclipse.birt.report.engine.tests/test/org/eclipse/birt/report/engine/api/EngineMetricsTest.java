@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.birt.report.engine.EngineCase;
+
+public class EngineMetricsTest extends EngineCase
+{
+
+	static final String DESIGN = "org/eclipse/birt/report/engine/api/metrics.rptdesign";
+
+	static final String PARALLEL_DESIGN = "org/eclipse/birt/report/engine/api/parallel_render.rptdesign";
+
+	private final List<IEngineTaskMetrics> tasks = Collections
+			.synchronizedList( new ArrayList<IEngineTaskMetrics>( ) );
+
+	protected void tearDown( ) throws Exception
+	{
+		super.tearDown( );
+		removeFile( REPORT_DESIGN );
+		removeFile( REPORT_DOCUMENT );
+	}
+
+	public void testDisabledMetrics( ) throws Exception
+	{
+		IEngineMetrics metrics = engine.getMetrics( );
+		assertFalse( metrics.isEnabled( ) );
+		metrics.addListener( new Listener( ) );
+		render( createReportDocument( DESIGN ) );
+		assertTrue( tasks.isEmpty( ) );
+		assertEquals( 0, metrics.getTaskCount( ) );
+		assertEquals( 0, metrics.getTime( IEngineTaskMetrics.TIME_TASK ) );
+	}
+
+	public void testTaskMetrics( ) throws Exception
+	{
+		engine.destroy( );
+		EngineConfig config = new EngineConfig( );
+		config.setMetricsEnabled( true );
+		engine = createReportEngine( config );
+		IEngineMetrics metrics = engine.getMetrics( );
+		assertTrue( metrics.isEnabled( ) );
+		metrics.addListener( new Listener( ) );
+
+		IReportDocument document = createReportDocument( DESIGN );
+		assertEquals( 1, tasks.size( ) );
+		IEngineTaskMetrics run = tasks.get( 0 );
+		assertEquals( IEngineTask.TASK_RUN, run.getTaskType( ) );
+		assertTrue( run.getTime( IEngineTaskMetrics.TIME_TASK ) > 0 );
+		assertTrue( run.getCount( IEngineTaskMetrics.COUNT_PAGES ) > 0 );
+		assertTrue( run.getCount( IEngineTaskMetrics.COUNT_EXPRESSIONS ) > 0 );
+		assertTrue( run.getCount( IEngineTaskMetrics.COUNT_DOCUMENT_SIZE ) > 0 );
+		assertTrue( run.getDataSets( ).contains( "Data Set" ) ); //$NON-NLS-1$
+		assertEquals( 9, run.getDataSetCount( "Data Set", //$NON-NLS-1$
+				IEngineTaskMetrics.COUNT_ROWS ) );
+		assertTrue( run.getDataSetCount( "Data Set", //$NON-NLS-1$
+				IEngineTaskMetrics.COUNT_QUERIES ) > 0 );
+		assertTrue( run.getPeakMemory( ) > 0 );
+
+		ByteArrayOutputStream out = render( document );
+		assertEquals( 2, tasks.size( ) );
+		IEngineTaskMetrics render = tasks.get( 1 );
+		assertEquals( IEngineTask.TASK_RENDER, render.getTaskType( ) );
+		assertTrue( render.getTime( IEngineTaskMetrics.TIME_EMITTER ) > 0 );
+		assertTrue( render.getCount( IEngineTaskMetrics.COUNT_PAGES ) > 0 );
+		assertEquals( out.size( ), render
+				.getCount( IEngineTaskMetrics.COUNT_BYTES_WRITTEN ) );
+
+		// the totals of the engine, the render task reads the rows again
+		assertEquals( 2, metrics.getTaskCount( ) );
+		assertEquals( 9 + render.getCount( IEngineTaskMetrics.COUNT_ROWS ),
+				metrics.getCount( IEngineTaskMetrics.COUNT_ROWS ) );
+		assertEquals( out.size( ), metrics
+				.getCount( IEngineTaskMetrics.COUNT_BYTES_WRITTEN ) );
+		assertTrue( metrics.getTime( IEngineTaskMetrics.TIME_DESIGN_OPEN ) > 0 );
+		assertNotNull( metrics.getArchiveCacheStatistics( ) );
+		metrics.reset( );
+		assertEquals( 0, metrics.getTaskCount( ) );
+		assertEquals( 0, metrics.getCount( IEngineTaskMetrics.COUNT_ROWS ) );
+	}
+
+	public void testParallelRender( ) throws Exception
+	{
+		engine.destroy( );
+		EngineConfig config = new EngineConfig( );
+		config.setMetricsEnabled( true );
+		engine = createReportEngine( config );
+		IReportDocument document = createReportDocument( PARALLEL_DESIGN );
+		engine.getMetrics( ).addListener( new Listener( ) );
+
+		IRenderTask task = engine.createRenderTask( document );
+		RenderOption options = new RenderOption( );
+		options.setOutputFormat( "pdf" ); //$NON-NLS-1$
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		options.setOutputStream( out );
+		options.setOption( IRenderOption.RENDER_THREAD_COUNT, new Integer( 3 ) );
+		options.setOption( IRenderOption.RENDER_CHUNK_SIZE, new Integer( 2 ) );
+		task.setRenderOption( options );
+		task.render( );
+		task.close( );
+		document.close( );
+
+		// the metrics of the workers are merged into the render task
+		assertEquals( 1, tasks.size( ) );
+		IEngineTaskMetrics render = tasks.get( 0 );
+		assertEquals( 8, render.getCount( IEngineTaskMetrics.COUNT_PAGES ) );
+		assertEquals( out.size( ), render
+				.getCount( IEngineTaskMetrics.COUNT_BYTES_WRITTEN ) );
+	}
+
+	public void testMBean( ) throws Exception
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer( );
+		ObjectName pattern = new ObjectName(
+				"org.eclipse.birt.report.engine:type=ReportEngine,*" ); //$NON-NLS-1$
+		int count = server.queryNames( pattern, null ).size( );
+
+		EngineConfig config = new EngineConfig( );
+		config.setMetricsEnabled( true );
+		IReportEngine enabled = createReportEngine( config );
+		try
+		{
+			Set<ObjectName> names = server.queryNames( pattern, null );
+			assertEquals( count + 1, names.size( ) );
+		}
+		finally
+		{
+			enabled.destroy( );
+		}
+		assertEquals( count, server.queryNames( pattern, null ).size( ) );
+	}
+
+	private ByteArrayOutputStream render( IReportDocument document )
+			throws EngineException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		IRenderTask task = engine.createRenderTask( document );
+		try
+		{
+			HTMLRenderOption options = new HTMLRenderOption( );
+			options.setOutputFormat( IRenderOption.OUTPUT_FORMAT_HTML );
+			options.setOutputStream( out );
+			task.setRenderOption( options );
+			task.render( );
+		}
+		finally
+		{
+			task.close( );
+			document.close( );
+		}
+		return out;
+	}
+
+	private class Listener implements IEngineMetricsListener
+	{
+
+		public void onTaskMetrics( IEngineTaskMetrics metrics )
+		{
+			tasks.add( metrics );
+		}
+	}
+}
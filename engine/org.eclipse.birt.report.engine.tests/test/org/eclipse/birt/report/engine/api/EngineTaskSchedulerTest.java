@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.report.engine.EngineCase;
+
+public class EngineTaskSchedulerTest extends EngineCase
+{
+
+	static final String DESIGN = "org/eclipse/birt/report/engine/api/parallel_render.rptdesign";
+
+	private IReportDocument document;
+
+	protected void setUp( ) throws Exception
+	{
+		EngineConfig config = new EngineConfig( );
+		// a single thread so the order of the tasks is defined
+		config.setTaskThreadCount( IEngineTask.TASK_RENDER, 1 );
+		config.setTaskQueueSize( IEngineTask.TASK_RENDER, 3 );
+		engine = createReportEngine( config );
+		document = createReportDocument( DESIGN );
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		document.close( );
+		super.tearDown( );
+		removeFile( REPORT_DESIGN );
+		removeFile( REPORT_DOCUMENT );
+	}
+
+	public void testSubmitTask( ) throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		IRenderTask task = createRenderTask( out );
+		Listener listener = new Listener( );
+		IEngineTaskFuture future = engine.getTaskScheduler( ).submitRenderTask(
+				task, IEngineTaskScheduler.NORM_PRIORITY );
+		future.addListener( listener );
+		assertSame( task, future.get( 1, TimeUnit.MINUTES ) );
+		assertTrue( listener.done.await( 1, TimeUnit.MINUTES ) );
+		assertTrue( task.getErrors( ).isEmpty( ) );
+		assertTrue( out.toString( "UTF-8" ).indexOf( "label 8" ) != -1 ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( IEngineTask.STATUS_SUCCEEDED, task.getStatus( ) );
+
+		// the listener added once the task is done is notified at once
+		Listener late = new Listener( );
+		future.addListener( late );
+		assertEquals( 0, late.done.getCount( ) );
+		assertEquals( 0, engine.getTaskScheduler( ).getRunningTaskCount(
+				IEngineTask.TASK_RENDER ) );
+	}
+
+	public void testPriorityAndQueueSize( ) throws Exception
+	{
+		IEngineTaskScheduler scheduler = engine.getTaskScheduler( );
+		// the first task holds the only thread until it is released
+		final CountDownLatch release = new CountDownLatch( 1 );
+		final CountDownLatch blocked = new CountDownLatch( 1 );
+		IRenderTask first = createRenderTask( new ByteArrayOutputStream( ) );
+		first.setProgressMonitor( new IProgressMonitor( ) {
+
+			public void onProgress( int type, int value )
+			{
+				if ( type == START_TASK )
+				{
+					blocked.countDown( );
+					try
+					{
+						release.await( 1, TimeUnit.MINUTES );
+					}
+					catch ( InterruptedException ex )
+					{
+					}
+				}
+			}
+		} );
+		IEngineTaskFuture firstFuture = scheduler.submitRenderTask( first,
+				IEngineTaskScheduler.NORM_PRIORITY );
+		assertTrue( blocked.await( 1, TimeUnit.MINUTES ) );
+
+		final List<String> order = Collections
+				.synchronizedList( new ArrayList<String>( ) );
+		IEngineTaskFuture low = submit( scheduler, "low", //$NON-NLS-1$
+				IEngineTaskScheduler.MIN_PRIORITY, order );
+		IEngineTaskFuture cancelled = submit( scheduler, "cancelled", //$NON-NLS-1$
+				IEngineTaskScheduler.NORM_PRIORITY, order );
+		IEngineTaskFuture high = submit( scheduler, "high", //$NON-NLS-1$
+				IEngineTaskScheduler.MAX_PRIORITY, order );
+		assertEquals( 3, scheduler.getQueuedTaskCount( IEngineTask.TASK_RENDER ) );
+		assertEquals( 1, scheduler.getRunningTaskCount( IEngineTask.TASK_RENDER ) );
+
+		// the queue is full
+		IRenderTask rejected = createRenderTask( new ByteArrayOutputStream( ) );
+		try
+		{
+			scheduler.submitRenderTask( rejected,
+					IEngineTaskScheduler.NORM_PRIORITY );
+			fail( );
+		}
+		catch ( EngineException ex )
+		{
+			assertEquals( "Error.TaskQueueFull", ex.getErrorCode( ) ); //$NON-NLS-1$
+		}
+		rejected.close( );
+
+		// a cancelled task is removed from the queue at once
+		Listener listener = new Listener( );
+		cancelled.addListener( listener );
+		assertTrue( cancelled.cancel( false ) );
+		assertEquals( 0, listener.done.getCount( ) );
+		assertEquals( 2, scheduler.getQueuedTaskCount( IEngineTask.TASK_RENDER ) );
+		try
+		{
+			cancelled.get( );
+			fail( );
+		}
+		catch ( CancellationException ex )
+		{
+		}
+
+		release.countDown( );
+		firstFuture.get( 1, TimeUnit.MINUTES );
+		low.get( 1, TimeUnit.MINUTES );
+		assertTrue( high.isDone( ) );
+		assertEquals( "high", order.get( 0 ) ); //$NON-NLS-1$
+		assertEquals( "low", order.get( 1 ) ); //$NON-NLS-1$
+		assertEquals( 2, order.size( ) );
+	}
+
+	public void testShutdown( ) throws Exception
+	{
+		IEngineTaskScheduler scheduler = engine.getTaskScheduler( );
+		scheduler.shutdown( );
+		IRenderTask task = createRenderTask( new ByteArrayOutputStream( ) );
+		try
+		{
+			scheduler.submitRenderTask( task,
+					IEngineTaskScheduler.NORM_PRIORITY );
+			fail( );
+		}
+		catch ( EngineException ex )
+		{
+			assertEquals( "Error.TaskSchedulerShutDown", ex.getErrorCode( ) ); //$NON-NLS-1$
+		}
+		task.close( );
+	}
+
+	private IEngineTaskFuture submit( IEngineTaskScheduler scheduler,
+			final String name, int priority, final List<String> order )
+			throws EngineException
+	{
+		IRenderTask task = createRenderTask( new ByteArrayOutputStream( ) );
+		task.setProgressMonitor( new IProgressMonitor( ) {
+
+			public void onProgress( int type, int value )
+			{
+				if ( type == START_TASK )
+				{
+					order.add( name );
+				}
+			}
+		} );
+		return scheduler.submitRenderTask( task, priority );
+	}
+
+	private IRenderTask createRenderTask( ByteArrayOutputStream out )
+			throws EngineException
+	{
+		IRenderTask task = engine.createRenderTask( document );
+		HTMLRenderOption options = new HTMLRenderOption( );
+		options.setOutputFormat( IRenderOption.OUTPUT_FORMAT_HTML );
+		options.setOutputStream( out );
+		task.setRenderOption( options );
+		return task;
+	}
+
+	private static class Listener implements IEngineTaskListener
+	{
+
+		final CountDownLatch done = new CountDownLatch( 1 );
+
+		public void onProgress( int type, int value )
+		{
+		}
+
+		public void onDone( IEngineTaskFuture future )
+		{
+			done.countDown( );
+		}
+	}
+}
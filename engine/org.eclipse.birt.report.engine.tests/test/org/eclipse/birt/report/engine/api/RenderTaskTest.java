@@ -19,7 +19,9 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.birt.core.archive.compound.ArchiveFile;
@@ -30,6 +32,9 @@ import org.eclipse.birt.report.engine.api.impl.ReportDocumentConstants;
 import org.eclipse.birt.report.engine.api.impl.ReportDocumentReader;
 
 import com.ibm.icu.text.NumberFormat.SimpleNumberFormatFactory;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.SimpleBookmark;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
 
 public class RenderTaskTest extends EngineCase
 {
@@ -451,6 +456,117 @@ public class RenderTaskTest extends EngineCase
 		document.close( );
 	}
 	
+	public void testParallelRender( ) throws Exception
+	{
+		String design = "org/eclipse/birt/report/engine/api/parallel_render.rptdesign";
+		IReportDocument document = createReportDocument( design );
+		List<String> pages = renderPDFPages( document, 1, 2 );
+		assertEquals( 8, pages.size( ) );
+		assertTrue( pages.get( 2 ).indexOf( "label 3" ) != -1 );
+		// the pages laid out in parallel are the same as the ones laid out
+		// one by one
+		assertEquals( pages, renderPDFPages( document, 3, 2 ) );
+		// the workers done with the last chunks are kept open until their
+		// pages are output
+		assertEquals( pages, renderPDFPages( document, 4, 1 ) );
+		document.close( );
+	}
+
+	private List<String> renderPDFPages( IReportDocument document,
+			int threadCount, int chunkSize ) throws Exception
+	{
+		IRenderTask task = engine.createRenderTask( document );
+		RenderOption options = new RenderOption( );
+		options.setOutputFormat( "pdf" ); //$NON-NLS-1$
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		options.setOutputStream( out );
+		options.setOption( IRenderOption.RENDER_THREAD_COUNT, new Integer(
+				threadCount ) );
+		options.setOption( IRenderOption.RENDER_CHUNK_SIZE, new Integer(
+				chunkSize ) );
+		options.setOption( IPDFRenderOption.RESERVE_DOCUMENT_PAGE_NUMBERS,
+				Boolean.TRUE );
+		task.setRenderOption( options );
+		// the page ranges are rendered page by page
+		task.setPageRange( "1-3,4-8" ); //$NON-NLS-1$
+		task.render( );
+		assertEquals( 8, task.getPageCount( ) );
+		assertTrue( task.getErrors( ).isEmpty( ) );
+		task.close( );
+		return getPageTexts( out.toByteArray( ) );
+	}
+
+	private List<String> getPageTexts( byte[] pdf ) throws Exception
+	{
+		PdfReader reader = new PdfReader( pdf );
+		PdfTextExtractor extractor = new PdfTextExtractor( reader );
+		List<String> pages = new ArrayList<String>( );
+		for ( int i = 1; i <= reader.getNumberOfPages( ); i++ )
+		{
+			pages.add( extractor.getTextFromPage( i ) );
+		}
+		reader.close( );
+		return pages;
+	}
+
+	public void testStreamingRender( ) throws Exception
+	{
+		String design = "org/eclipse/birt/report/engine/api/parallel_render.rptdesign";
+		IReportDocument document = createReportDocument( design );
+		byte[] pdf = renderPDF( document, false );
+		byte[] streamingPDF = renderPDF( document, true );
+		document.close( );
+
+		// the streaming mode writes the same pages and outlines
+		List<String> pages = getPageTexts( pdf );
+		assertEquals( 8, pages.size( ) );
+		assertEquals( pages, getPageTexts( streamingPDF ) );
+		List outlines = SimpleBookmark.getBookmark( new PdfReader( pdf ) );
+		assertEquals( 8, outlines.size( ) );
+		assertEquals( "label 1", ( (Map) outlines.get( 0 ) ).get( "Title" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( outlines, SimpleBookmark.getBookmark( new PdfReader(
+				streamingPDF ) ) );
+	}
+
+	public void testStreamingRenderManyBookmarks( ) throws Exception
+	{
+		// more bookmarks than the ones kept in memory in the streaming mode
+		String design = "org/eclipse/birt/report/engine/api/many_bookmarks.rptdesign";
+		IReportDocument document = createReportDocument( design );
+		byte[] pdf = renderPDF( document, false );
+		byte[] streamingPDF = renderPDF( document, true );
+		document.close( );
+
+		// the outlines are created for the bookmarks found in the B-tree
+		List outlines = SimpleBookmark.getBookmark( new PdfReader( pdf ) );
+		assertEquals( 1500, outlines.size( ) );
+		List streamingOutlines = SimpleBookmark.getBookmark( new PdfReader(
+				streamingPDF ) );
+		assertEquals( outlines, streamingOutlines );
+		assertEquals( "row 0", ( (Map) streamingOutlines.get( 0 ) ) //$NON-NLS-1$
+				.get( "Title" ) ); //$NON-NLS-1$
+		assertEquals( "row 1499", ( (Map) streamingOutlines.get( 1499 ) ) //$NON-NLS-1$
+				.get( "Title" ) ); //$NON-NLS-1$
+		assertEquals( getPageTexts( pdf ), getPageTexts( streamingPDF ) );
+	}
+
+	private byte[] renderPDF( IReportDocument document, boolean streaming )
+			throws Exception
+	{
+		IRenderTask task = engine.createRenderTask( document );
+		RenderOption options = new RenderOption( );
+		options.setOutputFormat( "pdf" ); //$NON-NLS-1$
+		ByteArrayOutputStream out = new ByteArrayOutputStream( );
+		options.setOutputStream( out );
+		options.setOption( IPDFRenderOption.PDF_STREAMING, Boolean
+				.valueOf( streaming ) );
+		task.setRenderOption( options );
+		task.render( );
+		assertTrue( task.getErrors( ).isEmpty( ) );
+		task.close( );
+		return out.toByteArray( );
+	}
+
 	public void testGetPageCount( ) throws EngineException
 	{
 		String design = "org/eclipse/birt/report/engine/api/TestGetPageCount.rptdesign";
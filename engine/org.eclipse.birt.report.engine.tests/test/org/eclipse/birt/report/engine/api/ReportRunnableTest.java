@@ -12,9 +12,17 @@
 package org.eclipse.birt.report.engine.api;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.List;
+import java.util.Vector;
 
 import org.eclipse.birt.report.engine.EngineCase;
+import org.eclipse.birt.report.engine.api.impl.ReportDesignCompiler;
+import org.eclipse.birt.report.engine.api.impl.ReportRunnable;
+import org.eclipse.birt.report.engine.ir.Report;
+import org.eclipse.birt.report.engine.ir.ReportItemDesign;
 import org.eclipse.birt.report.model.api.DesignElementHandle;
+import org.eclipse.birt.report.model.api.ReportDesignHandle;
 /**
  * 
  */
@@ -26,6 +34,9 @@ public class ReportRunnableTest extends EngineCase
 
 	static final String REPORT_DESIGN_RESOURCE = "org/eclipse/birt/report/engine/api/ReportRunnableTest.rptdesign";
 	static final String REPORT_DESIGN = "ReportRunnableTest.rptdesign";
+	static final String COMPILED_DESIGN = "ReportRunnableTest.rptcompiled";
+	static final String SHARED_DESIGN_RESOURCE = "org/eclipse/birt/report/engine/api/shared-report.rptdesign";
+	static final String SHARED_DESIGN = "shared-report.rptdesign";
 
 	public void setUp( ) throws Exception
 	{
@@ -44,6 +55,8 @@ public class ReportRunnableTest extends EngineCase
 			engine.shutdown( );
 		}
 		removeFile( REPORT_DESIGN );
+		removeFile( COMPILED_DESIGN );
+		removeFile( SHARED_DESIGN );
 	}
 
 	/**
@@ -119,4 +132,168 @@ public class ReportRunnableTest extends EngineCase
 		task.close( );
 		reportDoc.close( );
 	}
+
+	/**
+	 * The design is parsed once, each task gets its own copy of the report IR
+	 * until the design is changed.
+	 */
+	public void testSharedReport( ) throws Exception
+	{
+		ReportRunnable reportRunnable = (ReportRunnable) runnable;
+		Report report1 = reportRunnable.createReport( );
+		Report report2 = reportRunnable.createReport( );
+		assertNotSame( report1, report2 );
+		assertSame( reportRunnable.getReport( ), report2.getReportDesign( ) );
+		assertEquals( report1.getContentCount( ), report2.getContentCount( ) );
+		for ( int i = 0; i < report1.getContentCount( ); i++ )
+		{
+			ReportItemDesign item1 = report1.getContent( i );
+			ReportItemDesign item2 = report2.getContent( i );
+			assertNotSame( item1, item2 );
+			assertEquals( item1.getID( ), item2.getID( ) );
+			assertSame( item1.getHandle( ), item2.getHandle( ) );
+		}
+
+		ReportDesignHandle design = (ReportDesignHandle) runnable
+				.getDesignHandle( );
+		design.getBody( ).add( design.getElementFactory( ).newLabel( null ) );
+		assertEquals( report1.getContentCount( ) + 1, reportRunnable
+				.createReport( ).getContentCount( ) );
+	}
+
+	/**
+	 * The expressions rewritten by a task are not seen by the next tasks.
+	 */
+	public void testRunSharedReportTwice( ) throws Exception
+	{
+		IReportRunnable report = openSharedDesign( );
+		assertEquals( 1, getCount( run( report ), "COUNT=3" ) );
+		assertEquals( 1, getCount( run( report ), "COUNT=3" ) );
+	}
+
+	/**
+	 * The tasks running the same design at the same time do not change the
+	 * report IR of each other.
+	 */
+	public void testRunSharedReportInParallel( ) throws Exception
+	{
+		final IReportRunnable report = openSharedDesign( );
+		final List<String> outputs = new Vector<String>( );
+		final List<Throwable> errors = new Vector<Throwable>( );
+		Thread[] threads = new Thread[4];
+		for ( int i = 0; i < threads.length; i++ )
+		{
+			threads[i] = new Thread( ) {
+
+				public void run( )
+				{
+					try
+					{
+						for ( int j = 0; j < 3; j++ )
+						{
+							outputs.add( ReportRunnableTest.this.run( report ) );
+						}
+					}
+					catch ( Throwable ex )
+					{
+						errors.add( ex );
+					}
+				}
+			};
+			threads[i].start( );
+		}
+		for ( int i = 0; i < threads.length; i++ )
+		{
+			threads[i].join( );
+		}
+		assertTrue( errors.toString( ), errors.isEmpty( ) );
+		assertEquals( threads.length * 3, outputs.size( ) );
+		for ( String output : outputs )
+		{
+			assertEquals( 1, getCount( output, "COUNT=3" ) );
+		}
+	}
+
+	/**
+	 * The compiled design is opened with the compiled report IR, and compiled
+	 * again once the design is changed.
+	 */
+	public void testCompileReportDesign( ) throws Exception
+	{
+		Report report = ( (ReportRunnable) runnable ).createReport( );
+		engine.compileReportDesign( runnable, COMPILED_DESIGN );
+		File compiledFile = new File( COMPILED_DESIGN );
+		assertTrue( ReportDesignCompiler.isCompiledDesign( compiledFile ) );
+		assertFalse( ReportDesignCompiler.isCompiledDesign( new File(
+				REPORT_DESIGN ) ) );
+
+		ReportRunnable compiled = (ReportRunnable) engine
+				.openReportDesign( COMPILED_DESIGN );
+		assertEquals( runnable.getReportName( ), compiled.getReportName( ) );
+		assertNotNull( compiled.getImage( "img.jpg" ) );
+		Report compiledReport = compiled.createReport( );
+		assertSame( compiled.getReport( ), compiledReport.getReportDesign( ) );
+		assertEquals( report.getContentCount( ), compiledReport
+				.getContentCount( ) );
+		for ( int i = 0; i < report.getContentCount( ); i++ )
+		{
+			ReportItemDesign item = report.getContent( i );
+			ReportItemDesign compiledItem = compiledReport.getContent( i );
+			assertEquals( item.getID( ), compiledItem.getID( ) );
+			assertNotNull( compiledItem.getHandle( ) );
+			assertEquals( item.getHandle( ).getID( ), compiledItem
+					.getHandle( ).getID( ) );
+		}
+
+		// change the design, the compiled design is out of date
+		File designFile = new File( REPORT_DESIGN );
+		designFile.setLastModified( designFile.lastModified( ) + 2000 );
+		long compiledTime = compiledFile.lastModified( );
+		compiledFile.setLastModified( compiledTime - 2000 );
+		ReportRunnable recompiled = (ReportRunnable) engine
+				.openReportDesign( COMPILED_DESIGN );
+		assertEquals( report.getContentCount( ), recompiled.createReport( )
+				.getContentCount( ) );
+		assertTrue( compiledFile.lastModified( ) != compiledTime - 2000 );
+	}
+
+	/**
+	 * The tasks running a compiled design read their own copies of the
+	 * compiled report IR.
+	 */
+	public void testRunCompiledDesignTwice( ) throws Exception
+	{
+		engine.compileReportDesign( openSharedDesign( ), COMPILED_DESIGN );
+		IReportRunnable compiled = engine.openReportDesign( COMPILED_DESIGN );
+		assertEquals( 1, getCount( run( compiled ), "COUNT=3" ) );
+		assertEquals( 1, getCount( run( compiled ), "COUNT=3" ) );
+
+		// the compiled design opened again
+		compiled = engine.openReportDesign( COMPILED_DESIGN );
+		assertEquals( 1, getCount( run( compiled ), "COUNT=3" ) );
+	}
+
+	private IReportRunnable openSharedDesign( ) throws Exception
+	{
+		copyResource( SHARED_DESIGN_RESOURCE, SHARED_DESIGN );
+		return engine.openReportDesign( SHARED_DESIGN );
+	}
+
+	private String run( IReportRunnable report ) throws Exception
+	{
+		IRunAndRenderTask task = engine.createRunAndRenderTask( report );
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream( );
+			IRenderOption option = new HTMLRenderOption( );
+			option.setOutputStream( out );
+			task.setRenderOption( option );
+			task.run( );
+			return out.toString( "UTF-8" );
+		}
+		finally
+		{
+			task.close( );
+		}
+	}
 }
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.internal.index.v2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.birt.core.archive.FileArchiveReader;
+import org.eclipse.birt.core.archive.FileArchiveWriter;
+import org.eclipse.birt.report.engine.EngineCase;
+import org.eclipse.birt.report.engine.api.impl.ReportDocumentConstants;
+import org.eclipse.birt.report.engine.content.impl.BookmarkContent;
+
+public class DocumentIndexV2Test extends EngineCase
+{
+
+	final static String REPORT_DOCUMENT_NAME = ".internal.index.test.rptdocument";
+
+	final static int BOOKMARK_COUNT = 1000;
+
+	private int maxInlineEntry;
+
+	public void setUp( )
+	{
+		removeFile( REPORT_DOCUMENT_NAME );
+		maxInlineEntry = IndexWriter.MAX_INLINE_INDEX_ENTRY;
+		// saves the indexes as btrees
+		IndexWriter.MAX_INLINE_INDEX_ENTRY = 100;
+	}
+
+	public void tearDown( )
+	{
+		IndexWriter.MAX_INLINE_INDEX_ENTRY = maxInlineEntry;
+		removeFile( REPORT_DOCUMENT_NAME );
+	}
+
+	public void testReadWrite( ) throws Exception
+	{
+		List<String> bookmarks = new ArrayList<String>( );
+		for ( int i = 0; i < BOOKMARK_COUNT; i++ )
+		{
+			bookmarks.add( "bookmark" + i );
+		}
+		Collections.shuffle( bookmarks, new Random( 0 ) );
+
+		FileArchiveWriter writer = new FileArchiveWriter( REPORT_DOCUMENT_NAME );
+		DocumentIndexWriterV2 indexWriter = new DocumentIndexWriterV2( writer );
+		for ( String bookmark : bookmarks )
+		{
+			long index = Long.parseLong( bookmark.substring( 8 ) );
+			indexWriter.setOffsetOfBookmark( bookmark, index );
+			BookmarkContent content = new BookmarkContent( bookmark, index );
+			content.setPageNumber( index + 1 );
+			indexWriter.setBookmark( bookmark, content );
+		}
+		// the last value of a bookmark is kept
+		indexWriter.setOffsetOfBookmark( "bookmark5", 5000 );
+		indexWriter.close( );
+		writer.finish( );
+
+		FileArchiveReader reader = new FileArchiveReader( REPORT_DOCUMENT_NAME );
+		try
+		{
+			assertFalse( reader
+					.exists( ReportDocumentConstants.REPORTLET_BOOKMARK_INDEX_STREAM
+							+ ".run0" ) );
+			final DocumentIndexReaderV2 indexReader = new DocumentIndexReaderV2(
+					reader );
+			try
+			{
+				assertEquals( 5000, indexReader
+						.getOffsetOfBookmark( "bookmark5" ) );
+				assertEquals( -1, indexReader.getOffsetOfBookmark( "none" ) );
+				List<String> keys = indexReader.getBookmarks( );
+				assertEquals( BOOKMARK_COUNT, keys.size( ) );
+				Collections.sort( bookmarks );
+				assertEquals( bookmarks, keys );
+
+				// the viewers look up the same document concurrently
+				final List<Throwable> errors = Collections
+						.synchronizedList( new ArrayList<Throwable>( ) );
+				Thread[] threads = new Thread[4];
+				for ( int i = 0; i < threads.length; i++ )
+				{
+					final int start = i;
+					threads[i] = new Thread( ) {
+
+						public void run( )
+						{
+							try
+							{
+								for ( int index = start; index < BOOKMARK_COUNT; index += 3 )
+								{
+									String bookmark = "bookmark" + index;
+									assertEquals( index + 1, indexReader
+											.getPageOfBookmark( bookmark ) );
+									if ( index != 5 )
+									{
+										assertEquals( index, indexReader
+												.getOffsetOfBookmark( bookmark ) );
+									}
+								}
+							}
+							catch ( Throwable ex )
+							{
+								errors.add( ex );
+							}
+						}
+					};
+					threads[i].start( );
+				}
+				for ( Thread thread : threads )
+				{
+					thread.join( );
+				}
+				if ( !errors.isEmpty( ) )
+				{
+					throw new Exception( errors.get( 0 ) );
+				}
+			}
+			finally
+			{
+				indexReader.close( );
+			}
+		}
+		finally
+		{
+			reader.close( );
+		}
+	}
+}
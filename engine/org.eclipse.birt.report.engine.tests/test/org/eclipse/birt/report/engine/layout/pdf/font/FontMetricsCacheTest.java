@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.layout.pdf.font;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.lowagie.text.pdf.BaseFont;
+
+public class FontMetricsCacheTest extends TestCase
+{
+
+	public void testSameAsFont( ) throws Exception
+	{
+		String[] fontNames = new String[]{BaseFont.HELVETICA,
+				BaseFont.TIMES_BOLD, BaseFont.COURIER, BaseFont.SYMBOL};
+		String[] texts = new String[]{"", "a", "Invoice Total:", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				"été € 12,345.67", //$NON-NLS-1$
+				"𠀀 surrogate pair", //$NON-NLS-1$
+				"a long text which is longer than the cached strings"}; //$NON-NLS-1$
+		for ( int i = 0; i < fontNames.length; i++ )
+		{
+			BaseFont font = BaseFont.createFont( fontNames[i],
+					BaseFont.WINANSI, false );
+			FontMetricsCache cache = FontMetricsCache.getInstance( font );
+			assertSame( cache, FontMetricsCache.getInstance( font ) );
+			assertSame( font, cache.getFont( ) );
+			for ( char c = 0; c < 0x3000; c++ )
+			{
+				assertEquals( font.getWidth( c ), cache.getWidth( c ) );
+				assertEquals( font.charExists( c ), cache.charExists( c ) );
+			}
+			for ( int j = 0; j < texts.length; j++ )
+			{
+				// the second call reads the cached width
+				assertEquals( font.getWidth( texts[j] ), cache
+						.getWidth( texts[j] ) );
+				assertEquals( font.getWidthPoint( texts[j], 10.5f ), cache
+						.getWidthPoint( texts[j], 10.5f ), 0f );
+			}
+		}
+	}
+
+	public void testConcurrentUse( ) throws Exception
+	{
+		final BaseFont font = BaseFont.createFont( BaseFont.HELVETICA_OBLIQUE,
+				BaseFont.WINANSI, false );
+		final List<Throwable> errors = new ArrayList<Throwable>( );
+		Thread[] threads = new Thread[4];
+		for ( int i = 0; i < threads.length; i++ )
+		{
+			threads[i] = new Thread( ) {
+
+				public void run( )
+				{
+					try
+					{
+						FontMetricsCache cache = FontMetricsCache
+								.getInstance( font );
+						for ( int j = 0; j < FontMetricsCache.MAX_STRING_COUNT * 2; j++ )
+						{
+							String text = "Item " + ( j % 5000 ); //$NON-NLS-1$
+							assertEquals( font.getWidth( text ), cache
+									.getWidth( text ) );
+						}
+					}
+					catch ( Throwable ex )
+					{
+						synchronized ( errors )
+						{
+							errors.add( ex );
+						}
+					}
+				}
+			};
+			threads[i].start( );
+		}
+		for ( int i = 0; i < threads.length; i++ )
+		{
+			threads[i].join( );
+		}
+		assertTrue( errors.toString( ), errors.isEmpty( ) );
+	}
+}
@@ -490,6 +490,171 @@ public class EngineConfig extends PlatformConfig implements IEngineConfig
 		return 0;
 	}
 
+	/**
+	 * Set the size of the block cache shared by all the report documents
+	 * opened for reading. The cache is process wide, so it is shared by all
+	 * the engines in the same JVM.
+	 * 
+	 * @param size
+	 *            the cache size in bytes, 0 to disable the cache.
+	 */
+	public void setArchiveCacheSize( long size )
+	{
+		setProperty( ARCHIVE_CACHE_SIZE, Long.valueOf( size ) );
+	}
+
+	/**
+	 * Get the size of the shared block cache of report documents.
+	 * 
+	 * @return the cache size in bytes, -1 if it is not set.
+	 */
+	public long getArchiveCacheSize( )
+	{
+		Object size = getProperty( ARCHIVE_CACHE_SIZE );
+		if ( size instanceof Number )
+		{
+			return ( (Number) size ).longValue( );
+		}
+		return -1;
+	}
+
+	/**
+	 * Set the max count of the parsed libraries shared by the designs the
+	 * engine opens. A cached library is parsed again once its file changes.
+	 * 
+	 * @param size
+	 *            the max count of cached libraries, 0 to disable the cache.
+	 */
+	public void setLibraryCacheSize( int size )
+	{
+		setProperty( LIBRARY_CACHE_SIZE, Integer.valueOf( size ) );
+	}
+
+	/**
+	 * Get the max count of the parsed libraries shared by the designs.
+	 * 
+	 * @return the max count of cached libraries, 0 if it is not set.
+	 */
+	public int getLibraryCacheSize( )
+	{
+		Object size = getProperty( LIBRARY_CACHE_SIZE );
+		if ( size instanceof Number )
+		{
+			return ( (Number) size ).intValue( );
+		}
+		return 0;
+	}
+
+	/**
+	 * Set whether the libraries included by a design are parsed in parallel.
+	 * 
+	 * @param parallel
+	 *            true to parse the libraries in parallel.
+	 */
+	public void setParallelLibraryLoading( boolean parallel )
+	{
+		setProperty( PARALLEL_LIBRARY_LOADING, Boolean.valueOf( parallel ) );
+	}
+
+	/**
+	 * Get whether the libraries included by a design are parsed in parallel.
+	 * 
+	 * @return true if the libraries are parsed in parallel.
+	 */
+	public boolean isParallelLibraryLoading( )
+	{
+		return Boolean.TRUE.equals( getProperty( PARALLEL_LIBRARY_LOADING ) );
+	}
+
+	/**
+	 * Set the count of the threads running the tasks of a type submitted to
+	 * the task scheduler of the engine.
+	 * 
+	 * @param taskType
+	 *            the task type, see {@link IEngineTask}
+	 * @param count
+	 *            the count of the threads
+	 */
+	public void setTaskThreadCount( int taskType, int count )
+	{
+		setProperty( TASK_THREAD_COUNT + "." + taskType, //$NON-NLS-1$
+				Integer.valueOf( count ) );
+	}
+
+	/**
+	 * Get the count of the threads running the tasks of a type.
+	 * 
+	 * @param taskType
+	 *            the task type, see {@link IEngineTask}
+	 * @return the count of the threads, the count of the processors if it is
+	 *         not set.
+	 */
+	public int getTaskThreadCount( int taskType )
+	{
+		Object count = getProperty( TASK_THREAD_COUNT + "." + taskType ); //$NON-NLS-1$
+		if ( count instanceof Number && ( (Number) count ).intValue( ) > 0 )
+		{
+			return ( (Number) count ).intValue( );
+		}
+		return Runtime.getRuntime( ).availableProcessors( );
+	}
+
+	/**
+	 * Set the max count of the queued tasks of a type submitted to the task
+	 * scheduler of the engine. The tasks submitted once the queue is full are
+	 * rejected.
+	 * 
+	 * @param taskType
+	 *            the task type, see {@link IEngineTask}
+	 * @param size
+	 *            the max count of the queued tasks
+	 */
+	public void setTaskQueueSize( int taskType, int size )
+	{
+		setProperty( TASK_QUEUE_SIZE + "." + taskType, //$NON-NLS-1$
+				Integer.valueOf( size ) );
+	}
+
+	/**
+	 * Get the max count of the queued tasks of a type.
+	 * 
+	 * @param taskType
+	 *            the task type, see {@link IEngineTask}
+	 * @return the max count of the queued tasks, 1000 if it is not set.
+	 */
+	public int getTaskQueueSize( int taskType )
+	{
+		Object size = getProperty( TASK_QUEUE_SIZE + "." + taskType ); //$NON-NLS-1$
+		if ( size instanceof Number && ( (Number) size ).intValue( ) >= 0 )
+		{
+			return ( (Number) size ).intValue( );
+		}
+		return 1000;
+	}
+
+	/**
+	 * Set whether the tasks record their performance metrics. The metrics are
+	 * disabled by default, once enabled they are also exposed by JMX.
+	 * 
+	 * @param enabled
+	 *            true to record the metrics of the tasks.
+	 * @see IReportEngine#getMetrics()
+	 */
+	public void setMetricsEnabled( boolean enabled )
+	{
+		setProperty( METRICS_ENABLED, Boolean.valueOf( enabled ) );
+	}
+
+	/**
+	 * Get whether the tasks record their performance metrics.
+	 * 
+	 * @return true if the tasks record their metrics.
+	 */
+	public boolean isMetricsEnabled( )
+	{
+		return Boolean.TRUE.equals( getProperty( METRICS_ENABLED ) );
+	}
+
 	/**
 	 * Sets default emitter for an output format.
 	 * 
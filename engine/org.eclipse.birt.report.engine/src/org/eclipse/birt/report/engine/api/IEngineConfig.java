@@ -64,4 +64,41 @@ public interface IEngineConfig extends IPlatformConfig
 	 * The max rows per query
 	 */
 	static final String MAX_ROWS_PER_QUERY = "maxRowsPerQuery";
+
+	/**
+	 * The size in bytes of the block cache shared by all the report documents
+	 * opened for reading. The value is a Long, 0 disables the cache.
+	 */
+	static final String ARCHIVE_CACHE_SIZE = "archiveCacheSize";
+
+	/**
+	 * The max count of parsed libraries the engine shares between the designs
+	 * it opens. The value is an Integer, 0 disables the cache.
+	 */
+	static final String LIBRARY_CACHE_SIZE = "libraryCacheSize";
+
+	/**
+	 * Whether the libraries included by a design are parsed in parallel. The
+	 * value is a Boolean.
+	 */
+	static final String PARALLEL_LIBRARY_LOADING = "parallelLibraryLoading";
+
+	/**
+	 * The prefix of the count of the threads running the tasks of a type
+	 * submitted to the task scheduler, the task type is appended. The value is
+	 * an Integer.
+	 */
+	static final String TASK_THREAD_COUNT = "taskThreadCount";
+
+	/**
+	 * The prefix of the max count of the queued tasks of a type submitted to
+	 * the task scheduler, the task type is appended. The value is an Integer.
+	 */
+	static final String TASK_QUEUE_SIZE = "taskQueueSize";
+
+	/**
+	 * Whether the tasks record their performance metrics, see
+	 * IReportEngine.getMetrics(). The value is a Boolean.
+	 */
+	static final String METRICS_ENABLED = "metricsEnabled";
 }
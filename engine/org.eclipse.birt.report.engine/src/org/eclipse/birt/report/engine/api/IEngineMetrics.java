@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api;
+
+import org.eclipse.birt.core.util.CacheStatistics;
+
+/**
+ * The performance metrics of a report engine. The metrics of each task are
+ * sent to the listeners when the task is closed, and added to the totals of
+ * the engine.
+ * <p>
+ * The metrics are disabled by default, see
+ * {@link EngineConfig#setMetricsEnabled(boolean)}. The tasks created while
+ * the metrics are disabled record nothing. Once enabled by the config, the
+ * totals are also registered as a JMX MBean named
+ * <code>org.eclipse.birt.report.engine:type=ReportEngine,id=&lt;n&gt;</code>.
+ *
+ * @see IReportEngine#getMetrics()
+ * @since 4.7
+ */
+public interface IEngineMetrics
+{
+
+	/**
+	 * @return whether the tasks record their metrics
+	 */
+	public boolean isEnabled( );
+
+	/**
+	 * Enables or disables the metrics of the tasks created from now on.
+	 *
+	 * @param enabled
+	 *            whether the tasks record their metrics
+	 */
+	public void setEnabled( boolean enabled );
+
+	/**
+	 * @param listener
+	 *            the listener notified of the metrics of the closed tasks
+	 */
+	public void addListener( IEngineMetricsListener listener );
+
+	/**
+	 * @param listener
+	 *            the listener to remove
+	 */
+	public void removeListener( IEngineMetricsListener listener );
+
+	/**
+	 * @return the count of the tasks closed with their metrics
+	 */
+	public long getTaskCount( );
+
+	/**
+	 * Returns the total of a time of the tasks.
+	 *
+	 * @param timer
+	 *            the name of the time, see {@link IEngineTaskMetrics}
+	 * @return the time in nano seconds
+	 */
+	public long getTime( String timer );
+
+	/**
+	 * Returns the total of a counter of the tasks.
+	 *
+	 * @param counter
+	 *            the name of the counter, see {@link IEngineTaskMetrics}
+	 * @return the value of the counter
+	 */
+	public long getCount( String counter );
+
+	/**
+	 * @return the peak of the heap used while the tasks are running
+	 */
+	public long getPeakMemory( );
+
+	/**
+	 * @return the statistics of the library cache of the engine, or null if
+	 *         the engine has no library cache
+	 */
+	public CacheStatistics getLibraryCacheStatistics( );
+
+	/**
+	 * @return the statistics of the block cache shared by the report
+	 *         documents
+	 */
+	public CacheStatistics getArchiveCacheStatistics( );
+
+	/**
+	 * Resets the totals of the tasks.
+	 */
+	public void reset( );
+}
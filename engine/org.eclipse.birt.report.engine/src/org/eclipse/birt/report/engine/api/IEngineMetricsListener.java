@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api;
+
+/**
+ * The listener of the metrics of the engine tasks, see
+ * {@link IEngineMetrics#addListener(IEngineMetricsListener)}.
+ *
+ * @since 4.7
+ */
+public interface IEngineMetricsListener
+{
+
+	/**
+	 * Called by the thread closing a task, once the metrics of the task are
+	 * complete.
+	 *
+	 * @param metrics
+	 *            the metrics of the task
+	 */
+	public void onTaskMetrics( IEngineTaskMetrics metrics );
+}
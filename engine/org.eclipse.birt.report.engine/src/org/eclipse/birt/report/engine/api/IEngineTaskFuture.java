@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api;
+
+import java.util.concurrent.Future;
+
+/**
+ * The future of an engine task submitted to the {@link IEngineTaskScheduler}.
+ * Its result is the task itself once it is finished, the errors of the task
+ * are returned by {@link IEngineTask#getErrors()}. The fatal exception of the
+ * task is thrown by <code>get()</code> as the cause of the
+ * <code>ExecutionException</code>.
+ * <p>
+ * Cancelling the future removes the task from the queue, or cancels the
+ * running task by {@link IEngineTask#cancel()}.
+ * 
+ * @since 4.7
+ */
+public interface IEngineTaskFuture extends Future<IEngineTask>
+{
+
+	/**
+	 * @return the submitted task
+	 */
+	public IEngineTask getTask( );
+
+	/**
+	 * @return the priority of the task
+	 */
+	public int getPriority( );
+
+	/**
+	 * Adds a listener notified of the progress of the task and of its end. If
+	 * the task is already done, the listener is notified at once.
+	 * 
+	 * @param listener
+	 *            the listener
+	 */
+	public void addListener( IEngineTaskListener listener );
+
+	/**
+	 * Removes a listener.
+	 * 
+	 * @param listener
+	 *            the listener
+	 */
+	public void removeListener( IEngineTaskListener listener );
+}
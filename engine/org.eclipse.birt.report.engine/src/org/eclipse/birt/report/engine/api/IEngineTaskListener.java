@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api;
+
+/**
+ * The listener of a task run by the {@link IEngineTaskScheduler}. The progress
+ * events are the ones of {@link IProgressMonitor}, they are sent by the thread
+ * running the task, so the listener should return quickly.
+ * 
+ * @since 4.7
+ */
+public interface IEngineTaskListener extends IProgressMonitor
+{
+
+	/**
+	 * Called once the task is finished, failed or cancelled.
+	 * 
+	 * @param future
+	 *            the future of the task
+	 */
+	public void onDone( IEngineTaskFuture future );
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api;
+
+import java.util.Set;
+
+/**
+ * The performance metrics of an engine task, recorded when the metrics of the
+ * engine are enabled, see {@link IEngineMetrics}.
+ * <p>
+ * The times are in nano seconds. The times recorded by the threads laying out
+ * the pages in parallel are added to the times of the task, so the sum of the
+ * times may be greater than the time of the task.
+ *
+ * @since 4.7
+ */
+public interface IEngineTaskMetrics
+{
+
+	/**
+	 * the time of the task, from the start to the end of its run or render
+	 * methods
+	 */
+	public static final String TIME_TASK = "task"; //$NON-NLS-1$
+
+	/**
+	 * the time of parsing the report designs, only recorded by the engine
+	 * as the designs are opened before the tasks
+	 */
+	public static final String TIME_DESIGN_OPEN = "designOpen"; //$NON-NLS-1$
+
+	/**
+	 * the time of preparing the queries
+	 */
+	public static final String TIME_QUERY_PREPARE = "queryPrepare"; //$NON-NLS-1$
+
+	/**
+	 * the time of executing the queries
+	 */
+	public static final String TIME_QUERY_EXECUTE = "queryExecute"; //$NON-NLS-1$
+
+	/**
+	 * the time of fetching the rows of the query results
+	 */
+	public static final String TIME_ROW_FETCH = "rowFetch"; //$NON-NLS-1$
+
+	/**
+	 * the time of evaluating the expressions and the scripts of the report
+	 */
+	public static final String TIME_EXPRESSION = "expression"; //$NON-NLS-1$
+
+	/**
+	 * the time spent in the emitter writing the output
+	 */
+	public static final String TIME_EMITTER = "emitter"; //$NON-NLS-1$
+
+	/**
+	 * the rest of the time of the task, mostly the generation and the layout
+	 * of the contents
+	 */
+	public static final String TIME_LAYOUT = "layout"; //$NON-NLS-1$
+
+	/**
+	 * the count of the pages generated or output
+	 */
+	public static final String COUNT_PAGES = "pages"; //$NON-NLS-1$
+
+	/**
+	 * the count of the rows fetched from the query results
+	 */
+	public static final String COUNT_ROWS = "rows"; //$NON-NLS-1$
+
+	/**
+	 * the count of the queries executed
+	 */
+	public static final String COUNT_QUERIES = "queries"; //$NON-NLS-1$
+
+	/**
+	 * the count of the expressions evaluated
+	 */
+	public static final String COUNT_EXPRESSIONS = "expressions"; //$NON-NLS-1$
+
+	/**
+	 * the count of the bytes written to the output by the emitter
+	 */
+	public static final String COUNT_BYTES_WRITTEN = "bytesWritten"; //$NON-NLS-1$
+
+	/**
+	 * the size of the report document written by a run task
+	 */
+	public static final String COUNT_DOCUMENT_SIZE = "documentSize"; //$NON-NLS-1$
+
+	/**
+	 * @return the id of the task
+	 */
+	public int getTaskID( );
+
+	/**
+	 * @return the type of the task, see {@link IEngineTask}
+	 */
+	public int getTaskType( );
+
+	/**
+	 * @return the name of the report of the task, may be null
+	 */
+	public String getReportName( );
+
+	/**
+	 * Returns a time of the task.
+	 *
+	 * @param timer
+	 *            the name of the time, one of the <code>TIME_</code>
+	 *            constants
+	 * @return the time in nano seconds
+	 */
+	public long getTime( String timer );
+
+	/**
+	 * Returns a counter of the task.
+	 *
+	 * @param counter
+	 *            the name of the counter, one of the <code>COUNT_</code>
+	 *            constants
+	 * @return the value of the counter
+	 */
+	public long getCount( String counter );
+
+	/**
+	 * @return the peak of the heap used by the JVM while the task is running,
+	 *         sampled at the end of the pages
+	 */
+	public long getPeakMemory( );
+
+	/**
+	 * @return the names of the data sets queried by the task
+	 */
+	public Set<String> getDataSets( );
+
+	/**
+	 * Returns a time of a data set. The times of the data sets are
+	 * <code>TIME_QUERY_PREPARE</code>, <code>TIME_QUERY_EXECUTE</code> and
+	 * <code>TIME_ROW_FETCH</code>.
+	 *
+	 * @param dataSet
+	 *            the name of the data set
+	 * @param timer
+	 *            the name of the time
+	 * @return the time in nano seconds
+	 */
+	public long getDataSetTime( String dataSet, String timer );
+
+	/**
+	 * Returns a counter of a data set. The counters of the data sets are
+	 * <code>COUNT_QUERIES</code> and <code>COUNT_ROWS</code>.
+	 *
+	 * @param dataSet
+	 *            the name of the data set
+	 * @param counter
+	 *            the name of the counter
+	 * @return the value of the counter
+	 */
+	public long getDataSetCount( String dataSet, String counter );
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api;
+
+/**
+ * Runs the engine tasks asynchronously on the threads managed by the engine.
+ * <p>
+ * Each task type has its own pool of threads and its own queue, see
+ * {@link EngineConfig#setTaskThreadCount(int, int)} and
+ * {@link EngineConfig#setTaskQueueSize(int, int)}. The queued tasks are run by
+ * their priority, the tasks of the same priority in the order they are
+ * submitted. A task is rejected once the queue of its type is full, so the
+ * callers can slow down instead of piling up the tasks.
+ * <p>
+ * The scheduler closes the submitted tasks once they are finished or
+ * cancelled, the caller shouldn't close them. The errors and the status of a
+ * task are still available once it is closed.
+ * 
+ * @see IReportEngine#getTaskScheduler()
+ * @since 4.7
+ */
+public interface IEngineTaskScheduler
+{
+
+	/**
+	 * the lowest priority of a task
+	 */
+	public static final int MIN_PRIORITY = 1;
+
+	/**
+	 * the default priority of a task
+	 */
+	public static final int NORM_PRIORITY = 5;
+
+	/**
+	 * the highest priority of a task
+	 */
+	public static final int MAX_PRIORITY = 10;
+
+	/**
+	 * Submits a run task generating the report document.
+	 * 
+	 * @param task
+	 *            the run task
+	 * @param reportDocName
+	 *            the name of the report document to generate
+	 * @param priority
+	 *            the priority of the task
+	 * @return the future of the task
+	 * @throws EngineException
+	 *             if the queue of the run tasks is full, or the scheduler is
+	 *             shut down
+	 */
+	public IEngineTaskFuture submitRunTask( IRunTask task,
+			String reportDocName, int priority ) throws EngineException;
+
+	/**
+	 * Submits a render task.
+	 * 
+	 * @param task
+	 *            the render task with its render options set
+	 * @param priority
+	 *            the priority of the task
+	 * @return the future of the task
+	 * @throws EngineException
+	 *             if the queue of the render tasks is full, or the scheduler
+	 *             is shut down
+	 */
+	public IEngineTaskFuture submitRenderTask( IRenderTask task, int priority )
+			throws EngineException;
+
+	/**
+	 * Submits a run and render task.
+	 * 
+	 * @param task
+	 *            the run and render task with its render options set
+	 * @param priority
+	 *            the priority of the task
+	 * @return the future of the task
+	 * @throws EngineException
+	 *             if the queue of the run and render tasks is full, or the
+	 *             scheduler is shut down
+	 */
+	public IEngineTaskFuture submitRunAndRenderTask( IRunAndRenderTask task,
+			int priority ) throws EngineException;
+
+	/**
+	 * Returns the count of the queued tasks of a task type.
+	 * 
+	 * @param taskType
+	 *            the task type, see {@link IEngineTask}
+	 * @return the count of the tasks waiting for a thread
+	 */
+	public int getQueuedTaskCount( int taskType );
+
+	/**
+	 * Returns the count of the running tasks of a task type.
+	 * 
+	 * @param taskType
+	 *            the task type, see {@link IEngineTask}
+	 * @return the count of the running tasks
+	 */
+	public int getRunningTaskCount( int taskType );
+
+	/**
+	 * Shuts down the scheduler. The queued tasks are cancelled, the running
+	 * tasks are cancelled by {@link IEngineTask#cancel()}.
+	 */
+	public void shutdown( );
+}
@@ -116,6 +116,14 @@ public interface IPDFRenderOption extends IRenderOption
 	 * The option to disable print.
 	 */
 	public static final String DISABLE_PRINT = "pdfRenderOption.disablePrint";
+
+	/**
+	 * The option to write each page and the images it uses to the output once
+	 * the page is completed, and to keep the bookmarks of the outlines in a
+	 * temporary file, so the memory used by the PDF emitter doesn't grow with
+	 * the count of the pages. It is false by default.
+	 */
+	public static final String PDF_STREAMING = "pdfRenderOption.streaming";
 	/**
 	 * @deprecated
 	 * @param isEmbededFont
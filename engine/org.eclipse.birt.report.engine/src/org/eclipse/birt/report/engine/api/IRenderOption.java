@@ -73,6 +73,25 @@ public interface IRenderOption extends ITaskOption
 	
 	public static final String REPORTLET_SIZE = "reportletSize";
 
+	/**
+	 * The count of the threads laying out the pages of a report document in
+	 * parallel. The value is an Integer object, the default is 1, which lays
+	 * out the pages one by one. It applies to the outputs of the paper size
+	 * pagination, such as PDF and PostScript, rendered from a report document,
+	 * whose pages keep the page numbers of the document, see
+	 * <code>IPDFRenderOption.RESERVE_DOCUMENT_PAGE_NUMBERS</code>. The pages
+	 * follow the pagination of the document, as if they were rendered by page
+	 * ranges.
+	 */
+	public static final String RENDER_THREAD_COUNT = "renderThreadCount"; //$NON-NLS-1$
+
+	/**
+	 * The count of the document pages laid out by one thread at a time when
+	 * the pages are laid out in parallel. The value is an Integer object, the
+	 * default is 50.
+	 */
+	public static final String RENDER_CHUNK_SIZE = "renderChunkSize"; //$NON-NLS-1$
+
 	/**
 	 * @return
 	 * @deprecated use getOptions instead
@@ -82,7 +82,8 @@ public interface IReportEngine
 	 * object.
 	 * 
 	 * @param designName
-	 *            the full path of the report design file
+	 *            the full path of the report design file, or of the design
+	 *            compiled by {@link #compileReportDesign}
 	 * @return a report design runnable object
 	 * @throws EngineException
 	 *             throwed when the input file does not exist, or the file is
@@ -122,6 +123,47 @@ public interface IReportEngine
 	public IReportRunnable openReportDesign( ReportDesignHandle designHandle )
 			throws EngineException;
 
+	/**
+	 * Compiles a report design into a binary file. The compiled design
+	 * contains the design with the library elements merged into it and the
+	 * report IR, so opening it by {@link #openReportDesign(String)} parses
+	 * neither the libraries nor builds the IR again.
+	 * 
+	 * The compiled design records the modification time of the design file
+	 * and its libraries, it is compiled again when it is opened after one of
+	 * them changes, or by another engine version.
+	 * 
+	 * @param runnable
+	 *            the report design runnable opened by this engine
+	 * @param compiledFileName
+	 *            the full path of the compiled design file
+	 * @return a report design runnable of the compiled design
+	 * @throws EngineException
+	 *             throwed when the design can't be compiled, or the file
+	 *             can't be written
+	 * @since 4.7
+	 */
+	public IReportRunnable compileReportDesign( IReportRunnable runnable,
+			String compiledFileName ) throws EngineException;
+
+	/**
+	 * Returns the scheduler running the tasks of the engine asynchronously.
+	 * The scheduler is created on the first call, and shut down once the
+	 * engine is destroyed.
+	 * 
+	 * @return the task scheduler of the engine
+	 * @since 4.7
+	 */
+	public IEngineTaskScheduler getTaskScheduler( );
+
+	/**
+	 * Returns the performance metrics of the engine and of its tasks.
+	 * 
+	 * @return the metrics of the engine
+	 * @since 4.7
+	 */
+	public IEngineMetrics getMetrics( );
+
 	/**
 	 * Opens a report design stream and creates a report design runnable. From
 	 * the ReportRunnable object, embedded images and parameter definitions can
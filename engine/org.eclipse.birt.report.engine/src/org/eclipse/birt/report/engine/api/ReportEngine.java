@@ -142,6 +142,43 @@ public class ReportEngine implements IReportEngine
 		return engine.openReportDesign( designHandle );
 	}
 
+	/**
+	 * compiles a report design into a file, which is opened by
+	 * <code>openReportDesign</code> faster than the design.
+	 * 
+	 * @param runnable
+	 *            the report design runnable
+	 * @param compiledFileName
+	 *            the full path of the compiled design file
+	 * @return a runnable sharing the compiled report IR
+	 * @throws EngineException
+	 */
+	public IReportRunnable compileReportDesign( IReportRunnable runnable,
+			String compiledFileName ) throws EngineException
+	{
+		return engine.compileReportDesign( runnable, compiledFileName );
+	}
+
+	/**
+	 * returns the scheduler running the tasks of the engine asynchronously.
+	 * 
+	 * @return the task scheduler of the engine
+	 */
+	public IEngineTaskScheduler getTaskScheduler( )
+	{
+		return engine.getTaskScheduler( );
+	}
+
+	/**
+	 * Returns the performance metrics of the engine and of its tasks.
+	 * 
+	 * @return the metrics of the engine
+	 */
+	public IEngineMetrics getMetrics( )
+	{
+		return engine.getMetrics( );
+	}
+
 	/**
 	 * opens a report design stream and creates a report design runnable. From
 	 * the ReportRunnable object, embedded images and parameter definitions can
@@ -69,8 +69,8 @@ public class ReportRunner
 	 */
 	protected String targetFile = null;
 	/**
-	 * execution mode, one of the Run, RunAndRender and Render. the default mode
-	 * is RunAndRender
+	 * execution mode, one of the Run, RunAndRender, Render and Compile. the
+	 * default mode is RunAndRender
 	 */
 	protected String mode = "RunAndRender"; // the execution mode, one of the
 	/**
@@ -163,6 +163,10 @@ public class ReportRunner
 			{
 				return renderReport( );
 			}
+			else if ( "Compile".equalsIgnoreCase( mode ) )
+			{
+				return compileReport( );
+			}
 			else
 			{
 				return runAndRenderReport( );
@@ -303,6 +307,24 @@ public class ReportRunner
 		}
 	}
 
+	/**
+	 * compile the report design into a file which is opened faster.
+	 */
+	protected int compileReport( )
+	{
+		try
+		{
+			IReportRunnable runnable = engine.openReportDesign( source );
+			engine.compileReportDesign( runnable, targetFile );
+			return 0;
+		}
+		catch ( EngineException e )
+		{
+			logger.log( Level.SEVERE, e.getMessage( ), e );
+			return -1;
+		}
+	}
+
 	/**
 	 * render the report.
 	 */
@@ -390,13 +412,15 @@ public class ReportRunner
 		System.out.println( "" ); //$NON-NLS-1$
 
 		System.out
-				.println( "--mode/-m [run|render|runrender] [options] [rptdesign|rptdocument]\n\tThe default mode is runrender." );
+				.println( "--mode/-m [run|render|runrender|compile] [options] [rptdesign|rptdocument]\n\tThe default mode is runrender." );
 		System.out.println( "To see options for run mode, use:" );
 		System.out.println( "\t--help/-h run" );
 		System.out.println( "To see options for render mode, use:" );
 		System.out.println( "\t--help/-h render" );
 		System.out.println( "To see options for runrender mode, use:" );
 		System.out.println( "\t--help/-h runrender" );
+		System.out.println( "To see options for compile mode, use:" );
+		System.out.println( "\t--help/-h compile" );
 		System.out.println( "Print current message, use --help/-h" );
 	}
 	
@@ -465,6 +489,20 @@ public class ReportRunner
 
 	}
 	
+	protected void printCompileUsage( )
+	{
+		System.out.println( "ReportRunner's COMPILE mode:" );
+		System.out.println( "--mode/-m compile [options] <rptdesign file>" );
+		System.out.println( "where options could be:" ); //$NON-NLS-1$
+		System.out.println( "\t--output/-o <target file>" ); //$NON-NLS-1$
+		System.out.println( "\t--config/-c <\"configName=configValue\">" );
+		System.out.println( "\t--file/-F <file>\n" ); //$NON-NLS-1$
+		System.out
+				.println( "The compiled design is opened by the other modes as a rptdesign file." ); //$NON-NLS-1$
+		System.out.println( "use \"--help/-h configNames\" for a list of configurables" );
+		System.out.println( "use \"--help/-h file\" for options in <file>" );
+	}
+
 	protected void printConfigUsage( )
 	{
 		System.out.println( "Configurables include:" );
@@ -541,6 +579,26 @@ public class ReportRunner
 		}
 	}
 
+	/**
+	 * Parse compiling options.
+	 * 
+	 * @throws Exception
+	 */
+	protected void parseCompileOptions( ) throws Exception
+	{
+		assert ( mode.equalsIgnoreCase( "Compile" ) );
+
+		// targetFile
+		if ( params.get( "output" ) != null )
+		{
+			targetFile = (String) params.get( "output" );
+		}
+		if ( results.hasOption( 'o' ) )
+		{
+			targetFile = results.getOptionValue( 'o' );
+		}
+	}
+
 	/**
 	 * Parse render options.
 	 * 
@@ -723,6 +781,10 @@ public class ReportRunner
 				{
 					printRunRenderUsage( );
 				}
+				else if( name.equalsIgnoreCase( "compile" ) )
+				{
+					printCompileUsage( );
+				}
 				else if( name.equalsIgnoreCase( "configNames" ) )
 				{
 					printConfigUsage( );
@@ -811,6 +873,10 @@ public class ReportRunner
 			{
 				parseRenderOptions( );
 			}
+			else if ( "Compile".equalsIgnoreCase( mode ) )
+			{
+				parseCompileOptions( );
+			}
 			else
 			{
 				parseRunAndRenderOptions( );
@@ -1102,6 +1168,10 @@ public class ReportRunner
 		{
 			fileExt = ".rptdocument";
 		}
+		else if ( "Compile".equalsIgnoreCase( mode ) )
+		{
+			fileExt = ".rptcompiled";
+		}
 		File designFile = new File( new File( source ).getAbsolutePath( ) );
 
 		String designFileName = designFile.getName( );
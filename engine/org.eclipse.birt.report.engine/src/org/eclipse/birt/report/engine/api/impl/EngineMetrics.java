@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.birt.core.archive.compound.ArchiveFile;
+import org.eclipse.birt.core.util.CacheStatistics;
+import org.eclipse.birt.report.engine.api.IEngineMetrics;
+import org.eclipse.birt.report.engine.api.IEngineMetricsListener;
+import org.eclipse.birt.report.model.core.LibraryCache;
+
+/**
+ * The metrics of a report engine, the totals of the metrics of its tasks. It
+ * is registered as a standard MBean once the metrics are enabled by the
+ * engine config.
+ */
+
+public class EngineMetrics implements IEngineMetrics, EngineMetricsMBean
+{
+
+	private static Logger logger = Logger.getLogger( EngineMetrics.class
+			.getName( ) );
+
+	private static final AtomicInteger engineIndex = new AtomicInteger( );
+
+	private final ReportEngine engine;
+
+	private volatile boolean enabled;
+
+	private final List<IEngineMetricsListener> listeners = new CopyOnWriteArrayList<IEngineMetricsListener>( );
+
+	private final AtomicLong taskCount = new AtomicLong( );
+
+	private final AtomicLongArray times = new AtomicLongArray(
+			TaskMetrics.TIMERS.length );
+
+	private final AtomicLongArray counts = new AtomicLongArray(
+			TaskMetrics.COUNTERS.length );
+
+	private final AtomicLong peakMemory = new AtomicLong( );
+
+	private ObjectName objectName;
+
+	EngineMetrics( ReportEngine engine, boolean enabled )
+	{
+		this.engine = engine;
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled( )
+	{
+		return enabled;
+	}
+
+	public void setEnabled( boolean enabled )
+	{
+		this.enabled = enabled;
+	}
+
+	public void addListener( IEngineMetricsListener listener )
+	{
+		listeners.add( listener );
+	}
+
+	public void removeListener( IEngineMetricsListener listener )
+	{
+		listeners.remove( listener );
+	}
+
+	/**
+	 * Creates the metrics of a task.
+	 *
+	 * @return the metrics, or null if the metrics are disabled
+	 */
+	TaskMetrics createTaskMetrics( int taskID, int taskType )
+	{
+		if ( !enabled )
+		{
+			return null;
+		}
+		return new TaskMetrics( taskID, taskType );
+	}
+
+	/**
+	 * Records the time of parsing a report design.
+	 *
+	 * @param nanos
+	 *            the time in nano seconds
+	 */
+	void addDesignOpenTime( long nanos )
+	{
+		times.addAndGet( TaskMetrics.DESIGN_OPEN, nanos );
+	}
+
+	/**
+	 * Adds the metrics of a closed task to the totals and sends them to the
+	 * listeners.
+	 */
+	void taskClosed( TaskMetrics metrics )
+	{
+		metrics.finish( );
+		taskCount.incrementAndGet( );
+		for ( int i = 0; i < TaskMetrics.TIMERS.length; i++ )
+		{
+			times.addAndGet( i, metrics.getTime( i ) );
+		}
+		for ( int i = 0; i < TaskMetrics.COUNTERS.length; i++ )
+		{
+			counts.addAndGet( i, metrics.getCount( i ) );
+		}
+		long memory = metrics.getPeakMemory( );
+		long peak = peakMemory.get( );
+		while ( memory > peak && !peakMemory.compareAndSet( peak, memory ) )
+		{
+			peak = peakMemory.get( );
+		}
+		for ( IEngineMetricsListener listener : listeners )
+		{
+			try
+			{
+				listener.onTaskMetrics( metrics );
+			}
+			catch ( RuntimeException ex )
+			{
+				logger.log( Level.WARNING, ex.getMessage( ), ex );
+			}
+		}
+	}
+
+	public long getTaskCount( )
+	{
+		return taskCount.get( );
+	}
+
+	public long getTime( String timer )
+	{
+		int index = TaskMetrics.indexOf( TaskMetrics.TIMERS, timer );
+		return index == -1 ? 0 : times.get( index );
+	}
+
+	public long getCount( String counter )
+	{
+		int index = TaskMetrics.indexOf( TaskMetrics.COUNTERS, counter );
+		return index == -1 ? 0 : counts.get( index );
+	}
+
+	public long getPeakMemory( )
+	{
+		return peakMemory.get( );
+	}
+
+	public CacheStatistics getLibraryCacheStatistics( )
+	{
+		LibraryCache cache = engine.getLibraryCache( );
+		return cache == null ? null : cache.getStatistics( );
+	}
+
+	public CacheStatistics getArchiveCacheStatistics( )
+	{
+		return ArchiveFile.sharedBlockCache.getStatistics( );
+	}
+
+	public void reset( )
+	{
+		taskCount.set( 0 );
+		for ( int i = 0; i < TaskMetrics.TIMERS.length; i++ )
+		{
+			times.set( i, 0 );
+		}
+		for ( int i = 0; i < TaskMetrics.COUNTERS.length; i++ )
+		{
+			counts.set( i, 0 );
+		}
+		peakMemory.set( 0 );
+	}
+
+	public long getTaskTime( )
+	{
+		return getMillis( TaskMetrics.TASK );
+	}
+
+	public long getDesignOpenTime( )
+	{
+		return getMillis( TaskMetrics.DESIGN_OPEN );
+	}
+
+	public long getQueryPrepareTime( )
+	{
+		return getMillis( TaskMetrics.QUERY_PREPARE );
+	}
+
+	public long getQueryExecuteTime( )
+	{
+		return getMillis( TaskMetrics.QUERY_EXECUTE );
+	}
+
+	public long getRowFetchTime( )
+	{
+		return getMillis( TaskMetrics.ROW_FETCH );
+	}
+
+	public long getExpressionTime( )
+	{
+		return getMillis( TaskMetrics.EXPRESSION );
+	}
+
+	public long getLayoutTime( )
+	{
+		return getMillis( TaskMetrics.LAYOUT );
+	}
+
+	public long getEmitterTime( )
+	{
+		return getMillis( TaskMetrics.EMITTER );
+	}
+
+	public long getPageCount( )
+	{
+		return counts.get( TaskMetrics.PAGES );
+	}
+
+	public long getRowCount( )
+	{
+		return counts.get( TaskMetrics.ROWS );
+	}
+
+	public long getQueryCount( )
+	{
+		return counts.get( TaskMetrics.QUERIES );
+	}
+
+	public long getBytesWritten( )
+	{
+		return counts.get( TaskMetrics.BYTES_WRITTEN );
+	}
+
+	public double getLibraryCacheHitRate( )
+	{
+		CacheStatistics statistics = getLibraryCacheStatistics( );
+		return statistics == null ? 0 : statistics.getHitRate( );
+	}
+
+	public double getArchiveCacheHitRate( )
+	{
+		return getArchiveCacheStatistics( ).getHitRate( );
+	}
+
+	private long getMillis( int timer )
+	{
+		return TimeUnit.NANOSECONDS.toMillis( times.get( timer ) );
+	}
+
+	/**
+	 * Registers the metrics in the platform MBean server.
+	 */
+	synchronized void register( )
+	{
+		if ( objectName != null )
+		{
+			return;
+		}
+		try
+		{
+			ObjectName name = new ObjectName(
+					"org.eclipse.birt.report.engine:type=ReportEngine,id=" //$NON-NLS-1$
+							+ engineIndex.incrementAndGet( ) );
+			ManagementFactory.getPlatformMBeanServer( ).registerMBean( this,
+					name );
+			objectName = name;
+		}
+		catch ( Exception ex )
+		{
+			// the metrics are still available by the engine API
+			logger.log( Level.WARNING, ex.getMessage( ), ex );
+		}
+	}
+
+	/**
+	 * Unregisters the metrics from the platform MBean server.
+	 */
+	synchronized void unregister( )
+	{
+		if ( objectName == null )
+		{
+			return;
+		}
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer( );
+			if ( server.isRegistered( objectName ) )
+			{
+				server.unregisterMBean( objectName );
+			}
+		}
+		catch ( Exception ex )
+		{
+			logger.log( Level.WARNING, ex.getMessage( ), ex );
+		}
+		objectName = null;
+	}
+
+	ObjectName getObjectName( )
+	{
+		return objectName;
+	}
+}
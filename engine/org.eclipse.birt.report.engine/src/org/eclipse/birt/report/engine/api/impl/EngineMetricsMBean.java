@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+/**
+ * The JMX view of the metrics of a report engine. The times are in milli
+ * seconds.
+ */
+
+public interface EngineMetricsMBean
+{
+
+	boolean isEnabled( );
+
+	void setEnabled( boolean enabled );
+
+	long getTaskCount( );
+
+	long getTaskTime( );
+
+	long getDesignOpenTime( );
+
+	long getQueryPrepareTime( );
+
+	long getQueryExecuteTime( );
+
+	long getRowFetchTime( );
+
+	long getExpressionTime( );
+
+	long getLayoutTime( );
+
+	long getEmitterTime( );
+
+	long getPageCount( );
+
+	long getRowCount( );
+
+	long getQueryCount( );
+
+	long getBytesWritten( );
+
+	long getPeakMemory( );
+
+	double getLibraryCacheHitRate( );
+
+	double getArchiveCacheHitRate( );
+
+	void reset( );
+}
@@ -214,6 +214,11 @@ public abstract class EngineTask implements IEngineTask
 	
 	private ResourceLocatorWrapper resourceLocator;
 	
+	/**
+	 * the performance metrics of the task, null if the metrics are disabled
+	 */
+	protected TaskMetrics metrics;
+	
 	/**
 	 * @param engine
 	 *            reference to report engine
@@ -239,6 +244,8 @@ public abstract class EngineTask implements IEngineTask
 		this.log = engine.getLogger( );
 
 		setupExecutionContext( );
+		metrics = engine.getMetrics( ).createTaskMetrics( taskID, taskType );
+		executionContext.setMetrics( metrics );
 		// set the default app context
 		setAppContext( null );
 
@@ -1727,11 +1734,29 @@ public abstract class EngineTask implements IEngineTask
 
 	public void close( )
 	{
+		closeMetrics( );
 		executionContext.close( );
 		disposeResourceLocator( );
 		EngineLogger.setThreadLogger( null );
 	}
 	
+	/**
+	 * Sends the metrics of the closed task to the engine.
+	 */
+	protected void closeMetrics( )
+	{
+		if ( metrics != null )
+		{
+			IReportRunnable runnable = getReportRunnable( );
+			if ( runnable != null )
+			{
+				metrics.setReportName( runnable.getReportName( ) );
+			}
+			engine.getMetrics( ).taskClosed( metrics );
+			metrics = null;
+		}
+	}
+
 	private void disposeResourceLocator( )
 	{
 		if ( resourceLocator != null )
@@ -1783,7 +1808,10 @@ public abstract class EngineTask implements IEngineTask
 			throw new EngineException(
 					MessageConstants.CANNOT_CREATE_EMITTER_EXCEPTION, emitterID );
 		}
-
+		if ( metrics != null )
+		{
+			emitter = new MetricsContentEmitter( emitter, metrics );
+		}
 		return emitter;
 	}
 
@@ -2331,6 +2359,7 @@ public abstract class EngineTask implements IEngineTask
 		IRenderOption options = executionContext.getRenderOption( );
 		EngineEmitterServices services = new EngineEmitterServices(
 				reportContext, options, configs );
+		services.setTaskMetrics( metrics );
 
 		// emitter is not null
 		emitter.initialize( services );
@@ -2344,6 +2373,10 @@ public abstract class EngineTask implements IEngineTask
 	protected void changeStatusToRunning( )
 	{
 		runningStatus = STATUS_RUNNING;
+		if ( metrics != null )
+		{
+			metrics.startTask( );
+		}
 	}
 
 	protected void changeStatusToStopped( )
@@ -2360,6 +2393,12 @@ public abstract class EngineTask implements IEngineTask
 		{
 			runningStatus = STATUS_SUCCEEDED;
 		}
+		// cancel() may stop the task while another thread closes it
+		TaskMetrics taskMetrics = metrics;
+		if ( taskMetrics != null )
+		{
+			taskMetrics.endTask( );
+		}
 	}
 	
 	protected void handleFatalExceptions( Throwable t ) throws EngineException
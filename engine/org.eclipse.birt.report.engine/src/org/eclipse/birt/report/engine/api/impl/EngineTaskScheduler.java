@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.report.engine.api.EngineConfig;
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.api.IEngineTask;
+import org.eclipse.birt.report.engine.api.IEngineTaskFuture;
+import org.eclipse.birt.report.engine.api.IEngineTaskListener;
+import org.eclipse.birt.report.engine.api.IEngineTaskScheduler;
+import org.eclipse.birt.report.engine.api.IProgressMonitor;
+import org.eclipse.birt.report.engine.api.IRenderTask;
+import org.eclipse.birt.report.engine.api.IRunAndRenderTask;
+import org.eclipse.birt.report.engine.api.IRunTask;
+import org.eclipse.birt.report.engine.i18n.MessageConstants;
+
+/**
+ * The task scheduler of the report engine. Each task type has a thread pool
+ * taking the tasks from a priority queue. The count of the tasks submitted
+ * and not finished yet is limited by a semaphore, a task is rejected at once
+ * when there is no permit left.
+ * <p>
+ * The threads are created on demand and stopped once they are idle for a
+ * minute, so a scheduler which is not used doesn't hold any thread. A task is
+ * closed by the thread running it, as its script context is bound to the
+ * thread.
+ */
+
+class EngineTaskScheduler implements IEngineTaskScheduler
+{
+
+	private static Logger logger = Logger.getLogger( EngineTaskScheduler.class
+			.getName( ) );
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private final EngineConfig config;
+
+	private final HashMap<Integer, TaskPool> pools = new HashMap<Integer, TaskPool>( );
+
+	// the order of the tasks of the same priority
+	private final AtomicLong sequence = new AtomicLong( );
+
+	private boolean shutdown;
+
+	/**
+	 * @param config
+	 *            the engine config defining the threads and the queue size of
+	 *            the task types
+	 */
+
+	EngineTaskScheduler( EngineConfig config )
+	{
+		this.config = config;
+	}
+
+	public IEngineTaskFuture submitRunTask( final IRunTask task,
+			final String reportDocName, int priority ) throws EngineException
+	{
+		return submit( IEngineTask.TASK_RUN, task, new Callable<IEngineTask>( ) {
+
+			public IEngineTask call( ) throws Exception
+			{
+				task.run( reportDocName );
+				return task;
+			}
+		}, priority );
+	}
+
+	public IEngineTaskFuture submitRenderTask( final IRenderTask task,
+			int priority ) throws EngineException
+	{
+		return submit( IEngineTask.TASK_RENDER, task,
+				new Callable<IEngineTask>( ) {
+
+					public IEngineTask call( ) throws Exception
+					{
+						task.render( );
+						return task;
+					}
+				}, priority );
+	}
+
+	public IEngineTaskFuture submitRunAndRenderTask(
+			final IRunAndRenderTask task, int priority )
+			throws EngineException
+	{
+		return submit( IEngineTask.TASK_RUNANDRENDER, task,
+				new Callable<IEngineTask>( ) {
+
+					public IEngineTask call( ) throws Exception
+					{
+						task.run( );
+						return task;
+					}
+				}, priority );
+	}
+
+	public int getQueuedTaskCount( int taskType )
+	{
+		TaskPool pool = findPool( taskType );
+		return pool == null ? 0 : pool.executor.getQueue( ).size( );
+	}
+
+	public int getRunningTaskCount( int taskType )
+	{
+		TaskPool pool = findPool( taskType );
+		return pool == null ? 0 : pool.running.size( );
+	}
+
+	public void shutdown( )
+	{
+		List<TaskPool> stopped;
+		synchronized ( this )
+		{
+			if ( shutdown )
+			{
+				return;
+			}
+			shutdown = true;
+			stopped = new ArrayList<TaskPool>( pools.values( ) );
+			pools.clear( );
+		}
+		for ( TaskPool pool : stopped )
+		{
+			pool.shutdown( );
+		}
+	}
+
+	private IEngineTaskFuture submit( int taskType, IEngineTask task,
+			Callable<IEngineTask> callable, int priority )
+			throws EngineException
+	{
+		TaskPool pool = getPool( taskType );
+		if ( !pool.permits.tryAcquire( ) )
+		{
+			throw new EngineException( MessageConstants.TASK_QUEUE_FULL_EXCEPTION,
+					Integer.valueOf( taskType ) );
+		}
+		TaskFuture future = new TaskFuture( pool, task, callable, priority );
+		try
+		{
+			pool.executor.execute( future );
+		}
+		catch ( RuntimeException ex )
+		{
+			// the pool is shut down in the meantime
+			pool.permits.release( );
+			throw new EngineException(
+					MessageConstants.TASK_SCHEDULER_SHUT_DOWN_EXCEPTION, ex );
+		}
+		return future;
+	}
+
+	private synchronized TaskPool findPool( int taskType )
+	{
+		return pools.get( Integer.valueOf( taskType ) );
+	}
+
+	private synchronized TaskPool getPool( int taskType )
+			throws EngineException
+	{
+		if ( shutdown )
+		{
+			throw new EngineException(
+					MessageConstants.TASK_SCHEDULER_SHUT_DOWN_EXCEPTION );
+		}
+		TaskPool pool = pools.get( Integer.valueOf( taskType ) );
+		if ( pool == null )
+		{
+			pool = new TaskPool( taskType, config.getTaskThreadCount( taskType ),
+					config.getTaskQueueSize( taskType ) );
+			pools.put( Integer.valueOf( taskType ), pool );
+		}
+		return pool;
+	}
+
+	/**
+	 * The threads and the queue of a task type.
+	 */
+
+	private static class TaskPool
+	{
+
+		final ThreadPoolExecutor executor;
+
+		// a permit for each task queued or running
+		final Semaphore permits;
+
+		final Set<TaskFuture> running = Collections
+				.newSetFromMap( new ConcurrentHashMap<TaskFuture, Boolean>( ) );
+
+		TaskPool( final int taskType, int threadCount, int queueSize )
+		{
+			permits = new Semaphore( threadCount + queueSize );
+			executor = new ThreadPoolExecutor( threadCount, threadCount,
+					KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					new PriorityBlockingQueue<Runnable>( ),
+					new ThreadFactory( ) {
+
+						private final AtomicInteger index = new AtomicInteger( );
+
+						public Thread newThread( Runnable runnable )
+						{
+							Thread thread = new Thread( runnable, "BIRT-Task-" //$NON-NLS-1$
+									+ taskType + "-" //$NON-NLS-1$
+									+ index.incrementAndGet( ) );
+							thread.setDaemon( true );
+							return thread;
+						}
+					} );
+			executor.allowCoreThreadTimeOut( true );
+		}
+
+		void shutdown( )
+		{
+			// the threads aren't interrupted as the tasks may be writing files
+			executor.shutdown( );
+			List<Runnable> queued = new ArrayList<Runnable>( );
+			executor.getQueue( ).drainTo( queued );
+			for ( Runnable future : queued )
+			{
+				( (TaskFuture) future ).cancel( false );
+			}
+			for ( TaskFuture future : running )
+			{
+				future.cancel( false );
+			}
+		}
+	}
+
+	/**
+	 * The future of a submitted task, ordered by the priority and then by the
+	 * submission order in the queue.
+	 */
+
+	private class TaskFuture extends FutureTask<IEngineTask>
+			implements
+				IEngineTaskFuture,
+				Comparable<TaskFuture>
+	{
+
+		private final TaskPool pool;
+
+		private final IEngineTask task;
+
+		private final int priority;
+
+		private final long index;
+
+		private final List<IEngineTaskListener> listeners = new CopyOnWriteArrayList<IEngineTaskListener>( );
+
+		private final AtomicBoolean started = new AtomicBoolean( );
+
+		private final AtomicBoolean finished = new AtomicBoolean( );
+
+		TaskFuture( TaskPool pool, IEngineTask task,
+				Callable<IEngineTask> callable, int priority )
+		{
+			super( callable );
+			this.pool = pool;
+			this.task = task;
+			this.priority = Math.max( MIN_PRIORITY, Math.min( MAX_PRIORITY,
+					priority ) );
+			this.index = sequence.getAndIncrement( );
+		}
+
+		public IEngineTask getTask( )
+		{
+			return task;
+		}
+
+		public int getPriority( )
+		{
+			return priority;
+		}
+
+		public void addListener( IEngineTaskListener listener )
+		{
+			synchronized ( listeners )
+			{
+				if ( !finished.get( ) )
+				{
+					listeners.add( listener );
+					return;
+				}
+			}
+			notifyDone( listener );
+		}
+
+		public void removeListener( IEngineTaskListener listener )
+		{
+			listeners.remove( listener );
+		}
+
+		public int compareTo( TaskFuture future )
+		{
+			if ( priority != future.priority )
+			{
+				return priority > future.priority ? -1 : 1;
+			}
+			return index < future.index ? -1 : ( index == future.index
+					? 0
+					: 1 );
+		}
+
+		public void run( )
+		{
+			if ( !started.compareAndSet( false, true ) )
+			{
+				return;
+			}
+			pool.running.add( this );
+			IProgressMonitor monitor = null;
+			if ( task instanceof EngineTask )
+			{
+				monitor = ( (EngineTask) task ).progressMonitor;
+			}
+			task.setProgressMonitor( new ProgressDispatcher( monitor ) );
+			try
+			{
+				super.run( );
+			}
+			finally
+			{
+				pool.running.remove( this );
+				try
+				{
+					task.close( );
+				}
+				finally
+				{
+					finish( );
+				}
+			}
+		}
+
+		public boolean cancel( boolean mayInterruptIfRunning )
+		{
+			boolean cancelled = super.cancel( false );
+			if ( !cancelled )
+			{
+				return false;
+			}
+			if ( started.compareAndSet( false, true ) )
+			{
+				// never run, it is removed from the queue
+				pool.executor.remove( this );
+				task.close( );
+				finish( );
+			}
+			else
+			{
+				// the listeners are notified once the task returns
+				task.cancel( );
+			}
+			return true;
+		}
+
+		private void finish( )
+		{
+			synchronized ( listeners )
+			{
+				if ( !finished.compareAndSet( false, true ) )
+				{
+					return;
+				}
+			}
+			pool.permits.release( );
+			for ( IEngineTaskListener listener : listeners )
+			{
+				notifyDone( listener );
+			}
+		}
+
+		private void notifyDone( IEngineTaskListener listener )
+		{
+			try
+			{
+				listener.onDone( this );
+			}
+			catch ( RuntimeException ex )
+			{
+				logger.log( Level.WARNING, ex.getMessage( ), ex );
+			}
+		}
+
+		/**
+		 * Sends the progress of the task to its own monitor and to the
+		 * listeners.
+		 */
+
+		private class ProgressDispatcher implements IProgressMonitor
+		{
+
+			private final IProgressMonitor monitor;
+
+			ProgressDispatcher( IProgressMonitor monitor )
+			{
+				this.monitor = monitor;
+			}
+
+			public void onProgress( int type, int value )
+			{
+				if ( monitor != null )
+				{
+					monitor.onProgress( type, value );
+				}
+				for ( IEngineTaskListener listener : listeners )
+				{
+					try
+					{
+						listener.onProgress( type, value );
+					}
+					catch ( RuntimeException ex )
+					{
+						logger.log( Level.WARNING, ex.getMessage( ), ex );
+					}
+				}
+			}
+		}
+	}
+}
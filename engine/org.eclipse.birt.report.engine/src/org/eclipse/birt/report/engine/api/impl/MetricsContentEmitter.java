@@ -0,0 +1,489 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.report.engine.content.IAutoTextContent;
+import org.eclipse.birt.report.engine.content.ICellContent;
+import org.eclipse.birt.report.engine.content.IContainerContent;
+import org.eclipse.birt.report.engine.content.IContent;
+import org.eclipse.birt.report.engine.content.IDataContent;
+import org.eclipse.birt.report.engine.content.IForeignContent;
+import org.eclipse.birt.report.engine.content.IGroupContent;
+import org.eclipse.birt.report.engine.content.IImageContent;
+import org.eclipse.birt.report.engine.content.ILabelContent;
+import org.eclipse.birt.report.engine.content.IListBandContent;
+import org.eclipse.birt.report.engine.content.IListContent;
+import org.eclipse.birt.report.engine.content.IListGroupContent;
+import org.eclipse.birt.report.engine.content.IPageContent;
+import org.eclipse.birt.report.engine.content.IReportContent;
+import org.eclipse.birt.report.engine.content.IRowContent;
+import org.eclipse.birt.report.engine.content.ITableBandContent;
+import org.eclipse.birt.report.engine.content.ITableContent;
+import org.eclipse.birt.report.engine.content.ITableGroupContent;
+import org.eclipse.birt.report.engine.content.ITextContent;
+import org.eclipse.birt.report.engine.emitter.IContentEmitter;
+import org.eclipse.birt.report.engine.emitter.IEmitterServices;
+
+/**
+ * Records the time spent by an emitter into the metrics of the task, and the
+ * count of the emitted pages.
+ */
+class MetricsContentEmitter implements IContentEmitter
+{
+
+	private IContentEmitter emitter;
+
+	private TaskMetrics metrics;
+
+	MetricsContentEmitter( IContentEmitter emitter, TaskMetrics metrics )
+	{
+		this.emitter = emitter;
+		this.metrics = metrics;
+	}
+
+	public String getOutputFormat( )
+	{
+		return emitter.getOutputFormat( );
+	}
+
+	public void initialize( IEmitterServices service ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.initialize( service );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void start( IReportContent report ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.start( report );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void end( IReportContent report ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.end( report );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startPage( IPageContent page ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startPage( page );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endPage( IPageContent page ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endPage( page );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+		metrics.addCount( TaskMetrics.PAGES, 1 );
+		metrics.sampleMemory( );
+	}
+
+	public void startTable( ITableContent table ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startTable( table );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endTable( ITableContent table ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endTable( table );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startTableBand( ITableBandContent band ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startTableBand( band );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endTableBand( ITableBandContent band ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endTableBand( band );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startRow( IRowContent row ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startRow( row );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endRow( IRowContent row ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endRow( row );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startCell( ICellContent cell ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startCell( cell );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endCell( ICellContent cell ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endCell( cell );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startList( IListContent list ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startList( list );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endList( IListContent list ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endList( list );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startListBand( IListBandContent listBand ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startListBand( listBand );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endListBand( IListBandContent listBand ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endListBand( listBand );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startContainer( IContainerContent container ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startContainer( container );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endContainer( IContainerContent container ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endContainer( container );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startText( ITextContent text ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startText( text );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startData( IDataContent data ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startData( data );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startLabel( ILabelContent label ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startLabel( label );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startAutoText( IAutoTextContent autoText ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startAutoText( autoText );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startForeign( IForeignContent foreign ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startForeign( foreign );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startImage( IImageContent image ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startImage( image );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startContent( IContent content ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startContent( content );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endContent( IContent content ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endContent( content );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startGroup( IGroupContent group ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startGroup( group );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endGroup( IGroupContent group ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endGroup( group );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startTableGroup( ITableGroupContent group ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startTableGroup( group );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endTableGroup( ITableGroupContent group ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endTableGroup( group );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void startListGroup( IListGroupContent group ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.startListGroup( group );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+
+	public void endListGroup( IListGroupContent group ) throws BirtException
+	{
+		long start = System.nanoTime( );
+		try
+		{
+			emitter.endListGroup( group );
+		}
+		finally
+		{
+			metrics.addTime( TaskMetrics.EMITTER, System.nanoTime( ) - start );
+		}
+	}
+}
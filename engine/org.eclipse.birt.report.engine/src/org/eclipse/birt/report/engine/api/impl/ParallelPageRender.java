@@ -0,0 +1,539 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.api.RenderOption;
+import org.eclipse.birt.report.engine.content.IContent;
+import org.eclipse.birt.report.engine.content.IPageContent;
+import org.eclipse.birt.report.engine.emitter.ContentEmitterAdapter;
+import org.eclipse.birt.report.engine.emitter.IContentEmitter;
+import org.eclipse.birt.report.engine.i18n.MessageConstants;
+import org.eclipse.birt.report.engine.layout.html.HTMLLayoutContext;
+import org.eclipse.birt.report.engine.nLayout.LayoutContext;
+import org.eclipse.birt.report.engine.nLayout.LayoutEngine;
+
+/**
+ * Lays out the pages of a report document in parallel. The pages are split
+ * into chunks of continuous pages, each chunk is laid out by a worker render
+ * task with its own execution context and content readers. The laid out pages
+ * are output by the render task to its emitter in the page order, so the
+ * emitter gets the same pages as if they were laid out one by one.
+ * <p>
+ * The laid out pages read the content through the readers of their worker,
+ * so a worker doesn't lay out its next chunk until its previous pages are
+ * output. So at most one chunk per thread is laid out ahead, and the memory
+ * used by the laid out pages is bounded. The worker tasks share the report
+ * document and its design with the render task, they don't run the render
+ * scripts of the report.
+ */
+
+class ParallelPageRender
+{
+
+	/**
+	 * the default count of the document pages laid out at a time
+	 */
+
+	static final int DEFAULT_CHUNK_SIZE = 50;
+
+	private final ReportEngine engine;
+
+	private final RenderTask task;
+
+	private final List<List<long[]>> chunks;
+
+	private final int threadCount;
+
+	private final List<ChunkRender> renders = new ArrayList<ChunkRender>( );
+
+	// the threads may be canceled by another thread
+	private final List<RenderThread> threads = new CopyOnWriteArrayList<RenderThread>( );
+
+	private final AtomicInteger nextChunk = new AtomicInteger( );
+
+	// the workers are closed once the laid out pages are output
+	private final CountDownLatch outputDone = new CountDownLatch( 1 );
+
+	private volatile boolean canceled;
+
+	private long pageCount;
+
+	/**
+	 * @param engine
+	 *            the report engine
+	 * @param task
+	 *            the render task outputting the pages
+	 * @param chunks
+	 *            the logical pages laid out at a time
+	 * @param threadCount
+	 *            the count of the threads laying out the pages
+	 */
+
+	ParallelPageRender( ReportEngine engine, RenderTask task,
+			List<List<long[]>> chunks, int threadCount )
+	{
+		this.engine = engine;
+		this.task = task;
+		this.chunks = chunks;
+		this.threadCount = Math.min( threadCount, chunks.size( ) );
+		for ( int i = 0; i < chunks.size( ); i++ )
+		{
+			renders.add( new ChunkRender( chunks.get( i ) ) );
+		}
+	}
+
+	/**
+	 * Splits the page sequences into chunks of the given count of pages.
+	 *
+	 * @param pageSequences
+	 *            the page sequences, each one is the first and the last page
+	 * @param chunkSize
+	 *            the count of pages of a chunk
+	 * @return the page sequences of the chunks
+	 */
+
+	static List<List<long[]>> splitPages( List<long[]> pageSequences,
+			int chunkSize )
+	{
+		List<List<long[]>> chunks = new ArrayList<List<long[]>>( );
+		List<long[]> chunk = new ArrayList<long[]>( );
+		long chunkPages = 0;
+		for ( long[] pages : pageSequences )
+		{
+			long start = pages[0];
+			while ( start <= pages[1] )
+			{
+				long end = Math.min( pages[1], start + chunkSize - chunkPages
+						- 1 );
+				chunk.add( new long[]{start, end} );
+				chunkPages += end - start + 1;
+				if ( chunkPages == chunkSize )
+				{
+					chunks.add( chunk );
+					chunk = new ArrayList<long[]>( );
+					chunkPages = 0;
+				}
+				start = end + 1;
+			}
+		}
+		if ( !chunk.isEmpty( ) )
+		{
+			chunks.add( chunk );
+		}
+		return chunks;
+	}
+
+	/**
+	 * Lays out the pages and outputs them to the page layout engine of the
+	 * render task.
+	 *
+	 * @param emitter
+	 *            the page layout engine of the render task
+	 * @throws BirtException
+	 */
+
+	void render( LayoutEngine emitter ) throws BirtException
+	{
+		// the workers are created here as they read the document, each one is
+		// used and closed by its own thread as the script context is bound
+		// to the thread. The pages laid out by a worker are output here
+		// until close( ) is called, so the thread keeps its worker open till
+		// then.
+		for ( int i = 0; i < threadCount; i++ )
+		{
+			RenderThread thread = new RenderThread( new PageRenderWorker(
+					engine, task ), i + 1 );
+			threads.add( thread );
+			thread.start( );
+		}
+
+		LayoutContext context = emitter.getContext( );
+		for ( int i = 0; i < renders.size( ) && !canceled; i++ )
+		{
+			RenderedPages rendered = waitFor( renders.get( i ).future );
+			if ( rendered == null || canceled )
+			{
+				break;
+			}
+			for ( IPageContent page : rendered.pages )
+			{
+				context.setPageNumber( page.getPageNumber( ) );
+				emitter.outputPage( page );
+			}
+			// the worker can lay out its next chunk
+			renders.get( i ).thread.output.release( );
+			if ( rendered.totalPageContent != null )
+			{
+				// the total page is resolved by the emitter at the end
+				context.addUnresolvedContent( rendered.totalPageContent );
+			}
+			pageCount += rendered.pageCount;
+		}
+	}
+
+	private RenderedPages waitFor( FutureTask<RenderedPages> future )
+			throws BirtException
+	{
+		try
+		{
+			return future.get( );
+		}
+		catch ( CancellationException ex )
+		{
+			return null;
+		}
+		catch ( InterruptedException ex )
+		{
+			Thread.currentThread( ).interrupt( );
+			cancel( );
+			return null;
+		}
+		catch ( ExecutionException ex )
+		{
+			if ( canceled )
+			{
+				return null;
+			}
+			Throwable cause = ex.getCause( );
+			if ( cause instanceof BirtException )
+			{
+				throw (BirtException) cause;
+			}
+			if ( cause instanceof RuntimeException )
+			{
+				throw (RuntimeException) cause;
+			}
+			if ( cause instanceof Error )
+			{
+				throw (Error) cause;
+			}
+			throw new EngineException( MessageConstants.REPORT_RUN_ERROR, cause );
+		}
+	}
+
+	/**
+	 * @return the count of the pages laid out
+	 */
+
+	long getPageCount( )
+	{
+		return pageCount;
+	}
+
+	/**
+	 * Cancels the workers laying out the pages.
+	 */
+
+	void cancel( )
+	{
+		canceled = true;
+		for ( RenderThread thread : threads )
+		{
+			thread.worker.cancel( );
+		}
+		for ( ChunkRender render : renders )
+		{
+			render.future.cancel( false );
+		}
+		// wake up the threads waiting for their pages to be output
+		for ( RenderThread thread : threads )
+		{
+			thread.output.release( );
+		}
+	}
+
+	/**
+	 * Closes the workers once the laid out pages are output, waits for them
+	 * and adds their errors to the render task.
+	 */
+
+	void close( )
+	{
+		// the chunks not started yet are skipped
+		if ( !canceled )
+		{
+			canceled = true;
+			for ( RenderThread thread : threads )
+			{
+				thread.output.release( );
+			}
+		}
+		outputDone.countDown( );
+		boolean interrupted = false;
+		for ( RenderThread thread : threads )
+		{
+			while ( thread.isAlive( ) )
+			{
+				try
+				{
+					thread.join( );
+				}
+				catch ( InterruptedException ex )
+				{
+					interrupted = true;
+					thread.worker.cancel( );
+				}
+			}
+			for ( EngineException error : thread.errors )
+			{
+				task.executionContext.addException( error );
+			}
+		}
+		if ( interrupted )
+		{
+			Thread.currentThread( ).interrupt( );
+		}
+		threads.clear( );
+	}
+
+	/**
+	 * Lays out a chunk of pages by the worker of the thread running it.
+	 */
+
+	private static class ChunkRender implements Callable<RenderedPages>
+	{
+
+		final FutureTask<RenderedPages> future = new FutureTask<RenderedPages>(
+				this );
+
+		private final List<long[]> pageSequences;
+
+		// set by the thread running the chunk
+		RenderThread thread;
+
+		ChunkRender( List<long[]> pageSequences )
+		{
+			this.pageSequences = pageSequences;
+		}
+
+		void run( RenderThread thread )
+		{
+			this.thread = thread;
+			future.run( );
+		}
+
+		public RenderedPages call( ) throws Exception
+		{
+			return thread.worker.renderPages( pageSequences );
+		}
+	}
+
+	/**
+	 * The thread laying out the chunks by its own worker, the chunks are
+	 * taken in the page order.
+	 */
+
+	private class RenderThread extends Thread
+	{
+
+		final PageRenderWorker worker;
+
+		final List<EngineException> errors = new ArrayList<EngineException>( );
+
+		// released once the pages laid out by the worker are output
+		final Semaphore output = new Semaphore( 1 );
+
+		RenderThread( PageRenderWorker worker, int index )
+		{
+			super( "BIRT-PageRender-" + index ); //$NON-NLS-1$
+			this.worker = worker;
+			setDaemon( true );
+		}
+
+		public void run( )
+		{
+			try
+			{
+				while ( !canceled )
+				{
+					output.acquireUninterruptibly( );
+					int index = nextChunk.getAndIncrement( );
+					if ( canceled || index >= renders.size( ) )
+					{
+						break;
+					}
+					renders.get( index ).run( this );
+				}
+			}
+			finally
+			{
+				// the pages of the worker may be still output by the render
+				// task
+				boolean interrupted = false;
+				while ( true )
+				{
+					try
+					{
+						outputDone.await( );
+						break;
+					}
+					catch ( InterruptedException ex )
+					{
+						interrupted = true;
+					}
+				}
+				errors.addAll( worker.executionContext.getAllErrors( ) );
+				worker.close( );
+				if ( interrupted )
+				{
+					interrupt( );
+				}
+			}
+		}
+	}
+
+	/**
+	 * The pages laid out by a worker.
+	 */
+
+	private static class RenderedPages
+	{
+
+		final List<IPageContent> pages;
+		final IContent totalPageContent;
+		final long pageCount;
+
+		RenderedPages( List<IPageContent> pages, IContent totalPageContent,
+				long pageCount )
+		{
+			this.pages = pages;
+			this.totalPageContent = totalPageContent;
+			this.pageCount = pageCount;
+		}
+	}
+
+	/**
+	 * The render task laying out the pages for the parallel render. It keeps
+	 * the laid out pages instead of outputting them to an emitter.
+	 */
+
+	private static class PageRenderWorker extends RenderTask
+	{
+
+		private RenderTask parent;
+		private List<IPageContent> pages;
+		private IContent totalPageContent;
+
+		PageRenderWorker( ReportEngine engine, RenderTask task )
+		{
+			super( engine, task.reportRunnable, task.reportDocument );
+			this.parent = task;
+			setLocale( task.getULocale( ) );
+			setTimeZone( task.getTimeZone( ) );
+			setAppContext( task.getAppContext( ) );
+			setRenderOption( new RenderOption( new HashMap( task
+					.getRenderOption( ).getOptions( ) ) ) );
+			loadDocument( );
+		}
+
+		RenderedPages renderPages( List<long[]> pageSequences )
+				throws EngineException
+		{
+			pages = new ArrayList<IPageContent>( );
+			totalPageContent = null;
+			// the chunks are always laid out page by page, so the pages
+			// follow the pagination of the document
+			innerRender = new PageRangeRender( pageSequences ) {
+
+				protected boolean needPagedExecutor(
+						List<long[]> pageSequences )
+				{
+					return true;
+				}
+			};
+			try
+			{
+				render( );
+				return new RenderedPages( pages, totalPageContent,
+						outputPageCount );
+			}
+			finally
+			{
+				pages = null;
+				totalPageContent = null;
+			}
+		}
+
+		protected void startRender( )
+		{
+			// the render scripts are run by the render task
+		}
+
+		protected void closeRender( )
+		{
+		}
+
+		protected void closeMetrics( )
+		{
+			// the metrics of the worker are part of the render task
+			if ( metrics != null && parent.metrics != null )
+			{
+				parent.metrics.merge( metrics );
+			}
+			metrics = null;
+		}
+
+		protected IContentEmitter createContentEmitter( )
+				throws EngineException
+		{
+			// set up the pagination and the options of the emitter, the
+			// pages are output by the render task
+			super.createContentEmitter( );
+			final String outputFormat = format;
+			return new ContentEmitterAdapter( ) {
+
+				public String getOutputFormat( )
+				{
+					return outputFormat;
+				}
+			};
+		}
+
+		protected LayoutEngine createPageLayoutEngine(
+				HTMLLayoutContext htmlContext, IContentEmitter emitter )
+		{
+			return new LayoutEngine( htmlContext, emitter, renderOptions,
+					executionContext, reportDocument.getPageCount( ) ) {
+
+				public void outputPage( IPageContent page )
+				{
+					pages.add( page );
+				}
+
+				protected void resolveTotalPage( IContentEmitter emitter )
+				{
+					totalPageContent = getContext( ).getUnresolvedContent( );
+				}
+			};
+		}
+
+		ParallelPageRender createParallelPageRender(
+				List<long[]> pageSequences, LayoutEngine pageLayoutEngine )
+		{
+			return null;
+		}
+	}
+}
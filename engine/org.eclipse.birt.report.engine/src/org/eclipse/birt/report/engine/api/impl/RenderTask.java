@@ -87,6 +87,9 @@ public class RenderTask extends EngineTask implements IRenderTask
 	// the html layout engine
 	private IReportLayoutEngine layoutEngine = null;
 
+	// the pages laid out in parallel
+	private volatile ParallelPageRender parallelRender = null;
+
 	/**
 	 * @param engine
 	 *            the report engine
@@ -421,6 +424,87 @@ public class RenderTask extends EngineTask implements IRenderTask
 		{
 			layoutEngine.cancel( );
 		}
+		ParallelPageRender render = parallelRender;
+		if ( render != null )
+		{
+			render.cancel( );
+		}
+	}
+
+	/**
+	 * Creates the layout engine which lays out the pages of the paper size
+	 * pagination and outputs them to the emitter.
+	 * 
+	 * @param context
+	 *            the context of the html layout engine
+	 * @param emitter
+	 *            the content emitter
+	 * @return the page layout engine
+	 */
+	protected LayoutEngine createPageLayoutEngine( HTMLLayoutContext context,
+			IContentEmitter emitter )
+	{
+		return new LayoutEngine( context, emitter, renderOptions,
+				executionContext, getDocumentTotalPage( ) );
+	}
+
+	/**
+	 * Creates the render which lays out the pages in parallel, see
+	 * <code>IRenderOption.RENDER_THREAD_COUNT</code>. The pages are laid out
+	 * in parallel only if they keep the page numbers of the document, as the
+	 * page numbers generated by the layout depend on all the pages before.
+	 * 
+	 * @param pageSequences
+	 *            the logical pages to be rendered
+	 * @param pageLayoutEngine
+	 *            the page layout engine outputting the pages
+	 * @return the parallel render, null if the pages are rendered one by one
+	 */
+	ParallelPageRender createParallelPageRender(
+			List<long[]> pageSequences, LayoutEngine pageLayoutEngine )
+	{
+		if ( !pageLayoutEngine.getContext( ).isReserveDocumentPageNumbers( ) )
+		{
+			return null;
+		}
+		int threadCount = getIntegerOption( IRenderOption.RENDER_THREAD_COUNT,
+				1 );
+		int chunkSize = getIntegerOption( IRenderOption.RENDER_CHUNK_SIZE,
+				ParallelPageRender.DEFAULT_CHUNK_SIZE );
+		if ( threadCount <= 1 || chunkSize <= 0 )
+		{
+			return null;
+		}
+		List<List<long[]>> chunks = ParallelPageRender.splitPages(
+				pageSequences, chunkSize );
+		if ( chunks.size( ) <= 1 )
+		{
+			return null;
+		}
+		return new ParallelPageRender( engine, this, chunks, threadCount );
+	}
+
+	private int getIntegerOption( String name, int defaultValue )
+	{
+		Object value = renderOptions.getOption( name );
+		if ( value instanceof Number )
+		{
+			return ( (Number) value ).intValue( );
+		}
+		if ( value instanceof String )
+		{
+			try
+			{
+				return Integer.parseInt( ( (String) value ).trim( ) );
+			}
+			catch ( NumberFormatException ex )
+			{
+				log.log( Level.WARNING,
+						"Invalid value of the render option {0}: {1}", //$NON-NLS-1$
+						new Object[]{name, value} );
+			}
+		}
+		return defaultValue;
 	}
 
 	private interface InnerRender
@@ -601,13 +685,12 @@ public class RenderTask extends EngineTask implements IRenderTask
 			{
 				( (HTMLReportLayoutEngine) layoutEngine ).getContext( ).setFixedLayout( true );
 			}
+			LayoutEngine pdfEmitter = null;
 			if ( ExtensionManager.PAPER_SIZE_PAGINATION.equals( pagination ) )
 			{
-				LayoutEngine pdfEmitter = new LayoutEngine(
+				pdfEmitter = createPageLayoutEngine(
 						( (HTMLReportLayoutEngine) layoutEngine ).getContext( ),
-						emitter,
-						renderOptions, executionContext,
-						getDocumentTotalPage( ) );
+						emitter );
 				pdfEmitter.setPageHandler( layoutPageHandler );
 				
 				emitter = pdfEmitter;
@@ -646,7 +729,32 @@ public class RenderTask extends EngineTask implements IRenderTask
 			emitter.start( report );
 			layoutEngine.setTotalPageCount( getTotalPage( ) );
 
-			if ( ExtensionManager.PAPER_SIZE_PAGINATION.equals( pagination ) )
+			ParallelPageRender pageRender = null;
+			if ( pdfEmitter != null )
+			{
+				pageRender = createParallelPageRender( pageSequences,
+						pdfEmitter );
+			}
+
+			if ( pageRender != null )
+			{
+				// the pages are laid out by the workers and output here in
+				// the page order
+				parallelRender = pageRender;
+				try
+				{
+					if ( !executionContext.isCanceled( ) )
+					{
+						pageRender.render( pdfEmitter );
+					}
+				}
+				finally
+				{
+					parallelRender = null;
+					pageRender.close( );
+				}
+			}
+			else if ( ExtensionManager.PAPER_SIZE_PAGINATION.equals( pagination ) )
 			{
 				if ( !paged )
 				{
@@ -729,7 +837,14 @@ public class RenderTask extends EngineTask implements IRenderTask
 			{
 				layoutEngine.layout( executor, report, emitter, false );
 			}
-			outputPageCount = layoutEngine.getPageCount( );
+			if ( pageRender != null )
+			{
+				outputPageCount = pageRender.getPageCount( );
+			}
+			else
+			{
+				outputPageCount = layoutEngine.getPageCount( );
+			}
 
 			layoutEngine.close( );
 			layoutEngine = null;
@@ -0,0 +1,430 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.core.util.IOUtil;
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.i18n.MessageConstants;
+import org.eclipse.birt.report.engine.ir.EngineIRReader;
+import org.eclipse.birt.report.engine.ir.EngineIRWriter;
+import org.eclipse.birt.report.engine.ir.Report;
+import org.eclipse.birt.report.engine.parser.ReportParser;
+import org.eclipse.birt.report.model.api.IResourceLocator;
+import org.eclipse.birt.report.model.api.LibraryHandle;
+import org.eclipse.birt.report.model.api.ModuleOption;
+import org.eclipse.birt.report.model.api.ReportDesignHandle;
+import org.eclipse.birt.report.model.api.util.DocumentUtil;
+
+/**
+ * Compiles a report design into a binary file which is opened faster than the
+ * design, and opens the compiled designs.
+ *
+ * The compiled design contains the design with the library elements merged
+ * into it, as saved in the report documents, and the report IR built from it.
+ * Opening it parses neither the libraries nor builds the IR. It also records
+ * the modification time and the length of the design file and of the
+ * libraries, the design is compiled again once one of them changes, or the
+ * compiled design is written by another engine version. The files which don't
+ * exist any more are not checked, so the compiled designs can be deployed
+ * without their sources. The other resources, such as the style sheets and
+ * the message files, are not checked.
+ */
+public class ReportDesignCompiler
+{
+
+	protected static Logger logger = Logger.getLogger( ReportDesignCompiler.class
+			.getName( ) );
+
+	/**
+	 * the tag of the compiled design, "BIRTCRD" + 0
+	 */
+	static final long COMPILED_DESIGN_TAG = 0x4249525443524400L;
+
+	static final int COMPILED_DESIGN_VERSION_0 = 0;
+
+	static final int COMPILED_DESIGN_VERSION = COMPILED_DESIGN_VERSION_0;
+
+	protected ReportEngine engine;
+
+	protected ReportEngineHelper helper;
+
+	public ReportDesignCompiler( ReportEngine engine, ReportEngineHelper helper )
+	{
+		this.engine = engine;
+		this.helper = helper;
+	}
+
+	/**
+	 * Checks whether the file is a compiled design.
+	 *
+	 * @param file
+	 *            the file
+	 * @return true if the file starts with the tag of the compiled design
+	 */
+	public static boolean isCompiledDesign( File file )
+	{
+		if ( !file.isFile( ) || file.length( ) < IOUtil.LONG_LENGTH )
+		{
+			return false;
+		}
+		try
+		{
+			DataInputStream in = new DataInputStream( new FileInputStream( file ) );
+			try
+			{
+				return IOUtil.readLong( in ) == COMPILED_DESIGN_TAG;
+			}
+			finally
+			{
+				in.close( );
+			}
+		}
+		catch ( IOException ex )
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Compiles the design into a file. The file is replaced only once the
+	 * whole design is written.
+	 *
+	 * @param runnable
+	 *            the design to compile
+	 * @param compiledFile
+	 *            the compiled design file
+	 * @return the runnable of the compiled design, sharing the compiled IR
+	 * @throws EngineException
+	 *             if the design can't be compiled or written
+	 */
+	public ReportRunnable compile( ReportRunnable runnable, File compiledFile )
+			throws EngineException
+	{
+		ReportDesignHandle design = runnable.getReport( );
+
+		// get the time stamps before compiling, so a change during the
+		// compiling is detected by the next open
+		List<String> sources = new ArrayList<String>( );
+		File designFile = getFile( design.getFileName( ) );
+		if ( designFile != null && designFile.isFile( ) )
+		{
+			sources.add( designFile.getAbsolutePath( ) );
+			List libraries = design.getAllLibraries( );
+			for ( int i = 0; i < libraries.size( ); i++ )
+			{
+				File library = getFile( ( (LibraryHandle) libraries.get( i ) )
+						.getFileName( ) );
+				if ( library != null )
+				{
+					sources.add( library.getAbsolutePath( ) );
+				}
+			}
+		}
+		long[] lastModified = new long[sources.size( )];
+		long[] length = new long[sources.size( )];
+		for ( int i = 0; i < sources.size( ); i++ )
+		{
+			File source = new File( sources.get( i ) );
+			lastModified[i] = source.lastModified( );
+			length[i] = source.length( );
+		}
+
+		ReportDesignHandle newDesign;
+		byte[] designBytes;
+		byte[] reportBytes;
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream( );
+			newDesign = DocumentUtil.serialize( design, out );
+			designBytes = out.toByteArray( );
+
+			Report report = new ReportParser( ).parse( newDesign );
+			out = new ByteArrayOutputStream( );
+			new EngineIRWriter( ).write( out, report );
+			reportBytes = out.toByteArray( );
+		}
+		catch ( IOException ex )
+		{
+			throw new EngineException( MessageConstants.COMPILE_DESIGN_ERROR,
+					compiledFile.getPath( ), ex );
+		}
+
+		String reportName = runnable.getReportName( );
+		File tempFile = null;
+		try
+		{
+			File folder = compiledFile.getAbsoluteFile( ).getParentFile( );
+			if ( folder != null && !folder.exists( ) )
+			{
+				folder.mkdirs( );
+			}
+			tempFile = File.createTempFile( compiledFile.getName( ), ".tmp", //$NON-NLS-1$
+					folder );
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream( new FileOutputStream( tempFile ) ) );
+			try
+			{
+				IOUtil.writeLong( out, COMPILED_DESIGN_TAG );
+				IOUtil.writeInt( out, COMPILED_DESIGN_VERSION );
+				IOUtil.writeString( out, engine.getVersion( ) );
+				IOUtil.writeString( out, reportName );
+				IOUtil.writeBool( out, runnable.isPrepared( ) );
+				IOUtil.writeInt( out, sources.size( ) );
+				for ( int i = 0; i < sources.size( ); i++ )
+				{
+					IOUtil.writeString( out, sources.get( i ) );
+					IOUtil.writeLong( out, lastModified[i] );
+					IOUtil.writeLong( out, length[i] );
+				}
+				IOUtil.writeBytes( out, designBytes );
+				IOUtil.writeBytes( out, reportBytes );
+			}
+			finally
+			{
+				out.close( );
+			}
+			replaceFile( tempFile, compiledFile );
+			tempFile = null;
+		}
+		catch ( IOException ex )
+		{
+			throw new EngineException( MessageConstants.COMPILE_DESIGN_ERROR,
+					compiledFile.getPath( ), ex );
+		}
+		finally
+		{
+			if ( tempFile != null )
+			{
+				tempFile.delete( );
+			}
+		}
+
+		ReportRunnable newRunnable = new ReportRunnable( engine, newDesign );
+		newRunnable.setReportName( reportName );
+		newRunnable.setPrepared( runnable.isPrepared( ) );
+		newRunnable.setSharedReportIR( reportBytes );
+		return newRunnable;
+	}
+
+	/**
+	 * Opens a compiled design. The design is compiled again if the design
+	 * file or one of its libraries is changed since it is compiled.
+	 *
+	 * @param compiledFile
+	 *            the compiled design file
+	 * @param locator
+	 *            the resource locator, can be null
+	 * @return the runnable sharing the compiled IR
+	 * @throws EngineException
+	 *             if the compiled design is invalid, or the changed design
+	 *             can't be compiled again
+	 */
+	public ReportRunnable open( File compiledFile, IResourceLocator locator )
+			throws EngineException
+	{
+		DataInputStream in = null;
+		try
+		{
+			in = new DataInputStream( new BufferedInputStream(
+					new FileInputStream( compiledFile ) ) );
+			if ( IOUtil.readLong( in ) != COMPILED_DESIGN_TAG )
+			{
+				throw new EngineException(
+						MessageConstants.INVALID_COMPILED_DESIGN_EXCEPTION,
+						compiledFile.getPath( ) );
+			}
+			int version = IOUtil.readInt( in );
+			String engineVersion = IOUtil.readString( in );
+			String reportName = IOUtil.readString( in );
+			boolean prepared = IOUtil.readBool( in );
+			int count = IOUtil.readInt( in );
+			String designFile = null;
+			boolean modified = false;
+			for ( int i = 0; i < count; i++ )
+			{
+				File source = new File( IOUtil.readString( in ) );
+				long lastModified = IOUtil.readLong( in );
+				long length = IOUtil.readLong( in );
+				if ( i == 0 )
+				{
+					designFile = source.getPath( );
+				}
+				if ( source.exists( )
+						&& ( source.lastModified( ) != lastModified || source
+								.length( ) != length ) )
+				{
+					modified = true;
+				}
+			}
+
+			if ( version == COMPILED_DESIGN_VERSION
+					&& engine.getVersion( ).equals( engineVersion ) && !modified )
+			{
+				ReportRunnable runnable = readDesign( in, reportName, locator );
+				if ( runnable != null )
+				{
+					runnable.setPrepared( prepared );
+					return runnable;
+				}
+			}
+
+			// the compiled design is out of date
+			if ( designFile == null || !new File( designFile ).exists( ) )
+			{
+				throw new EngineException(
+						MessageConstants.INVALID_COMPILED_DESIGN_EXCEPTION,
+						compiledFile.getPath( ) );
+			}
+			in.close( );
+			in = null;
+			logger.log( Level.FINE, "compile the design {0} again", //$NON-NLS-1$
+					designFile );
+			ReportRunnable runnable = (ReportRunnable) helper.openReportDesign(
+					designFile, locator );
+			return compile( runnable, compiledFile );
+		}
+		catch ( IOException ex )
+		{
+			throw new EngineException(
+					MessageConstants.INVALID_COMPILED_DESIGN_EXCEPTION,
+					compiledFile.getPath( ), ex );
+		}
+		finally
+		{
+			if ( in != null )
+			{
+				try
+				{
+					in.close( );
+				}
+				catch ( IOException ex )
+				{
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the design and the IR of a compiled design.
+	 *
+	 * @return the runnable, null if the IR is written by another model version
+	 */
+	protected ReportRunnable readDesign( DataInputStream in, String reportName,
+			IResourceLocator locator ) throws IOException, EngineException
+	{
+		byte[] designBytes = IOUtil.readBytes( in );
+		byte[] reportBytes = IOUtil.readBytes( in );
+
+		HashMap options = new HashMap( );
+		if ( locator != null )
+		{
+			options.put( ModuleOption.RESOURCE_LOCATOR_KEY, locator );
+		}
+		// the design is opened by the original name, so the resources are
+		// located relative to the design file
+		ReportDesignHandle design = helper.getReportDesignHandle( reportName,
+				new ByteArrayInputStream( designBytes ), options );
+
+		// the IR is read once to check it is written by the same engine, the
+		// tasks read their own copies of it
+		try
+		{
+			new EngineIRReader( true ).read( new ByteArrayInputStream(
+					reportBytes ) );
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to load the compiled IR", ex ); //$NON-NLS-1$
+			design.close( );
+			return null;
+		}
+
+		ReportRunnable runnable = new ReportRunnable( engine, design );
+		runnable.setReportName( reportName );
+		runnable.setSharedReportIR( reportBytes );
+		return runnable;
+	}
+
+	private static void replaceFile( File source, File target )
+			throws IOException
+	{
+		if ( !source.renameTo( target ) )
+		{
+			// the target can't be replaced by renaming on some platforms
+			target.delete( );
+			if ( !source.renameTo( target ) )
+			{
+				throw new IOException( "Failed to rename " + source + " to " //$NON-NLS-1$ //$NON-NLS-2$
+						+ target );
+			}
+		}
+	}
+
+	/**
+	 * @param fileName
+	 *            the file name or the URL of a design or a library
+	 * @return the file, null if it isn't in the file system
+	 */
+	private static File getFile( String fileName )
+	{
+		if ( fileName == null )
+		{
+			return null;
+		}
+		URL url;
+		try
+		{
+			url = new URL( fileName );
+		}
+		catch ( MalformedURLException e )
+		{
+			// not a URL, just a file path
+			return new File( fileName );
+		}
+		if ( !"file".equals( url.getProtocol( ) ) ) //$NON-NLS-1$
+		{
+			return null;
+		}
+		try
+		{
+			return new File( url.toURI( ) );
+		}
+		catch ( URISyntaxException e )
+		{
+			// the URL is not encoded
+			return new File( url.getPath( ) );
+		}
+		catch ( IllegalArgumentException e )
+		{
+			return null;
+		}
+	}
+}
@@ -27,6 +27,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.birt.core.archive.IDocArchiveReader;
+import org.eclipse.birt.core.archive.compound.ArchiveFile;
 import org.eclipse.birt.core.archive.compound.IArchiveFile;
 import org.eclipse.birt.core.framework.URLClassLoader;
 import org.eclipse.birt.report.engine.api.DataExtractionFormatInfo;
@@ -38,6 +39,7 @@ import org.eclipse.birt.report.engine.api.IDataExtractionTask;
 import org.eclipse.birt.report.engine.api.IDatasetPreviewTask;
 import org.eclipse.birt.report.engine.api.IDocumentWriter;
 import org.eclipse.birt.report.engine.api.IEngineTask;
+import org.eclipse.birt.report.engine.api.IEngineTaskScheduler;
 import org.eclipse.birt.report.engine.api.IGetParameterDefinitionTask;
 import org.eclipse.birt.report.engine.api.IRenderTask;
 import org.eclipse.birt.report.engine.api.IReportDocument;
@@ -56,6 +58,7 @@ import org.eclipse.birt.report.engine.layout.pdf.font.FontMappingManagerFactory;
 import org.eclipse.birt.report.engine.util.SecurityUtil;
 import org.eclipse.birt.report.model.api.IResourceLocator;
 import org.eclipse.birt.report.model.api.ReportDesignHandle;
+import org.eclipse.birt.report.model.core.LibraryCache;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
@@ -115,6 +118,22 @@ public class ReportEngine implements IReportEngine
 	private Map<String, Object> beans;
 	
 	private LoggerSetting loggerSetting;
+
+	/**
+	 * the parsed libraries shared by the designs opened by the engine
+	 */
+	private LibraryCache libraryCache;
+
+	/**
+	 * the scheduler running the tasks asynchronously, created on demand
+	 */
+	private EngineTaskScheduler taskScheduler;
+
+	/**
+	 * the performance metrics of the engine and of its tasks
+	 */
+	private EngineMetrics metrics;
+
 	/**
 	 * Create a Report Engine using a configuration.
 	 * 
@@ -146,6 +165,17 @@ public class ReportEngine implements IReportEngine
 		}
 		
 		registerCustomFontConfig( );
+		configureArchiveCache( );
+		int libraryCacheSize = config.getLibraryCacheSize( );
+		if ( libraryCacheSize > 0 )
+		{
+			libraryCache = new LibraryCache( libraryCacheSize );
+		}
+		metrics = new EngineMetrics( this, config.isMetricsEnabled( ) );
+		if ( config.isMetricsEnabled( ) )
+		{
+			metrics.register( );
+		}
 	}
 
 	private void mergeConfigToAppContext( )
@@ -239,6 +269,31 @@ public class ReportEngine implements IReportEngine
 		}
 	}
 
+	/**
+	 * set the size of the block cache shared by the report documents.
+	 */
+	private void configureArchiveCache( )
+	{
+		if ( config != null )
+		{
+			long cacheSize = config.getArchiveCacheSize( );
+			if ( cacheSize >= 0 )
+			{
+				ArchiveFile.setSharedBlockCacheSize( cacheSize );
+			}
+		}
+	}
+
+	/**
+	 * get the cache of the parsed libraries shared by the designs.
+	 * 
+	 * @return the library cache, null if the libraries are not cached.
+	 */
+	public LibraryCache getLibraryCache( )
+	{
+		return libraryCache;
+	}
+
 	/**
 	 * get the root scope used by the engine
 	 * 
@@ -459,6 +514,15 @@ public class ReportEngine implements IReportEngine
 	public void destroy( )
 	{
 		logger.fine( "ReportEngine.destroy" );
+		synchronized ( this )
+		{
+			if ( taskScheduler != null )
+			{
+				taskScheduler.shutdown( );
+				taskScheduler = null;
+			}
+		}
+		metrics.unregister( );
 		rootScope = null;
 		helper = null;
 		synchronized ( openedDocuments )
@@ -583,6 +647,29 @@ public class ReportEngine implements IReportEngine
 		destroy();
 	}
 
+	public IReportRunnable compileReportDesign( IReportRunnable runnable,
+			String compiledFileName ) throws EngineException
+	{
+		logger.log( Level.FINE,
+				"ReportEngine.compileReportDesign: design={0}, file={1} ",
+				new Object[]{runnable.getReportName( ), compiledFileName} );
+		return helper.compileReportDesign( runnable, compiledFileName );
+	}
+
+	public synchronized IEngineTaskScheduler getTaskScheduler( )
+	{
+		if ( taskScheduler == null )
+		{
+			taskScheduler = new EngineTaskScheduler( config );
+		}
+		return taskScheduler;
+	}
+
+	public EngineMetrics getMetrics( )
+	{
+		return metrics;
+	}
+
 	public IReportDocument openReportDocument( String systemId,
 			String fileName ) throws EngineException
 	{
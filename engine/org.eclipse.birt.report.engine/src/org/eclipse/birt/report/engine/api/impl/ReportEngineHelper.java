@@ -114,6 +114,11 @@ public class ReportEngineHelper
 					MessageConstants.DESIGN_FILE_NOT_FOUND_EXCEPTION,
 					designName );
 		}
+		if ( ReportDesignCompiler.isCompiledDesign( file ) )
+		{
+			return new ReportDesignCompiler( engine, this ).open( file,
+					locator );
+		}
 
 		try
 		{
@@ -140,6 +145,30 @@ public class ReportEngineHelper
 		}
 	}
 
+	/**
+	 * compiles a report design into a file, which is opened by
+	 * <code>openReportDesign</code> faster than the design.
+	 * 
+	 * @param runnable
+	 *            the report design runnable
+	 * @param compiledFileName
+	 *            the full path of the compiled design file
+	 * @return a runnable sharing the compiled report IR
+	 * @throws EngineException
+	 *             throwed when the design can't be compiled or written
+	 */
+	public IReportRunnable compileReportDesign( IReportRunnable runnable,
+			String compiledFileName ) throws EngineException
+	{
+		if ( !( runnable instanceof ReportRunnable ) )
+		{
+			throw new EngineException( MessageConstants.COMPILE_DESIGN_ERROR,
+					compiledFileName );
+		}
+		return new ReportDesignCompiler( engine, this ).compile(
+				(ReportRunnable) runnable, new File( compiledFileName ) );
+	}
+
 	/**
 	 * opens a report design stream and creates a report design runnable. From
 	 * the ReportRunnable object, embedded images and parameter definitions can
@@ -202,7 +231,8 @@ public class ReportEngineHelper
 	 * <li> resourceLocator
 	 * <li> resourceFolder
 	 * If the options contains no property, copy the property from the
-	 * engine config.
+	 * engine config. The library cache of the engine and the parallel
+	 * library loading setting are passed in the same way.
 	 * 
 	 * Disable Semantic Check as default unless PARSER_SEMANTIC_CHECK_KEY is specified
 	 *  
@@ -231,6 +261,18 @@ public class ReportEngineHelper
 									resourcePath );
 				}
 			}
+			if ( options.get( ModuleOption.PARALLEL_LIBRARY_LOADING_KEY ) == null
+					&& config.isParallelLibraryLoading( ) )
+			{
+				options.put( ModuleOption.PARALLEL_LIBRARY_LOADING_KEY,
+						Boolean.TRUE );
+			}
+		}
+		if ( options.get( ModuleOption.LIBRARY_CACHE_KEY ) == null
+				&& engine.getLibraryCache( ) != null )
+		{
+			options.put( ModuleOption.LIBRARY_CACHE_KEY, engine
+					.getLibraryCache( ) );
 		}
 		Object semanticCheck = options
 				.get( ModuleOption.PARSER_SEMANTIC_CHECK_KEY );
@@ -251,8 +293,14 @@ public class ReportEngineHelper
 				options = new HashMap( );
 			}
 			intializeModuleOptions(options);
+			long start = System.nanoTime( );
 			ReportParser parser = new ReportParser( options );
 			designHandle = parser.getDesignHandle( designName, designStream );
+			EngineMetrics metrics = engine.getMetrics( );
+			if ( metrics.isEnabled( ) )
+			{
+				metrics.addDesignOpenTime( System.nanoTime( ) - start );
+			}
 		}
 		catch ( DesignFileException e )
 		{
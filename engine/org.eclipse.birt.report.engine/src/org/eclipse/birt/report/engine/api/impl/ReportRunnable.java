@@ -8,17 +8,28 @@
 
 package org.eclipse.birt.report.engine.api.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.eclipse.birt.core.script.ICompiledScript;
 import org.eclipse.birt.report.engine.api.IReportEngine;
 import org.eclipse.birt.report.engine.api.IReportRunnable;
 import org.eclipse.birt.report.engine.api.script.element.IReportDesign;
+import org.eclipse.birt.report.engine.ir.EngineIRReader;
+import org.eclipse.birt.report.engine.ir.EngineIRWriter;
+import org.eclipse.birt.report.engine.ir.Report;
+import org.eclipse.birt.report.engine.parser.ReportParser;
 import org.eclipse.birt.report.engine.script.internal.element.ReportDesign;
 import org.eclipse.birt.report.model.api.DesignElementHandle;
 import org.eclipse.birt.report.model.api.ModuleHandle;
 import org.eclipse.birt.report.model.api.ReportDesignHandle;
+import org.eclipse.birt.report.model.api.activity.ActivityStackEvent;
+import org.eclipse.birt.report.model.api.activity.ActivityStackListener;
 
 /**
  * Engine implementation of IReportRunnable interface
@@ -26,6 +37,9 @@ import org.eclipse.birt.report.model.api.ReportDesignHandle;
 public class ReportRunnable extends DesignRunnable implements IReportRunnable
 {
 
+	protected static Logger logger = Logger.getLogger( ReportRunnable.class
+			.getName( ) );
+
 	/**
 	 * report file name
 	 */
@@ -35,6 +49,18 @@ public class ReportRunnable extends DesignRunnable implements IReportRunnable
 
 	protected Hashtable<String, Map<String, ICompiledScript>> cachedScripts = new Hashtable<String, Map<String, ICompiledScript>>( );
 
+	/**
+	 * the report IR shared by the tasks running this design, serialized by
+	 * <code>EngineIRWriter</code>. It is dropped once the design is changed.
+	 */
+	protected byte[] sharedReportIR;
+
+	/**
+	 * the listener of the design changes, registered once the report IR is
+	 * shared.
+	 */
+	protected ActivityStackListener designListener;
+
 	public void setPrepared( boolean prepared )
 	{
 		this.prepared = prepared;
@@ -116,9 +142,107 @@ public class ReportRunnable extends DesignRunnable implements IReportRunnable
 			throw new IllegalArgumentException(
 					"the argument must be a instanceof ReportDesignHandle" );
 		}
+		synchronized ( this )
+		{
+			removeDesignListener( );
+			sharedReportIR = null;
+		}
 		this.designHandle = handle;
 	}
 
+	/**
+	 * Creates the report IR of a task running this design. The design is
+	 * parsed on the first call, and parsed again once the design is changed.
+	 * The parsed IR is kept serialized, and each task reads its own copy of
+	 * it, as the task rewrites the expressions of the report items when it
+	 * builds the queries.
+	 * 
+	 * @return the report IR linked to the design of this runnable
+	 */
+	public Report createReport( )
+	{
+		byte[] reportIR;
+		synchronized ( this )
+		{
+			if ( sharedReportIR == null )
+			{
+				addDesignListener( );
+				Report report = new ReportParser( )
+						.parse( (ReportDesignHandle) designHandle );
+				try
+				{
+					ByteArrayOutputStream out = new ByteArrayOutputStream( );
+					new EngineIRWriter( ).write( out, report );
+					sharedReportIR = out.toByteArray( );
+				}
+				catch ( IOException ex )
+				{
+					logger.log( Level.FINE, "Failed to write the report IR", ex ); //$NON-NLS-1$
+				}
+				// the parsed report is not used by any task yet
+				return report;
+			}
+			reportIR = sharedReportIR;
+		}
+		try
+		{
+			EngineIRReader reader = new EngineIRReader( );
+			Report report = reader.read( new ByteArrayInputStream( reportIR ) );
+			report.setVersion( ReportDocumentConstants.BIRT_ENGINE_VERSION );
+			reader.link( report, (ReportDesignHandle) designHandle );
+			return report;
+		}
+		catch ( IOException ex )
+		{
+			logger.log( Level.FINE, "Failed to read the report IR", ex ); //$NON-NLS-1$
+			return new ReportParser( ).parse( (ReportDesignHandle) designHandle );
+		}
+	}
+
+	/**
+	 * Sets the report IR shared by the tasks running this design, which is
+	 * built from the design ahead, such as the one of a compiled design. It
+	 * is dropped once the design is changed as the parsed one.
+	 * 
+	 * @param reportIR
+	 *            the report IR of the design serialized by
+	 *            <code>EngineIRWriter</code>
+	 */
+	public synchronized void setSharedReportIR( byte[] reportIR )
+	{
+		addDesignListener( );
+		sharedReportIR = reportIR;
+	}
+
+	private void addDesignListener( )
+	{
+		if ( designListener == null )
+		{
+			designListener = new ActivityStackListener( ) {
+
+				public void stackChanged( ActivityStackEvent event )
+				{
+					synchronized ( ReportRunnable.this )
+					{
+						sharedReportIR = null;
+					}
+				}
+			};
+			( (ReportDesignHandle) designHandle ).getCommandStack( )
+					.addListener( designListener );
+		}
+	}
+
+	private void removeDesignListener( )
+	{
+		if ( designListener != null )
+		{
+			( (ReportDesignHandle) designHandle ).getCommandStack( )
+					.removeListener( designListener );
+			designListener = null;
+		}
+	}
+
 	/**
 	 * Returns the report design
 	 * 
@@ -338,6 +338,17 @@ public class RunTask extends AbstractRunTask implements IRunTask
 			{
 				progressMonitor.onProgress( IProgressMonitor.END_TASK, TASK_RUN );
 			}
+			if ( metrics != null )
+			{
+				metrics.addCount( TaskMetrics.PAGES, executionContext
+						.getTotalPage( ) );
+				if ( archiveWriter instanceof ArchiveWriter )
+				{
+					metrics.addCount( TaskMetrics.DOCUMENT_SIZE,
+							( (ArchiveWriter) archiveWriter ).getArchive( )
+									.getLength( ) );
+				}
+			}
 			closeReportDocument();
 		}
 	}
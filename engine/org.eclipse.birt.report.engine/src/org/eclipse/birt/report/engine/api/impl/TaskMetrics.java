@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.birt.report.engine.api.IEngineTaskMetrics;
+
+/**
+ * The metrics recorded by an engine task. The task, its execution context and
+ * its data engine hold the metrics only if the metrics of the engine are
+ * enabled, so the instrumented code checks for null and costs nothing when
+ * they are disabled.
+ * <p>
+ * The metrics are updated atomically as the pages of a task may be laid out
+ * by several threads.
+ */
+
+public class TaskMetrics implements IEngineTaskMetrics
+{
+
+	public static final int TASK = 0;
+	public static final int DESIGN_OPEN = 1;
+	public static final int QUERY_PREPARE = 2;
+	public static final int QUERY_EXECUTE = 3;
+	public static final int ROW_FETCH = 4;
+	public static final int EXPRESSION = 5;
+	public static final int EMITTER = 6;
+	public static final int LAYOUT = 7;
+
+	static final String[] TIMERS = new String[]{TIME_TASK, TIME_DESIGN_OPEN,
+			TIME_QUERY_PREPARE, TIME_QUERY_EXECUTE, TIME_ROW_FETCH,
+			TIME_EXPRESSION, TIME_EMITTER, TIME_LAYOUT};
+
+	public static final int PAGES = 0;
+	public static final int ROWS = 1;
+	public static final int QUERIES = 2;
+	public static final int EXPRESSIONS = 3;
+	public static final int BYTES_WRITTEN = 4;
+	public static final int DOCUMENT_SIZE = 5;
+
+	static final String[] COUNTERS = new String[]{COUNT_PAGES, COUNT_ROWS,
+			COUNT_QUERIES, COUNT_EXPRESSIONS, COUNT_BYTES_WRITTEN,
+			COUNT_DOCUMENT_SIZE};
+
+	private final int taskID;
+
+	private final int taskType;
+
+	private String reportName;
+
+	private final AtomicLongArray times = new AtomicLongArray( TIMERS.length );
+
+	private final AtomicLongArray counts = new AtomicLongArray(
+			COUNTERS.length );
+
+	private final AtomicLong peakMemory = new AtomicLong( );
+
+	// the start of the running task, 0 if it isn't running
+	private final AtomicLong taskStart = new AtomicLong( );
+
+	private final ConcurrentMap<String, DataSetMetrics> dataSets = new ConcurrentHashMap<String, DataSetMetrics>( );
+
+	TaskMetrics( int taskID, int taskType )
+	{
+		this.taskID = taskID;
+		this.taskType = taskType;
+	}
+
+	public int getTaskID( )
+	{
+		return taskID;
+	}
+
+	public int getTaskType( )
+	{
+		return taskType;
+	}
+
+	public String getReportName( )
+	{
+		return reportName;
+	}
+
+	void setReportName( String reportName )
+	{
+		this.reportName = reportName;
+	}
+
+	/**
+	 * Adds a time to a timer.
+	 *
+	 * @param timer
+	 *            the timer, one of the timer constants
+	 * @param nanos
+	 *            the time in nano seconds
+	 */
+	public void addTime( int timer, long nanos )
+	{
+		times.addAndGet( timer, nanos );
+	}
+
+	/**
+	 * Adds a value to a counter.
+	 *
+	 * @param counter
+	 *            the counter, one of the counter constants
+	 * @param count
+	 *            the value to add
+	 */
+	public void addCount( int counter, long count )
+	{
+		counts.addAndGet( counter, count );
+	}
+
+	void startTask( )
+	{
+		taskStart.compareAndSet( 0, System.nanoTime( ) );
+	}
+
+	void endTask( )
+	{
+		// the task may be stopped by cancel() in another thread
+		long start = taskStart.getAndSet( 0 );
+		if ( start != 0 )
+		{
+			times.addAndGet( TASK, System.nanoTime( ) - start );
+		}
+		sampleMemory( );
+	}
+
+	/**
+	 * Records the heap currently used as the peak if it is higher.
+	 */
+	public void sampleMemory( )
+	{
+		Runtime runtime = Runtime.getRuntime( );
+		updatePeakMemory( runtime.totalMemory( ) - runtime.freeMemory( ) );
+	}
+
+	private void updatePeakMemory( long memory )
+	{
+		long peak = peakMemory.get( );
+		while ( memory > peak && !peakMemory.compareAndSet( peak, memory ) )
+		{
+			peak = peakMemory.get( );
+		}
+	}
+
+	/**
+	 * Returns the metrics of a data set of the task.
+	 *
+	 * @param name
+	 *            the name of the data set, may be null
+	 * @return the metrics of the data set
+	 */
+	public DataSetMetrics getDataSetMetrics( String name )
+	{
+		if ( name == null )
+		{
+			name = ""; //$NON-NLS-1$
+		}
+		DataSetMetrics metrics = dataSets.get( name );
+		if ( metrics == null )
+		{
+			metrics = new DataSetMetrics( this );
+			DataSetMetrics existing = dataSets.putIfAbsent( name, metrics );
+			if ( existing != null )
+			{
+				metrics = existing;
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * Adds the metrics recorded by a worker of the task, except the time of
+	 * the worker task.
+	 */
+	void merge( TaskMetrics metrics )
+	{
+		for ( int i = 0; i < TIMERS.length; i++ )
+		{
+			if ( i != TASK )
+			{
+				times.addAndGet( i, metrics.times.get( i ) );
+			}
+		}
+		for ( int i = 0; i < COUNTERS.length; i++ )
+		{
+			counts.addAndGet( i, metrics.counts.get( i ) );
+		}
+		updatePeakMemory( metrics.peakMemory.get( ) );
+		for ( Map.Entry<String, DataSetMetrics> entry : metrics.dataSets
+				.entrySet( ) )
+		{
+			DataSetMetrics dataSet = entry.getValue( );
+			DataSetMetrics target = getDataSetMetrics( entry.getKey( ) );
+			for ( int i = 0; i < TIMERS.length; i++ )
+			{
+				target.times.addAndGet( i, dataSet.times.get( i ) );
+			}
+			for ( int i = 0; i < COUNTERS.length; i++ )
+			{
+				target.counts.addAndGet( i, dataSet.counts.get( i ) );
+			}
+		}
+	}
+
+	/**
+	 * Sets the layout time as the time of the task not recorded by the other
+	 * timers.
+	 */
+	void finish( )
+	{
+		long other = 0;
+		for ( int i = 0; i < TIMERS.length; i++ )
+		{
+			if ( i != TASK && i != LAYOUT )
+			{
+				other += times.get( i );
+			}
+		}
+		times.set( LAYOUT, Math.max( 0, times.get( TASK ) - other ) );
+	}
+
+	long getTime( int timer )
+	{
+		return times.get( timer );
+	}
+
+	long getCount( int counter )
+	{
+		return counts.get( counter );
+	}
+
+	public long getTime( String timer )
+	{
+		int index = indexOf( TIMERS, timer );
+		return index == -1 ? 0 : times.get( index );
+	}
+
+	public long getCount( String counter )
+	{
+		int index = indexOf( COUNTERS, counter );
+		return index == -1 ? 0 : counts.get( index );
+	}
+
+	public long getPeakMemory( )
+	{
+		return peakMemory.get( );
+	}
+
+	public Set<String> getDataSets( )
+	{
+		return Collections.unmodifiableSet( dataSets.keySet( ) );
+	}
+
+	public long getDataSetTime( String dataSet, String timer )
+	{
+		DataSetMetrics metrics = dataSets.get( dataSet );
+		int index = indexOf( TIMERS, timer );
+		return metrics == null || index == -1 ? 0 : metrics.times.get( index );
+	}
+
+	public long getDataSetCount( String dataSet, String counter )
+	{
+		DataSetMetrics metrics = dataSets.get( dataSet );
+		int index = indexOf( COUNTERS, counter );
+		return metrics == null || index == -1 ? 0 : metrics.counts
+				.get( index );
+	}
+
+	static int indexOf( String[] names, String name )
+	{
+		for ( int i = 0; i < names.length; i++ )
+		{
+			if ( names[i].equals( name ) )
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The metrics of a data set, they are added to the metrics of the task as
+	 * well.
+	 */
+
+	public static class DataSetMetrics
+	{
+
+		private final TaskMetrics task;
+
+		private final AtomicLongArray times = new AtomicLongArray(
+				TIMERS.length );
+
+		private final AtomicLongArray counts = new AtomicLongArray(
+				COUNTERS.length );
+
+		DataSetMetrics( TaskMetrics task )
+		{
+			this.task = task;
+		}
+
+		public void addPrepareTime( long nanos )
+		{
+			times.addAndGet( QUERY_PREPARE, nanos );
+			task.addTime( QUERY_PREPARE, nanos );
+		}
+
+		public void addExecuteTime( long nanos )
+		{
+			times.addAndGet( QUERY_EXECUTE, nanos );
+			counts.incrementAndGet( QUERIES );
+			task.addTime( QUERY_EXECUTE, nanos );
+			task.addCount( QUERIES, 1 );
+		}
+
+		/**
+		 * Records a fetch of the result set.
+		 *
+		 * @param nanos
+		 *            the time of the fetch
+		 * @param fetched
+		 *            whether a row is fetched
+		 */
+		public void addFetchTime( long nanos, boolean fetched )
+		{
+			times.addAndGet( ROW_FETCH, nanos );
+			task.addTime( ROW_FETCH, nanos );
+			if ( fetched )
+			{
+				counts.incrementAndGet( ROWS );
+				task.addCount( ROWS, 1 );
+			}
+		}
+	}
+}
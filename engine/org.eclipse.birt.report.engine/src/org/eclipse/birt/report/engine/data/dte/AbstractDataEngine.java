@@ -35,6 +35,7 @@ import org.eclipse.birt.report.engine.adapter.ModelDteApiAdapter;
 import org.eclipse.birt.report.engine.api.EngineConfig;
 import org.eclipse.birt.report.engine.api.EngineException;
 import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.impl.TaskMetrics;
 import org.eclipse.birt.report.engine.data.DataEngineFactory;
 import org.eclipse.birt.report.engine.data.IDataEngine;
 import org.eclipse.birt.report.engine.data.optimize.QueryCache;
@@ -197,10 +198,55 @@ public abstract class AbstractDataEngine implements IDataEngine
 	{
 
 		this.dteSession.registerQueries( new IDataQueryDefinition[]{query} );
+		long start = System.nanoTime( );
 		IBasePreparedQuery preparedQuery = dteSession.prepare( query );
+		addPrepareTime( query, System.nanoTime( ) - start );
 		queryMap.put( query, preparedQuery );
 	}
 
+	/**
+	 * Returns the metrics of the data set of a query.
+	 * 
+	 * @return the metrics, or null if the metrics of the task are disabled
+	 */
+	private TaskMetrics.DataSetMetrics getDataSetMetrics(
+			IDataQueryDefinition query )
+	{
+		TaskMetrics metrics = context.getMetrics( );
+		if ( metrics == null )
+		{
+			return null;
+		}
+		String name = null;
+		if ( query instanceof IQueryDefinition )
+		{
+			name = ( (IQueryDefinition) query ).getDataSetName( );
+		}
+		else if ( query instanceof ICubeQueryDefinition )
+		{
+			name = ( (ICubeQueryDefinition) query ).getName( );
+		}
+		return metrics.getDataSetMetrics( name );
+	}
+
+	private void addPrepareTime( IDataQueryDefinition query, long nanos )
+	{
+		TaskMetrics.DataSetMetrics metrics = getDataSetMetrics( query );
+		if ( metrics != null )
+		{
+			metrics.addPrepareTime( nanos );
+		}
+	}
+
+	private void addExecuteTime( IDataQueryDefinition query, long nanos )
+	{
+		TaskMetrics.DataSetMetrics metrics = getDataSetMetrics( query );
+		if ( metrics != null )
+		{
+			metrics.addExecuteTime( nanos );
+		}
+	}
+
 	/**
 	 * 
 	 * @param report
@@ -234,8 +280,10 @@ public abstract class AbstractDataEngine implements IDataEngine
 		{
 			try
 			{
+				long start = System.nanoTime( );
 				IBasePreparedQuery preparedQuery = dteSession.prepare(
 						queryArray[index], appContext );
+				addPrepareTime( queryArray[index], System.nanoTime( ) - start );
 				queryMap.put( queryArray[index], preparedQuery );
 			}
 			catch ( BirtException e )
@@ -283,13 +331,29 @@ public abstract class AbstractDataEngine implements IDataEngine
 		}
 		else if ( query instanceof IQueryDefinition )
 		{
-			return doExecuteQuery( parent, (IQueryDefinition) query,
-					queryOwner, useCache );
+			long start = System.nanoTime( );
+			try
+			{
+				return doExecuteQuery( parent, (IQueryDefinition) query,
+						queryOwner, useCache );
+			}
+			finally
+			{
+				addExecuteTime( query, System.nanoTime( ) - start );
+			}
 		}
 		else if ( query instanceof ICubeQueryDefinition )
 		{
-			return doExecuteCube( parent, (ICubeQueryDefinition) query,
-					queryOwner, useCache );
+			long start = System.nanoTime( );
+			try
+			{
+				return doExecuteCube( parent, (ICubeQueryDefinition) query,
+						queryOwner, useCache );
+			}
+			finally
+			{
+				addExecuteTime( query, System.nanoTime( ) - start );
+			}
 		}
 		else if ( query instanceof ISubCubeQueryDefinition )
 		{
@@ -12,11 +12,13 @@
 package org.eclipse.birt.report.engine.data.dte;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.logging.Level;
 
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.core.script.ScriptContext;
+import org.eclipse.birt.data.engine.api.DataEngine;
 import org.eclipse.birt.data.engine.api.DataEngineContext;
 import org.eclipse.birt.data.engine.api.IBasePreparedQuery;
 import org.eclipse.birt.data.engine.api.IBaseQueryResults;
@@ -65,6 +67,13 @@ public class DteDataEngine extends AbstractDataEngine
 	 */
 	protected HashMap<String, String> rsetRelations2 = new HashMap<String, String>( );
 
+	/**
+	 * the results of the top level queries executed ahead, which are not
+	 * used by the report items yet. It is created when the first query is
+	 * executed.
+	 */
+	private HashMap<IQueryDefinition, IBaseQueryResults> prefetchedResults;
+
 	//FIXME: code review. throw out all exceptions in data engines. And throw exception not return null.	
 
 	/**
@@ -140,6 +149,16 @@ public class DteDataEngine extends AbstractDataEngine
 		{
 			dteResults = getCachedQueryResult( query, parentResultSet );
 		}
+		if ( dteResults == null && parentResultSet == null )
+		{
+			dteResults = getPrefetchedResults( query );
+			if ( dteResults != null )
+			{
+				// the items reusing the results of the query find them in
+				// the cache
+				queryCache.putCachedQuery( query, dteResults.getID( ) );
+			}
+		}
 		if ( dteResults == null )
 		{
 			if ( needCache )
@@ -186,6 +205,119 @@ public class DteDataEngine extends AbstractDataEngine
 		return resultSet;
 	}
 
+	/**
+	 * Returns the results of a top level query executed ahead. All the top
+	 * level queries of the report are executed ahead when the first query is
+	 * executed, if it is enabled by DataEngine.PARALLEL_QUERY_EXECUTION.
+	 * 
+	 * @param query
+	 * @return the results of the query, null if it isn't executed ahead or
+	 *         the results have been used.
+	 */
+	private IBaseQueryResults getPrefetchedResults( IQueryDefinition query )
+	{
+		if ( prefetchedResults == null )
+		{
+			prefetchedResults = new HashMap<IQueryDefinition, IBaseQueryResults>( );
+			if ( isParallelQueryExecution( ) )
+			{
+				prefetchQueries( );
+			}
+		}
+		return prefetchedResults.remove( query );
+	}
+
+	private boolean isParallelQueryExecution( )
+	{
+		Map appContext = context.getAppContext( );
+		if ( appContext == null )
+		{
+			return false;
+		}
+		Object value = appContext.get( DataEngine.PARALLEL_QUERY_EXECUTION );
+		if ( value == null )
+		{
+			return false;
+		}
+		try
+		{
+			return Integer.parseInt( value.toString( ).trim( ) ) > 0;
+		}
+		catch ( NumberFormatException ex )
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Executes the top level queries of the report. The data set scripts and
+	 * parameter bindings are evaluated here, in the report thread, while the
+	 * data engine executes the ODA statements in background threads. The
+	 * report items then fetch the rows of the results in their own order.
+	 */
+	private void prefetchQueries( )
+	{
+		ScriptContext scriptContext = context.getScriptContext( );
+		Iterator iter = queryMap.entrySet( ).iterator( );
+		while ( iter.hasNext( ) )
+		{
+			Map.Entry entry = (Map.Entry) iter.next( );
+			if ( !( entry.getKey( ) instanceof IQueryDefinition )
+					|| !( entry.getValue( ) instanceof IPreparedQuery ) )
+			{
+				continue;
+			}
+			IQueryDefinition query = (IQueryDefinition) entry.getKey( );
+			// the nested queries depend on the rows of their parents
+			if ( query.getParentQuery( ) != null
+					|| query.getDataSetName( ) == null
+					|| query.getQueryResultsID( ) != null )
+			{
+				continue;
+			}
+			try
+			{
+				if ( needCache )
+				{
+					( (BaseQueryDefinition) query ).setCacheQueryResults( true );
+				}
+				prefetchedResults.put( query, dteSession.execute(
+						(IPreparedQuery) entry.getValue( ), null,
+						scriptContext ) );
+			}
+			catch ( BirtException ex )
+			{
+				// the query is executed again by its report item, which
+				// reports the error
+				logger.log( Level.FINE, ex.getMessage( ), ex );
+			}
+		}
+	}
+
+	/*
+	 * @see org.eclipse.birt.report.engine.data.dte.AbstractDataEngine#shutdown()
+	 */
+	public void shutdown( )
+	{
+		if ( prefetchedResults != null )
+		{
+			// the queries not used by the report
+			for ( IBaseQueryResults results : prefetchedResults.values( ) )
+			{
+				try
+				{
+					results.close( );
+				}
+				catch ( BirtException ex )
+				{
+					logger.log( Level.FINE, ex.getMessage( ), ex );
+				}
+			}
+			prefetchedResults.clear( );
+		}
+		super.shutdown( );
+	}
+
 	protected IBaseResultSet doExecuteCube( IBaseResultSet parentResultSet,
 			ICubeQueryDefinition query, Object queryOwner, boolean useCache ) throws BirtException
 	{
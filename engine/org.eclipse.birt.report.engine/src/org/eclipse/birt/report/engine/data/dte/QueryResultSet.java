@@ -30,6 +30,7 @@ import org.eclipse.birt.data.engine.api.IResultMetaData;
 import org.eclipse.birt.data.engine.api.IScriptExpression;
 import org.eclipse.birt.data.engine.api.ISubqueryDefinition;
 import org.eclipse.birt.report.engine.api.DataSetID;
+import org.eclipse.birt.report.engine.api.impl.TaskMetrics;
 import org.eclipse.birt.report.engine.data.IDataEngine;
 import org.eclipse.birt.report.engine.executor.ExecutionContext;
 import org.eclipse.birt.report.engine.extension.IBaseResultSet;
@@ -73,6 +74,11 @@ public class QueryResultSet implements IQueryResultSet
 	 */
 	private String queryResultsID;
 
+	/**
+	 * the metrics of the data set, null if the metrics are disabled.
+	 */
+	private TaskMetrics.DataSetMetrics metrics;
+
 	/**
 	 * 
 	 */
@@ -98,6 +104,7 @@ public class QueryResultSet implements IQueryResultSet
 		this.rs = rsets.getResultIterator( );
 		this.queryResults = rsets;
 		this.queryResultsID = rsets.getID( );
+		this.metrics = getDataSetMetrics( context, queryDefn );
 		initializeRowIdOfGroups( getGroupCount( ) );
 	}
 
@@ -115,6 +122,7 @@ public class QueryResultSet implements IQueryResultSet
 		this.rs = rsets.getResultIterator( );
 		this.queryResults = rsets;
 		this.queryResultsID = rsets.getID( );
+		this.metrics = getDataSetMetrics( context, queryDefn );
 		initializeRowIdOfGroups( getGroupCount( ) );
 	}
 
@@ -146,8 +154,20 @@ public class QueryResultSet implements IQueryResultSet
 		sb.append( "{" ).append( parent.getQueryResultsID( ) ).append( "}." )
 				.append( rowid ).append( "." ).append( queryDefn.getName( ) );
 		this.queryResultsID = sb.toString( );
+		this.metrics = parent.metrics;
 		initializeRowIdOfGroups( queryDefn.getGroups( ).size( ) );
 	}
+
+	private static TaskMetrics.DataSetMetrics getDataSetMetrics(
+			ExecutionContext context, IQueryDefinition queryDefn )
+	{
+		TaskMetrics metrics = context.getMetrics( );
+		if ( metrics == null )
+		{
+			return null;
+		}
+		return metrics.getDataSetMetrics( queryDefn.getDataSetName( ) );
+	}
 	
 	public String getQueryResultsID( )
 	{
@@ -188,7 +208,16 @@ public class QueryResultSet implements IQueryResultSet
 	public boolean next( ) throws BirtException
 	{
 		boolean flag;
-		flag = rs == null ? false : rs.next( );
+		if ( metrics == null )
+		{
+			flag = rs == null ? false : rs.next( );
+		}
+		else
+		{
+			long start = System.nanoTime( );
+			flag = rs == null ? false : rs.next( );
+			metrics.addFetchTime( System.nanoTime( ) - start, flag );
+		}
 		if ( flag )
 		{
 			rowId++;
@@ -35,6 +35,7 @@ import org.eclipse.birt.report.engine.api.IHTMLActionHandler;
 import org.eclipse.birt.report.engine.api.IReportRunnable;
 import org.eclipse.birt.report.engine.api.RenderOption;
 import org.eclipse.birt.report.engine.api.impl.Action;
+import org.eclipse.birt.report.engine.api.impl.TaskMetrics;
 import org.eclipse.birt.report.engine.api.script.IReportContext;
 import org.eclipse.birt.report.engine.content.IHyperlinkAction;
 import org.eclipse.birt.report.engine.content.IImageContent;
@@ -113,9 +114,51 @@ public class EmitterUtil
 				}
 			}
 		}
+		if ( services instanceof EngineEmitterServices )
+		{
+			TaskMetrics metrics = ( (EngineEmitterServices) services )
+					.getTaskMetrics( );
+			if ( metrics != null )
+			{
+				out = new CountingOutputStream( out, metrics );
+			}
+		}
 		return out;
 	}
 
+	/**
+	 * Counts the bytes written by an emitter into the metrics of the task.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream
+	{
+
+		private TaskMetrics metrics;
+
+		CountingOutputStream( OutputStream out, TaskMetrics metrics )
+		{
+			super( out );
+			this.metrics = metrics;
+		}
+
+		public void write( int b ) throws IOException
+		{
+			out.write( b );
+			metrics.addCount( TaskMetrics.BYTES_WRITTEN, 1 );
+		}
+
+		public void write( byte[] b ) throws IOException
+		{
+			out.write( b );
+			metrics.addCount( TaskMetrics.BYTES_WRITTEN, b.length );
+		}
+
+		public void write( byte[] b, int off, int len ) throws IOException
+		{
+			out.write( b, off, len );
+			metrics.addCount( TaskMetrics.BYTES_WRITTEN, len );
+		}
+	}
+
 	private static class EmitterOutputStream extends FilterOutputStream
 	{
 		private boolean closeOutputStreamOnExit;
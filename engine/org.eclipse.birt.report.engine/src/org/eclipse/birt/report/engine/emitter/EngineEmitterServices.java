@@ -16,6 +16,7 @@ import java.util.HashMap;
 import org.eclipse.birt.report.engine.api.IRenderOption;
 import org.eclipse.birt.report.engine.api.IReportEngine;
 import org.eclipse.birt.report.engine.api.IReportRunnable;
+import org.eclipse.birt.report.engine.api.impl.TaskMetrics;
 import org.eclipse.birt.report.engine.api.script.IReportContext;
 
 /**
@@ -39,6 +40,11 @@ public class EngineEmitterServices implements IEmitterServices
 	 */
 	protected IReportContext reportContext;
 
+	/**
+	 * the metrics of the task, null if the metrics are disabled
+	 */
+	protected TaskMetrics taskMetrics;
+
 	/**
 	 * @param task
 	 *            he engine task that results in the creation of emitter
@@ -51,6 +57,24 @@ public class EngineEmitterServices implements IEmitterServices
 		this.renderOptions = renderOptions;
 	}
 
+	/**
+	 * @param taskMetrics
+	 *            the metrics of the task creating the emitter
+	 */
+	public void setTaskMetrics( TaskMetrics taskMetrics )
+	{
+		this.taskMetrics = taskMetrics;
+	}
+
+	/**
+	 * @return the metrics of the task creating the emitter, null if the
+	 *         metrics are disabled
+	 */
+	public TaskMetrics getTaskMetrics( )
+	{
+		return taskMetrics;
+	}
+
 	/**
 	 * @return Returns the emitterConfig.
 	 */
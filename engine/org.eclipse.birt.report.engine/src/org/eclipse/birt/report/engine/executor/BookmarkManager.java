@@ -27,6 +27,7 @@ import java.util.Map.Entry;
 import java.util.UUID;
 
 import org.eclipse.birt.core.btree.BTree;
+import org.eclipse.birt.core.btree.BTreeBuilder;
 import org.eclipse.birt.core.btree.BTreeOption;
 import org.eclipse.birt.core.btree.BTreeSerializer;
 import org.eclipse.birt.core.btree.BTreeUtils;
@@ -195,10 +196,14 @@ public class BookmarkManager
 						}
 					} );
 
+			// the tree is empty, so the sorted entries are loaded in one pass
+			BTreeBuilder<String, Integer> builder = new BTreeBuilder<String, Integer>(
+					btree );
 			for ( Map.Entry<String, Integer> entry : entries )
 			{
-				btree.insert( entry.getKey( ), VALUE );
+				builder.append( entry.getKey( ), VALUE );
 			}
+			builder.finish( );
 		}
 
 		protected BTree<String, Integer> createBtree( ) throws IOException
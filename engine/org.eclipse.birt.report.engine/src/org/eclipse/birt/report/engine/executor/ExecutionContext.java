@@ -61,6 +61,7 @@ import org.eclipse.birt.report.engine.api.impl.EngineTask;
 import org.eclipse.birt.report.engine.api.impl.ReportDocumentWriter;
 import org.eclipse.birt.report.engine.api.impl.ReportEngine;
 import org.eclipse.birt.report.engine.api.impl.ReportRunnable;
+import org.eclipse.birt.report.engine.api.impl.TaskMetrics;
 import org.eclipse.birt.report.engine.api.script.IReportContext;
 import org.eclipse.birt.report.engine.content.IContent;
 import org.eclipse.birt.report.engine.content.IReportContent;
@@ -78,7 +79,6 @@ import org.eclipse.birt.report.engine.ir.Expression;
 import org.eclipse.birt.report.engine.ir.Report;
 import org.eclipse.birt.report.engine.ir.ReportElementDesign;
 import org.eclipse.birt.report.engine.ir.ReportItemDesign;
-import org.eclipse.birt.report.engine.parser.ReportParser;
 import org.eclipse.birt.report.engine.toc.TOCBuilder;
 import org.eclipse.birt.report.engine.util.ResourceLocatorWrapper;
 import org.eclipse.birt.report.model.api.DesignElementHandle;
@@ -142,6 +142,11 @@ public class ExecutionContext
 	 */
 	private IDataEngine dataEngine;
 
+	/**
+	 * the metrics of the task, null if the metrics are disabled.
+	 */
+	private TaskMetrics metrics;
+
 	/**
 	 * utility used to create the report content
 	 */
@@ -788,7 +793,25 @@ public class ExecutionContext
 	private Object evaluate( ICompiledScript compiledScript )
 			throws BirtException
 	{
-		return getScriptContext( ).evaluate( compiledScript );
+		if ( metrics == null )
+		{
+			return getScriptContext( ).evaluate( compiledScript );
+		}
+		long start = System.nanoTime( );
+		try
+		{
+			return getScriptContext( ).evaluate( compiledScript );
+		}
+		finally
+		{
+			addExpressionTime( System.nanoTime( ) - start );
+		}
+	}
+
+	private void addExpressionTime( long nanos )
+	{
+		metrics.addTime( TaskMetrics.EXPRESSION, nanos );
+		metrics.addCount( TaskMetrics.EXPRESSIONS, 1 );
 	}
 
 	/**
@@ -810,6 +833,7 @@ public class ExecutionContext
 		ScriptContext scriptContext = getScriptContext( );
 		if ( testExpr == null )
 			return Boolean.FALSE;
+		long start = metrics == null ? 0 : System.nanoTime( );
 		try
 		{
 			return ScriptEvalUtil.evalExpr( expr, scriptContext,
@@ -821,6 +845,13 @@ public class ExecutionContext
 					MessageConstants.INVALID_EXPRESSION_ERROR, testExpr
 							.getText( ), e );
 		}
+		finally
+		{
+			if ( metrics != null )
+			{
+				addExpressionTime( System.nanoTime( ) - start );
+			}
+		}
 	}
 
 	/**
@@ -900,6 +931,23 @@ public class ExecutionContext
 		}
 	}
 
+	/**
+	 * @param metrics
+	 *            The metrics of the task, null to disable the metrics.
+	 */
+	public void setMetrics( TaskMetrics metrics )
+	{
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return Returns the metrics of the task, null if they are disabled.
+	 */
+	public TaskMetrics getMetrics( )
+	{
+		return metrics;
+	}
+
 	/**
 	 * @return Returns the dataEngine.
 	 */
@@ -2221,8 +2269,8 @@ public class ExecutionContext
 		}
 		if ( runnable != null )
 		{
-			reportIR = new ReportParser( ).parse( (ReportDesignHandle) runnable
-					.getDesignHandle( ) );
+			// the design is parsed once, each task gets its own copy of the IR
+			reportIR = runnable.createReport( );
 			setupFromReport( );
 		}
 		return reportIR;
@@ -131,6 +131,10 @@ public class MessageConstants
     public static final String  FAILED_TO_LOAD_TOC_TREE_EXCEPTION = "Error.FailedToLoadTOCTree";
     public static final String  BOOKMARK_FETCHING_EXCEPTION = "Error.ExceptionOnFetchingBookmarks";
     public static final String  SAVE_DESIGN_ERROR = "Error.FailedToSaveDesign";
+    public static final String  COMPILE_DESIGN_ERROR = "Error.FailedToCompileDesign";
+    public static final String  INVALID_COMPILED_DESIGN_EXCEPTION = "Error.InvalidCompiledDesign";
+    public static final String  TASK_QUEUE_FULL_EXCEPTION = "Error.TaskQueueFull";
+    public static final String  TASK_SCHEDULER_SHUT_DOWN_EXCEPTION = "Error.TaskSchedulerShutDown";
     public static final String  COPY_ARCHIVES_EXCEPTION = "Error.ExceptionOnCopyingArchives";
     public static final String  UNSUPPORTED_CORE_STREAM_VERSION = "Error.UnsupportedCoreStreamVersion";
     public static final String  UNSUPPORTED_ENGINE_EXTENSION = "Error.UnsupportedEngineExtension";
@@ -11,6 +11,7 @@
 
 package org.eclipse.birt.report.engine.internal.index.v2;
 
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -19,12 +20,21 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 
 import org.eclipse.birt.core.archive.IDocArchiveWriter;
+import org.eclipse.birt.core.archive.RAInputStream;
 import org.eclipse.birt.core.archive.RAOutputStream;
+import org.eclipse.birt.core.btree.BTreeBuilder;
 import org.eclipse.birt.core.util.IOUtil;
 import org.eclipse.birt.report.engine.content.impl.BookmarkContent;
 
+/**
+ * Writes the index. The index is saved as an inline map if it is small,
+ * otherwise the entries are flushed as sorted runs into temporary streams and
+ * merged into a btree once the index is closed, so the btree is built in one
+ * pass instead of inserting the entries one by one.
+ */
 public class IndexWriter implements IndexConstants
 {
 
@@ -35,7 +45,8 @@ public class IndexWriter implements IndexConstants
 
 	int type;
 	HashMap<String, Object> inlineMap;
-	BTreeMap btree;
+	// the temporary streams of the sorted runs
+	ArrayList<String> runs;
 
 	int entrySize;
 
@@ -54,7 +65,7 @@ public class IndexWriter implements IndexConstants
 		}
 		if ( inlineMap.size( ) >= MAX_INLINE_INDEX_ENTRY )
 		{
-			flushBtree( );
+			flushRun( );
 			inlineMap.clear( );
 		}
 		if ( !inlineMap.containsKey( key ) )
@@ -73,7 +84,7 @@ public class IndexWriter implements IndexConstants
 		}
 		if ( inlineMap.size( ) >= MAX_INLINE_INDEX_ENTRY )
 		{
-			flushBtree( );
+			flushRun( );
 			inlineMap.clear( );
 		}
 		if ( !inlineMap.containsKey( bookmark ) )
@@ -85,7 +96,7 @@ public class IndexWriter implements IndexConstants
 
 	void close( ) throws IOException
 	{
-		if ( btree == null )
+		if ( runs == null )
 		{
 			RAOutputStream stream = archive.createOutputStream( name );
 			try
@@ -123,18 +134,37 @@ public class IndexWriter implements IndexConstants
 				stream.close( );
 			}
 		}
-		if ( btree != null )
+		if ( runs != null )
 		{
-			flushBtree( );
-			btree.close( );
+			if ( !inlineMap.isEmpty( ) )
+			{
+				flushRun( );
+				inlineMap.clear( );
+			}
+			try
+			{
+				buildBtree( );
+			}
+			finally
+			{
+				for ( String run : runs )
+				{
+					archive.dropStream( run );
+				}
+				runs = null;
+			}
 		}
 	}
 
-	protected void flushBtree( ) throws IOException
+	/**
+	 * writes the entries of the inline map sorted by the key into a temporary
+	 * stream.
+	 */
+	protected void flushRun( ) throws IOException
 	{
-		if ( btree == null )
+		if ( runs == null )
 		{
-			btree = BTreeMap.createTreeMap( archive, name, type );
+			runs = new ArrayList<String>( );
 		}
 		ArrayList<Map.Entry<String, Object>> entries = new ArrayList<Map.Entry<String, Object>>(
 				inlineMap.entrySet( ) );
@@ -148,9 +178,158 @@ public class IndexWriter implements IndexConstants
 					}
 				} );
 
-		for ( Map.Entry<String, Object> entry : entries )
+		String run = name + ".run" + runs.size( ); //$NON-NLS-1$
+		runs.add( run );
+		RAOutputStream stream = archive.createOutputStream( run );
+		try
+		{
+			DataOutputStream output = new DataOutputStream( stream );
+			IOUtil.writeInt( output, entries.size( ) );
+			for ( Map.Entry<String, Object> entry : entries )
+			{
+				IOUtil.writeString( output, entry.getKey( ) );
+				if ( type == BTreeMap.LONG_VALUE )
+				{
+					IOUtil.writeLong( output, (Long) entry.getValue( ) );
+				}
+				else
+				{
+					( (BookmarkContent) entry.getValue( ) )
+							.writeStream( output );
+				}
+			}
+		}
+		finally
+		{
+			stream.close( );
+		}
+	}
+
+	/**
+	 * merges the sorted runs into the btree. If a key exists in several runs,
+	 * the value of the last run is used.
+	 */
+	protected void buildBtree( ) throws IOException
+	{
+		PriorityQueue<IndexRun> queue = new PriorityQueue<IndexRun>(
+				runs.size( ) );
+		try
+		{
+			for ( int i = 0; i < runs.size( ); i++ )
+			{
+				IndexRun run = new IndexRun( i, archive.getInputStream( runs
+						.get( i ) ) );
+				if ( run.next( ) )
+				{
+					queue.add( run );
+				}
+				else
+				{
+					run.close( );
+				}
+			}
+
+			BTreeMap btree = BTreeMap.createTreeMap( archive, name, type );
+			try
+			{
+				BTreeBuilder<String, Object> builder = new BTreeBuilder<String, Object>(
+						btree );
+				while ( !queue.isEmpty( ) )
+				{
+					IndexRun run = queue.poll( );
+					String key = run.key;
+					Object value = run.value;
+					int index = run.index;
+					nextEntry( queue, run );
+					while ( !queue.isEmpty( ) && key.equals( queue.peek( ).key ) )
+					{
+						run = queue.poll( );
+						if ( run.index > index )
+						{
+							value = run.value;
+							index = run.index;
+						}
+						nextEntry( queue, run );
+					}
+					builder.append( key, value );
+				}
+				builder.finish( );
+			}
+			finally
+			{
+				btree.close( );
+			}
+		}
+		finally
+		{
+			for ( IndexRun run : queue )
+			{
+				run.close( );
+			}
+		}
+	}
+
+	private void nextEntry( PriorityQueue<IndexRun> queue, IndexRun run )
+			throws IOException
+	{
+		if ( run.next( ) )
+		{
+			queue.add( run );
+		}
+		else
+		{
+			run.close( );
+		}
+	}
+
+	private class IndexRun implements Comparable<IndexRun>
+	{
+
+		int index;
+		RAInputStream stream;
+		DataInputStream input;
+		int remainSize;
+
+		String key;
+		Object value;
+
+		IndexRun( int index, RAInputStream stream ) throws IOException
+		{
+			this.index = index;
+			this.stream = stream;
+			this.input = new DataInputStream( stream );
+			this.remainSize = IOUtil.readInt( input );
+		}
+
+		boolean next( ) throws IOException
+		{
+			if ( remainSize == 0 )
+			{
+				return false;
+			}
+			remainSize--;
+			key = IOUtil.readString( input );
+			if ( type == BTreeMap.LONG_VALUE )
+			{
+				value = Long.valueOf( IOUtil.readLong( input ) );
+			}
+			else
+			{
+				BookmarkContent bookmark = new BookmarkContent( );
+				bookmark.readStream( input );
+				value = bookmark;
+			}
+			return true;
+		}
+
+		void close( ) throws IOException
+		{
+			stream.close( );
+		}
+
+		public int compareTo( IndexRun run )
 		{
-			btree.insert( entry.getKey( ), entry.getValue( ) );
+			return key.compareTo( run.key );
 		}
 	}
 }
@@ -177,7 +177,8 @@ public class CompositeFont
 				{
 					if ( baseFonts[i] != null )
 					{
-						if ( baseFonts[i].charExists( ch ) )
+						if ( FontMetricsCache.getInstance( baseFonts[i] )
+								.charExists( ch ) )
 						{
 							return usedFonts[i];
 						}
@@ -181,7 +181,8 @@ public class FontHandler
 			bf = candidateFont;
 			simulation = needSimulate( bf );
 		}
-		return candidateFont.charExists( character );
+		return FontMetricsCache.getInstance( candidateFont ).charExists(
+				character );
 	}
 	
 	/**
@@ -201,7 +202,8 @@ public class FontHandler
 	{	
 		if ( WEAK_FONT_CHARS.indexOf( c ) != -1 )
 		{
-			if ( bf != null && bf.charExists( c ) )
+			if ( bf != null
+					&& FontMetricsCache.getInstance( bf ).charExists( c ) )
 			{
 				return bf;
 			}
@@ -233,7 +235,8 @@ public class FontHandler
 			else
 			{
 				BaseFont bf = createBaseFont( fontFamily );
-				if ( bf != null && bf.charExists( c ) )
+				if ( bf != null
+						&& FontMetricsCache.getInstance( bf ).charExists( c ) )
 				{
 					return bf;
 				}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.layout.pdf.font;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.lowagie.text.pdf.BaseFont;
+
+/**
+ * The glyph metrics of a font, shared by all the layout tasks in the process.
+ * <p>
+ * The widths are in the glyph space of the font, 1/1000 of the font size, so
+ * one cache serves all the sizes of the font. The width of a character is
+ * read from the font once, the characters are loaded in blocks of 256. The
+ * widths of the short strings are cached as well, as most of the strings of a
+ * report are repeated many times.
+ * <p>
+ * The caches are never released, as the fonts they belong to are cached by
+ * <code>FontMappingManagerFactory</code> for the life of the process.
+ */
+
+public final class FontMetricsCache
+{
+
+	private static final ConcurrentMap<BaseFont, FontMetricsCache> caches = new ConcurrentHashMap<BaseFont, FontMetricsCache>( );
+
+	/**
+	 * the max length of the cached strings
+	 */
+	static final int MAX_STRING_LENGTH = 32;
+
+	/**
+	 * the max count of the cached strings of a font
+	 */
+	static final int MAX_STRING_COUNT = 4096;
+
+	private static final int BLOCK_SIZE = 256;
+
+	private final BaseFont font;
+
+	// the width and the existence of the characters by 256 characters blocks,
+	// a block is not changed once it is set
+	private final AtomicReferenceArray<CharBlock> blocks = new AtomicReferenceArray<CharBlock>(
+			( Character.MAX_VALUE + 1 ) / BLOCK_SIZE );
+
+	private final ConcurrentMap<String, Integer> stringWidths = new ConcurrentHashMap<String, Integer>( );
+
+	private FontMetricsCache( BaseFont font )
+	{
+		this.font = font;
+	}
+
+	/**
+	 * Returns the metrics cache of the given font.
+	 *
+	 * @param font
+	 *            the font
+	 * @return the cache shared by the users of the font
+	 */
+	public static FontMetricsCache getInstance( BaseFont font )
+	{
+		FontMetricsCache cache = caches.get( font );
+		if ( cache == null )
+		{
+			cache = new FontMetricsCache( font );
+			FontMetricsCache existing = caches.putIfAbsent( font, cache );
+			if ( existing != null )
+			{
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * @return the font of the metrics
+	 */
+	public BaseFont getFont( )
+	{
+		return font;
+	}
+
+	/**
+	 * Gets the width of a character, same as <code>BaseFont.getWidth</code>.
+	 *
+	 * @param c
+	 *            the character
+	 * @return the width in the glyph space
+	 */
+	public int getWidth( char c )
+	{
+		return getBlock( c ).widths[c % BLOCK_SIZE];
+	}
+
+	/**
+	 * Checks whether the font has the glyph of a character, same as
+	 * <code>BaseFont.charExists</code>.
+	 *
+	 * @param c
+	 *            the character
+	 * @return whether the character can be displayed by the font
+	 */
+	public boolean charExists( char c )
+	{
+		return getBlock( c ).exists[c % BLOCK_SIZE];
+	}
+
+	/**
+	 * Gets the width of a string, same as <code>BaseFont.getWidth</code>.
+	 *
+	 * @param text
+	 *            the string
+	 * @return the width in the glyph space
+	 */
+	public int getWidth( String text )
+	{
+		int length = text.length( );
+		if ( length > MAX_STRING_LENGTH )
+		{
+			return computeWidth( text );
+		}
+		Integer width = stringWidths.get( text );
+		if ( width == null )
+		{
+			width = Integer.valueOf( computeWidth( text ) );
+			if ( stringWidths.size( ) >= MAX_STRING_COUNT )
+			{
+				// start again with the strings used from now on
+				stringWidths.clear( );
+			}
+			stringWidths.put( text, width );
+		}
+		return width.intValue( );
+	}
+
+	/**
+	 * Gets the width of a string in points.
+	 *
+	 * @param text
+	 *            the string
+	 * @param fontSize
+	 *            the font size
+	 * @return the width, same as <code>BaseFont.getWidthPoint</code>
+	 */
+	public float getWidthPoint( String text, float fontSize )
+	{
+		return getWidth( text ) * 0.001f * fontSize;
+	}
+
+	private int computeWidth( String text )
+	{
+		int total = 0;
+		for ( int i = 0; i < text.length( ); i++ )
+		{
+			char c = text.charAt( i );
+			if ( Character.isHighSurrogate( c )
+					|| Character.isLowSurrogate( c ) )
+			{
+				// the width of a surrogate pair isn't the sum of the chars
+				return font.getWidth( text );
+			}
+			total += getWidth( c );
+		}
+		return total;
+	}
+
+	private CharBlock getBlock( char c )
+	{
+		int index = c / BLOCK_SIZE;
+		CharBlock block = blocks.get( index );
+		if ( block == null )
+		{
+			// the same block may be loaded by several threads, they are equal
+			block = new CharBlock( font, (char) ( index * BLOCK_SIZE ) );
+			blocks.set( index, block );
+		}
+		return block;
+	}
+
+	/**
+	 * The metrics of 256 continuous characters.
+	 */
+	private static class CharBlock
+	{
+
+		final int[] widths = new int[BLOCK_SIZE];
+		final boolean[] exists = new boolean[BLOCK_SIZE];
+
+		CharBlock( BaseFont font, char start )
+		{
+			for ( int i = 0; i < BLOCK_SIZE; i++ )
+			{
+				char c = (char) ( start + i );
+				widths[i] = font.getWidth( c );
+				exists[i] = font.charExists( c );
+			}
+		}
+	}
+}
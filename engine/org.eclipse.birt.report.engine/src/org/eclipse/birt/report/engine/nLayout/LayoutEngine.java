@@ -970,6 +970,11 @@ public class LayoutEngine extends LayoutEmitterAdapter
 
 	}
 
+	public LayoutContext getContext( )
+	{
+		return context;
+	}
+
 	public ILayoutPageHandler getPageHandler( )
 	{
 		return pageHandler;
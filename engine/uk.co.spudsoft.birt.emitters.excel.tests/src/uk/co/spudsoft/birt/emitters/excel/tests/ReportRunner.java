@@ -79,6 +79,9 @@ public class ReportRunner {
 	
 	protected String templateFile = null;
 	
+	protected boolean streaming;
+	protected Integer streamingWindowSize = null;
+	
 	protected Map<String,Object> parameters = new HashMap<String, Object>();
 	protected long startTime;
 	protected long runTime;
@@ -556,6 +559,12 @@ public class ReportRunner {
 		if( templateFile != null ) {
 			renderOptions.setOption( ExcelEmitter.TEMPLATE_FILE, templateFile );
 		}
+		if( streaming ) {
+			renderOptions.setOption( ExcelEmitter.STREAMING, true );
+		}
+		if( streamingWindowSize != null ) {
+			renderOptions.setOption( ExcelEmitter.STREAMING_WINDOW_SIZE, streamingWindowSize );
+		}
 		
 		return renderOptions;
 	}
@@ -0,0 +1,138 @@
+/*************************************************************************************
+ * Copyright (c) 2011, 2012, 2013 James Talbut.
+ *  jim-emitters@spudsoft.co.uk
+ *  
+ * All rights reserved. This program and the accompanying materials 
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     James Talbut - Initial implementation.
+ ************************************************************************************/
+
+package uk.co.spudsoft.birt.emitters.excel.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.eclipse.birt.core.exception.BirtException;
+import org.junit.Test;
+
+import uk.co.spudsoft.birt.emitters.excel.HandlerState;
+import uk.co.spudsoft.birt.emitters.excel.StyleManagerXUtils;
+import uk.co.spudsoft.birt.emitters.excel.framework.Logger;
+
+public class StreamingTest extends ReportRunner {
+	
+	private XSSFWorkbook renderWorkbook( String filename ) throws BirtException, IOException {
+		InputStream inputStream = runAndRenderReport(filename, "xlsx");
+		assertNotNull(inputStream);
+		try {
+			XSSFWorkbook workbook = new XSSFWorkbook(inputStream);
+			assertNotNull(workbook);
+			return workbook;
+		} finally {
+			inputStream.close();
+		}
+	}
+	
+	private void assertSameSheets( XSSFWorkbook expected, XSSFWorkbook actual ) {
+		DataFormatter formatter = new DataFormatter();
+
+		assertEquals( expected.getNumberOfSheets(), actual.getNumberOfSheets() );
+		for( int i = 0; i < expected.getNumberOfSheets(); ++i ) {
+			Sheet expectedSheet = expected.getSheetAt(i);
+			Sheet actualSheet = actual.getSheetAt(i);
+			assertEquals( expectedSheet.getSheetName(), actualSheet.getSheetName() );
+			assertEquals( lastRow(expectedSheet), lastRow(actualSheet) );
+			assertEquals( expectedSheet.getNumMergedRegions(), actualSheet.getNumMergedRegions() );
+			
+			for( int col = 0; col < greatestNumColumns(expectedSheet); ++col ) {
+				assertEquals( expectedSheet.getColumnWidth(col), actualSheet.getColumnWidth(col) );
+			}
+			
+			for( Row expectedRow : expectedSheet ) {
+				Row actualRow = actualSheet.getRow( expectedRow.getRowNum() );
+				assertNotNull( actualRow );
+				assertEquals( expectedRow.getLastCellNum(), actualRow.getLastCellNum() );
+				for( Cell expectedCell : expectedRow ) {
+					Cell actualCell = actualRow.getCell( expectedCell.getColumnIndex() );
+					assertEquals( formatter.formatCellValue(expectedCell), formatter.formatCellValue(actualCell) );
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testStreamingMatchesInMemory() throws BirtException, IOException {
+
+		debug = false;
+		groupSummaryHeader = true;
+		XSSFWorkbook inMemory = renderWorkbook("Issue56FreezePanes.rptdesign");
+		
+		streaming = true;
+		streamingWindowSize = 100;
+		XSSFWorkbook streamed = renderWorkbook("Issue56FreezePanes.rptdesign");
+
+		assertSameSheets( inMemory, streamed );
+		
+		Sheet sheet = streamed.getSheetAt(0);
+		assertEquals( true, sheet.getPaneInformation().isFreezePane() );
+		assertEquals( 1, sheet.getPaneInformation().getHorizontalSplitTopRow() );
+	}
+	
+	@Test
+	public void testStreamingMultipleSheets() throws BirtException, IOException {
+
+		debug = false;
+		XSSFWorkbook inMemory = renderWorkbook("MultiSheetsBigTableZeroInterval.rptdesign");
+		
+		streaming = true;
+		streamingWindowSize = 100;
+		XSSFWorkbook streamed = renderWorkbook("MultiSheetsBigTableZeroInterval.rptdesign");
+
+		assertSameSheets( inMemory, streamed );
+	}
+	
+	@Test
+	public void testExtendRowsSkipsWrittenRows() throws IOException {
+
+		SXSSFWorkbook wb = new SXSSFWorkbook( 2 );
+		try {
+			Logger log = new Logger( StreamingTest.class.getPackage().getName() );
+			HandlerState state = new HandlerState( null, log, new StyleManagerXUtils( log ), wb, null, null );
+			state.setStreamingWindowSize( 2 );
+			state.currentSheet = wb.createSheet();
+			
+			// the first cell of the column is on a row that has already been written out
+			state.currentSheet.createRow( 0 ).createCell( 0 ).setCellValue( "first" );
+			for( int row = 1; row < 5; ++row ) {
+				state.currentSheet.createRow( row ).createCell( 1 ).setCellValue( "nested" );
+			}
+			state.currentSheet.getRow( 3 ).createCell( 0 ).setCellValue( "last" );
+			
+			state.getSmu().extendRows( state, 0, 0, 6, 1 );
+			
+			assertEquals( 1, state.currentSheet.getNumMergedRegions() );
+			CellRangeAddress range = state.currentSheet.getMergedRegion( 0 );
+			assertEquals( 3, range.getFirstRow() );
+			assertEquals( 5, range.getLastRow() );
+			assertEquals( 0, range.getFirstColumn() );
+			assertNotNull( state.currentSheet.getRow( 5 ).getCell( 0 ) );
+		} finally {
+			wb.dispose();
+		}
+	}
+	
+}
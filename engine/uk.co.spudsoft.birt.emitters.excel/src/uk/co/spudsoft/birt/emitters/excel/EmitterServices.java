@@ -274,6 +274,50 @@ public class EmitterServices {
 		
 		return result;
 	}
+
+	/**
+	 * Search for an emitter option and return it as an integer
+	 * @param options
+	 * The task options to extract the value from.
+	 * @param reportContent
+	 * The report
+	 * @param name
+	 * The name of the value to extract from options.
+	 * @param defaultValue
+	 * Value to return if value is null.
+	 * @return
+	 * an integer, or the defaultValue
+	 */
+	public static int integerOption( ITaskOption options, IReportContent reportContent, String name, int defaultValue ) {
+		int result = defaultValue;
+		Object value = null;
+		
+		if( reportContent != null ) {
+			Map<String,Expression> userProperties = reportContent.getDesign().getUserProperties();
+			if( userProperties != null ) {
+				Expression expression = userProperties.get(name);
+				if( expression instanceof Expression.Constant ) {
+					Expression.Constant constant = (Expression.Constant)expression;
+					value = constant.getValue();
+				}
+			}
+		}
+		
+		if( ( value == null ) && ( options != null ) ) {
+			value = options.getOption(name);
+		}
+		
+		if( value instanceof Number ) {
+			result = ((Number)value).intValue();
+		} else if( value != null ) {
+			try { 
+				result = Integer.parseInt( value.toString() );
+			} catch( Exception ex ) {
+			}
+		}
+		
+		return result;
+	}
 	
 	
 	
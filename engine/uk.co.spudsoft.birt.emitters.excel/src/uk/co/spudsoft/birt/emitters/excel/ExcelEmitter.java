@@ -84,6 +84,11 @@ public abstract class ExcelEmitter implements IContentEmitter {
 	public static final String DISPLAYZEROS_PROP = "ExcelEmitter.DisplayZeros";
 
 	public static final String TEMPLATE_FILE = "ExcelEmitter.TemplateFile";
+
+	public static final String STREAMING = "ExcelEmitter.Streaming";
+	public static final String STREAMING_WINDOW_SIZE = "ExcelEmitter.StreamingWindowSize";
+	public static final int DEFAULT_STREAMING_WINDOW_SIZE = 1000;
+	public static final int MIN_STREAMING_WINDOW_SIZE = 100;
 	
 	/**
 	 * Logger.
@@ -163,6 +168,29 @@ public abstract class ExcelEmitter implements IContentEmitter {
 	 */
 	protected abstract Workbook openWorkbook( File templateFile ) throws IOException;
 	
+	/**
+	 * Wraps the workbook so that the rows of its sheets are written out as the report is emitted,
+	 * keeping only the most recent rows of each sheet in memory.
+	 * The default implementation does not support streaming and returns the workbook unchanged.
+	 * @param wb
+	 * The workbook created or opened from the template.
+	 * @param windowSize
+	 * The number of rows of each sheet kept in memory.
+	 * @return
+	 * The workbook to be processed by the emitter.
+	 */
+	protected Workbook createStreamingWorkbook( Workbook wb, int windowSize ) {
+		return wb;
+	}
+	
+	/**
+	 * Releases the resources held by the workbook once it has been written.
+	 * @param wb
+	 * The workbook processed by the emitter.
+	 */
+	protected void disposeWorkbook( Workbook wb ) {
+	}
+	
 	
 	public void initialize( IEmitterServices service ) throws BirtException {
 		renderOptions = service.getRenderOption();
@@ -210,12 +238,27 @@ public abstract class ExcelEmitter implements IContentEmitter {
 		    wb = createWorkbook();
 		}
 		
+		int streamingWindowSize = 0;
+		if( EmitterServices.booleanOption( renderOptions, report, STREAMING, false ) ) {
+			int windowSize = Math.max( MIN_STREAMING_WINDOW_SIZE
+					, EmitterServices.integerOption( renderOptions, report, STREAMING_WINDOW_SIZE, DEFAULT_STREAMING_WINDOW_SIZE ) );
+			Workbook streamingWb = createStreamingWorkbook( wb, windowSize );
+			if( streamingWb != wb ) {
+				log.debug( "Streaming workbook keeping ", windowSize, " rows in memory" );
+				wb = streamingWb;
+				streamingWindowSize = windowSize;
+			} else {
+				log.debug( "Streaming is not supported for ", getOutputFormat() );
+			}
+		}
+		
 	    CSSEngine cssEngine = report.getRoot().getCSSEngine();
 		StyleManagerUtils smu = utilsFactory.create(log);
 	    
 	    StyleManager sm = new StyleManager( wb, log, smu, cssEngine, report.getReportContext().getLocale() );
 	    
 		handlerState = new HandlerState(this, log, smu, wb, sm, renderOptions);
+		handlerState.setStreamingWindowSize( streamingWindowSize );
 		handlerState.setHandler( new PageHandler(log, null) );
 
 		if( EmitterServices.booleanOption( handlerState.getRenderOptions(), report, ExcelEmitter.SINGLE_SHEET_PAGE_BREAKS, false ) ) {
@@ -275,6 +318,7 @@ public abstract class ExcelEmitter implements IContentEmitter {
 					log.debug("ex:", ex.toString());
 				}
 			}
+			disposeWorkbook( handlerState.getWb() );
 			handlerState = null;
 			reportOutputFilename = null;			
 			reportOutputStream = null;
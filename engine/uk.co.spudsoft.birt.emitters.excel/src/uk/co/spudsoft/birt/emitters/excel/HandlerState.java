@@ -18,6 +18,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.eclipse.birt.report.engine.api.IRenderOption;
@@ -64,6 +65,10 @@ public class HandlerState {
 	 * Report engine
 	 */
 	private ReportEngine reportEngine;
+	/**
+	 * The number of rows of each sheet kept in memory by a streaming workbook, 0 if the workbook is not streamed.
+	 */
+	private int streamingWindowSize;
 	
 	/**
 	 * The current POI sheet being processed.
@@ -170,6 +175,30 @@ public class HandlerState {
 		return handler;
 	}
 
+	public int getStreamingWindowSize() {
+		return streamingWindowSize;
+	}
+
+	public void setStreamingWindowSize(int streamingWindowSize) {
+		this.streamingWindowSize = streamingWindowSize;
+	}
+
+	public boolean isStreaming() {
+		return streamingWindowSize > 0;
+	}
+
+	/**
+	 * Check whether a row of the current sheet can still be read and changed.
+	 * A streaming workbook writes out the rows that fall behind the most recent rows of the sheet.
+	 * @param row
+	 * The index of the row.
+	 * @return
+	 * true if the row is still in memory.
+	 */
+	public boolean rowIsInMemory( int row ) {
+		return ( streamingWindowSize <= 0 ) || ( currentSheet.getLastRowNum() - row < streamingWindowSize );
+	}
+
 	public void setHandler(IHandler handler) {
 		this.handler = handler;
 		this.handler.notifyHandler(this);
@@ -268,7 +297,9 @@ public class HandlerState {
         	
         	float heightUnaccountedFor = a.height;
         	for( int componentRow = a.x.getRow(); componentRow < row; ++componentRow ) {
-        		heightUnaccountedFor -= currentSheet.getRow( componentRow ).getHeightInPoints();
+        		Row component = currentSheet.getRow( componentRow );
+        		// Rows already written out by a streaming workbook are taken at the default height
+        		heightUnaccountedFor -= ( component == null ) ? currentSheet.getDefaultRowHeightInPoints() : component.getHeightInPoints();
         	}
         	float heightPerRowRemainig = heightUnaccountedFor / ( 1 + a.y.getRow() - row );
         	if( heightPerRowRemainig > result ) {
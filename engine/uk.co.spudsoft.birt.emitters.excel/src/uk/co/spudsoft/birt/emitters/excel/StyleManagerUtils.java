@@ -884,6 +884,9 @@ public abstract class StyleManagerUtils {
 	/**
 	 * Place a border around a region on the current sheet.
 	 * This is used to apply borders to entire rows or entire tables.
+	 * Rows that a streaming workbook has already written out cannot be changed and do not get the borders.
+	 * @param state
+	 * The handler state giving the style manager and the current sheet.
 	 * @param colStart
 	 * The column marking the left-side boundary of the region.
 	 * @param colEnd
@@ -895,7 +898,9 @@ public abstract class StyleManagerUtils {
 	 * @param borderStyle
 	 * The BIRT border style to apply to the region.
 	 */
-	public void applyBordersToArea( StyleManager sm, Sheet sheet, int colStart, int colEnd, int rowStart, int rowEnd, BirtStyle borderStyle ) {
+	public void applyBordersToArea( HandlerState state, int colStart, int colEnd, int rowStart, int rowEnd, BirtStyle borderStyle ) {
+		StyleManager sm = state.getSm();
+		Sheet sheet = state.currentSheet;
 		StringBuilder borderMsg = new StringBuilder();
 		borderMsg.append( "applyBordersToArea [" ).append( colStart ).append( "," ).append( rowStart ).append( "]-[" ).append( colEnd ).append( "," ).append( rowEnd ).append( "]");
 		
@@ -955,7 +960,11 @@ public abstract class StyleManagerUtils {
 				|| ( borderStyleRight != null ) || ( borderWidthRight != null ) || ( borderColourRight != null ) 
 				|| ( borderStyleTop != null ) || ( borderWidthTop != null ) || ( borderColourTop != null ) 
 				) {
-			for( int row = rowStart; row <= rowEnd; ++row ) {
+			int firstRow = firstRowInMemory( state, rowStart, rowEnd + 1 );
+			if( firstRow > rowStart ) {
+				log.warn( 0, "Rows " + rowStart + " to " + ( firstRow - 1 ) + " have already been written out by the streaming workbook, they do not get the borders", null );
+			}
+			for( int row = firstRow; row <= rowEnd; ++row ) {
 				Row styleRow = sheet.getRow(row);
 				if( styleRow != null ) {
 					for( int col = colStart; col <= colEnd; ++col ) {
@@ -1065,7 +1074,31 @@ public abstract class StyleManagerUtils {
 		return colIndex;
 	}
 	
+	/**
+	 * Find the first row of a range that a streaming workbook has not written out yet.
+	 * @param state
+	 * The handler state giving the current sheet.
+	 * @param startRow
+	 * The first row of the range.
+	 * @param endRow
+	 * The row after the last row of the range.
+	 * @return
+	 * The first row of the range that can still be changed, or endRow if none can.
+	 */
+	private int firstRowInMemory( HandlerState state, int startRow, int endRow ) {
+		int row = startRow;
+		while( ( row < endRow ) && ! state.rowIsInMemory( row ) ) {
+			++row;
+		}
+		return row;
+	}
+	
 	public void extendRows( HandlerState state, int startRow, int startCol, int endRow, int endCol ) {
+		int firstRow = firstRowInMemory( state, startRow, endRow );
+		if( firstRow > startRow ) {
+			log.warn( 0, "Rows " + startRow + " to " + ( firstRow - 1 ) + " have already been written out by the streaming workbook, they are not extended", null );
+			startRow = firstRow;
+		}
 		for( int colNum = startCol; colNum < endCol; ++colNum) {
 			Cell lastCell = null;
 			for( int rowNum = startRow; rowNum < endRow; ++rowNum ) {
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 /**
@@ -51,5 +52,20 @@ public class XlsxEmitter extends ExcelEmitter {
 			stream.close();
 		}
 	}
+	
+	protected Workbook createStreamingWorkbook( Workbook wb, int windowSize ) {
+		SXSSFWorkbook streamingWb = new SXSSFWorkbook( (XSSFWorkbook)wb, windowSize );
+		// The rows written out are kept in temporary files until the workbook is saved
+		streamingWb.setCompressTempFiles( true );
+		return streamingWb;
+	}
+	
+	protected void disposeWorkbook( Workbook wb ) {
+		if( wb instanceof SXSSFWorkbook ) {
+			if( ! ((SXSSFWorkbook)wb).dispose() ) {
+				log.debug( "Unable to delete the temporary files of the streaming workbook" );
+			}
+		}
+	}
 
 }
@@ -103,7 +103,7 @@ public class AbstractRealListHandler extends AbstractHandler implements NestedTa
 			}
 		}
 		
-		state.getSmu().applyBordersToArea( state.getSm(), state.currentSheet, colStart, colEnd, startRow, endRow, new BirtStyle( list ) );
+		state.getSmu().applyBordersToArea( state, colStart, colEnd, startRow, endRow, new BirtStyle( list ) );
 		
 		if( borderDefn != null ) {
 			state.removeBorderOverload(borderDefn);
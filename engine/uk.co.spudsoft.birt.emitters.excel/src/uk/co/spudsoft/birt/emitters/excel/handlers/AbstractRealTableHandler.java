@@ -46,6 +46,8 @@ public class AbstractRealTableHandler extends AbstractHandler implements ITableH
 	private AreaBorders borderDefn;
 	
 	private List< NestedTableHandler > nestedTables;
+	
+	private boolean columnWidthsSized;
 
 	public AbstractRealTableHandler(Logger log, IHandler parent, ITableContent table) {
 		super(log, parent, table);
@@ -135,26 +137,8 @@ public class AbstractRealTableHandler extends AbstractHandler implements ITableH
 		
 		log.debug( "Details rows from ", startDetailsRow, " to ", endDetailsRow );
 		
-		if( ( startDetailsRow > 0 ) && ( endDetailsRow > startDetailsRow ) ) {
-			boolean forceAutoColWidths = EmitterServices.booleanOption( state.getRenderOptions(), table, ExcelEmitter.FORCEAUTOCOLWIDTHS_PROP, false );
-			for( int col = 0; col < table.getColumnCount(); ++col ) {
-				int oldWidth = state.currentSheet.getColumnWidth(col);
-				if( forceAutoColWidths || ( oldWidth == 256 * state.currentSheet.getDefaultColumnWidth() ) ) {
-					FilteredSheet filteredSheet = new FilteredSheet( state.currentSheet, startDetailsRow, Math.min(endDetailsRow, startDetailsRow + 12) );
-			        double calcWidth = SheetUtil.getColumnWidth( filteredSheet, col, false );
-
-			        if (calcWidth > 1.0) {
-			        	calcWidth *= 256;
-			            int maxColumnWidth = 255*256; // The maximum column width for an individual cell is 255 characters
-			            if (calcWidth > maxColumnWidth) {
-			            	calcWidth = maxColumnWidth;
-			            }
-			            if( calcWidth > oldWidth ) {
-			            	state.currentSheet.setColumnWidth( col, (int)(calcWidth) );
-			            }
-			        }
-				}
-			}
+		if( ( ! columnWidthsSized ) && ( startDetailsRow > 0 ) && ( endDetailsRow > startDetailsRow ) ) {
+			sizeColumns( state, table, Math.min(endDetailsRow, startDetailsRow + 12) );
 		}
 		
 		if( ( table.getBookmark() != null ) && ( state.rowNum > startRow ) && ( table.getColumnCount() > 1 ) ) {
@@ -175,6 +159,55 @@ public class AbstractRealTableHandler extends AbstractHandler implements ITableH
 		}
 	}
 
+	/**
+	 * Size the columns from the first detail rows of the table.
+	 * @param state
+	 * The handler state.
+	 * @param table
+	 * The table being processed.
+	 * @param lastSampledRow
+	 * The last of the detail rows to measure.
+	 */
+	private void sizeColumns(HandlerState state, ITableContent table, int lastSampledRow) {
+		columnWidthsSized = true;
+		boolean forceAutoColWidths = EmitterServices.booleanOption( state.getRenderOptions(), table, ExcelEmitter.FORCEAUTOCOLWIDTHS_PROP, false );
+		for( int col = 0; col < table.getColumnCount(); ++col ) {
+			int oldWidth = state.currentSheet.getColumnWidth(col);
+			if( forceAutoColWidths || ( oldWidth == 256 * state.currentSheet.getDefaultColumnWidth() ) ) {
+				FilteredSheet filteredSheet = new FilteredSheet( state.currentSheet, startDetailsRow, lastSampledRow );
+		        double calcWidth = SheetUtil.getColumnWidth( filteredSheet, col, false );
+
+		        if (calcWidth > 1.0) {
+		        	calcWidth *= 256;
+		            int maxColumnWidth = 255*256; // The maximum column width for an individual cell is 255 characters
+		            if (calcWidth > maxColumnWidth) {
+		            	calcWidth = maxColumnWidth;
+		            }
+		            if( calcWidth > oldWidth ) {
+		            	state.currentSheet.setColumnWidth( col, (int)(calcWidth) );
+		            }
+		        }
+			}
+		}
+	}
+	
+	/**
+	 * Size the columns of a streamed table as soon as its first detail rows are complete, 
+	 * because a streaming workbook writes them out long before the table ends.
+	 * @param state
+	 * The handler state.
+	 */
+	protected void sizeColumnsWhenStreaming(HandlerState state) {
+		if( state.isStreaming() && ( ! columnWidthsSized ) && ( startDetailsRow > 0 ) && ( state.rowNum > startDetailsRow + 12 ) ) {
+			int lastSampledRow = startDetailsRow + 12;
+			if( endDetailsRow > startDetailsRow ) {
+				lastSampledRow = Math.min(endDetailsRow, lastSampledRow);
+			}
+			log.debug( "Sizing columns of streamed table from rows ", startDetailsRow, " to ", lastSampledRow );
+			sizeColumns( state, (ITableContent)element, lastSampledRow );
+		}
+	}
+
 	@Override
 	public void startTableBand(HandlerState state, ITableBandContent band) throws BirtException {
 		if( ( band.getBandType() == ITableBandContent.BAND_DETAIL ) && ( startDetailsRow < 0 ) ) {
@@ -82,6 +82,7 @@ public class NestedTableHandler extends AbstractRealTableHandler {
 
 	@Override
 	public void startRow(HandlerState state, IRowContent row) throws BirtException {
+		sizeColumnsWhenStreaming(state);
 		log.debug( "startRow called with topLeft = [", topLeft.getRow(), ", ", topLeft.getCol(), "]" );
 		NestedTableRowHandler rowHandler = new NestedTableRowHandler(log, this, row, topLeft.getCol());
 		
@@ -15,11 +15,11 @@ package uk.co.spudsoft.birt.emitters.excel.handlers;
 
 import java.util.Collection;
 
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.ClientAnchor;
 import org.apache.poi.ss.usermodel.Drawing;
 import org.apache.poi.ss.usermodel.HeaderFooter;
 import org.apache.poi.ss.usermodel.PrintSetup;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.eclipse.birt.core.exception.BirtException;
@@ -250,6 +250,11 @@ public class PageHandler extends AbstractHandler {
 		state.currentSheet = null;
 	}
 	
+	private float getRowHeightInPoints( Sheet sheet, int rowIndex ) {
+		Row row = sheet.getRow( rowIndex );
+		return ( row == null ) ? sheet.getDefaultRowHeightInPoints() : row.getHeightInPoints();
+	}
+	
 	private CellRangeAddress getMergedRegionBegunBy( Sheet sheet, int row, int col ) {
 		for( int i = 0; i < sheet.getNumMergedRegions(); ++i ) {
 			CellRangeAddress range = sheet.getMergedRegion(i);
@@ -272,18 +277,21 @@ public class PageHandler extends AbstractHandler {
 	private void processCellImage( HandlerState state, Drawing drawing, CellImage cellImage ) {
 		Coordinate location = cellImage.location;
 		
-		Cell cell = state.currentSheet.getRow( location.getRow() ).getCell( location.getCol() );
+		// A streaming workbook may already have written out the row, the image is then anchored 
+		// assuming the default row heights and the row cannot be made taller to fit it.
+		Row row = state.currentSheet.getRow( location.getRow() );
+		float rowHeight = getRowHeightInPoints( state.currentSheet, location.getRow() );
 
 		IImageContent image = cellImage.image;		
 		
 		StyleManagerUtils smu = state.getSmu();
-		float ptHeight = cell.getRow().getHeightInPoints();
+		float ptHeight = rowHeight;
 		if( image.getHeight() != null ) {
 			ptHeight = smu.fontSizeInPoints( image.getHeight().toString() );
 		}
 
 		// Get image width
-		int endCol = cell.getColumnIndex();
+		int endCol = location.getCol();
         double lastColWidth = ClientAnchorConversions.widthUnits2Millimetres( (short)state.currentSheet.getColumnWidth( endCol ) )
         		+ 2.0;
         int dx = smu.anchorDxFromMM( lastColWidth, lastColWidth );
@@ -300,7 +308,7 @@ public class PageHandler extends AbstractHandler {
 	        if( mmWidth > 0) {
 	            double mmAccumulatedWidth = 0;
 	            int endColLimit = cellImage.spanColumns ? 256 : mergedRegion.getLastColumn();
-	            for( endCol = cell.getColumnIndex(); mmAccumulatedWidth < mmWidth && endCol < endColLimit; ++ endCol ) {
+	            for( endCol = location.getCol(); mmAccumulatedWidth < mmWidth && endCol < endColLimit; ++ endCol ) {
 	                lastColWidth = ClientAnchorConversions.widthUnits2Millimetres( (short)state.currentSheet.getColumnWidth( endCol ) )
 	                		+ 2.0;
 	                mmAccumulatedWidth += lastColWidth;
@@ -318,26 +326,27 @@ public class PageHandler extends AbstractHandler {
 			ptHeight = ptHeight / widthRatio;
 		}
 
-		int rowsSpanned = state.findRowsSpanned( cell.getRowIndex(), cell.getColumnIndex() );
+		int rowsSpanned = state.findRowsSpanned( location.getRow(), location.getCol() );
 		float neededRowHeightPoints = ptHeight;
 		
 		for( int i = 0; i < rowsSpanned; ++i ) {
-			int rowIndex = cell.getRowIndex() + 1 + i;
-			neededRowHeightPoints -= state.currentSheet.getRow(rowIndex).getHeightInPoints();
+			int rowIndex = location.getRow() + 1 + i;
+			neededRowHeightPoints -= getRowHeightInPoints( state.currentSheet, rowIndex );
 		}
 		
-		if( neededRowHeightPoints > cell.getRow().getHeightInPoints()) {
-			cell.getRow().setHeightInPoints( neededRowHeightPoints );
+		if( ( row != null ) && ( neededRowHeightPoints > rowHeight ) ) {
+			row.setHeightInPoints( neededRowHeightPoints );
+			rowHeight = neededRowHeightPoints;
 		}
 		
 		// ClientAnchor anchor = wb.getCreationHelper().createClientAnchor();
 		ClientAnchor anchor = state.getWb().getCreationHelper().createClientAnchor();
-        anchor.setCol1(cell.getColumnIndex());
-        anchor.setRow1(cell.getRowIndex());
+        anchor.setCol1(location.getCol());
+        anchor.setRow1(location.getRow());
         anchor.setCol2(endCol);
-        anchor.setRow2(cell.getRowIndex() + rowsSpanned);
+        anchor.setRow2(location.getRow() + rowsSpanned);
         anchor.setDx2(dx);
-        anchor.setDy2( smu.anchorDyFromPoints( ptHeight, cell.getRow().getHeightInPoints() ) );
+        anchor.setDy2( smu.anchorDyFromPoints( ptHeight, rowHeight ) );
         anchor.setAnchorType(ClientAnchor.MOVE_DONT_RESIZE);
 	    drawing.createPicture(anchor, cellImage.imageIdx);
 	}
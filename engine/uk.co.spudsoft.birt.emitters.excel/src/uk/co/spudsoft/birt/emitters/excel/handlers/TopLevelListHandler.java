@@ -107,6 +107,11 @@ public class TopLevelListHandler extends AbstractRealListHandler {
 			if( EmitterServices.booleanOption( state.getRenderOptions(), group, ExcelEmitter.DISABLE_GROUPING, false ) ) {
 				disableGrouping = true;
 			}
+			
+			if( ! disableGrouping && ! state.rowIsInMemory( start ) ) {
+				log.debug( "Not grouping rows from ", start, " because they have already been written out" );
+				disableGrouping = true;
+			}
 
 			if( ! disableGrouping ) {
 				state.currentSheet.groupRow(start, state.rowNum - 2);
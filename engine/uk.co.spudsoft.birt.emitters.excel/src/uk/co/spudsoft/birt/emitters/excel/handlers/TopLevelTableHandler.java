@@ -75,6 +75,7 @@ public class TopLevelTableHandler extends AbstractRealTableHandler {
 
 	@Override
 	public void startRow(HandlerState state, IRowContent row) throws BirtException {
+		sizeColumnsWhenStreaming(state);
 		state.setHandler(new TopLevelTableRowHandler(log, this, row));
 		state.getHandler().startRow(state, row);
 	}
@@ -115,6 +116,11 @@ public class TopLevelTableHandler extends AbstractRealTableHandler {
 			if( EmitterServices.booleanOption( state.getRenderOptions(), group, ExcelEmitter.DISABLE_GROUPING, false ) ) {
 				disableGrouping = true;
 			}
+			
+			if( ! disableGrouping && ! state.rowIsInMemory( start ) ) {
+				log.debug( "Not grouping rows from ", start, " because they have already been written out" );
+				disableGrouping = true;
+			}
 
 			if( ! disableGrouping ) {
 				if( state.currentSheet.getRowSumsBelow() ) {
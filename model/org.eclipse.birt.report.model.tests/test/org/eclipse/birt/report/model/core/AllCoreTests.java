@@ -36,6 +36,7 @@ public class AllCoreTests
 		test.addTestSuite( DesignElementPropsTest.class );
 		test.addTestSuite( DesignElementTest.class );
 		test.addTestSuite( DesignSessionTest.class );
+		test.addTestSuite( LibraryCacheTest.class );
 		test.addTestSuite( ModuleTest.class );
 		test.addTestSuite( MultiElementSlotTest.class );
 		test.addTestSuite( NameHelperTest.class );
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.model.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import org.eclipse.birt.report.model.api.LabelHandle;
+import org.eclipse.birt.report.model.api.ModuleOption;
+import org.eclipse.birt.report.model.api.ReportDesignHandle;
+import org.eclipse.birt.report.model.api.SessionHandle;
+import org.eclipse.birt.report.model.elements.Library;
+import org.eclipse.birt.report.model.util.BaseTestCase;
+
+import com.ibm.icu.util.ULocale;
+
+/**
+ * Tests the cache of the parsed libraries shared by the sessions, and the
+ * parallel loading of the included libraries.
+ */
+
+public class LibraryCacheTest extends BaseTestCase
+{
+
+	private static final String DESIGN_FILE = "LibraryCacheTest.xml"; //$NON-NLS-1$
+	private static final String LIB1_FILE = "LibraryCacheTest_Lib1.xml"; //$NON-NLS-1$
+	private static final String LIB2_FILE = "LibraryCacheTest_Lib2.xml"; //$NON-NLS-1$
+	private static final String LIB3_FILE = "LibraryCacheTest_Lib3.xml"; //$NON-NLS-1$
+
+	private String designFile;
+	private String lib3File;
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.birt.report.model.util.BaseTestCase#setUp()
+	 */
+
+	protected void setUp( ) throws Exception
+	{
+		super.setUp( );
+
+		designFile = copyContentToFile( INPUT_FOLDER + DESIGN_FILE );
+		copyContentToFile( INPUT_FOLDER + LIB1_FILE );
+		copyContentToFile( INPUT_FOLDER + LIB2_FILE );
+		lib3File = copyContentToFile( INPUT_FOLDER + LIB3_FILE );
+	}
+
+	/**
+	 * Opens the test design in a new session.
+	 *
+	 * @param options
+	 *            the module options
+	 * @return the opened design
+	 * @throws Exception
+	 */
+
+	private ReportDesignHandle openDesign( ModuleOption options )
+			throws Exception
+	{
+		SessionHandle session = engine.newSessionHandle( ULocale.ENGLISH );
+		return session.openDesign( designFile, options );
+	}
+
+	/**
+	 * Checks the libraries and the element values of the test design.
+	 *
+	 * @param handle
+	 *            the test design
+	 * @param label3Text
+	 *            the expected text of the label in the nested library
+	 */
+
+	private void checkDesign( ReportDesignHandle handle, String label3Text )
+	{
+		assertTrue( handle.getErrorList( ).isEmpty( ) );
+
+		Module module = handle.getModule( );
+		List<Library> libraries = module.getLibraries( );
+		assertEquals( 2, libraries.size( ) );
+		assertEquals( "Lib1", libraries.get( 0 ).getNamespace( ) ); //$NON-NLS-1$
+		assertEquals( "Lib2", libraries.get( 1 ).getNamespace( ) ); //$NON-NLS-1$
+
+		List<Library> allLibraries = module.getAllLibraries( );
+		assertEquals( 3, allLibraries.size( ) );
+		for ( int i = 0; i < allLibraries.size( ); i++ )
+		{
+			Library library = allLibraries.get( i );
+			assertTrue( library.isValid( ) );
+			assertSame( module.getSession( ), library.getSession( ) );
+		}
+		assertSame( module, libraries.get( 0 ).getHost( ) );
+		assertSame( libraries.get( 0 ), libraries.get( 0 ).getLibraries( )
+				.get( 0 ).getHost( ) );
+
+		LabelHandle label1 = (LabelHandle) handle
+				.findElement( "designLabel1" ); //$NON-NLS-1$
+		assertEquals( label3Text, label1.getText( ) );
+		assertEquals( "1mm", label1.getWidth( ).getStringValue( ) ); //$NON-NLS-1$
+		LabelHandle label2 = (LabelHandle) handle
+				.findElement( "designLabel2" ); //$NON-NLS-1$
+		assertEquals( "Library Two", label2.getText( ) ); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that the designs opened with the same cache share the parsed
+	 * libraries, and each design gets its own copy of them.
+	 *
+	 * @throws Exception
+	 */
+
+	public void testCachedLibraries( ) throws Exception
+	{
+		LibraryCache cache = new LibraryCache( 10 );
+		ModuleOption options = new ModuleOption( );
+		options.setLibraryCache( cache );
+
+		ReportDesignHandle design1 = openDesign( options );
+		checkDesign( design1, "Library Three" ); //$NON-NLS-1$
+		assertEquals( 3, cache.size( ) );
+		assertEquals( 0, cache.getStatistics( ).getHitCount( ) );
+		assertEquals( 3, cache.getStatistics( ).getMissCount( ) );
+
+		ReportDesignHandle design2 = openDesign( options );
+		checkDesign( design2, "Library Three" ); //$NON-NLS-1$
+		assertEquals( 2, cache.getStatistics( ).getHitCount( ) );
+		assertEquals( 3, cache.getStatistics( ).getMissCount( ) );
+
+		List<Library> libraries1 = design1.getModule( ).getAllLibraries( );
+		List<Library> libraries2 = design2.getModule( ).getAllLibraries( );
+		for ( int i = 0; i < libraries1.size( ); i++ )
+			assertNotSame( libraries1.get( i ), libraries2.get( i ) );
+
+		// the designs without the cache still parse the libraries
+		ReportDesignHandle design3 = openDesign( new ModuleOption( ) );
+		checkDesign( design3, "Library Three" ); //$NON-NLS-1$
+		assertEquals( 2, cache.getStatistics( ).getHitCount( ) );
+
+		design1.close( );
+		design2.close( );
+		design3.close( );
+	}
+
+	/**
+	 * Tests that a cached library is parsed again once a library it includes
+	 * is changed, and the cache size is limited.
+	 *
+	 * @throws Exception
+	 */
+
+	public void testModifiedLibrary( ) throws Exception
+	{
+		LibraryCache cache = new LibraryCache( 10 );
+		ModuleOption options = new ModuleOption( );
+		options.setLibraryCache( cache );
+
+		openDesign( options ).close( );
+		assertEquals( 3, cache.getStatistics( ).getMissCount( ) );
+
+		File file = new File( lib3File );
+		long lastModified = file.lastModified( );
+		FileOutputStream out = new FileOutputStream( file );
+		out.write( getLibrary3( "Library Three Changed" ).getBytes( "UTF-8" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		out.close( );
+		file.setLastModified( lastModified + 2000 );
+
+		// the first library is parsed again as the nested one is changed
+		ReportDesignHandle design = openDesign( options );
+		checkDesign( design, "Library Three Changed" ); //$NON-NLS-1$
+		assertEquals( 1, cache.getStatistics( ).getHitCount( ) );
+		assertEquals( 5, cache.getStatistics( ).getMissCount( ) );
+		design.close( );
+
+		cache.setMaxSize( 1 );
+		assertEquals( 1, cache.size( ) );
+		assertTrue( cache.getStatistics( ).getEvictionCount( ) >= 2 );
+
+		cache.clear( );
+		assertEquals( 0, cache.size( ) );
+	}
+
+	/**
+	 * Tests that the libraries parsed in parallel are included in the same
+	 * order as the ones parsed one by one.
+	 *
+	 * @throws Exception
+	 */
+
+	public void testParallelLoading( ) throws Exception
+	{
+		ModuleOption options = new ModuleOption( );
+		options.setParallelLibraryLoading( true );
+
+		ReportDesignHandle design = openDesign( options );
+		checkDesign( design, "Library Three" ); //$NON-NLS-1$
+		design.close( );
+
+		LibraryCache cache = new LibraryCache( 10 );
+		options.setLibraryCache( cache );
+		openDesign( options ).close( );
+		design = openDesign( options );
+		checkDesign( design, "Library Three" ); //$NON-NLS-1$
+		assertEquals( 2, cache.getStatistics( ).getHitCount( ) );
+		design.close( );
+	}
+
+	private static String getLibrary3( String text )
+	{
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" //$NON-NLS-1$
+				+ "<library xmlns=\"http://www.eclipse.org/birt/2005/design\" version=\"3.2.23\" id=\"1\">\n" //$NON-NLS-1$
+				+ "    <components>\n" //$NON-NLS-1$
+				+ "        <label name=\"libLabel3\" id=\"2\">\n" //$NON-NLS-1$
+				+ "            <text-property name=\"text\">" + text //$NON-NLS-1$
+				+ "</text-property>\n" //$NON-NLS-1$
+				+ "        </label>\n" //$NON-NLS-1$
+				+ "    </components>\n" //$NON-NLS-1$
+				+ "    <page-setup>\n" //$NON-NLS-1$
+				+ "        <simple-master-page name=\"My Page\" id=\"3\"/>\n" //$NON-NLS-1$
+				+ "    </page-setup>\n" //$NON-NLS-1$
+				+ "</library>\n"; //$NON-NLS-1$
+	}
+}
@@ -88,4 +88,19 @@ public interface IModuleOption
 	 */
 
 	String TO_LATEST_VERSION = "toLatestVersion"; //$NON-NLS-1$
+
+	/**
+	 * Key to indicate the cache of the parsed libraries, which is shared by
+	 * the sessions opening the modules. The value is a
+	 * <code>LibraryCache</code>.
+	 */
+
+	String LIBRARY_CACHE_KEY = "libraryCache"; //$NON-NLS-1$
+
+	/**
+	 * Key to control whether the libraries included by a module are parsed in
+	 * parallel. The value is a Boolean, default value is false.
+	 */
+
+	String PARALLEL_LIBRARY_LOADING_KEY = "parallelLibraryLoading"; //$NON-NLS-1$
 }
@@ -16,6 +16,8 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
+import org.eclipse.birt.report.model.core.LibraryCache;
+
 import com.ibm.icu.util.ULocale;
 
 /**
@@ -254,6 +256,62 @@ public class ModuleOption implements IModuleOption
 		return ( (Boolean) retValue ).booleanValue( );
 	}
 
+	/**
+	 * Returns the cache of the parsed libraries shared by the sessions.
+	 * 
+	 * @return the library cache, null if it is not set
+	 */
+
+	public LibraryCache getLibraryCache( )
+	{
+		Object cache = options.get( LIBRARY_CACHE_KEY );
+		if ( cache instanceof LibraryCache )
+			return (LibraryCache) cache;
+
+		return null;
+	}
+
+	/**
+	 * Sets the cache of the parsed libraries shared by the sessions.
+	 * 
+	 * @param cache
+	 *            the library cache
+	 */
+
+	public void setLibraryCache( LibraryCache cache )
+	{
+		if ( cache != null )
+			options.put( LIBRARY_CACHE_KEY, cache );
+	}
+
+	/**
+	 * Returns whether the libraries included by a module are parsed in
+	 * parallel.
+	 * 
+	 * @return true if the libraries are parsed in parallel, otherwise false
+	 */
+
+	public boolean useParallelLibraryLoading( )
+	{
+		Object retValue = options.get( PARALLEL_LIBRARY_LOADING_KEY );
+		if ( !( retValue instanceof Boolean ) )
+			return false;
+
+		return ( (Boolean) retValue ).booleanValue( );
+	}
+
+	/**
+	 * Sets whether the libraries included by a module are parsed in parallel.
+	 * 
+	 * @param parallel
+	 *            true to parse the libraries in parallel
+	 */
+
+	public void setParallelLibraryLoading( boolean parallel )
+	{
+		options.put( PARALLEL_LIBRARY_LOADING_KEY, Boolean.valueOf( parallel ) );
+	}
+
 	/**
 	 * Returns the copy of the current options.
 	 * 
@@ -145,6 +145,12 @@ public class DesignSessionImpl
 
 	private HashMap<String, Object> defaultValues = new HashMap<String, Object>( );
 
+	/**
+	 * The cache of the parsed libraries shared with other sessions.
+	 */
+
+	private LibraryCache libraryCache = null;
+
 	/**
 	 * Resource change listener list to handle the resource change events.
 	 */
@@ -256,6 +262,32 @@ public class DesignSessionImpl
 
 		if ( resourceFolder == null )
 			resourceFolder = options.getResourceFolder( );
+
+		if ( libraryCache == null )
+			libraryCache = options.getLibraryCache( );
+	}
+
+	/**
+	 * Returns the cache of the parsed libraries used by this session.
+	 * 
+	 * @return the library cache, null if the libraries are always parsed
+	 */
+
+	public LibraryCache getLibraryCache( )
+	{
+		return libraryCache;
+	}
+
+	/**
+	 * Sets the cache of the parsed libraries used by this session.
+	 * 
+	 * @param libraryCache
+	 *            the library cache, null to always parse the libraries
+	 */
+
+	public void setLibraryCache( LibraryCache libraryCache )
+	{
+		this.libraryCache = libraryCache;
 	}
 
 	/**
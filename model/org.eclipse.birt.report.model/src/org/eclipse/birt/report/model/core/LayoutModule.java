@@ -381,16 +381,12 @@ public abstract class LayoutModule extends Module
 
 		try
 		{
-			ModuleOption option = new ModuleOption( );			
-			
-			//pass the original options to the new reader.
-			if (options != null && options.getOptions().size() > 0)
-				option.setOptions( options.getOptions() );
-			option.setMarkLineNumber( false );
-			
-			library = LibraryReader.getInstance( ).read( session, this, url,
-					namespace, url.openStream( ), option, reloadLibs );
-			library.setLocation( url );
+			LibraryCache cache = session == null ? null : session
+					.getLibraryCache( );
+			if ( cache != null )
+				library = cache.loadLibrary( this, namespace, reloadLibs, url );
+			else
+				library = readLibrary( namespace, reloadLibs, url );
 
 			if ( StringUtil.isBlank( namespace ) )
 			{
@@ -410,6 +406,38 @@ public abstract class LayoutModule extends Module
 		}
 	}
 
+	/**
+	 * Parses the library included by this module.
+	 * 
+	 * @param namespace
+	 *            the namespace of the library
+	 * @param reloadLibs
+	 *            the map contains reload libraries
+	 * @param url
+	 *            the found library URL
+	 * @return the parsed library
+	 * @throws DesignFileException
+	 *             if the library file has fatal error.
+	 * @throws IOException
+	 *             if the library file can not be read.
+	 */
+
+	Library readLibrary( String namespace, Map<String, Library> reloadLibs,
+			URL url ) throws DesignFileException, IOException
+	{
+		ModuleOption option = new ModuleOption( );
+
+		// pass the original options to the new reader.
+		if ( options != null && options.getOptions( ).size( ) > 0 )
+			option.setOptions( options.getOptions( ) );
+		option.setMarkLineNumber( false );
+
+		Library library = LibraryReader.getInstance( ).read( session, this,
+				url, namespace, url.openStream( ), option, reloadLibs );
+		library.setLocation( url );
+		return library;
+	}
+
 	/**
 	 * Returns libraries with the given namespace. This method checks the name
 	 * space in included libraries within the given depth.
@@ -463,18 +491,46 @@ public abstract class LayoutModule extends Module
 		}
 
 		Library library = null;
+		DesignFileException loadException = null;
 
 		try
 		{
 			library = loadLibrary( includeLibrary.getFileName( ),
 					includeLibrary.getNamespace( ), reloadLibs, url );
-			library.setReadOnly( );
 		}
 		catch ( DesignFileException e )
 		{
-			logger.log( Level.WARNING, e.getMessage( ), e );
-			Exception fatalException = ModelUtil.getFirstFatalException( e
-					.getExceptionList( ) );
+			loadException = e;
+		}
+
+		addLibrarySilently( includeLibrary, library, loadException,
+				reloadLibs );
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.birt.report.model.core.Module#addLibrarySilently(org.eclipse
+	 * .birt.report.model.api.elements.structures.IncludedLibrary,
+	 * org.eclipse.birt.report.model.elements.Library,
+	 * org.eclipse.birt.report.model.api.DesignFileException, java.util.Map)
+	 */
+
+	public void addLibrarySilently( IncludedLibrary includeLibrary,
+			Library library, DesignFileException loadException,
+			Map<String, Library> reloadLibs )
+	{
+		if ( loadException == null )
+		{
+			library.setReadOnly( );
+		}
+		else
+		{
+			logger.log( Level.WARNING, loadException.getMessage( ),
+					loadException );
+			Exception fatalException = ModelUtil
+					.getFirstFatalException( loadException.getExceptionList( ) );
 
 			library = new Library( session, this );
 			library.setFatalException( fatalException );
@@ -483,7 +539,7 @@ public abstract class LayoutModule extends Module
 			library.setID( library.getNextID( ) );
 			library.addElementID( library );
 			library.setValid( false );
-			library.setAllExceptions( e.getExceptionList( ) );
+			library.setAllExceptions( loadException.getExceptionList( ) );
 		}
 
 		addLibrary( library );
@@ -0,0 +1,429 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.model.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.birt.core.util.CacheStatistics;
+import org.eclipse.birt.report.model.api.DesignFileException;
+import org.eclipse.birt.report.model.api.ModuleOption;
+import org.eclipse.birt.report.model.elements.Library;
+
+/**
+ * The cache of the parsed libraries, shared by the sessions opening designs
+ * which include the same libraries. It is passed to a session by the
+ * <code>ModuleOption.LIBRARY_CACHE_KEY</code> option.
+ * <p>
+ * The libraries are keyed by their location. A cached library is parsed again
+ * once the modification time or the length of the library file or of one of
+ * the libraries it includes changes. Only the libraries in the file system
+ * which are parsed without errors are cached. The parsed library is never
+ * handed out, each including module gets a copy of it.
+ * <p>
+ * The nested libraries are resolved by the resource locator and the resource
+ * folder of the session, so one cache should be used only by the sessions with
+ * the same resource settings.
+ */
+
+public class LibraryCache
+{
+
+	private int maxSize;
+
+	// access-ordered LRU map
+	private final LinkedHashMap<String, CachedLibrary> libraries = new LinkedHashMap<String, CachedLibrary>(
+			16, 0.75f, true );
+
+	private final CacheStatistics statistics = new CacheStatistics( );
+
+	/**
+	 * Constructs the cache.
+	 *
+	 * @param maxSize
+	 *            the max count of cached libraries
+	 */
+
+	public LibraryCache( int maxSize )
+	{
+		setMaxSize( maxSize );
+	}
+
+	/**
+	 * Changes the max count of cached libraries. The libraries exceeding the
+	 * new limit are evicted immediately.
+	 *
+	 * @param maxSize
+	 *            the max count, 0 to disable the cache.
+	 */
+
+	public synchronized void setMaxSize( int maxSize )
+	{
+		this.maxSize = Math.max( 0, maxSize );
+		evict( );
+	}
+
+	/**
+	 * Returns the max count of cached libraries.
+	 *
+	 * @return the max count of cached libraries
+	 */
+
+	public synchronized int getMaxSize( )
+	{
+		return maxSize;
+	}
+
+	/**
+	 * Returns the count of cached libraries.
+	 *
+	 * @return the count of cached libraries
+	 */
+
+	public synchronized int size( )
+	{
+		return libraries.size( );
+	}
+
+	/**
+	 * Returns the hit, miss, eviction and load time counters of the cache.
+	 *
+	 * @return the statistics of the cache
+	 */
+
+	public CacheStatistics getStatistics( )
+	{
+		return statistics;
+	}
+
+	/**
+	 * Removes all the cached libraries.
+	 */
+
+	public synchronized void clear( )
+	{
+		libraries.clear( );
+	}
+
+	/**
+	 * Loads a library included by the given module. The library is parsed if
+	 * it is not cached or is changed since it is cached, otherwise a copy of
+	 * the cached library is returned.
+	 *
+	 * @param host
+	 *            the module including the library
+	 * @param namespace
+	 *            the namespace of the library
+	 * @param reloadLibs
+	 *            the map contains reload libraries
+	 * @param url
+	 *            the found library URL
+	 * @return the library owned by the host
+	 * @throws DesignFileException
+	 *             if the library file has fatal error.
+	 * @throws IOException
+	 *             if the library file can not be read.
+	 */
+
+	Library loadLibrary( LayoutModule host, String namespace,
+			Map<String, Library> reloadLibs, URL url )
+			throws DesignFileException, IOException
+	{
+		File file = getFile( url.toExternalForm( ) );
+		if ( file == null )
+			return host.readLibrary( namespace, reloadLibs, url );
+
+		String key = url.toExternalForm( );
+		CachedLibrary cached;
+		synchronized ( this )
+		{
+			cached = libraries.get( key );
+		}
+		if ( cached != null )
+		{
+			Library library = cached.copy( host, namespace );
+			if ( library != null )
+			{
+				statistics.recordHit( );
+				return library;
+			}
+		}
+		statistics.recordMiss( );
+
+		// get the time stamps before parsing, so a change during the parsing
+		// is detected by the next load
+		long lastModified = file.lastModified( );
+		long length = file.length( );
+		long start = System.nanoTime( );
+		Library library = host.readLibrary( namespace, reloadLibs, url );
+		statistics.recordLoad( System.nanoTime( ) - start );
+
+		CachedLibrary newCached = CachedLibrary.create( library, file,
+				lastModified, length );
+		synchronized ( this )
+		{
+			if ( newCached != null )
+			{
+				libraries.put( key, newCached );
+				evict( );
+			}
+			else if ( libraries.get( key ) == cached )
+			{
+				libraries.remove( key );
+			}
+		}
+		return library;
+	}
+
+	private void evict( )
+	{
+		Iterator<Map.Entry<String, CachedLibrary>> iter = libraries
+				.entrySet( ).iterator( );
+		while ( libraries.size( ) > maxSize && iter.hasNext( ) )
+		{
+			iter.next( );
+			iter.remove( );
+			statistics.recordEviction( );
+		}
+	}
+
+	/**
+	 * Sets the session of the library and the libraries it includes.
+	 *
+	 * @param library
+	 *            the library
+	 * @param session
+	 *            the session, can be null
+	 */
+
+	private static void setSession( Library library, DesignSessionImpl session )
+	{
+		library.session = session;
+		List<Library> libs = library.getAllLibraries( );
+		for ( int i = 0; i < libs.size( ); i++ )
+			libs.get( i ).session = session;
+	}
+
+	/**
+	 * @param location
+	 *            the location of a library
+	 * @return the library file, null if it isn't in the file system
+	 */
+
+	private static File getFile( String location )
+	{
+		if ( location == null )
+			return null;
+
+		URL url;
+		try
+		{
+			url = new URL( location );
+		}
+		catch ( MalformedURLException e )
+		{
+			return null;
+		}
+		if ( !"file".equals( url.getProtocol( ) ) ) //$NON-NLS-1$
+			return null;
+		try
+		{
+			return new File( url.toURI( ) );
+		}
+		catch ( URISyntaxException e )
+		{
+			// the URL is not encoded
+			return new File( url.getPath( ) );
+		}
+		catch ( IllegalArgumentException e )
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * A parsed library and the time stamps of its files. The library doesn't
+	 * belong to any session or host while it is cached.
+	 */
+
+	private static class CachedLibrary
+	{
+
+		final Library library;
+
+		// the library file is the first one, then the included libraries
+		final String[] locations;
+		final File[] files;
+		final long[] lastModified;
+		final long[] length;
+
+		private CachedLibrary( Library library, List<File> files,
+				List<String> locations )
+		{
+			this.library = library;
+			this.files = files.toArray( new File[files.size( )] );
+			this.locations = locations.toArray( new String[locations.size( )] );
+			this.lastModified = new long[this.files.length];
+			this.length = new long[this.files.length];
+		}
+
+		/**
+		 * Creates the cache entry of a parsed library.
+		 *
+		 * @param library
+		 *            the parsed library
+		 * @param file
+		 *            the library file
+		 * @param lastModified
+		 *            the modification time of the library file before parsing
+		 * @param length
+		 *            the length of the library file before parsing
+		 * @return the cache entry, null if the library can't be cached
+		 */
+
+		static CachedLibrary create( Library library, File file,
+				long lastModified, long length )
+		{
+			if ( lastModified == 0 || !isCacheable( library ) )
+				return null;
+
+			List<File> files = new ArrayList<File>( );
+			List<String> locations = new ArrayList<String>( );
+			files.add( file );
+			locations.add( library.getLocation( ) );
+			List<Library> libs = library.getAllLibraries( );
+			for ( int i = 0; i < libs.size( ); i++ )
+			{
+				Library lib = libs.get( i );
+				if ( !isCacheable( lib ) )
+					return null;
+				File libFile = getFile( lib.getLocation( ) );
+				if ( libFile == null )
+					return null;
+				files.add( libFile );
+				locations.add( lib.getLocation( ) );
+			}
+
+			// the cached library is detached from the host and the session
+			// which parse it
+			Library master = library.contextClone( null );
+			setSession( master, null );
+
+			CachedLibrary cached = new CachedLibrary( master, files, locations );
+			cached.lastModified[0] = lastModified;
+			cached.length[0] = length;
+			for ( int i = 1; i < cached.files.length; i++ )
+			{
+				cached.lastModified[i] = cached.files[i].lastModified( );
+				cached.length[i] = cached.files[i].length( );
+				if ( cached.lastModified[i] == 0 )
+					return null;
+			}
+			return cached;
+		}
+
+		private static boolean isCacheable( Library library )
+		{
+			List<Exception> exceptions = library.getAllExceptions( );
+			return library.isValid( ) && library.getFatalException( ) == null
+					&& ( exceptions == null || exceptions.isEmpty( ) );
+		}
+
+		/**
+		 * Copies the cached library for the given host.
+		 *
+		 * @param host
+		 *            the module including the library
+		 * @param namespace
+		 *            the namespace of the library
+		 * @return the copy of the library, null if the library is changed
+		 *         since it is cached or the host is one of the included
+		 *         libraries
+		 */
+
+		synchronized Library copy( LayoutModule host, String namespace )
+		{
+			if ( isModified( ) || isIncludedBy( host ) )
+				return null;
+
+			setSession( library, host.getSession( ) );
+			Library cloned;
+			try
+			{
+				cloned = library.contextClone( host );
+			}
+			finally
+			{
+				setSession( library, null );
+			}
+
+			cloned.setNamespace( namespace );
+			ModuleOption option = new ModuleOption( );
+			ModuleOption hostOptions = host.getOptions( );
+			if ( hostOptions != null && hostOptions.getOptions( ).size( ) > 0 )
+				option.setOptions( hostOptions.getOptions( ) );
+			option.setMarkLineNumber( false );
+			cloned.setOptions( option );
+
+			// the included libraries are read-only as the parsed ones
+			List<Library> libs = cloned.getAllLibraries( );
+			for ( int i = 0; i < libs.size( ); i++ )
+				libs.get( i ).setReadOnly( );
+			return cloned;
+		}
+
+		private boolean isModified( )
+		{
+			for ( int i = 0; i < files.length; i++ )
+			{
+				if ( files[i].lastModified( ) != lastModified[i]
+						|| files[i].length( ) != length[i] )
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Checks whether the host or one of its hosts is the cached library or
+		 * one of the libraries it includes. The copy would include its host
+		 * then, the circular inclusion is reported by parsing the library.
+		 */
+
+		private boolean isIncludedBy( Module host )
+		{
+			Module module = host;
+			while ( module != null )
+			{
+				String location = module.getLocation( );
+				if ( location != null )
+				{
+					for ( int i = 0; i < locations.length; i++ )
+					{
+						if ( location.equals( locations[i] ) )
+							return true;
+					}
+				}
+				module = module instanceof Library ? ( (Library) module )
+						.getHost( ) : null;
+			}
+			return false;
+		}
+	}
+}
@@ -2258,6 +2258,28 @@ public abstract class ModuleImpl extends DesignElement
 		// do nothing
 	}
 
+	/**
+	 * Adds a library loaded by {@link #loadLibrary(String, String, Map, URL)}
+	 * into this module. If the loading failed, an invalid library recording
+	 * the error is added instead.
+	 * 
+	 * @param includeLibrary
+	 *            the included library structure
+	 * @param library
+	 *            the loaded library, null if the loading failed
+	 * @param loadException
+	 *            the error of the loading, null if the library is loaded
+	 * @param reloadLibs
+	 *            the map contains reload libraries
+	 */
+
+	public void addLibrarySilently( IncludedLibrary includeLibrary,
+			Library library, DesignFileException loadException,
+			Map<String, Library> reloadLibs )
+	{
+		// do nothing
+	}
+
 	/**
 	 * Returns included libraries within the given depth. Uses the Breadth-First
 	 * Search Algorithm.
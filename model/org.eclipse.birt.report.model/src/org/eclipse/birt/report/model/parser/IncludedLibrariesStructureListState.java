@@ -17,6 +17,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.birt.report.model.api.IResourceLocator;
+import org.eclipse.birt.report.model.api.ModuleOption;
 import org.eclipse.birt.report.model.api.command.LibraryException;
 import org.eclipse.birt.report.model.api.elements.structures.IncludedLibrary;
 import org.eclipse.birt.report.model.api.util.StringUtil;
@@ -24,6 +25,7 @@ import org.eclipse.birt.report.model.core.DesignElement;
 import org.eclipse.birt.report.model.core.Module;
 import org.eclipse.birt.report.model.elements.Library;
 import org.eclipse.birt.report.model.metadata.PropertyDefn;
+import org.eclipse.birt.report.model.parser.ParallelLibraryLoader.PendingLibrary;
 import org.eclipse.birt.report.model.util.AbstractParseState;
 import org.eclipse.birt.report.model.util.LibraryUtil;
 import org.xml.sax.SAXException;
@@ -45,6 +47,13 @@ public class IncludedLibrariesStructureListState
 	private static Logger logger = Logger
 			.getLogger( IncludedLibrariesStructureListState.class.getName( ) );
 
+	/**
+	 * The loader of the libraries parsed in parallel, null if the libraries
+	 * are loaded one by one.
+	 */
+
+	private ParallelLibraryLoader loader = null;
+
 	/**
 	 * Default constructor.
 	 * 
@@ -58,6 +67,10 @@ public class IncludedLibrariesStructureListState
 			DesignElement element )
 	{
 		super( theHandler, element );
+
+		ModuleOption options = handler.module.getOptions( );
+		if ( options != null && options.useParallelLibraryLoading( ) )
+			loader = new ParallelLibraryLoader( handler );
 	}
 
 	/*
@@ -72,20 +85,95 @@ public class IncludedLibrariesStructureListState
 		int tagValue = tagName.toLowerCase( ).hashCode( );
 		if ( ParserSchemaConstants.STRUCTURE_TAG == tagValue )
 			return new IncludedLibraryStructureState( handler, element,
-					propDefn );
+					propDefn, loader );
 
 		return super.startElement( tagName );
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.birt.report.model.parser.ListPropertyState#end()
+	 */
+
+	public void end( ) throws SAXException
+	{
+		super.end( );
+
+		if ( loader != null )
+			loader.loadLibraries( );
+	}
+
+	/**
+	 * Checks the included library and adds it to the module.
+	 * 
+	 * @param handler
+	 *            the parser handler
+	 * @param includeLibrary
+	 *            the included library structure
+	 * @param url
+	 *            the found library URL
+	 * @param loaded
+	 *            the library parsed ahead, null if it is parsed now
+	 */
+
+	static void addLibrary( ModuleParserHandler handler,
+			IncludedLibrary includeLibrary, URL url, PendingLibrary loaded )
+	{
+		String namespace = includeLibrary.getNamespace( );
+
+		// need to find the outermost module so that to make sure only one
+		// instance is reload for the same library file.
+
+		Module outermostModule = handler.module.findOutermostModule( );
+
+		Library foundLib = null;
+		try
+		{
+			foundLib = LibraryUtil.checkIncludeLibrary( handler.module,
+					namespace, url, outermostModule );
+		}
+		catch ( LibraryException ex )
+		{
+			if ( LibraryException.DESIGN_EXCEPTION_LIBRARY_ALREADY_INCLUDED
+					.equalsIgnoreCase( ex.getErrorCode( ) ) )
+				handler.getErrorHandler( ).semanticWarning( ex );
+			else
+				handler.getErrorHandler( ).semanticError( ex );
+			logger.log( Level.WARNING, ex.getMessage( ), ex );
+
+			return;
+		}
+
+		Map<String, Library> reloadLibs = handler.reloadLibs;
+
+		// get the reload library if applicable.
+		foundLib = reloadLibs.get( namespace );
+
+		if ( foundLib == null && loaded != null && loaded.isLoaded( ) )
+		{
+			handler.module.addLibrarySilently( includeLibrary, loaded
+					.getLibrary( ), loaded.getLoadException( ), reloadLibs );
+			return;
+		}
+
+		handler.module.loadLibrarySilently( includeLibrary, foundLib,
+				reloadLibs, url );
+	}
+
 	private static class IncludedLibraryStructureState
 			extends
 				CompatibleStructureState
 	{
 
+		private ParallelLibraryLoader loader;
+
 		IncludedLibraryStructureState( ModuleParserHandler theHandler,
-				DesignElement element, PropertyDefn propDefn )
+				DesignElement element, PropertyDefn propDefn,
+				ParallelLibraryLoader loader )
 		{
 			super( theHandler, element, propDefn );
+			this.loader = loader;
 		}
 
 		/*
@@ -112,38 +200,13 @@ public class IncludedLibrariesStructureListState
 			URL url = handler.module.findResource(
 					includeLibrary.getFileName( ), IResourceLocator.LIBRARY );
 
-			String namespace = includeLibrary.getNamespace( );
-
-			// need to find the outermost module so that to make sure only one
-			// instance is reload for the same library file.
-
-			Module outermostModule = handler.module.findOutermostModule( );
-
-			Library foundLib = null;
-			try
-			{
-				foundLib = LibraryUtil.checkIncludeLibrary( handler.module,
-						namespace, url, outermostModule );
-			}
-			catch ( LibraryException ex )
-			{
-				if ( LibraryException.DESIGN_EXCEPTION_LIBRARY_ALREADY_INCLUDED
-						.equalsIgnoreCase( ex.getErrorCode( ) ) )
-					handler.getErrorHandler( ).semanticWarning( ex );
-				else
-					handler.getErrorHandler( ).semanticError( ex );
-				logger.log( Level.WARNING, ex.getMessage( ), ex );
-
-				return;
-			}
-
-			Map<String, Library> reloadLibs = handler.reloadLibs;
-
-			// get the reload library if applicable.
-			foundLib = reloadLibs.get( namespace );
+			// the libraries loaded in parallel are added at the end of the
+			// list
 
-			handler.module.loadLibrarySilently( includeLibrary, foundLib,
-					reloadLibs, url );
+			if ( loader != null )
+				loader.addLibrary( includeLibrary, url );
+			else
+				addLibrary( handler, includeLibrary, url, null );
 		}
 	}
 
@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.model.parser;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.birt.report.model.api.DesignFileException;
+import org.eclipse.birt.report.model.api.command.LibraryException;
+import org.eclipse.birt.report.model.api.elements.structures.IncludedLibrary;
+import org.eclipse.birt.report.model.core.Module;
+import org.eclipse.birt.report.model.elements.Library;
+import org.eclipse.birt.report.model.util.LibraryUtil;
+
+/**
+ * Loads the libraries included by a module in parallel. The libraries are
+ * parsed on a shared, bounded thread pool, the parsing thread runs the ones
+ * not started yet itself. Once all of them are parsed, they are checked and
+ * added to the module one by one in the order they are included, so the
+ * module is the same as the one loading the libraries one after another.
+ */
+
+final class ParallelLibraryLoader
+{
+
+	/**
+	 * the max count of the threads parsing libraries for all the sessions
+	 */
+
+	static final int MAX_THREAD_COUNT = Math.max( 2, Runtime.getRuntime( )
+			.availableProcessors( ) );
+
+	private static ExecutorService executor;
+
+	private final ModuleParserHandler handler;
+
+	private final List<PendingLibrary> libraries = new ArrayList<PendingLibrary>( );
+
+	/**
+	 * @param handler
+	 *            the handler parsing the module including the libraries
+	 */
+
+	ParallelLibraryLoader( ModuleParserHandler handler )
+	{
+		this.handler = handler;
+	}
+
+	/**
+	 * Adds a library included by the module. It is loaded by
+	 * {@link #loadLibraries()}.
+	 *
+	 * @param includeLibrary
+	 *            the included library structure
+	 * @param url
+	 *            the found library URL
+	 */
+
+	void addLibrary( IncludedLibrary includeLibrary, URL url )
+	{
+		libraries.add( new PendingLibrary( includeLibrary, url ) );
+	}
+
+	/**
+	 * Loads the added libraries and adds them to the module.
+	 */
+
+	void loadLibraries( )
+	{
+		Module module = handler.module;
+		Module outermostModule = module.findOutermostModule( );
+
+		// the libraries loaded in parallel share the reload libraries with
+		// their nested libraries
+		final Map<String, Library> reloadLibs = Collections
+				.synchronizedMap( handler.reloadLibs );
+
+		List<PendingLibrary> parallelLibraries = new ArrayList<PendingLibrary>( );
+		Set<String> namespaces = new HashSet<String>( );
+		Set<URL> urls = new HashSet<URL>( );
+		for ( int i = 0; i < libraries.size( ); i++ )
+		{
+			PendingLibrary library = libraries.get( i );
+			String namespace = library.includeLibrary.getNamespace( );
+
+			// the libraries which are not loaded, or are loaded by another
+			// way, are left to the check in the sequential pass
+			if ( library.url == null || reloadLibs.get( namespace ) != null
+					|| !namespaces.add( namespace )
+					|| !urls.add( library.url ) )
+				continue;
+			try
+			{
+				LibraryUtil.checkIncludeLibrary( module, namespace,
+						library.url, outermostModule );
+			}
+			catch ( LibraryException e )
+			{
+				continue;
+			}
+			parallelLibraries.add( library );
+		}
+
+		if ( parallelLibraries.size( ) > 1 )
+		{
+			for ( int i = 0; i < parallelLibraries.size( ); i++ )
+			{
+				final PendingLibrary library = parallelLibraries.get( i );
+				final Module host = module;
+				library.future = new FutureTask<Library>(
+						new Callable<Library>( ) {
+
+							public Library call( ) throws Exception
+							{
+								IncludedLibrary includeLibrary = library.includeLibrary;
+								return host.loadLibrary( includeLibrary
+										.getFileName( ), includeLibrary
+										.getNamespace( ), reloadLibs,
+										library.url );
+							}
+						} );
+			}
+
+			// the first library is parsed by this thread, the others are
+			// parsed by the pool unless this thread reaches them first
+			for ( int i = 1; i < parallelLibraries.size( ); i++ )
+				getExecutor( ).execute( parallelLibraries.get( i ).future );
+			for ( int i = 0; i < parallelLibraries.size( ); i++ )
+				parallelLibraries.get( i ).future.run( );
+			for ( int i = 0; i < parallelLibraries.size( ); i++ )
+				parallelLibraries.get( i ).waitFor( );
+			for ( int i = 0; i < parallelLibraries.size( ); i++ )
+				parallelLibraries.get( i ).rethrowFailure( );
+		}
+
+		for ( int i = 0; i < libraries.size( ); i++ )
+		{
+			PendingLibrary library = libraries.get( i );
+			IncludedLibrariesStructureListState.addLibrary( handler,
+					library.includeLibrary, library.url, library );
+		}
+		libraries.clear( );
+	}
+
+	private static synchronized ExecutorService getExecutor( )
+	{
+		if ( executor == null )
+		{
+			ThreadPoolExecutor pool = new ThreadPoolExecutor( MAX_THREAD_COUNT,
+					MAX_THREAD_COUNT,
+					60,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>( ),
+					new ThreadFactory( ) {
+
+						private AtomicInteger threadCount = new AtomicInteger( );
+
+						public Thread newThread( Runnable runnable )
+						{
+							Thread thread = new Thread( runnable,
+									"BIRT-LibraryLoader-" //$NON-NLS-1$
+											+ threadCount.incrementAndGet( ) );
+							thread.setDaemon( true );
+							return thread;
+						}
+					} );
+			// the pool is idle when no module is parsed
+			pool.allowCoreThreadTimeOut( true );
+			executor = pool;
+		}
+		return executor;
+	}
+
+	/**
+	 * An included library and the result of parsing it ahead.
+	 */
+
+	static class PendingLibrary
+	{
+
+		final IncludedLibrary includeLibrary;
+		final URL url;
+		FutureTask<Library> future;
+
+		private Library library;
+		private DesignFileException loadException;
+		private Throwable failure;
+
+		PendingLibrary( IncludedLibrary includeLibrary, URL url )
+		{
+			this.includeLibrary = includeLibrary;
+			this.url = url;
+		}
+
+		/**
+		 * @return whether the library is parsed ahead
+		 */
+
+		boolean isLoaded( )
+		{
+			return future != null;
+		}
+
+		/**
+		 * @return the library parsed ahead, null if the parsing failed
+		 */
+
+		Library getLibrary( )
+		{
+			return library;
+		}
+
+		/**
+		 * @return the error of parsing the library ahead
+		 */
+
+		DesignFileException getLoadException( )
+		{
+			return loadException;
+		}
+
+		/**
+		 * Waits for the parsing, the waiting is not interrupted as the other
+		 * parsing threads use the reload libraries of the module.
+		 */
+
+		private void waitFor( )
+		{
+			boolean interrupted = false;
+			try
+			{
+				while ( true )
+				{
+					try
+					{
+						library = future.get( );
+						return;
+					}
+					catch ( InterruptedException e )
+					{
+						interrupted = true;
+					}
+				}
+			}
+			catch ( ExecutionException e )
+			{
+				Throwable cause = e.getCause( );
+				if ( cause instanceof DesignFileException )
+					loadException = (DesignFileException) cause;
+				else
+					failure = cause;
+			}
+			finally
+			{
+				if ( interrupted )
+					Thread.currentThread( ).interrupt( );
+			}
+		}
+
+		/**
+		 * Rethrows the unexpected error of the parsing.
+		 */
+
+		private void rethrowFailure( )
+		{
+			if ( failure instanceof RuntimeException )
+				throw (RuntimeException) failure;
+			if ( failure instanceof Error )
+				throw (Error) failure;
+			if ( failure != null )
+				throw new RuntimeException( failure );
+		}
+	}
+}
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.viewer.service;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.core.framework.Platform;
+import org.eclipse.birt.core.util.CacheStatistics;
+import org.eclipse.birt.report.engine.api.EngineConfig;
+import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.IReportEngineFactory;
+import org.eclipse.birt.report.engine.api.IReportRunnable;
+import org.eclipse.birt.report.model.api.LabelHandle;
+import org.eclipse.birt.report.model.api.ModuleOption;
+import org.eclipse.birt.report.model.api.ReportDesignHandle;
+import org.eclipse.birt.report.service.ReportDesignCache;
+
+/**
+ * TestCases for ReportDesignCache class. The designs are written to a
+ * temporary folder, and opened through the cache.
+ */
+public class ReportDesignCacheTest extends TestCase
+{
+
+	private static final String FOLDER = "utest" + File.separator //$NON-NLS-1$
+			+ "designcache"; //$NON-NLS-1$
+
+	private static final String LIBRARY = "cache.rptlibrary"; //$NON-NLS-1$
+
+	private IReportEngine engine;
+
+	private ReportDesignCache cache;
+
+	private File folder;
+
+	protected void setUp( ) throws Exception
+	{
+		super.setUp( );
+		Object factory = Platform
+				.createFactoryObject( IReportEngineFactory.EXTENSION_REPORT_ENGINE_FACTORY );
+		engine = ( (IReportEngineFactory) factory )
+				.createReportEngine( new EngineConfig( ) );
+		cache = new ReportDesignCache( engine, 2 );
+		folder = new File( FOLDER );
+		folder.mkdirs( );
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		cache.clear( );
+		engine.destroy( );
+		File[] files = folder.listFiles( );
+		if ( files != null )
+		{
+			for ( int i = 0; i < files.length; i++ )
+			{
+				files[i].delete( );
+			}
+		}
+		folder.delete( );
+		folder.getParentFile( ).delete( );
+		super.tearDown( );
+	}
+
+	/**
+	 * The design is parsed once, each request gets its own copy of it.
+	 */
+	public void testHit( ) throws Exception
+	{
+		File design = writeDesign( "a.rptdesign", "first", false ); //$NON-NLS-1$ //$NON-NLS-2$
+		IReportRunnable runnable1 = open( design, null );
+		IReportRunnable runnable2 = open( design, null );
+
+		CacheStatistics statistics = cache.getStatistics( );
+		assertEquals( 1, statistics.getMissCount( ) );
+		assertEquals( 1, statistics.getHitCount( ) );
+		assertEquals( 1, cache.size( ) );
+		assertNotSame( runnable1, runnable2 );
+		assertNotSame( runnable1.getDesignHandle( ), runnable2
+				.getDesignHandle( ) );
+		assertEquals( "first", getLabel( runnable1 ) ); //$NON-NLS-1$
+		assertEquals( "first", getLabel( runnable2 ) ); //$NON-NLS-1$
+		assertEquals( runnable1.getReportName( ), runnable2.getReportName( ) );
+	}
+
+	/**
+	 * The designs opened by other files or options are parsed again.
+	 */
+	public void testMiss( ) throws Exception
+	{
+		File design = writeDesign( "a.rptdesign", "first", false ); //$NON-NLS-1$ //$NON-NLS-2$
+		File other = writeDesign( "b.rptdesign", "second", false ); //$NON-NLS-1$ //$NON-NLS-2$
+		open( design, null );
+		assertEquals( "second", getLabel( open( other, null ) ) ); //$NON-NLS-1$
+
+		Map options = new HashMap( );
+		options.put( ModuleOption.PARSER_SEMANTIC_CHECK_KEY, Boolean.FALSE );
+		open( design, options );
+
+		CacheStatistics statistics = cache.getStatistics( );
+		assertEquals( 3, statistics.getMissCount( ) );
+		assertEquals( 0, statistics.getHitCount( ) );
+	}
+
+	/**
+	 * The cached design is parsed again once the design file changes.
+	 */
+	public void testDesignChanged( ) throws Exception
+	{
+		File design = writeDesign( "a.rptdesign", "first", false ); //$NON-NLS-1$ //$NON-NLS-2$
+		open( design, null );
+		long lastModified = design.lastModified( );
+
+		writeDesign( "a.rptdesign", "changed", false ); //$NON-NLS-1$ //$NON-NLS-2$
+		design.setLastModified( lastModified + 2000 );
+		assertEquals( "changed", getLabel( open( design, null ) ) ); //$NON-NLS-1$
+		assertEquals( "changed", getLabel( open( design, null ) ) ); //$NON-NLS-1$
+
+		CacheStatistics statistics = cache.getStatistics( );
+		assertEquals( 2, statistics.getMissCount( ) );
+		assertEquals( 1, statistics.getHitCount( ) );
+		assertEquals( 1, cache.size( ) );
+	}
+
+	/**
+	 * The cached design is parsed again once one of its libraries changes.
+	 */
+	public void testLibraryChanged( ) throws Exception
+	{
+		File library = writeLibrary( );
+		File design = writeDesign( "a.rptdesign", "first", true ); //$NON-NLS-1$ //$NON-NLS-2$
+		IReportRunnable runnable = open( design, null );
+		assertEquals( 1, ( (ReportDesignHandle) runnable.getDesignHandle( ) )
+				.getAllLibraries( ).size( ) );
+		open( design, null );
+		assertEquals( 1, cache.getStatistics( ).getHitCount( ) );
+
+		library.setLastModified( library.lastModified( ) + 2000 );
+		open( design, null );
+		open( design, null );
+
+		CacheStatistics statistics = cache.getStatistics( );
+		assertEquals( 2, statistics.getMissCount( ) );
+		assertEquals( 2, statistics.getHitCount( ) );
+	}
+
+	/**
+	 * The least recently used designs are evicted once there are too many of
+	 * them.
+	 */
+	public void testEviction( ) throws Exception
+	{
+		File a = writeDesign( "a.rptdesign", "a", false ); //$NON-NLS-1$ //$NON-NLS-2$
+		File b = writeDesign( "b.rptdesign", "b", false ); //$NON-NLS-1$ //$NON-NLS-2$
+		File c = writeDesign( "c.rptdesign", "c", false ); //$NON-NLS-1$ //$NON-NLS-2$
+		open( a, null );
+		open( b, null );
+		// a is used more recently than b
+		open( a, null );
+		open( c, null );
+
+		CacheStatistics statistics = cache.getStatistics( );
+		assertEquals( 2, cache.size( ) );
+		assertEquals( 1, statistics.getEvictionCount( ) );
+
+		// b is evicted, a is still cached
+		open( a, null );
+		assertEquals( 2, statistics.getHitCount( ) );
+		open( b, null );
+		assertEquals( 4, statistics.getMissCount( ) );
+		assertEquals( 2, statistics.getEvictionCount( ) );
+
+		cache.setMaxSize( 0 );
+		assertEquals( 0, cache.size( ) );
+		assertEquals( 4, statistics.getEvictionCount( ) );
+		assertEquals( "a", getLabel( open( a, null ) ) ); //$NON-NLS-1$
+		assertEquals( 0, cache.size( ) );
+	}
+
+	private IReportRunnable open( File design, Map options ) throws Exception
+	{
+		return cache.openReportDesign( design, design.toURI( ).toURL( )
+				.toString( ), options );
+	}
+
+	private static String getLabel( IReportRunnable runnable )
+	{
+		ReportDesignHandle design = (ReportDesignHandle) runnable
+				.getDesignHandle( );
+		return ( (LabelHandle) design.getBody( ).get( 0 ) ).getText( );
+	}
+
+	private File writeDesign( String name, String label, boolean library )
+			throws IOException
+	{
+		StringBuffer buffer = new StringBuffer( );
+		buffer.append( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" ); //$NON-NLS-1$
+		buffer.append( "<report xmlns=\"http://www.eclipse.org/birt/2005/design\" version=\"3.2.7\" id=\"1\">\n" ); //$NON-NLS-1$
+		if ( library )
+		{
+			buffer.append( "<list-property name=\"libraries\"><structure>" ); //$NON-NLS-1$
+			buffer.append( "<property name=\"fileName\">" ).append( LIBRARY ) //$NON-NLS-1$
+					.append( "</property>" ); //$NON-NLS-1$
+			buffer.append( "<property name=\"namespace\">cache</property>" ); //$NON-NLS-1$
+			buffer.append( "</structure></list-property>\n" ); //$NON-NLS-1$
+		}
+		buffer.append( "<page-setup><simple-master-page name=\"Simple MasterPage\" id=\"2\"/></page-setup>\n" ); //$NON-NLS-1$
+		buffer.append( "<body><label id=\"3\"><text-property name=\"text\">" ) //$NON-NLS-1$
+				.append( label ).append( "</text-property></label></body>\n" ); //$NON-NLS-1$
+		buffer.append( "</report>\n" ); //$NON-NLS-1$
+		return writeFile( name, buffer.toString( ) );
+	}
+
+	private File writeLibrary( ) throws IOException
+	{
+		StringBuffer buffer = new StringBuffer( );
+		buffer.append( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" ); //$NON-NLS-1$
+		buffer.append( "<library xmlns=\"http://www.eclipse.org/birt/2005/design\" version=\"3.2.7\" id=\"1\">\n" ); //$NON-NLS-1$
+		buffer.append( "<page-setup><simple-master-page name=\"Simple MasterPage\" id=\"2\"/></page-setup>\n" ); //$NON-NLS-1$
+		buffer.append( "</library>\n" ); //$NON-NLS-1$
+		return writeFile( LIBRARY, buffer.toString( ) );
+	}
+
+	private File writeFile( String name, String content ) throws IOException
+	{
+		File file = new File( folder, name );
+		FileOutputStream out = new FileOutputStream( file );
+		try
+		{
+			out.write( content.getBytes( "UTF-8" ) ); //$NON-NLS-1$
+		}
+		finally
+		{
+			out.close( );
+		}
+		return file;
+	}
+}
@@ -0,0 +1,372 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.birt.core.util.CacheStatistics;
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.IReportRunnable;
+import org.eclipse.birt.report.engine.i18n.MessageConstants;
+import org.eclipse.birt.report.model.api.LibraryHandle;
+import org.eclipse.birt.report.model.api.ReportDesignHandle;
+
+/**
+ * The cache of the parsed report designs, so the requests on the same design
+ * don't parse the design file and its libraries again.
+ *
+ * The designs are keyed by the canonical path of the design file and the
+ * module options they are opened with. A cached design is parsed again once
+ * the modification time or the length of the design file or of one of its
+ * libraries changes. The designs using libraries out of the file system are
+ * not cached, as their changes can't be detected.
+ *
+ * The parsed design is never handed out, each request gets a copy of it, as
+ * the tasks change the design they run. The number of cached designs is
+ * limited, the least recently used designs are evicted first.
+ */
+public class ReportDesignCache
+{
+
+	private IReportEngine engine;
+	private int maxSize;
+
+	// access-ordered LRU map
+	private final LinkedHashMap<DesignKey, CachedDesign> designs = new LinkedHashMap<DesignKey, CachedDesign>(
+			16, 0.75f, true );
+
+	private final CacheStatistics statistics = new CacheStatistics( );
+
+	/**
+	 * @param engine
+	 *            the engine opening the designs
+	 * @param maxSize
+	 *            the max count of cached designs
+	 */
+	public ReportDesignCache( IReportEngine engine, int maxSize )
+	{
+		this.engine = engine;
+		setMaxSize( maxSize );
+	}
+
+	/**
+	 * change the max count of cached designs. The designs exceeding the new
+	 * limit are evicted immediately.
+	 *
+	 * @param maxSize
+	 *            the max count, 0 to disable the cache.
+	 */
+	public synchronized void setMaxSize( int maxSize )
+	{
+		this.maxSize = Math.max( 0, maxSize );
+		evict( );
+	}
+
+	public synchronized int getMaxSize( )
+	{
+		return maxSize;
+	}
+
+	/**
+	 * @return the count of cached designs.
+	 */
+	public synchronized int size( )
+	{
+		return designs.size( );
+	}
+
+	public CacheStatistics getStatistics( )
+	{
+		return statistics;
+	}
+
+	/**
+	 * remove all the cached designs.
+	 */
+	public synchronized void clear( )
+	{
+		designs.clear( );
+	}
+
+	/**
+	 * Open a report design file. The design is parsed if it isn't cached or
+	 * it is changed since it is cached.
+	 *
+	 * @param file
+	 *            the design file
+	 * @param systemId
+	 *            the system id of the design
+	 * @param options
+	 *            the module options, can be null
+	 * @return the report runnable owned by the caller
+	 * @throws EngineException
+	 */
+	public IReportRunnable openReportDesign( File file, String systemId,
+			Map options ) throws EngineException
+	{
+		DesignKey key = new DesignKey( getCanonicalPath( file ), options );
+		CachedDesign design;
+		synchronized ( this )
+		{
+			design = designs.get( key );
+			if ( design == null )
+			{
+				design = new CachedDesign( );
+				designs.put( key, design );
+				evict( );
+			}
+		}
+
+		// the design is loaded and copied by one thread at a time, the other
+		// requests on it wait for the result instead of parsing it again
+		synchronized ( design )
+		{
+			if ( design.runnable != null && !design.isModified( file ) )
+			{
+				statistics.recordHit( );
+			}
+			else
+			{
+				statistics.recordMiss( );
+				long start = System.nanoTime( );
+				design.load( file, systemId, options );
+				statistics.recordLoad( System.nanoTime( ) - start );
+				if ( !design.cacheable )
+				{
+					IReportRunnable runnable = design.runnable;
+					design.runnable = null;
+					return runnable;
+				}
+			}
+			return copyRunnable( design.runnable );
+		}
+	}
+
+	private IReportRunnable copyRunnable( IReportRunnable runnable )
+			throws EngineException
+	{
+		ReportDesignHandle copy = (ReportDesignHandle) runnable
+				.getDesignHandle( ).copy( ).getHandle( null );
+		copy.setFileName( runnable.getReportName( ) );
+		return engine.openReportDesign( copy );
+	}
+
+	private void evict( )
+	{
+		Iterator<Map.Entry<DesignKey, CachedDesign>> iter = designs.entrySet( )
+				.iterator( );
+		while ( designs.size( ) > maxSize && iter.hasNext( ) )
+		{
+			iter.next( );
+			iter.remove( );
+			statistics.recordEviction( );
+		}
+	}
+
+	private static String getCanonicalPath( File file )
+	{
+		try
+		{
+			return file.getCanonicalPath( );
+		}
+		catch ( IOException e )
+		{
+			return file.getAbsolutePath( );
+		}
+	}
+
+	/**
+	 * @param fileName
+	 *            the file name or the URL of a library
+	 * @return the library file, null if it isn't in the file system
+	 */
+	private static File getFile( String fileName )
+	{
+		if ( fileName == null )
+		{
+			return null;
+		}
+		URL url;
+		try
+		{
+			url = new URL( fileName );
+		}
+		catch ( MalformedURLException e )
+		{
+			// not a URL, just a file path
+			return new File( fileName );
+		}
+		if ( !"file".equals( url.getProtocol( ) ) ) //$NON-NLS-1$
+		{
+			return null;
+		}
+		try
+		{
+			return new File( url.toURI( ) );
+		}
+		catch ( URISyntaxException e )
+		{
+			// the URL is not encoded
+			return new File( url.getPath( ) );
+		}
+		catch ( IllegalArgumentException e )
+		{
+			return null;
+		}
+	}
+
+	private static class DesignKey
+	{
+
+		final String fileName;
+		final Map options;
+		final int hashCode;
+
+		DesignKey( String fileName, Map options )
+		{
+			this.fileName = fileName;
+			this.options = options == null ? new HashMap( )
+					: new HashMap( options );
+			this.hashCode = fileName.hashCode( ) * 31 + this.options.hashCode( );
+		}
+
+		public int hashCode( )
+		{
+			return hashCode;
+		}
+
+		public boolean equals( Object obj )
+		{
+			if ( this == obj )
+			{
+				return true;
+			}
+			if ( !( obj instanceof DesignKey ) )
+			{
+				return false;
+			}
+			DesignKey key = (DesignKey) obj;
+			return hashCode == key.hashCode
+					&& fileName.equals( key.fileName )
+					&& options.equals( key.options );
+		}
+	}
+
+	private class CachedDesign
+	{
+
+		IReportRunnable runnable;
+		boolean cacheable;
+
+		// the design file is the first one, then the libraries
+		File[] files;
+		long[] lastModified;
+		long[] length;
+
+		void load( File file, String systemId, Map options )
+				throws EngineException
+		{
+			runnable = null;
+
+			// get the time stamps before parsing, so a change during the
+			// parsing is detected by the next request
+			long designModified = file.lastModified( );
+			long designLength = file.length( );
+			InputStream in;
+			try
+			{
+				in = new FileInputStream( file );
+			}
+			catch ( FileNotFoundException e )
+			{
+				throw new EngineException( MessageConstants.DESIGN_FILE_NOT_FOUND_EXCEPTION,
+						file.getPath( ) );
+			}
+			IReportRunnable newRunnable;
+			try
+			{
+				newRunnable = engine.openReportDesign( systemId, in, options );
+			}
+			finally
+			{
+				try
+				{
+					in.close( );
+				}
+				catch ( IOException e )
+				{
+				}
+			}
+
+			List<File> newFiles = new ArrayList<File>( );
+			newFiles.add( file );
+			cacheable = true;
+			List libraries = ( (ReportDesignHandle) newRunnable
+					.getDesignHandle( ) ).getAllLibraries( );
+			for ( int i = 0; i < libraries.size( ); i++ )
+			{
+				File library = getFile( ( (LibraryHandle) libraries.get( i ) )
+						.getFileName( ) );
+				if ( library == null )
+				{
+					cacheable = false;
+					break;
+				}
+				newFiles.add( library );
+			}
+
+			files = newFiles.toArray( new File[newFiles.size( )] );
+			lastModified = new long[files.length];
+			length = new long[files.length];
+			lastModified[0] = designModified;
+			length[0] = designLength;
+			for ( int i = 1; i < files.length; i++ )
+			{
+				lastModified[i] = files[i].lastModified( );
+				length[i] = files[i].length( );
+			}
+			runnable = newRunnable;
+		}
+
+		boolean isModified( File file )
+		{
+			if ( !file.equals( files[0] ) )
+			{
+				// the same canonical file opened by another path
+				files[0] = file;
+			}
+			for ( int i = 0; i < files.length; i++ )
+			{
+				if ( files[i].lastModified( ) != lastModified[i]
+						|| files[i].length( ) != length[i] )
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
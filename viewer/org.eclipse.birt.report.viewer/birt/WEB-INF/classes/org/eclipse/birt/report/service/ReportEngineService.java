@@ -36,10 +36,12 @@ import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 
+import org.eclipse.birt.core.archive.compound.ArchiveFile;
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.core.framework.IPlatformContext;
 import org.eclipse.birt.core.framework.Platform;
 import org.eclipse.birt.core.framework.PlatformServletContext;
+import org.eclipse.birt.core.util.CacheStatistics;
 import org.eclipse.birt.data.engine.api.IBaseDataSetDesign;
 import org.eclipse.birt.data.engine.api.IBaseDataSourceDesign;
 import org.eclipse.birt.report.IBirtConstants;
@@ -126,6 +128,11 @@ public class ReportEngineService
 	 */
 	private IReportEngine engine = null;
 
+	/**
+	 * Cache of the parsed report designs, null if it is disabled.
+	 */
+	private ReportDesignCache designCache = null;
+
 	/**
 	 * Static engine config instance.
 	 */
@@ -225,6 +232,12 @@ public class ReportEngineService
 		// set maxrows
 		config.setMaxRowsPerQuery( ParameterAccessor.maxRows );
 
+		// set the block cache shared by the opened documents
+		if ( ParameterAccessor.archiveCacheSize > 0 )
+		{
+			config.setArchiveCacheSize( (long) ParameterAccessor.archiveCacheSize * 1024 * 1024 );
+		}
+
 		// configure the loggers
 		LoggingUtil.configureLoggers( ParameterAccessor.loggers,
 				level,
@@ -271,6 +284,49 @@ public class ReportEngineService
 		ReportEngineService.instance = new ReportEngineService( servletContext );
 	}
 
+	/**
+	 * Get the statistics of the block cache shared by the opened report
+	 * documents.
+	 * 
+	 * @return the cache statistics
+	 */
+	public CacheStatistics getDocumentCacheStatistics( )
+	{
+		return ArchiveFile.sharedBlockCache.getStatistics( );
+	}
+
+	/**
+	 * Get the used size of the block cache shared by the opened report
+	 * documents.
+	 * 
+	 * @return the used cache size in bytes
+	 */
+	public long getDocumentCacheUsedSize( )
+	{
+		return ArchiveFile.sharedBlockCache.getUsedCacheSize( );
+	}
+
+	/**
+	 * Get the statistics of the cache of the parsed report designs.
+	 * 
+	 * @return the cache statistics, null if the cache is disabled
+	 */
+	public CacheStatistics getDesignCacheStatistics( )
+	{
+		return designCache == null ? null : designCache.getStatistics( );
+	}
+
+	/**
+	 * Remove all the cached report designs.
+	 */
+	public void clearDesignCache( )
+	{
+		if ( designCache != null )
+		{
+			designCache.clear( );
+		}
+	}
+
 	/**
 	 * Get all the files under the specified folder (including all the files
 	 * under sub-folders)
@@ -343,6 +399,12 @@ public class ReportEngineService
 			}
 			engine = factory.createReportEngine( config );
 
+			if ( ParameterAccessor.designCacheSize > 0 )
+			{
+				designCache = new ReportDesignCache( engine,
+						ParameterAccessor.designCacheSize );
+			}
+
 			// Get supported output formats
 			ParameterAccessor.supportedFormats = engine.getSupportedFormats( );
 
@@ -380,18 +442,24 @@ public class ReportEngineService
 					report );
 		}
 
+		String systemId = report;
+		try
+		{
+			systemId = file.toURI( ).toURL( ).toString( );
+		}
+		catch ( MalformedURLException ue )
+		{
+			systemId = report;
+		}
+
+		if ( designCache != null )
+		{
+			return designCache.openReportDesign( file, systemId, options );
+		}
+
 		try
 		{
 			InputStream in = new FileInputStream( file );
-			String systemId = report;
-			try
-			{
-				systemId = file.toURI( ).toURL( ).toString( );
-			}
-			catch ( MalformedURLException ue )
-			{
-				systemId = report;
-			}
 			return engine.openReportDesign( systemId, in, options );
 		}
 		catch ( FileNotFoundException ioe )
@@ -446,6 +446,18 @@ public class ParameterAccessor
 	 */
 	public static final String INIT_PARAM_VIEWER_CUBEMEMSIZE = "BIRT_VIEWER_CUBE_MEMORY_SIZE"; //$NON-NLS-1$
 
+	/**
+	 * Context parameter name that gives the size of the block cache shared by
+	 * the opened report documents.
+	 */
+	public static final String INIT_PARAM_VIEWER_ARCHIVE_CACHE_SIZE = "BIRT_VIEWER_DOCUMENT_CACHE_SIZE"; //$NON-NLS-1$
+
+	/**
+	 * Context parameter name that gives the max count of the parsed report
+	 * designs cached by the viewer.
+	 */
+	public static final String INIT_PARAM_VIEWER_DESIGN_CACHE_SIZE = "BIRT_VIEWER_DESIGN_CACHE_SIZE"; //$NON-NLS-1$
+
 	/**
 	 * Context parameter name that if always overwrite generated document file.
 	 */
@@ -532,6 +544,16 @@ public class ParameterAccessor
 	 */
 	public static int cubeMemorySize;
 
+	/**
+	 * Shared report document cache size in MB
+	 */
+	public static int archiveCacheSize;
+
+	/**
+	 * Max count of the cached report designs
+	 */
+	public static int designCacheSize;
+
 	/**
 	 * Current web application locale.
 	 */
@@ -1620,6 +1642,28 @@ public class ParameterAccessor
 			cubeMemorySize = 0;
 		}
 
+		// Get shared report document cache size parameter from ServletContext
+		String s_archiveCacheSize = context.getInitParameter( INIT_PARAM_VIEWER_ARCHIVE_CACHE_SIZE );
+		try
+		{
+			archiveCacheSize = Integer.valueOf( s_archiveCacheSize ).intValue( );
+		}
+		catch ( NumberFormatException e )
+		{
+			archiveCacheSize = 0;
+		}
+
+		// Get report design cache size parameter from ServletContext
+		String s_designCacheSize = context.getInitParameter( INIT_PARAM_VIEWER_DESIGN_CACHE_SIZE );
+		try
+		{
+			designCacheSize = Integer.valueOf( s_designCacheSize ).intValue( );
+		}
+		catch ( NumberFormatException e )
+		{
+			designCacheSize = 0;
+		}
+
 		// default resource path
 		String initResourceFolder = context.getInitParameter( INIT_PARAM_BIRT_RESOURCE_PATH );
 		if ( isDesigner && initResourceFolder == null )